@@ -76,6 +76,7 @@ public final class JetUML extends Application
 			((EditorFrame)((Stage)pWindowEvent.getSource()).getScene().getRoot()).exit();
 		});
 		pStage.show();
+		((EditorFrame)pStage.getScene().getRoot()).restoreUnsavedDiagrams();
 		
 		if(UserPreferences.instance().getBoolean(UserPreferences.BooleanPreference.showTips))
 		{
@@ -122,4 +123,4 @@ public final class JetUML extends Application
 		pStage.setWidth(defaultStageBounds.getWidth());
 		pStage.setHeight(defaultStageBounds.getHeight());
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
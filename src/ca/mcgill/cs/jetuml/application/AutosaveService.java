@@ -0,0 +1,548 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.application;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
+import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreferenceChangeHandler;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationObserver;
+import ca.mcgill.cs.jetuml.persistence.DeserializationException;
+import ca.mcgill.cs.jetuml.persistence.DiagramJournal;
+import ca.mcgill.cs.jetuml.persistence.JsonEncoder;
+import ca.mcgill.cs.jetuml.persistence.PersistenceService;
+
+/**
+ * Keeps a recovery copy of a diagram that has unsaved changes, so that
+ * the changes can be restored if the application terminates abnormally.
+ * 
+ * The recovery copy consists of a snapshot of the entire diagram and of 
+ * a journal of the changes made since the snapshot was taken. Taking a 
+ * snapshot only requires duplicating the diagram on the calling thread:
+ * encoding the copy and writing the files is done by a background thread 
+ * shared by all instances, which also appends the journal entries in order. 
+ * A new snapshot is taken when the journal becomes too long, or when an 
+ * operation does not describe the elements it affects.
+ * 
+ * The recovery files of a process are named after its session, and the 
+ * process holds a lock on the lock file of its session for as long as it runs. 
+ * This way, the recovery files of another instance of the application that 
+ * is still running are never recovered.
+ * 
+ * The time spent capturing the state of diagrams and writing recovery files 
+ * is recorded in the AUTOSAVE_CAPTURE and AUTOSAVE_WRITE timers of Metrics.
+ * 
+ * This class is not thread-safe: except for the static methods and the 
+ * statistics, it must only be used from the thread that modifies the diagram.
+ */
+public final class AutosaveService implements DiagramOperationObserver, BooleanPreferenceChangeHandler
+{
+	private static final int MAX_JOURNAL_ENTRIES = 100;
+	private static final long FLUSH_TIMEOUT_SECONDS = 10;
+	private static final String SNAPSHOT_EXTENSION = ".jet";
+	private static final String JOURNAL_EXTENSION = ".journal";
+	private static final String LOCK_EXTENSION = ".lock";
+	private static final char SESSION_SEPARATOR = '_';
+	private static final String KEY_GENERATION = "generation";
+	private static final String KEY_FILE = "file";
+	private static final String SESSION = UUID.randomUUID().toString();
+	private static final Metrics.Timer CAPTURE_TIMER = Metrics.timer(Metrics.AUTOSAVE_CAPTURE);
+	private static final Metrics.Timer WRITE_TIMER = Metrics.timer(Metrics.AUTOSAVE_WRITE);
+	private static final File DEFAULT_DIRECTORY = 
+			new File(System.getProperty("user.home"), ".jetuml" + File.separator + "recovery");
+	
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(pTask -> 
+	{
+		Thread thread = new Thread(pTask, "JetUML Autosave");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	// Only accessed by the writer thread
+	private static final Map<Path, FileLock> LOCKS = new HashMap<>();
+	
+	private final Diagram aDiagram;
+	private final Path aSnapshotFile;
+	private final Path aJournalFile;
+	private Optional<File> aFile = Optional.empty();
+	private boolean aEnabled = UserPreferences.instance().getBoolean(BooleanPreference.autosave);
+	private Optional<DiagramJournal> aJournal = Optional.empty();
+	private int aJournalLength = 0;
+	private int aGeneration = 0;
+	
+	private final AtomicInteger aSnapshotCount = new AtomicInteger();
+	private final AtomicInteger aJournalEntryCount = new AtomicInteger();
+	private final AtomicInteger aFailureCount = new AtomicInteger();
+	
+	/**
+	 * Creates a service that keeps its recovery files in the default 
+	 * recovery directory.
+	 * 
+	 * @param pDiagram The diagram to protect.
+	 * @pre pDiagram != null
+	 */
+	public AutosaveService(Diagram pDiagram)
+	{
+		this(pDiagram, DEFAULT_DIRECTORY);
+	}
+	
+	/**
+	 * Creates a service that keeps its recovery files in pDirectory. 
+	 * Nothing is written until the diagram is changed.
+	 * 
+	 * @param pDiagram The diagram to protect.
+	 * @param pDirectory The directory where to store the recovery files. 
+	 *     Created if necessary.
+	 * @pre pDiagram != null && pDirectory != null
+	 */
+	public AutosaveService(Diagram pDiagram, File pDirectory)
+	{
+		assert pDiagram != null && pDirectory != null;
+		aDiagram = pDiagram;
+		String name = SESSION + SESSION_SEPARATOR + UUID.randomUUID().toString();
+		aSnapshotFile = pDirectory.toPath().resolve(name + SNAPSHOT_EXTENSION);
+		aJournalFile = pDirectory.toPath().resolve(name + JOURNAL_EXTENSION);
+	}
+	
+	/**
+	 * @return The directory where recovery files are stored by default.
+	 */
+	public static File defaultDirectory()
+	{
+		return DEFAULT_DIRECTORY;
+	}
+	
+	/**
+	 * Sets the file the diagram is saved to, so that a diagram recovered
+	 * from the next snapshot is associated with the same file.
+	 * 
+	 * @param pFile The file of the diagram.
+	 * @pre pFile != null
+	 */
+	public void setFile(File pFile)
+	{
+		assert pFile != null;
+		aFile = Optional.of(pFile);
+	}
+	
+	@Override
+	public void operationExecuted(DiagramOperation pOperation)
+	{
+		record(pOperation);
+	}
+
+	@Override
+	public void operationUndone(DiagramOperation pOperation)
+	{
+		record(pOperation);
+	}
+	
+	@Override
+	public void preferenceChanged(BooleanPreference pPreference)
+	{
+		if( pPreference == BooleanPreference.autosave )
+		{
+			aEnabled = UserPreferences.instance().getBoolean(BooleanPreference.autosave);
+			if( !aEnabled )
+			{
+				discard();
+			}
+		}
+	}
+	
+	private void record(DiagramOperation pOperation)
+	{
+		if( !aEnabled )
+		{
+			return;
+		}
+		Optional<List<DiagramElement>> elements = pOperation.getAffectedElements();
+		if( !aJournal.isPresent() || !elements.isPresent() || aJournalLength >= MAX_JOURNAL_ENTRIES )
+		{
+			snapshot();
+			return;
+		}
+		long start = CAPTURE_TIMER.start();
+		String entry = aJournal.get().record(elements.get()).toString();
+		aJournalLength++;
+		CAPTURE_TIMER.stop(start);
+		submit(() -> 
+		{
+			Files.write(aJournalFile, List.of(entry), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+			aJournalEntryCount.incrementAndGet();
+		});
+	}
+	
+	/**
+	 * Writes a recovery copy of the entire diagram in its current state, and 
+	 * starts a new journal of changes. Only the duplication of the diagram 
+	 * takes place on the calling thread.
+	 */
+	public void snapshot()
+	{
+		long start = CAPTURE_TIMER.start();
+		Diagram copy = aDiagram.duplicate();
+		aJournal = Optional.of(new DiagramJournal(aDiagram));
+		aJournalLength = 0;
+		aGeneration++;
+		int generation = aGeneration;
+		Optional<File> file = aFile;
+		CAPTURE_TIMER.stop(start);
+		submit(() -> 
+		{
+			Files.createDirectories(aSnapshotFile.getParent());
+			lockSession(aSnapshotFile.getParent());
+			JSONObject header = new JSONObject().put(KEY_GENERATION, generation);
+			JSONObject snapshot = JsonEncoder.encode(copy).put(KEY_GENERATION, generation);
+			file.ifPresent(pFile -> snapshot.put(KEY_FILE, pFile.getAbsolutePath()));
+			PersistenceService.write(snapshot, aSnapshotFile.toFile());
+			Files.write(aJournalFile, List.of(header.toString()), StandardCharsets.UTF_8);
+			aSnapshotCount.incrementAndGet();
+		});
+	}
+	
+	/**
+	 * Deletes the recovery copy of the diagram, typically because the diagram 
+	 * has been saved. A new copy is started the next time the diagram changes.
+	 */
+	public void discard()
+	{
+		aJournal = Optional.empty();
+		aJournalLength = 0;
+		submit(() -> 
+		{
+			Files.deleteIfExists(aJournalFile);
+			Files.deleteIfExists(aSnapshotFile);
+		});
+	}
+	
+	/*
+	 * The lock is never released: it is released by the operating system 
+	 * when the process terminates.
+	 */
+	private static void lockSession(Path pDirectory) throws IOException
+	{
+		if( !LOCKS.containsKey(pDirectory) )
+		{
+			FileChannel channel = FileChannel.open(pDirectory.resolve(SESSION + LOCK_EXTENSION), 
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			LOCKS.put(pDirectory, channel.tryLock());
+		}
+	}
+	
+	private void submit(IOTask pTask)
+	{
+		WRITER.execute(() -> 
+		{
+			long start = WRITE_TIMER.start();
+			try
+			{
+				pTask.run();
+			}
+			catch( IOException | RuntimeException exception )
+			{
+				aFailureCount.incrementAndGet();
+			}
+			WRITE_TIMER.stop(start);
+		});
+	}
+	
+	/**
+	 * @return The number of snapshots written so far.
+	 */
+	public int getSnapshotCount()
+	{
+		return aSnapshotCount.get();
+	}
+	
+	/**
+	 * @return The number of journal entries written so far.
+	 */
+	public int getJournalEntryCount()
+	{
+		return aJournalEntryCount.get();
+	}
+	
+	/**
+	 * @return The number of snapshots, entries, or deletions that could not be written.
+	 */
+	public int getFailureCount()
+	{
+		return aFailureCount.get();
+	}
+	
+	/**
+	 * Blocks until all the recovery files submitted so far have been written, 
+	 * or until a timeout expires.
+	 */
+	public static void flush()
+	{
+		try
+		{
+			WRITER.submit(() -> {}).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+		catch( InterruptedException exception )
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch( ExecutionException | TimeoutException exception )
+		{
+			// Nothing more can be done at this point
+		}
+	}
+	
+	/**
+	 * Restores the diagrams whose recovery files are found in pDirectory, 
+	 * except those of the sessions of other instances of the application 
+	 * that are still running. Recovery files that cannot be decoded are 
+	 * ignored. The files are not deleted.
+	 * 
+	 * @param pDirectory The directory that contains the recovery files.
+	 * @return The restored diagrams.
+	 * @pre pDirectory != null
+	 */
+	public static List<RecoveredDiagram> recover(File pDirectory)
+	{
+		assert pDirectory != null;
+		List<RecoveredDiagram> result = new ArrayList<>();
+		for( Path snapshot : recoveryFiles(pDirectory, SNAPSHOT_EXTENSION) )
+		{
+			if( isLocked(snapshot.resolveSibling(session(snapshot) + LOCK_EXTENSION)) )
+			{
+				continue;
+			}
+			try
+			{
+				result.add(restore(snapshot));
+			}
+			catch( IOException | DeserializationException | JSONException exception )
+			{
+				// Ignore this file
+			}
+		}
+		return result;
+	}
+	
+	/*
+	 * Entries written after the last complete one may be truncated, and 
+	 * the journal may belong to a previous snapshot if the application 
+	 * was terminated while the snapshot was written. In both cases the 
+	 * corresponding entries are not replayed.
+	 */
+	private static RecoveredDiagram restore(Path pSnapshot) throws IOException
+	{
+		Path journalFile = journalFile(pSnapshot);
+		JSONObject snapshot = new JSONObject(Files.readString(pSnapshot, StandardCharsets.UTF_8));
+		List<JSONObject> entries = new ArrayList<>();
+		if( Files.exists(journalFile) )
+		{
+			List<String> lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+			if( !lines.isEmpty() && 
+					generation(new JSONObject(lines.get(0))) == generation(snapshot) )
+			{
+				try
+				{
+					for( String line : lines.subList(1, lines.size()) )
+					{
+						entries.add(new JSONObject(line));
+					}
+				}
+				catch( JSONException exception )
+				{
+					// Only keep the complete entries
+				}
+			}
+		}
+		Optional<File> file = Optional.empty();
+		if( snapshot.has(KEY_FILE) )
+		{
+			file = Optional.of(new File(snapshot.getString(KEY_FILE)));
+		}
+		return new RecoveredDiagram(DiagramJournal.replay(snapshot, entries), file, pSnapshot);
+	}
+	
+	private static int generation(JSONObject pObject)
+	{
+		if( pObject.has(KEY_GENERATION) )
+		{
+			return pObject.getInt(KEY_GENERATION);
+		}
+		return -1;
+	}
+	
+	private static Path journalFile(Path pSnapshot)
+	{
+		String name = pSnapshot.getFileName().toString();
+		return pSnapshot.resolveSibling(name.substring(0, name.length() - SNAPSHOT_EXTENSION.length()) + JOURNAL_EXTENSION);
+	}
+	
+	/*
+	 * Recovery files written before sessions were introduced have no session, 
+	 * in which case the name of the file is returned.
+	 */
+	private static String session(Path pFile)
+	{
+		String name = pFile.getFileName().toString();
+		int separator = name.indexOf(SESSION_SEPARATOR);
+		if( separator < 0 )
+		{
+			return name;
+		}
+		return name.substring(0, separator);
+	}
+	
+	/*
+	 * The session of this process is never considered locked. Closing the 
+	 * channel could release the lock held by this process on the file, so 
+	 * the lock held by this process is never tested.
+	 */
+	private static boolean isLocked(Path pLockFile)
+	{
+		if( pLockFile.getFileName().toString().equals(SESSION + LOCK_EXTENSION) || !Files.exists(pLockFile) )
+		{
+			return false;
+		}
+		try( FileChannel channel = FileChannel.open(pLockFile, StandardOpenOption.WRITE) )
+		{
+			FileLock lock = channel.tryLock();
+			if( lock == null )
+			{
+				return true;
+			}
+			lock.release();
+			return false;
+		}
+		catch( OverlappingFileLockException exception )
+		{
+			return true;
+		}
+		catch( IOException exception )
+		{
+			return false;
+		}
+	}
+	
+	private static List<Path> recoveryFiles(File pDirectory, String pExtension)
+	{
+		List<Path> result = new ArrayList<>();
+		File[] files = pDirectory.listFiles((pDir, pName) -> pName.endsWith(pExtension));
+		if( files != null )
+		{
+			for( File file : files )
+			{
+				result.add(file.toPath());
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * A diagram restored from its recovery files.
+	 */
+	public static final class RecoveredDiagram
+	{
+		private final Diagram aDiagram;
+		private final Optional<File> aFile;
+		private final Path aSnapshot;
+		
+		private RecoveredDiagram(Diagram pDiagram, Optional<File> pFile, Path pSnapshot)
+		{
+			aDiagram = pDiagram;
+			aFile = pFile;
+			aSnapshot = pSnapshot;
+		}
+		
+		/**
+		 * @return The restored diagram.
+		 */
+		public Diagram getDiagram()
+		{
+			return aDiagram;
+		}
+		
+		/**
+		 * @return The file the diagram was saved to, if any.
+		 */
+		public Optional<File> getFile()
+		{
+			return aFile;
+		}
+		
+		/**
+		 * Deletes the recovery files of this diagram, and the lock file of its 
+		 * session once the session has no recovery files left. The recovery 
+		 * files of the other diagrams are not affected.
+		 */
+		public void delete()
+		{
+			String session = session(aSnapshot);
+			try
+			{
+				Files.deleteIfExists(journalFile(aSnapshot));
+				Files.deleteIfExists(aSnapshot);
+				List<Path> remaining = recoveryFiles(aSnapshot.getParent().toFile(), SNAPSHOT_EXTENSION);
+				remaining.addAll(recoveryFiles(aSnapshot.getParent().toFile(), JOURNAL_EXTENSION));
+				if( remaining.stream().noneMatch(pFile -> session(pFile).equals(session)) && !session.equals(SESSION) )
+				{
+					Files.deleteIfExists(aSnapshot.resolveSibling(session + LOCK_EXTENSION));
+				}
+			}
+			catch( IOException exception )
+			{
+				// The files will be found again next time
+			}
+		}
+	}
+	
+	/*
+	 * A unit of work for the background writer.
+	 */
+	private interface IOTask
+	{
+		void run() throws IOException;
+	}
+}
@@ -40,9 +40,12 @@ import javafx.stage.FileChooser.ExtensionFilter;
 public final class FileExtensions
 {
 	private static final String EXTENSION_JET = ".jet";
+	private static final String EXTENSION_BINARY = ".jetb";
 	
 	private static final ExtensionFilter FILTER_APPLICATION = 
 			new ExtensionFilter(RESOURCES.getString("application.file.name"), "*" + EXTENSION_JET);
+	private static final ExtensionFilter FILTER_BINARY = 
+			new ExtensionFilter(RESOURCES.getString("application.file.binary"), "*" + EXTENSION_BINARY);
 	private static final ExtensionFilter FILTER_ALL = 
 			new ExtensionFilter(RESOURCES.getString("application.file.all"), "*.*");
 	
@@ -63,8 +66,9 @@ public final class FileExtensions
 	
 	/**
 	 * @return An unmodifiable list of all filters applicable to the application. This list
-	 *     includes one filter for each diagram type, the general filter for all file 
-	 *     types, and the "application" filter for all diagram file types. Never null.
+	 *     includes one filter for each diagram type, the filter for binary diagram files,
+	 *     the general filter for all file types, and the "application" filter for all 
+	 *     diagram file types. Never null.
 	 */
 	public static List<ExtensionFilter> all()
 	{
@@ -73,6 +77,7 @@ public final class FileExtensions
 				.map(Map.Entry::getValue)
 				.collect(toList());
 		result.add(0, FILTER_APPLICATION);
+		result.add(FILTER_BINARY);
 		result.add(FILTER_ALL);
 		return Collections.unmodifiableList(result);
 	}
@@ -90,6 +95,17 @@ public final class FileExtensions
 		return aExtensionFilters.get(pDiagramType);
 	}
 	
+	/**
+	 * @param pFile The file to check.
+	 * @return True if pFile has the extension of diagram files saved in binary form.
+	 * @pre pFile != null
+	 */
+	public static boolean isBinary(File pFile)
+	{
+		assert pFile != null;
+		return pFile.getName().endsWith(EXTENSION_BINARY);
+	}
+	
 	/**
 	 * @param pFile The file to clip, if applicable.
 	 * @return A file with the same name as pFile, but with
@@ -100,13 +116,17 @@ public final class FileExtensions
 	public static File clipApplicationExtension(File pFile)
 	{
 		assert pFile != null;
-		if( !pFile.getAbsolutePath().endsWith(EXTENSION_JET))
+		String path = pFile.getAbsolutePath();
+		if( path.endsWith(EXTENSION_JET) )
+		{
+			return new File(path.substring(0, path.length() - EXTENSION_JET.length()));
+		}
+		if( path.endsWith(EXTENSION_BINARY) )
 		{
-			return pFile;
+			return new File(path.substring(0, path.length() - EXTENSION_BINARY.length()));
 		}
-		return new File(pFile.getAbsolutePath()
-				.substring(0, pFile.getAbsolutePath().length() - EXTENSION_JET.length()));
+		return pFile;
 	}
 }
 	
-	
\ No newline at end of file
+	
\ No newline at end of file
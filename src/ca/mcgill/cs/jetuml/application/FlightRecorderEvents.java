@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.application;
+
+import java.util.List;
+import java.util.Optional;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder events emitted by the application, so that user 
+ * actions can be correlated with latency in recordings. Each event records 
+ * the type of the diagram involved and its number of root nodes and edges. 
+ * 
+ * Events are emitted with the usual pattern: an event is created and begun 
+ * before the recorded action, then ended after it, and its fields are only 
+ * set if it should be committed. When no recording is in progress, an event 
+ * costs the allocation of an object that does not escape, which the compiler 
+ * can eliminate.
+ */
+public final class FlightRecorderEvents
+{
+	private static final String CATEGORY = "JetUML";
+	
+	private FlightRecorderEvents() {}
+	
+	/**
+	 * An event that concerns a diagram. The fields are protected because 
+	 * the recorder ignores the private fields of superclasses.
+	 */
+	@Category(CATEGORY)
+	@StackTrace(false)
+	public abstract static class DiagramEvent extends Event
+	{
+		@Name("diagramType")
+		@Label("Diagram Type")
+		protected String aDiagramType;
+		
+		@Name("rootNodes")
+		@Label("Root Nodes")
+		protected int aRootNodes;
+		
+		@Name("edges")
+		@Label("Edges")
+		protected int aEdges;
+		
+		/**
+		 * Records the type and size of pDiagram.
+		 * 
+		 * @param pDiagram The diagram involved in the event.
+		 * @pre pDiagram != null
+		 */
+		public void setDiagram(Diagram pDiagram)
+		{
+			assert pDiagram != null;
+			aDiagramType = pDiagram.getType().getName();
+			aRootNodes = pDiagram.rootNodes().size();
+			aEdges = pDiagram.edges().size();
+		}
+	}
+	
+	/**
+	 * The execution or the undoing of a diagram operation.
+	 */
+	@Name("jetuml.DiagramOperation")
+	@Label("Diagram Operation")
+	@Description("An operation executed or undone on a diagram")
+	public static final class OperationEvent extends DiagramEvent
+	{
+		@Name("undo")
+		@Label("Undo")
+		private boolean aUndo;
+		
+		@Name("affectedElements")
+		@Label("Affected Elements")
+		@Description("The number of elements affected by the operation, or -1 if unknown")
+		private int aAffectedElements;
+		
+		/**
+		 * Records the operation. The diagram it applies to is recorded 
+		 * separately with setDiagram, because it cannot be determined from
+		 * the operation in general.
+		 * 
+		 * @param pUndo True if the operation is undone.
+		 * @param pAffectedElements The elements affected by the operation, if known.
+		 */
+		public void setOperation(boolean pUndo, Optional<List<DiagramElement>> pAffectedElements)
+		{
+			aUndo = pUndo;
+			aAffectedElements = pAffectedElements.map(List::size).orElse(-1);
+		}
+	}
+	
+	/**
+	 * The saving or the reading of a diagram file.
+	 */
+	@Name("jetuml.DiagramFile")
+	@Label("Diagram File")
+	@Description("A diagram saved to or read from a file")
+	public static final class FileEvent extends DiagramEvent
+	{
+		@Name("save")
+		@Label("Save")
+		private boolean aSave;
+		
+		@Name("path")
+		@Label("Path")
+		private String aPath;
+		
+		@Name("size")
+		@Label("Size")
+		@DataAmount
+		private long aSize;
+		
+		@Name("failed")
+		@Label("Failed")
+		@Description("Whether the diagram could not be saved or read")
+		private boolean aFailed;
+		
+		/**
+		 * @param pSave True if the diagram is saved, false if it is read.
+		 * @param pPath The path of the file.
+		 * @param pSize The size of the file.
+		 * @param pFailed True if the diagram could not be saved or read.
+		 */
+		public void setFile(boolean pSave, String pPath, long pSize, boolean pFailed)
+		{
+			aSave = pSave;
+			aPath = pPath;
+			aSize = pSize;
+			aFailed = pFailed;
+		}
+	}
+	
+	/**
+	 * The migration of a diagram saved by an earlier version.
+	 */
+	@Name("jetuml.DiagramMigration")
+	@Label("Diagram Migration")
+	@Description("A diagram decoded and migrated from the format of an earlier version")
+	public static final class MigrationEvent extends DiagramEvent
+	{
+		@Name("sourceVersion")
+		@Label("Source Version")
+		private String aSourceVersion;
+		
+		@Name("migrated")
+		@Label("Migrated")
+		@Description("Whether the diagram was changed by the migration")
+		private boolean aMigrated;
+		
+		/**
+		 * @param pSourceVersion The version that saved the diagram.
+		 * @param pMigrated True if the diagram was changed by the migration.
+		 */
+		public void setMigration(String pSourceVersion, boolean pMigrated)
+		{
+			aSourceVersion = pSourceVersion;
+			aMigrated = pMigrated;
+		}
+	}
+	
+	/**
+	 * The rendering of a diagram, either on a canvas or to an image.
+	 */
+	@Name("jetuml.DiagramRendering")
+	@Label("Diagram Rendering")
+	@Description("A diagram painted on its canvas or rendered to an image")
+	public static final class RenderingEvent extends DiagramEvent
+	{
+		@Name("image")
+		@Label("Image")
+		@Description("Whether the diagram is rendered to an image rather than painted on its canvas")
+		private boolean aImage;
+		
+		@Name("width")
+		@Label("Width")
+		private int aWidth;
+		
+		@Name("height")
+		@Label("Height")
+		private int aHeight;
+		
+		/**
+		 * @param pImage True if the diagram is rendered to an image.
+		 * @param pWidth The width of the rendered area.
+		 * @param pHeight The height of the rendered area.
+		 */
+		public void setArea(boolean pImage, int pWidth, int pHeight)
+		{
+			aImage = pImage;
+			aWidth = pWidth;
+			aHeight = pHeight;
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.application;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.json.JSONObject;
+
+import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationObserver;
+import ca.mcgill.cs.jetuml.persistence.DiagramJournal;
+import ca.mcgill.cs.jetuml.persistence.PersistenceService;
+
+/**
+ * Saves a diagram to its file by appending the changes made since the 
+ * last save to the log of the file, instead of rewriting the entire diagram. 
+ * The log is compacted into the diagram file when it becomes too long, 
+ * when the diagram is closed, or whenever the changes since the last 
+ * save are not all described by their operations. 
+ * 
+ * Incremental saves are only used when enabled in the user preferences. 
+ * Otherwise, all saves rewrite the entire diagram.
+ */
+public final class IncrementalSaveService implements DiagramOperationObserver
+{
+	private static final int MAX_LOG_ENTRIES = 500;
+	
+	private final Diagram aDiagram;
+	private Optional<File> aFile = Optional.empty();
+	private Optional<DiagramJournal> aJournal = Optional.empty();
+	private final List<JSONObject> aPendingEntries = new ArrayList<>();
+	private int aLogLength = 0;
+	
+	/**
+	 * Creates a service to save pDiagram.
+	 * 
+	 * @param pDiagram The diagram to save.
+	 * @pre pDiagram != null
+	 */
+	public IncrementalSaveService(Diagram pDiagram)
+	{
+		assert pDiagram != null;
+		aDiagram = pDiagram;
+	}
+	
+	/**
+	 * Indicates that the diagram was just read from pFile. Changes can 
+	 * only be appended to the log of pFile if the diagram is in the exact 
+	 * state encoded in the file, that is, if it was neither migrated nor 
+	 * restored from an existing log.
+	 * 
+	 * @param pFile The file from which the diagram was read.
+	 * @param pMigrated True if the diagram was migrated from an older format.
+	 * @pre pFile != null
+	 */
+	public void diagramOpened(File pFile, boolean pMigrated)
+	{
+		assert pFile != null;
+		reset(pFile);
+		if( pMigrated || PersistenceService.logFileFor(pFile).exists() )
+		{
+			aJournal = Optional.empty();
+		}
+	}
+	
+	@Override
+	public void operationExecuted(DiagramOperation pOperation)
+	{
+		record(pOperation);
+	}
+
+	@Override
+	public void operationUndone(DiagramOperation pOperation)
+	{
+		record(pOperation);
+	}
+	
+	private void record(DiagramOperation pOperation)
+	{
+		if( !aJournal.isPresent() )
+		{
+			return;
+		}
+		Optional<List<DiagramElement>> elements = pOperation.getAffectedElements();
+		if( !elements.isPresent() || !isEnabled() )
+		{
+			aJournal = Optional.empty();
+			aPendingEntries.clear();
+			return;
+		}
+		aPendingEntries.add(aJournal.get().record(elements.get()));
+	}
+	
+	/**
+	 * Saves the diagram to pFile, incrementally if possible.
+	 * 
+	 * @param pFile The file in which to save the diagram.
+	 * @throws IOException If the diagram cannot be saved.
+	 * @pre pFile != null
+	 */
+	public void save(File pFile) throws IOException
+	{
+		assert pFile != null;
+		if( canAppendTo(pFile) && aLogLength + aPendingEntries.size() <= MAX_LOG_ENTRIES )
+		{
+			PersistenceService.appendToLog(pFile, aPendingEntries);
+			aLogLength += aPendingEntries.size();
+			aPendingEntries.clear();
+		}
+		else
+		{
+			compact(pFile);
+		}
+	}
+	
+	/**
+	 * Rewrites the entire diagram to its file if changes were saved incrementally,
+	 * so that the log of the file can be deleted. Should be called before the 
+	 * diagram is closed, if there are no unsaved changes.
+	 * 
+	 * @throws IOException If the diagram cannot be saved.
+	 */
+	public void compact() throws IOException
+	{
+		if( aFile.isPresent() && aLogLength > 0 )
+		{
+			compact(aFile.get());
+		}
+	}
+	
+	/**
+	 * @return The number of entries in the log of the file. 
+	 */
+	public int getLogLength()
+	{
+		return aLogLength;
+	}
+	
+	private void compact(File pFile) throws IOException
+	{
+		PersistenceService.save(aDiagram, pFile);
+		reset(pFile);
+	}
+	
+	private void reset(File pFile)
+	{
+		aFile = Optional.of(pFile);
+		aJournal = Optional.of(new DiagramJournal(aDiagram));
+		aPendingEntries.clear();
+		aLogLength = 0;
+	}
+	
+	private boolean canAppendTo(File pFile)
+	{
+		return isEnabled() && aJournal.isPresent() && aFile.isPresent() && 
+				aFile.get().getAbsoluteFile().equals(pFile.getAbsoluteFile());
+	}
+	
+	private static boolean isEnabled()
+	{
+		return UserPreferences.instance().getBoolean(BooleanPreference.incrementalSave);
+	}
+}
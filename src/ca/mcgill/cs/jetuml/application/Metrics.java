@@ -0,0 +1,403 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.application;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A registry of counters and timers for the hot paths of the application.
+ * Metrics are registered once, typically in static fields of the classes 
+ * they measure, and are only recorded while the registry is enabled. When 
+ * it is disabled, recording a metric costs a single field read, so the 
+ * instrumentation can stay in place.
+ * 
+ * Timers also keep a histogram of the durations they record, in buckets 
+ * whose bounds are powers of two of microseconds.
+ * 
+ * The names of the metrics of the application are declared here, so that
+ * the classes that record a metric and those that report it agree.
+ */
+public final class Metrics
+{
+	/**
+	 * The painting of a diagram canvas.
+	 */
+	public static final String CANVAS_PAINT = "canvas.paint";
+	
+	/**
+	 * The painting of the grid of a diagram canvas.
+	 */
+	public static final String CANVAS_PAINT_GRID = "canvas.paint.grid";
+	
+	/**
+	 * The painting of the diagram on its canvas.
+	 */
+	public static final String CANVAS_PAINT_DIAGRAM = "canvas.paint.diagram";
+	
+	/**
+	 * The painting of the selection on a diagram canvas.
+	 */
+	public static final String CANVAS_PAINT_SELECTION = "canvas.paint.selection";
+	
+	/**
+	 * The search for the element under the mouse.
+	 */
+	public static final String CANVAS_HIT_TEST = "canvas.hit_test";
+	
+	/**
+	 * The computation of the path of a segmented edge.
+	 */
+	public static final String EDGE_PATH = "edge.path";
+	
+	/**
+	 * The computations of the bounds of a node.
+	 */
+	public static final String NODE_BOUNDS = "node.bounds";
+	
+	/**
+	 * The snapshot of a diagram for its minimap.
+	 */
+	public static final String MINIMAP_SNAPSHOT = "minimap.snapshot";
+	
+	/**
+	 * The saving of a diagram to a file.
+	 */
+	public static final String PERSISTENCE_SAVE = "persistence.save";
+	
+	/**
+	 * The reading of a diagram from a file.
+	 */
+	public static final String PERSISTENCE_READ = "persistence.read";
+	
+	/**
+	 * A query of the search index of a diagram.
+	 */
+	public static final String SEARCH_QUERY = "search.query";
+	
+	/**
+	 * The computation of a force-directed layout.
+	 */
+	public static final String LAYOUT_FORCE_DIRECTED = "layout.force_directed";
+	
+	/**
+	 * The computation of a layered layout.
+	 */
+	public static final String LAYOUT_LAYERED = "layout.layered";
+	
+	/**
+	 * The import of a class diagram from compiled classes.
+	 */
+	public static final String IMPORT_BYTECODE = "import.bytecode";
+	
+	/**
+	 * The import of a sequence diagram from a trace.
+	 */
+	public static final String IMPORT_TRACE = "import.trace";
+	
+	/**
+	 * The rendering of the icon of a tool.
+	 */
+	public static final String ICON_RENDER = "icon.render";
+	
+	/**
+	 * The capture of the state of a diagram for its recovery copy.
+	 */
+	public static final String AUTOSAVE_CAPTURE = "autosave.capture";
+	
+	/**
+	 * The writing of a recovery file of a diagram.
+	 */
+	public static final String AUTOSAVE_WRITE = "autosave.write";
+	
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+	private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+	private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+	private static volatile boolean aEnabled = false;
+	
+	private Metrics() {}
+	
+	/**
+	 * @return True if metrics are being recorded.
+	 */
+	public static boolean isEnabled()
+	{
+		return aEnabled;
+	}
+	
+	/**
+	 * Starts or stops recording metrics. The metrics recorded so 
+	 * far are kept.
+	 * 
+	 * @param pEnabled True to record metrics.
+	 */
+	public static void setEnabled(boolean pEnabled)
+	{
+		aEnabled = pEnabled;
+	}
+	
+	/**
+	 * @param pName The name of the counter.
+	 * @return The counter registered under pName, which is created if necessary.
+	 * @pre pName != null
+	 */
+	public static Counter counter(String pName)
+	{
+		assert pName != null;
+		return COUNTERS.computeIfAbsent(pName, Counter::new);
+	}
+	
+	/**
+	 * @param pName The name of the timer.
+	 * @return The timer registered under pName, which is created if necessary.
+	 * @pre pName != null
+	 */
+	public static Timer timer(String pName)
+	{
+		assert pName != null;
+		return TIMERS.computeIfAbsent(pName, Timer::new);
+	}
+	
+	/**
+	 * @return All the registered counters, by name.
+	 */
+	public static Map<String, Counter> counters()
+	{
+		return Collections.unmodifiableMap(new TreeMap<>(COUNTERS));
+	}
+	
+	/**
+	 * @return All the registered timers, by name.
+	 */
+	public static Map<String, Timer> timers()
+	{
+		return Collections.unmodifiableMap(new TreeMap<>(TIMERS));
+	}
+	
+	/**
+	 * Clears the values of all the registered metrics.
+	 */
+	public static void reset()
+	{
+		COUNTERS.values().forEach(Counter::reset);
+		TIMERS.values().forEach(Timer::reset);
+	}
+	
+	/**
+	 * A counter of events.
+	 */
+	public static final class Counter
+	{
+		private final String aName;
+		private final LongAdder aCount = new LongAdder();
+		
+		private Counter(String pName)
+		{
+			aName = pName;
+		}
+		
+		/**
+		 * @return The name of this counter.
+		 */
+		public String getName()
+		{
+			return aName;
+		}
+		
+		/**
+		 * Counts one event, if metrics are enabled.
+		 */
+		public void increment()
+		{
+			if( aEnabled )
+			{
+				aCount.increment();
+			}
+		}
+		
+		/**
+		 * @return The number of events counted.
+		 */
+		public long count()
+		{
+			return aCount.sum();
+		}
+		
+		private void reset()
+		{
+			aCount.reset();
+		}
+	}
+	
+	/**
+	 * A timer of operations. An operation is timed by calling start() 
+	 * before it and stop() with the value returned by start() after it.
+	 */
+	public static final class Timer
+	{
+		private static final int BUCKETS = Long.SIZE;
+		private static final long NANOS_PER_MICRO = 1000;
+		
+		private final String aName;
+		private final LongAdder aCount = new LongAdder();
+		private final LongAdder aTotalNanos = new LongAdder();
+		private final AtomicLongArray aHistogram = new AtomicLongArray(BUCKETS);
+		private volatile long aLastNanos = 0;
+		
+		private Timer(String pName)
+		{
+			aName = pName;
+		}
+		
+		/**
+		 * @return The name of this timer.
+		 */
+		public String getName()
+		{
+			return aName;
+		}
+		
+		/**
+		 * @return A token to pass to stop() at the end of the timed operation.
+		 */
+		public long start()
+		{
+			return aEnabled ? System.nanoTime() : NOT_STARTED;
+		}
+		
+		/**
+		 * Records the duration of an operation, unless metrics were 
+		 * disabled when it started.
+		 * 
+		 * @param pStart The token returned by start() at the beginning of the operation.
+		 */
+		public void stop(long pStart)
+		{
+			if( pStart != NOT_STARTED )
+			{
+				record(System.nanoTime() - pStart);
+			}
+		}
+		
+		/**
+		 * Records the duration of an operation.
+		 * 
+		 * @param pNanos The duration of the operation, in nanoseconds.
+		 * @pre pNanos >= 0
+		 */
+		public void record(long pNanos)
+		{
+			assert pNanos >= 0;
+			aCount.increment();
+			aTotalNanos.add(pNanos);
+			aLastNanos = pNanos;
+			aHistogram.incrementAndGet(bucket(pNanos));
+		}
+		
+		/*
+		 * Durations under a microsecond fall in bucket 0, and durations
+		 * between 2^(i-1) and 2^i microseconds fall in bucket i.
+		 */
+		private static int bucket(long pNanos)
+		{
+			return BUCKETS - Long.numberOfLeadingZeros(pNanos / NANOS_PER_MICRO);
+		}
+		
+		/**
+		 * @return The number of operations timed.
+		 */
+		public long count()
+		{
+			return aCount.sum();
+		}
+		
+		/**
+		 * @return The total duration of the operations timed, in nanoseconds.
+		 */
+		public long totalNanos()
+		{
+			return aTotalNanos.sum();
+		}
+		
+		/**
+		 * @return The duration of the last operation timed, in nanoseconds.
+		 */
+		public long lastNanos()
+		{
+			return aLastNanos;
+		}
+		
+		/**
+		 * @return The mean duration of the operations timed, in nanoseconds, 
+		 *     or 0 if no operation was timed.
+		 */
+		public long meanNanos()
+		{
+			long count = count();
+			return count == 0 ? 0 : totalNanos() / count;
+		}
+		
+		/**
+		 * Estimates a percentile of the durations recorded, as the upper bound 
+		 * of the histogram bucket that contains it.
+		 * 
+		 * @param pPercentile The percentile, between 0 and 1.
+		 * @return An upper bound of the percentile, in nanoseconds, or 0 if no 
+		 *     operation was timed.
+		 * @pre pPercentile >= 0 && pPercentile <= 1
+		 */
+		public long percentileNanos(double pPercentile)
+		{
+			assert pPercentile >= 0 && pPercentile <= 1;
+			long total = 0;
+			for( int i = 0; i < BUCKETS; i++ )
+			{
+				total += aHistogram.get(i);
+			}
+			long rank = (long) Math.ceil(pPercentile * total);
+			long seen = 0;
+			for( int i = 0; i < BUCKETS; i++ )
+			{
+				seen += aHistogram.get(i);
+				if( seen >= rank && seen > 0 )
+				{
+					return NANOS_PER_MICRO << i;
+				}
+			}
+			return 0;
+		}
+		
+		private void reset()
+		{
+			aCount.reset();
+			aTotalNanos.reset();
+			aLastNanos = 0;
+			for( int i = 0; i < BUCKETS; i++ )
+			{
+				aHistogram.set(i, 0);
+			}
+		}
+	}
+}
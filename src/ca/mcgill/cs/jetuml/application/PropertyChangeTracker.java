@@ -37,6 +37,7 @@ public class PropertyChangeTracker
 {
 	private Map<String, Object> aOldValues = new HashMap<>();
 	private Properties aProperties;
+	private final DiagramElement aEdited;
 	
 	/**
 	 * Creates a new tracker for pEdited.
@@ -47,6 +48,7 @@ public class PropertyChangeTracker
 	public PropertyChangeTracker(DiagramElement pEdited)
 	{
 		assert pEdited != null;
+		aEdited = pEdited;
 		aProperties = pEdited.properties();
 	}
 
@@ -79,7 +81,7 @@ public class PropertyChangeTracker
 				final Object oldValue = aOldValues.get(property.getName());
 				operation.add(new SimpleOperation(
 						()-> property.set(newValue),
-						()-> property.set(oldValue)));
+						()-> property.set(oldValue), aEdited));
 			}
 		}
 		return operation;
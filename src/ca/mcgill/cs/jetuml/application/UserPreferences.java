@@ -39,7 +39,8 @@ public final class UserPreferences
 	public enum BooleanPreference
 	{	
 		showGrid(true), showToolHints(false), autoEditNode(false), verboseToolTips(false),
-		showTips(true);
+		showTips(true), autosave(true), incrementalSave(false), restoreSession(false),
+		showMetrics(false), showMinimap(true), tiledExport(true);
 		
 		private boolean aDefault;
 		
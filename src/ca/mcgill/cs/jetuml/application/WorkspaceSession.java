@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.application;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A snapshot of the diagram tabs open in the application, so that they 
+ * can be reopened in the same state in the next session. For each tab, the 
+ * snapshot records the file of the diagram, its zoom level, and its scroll 
+ * position. The bounds of the nodes and the routes of the edges are not 
+ * part of the snapshot: they are saved in the index of each file, which is 
+ * bound to the content of the file and can thus be validated when the 
+ * diagram is read.
+ */
+public final class WorkspaceSession
+{
+	private static final String KEY_TABS = "tabs";
+	private static final String KEY_SELECTED = "selected";
+	private static final String KEY_FILE = "file";
+	private static final String KEY_ZOOM = "zoom";
+	private static final String KEY_HORIZONTAL_SCROLL = "hscroll";
+	private static final String KEY_VERTICAL_SCROLL = "vscroll";
+	private static final File DEFAULT_FILE = 
+			new File(System.getProperty("user.home"), ".jetuml" + File.separator + "session.json");
+	
+	private final List<View> aViews;
+	private final int aSelected;
+	
+	/**
+	 * Creates a session snapshot.
+	 * 
+	 * @param pViews The views of the open tabs, in order.
+	 * @param pSelected The position of the selected tab in pViews, or -1 if none is selected.
+	 * @pre pViews != null && pSelected >= -1 && pSelected < pViews.size()
+	 */
+	public WorkspaceSession(List<View> pViews, int pSelected)
+	{
+		assert pViews != null && pSelected >= -1 && pSelected < pViews.size();
+		aViews = Collections.unmodifiableList(new ArrayList<>(pViews));
+		aSelected = pSelected;
+	}
+	
+	/**
+	 * @return The file in which the session is saved by default.
+	 */
+	public static File defaultFile()
+	{
+		return DEFAULT_FILE;
+	}
+	
+	/**
+	 * @return The views of the tabs of the session, in order.
+	 */
+	public List<View> views()
+	{
+		return aViews;
+	}
+	
+	/**
+	 * @return The position of the selected tab in views(), or -1 if no tab is selected.
+	 */
+	public int selected()
+	{
+		return aSelected;
+	}
+	
+	/**
+	 * Saves this session in pFile.
+	 * 
+	 * @param pFile The file in which to save the session.
+	 * @throws IOException If the file cannot be written.
+	 * @pre pFile != null
+	 */
+	public void save(File pFile) throws IOException
+	{
+		assert pFile != null;
+		JSONArray tabs = new JSONArray();
+		for( View view : aViews )
+		{
+			JSONObject tab = new JSONObject();
+			tab.put(KEY_FILE, view.getFile().getPath());
+			tab.put(KEY_ZOOM, view.getZoom());
+			tab.put(KEY_HORIZONTAL_SCROLL, view.getHorizontalScroll());
+			tab.put(KEY_VERTICAL_SCROLL, view.getVerticalScroll());
+			tabs.put(tab);
+		}
+		JSONObject object = new JSONObject();
+		object.put(KEY_TABS, tabs);
+		object.put(KEY_SELECTED, aSelected);
+		File directory = pFile.getAbsoluteFile().getParentFile();
+		Files.createDirectories(directory.toPath());
+		Files.write(pFile.toPath(), object.toString().getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Loads the session saved in pFile. Tabs whose file no longer exists are 
+	 * dropped. If pFile does not exist or cannot be decoded, the session is empty.
+	 * 
+	 * @param pFile The file in which the session was saved.
+	 * @return The session saved in pFile.
+	 * @pre pFile != null
+	 */
+	public static WorkspaceSession load(File pFile)
+	{
+		assert pFile != null;
+		List<View> views = new ArrayList<>();
+		int selected = -1;
+		try
+		{
+			JSONObject object = new JSONObject(new String(Files.readAllBytes(pFile.toPath()), StandardCharsets.UTF_8));
+			JSONArray tabs = object.getJSONArray(KEY_TABS);
+			int savedSelection = object.getInt(KEY_SELECTED);
+			for( int i = 0; i < tabs.length(); i++ )
+			{
+				JSONObject tab = tabs.getJSONObject(i);
+				File file = new File(tab.getString(KEY_FILE));
+				if( file.isFile() )
+				{
+					if( i == savedSelection )
+					{
+						selected = views.size();
+					}
+					views.add(new View(file, getDouble(tab, KEY_ZOOM), 
+							getDouble(tab, KEY_HORIZONTAL_SCROLL), getDouble(tab, KEY_VERTICAL_SCROLL)));
+				}
+			}
+		}
+		catch( IOException | JSONException | ClassCastException exception )
+		{
+			return new WorkspaceSession(Collections.emptyList(), -1);
+		}
+		return new WorkspaceSession(views, selected);
+	}
+	
+	/*
+	 * Decimal numbers without a fractional part are decoded as integers.
+	 */
+	private static double getDouble(JSONObject pObject, String pKey)
+	{
+		return ((Number) pObject.get(pKey)).doubleValue();
+	}
+	
+	/**
+	 * Deletes the session saved in pFile, if any.
+	 * 
+	 * @param pFile The file in which the session was saved.
+	 * @pre pFile != null
+	 */
+	public static void clear(File pFile)
+	{
+		assert pFile != null;
+		try
+		{
+			Files.deleteIfExists(pFile.toPath());
+		}
+		catch( IOException exception )
+		{
+			// The session is only restored if the user opted for it.
+		}
+	}
+	
+	/**
+	 * The state of a diagram tab.
+	 */
+	public static final class View
+	{
+		private final File aFile;
+		private final double aZoom;
+		private final double aHorizontalScroll;
+		private final double aVerticalScroll;
+		
+		/**
+		 * @param pFile The file of the diagram shown in the tab.
+		 * @param pZoom The zoom level of the tab.
+		 * @param pHorizontalScroll The horizontal scroll position, between 0 and 1.
+		 * @param pVerticalScroll The vertical scroll position, between 0 and 1.
+		 * @pre pFile != null
+		 */
+		public View(File pFile, double pZoom, double pHorizontalScroll, double pVerticalScroll)
+		{
+			assert pFile != null;
+			aFile = pFile.getAbsoluteFile();
+			aZoom = pZoom;
+			aHorizontalScroll = pHorizontalScroll;
+			aVerticalScroll = pVerticalScroll;
+		}
+		
+		/**
+		 * @return The file of the diagram shown in the tab.
+		 */
+		public File getFile()
+		{
+			return aFile;
+		}
+		
+		/**
+		 * @return The zoom level of the tab.
+		 */
+		public double getZoom()
+		{
+			return aZoom;
+		}
+		
+		/**
+		 * @return The horizontal scroll position, between 0 and 1.
+		 */
+		public double getHorizontalScroll()
+		{
+			return aHorizontalScroll;
+		}
+		
+		/**
+		 * @return The vertical scroll position, between 0 and 1.
+		 */
+		public double getVerticalScroll()
+		{
+			return aVerticalScroll;
+		}
+	}
+}
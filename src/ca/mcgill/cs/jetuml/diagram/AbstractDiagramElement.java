@@ -20,23 +20,19 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.diagram;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
- * Base class for nodes and edges. Responsible for storing the single
- * Properties object used to describe the properties of this element.
- * There is only a single Properties object associated with a DiagramElement, 
- * used to represent the element's properties through its life-cycle.
+ * Base class for nodes and edges. Responsible for describing the
+ * properties of each class of element. The descriptors of a class are
+ * built the first time they are needed and then shared by all the 
+ * elements of that class, so creating and cloning elements does not 
+ * create any property objects.
  */
 public abstract class AbstractDiagramElement implements DiagramElement
 {
-	private Properties aProperties;
-	
-	/**
-	 * Initializes the properties for this object.
-	 */
-	protected AbstractDiagramElement()
-	{
-		buildProperties();
-	}
+	private static final Map<Class<?>, PropertyDescriptors> DESCRIPTORS = new ConcurrentHashMap<>();
 	
 	/* (non-Javadoc)
 	 * @see java.lang.Object#clone()
@@ -46,9 +42,7 @@ public abstract class AbstractDiagramElement implements DiagramElement
 	{
 		try
 		{
-			AbstractDiagramElement clone = (AbstractDiagramElement) super.clone();
-			clone.buildProperties();
-			return clone;
+			return (DiagramElement) super.clone();
 		}
 		catch(CloneNotSupportedException exception)
 		{
@@ -56,20 +50,65 @@ public abstract class AbstractDiagramElement implements DiagramElement
 		}
 	}
 	
+	/**
+	 * Creates a new Properties object to access the properties of this
+	 * element through their descriptors.
+	 * 
+	 * @return The properties of this element.
+	 */
 	@Override
 	public final Properties properties()
 	{
-		return aProperties;
+		Properties properties = new Properties();
+		PropertyDescriptors descriptors = propertyDescriptors();
+		for( int i = 0; i < descriptors.size(); i++ )
+		{
+			final int index = i;
+			if( descriptors.isVisible(index) )
+			{
+				properties.add(descriptors.getName(index), () -> getPropertyValue(index), 
+						pValue -> setPropertyValue(index, pValue));
+			}
+			else
+			{
+				properties.addInvisible(descriptors.getName(index), () -> getPropertyValue(index), 
+						pValue -> setPropertyValue(index, pValue));
+			}
+		}
+		return properties;
 	}
 	
-	/**
-	 * Builds the properties object associated with this object.
-	 * Must be outside the constructor because of cloning.
-	 * Subclasses should call super.buildProperties() before
-	 * adding their own properties.
-	 */
-	protected void buildProperties()
+	@Override
+	public final PropertyDescriptors propertyDescriptors()
 	{
-		aProperties = new Properties();
+		return DESCRIPTORS.computeIfAbsent(getClass(), pClass -> 
+		{
+			PropertyDescriptors descriptors = new PropertyDescriptors();
+			buildProperties(descriptors);
+			return descriptors;
+		});
+	}
+	
+	@Override
+	public final Object getPropertyValue(int pIndex)
+	{
+		return propertyDescriptors().get(this, pIndex);
+	}
+	
+	@Override
+	public final void setPropertyValue(int pIndex, Object pValue)
+	{
+		propertyDescriptors().set(this, pIndex, pValue);
 	}
+	
+	/**
+	 * Describes the properties of this class of element. This method is 
+	 * called once per class, so the descriptors must not depend on the 
+	 * state of this object. Subclasses should call 
+	 * super.buildProperties(pDescriptors) before adding their own properties.
+	 * 
+	 * @param pDescriptors The descriptors to complete.
+	 */
+	protected void buildProperties(PropertyDescriptors pDescriptors)
+	{}
 }
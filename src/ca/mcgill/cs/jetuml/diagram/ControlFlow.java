@@ -23,8 +23,11 @@ package ca.mcgill.cs.jetuml.diagram;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -39,11 +42,17 @@ import ca.mcgill.cs.jetuml.viewers.nodes.ImplicitParameterNodeViewer;
 /**
  * An immutable wrapper around a SequenceDiagram that can answer
  * various queries about the control-flow represented by 
- * the wrapped sequence diagram.
+ * the wrapped sequence diagram. A control flow created with 
+ * the constructor reflects the current state of the diagram. 
+ * A control flow created with snapshot indexes the calls of the
+ * diagram so that the callers, the callees, and the constructor 
+ * executions are found without scanning the edges. It must not be 
+ * used after the diagram is modified.
  */
 public final class ControlFlow
 {
 	private final Diagram aDiagram;
+	private final Optional<CallIndex> aIndex;
 	
 	/**
 	 * Creates a new ControlFlow to query pDiagram.
@@ -52,10 +61,30 @@ public final class ControlFlow
 	 * @pre pDiagram != null.
 	 */
 	public ControlFlow(Diagram pDiagram)
+	{
+		this(pDiagram, Optional.empty());
+	}
+	
+	private ControlFlow(Diagram pDiagram, Optional<CallIndex> pIndex)
 	{
 		assert pDiagram != null;
 		assert pDiagram.getType() == DiagramType.SEQUENCE;
 		aDiagram = pDiagram;
+		aIndex = pIndex;
+	}
+	
+	/**
+	 * Creates a ControlFlow that answers queries about pDiagram as
+	 * it is now. The calls are indexed in a single pass over the edges.
+	 * 
+	 * @param pDiagram The diagram to wrap.
+	 * @return A control flow for the current state of pDiagram.
+	 * @pre pDiagram != null.
+	 */
+	public static ControlFlow snapshot(Diagram pDiagram)
+	{
+		assert pDiagram != null;
+		return new ControlFlow(pDiagram, Optional.of(new CallIndex(pDiagram)));
 	}
 	
 	/**
@@ -70,6 +99,10 @@ public final class ControlFlow
 	public List<Node> getCallees(Node pNode)
 	{
 		assert pNode != null && aDiagram.contains(pNode);
+		if( aIndex.isPresent() )
+		{
+			return new ArrayList<>(aIndex.get().aCallees.getOrDefault(pNode, Collections.emptyList()));
+		}
 		List<Node> callees = new ArrayList<>();
 		for( Edge edge : aDiagram.edges() )
 		{
@@ -111,6 +144,10 @@ public final class ControlFlow
 	public Optional<CallNode> getCaller(Node pNode)
 	{
 		assert pNode != null && aDiagram.contains(pNode);
+		if( aIndex.isPresent() )
+		{
+			return Optional.ofNullable(aIndex.get().aCallers.get(pNode));
+		}
 		for( Edge edge : aDiagram.edges() )
 		{
 			if( edge.getEnd() == pNode  && edge instanceof CallEdge )
@@ -134,6 +171,10 @@ public final class ControlFlow
 		assert pNode != null;
 		Optional<CallNode> caller = getCaller(pNode);
 		assert caller.isPresent();
+		if( aIndex.isPresent() )
+		{
+			return aIndex.get().aPositions.get(pNode) == 0;
+		}
 		List<Node> callees = getCallees(caller.get());
 		return callees.get(0) == pNode;
 	}
@@ -152,6 +193,10 @@ public final class ControlFlow
 		Optional<CallNode> caller = getCaller(pNode);
 		assert caller.isPresent();
 		assert !isFirstCallee(pNode);
+		if( aIndex.isPresent() )
+		{
+			return (CallNode) aIndex.get().aCallees.get(caller.get()).get(aIndex.get().aPositions.get(pNode) - 1);
+		}
 		List<Node> callees = getCallees(caller.get());
 		int index = callees.indexOf(pNode);
 		assert index >= 1;
@@ -220,6 +265,10 @@ public final class ControlFlow
 		{
 			return false;
 		}
+		if( aIndex.isPresent() )
+		{
+			return aIndex.get().aConstructorExecutions.contains(pNode);
+		}
 		for( Edge edge : aDiagram.edges() )
 		{
 			if ( edge.getEnd() == pNode && edge.getClass() == ConstructorEdge.class )
@@ -485,4 +534,35 @@ public final class ControlFlow
 				new ImplicitParameterNodeViewer().getTopRectangle(pNode).contains(pPoint) && 
 				pNode.getChildren().size()==0;
 	}
+	
+	/*
+	 * The callers and callees of each node, and the nodes at the end 
+	 * of a constructor edge, in the order of the edges of a diagram.
+	 */
+	private static final class CallIndex
+	{
+		private final Map<Node, CallNode> aCallers = new IdentityHashMap<>();
+		private final Map<Node, List<Node>> aCallees = new IdentityHashMap<>();
+		/* The index of each callee in the callees of its caller. */
+		private final Map<Node, Integer> aPositions = new IdentityHashMap<>();
+		private final Set<Node> aConstructorExecutions = Collections.newSetFromMap(new IdentityHashMap<>());
+		
+		CallIndex(Diagram pDiagram)
+		{
+			for( Edge edge : pDiagram.edges() )
+			{
+				if( edge instanceof CallEdge )
+				{
+					aCallers.putIfAbsent(edge.getEnd(), (CallNode) edge.getStart());
+					List<Node> callees = aCallees.computeIfAbsent(edge.getStart(), node -> new ArrayList<>());
+					aPositions.putIfAbsent(edge.getEnd(), callees.size());
+					callees.add(edge.getEnd());
+				}
+				if( edge.getClass() == ConstructorEdge.class )
+				{
+					aConstructorExecutions.add(edge.getEnd());
+				}
+			}
+		}
+	}
 }
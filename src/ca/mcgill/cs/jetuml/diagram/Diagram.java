@@ -23,7 +23,9 @@ package ca.mcgill.cs.jetuml.diagram;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.FieldNode;
@@ -67,17 +69,20 @@ public final class Diagram implements DiagramData
 	public Diagram duplicate()
 	{
 		Diagram copy = new Diagram(this.aType);
-		aEdges.forEach(edge -> copy.aEdges.add(edge.clone()));
-
+		Map<Node, Node> copies = new IdentityHashMap<>();
 		for( Node node : aRootNodes )
 		{
 			Node nodeCopy = node.clone();
 			copy.aRootNodes.add(nodeCopy);
-			reassignEdges(copy.aEdges, node, nodeCopy);
+			mapCopies(copies, node, nodeCopy);
+		}
+		for( Edge edge : aEdges )
+		{
+			Edge edgeCopy = edge.clone();
+			edgeCopy.connect(copies.getOrDefault(edge.getStart(), edge.getStart()), 
+					copies.getOrDefault(edge.getEnd(), edge.getEnd()), copy);
+			copy.aEdges.add(edgeCopy);
 		}
-
-		// Reassign diagram
-		copy.aEdges.forEach(edge -> edge.connect(edge.getStart(), edge.getEnd(), copy));
 		for( Node node : copy.aRootNodes )
 		{
 			copy.attachNode(node);
@@ -98,27 +103,17 @@ public final class Diagram implements DiagramData
 	}
 
 	/*
-	 * For node pOriginal, go through all edges that refer to it and replace it with pCopy in the edge. Do this
-	 * recursively for all children of pOriginal, assuming the same topology for pCopy.
+	 * Maps pOriginal and all its children to their copy in pCopy, assuming the same 
+	 * topology for pCopy. This allows edges to be reassigned in a single pass.
 	 */
-	private static void reassignEdges(List<Edge> pEdges, Node pOriginal, Node pCopy)
+	private static void mapCopies(Map<Node, Node> pCopies, Node pOriginal, Node pCopy)
 	{
-		for( Edge edge : pEdges )
-		{
-			if( edge.getStart() == pOriginal )
-			{
-				edge.connect(pCopy, edge.getEnd(), edge.getDiagram());
-			}
-			if( edge.getEnd() == pOriginal )
-			{
-				edge.connect(edge.getStart(), pCopy, edge.getDiagram());
-			}
-		}
+		pCopies.put(pOriginal, pCopy);
 		List<Node> oldChildren = pOriginal.getChildren();
 		List<Node> newChildren = pCopy.getChildren();
 		for( int i = 0; i < oldChildren.size(); i++ )
 		{
-			reassignEdges(pEdges, oldChildren.get(i), newChildren.get(i));
+			mapCopies(pCopies, oldChildren.get(i), newChildren.get(i));
 		}
 	}
 
@@ -361,4 +356,4 @@ public final class Diagram implements DiagramData
 			addRootNode(pNode);
 		}
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -29,4 +29,26 @@ public interface DiagramElement extends Cloneable
 	 * @return A set of properties that define this object.
 	 */
 	Properties properties();
+	
+	/**
+	 * @return The descriptors of the properties of this object, which
+	 *     are shared by all the objects of its class.
+	 */
+	PropertyDescriptors propertyDescriptors();
+	
+	/**
+	 * @param pIndex The index of a property in propertyDescriptors().
+	 * @return The value of the property at pIndex.
+	 * @pre pIndex >= 0 && pIndex < propertyDescriptors().size()
+	 */
+	Object getPropertyValue(int pIndex);
+	
+	/**
+	 * Assigns pValue to the property at pIndex.
+	 * 
+	 * @param pIndex The index of a property in propertyDescriptors().
+	 * @param pValue The value to assign.
+	 * @pre pValue != null && pIndex >= 0 && pIndex < propertyDescriptors().size()
+	 */
+	void setPropertyValue(int pIndex, Object pValue);
 }
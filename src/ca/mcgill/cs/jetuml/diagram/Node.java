@@ -64,7 +64,7 @@ public interface Node extends DiagramElement
 	 */
 	void translate(int pDeltaX, int pDeltaY);
 
-	/**
+	/**
 	 * @return A clone of the node.
 	 */
 	Node clone();
@@ -105,6 +105,12 @@ public interface Node extends DiagramElement
 	 */
 	Node getParent();
 	
+	/**
+	 * @return The node at the top of the chain of parents of this node, 
+	 *     or this node if it has no parent.
+	 */
+	Node getRoot();
+	
 	/**
 	 * Unlinks this node from it parent node.. This operation does 
 	 * NOT set the child node's parent as this node.
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.diagram;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Describes the properties shared by all the diagram elements of a class:
+ * for each property, its name, whether it is visible, and how to read and 
+ * write its value on an element. Descriptors are built once per class and 
+ * the properties of an element are then accessed by index.
+ * 
+ * As for Properties, adding a property with the name of a property that
+ * was already added silently does nothing, and properties are kept in 
+ * order of insertion unless <code>addAt</code> is used.
+ */
+public final class PropertyDescriptors
+{
+	private final List<Descriptor> aDescriptors = new ArrayList<>();
+	private final Map<String, Integer> aIndices = new HashMap<>();
+	
+	/**
+	 * Adds a visible property at the end of the list.
+	 * 
+	 * @param pClass The class of the elements that have this property.
+	 * @param pName The name of the property.
+	 * @param pGetter Obtains the value of the property from an element.
+	 * @param pSetter Assigns a value to the property of an element.
+	 * @param <E> The type of the elements that have this property.
+	 * @pre pClass != null && pName != null && pGetter != null && pSetter != null
+	 */
+	public <E extends DiagramElement> void add(Class<E> pClass, String pName, Function<E, Object> pGetter, 
+			BiConsumer<E, Object> pSetter)
+	{
+		insert(new Descriptor(pName, true, pClass, pGetter, pSetter), aDescriptors.size());
+	}
+	
+	/**
+	 * Adds an invisible property at the end of the list.
+	 * 
+	 * @param pClass The class of the elements that have this property.
+	 * @param pName The name of the property.
+	 * @param pGetter Obtains the value of the property from an element.
+	 * @param pSetter Assigns a value to the property of an element.
+	 * @param <E> The type of the elements that have this property.
+	 * @pre pClass != null && pName != null && pGetter != null && pSetter != null
+	 */
+	public <E extends DiagramElement> void addInvisible(Class<E> pClass, String pName, Function<E, Object> pGetter, 
+			BiConsumer<E, Object> pSetter)
+	{
+		insert(new Descriptor(pName, false, pClass, pGetter, pSetter), aDescriptors.size());
+	}
+	
+	/**
+	 * Adds a visible property at position pIndex, shifting the following 
+	 * properties down by one.
+	 * 
+	 * @param pClass The class of the elements that have this property.
+	 * @param pName The name of the property.
+	 * @param pGetter Obtains the value of the property from an element.
+	 * @param pSetter Assigns a value to the property of an element.
+	 * @param pIndex Where to insert the property.
+	 * @param <E> The type of the elements that have this property.
+	 * @pre pClass != null && pName != null && pGetter != null && pSetter != null
+	 * @pre pIndex >= 0 && pIndex <= size()
+	 */
+	public <E extends DiagramElement> void addAt(Class<E> pClass, String pName, Function<E, Object> pGetter, 
+			BiConsumer<E, Object> pSetter, int pIndex)
+	{
+		assert pIndex >= 0 && pIndex <= aDescriptors.size();
+		insert(new Descriptor(pName, true, pClass, pGetter, pSetter), pIndex);
+	}
+	
+	private void insert(Descriptor pDescriptor, int pIndex)
+	{
+		if( aIndices.containsKey(pDescriptor.aName) )
+		{
+			return;
+		}
+		aDescriptors.add(pIndex, pDescriptor);
+		for( int i = pIndex; i < aDescriptors.size(); i++ )
+		{
+			aIndices.put(aDescriptors.get(i).aName, i);
+		}
+	}
+	
+	/**
+	 * @return The number of properties.
+	 */
+	public int size()
+	{
+		return aDescriptors.size();
+	}
+	
+	/**
+	 * @param pName The name of a property.
+	 * @return The index of the property named pName, or -1 if there is none.
+	 * @pre pName != null
+	 */
+	public int indexOf(String pName)
+	{
+		assert pName != null;
+		return aIndices.getOrDefault(pName, -1);
+	}
+	
+	/**
+	 * @param pIndex The index of a property.
+	 * @return The name of the property at pIndex.
+	 * @pre pIndex >= 0 && pIndex < size()
+	 */
+	public String getName(int pIndex)
+	{
+		assert pIndex >= 0 && pIndex < aDescriptors.size();
+		return aDescriptors.get(pIndex).aName;
+	}
+	
+	/**
+	 * @param pIndex The index of a property.
+	 * @return True if the property at pIndex is visible.
+	 * @pre pIndex >= 0 && pIndex < size()
+	 */
+	public boolean isVisible(int pIndex)
+	{
+		assert pIndex >= 0 && pIndex < aDescriptors.size();
+		return aDescriptors.get(pIndex).aVisible;
+	}
+	
+	/**
+	 * @param pElement The element whose property to read.
+	 * @param pIndex The index of the property.
+	 * @return The value of the property at pIndex for pElement.
+	 * @pre pElement != null && pIndex >= 0 && pIndex < size()
+	 */
+	public Object get(DiagramElement pElement, int pIndex)
+	{
+		assert pElement != null && pIndex >= 0 && pIndex < aDescriptors.size();
+		return aDescriptors.get(pIndex).aGetter.apply(pElement);
+	}
+	
+	/**
+	 * Assigns pValue to the property at pIndex of pElement.
+	 * 
+	 * @param pElement The element whose property to write.
+	 * @param pIndex The index of the property.
+	 * @param pValue The value to assign.
+	 * @pre pElement != null && pValue != null && pIndex >= 0 && pIndex < size()
+	 */
+	public void set(DiagramElement pElement, int pIndex, Object pValue)
+	{
+		assert pElement != null && pValue != null && pIndex >= 0 && pIndex < aDescriptors.size();
+		aDescriptors.get(pIndex).aSetter.accept(pElement, pValue);
+	}
+	
+	/*
+	 * The accessors are stored for any element, and cast the element
+	 * to the class that declares the property.
+	 */
+	private static final class Descriptor
+	{
+		private final String aName;
+		private final boolean aVisible;
+		private final Function<DiagramElement, Object> aGetter;
+		private final BiConsumer<DiagramElement, Object> aSetter;
+		
+		<E extends DiagramElement> Descriptor(String pName, boolean pVisible, Class<E> pClass, 
+				Function<E, Object> pGetter, BiConsumer<E, Object> pSetter)
+		{
+			assert pName != null && pClass != null && pGetter != null && pSetter != null;
+			aName = pName;
+			aVisible = pVisible;
+			aGetter = pElement -> pGetter.apply(pClass.cast(pElement));
+			aSetter = (pElement, pValue) -> pSetter.accept(pClass.cast(pElement), pValue);
+		}
+	}
+}
@@ -59,6 +59,8 @@ public final class Prototypes
 {   // CSOFF:
 	private static final Prototypes INSTANCE = new Prototypes();
 	private final Map<DiagramElement, String> aKeys = new IdentityHashMap<>();
+	private final Map<DiagramElement, String> aTooltips = new IdentityHashMap<>();
+	private final Map<DiagramElement, String> aVerboseTooltips = new IdentityHashMap<>();
 	
 	public static final DiagramElement NOTE = create(new NoteNode(), "note");
 	public static final DiagramElement NOTE_CONNECTOR = create(new NoteEdge(), "note_connector");
@@ -119,6 +121,15 @@ public final class Prototypes
 		return pElement;
 	}
 	
+	/**
+	 * @param pElement The element to check.
+	 * @return True if pElement is one of the prototypes of this class.
+	 */
+	public boolean isPrototype(DiagramElement pElement)
+	{
+		return aKeys.containsKey(pElement);
+	}
+	
 	/**
 	 * @param pPrototype The requested prototype
 	 * @param pVerbose true if we want the verbose version of this tooltip.
@@ -131,6 +142,12 @@ public final class Prototypes
 		{
 			return "[tooltip not found]";
 		}
+		return (pVerbose ? aVerboseTooltips : aTooltips).computeIfAbsent(pPrototype, 
+				prototype -> createTooltip(prototype, pVerbose));
+	}
+	
+	private String createTooltip(DiagramElement pPrototype, boolean pVerbose)
+	{
 		String basicKey = aKeys.get(pPrototype) + ".tooltip";
 		String verboseKey = basicKey + ".verbose";
 		if( pVerbose && RESOURCES.containsKey(verboseKey))
@@ -90,7 +90,7 @@ public class ClassDiagramBuilder extends DiagramBuilder
 				{ 
 					pNode.detach();
 					container.get().removeChild(pNode); 
-				});
+				}, pNode);
 			}
 		}
 		if( result == null )
@@ -320,7 +320,7 @@ public class ClassDiagramBuilder extends DiagramBuilder
 						aDiagram.addRootNode(pNode);
 						packageNode.removeChild(pNode);
 					}
-				});	
+				}, pNodes.toArray(new Node[pNodes.size()]));
 	}
 	
 
@@ -356,7 +356,7 @@ public class ClassDiagramBuilder extends DiagramBuilder
 							aDiagram.removeRootNode(pNode);
 							parent.addChild(pNode);
 						}
-					});	
+					}, pNodes.toArray(new Node[pNodes.size()]));
 		}
 		else 
 		{
@@ -377,7 +377,7 @@ public class ClassDiagramBuilder extends DiagramBuilder
 							outerParent.removeChild(pNode);
 							parent.addChild(pNode);
 						}
-					});	
+					}, pNodes.toArray(new Node[pNodes.size()]));	
 		}
 	}
 }
@@ -23,6 +23,9 @@ package ca.mcgill.cs.jetuml.diagram.builder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
 
 /**
  * An operation that is composed of other operations, following
@@ -68,6 +71,27 @@ public class CompoundOperation implements DiagramOperation
 		}
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * The affected elements of a compound operation are only known if
+	 * they are known for all its sub-operations.
+	 */
+	@Override
+	public Optional<List<DiagramElement>> getAffectedElements()
+	{
+		List<DiagramElement> result = new ArrayList<>();
+		for( DiagramOperation operation : aOperations )
+		{
+			Optional<List<DiagramElement>> elements = operation.getAffectedElements();
+			if( !elements.isPresent() )
+			{
+				return Optional.empty();
+			}
+			result.addAll(elements.get());
+		}
+		return Optional.of(result);
+	}
+	
 	/**
 	 * @return True if this CompoundOperation contains
 	 *     no sub-operation.
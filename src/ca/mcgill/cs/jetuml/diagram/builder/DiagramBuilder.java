@@ -186,7 +186,7 @@ public abstract class DiagramBuilder
 		assert canAdd(pNode, pRequestedPosition);
 		positionNode(pNode, pRequestedPosition);
 		return new SimpleOperation( ()-> aDiagram.addRootNode(pNode), 
-				()-> aDiagram.removeRootNode(pNode));
+				()-> aDiagram.removeRootNode(pNode), pNode);
 	}
 	
 	/**
@@ -206,7 +206,7 @@ public abstract class DiagramBuilder
 			{
 				operation.add(new SimpleOperation(
 						()-> aDiagram.addRootNode((Node)element),
-						()-> aDiagram.removeRootNode((Node)element)));
+						()-> aDiagram.removeRootNode((Node)element), element));
 			}
 			else if( element instanceof Edge)
 			{
@@ -221,7 +221,7 @@ public abstract class DiagramBuilder
 							aDiagram.addEdge(edge); 
 							edge.connect(edge.getStart(), edge.getEnd(), aDiagram);	
 						},
-						()-> aDiagram.removeEdge((Edge)element)));
+						()-> aDiagram.removeEdge((Edge)element), element));
 			}
 		}
 		
@@ -379,7 +379,7 @@ public abstract class DiagramBuilder
 				int index = aDiagram.indexOf((Edge)element);
 				result.add(new SimpleOperation(
 						()-> aDiagram.removeEdge((Edge)element),
-						()-> aDiagram.addEdge(index, (Edge)element)));
+						()-> aDiagram.addEdge(index, (Edge)element), element));
 			}
 			else if( element instanceof Node )
 			{
@@ -387,13 +387,13 @@ public abstract class DiagramBuilder
 				{
 					result.add(new SimpleOperation(
 						createDetachOperation((Node)element),
-						createReinsertOperation((Node)element)));
+						createReinsertOperation((Node)element), element, ((Node) element).getParent()));
 				}
 				else
 				{
 					result.add(new SimpleOperation(
 						()-> aDiagram.removeRootNode((Node)element),
-						()-> aDiagram.addRootNode((Node)element)));
+						()-> aDiagram.addRootNode((Node)element), element));
 				}
 			}
 		}
@@ -413,7 +413,7 @@ public abstract class DiagramBuilder
 	{
 		return new SimpleOperation(
 				()-> pNode.translate(pX, pY),
-				()-> pNode.translate(-pX, -pY));
+				()-> pNode.translate(-pX, -pY), pNode);
 	}
 	
 	/**
@@ -444,7 +444,7 @@ public abstract class DiagramBuilder
 			node2.translate(pEnd.getX(), pEnd.getY());
 			Node end = node2; // Effectively final to include in closure
 			result.add(new SimpleOperation(()-> aDiagram.addRootNode(end),
-					()-> aDiagram.removeRootNode(end)));
+					()-> aDiagram.removeRootNode(end), end));
 		}
 		assert node2 != null;
 		completeEdgeAdditionOperation(result, pEdge, node1, node2, pStart, pEnd);
@@ -468,7 +468,7 @@ public abstract class DiagramBuilder
 	{
 		pEdge.connect(pStartNode, pEndNode, aDiagram);
 		pOperation.add(new SimpleOperation(()-> aDiagram.addEdge(pEdge),
-				()-> aDiagram.removeEdge(pEdge)));
+				()-> aDiagram.removeEdge(pEdge), pEdge));
 	}
 	
 	private Runnable createReinsertOperation(Node pNode)
@@ -20,6 +20,11 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.diagram.builder;
 
+import java.util.List;
+import java.util.Optional;
+
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+
 /**
  * Represents an operation to change a diagram, that
  * can be undone. Operations are only required to be valid
@@ -36,4 +41,17 @@ public interface DiagramOperation
 	 * Undoes the operation.
 	 */
 	void undo();
+	
+	/**
+	 * Describes the diagram elements whose state can change when this operation
+	 * is executed or undone, including elements that are added to or removed from 
+	 * the diagram. This information is optional: operations that do not 
+	 * describe their effect can only be observed by inspecting the entire diagram.
+	 * 
+	 * @return The elements affected by this operation, or empty if they are not known.
+	 */
+	default Optional<List<DiagramElement>> getAffectedElements()
+	{
+		return Optional.empty();
+	}
 }
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.diagram.builder;
+
+/**
+ * Objects interested in the operations applied to a diagram
+ * through a DiagramOperationProcessor.
+ */
+public interface DiagramOperationObserver
+{
+	/**
+	 * Called after pOperation has been applied to the diagram, either because 
+	 * it was executed, redone, or stored after having been executed.
+	 * 
+	 * @param pOperation The operation that was applied.
+	 */
+	void operationExecuted(DiagramOperation pOperation);
+	
+	/**
+	 * Called after pOperation has been undone.
+	 * 
+	 * @param pOperation The operation that was undone.
+	 */
+	void operationUndone(DiagramOperation pOperation);
+}
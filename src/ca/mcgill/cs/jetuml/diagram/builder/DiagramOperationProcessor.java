@@ -25,6 +25,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import ca.mcgill.cs.jetuml.application.FlightRecorderEvents.OperationEvent;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+
 /**
  * Responsible for executing and undoing operations, and managing the collection 
  * of previously executed and undone operations. Can also compute whether a 
@@ -35,6 +38,69 @@ public class DiagramOperationProcessor
 	private final List<DiagramOperation> aExecutedOperations = new ArrayList<>();
 	private final List<DiagramOperation> aUndoneOperations = new ArrayList<>();
 	private Optional<DiagramOperation> aLastSavedOperation = Optional.empty();
+	private final List<DiagramOperationObserver> aObservers = new ArrayList<>();
+	private final Optional<Diagram> aDiagram;
+	
+	/**
+	 * Creates a processor for operations on a diagram that is not known,
+	 * which is therefore not recorded in the events of the operations.
+	 */
+	public DiagramOperationProcessor()
+	{
+		aDiagram = Optional.empty();
+	}
+	
+	/**
+	 * Creates a processor for the operations on pDiagram.
+	 * 
+	 * @param pDiagram The diagram the operations apply to.
+	 * @pre pDiagram != null
+	 */
+	public DiagramOperationProcessor(Diagram pDiagram)
+	{
+		assert pDiagram != null;
+		aDiagram = Optional.of(pDiagram);
+	}
+	
+	/**
+	 * Registers pObserver to be notified of all the operations applied through this processor.
+	 * 
+	 * @param pObserver The observer to add.
+	 * @pre pObserver != null
+	 */
+	public void addObserver(DiagramOperationObserver pObserver)
+	{
+		assert pObserver != null;
+		aObservers.add(pObserver);
+	}
+	
+	/**
+	 * Stops notifying pObserver. Does nothing if pObserver is not registered.
+	 * 
+	 * @param pObserver The observer to remove.
+	 * @pre pObserver != null
+	 */
+	public void removeObserver(DiagramOperationObserver pObserver)
+	{
+		assert pObserver != null;
+		aObservers.remove(pObserver);
+	}
+	
+	private void notifyExecuted(DiagramOperation pOperation)
+	{
+		for( DiagramOperationObserver observer : new ArrayList<>(aObservers) )
+		{
+			observer.operationExecuted(pOperation);
+		}
+	}
+	
+	private void notifyUndone(DiagramOperation pOperation)
+	{
+		for( DiagramOperationObserver observer : new ArrayList<>(aObservers) )
+		{
+			observer.operationUndone(pOperation);
+		}
+	}
 	
 	/**
 	 * Executes pOperation and adds it to the list of executed
@@ -46,8 +112,27 @@ public class DiagramOperationProcessor
 	public void executeNewOperation(DiagramOperation pOperation)
 	{
 		assert pOperation != null;
+		OperationEvent event = new OperationEvent();
+		event.begin();
 		pOperation.execute();
 		aExecutedOperations.add(pOperation);
+		notifyExecuted(pOperation);
+		commit(event, pOperation, false);
+	}
+	
+	/*
+	 * Commits an event for an operation, including the time taken 
+	 * to notify the observers.
+	 */
+	private void commit(OperationEvent pEvent, DiagramOperation pOperation, boolean pUndo)
+	{
+		pEvent.end();
+		if( pEvent.shouldCommit() )
+		{
+			pEvent.setOperation(pUndo, pOperation.getAffectedElements());
+			aDiagram.ifPresent(pEvent::setDiagram);
+			pEvent.commit();
+		}
 	}
 	
 	/**
@@ -100,6 +185,7 @@ public class DiagramOperationProcessor
 	{
 		assert pOperation != null;
 		aExecutedOperations.add(pOperation);
+		notifyExecuted(pOperation);
 	}
 	
 	/**
@@ -110,9 +196,13 @@ public class DiagramOperationProcessor
 	public void undoLastExecutedOperation()
 	{
 		assert canUndo();
+		OperationEvent event = new OperationEvent();
+		event.begin();
 		DiagramOperation operation = aExecutedOperations.remove(aExecutedOperations.size() - 1);
 		operation.undo();
 		aUndoneOperations.add(operation);
+		notifyUndone(operation);
+		commit(event, operation, true);
 	}
 	
 	/**
@@ -123,9 +213,13 @@ public class DiagramOperationProcessor
 	public void redoLastUndoneOperation()
 	{
 		assert canRedo();
+		OperationEvent event = new OperationEvent();
+		event.begin();
 		DiagramOperation operation = aUndoneOperations.remove(aUndoneOperations.size() - 1);
 		operation.execute();
 		aExecutedOperations.add(operation);
+		notifyExecuted(operation);
+		commit(event, operation, false);
 	}
 
 	/**
@@ -72,7 +72,7 @@ public class ObjectDiagramBuilder extends DiagramBuilder
 			final FieldNode node = (FieldNode) pStartNode;
 			final String oldValue = node.getValue();
 			pOperation.add(new SimpleOperation(()-> node.setValue(""),
-					()-> node.setValue(oldValue)));
+					()-> node.setValue(oldValue), node));
 		}
 	}
 	
@@ -152,7 +152,7 @@ public class ObjectDiagramBuilder extends DiagramBuilder
 						{ 
 							pNode.detach();
 							object.removeChild(pNode);
-						}
+						}, pNode
 						);
 			}
 		}
@@ -158,7 +158,7 @@ public class SequenceDiagramBuilder extends DiagramBuilder
 			{
 				newCallNode.detach();
 				parent.removeChild(newCallNode);
-			}));
+			}, newCallNode));
 			start = newCallNode;
 		}
 		ImplicitParameterNode endParent = null;
@@ -182,7 +182,7 @@ public class SequenceDiagramBuilder extends DiagramBuilder
 		{
 			end.detach();
 			parent.removeChild(end);
-		}
+		}, end
 		));
 		int insertionIndex = computeInsertionIndex(start, pStartPoint.getY());
 		
@@ -190,7 +190,7 @@ public class SequenceDiagramBuilder extends DiagramBuilder
 		final Edge edge = canCreateConstructorCall(pStartPoint, pEndPoint)?new ConstructorEdge():pEdge; // CSON:
 		edge.connect(start, end, aDiagram);
 		pOperation.add(new SimpleOperation(()-> aDiagram.addEdge(insertionIndex, edge),
-				()-> aDiagram.removeEdge(edge)));
+				()-> aDiagram.removeEdge(edge), edge));
 	}
 	
 	private int computeInsertionIndex( Node pCaller, int pY)
@@ -223,7 +223,7 @@ public class SequenceDiagramBuilder extends DiagramBuilder
 				{
 					pNode.detach();
 					target.get().removeChild(pNode);
-				});
+				}, pNode);
 			}
 		}
 		if( result == null )
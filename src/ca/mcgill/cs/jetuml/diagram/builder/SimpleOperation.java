@@ -20,6 +20,13 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.diagram.builder;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+
 /**
  * Represents a simple (non-compound) operation. The operation
  * does no validation of the input method, so any code that 
@@ -30,6 +37,7 @@ public class SimpleOperation implements DiagramOperation
 {
 	private final Runnable aOperation;
 	private final Runnable aReverse;
+	private final Optional<List<DiagramElement>> aAffectedElements;
 	
 	/**
 	 * Creates an operation.
@@ -44,6 +52,26 @@ public class SimpleOperation implements DiagramOperation
 		assert pOperation != null && pReverse != null;
 		aOperation = pOperation;
 		aReverse = pReverse;
+		aAffectedElements = Optional.empty();
+	}
+	
+	/**
+	 * Creates an operation that declares the elements it affects.
+	 * 
+	 * @param pOperation The code to run when the operation is executed.
+	 * @param pReverse The code to run when the operation is undone.
+	 * @param pAffectedElements The elements whose state is changed by the operation.
+	 * @pre pOperation != null
+	 * @pre pReverse != null
+	 * @pre pAffectedElements != null
+	 * @see DiagramOperation#getAffectedElements()
+	 */
+	public SimpleOperation(Runnable pOperation, Runnable pReverse, DiagramElement... pAffectedElements)
+	{
+		assert pOperation != null && pReverse != null && pAffectedElements != null;
+		aOperation = pOperation;
+		aReverse = pReverse;
+		aAffectedElements = Optional.of(Collections.unmodifiableList(Arrays.asList(pAffectedElements.clone())));
 	}
 
 	@Override
@@ -57,4 +85,10 @@ public class SimpleOperation implements DiagramOperation
 	{
 		aReverse.run();
 	}
+	
+	@Override
+	public Optional<List<DiagramElement>> getAffectedElements()
+	{
+		return aAffectedElements;
+	}
 }
@@ -20,6 +20,8 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.diagram.edges;
 
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
+
 /**
  *  An edge that that represents a UML aggregation or 
  *  composition, with optional labels.
@@ -67,9 +69,10 @@ public final class AggregationEdge extends ThreeLabelEdge
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("Aggregation Type", () -> aType, pType -> aType = Type.valueOf((String) pType));
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(AggregationEdge.class, "Aggregation Type", pEdge -> pEdge.aType, 
+				(pEdge, pType) -> pEdge.aType = Type.valueOf((String) pType));
 	}
 }
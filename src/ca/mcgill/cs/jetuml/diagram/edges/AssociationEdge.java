@@ -20,6 +20,8 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.diagram.edges;
 
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
+
 /**
  *  An edge that that represents a UML association, with optional 
  *  labels and directionality.
@@ -54,10 +56,10 @@ public final class AssociationEdge extends ThreeLabelEdge
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("directionality", () -> aDirectionality, 
-				pDirectionality -> aDirectionality = Directionality.valueOf((String)pDirectionality ));
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(AssociationEdge.class, "directionality", pEdge -> pEdge.aDirectionality, 
+				(pEdge, pDirectionality) -> pEdge.aDirectionality = Directionality.valueOf((String)pDirectionality));
 	}
 }
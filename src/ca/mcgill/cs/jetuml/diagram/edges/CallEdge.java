@@ -21,6 +21,7 @@
 
 package ca.mcgill.cs.jetuml.diagram.edges;
 
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
 import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
 
 /**
@@ -39,10 +40,10 @@ public class CallEdge extends SingleLabelEdge
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("signal", () -> aSignal, pSignal -> aSignal = (boolean) pSignal);
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(CallEdge.class, "signal", pEdge -> pEdge.aSignal, (pEdge, pSignal) -> pEdge.aSignal = (boolean) pSignal);
 	}
 	
 	/**
@@ -20,6 +20,8 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.diagram.edges;
 
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
+
 /**
  * An edge that that represents a UML dependency with an optional label.
  * A DependencyEdge can be either unidirectional (from start to end),
@@ -56,10 +58,10 @@ public final class DependencyEdge extends SingleLabelEdge
 	}
 
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("directionality", () -> aDirectionality,
-				directionality -> aDirectionality = Directionality.valueOf((String) directionality));
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(DependencyEdge.class, "directionality", pEdge -> pEdge.aDirectionality,
+				(pEdge, pDirectionality) -> pEdge.aDirectionality = Directionality.valueOf((String) pDirectionality));
 	}
 }
@@ -20,6 +20,8 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.diagram.edges;
 
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
+
 /**
  *  An edge that that represents a UML generalization (inheritance
  *  or implementation).
@@ -68,9 +70,10 @@ public final class GeneralizationEdge extends AbstractEdge
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("Generalization Type", () -> aType, pType -> aType = Type.valueOf((String) pType));
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(GeneralizationEdge.class, "Generalization Type", pEdge -> pEdge.aType, 
+				(pEdge, pType) -> pEdge.aType = Type.valueOf((String) pType));
 	}
 }
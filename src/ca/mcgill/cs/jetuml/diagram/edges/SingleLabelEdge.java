@@ -20,6 +20,8 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.diagram.edges;
 
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
+
 /**
  * An edge with a single middle label.
  */
@@ -46,9 +48,10 @@ public abstract class SingleLabelEdge extends AbstractEdge
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("middleLabel", ()-> aLabelText, pLabel -> aLabelText = (String) pLabel );
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(SingleLabelEdge.class, "middleLabel", pEdge -> pEdge.aLabelText, 
+				(pEdge, pLabel) -> pEdge.aLabelText = (String) pLabel);
 	}
 }
@@ -20,6 +20,8 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.diagram.edges;
 
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
+
 /**
  * An edge with three labels.
  */
@@ -61,10 +63,12 @@ public abstract class ThreeLabelEdge extends SingleLabelEdge
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().addAt("startLabel", ()-> aStartLabel, pLabel -> aStartLabel = (String) pLabel, 0);
-		properties().add("endLabel", ()-> aEndLabel, pLabel -> aEndLabel = (String) pLabel);
+		super.buildProperties(pDescriptors);
+		pDescriptors.addAt(ThreeLabelEdge.class, "startLabel", pEdge -> pEdge.aStartLabel, 
+				(pEdge, pLabel) -> pEdge.aStartLabel = (String) pLabel, 0);
+		pDescriptors.add(ThreeLabelEdge.class, "endLabel", pEdge -> pEdge.aEndLabel, 
+				(pEdge, pLabel) -> pEdge.aEndLabel = (String) pLabel);
 	}
 }
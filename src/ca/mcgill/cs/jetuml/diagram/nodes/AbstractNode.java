@@ -28,6 +28,7 @@ import java.util.Optional;
 import ca.mcgill.cs.jetuml.diagram.AbstractDiagramElement;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
 import ca.mcgill.cs.jetuml.geom.Point;
 
 /**
@@ -41,7 +42,7 @@ public abstract class AbstractNode extends AbstractDiagramElement implements Nod
 	@Override
 	public void translate(int pDeltaX, int pDeltaY)
 	{
-		aPosition = new Point( aPosition.getX() + pDeltaX, aPosition.getY() + pDeltaY );
+		aPosition = aPosition.translated(pDeltaX, pDeltaY);
 	}
 	
 	@Override
@@ -59,9 +60,7 @@ public abstract class AbstractNode extends AbstractDiagramElement implements Nod
 	@Override
 	public AbstractNode clone()
 	{
-		AbstractNode clone = (AbstractNode) super.clone();
-		clone.aPosition = aPosition.copy();
-		return clone;
+		return (AbstractNode) super.clone();
 	}
 	
 	@Override
@@ -71,11 +70,13 @@ public abstract class AbstractNode extends AbstractDiagramElement implements Nod
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().addInvisible("x", () -> aPosition.getX(), pX -> aPosition.setX((int)pX)); 
-		properties().addInvisible("y", () -> aPosition.getY(), pY -> aPosition.setY((int)pY));
+		super.buildProperties(pDescriptors);
+		pDescriptors.addInvisible(AbstractNode.class, "x", pNode -> pNode.aPosition.getX(), 
+				(pNode, pX) -> pNode.aPosition = new Point((int)pX, pNode.aPosition.getY())); 
+		pDescriptors.addInvisible(AbstractNode.class, "y", pNode -> pNode.aPosition.getY(), 
+				(pNode, pY) -> pNode.aPosition = new Point(pNode.aPosition.getX(), (int)pY));
 	}
 	
 	@Override
@@ -116,6 +117,17 @@ public abstract class AbstractNode extends AbstractDiagramElement implements Nod
 		return null; // Unreachable.
 	}
 	
+	@Override
+	public final Node getRoot()
+	{
+		Node root = this;
+		while( root.hasParent() )
+		{
+			root = root.getParent();
+		}
+		return root;
+	}
+	
 	@Override
 	public void unlink()
 	{
@@ -24,6 +24,7 @@ package ca.mcgill.cs.jetuml.diagram.nodes;
 import java.util.Optional;
 
 import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
 
 /**
  * Common data and implementation for the different flavors of 
@@ -74,10 +75,10 @@ public class AbstractPackageNode extends AbstractNode
 	}
 
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("name", () -> aName, pName -> aName = (String)pName);
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(AbstractPackageNode.class, "name", pNode -> pNode.aName, (pNode, pName) -> pNode.aName = (String)pName);
 	}
 
 	@Override
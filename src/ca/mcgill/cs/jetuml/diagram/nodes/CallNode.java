@@ -24,6 +24,7 @@ package ca.mcgill.cs.jetuml.diagram.nodes;
 import java.util.Optional;
 
 import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
 
 /**
  * A method call node in a sequence diagram. Call nodes are
@@ -62,10 +63,10 @@ public class CallNode extends AbstractNode
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("openBottom", () -> aOpenBottom, pOpen -> aOpenBottom = (boolean) pOpen);
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(CallNode.class, "openBottom", pNode -> pNode.aOpenBottom, (pNode, pOpen) -> pNode.aOpenBottom = (boolean) pOpen);
 	}
 	
 	/**
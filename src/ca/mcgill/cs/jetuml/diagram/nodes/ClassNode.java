@@ -21,6 +21,8 @@
 
 package ca.mcgill.cs.jetuml.diagram.nodes;
 
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
+
 /**
  * A class node in a class diagram.
  */
@@ -58,9 +60,10 @@ public final class ClassNode extends TypeNode
 	}
 
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().addAt("attributes", () -> aAttributes, pAttributes -> aAttributes = (String)pAttributes, 3);
+		super.buildProperties(pDescriptors);
+		pDescriptors.addAt(ClassNode.class, "attributes", pNode -> pNode.aAttributes, 
+				(pNode, pAttributes) -> pNode.aAttributes = (String)pAttributes, 3);
 	}
 }
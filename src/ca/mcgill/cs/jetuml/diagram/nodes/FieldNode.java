@@ -24,6 +24,7 @@ package ca.mcgill.cs.jetuml.diagram.nodes;
 import java.util.Optional;
 
 import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
 
 /**
  *  A field node in an object diagram.
@@ -48,6 +49,14 @@ public final class FieldNode extends NamedNode
 	public void setValue(String pNewValue)
 	{
 		aValue = pNewValue;
+		aObject.ifPresent(ObjectNode::fieldChanged);
+	}
+	
+	@Override
+	public void setName(String pName)
+	{
+		super.setName(pName);
+		aObject.ifPresent(ObjectNode::fieldChanged);
 	}
 
 	/**
@@ -87,10 +96,10 @@ public final class FieldNode extends NamedNode
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("value", () -> aValue, pValue -> aValue = (String) pValue);
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(FieldNode.class, "value", pNode -> pNode.aValue, (pNode, pValue) -> pNode.setValue((String) pValue));
 	}
 
 	@Override
@@ -21,6 +21,8 @@
 
 package ca.mcgill.cs.jetuml.diagram.nodes;
 
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
+
 /**
  * A node with a name.
  */
@@ -47,9 +49,9 @@ public abstract class NamedNode extends AbstractNode
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("name", () -> aName, pName -> aName = (String)pName);
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(NamedNode.class, "name", pNode -> pNode.aName, (pNode, pName) -> pNode.setName((String)pName));
 	}
 }
@@ -33,6 +33,7 @@ import ca.mcgill.cs.jetuml.diagram.Node;
 public final class ObjectNode extends NamedNode
 {
 	private ArrayList<Node> aFields = new ArrayList<>();
+	private int aFieldsRevision = 0;
 
 	/* 
  	 * Translate the children as well. 
@@ -77,6 +78,7 @@ public final class ObjectNode extends NamedNode
 		}
 		aFields.add(pIndex, pNode);
 		pNode.link(this);
+		aFieldsRevision++;
 	}
 
 	@Override
@@ -92,6 +94,27 @@ public final class ObjectNode extends NamedNode
 		assert pNode.getParent() == this;
 		aFields.remove(pNode);
 		pNode.unlink();
+		aFieldsRevision++;
+	}
+	
+	/**
+	 * The revision of the fields changes whenever a field is added, 
+	 * removed, renamed, or changes value. It allows viewers to reuse 
+	 * the layout of the fields for as long as it is the same.
+	 * 
+	 * @return The revision of the fields of this object.
+	 */
+	public int getFieldsRevision()
+	{
+		return aFieldsRevision;
+	}
+	
+	/*
+	 * Called by a field of this object when its name or value changes.
+	 */
+	void fieldChanged()
+	{
+		aFieldsRevision++;
 	}
 	
 	@Override
@@ -21,6 +21,8 @@
 
 package ca.mcgill.cs.jetuml.diagram.nodes;
 
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
+
 /**
  * A package description node in a UML diagram.
  */
@@ -55,9 +57,10 @@ public final class PackageDescriptionNode extends AbstractPackageNode
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("contents", () -> aContents, pContents -> aContents = (String)pContents);
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(PackageDescriptionNode.class, "contents", pNode -> pNode.aContents, 
+				(pNode, pContents) -> pNode.aContents = (String)pContents);
 	}
 }
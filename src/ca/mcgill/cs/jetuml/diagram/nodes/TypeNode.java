@@ -24,6 +24,7 @@ package ca.mcgill.cs.jetuml.diagram.nodes;
 import java.util.Optional;
 
 import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
 
 /**
  * A type that can represent either classes or interfaces. A type node 
@@ -92,10 +93,10 @@ public abstract class TypeNode extends NamedNode
 	}
 	
 	@Override
-	protected void buildProperties()
+	protected void buildProperties(PropertyDescriptors pDescriptors)
 	{
-		super.buildProperties();
-		properties().add("methods", () -> aMethods, pMethods -> aMethods = (String)pMethods);
+		super.buildProperties(pDescriptors);
+		pDescriptors.add(TypeNode.class, "methods", pNode -> pNode.aMethods, (pNode, pMethods) -> pNode.aMethods = (String)pMethods);
 	}
 	
 	@Override
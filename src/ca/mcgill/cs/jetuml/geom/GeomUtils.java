@@ -32,6 +32,13 @@ import static java.lang.Math.toRadians;
  */
 public final class GeomUtils
 {
+	private static final int DEGREES_180 = 180;
+	private static final int DEGREES_360 = 360;
+	private static final int MITER_LIMIT = 10;
+	private static final double FLATNESS = 0.05;
+	private static final double BOUNDARY_OFFSET = 1e-6;
+	private static final double TOLERANCE = 1e-9;
+	
 	private GeomUtils()
 	{}
 	
@@ -64,19 +71,19 @@ public final class GeomUtils
 		assert pDirection.isCardinal();
 		if( pDirection == Direction.NORTH )
 		{
-			return new Point(pRectangle.getCenter().getX(), pRectangle.getY());
+			return new Point(pRectangle.getCenterX(), pRectangle.getY());
 		}
 		else if( pDirection == Direction.SOUTH )
 		{
-			return new Point(pRectangle.getCenter().getX(), pRectangle.getMaxY());
+			return new Point(pRectangle.getCenterX(), pRectangle.getMaxY());
 		}
 		else if( pDirection == Direction.EAST )
 		{
-			return new Point(pRectangle.getMaxX(), pRectangle.getCenter().getY());
+			return new Point(pRectangle.getMaxX(), pRectangle.getCenterY());
 		}
 		else // pDirection == Direction.WEST 
 		{
-			return new Point(pRectangle.getX(), pRectangle.getCenter().getY());
+			return new Point(pRectangle.getX(), pRectangle.getCenterY());
 		}
 	}
 	
@@ -104,23 +111,23 @@ public final class GeomUtils
 		if( pDirection.isBetween(diagonalNE, diagonalSE))
 		{
 			int offset = lengthOfOpposingSide(pDirection.asAngle() - Direction.EAST.asAngle(), pRectangle.getWidth()/2);
-			return new Point(pRectangle.getMaxX(), pRectangle.getCenter().getY() + offset);
+			return new Point(pRectangle.getMaxX(), pRectangle.getCenterY() + offset);
 		}
 		else if( pDirection.isBetween(diagonalSE, diagonalSW))
 		{
 			int offset = lengthOfOpposingSide(pDirection.asAngle() - Direction.SOUTH.asAngle(), pRectangle.getHeight()/2);
-			return new Point(pRectangle.getCenter().getX() - offset, pRectangle.getMaxY());
+			return new Point(pRectangle.getCenterX() - offset, pRectangle.getMaxY());
 		}
 		else if( pDirection.isBetween(diagonalSW, diagonalNW))
 		{
 			int offset = lengthOfOpposingSide(pDirection.asAngle() - Direction.WEST.asAngle(), pRectangle.getWidth()/2);
-			return new Point(pRectangle.getX(), pRectangle.getCenter().getY() - offset);
+			return new Point(pRectangle.getX(), pRectangle.getCenterY() - offset);
 		}
 		else
 		{
 			final int angleS = 360;
 			int offset = lengthOfOpposingSide(pDirection.asAngle() - angleS, pRectangle.getHeight()/2);
-			return new Point(pRectangle.getCenter().getX() + offset, pRectangle.getY());
+			return new Point(pRectangle.getCenterX() + offset, pRectangle.getY());
 		}
 	}
 	
@@ -147,7 +154,7 @@ public final class GeomUtils
 		
 		int offsetX = (int) round(cos(toRadians(pDirection.asAngle() - Direction.EAST.asAngle())) * radius);
 		int offsetY = (int) round(sin(toRadians(pDirection.asAngle() - Direction.EAST.asAngle())) * radius);
-		return new Point( pBounds.getCenter().getX() + offsetX, pBounds.getCenter().getY() + offsetY);
+		return new Point( pBounds.getCenterX() + offsetX, pBounds.getCenterY() + offsetY);
 	}   	 
 	
 	/**
@@ -174,7 +181,7 @@ public final class GeomUtils
 		
 		int offsetX = (int) round(cos(toRadians(pDirection.asAngle() - Direction.EAST.asAngle())) * a);
 		int offsetY = (int) round(sin(toRadians(pDirection.asAngle() - Direction.EAST.asAngle())) * b);
-		return new Point( pBounds.getCenter().getX() + offsetX, pBounds.getCenter().getY() + offsetY);
+		return new Point( pBounds.getCenterX() + offsetX, pBounds.getCenterY() + offsetY);
 	}
 
 	/**
@@ -213,35 +220,35 @@ public final class GeomUtils
 		
 		if( pDirection.isBetween(topNE, bottomNE))
 		{
-			Point cornerCenter = new Point(pBounds.getCenter().getX() + widthOffset, pBounds.getCenter().getY() - heightOffset);
+			Point cornerCenter = new Point(pBounds.getCenterX() + widthOffset, pBounds.getCenterY() - heightOffset);
 			Direction cornerDirection = Direction.fromLine(cornerCenter, rectangleIntersectionPoint);
 			int offsetX = (int) round(cos(toRadians(cornerDirection.asAngle() - Direction.EAST.asAngle())) * radius);
 			int offsetY = (int) round(sin(toRadians(cornerDirection.asAngle() - Direction.EAST.asAngle())) * radius);
-			result =  new Point( pBounds.getCenter().getX() + offsetX + widthOffset, pBounds.getCenter().getY() + offsetY - heightOffset);
+			result =  new Point( pBounds.getCenterX() + offsetX + widthOffset, pBounds.getCenterY() + offsetY - heightOffset);
 		}
 		else if( pDirection.isBetween(topSE, bottomSE))
 		{
-			Point cornerCenter = new Point(pBounds.getCenter().getX() + widthOffset, pBounds.getCenter().getY() + heightOffset);
+			Point cornerCenter = new Point(pBounds.getCenterX() + widthOffset, pBounds.getCenterY() + heightOffset);
 			Direction cornerDirection = Direction.fromLine(cornerCenter, rectangleIntersectionPoint);
 			int offsetX = (int) round(cos(toRadians(cornerDirection.asAngle() - Direction.EAST.asAngle())) * radius);
 			int offsetY = (int) round(sin(toRadians(cornerDirection.asAngle() - Direction.EAST.asAngle())) * radius);
-			result = new Point( pBounds.getCenter().getX() + offsetX + widthOffset, pBounds.getCenter().getY() + offsetY + heightOffset);
+			result = new Point( pBounds.getCenterX() + offsetX + widthOffset, pBounds.getCenterY() + offsetY + heightOffset);
 		}
 		else if( pDirection.isBetween(topSW, bottomSW))
 		{
-			Point cornerCenter = new Point(pBounds.getCenter().getX() - widthOffset, pBounds.getCenter().getY() + heightOffset);
+			Point cornerCenter = new Point(pBounds.getCenterX() - widthOffset, pBounds.getCenterY() + heightOffset);
 			Direction cornerDirection = Direction.fromLine(cornerCenter, rectangleIntersectionPoint);
 			int offsetX = (int) round(cos(toRadians(cornerDirection.asAngle() - Direction.EAST.asAngle())) * radius);
 			int offsetY = (int) round(sin(toRadians(cornerDirection.asAngle() - Direction.EAST.asAngle())) * radius);
-			result = new Point( pBounds.getCenter().getX() + offsetX - widthOffset, pBounds.getCenter().getY() + offsetY + heightOffset);
+			result = new Point( pBounds.getCenterX() + offsetX - widthOffset, pBounds.getCenterY() + offsetY + heightOffset);
 		}
 		else if( pDirection.isBetween(topNW, bottomNW))
 		{
-			Point cornerCenter = new Point(pBounds.getCenter().getX() - widthOffset, pBounds.getCenter().getY() - heightOffset);
+			Point cornerCenter = new Point(pBounds.getCenterX() - widthOffset, pBounds.getCenterY() - heightOffset);
 			Direction cornerDirection = Direction.fromLine(cornerCenter, rectangleIntersectionPoint);
 			int offsetX = (int) round(cos(toRadians(cornerDirection.asAngle() - Direction.EAST.asAngle())) * radius);
 			int offsetY = (int) round(sin(toRadians(cornerDirection.asAngle() - Direction.EAST.asAngle())) * radius);
-			result = new Point( pBounds.getCenter().getX() + offsetX - widthOffset, pBounds.getCenter().getY() + offsetY - heightOffset);
+			result = new Point( pBounds.getCenterX() + offsetX - widthOffset, pBounds.getCenterY() + offsetY - heightOffset);
 		}
 		else
 		{
@@ -251,6 +258,266 @@ public final class GeomUtils
 		return result;
 	}
 	
+	/**
+	 * Determines whether a point falls in the area covered by stroking pPath with a pen
+	 * of width pWidth, with square caps and miter joins limited to ten times the half-width,
+	 * which is how JavaFX strokes shapes by default. Quadratic curves are flattened into
+	 * segments. As for other shapes, a point on the boundary is only inside if the 
+	 * interior lies immediately to its right or below it.
+	 * 
+	 * @param pPath The path to stroke.
+	 * @param pWidth The width of the stroke.
+	 * @param pPoint The point to test.
+	 * @return True if pPoint is within the stroke of pPath.
+	 * @pre pPath != null && pPoint != null && pWidth > 0
+	 */
+	public static boolean strokeContains(PrimitivePath pPath, double pWidth, Point pPoint)
+	{
+		assert pPath != null && pPoint != null && pWidth > 0;
+		// Testing a point just below and to the right settles the points on the boundary.
+		// Each part of the stroke is then tested with a small tolerance, so that rounding 
+		// errors cannot open gaps between adjacent parts.
+		double x = pPoint.getX() + BOUNDARY_OFFSET;
+		double y = pPoint.getY() + BOUNDARY_OFFSET;
+		double halfWidth = pWidth / 2;
+		double[] tangents = new double[4];
+		double currentX = 0;
+		double currentY = 0;
+		boolean drawing = false;
+		int coordinate = 0;
+		for( int i = 0; i < pPath.size(); i++ )
+		{
+			byte operation = pPath.getOperation(i);
+			if( operation == PrimitivePath.MOVE_TO )
+			{
+				if( drawing && capContains(x, y, currentX, currentY, tangents[2], tangents[3], halfWidth))
+				{
+					return true;
+				}
+				drawing = false;
+			}
+			else
+			{
+				double previousX = tangents[2];
+				double previousY = tangents[3];
+				computeTangents(pPath, operation, coordinate, currentX, currentY, tangents);
+				if( drawing ? joinContains(x, y, currentX, currentY, previousX, previousY, tangents[0], tangents[1], halfWidth) :
+					capContains(x, y, currentX, currentY, -tangents[0], -tangents[1], halfWidth))
+				{
+					return true;
+				}
+				if( operation == PrimitivePath.LINE_TO ? 
+						segmentContains(x, y, currentX, currentY, pPath.getCoordinate(coordinate), 
+								pPath.getCoordinate(coordinate + 1), halfWidth) :
+						curveContains(x, y, currentX, currentY, pPath.getCoordinate(coordinate), pPath.getCoordinate(coordinate + 1),
+								pPath.getCoordinate(coordinate + 2), pPath.getCoordinate(coordinate + 3), halfWidth))
+				{
+					return true;
+				}
+				drawing = true;
+			}
+			coordinate += PrimitivePath.coordinatesFor(operation);
+			currentX = pPath.getCoordinate(coordinate - 2);
+			currentY = pPath.getCoordinate(coordinate - 1);
+		}
+		return drawing && capContains(x, y, currentX, currentY, tangents[2], tangents[3], halfWidth);
+	}
+	
+	/**
+	 * Determines whether a point falls inside the region delimited by a circular arc
+	 * and the chord between its end points, as JavaFX does for open arcs. Angles are 
+	 * in degrees, counter-clockwise from the positive x axis, with the y axis pointing down.
+	 * 
+	 * @param pCenterX The x coordinate of the center of the arc.
+	 * @param pCenterY The y coordinate of the center of the arc.
+	 * @param pRadius The radius of the arc.
+	 * @param pStartAngle The angle where the arc starts.
+	 * @param pExtent The angular extent of the arc.
+	 * @param pPoint The point to test.
+	 * @return True if pPoint is inside the region of the arc, not counting the arc itself.
+	 * @pre pPoint != null && pRadius > 0 && pExtent > 0
+	 */
+	public static boolean arcContains(double pCenterX, double pCenterY, double pRadius, double pStartAngle, 
+			double pExtent, Point pPoint)
+	{
+		assert pPoint != null && pRadius > 0 && pExtent > 0;
+		double x = (pPoint.getX() - pCenterX) / pRadius;
+		double y = (pPoint.getY() - pCenterY) / pRadius;
+		if( x * x + y * y >= 1 )
+		{
+			return false;
+		}
+		if( pExtent >= DEGREES_360 )
+		{
+			return true;
+		}
+		double angle = Math.toDegrees(-Math.atan2(y, x)) - pStartAngle;
+		angle -= Math.floor(angle / DEGREES_360) * DEGREES_360;
+		boolean inSweep = angle < pExtent;
+		if( inSweep && pExtent >= DEGREES_180 )
+		{
+			return true;
+		}
+		if( !inSweep && pExtent <= DEGREES_180 )
+		{
+			return false;
+		}
+		// Otherwise the chord decides: inside the sweep, the point must be strictly on the side 
+		// opposite to the center, and outside the sweep, on the same side or on the chord.
+		// As in JavaFX, this is computed in single precision, which decides for the points 
+		// that fall on the chord.
+		float startX = (float) cos(toRadians(-pStartAngle));
+		float startY = (float) sin(toRadians(-pStartAngle));
+		float endX = (float) cos(toRadians(-pStartAngle - pExtent));
+		float endY = (float) sin(toRadians(-pStartAngle - pExtent));
+		float pointSide = side(startX, startY, endX, endY, (float) x, (float) y);
+		float centerSide = side(startX, startY, endX, endY, 0, 0);
+		return inSweep != (pointSide == 0 || Math.signum(pointSide) == Math.signum(centerSide));
+	}
+	
+	/*
+	 * Stores in pTangents the unit tangents at the start and at the end of the segment 
+	 * that operation pOperation draws from the current point. Degenerate segments
+	 * get the directions the JavaFX stroker gives them.
+	 */
+	private static void computeTangents(PrimitivePath pPath, byte pOperation, int pCoordinate, 
+			double pCurrentX, double pCurrentY, double[] pTangents)
+	{
+		int end = pCoordinate + PrimitivePath.coordinatesFor(pOperation);
+		double endX = pPath.getCoordinate(end - 2);
+		double endY = pPath.getCoordinate(end - 1);
+		double startDX = endX - pCurrentX;
+		double startDY = endY - pCurrentY;
+		double endDX = startDX;
+		double endDY = startDY;
+		if( pOperation == PrimitivePath.QUAD_TO )
+		{
+			double controlX = pPath.getCoordinate(pCoordinate);
+			double controlY = pPath.getCoordinate(pCoordinate + 1);
+			if( (controlX != pCurrentX || controlY != pCurrentY) && (controlX != endX || controlY != endY) )
+			{
+				startDX = controlX - pCurrentX;
+				startDY = controlY - pCurrentY;
+				endDX = endX - controlX;
+				endDY = endY - controlY;
+			}
+		}
+		if( startDX == 0 && startDY == 0 )
+		{
+			startDX = 1;
+			endDX = 1;
+		}
+		double startLength = Math.hypot(startDX, startDY);
+		double endLength = Math.hypot(endDX, endDY);
+		pTangents[0] = startDX / startLength;
+		pTangents[1] = startDY / startLength;
+		pTangents[2] = endDX / endLength;
+		pTangents[3] = endDY / endLength;
+	}
+	
+	/*
+	 * A square cap extends the stroke by half its width past the end point (pX1, pY1),
+	 * in the direction of the unit vector (pDX, pDY).
+	 */
+	private static boolean capContains(double pX, double pY, double pX1, double pY1, double pDX, double pDY, 
+			double pHalfWidth)
+	{
+		double along = (pX - pX1) * pDX + (pY - pY1) * pDY;
+		double across = (pY - pY1) * pDX - (pX - pX1) * pDY;
+		return along >= -TOLERANCE && along <= pHalfWidth + TOLERANCE && Math.abs(across) <= pHalfWidth + TOLERANCE;
+	}
+	
+	private static boolean segmentContains(double pX, double pY, double pX1, double pY1, double pX2, double pY2, 
+			double pHalfWidth)
+	{
+		double length = Math.hypot(pX2 - pX1, pY2 - pY1);
+		if( length == 0 )
+		{
+			return false;
+		}
+		double along = ((pX - pX1) * (pX2 - pX1) + (pY - pY1) * (pY2 - pY1)) / length;
+		double across = side(pX1, pY1, pX2, pY2, pX, pY) / length;
+		return along >= -TOLERANCE && along <= length + TOLERANCE && Math.abs(across) <= pHalfWidth + TOLERANCE;
+	}
+	
+	/*
+	 * The curve is flattened into enough segments for the distance between 
+	 * the curve and the segments to stay under FLATNESS. The segments have 
+	 * round ends, which approximate the stroke of the curve itself and close
+	 * the gaps with the caps, whose directions are the tangents of the curve.
+	 */
+	private static boolean curveContains(double pX, double pY, double pX1, double pY1, double pControlX, double pControlY,
+			double pX2, double pY2, double pHalfWidth)
+	{
+		double deviation = Math.hypot(pX1 - 2 * pControlX + pX2, pY1 - 2 * pControlY + pY2);
+		int segments = Math.max(1, (int) Math.ceil(Math.sqrt(deviation / (4 * FLATNESS))));
+		if( Math.hypot(pX - pX1, pY - pY1) <= pHalfWidth )
+		{
+			return true;
+		}
+		double previousX = pX1;
+		double previousY = pY1;
+		for( int i = 1; i <= segments; i++ )
+		{
+			double t = i / (double) segments;
+			double x = (1 - t) * (1 - t) * pX1 + 2 * (1 - t) * t * pControlX + t * t * pX2;
+			double y = (1 - t) * (1 - t) * pY1 + 2 * (1 - t) * t * pControlY + t * t * pY2;
+			if( segmentContains(pX, pY, previousX, previousY, x, y, pHalfWidth) || Math.hypot(pX - x, pY - y) <= pHalfWidth )
+			{
+				return true;
+			}
+			previousX = x;
+			previousY = y;
+		}
+		return false;
+	}
+	
+	/*
+	 * The join at (pX1, pY1) between segments with unit tangents (pDX1, pDY1) and (pDX2, pDY2)
+	 * fills the outside of the turn, between the ends of the two segments and up to their 
+	 * outer sides, which meet at the tip of the miter. When the miter is too long, the join 
+	 * is beveled: cut by the line between the outer corners of the segments.
+	 */
+	private static boolean joinContains(double pX, double pY, double pX1, double pY1, double pDX1, double pDY1, 
+			double pDX2, double pDY2, double pHalfWidth)
+	{
+		double turn = pDX1 * pDY2 - pDY1 * pDX2;
+		if( turn == 0 )
+		{
+			return false;
+		}
+		// The normals are unit vectors pointing to the outside of the turn
+		double side = Math.signum(turn);
+		double normalX1 = pDY1 * side;
+		double normalY1 = -pDX1 * side;
+		double normalX2 = pDY2 * side;
+		double normalY2 = -pDX2 * side;
+		double x = pX - pX1;
+		double y = pY - pY1;
+		if( x * pDX1 + y * pDY1 < -TOLERANCE || x * pDX2 + y * pDY2 > TOLERANCE || 
+				x * normalX1 + y * normalY1 > pHalfWidth + TOLERANCE || x * normalX2 + y * normalY2 > pHalfWidth + TOLERANCE )
+		{
+			return false;
+		}
+		double cosine = pDX1 * pDX2 + pDY1 * pDY2;
+		return 2 / (1 + cosine) < MITER_LIMIT * MITER_LIMIT || 
+				x * (normalX1 + normalX2) + y * (normalY1 + normalY2) <= pHalfWidth * (1 + cosine) + TOLERANCE;
+	}
+	
+	/*
+	 * The cross product of (pX2-pX1, pY2-pY1) and (pX-pX1, pY-pY1), whose sign 
+	 * tells on which side of the line through the first two points (pX, pY) lies.
+	 */
+	private static double side(double pX1, double pY1, double pX2, double pY2, double pX, double pY)
+	{
+		return (pX2 - pX1) * (pY - pY1) - (pY2 - pY1) * (pX - pX1);
+	}
+	
+	private static float side(float pX1, float pY1, float pX2, float pY2, float pX, float pY)
+	{
+		return (pX2 - pX1) * (pY - pY1) - (pY2 - pY1) * (pX - pX1);
+	}
+	
 	/*
      * returns the length, in pixel, of the opposing side to the angle pAngleInDegrees
      * of a right triangle for when the length (in pixels) of the adjacent side is 
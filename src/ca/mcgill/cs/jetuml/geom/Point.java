@@ -20,14 +20,18 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.geom;
 
+import ca.mcgill.cs.jetuml.annotations.Immutable;
+
 /**
  * A framework independent representation of a point in 
- * integer space. 
+ * integer space. Points are immutable and can be freely
+ * shared between diagram elements.
  */
+@Immutable
 public final class Point
 {
-	private int aX;
-	private int aY;
+	private final int aX;
+	private final int aY;
 	
 	/**
 	 * Create a new point.
@@ -50,31 +54,25 @@ public final class Point
 	}
 	
 	/**
-	 * Sets the X coordinate.
-	 * 
-	 * @param pX The new X coordinate.
-	 */
-	public void setX(int pX)
-	{
-		aX = pX;
-	}
-	
-	/**
-	 * Sets the Y coordinate.
-	 * 
-	 * @param pY The new Y coordinate.
+	 * @return The Y-coordinate.
 	 */
-	public void setY(int pY)
+	public int getY()
 	{
-		aY = pY;
+		return aY;
 	}
 	
 	/**
-	 * @return The Y-coordinate.
+	 * @param pDeltaX The amount to translate in the X-coordinate.
+	 * @param pDeltaY The amount to translate in the Y-coordinate.
+	 * @return The translated point, or this point if both deltas are zero.
 	 */
-	public int getY()
+	public Point translated(int pDeltaX, int pDeltaY)
 	{
-		return aY;
+		if( pDeltaX == 0 && pDeltaY == 0 )
+		{
+			return this;
+		}
+		return new Point(aX + pDeltaX, aY + pDeltaY);
 	}
 	
 	/**
@@ -0,0 +1,435 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.geom;
+
+import java.util.Arrays;
+
+/**
+ * A lightweight path made of straight lines and quadratic curves, 
+ * stored as a flat array of coordinates and an array of operations. 
+ * Viewers emit primitive paths, which are then stroked directly 
+ * on a graphics context, instead of building scene-graph paths made 
+ * of one object per element.
+ * 
+ * Each operation consumes coordinates in order: two for MOVE_TO and 
+ * LINE_TO (the end point), four for QUAD_TO (the control point, then 
+ * the end point).
+ */
+public final class PrimitivePath
+{
+	/** Starts a new sub-path at a point. */
+	public static final byte MOVE_TO = 0;
+	/** Adds a straight line to a point. */
+	public static final byte LINE_TO = 1;
+	/** Adds a quadratic curve to a point, through a control point. */
+	public static final byte QUAD_TO = 2;
+	
+	private static final int INITIAL_OPERATIONS = 8;
+	private static final int COORDINATES_PER_POINT = 2;
+	private static final int COORDINATES_PER_QUAD = 4;
+	
+	/* Bounds are computed as JavaFX computes the bounds of a scene-graph path
+	 * with the default stroke: a width of 1, square caps, and miter joins 
+	 * up to a ratio of 10, plus half a pixel all around for anti-aliasing. */
+	private static final float HALF_STROKE = 0.5f;
+	private static final float MITER_RATIO = 10;
+	private static final float MAX_MITER_LENGTH = MITER_RATIO * HALF_STROKE;
+	private static final float ANTI_ALIASING_PAD = 0.5f;
+	
+	private byte[] aOperations = new byte[INITIAL_OPERATIONS];
+	private double[] aCoordinates = new double[INITIAL_OPERATIONS * COORDINATES_PER_QUAD];
+	private int aSize = 0;
+	private int aCoordinateCount = 0;
+	
+	/**
+	 * Starts a new sub-path at (pX, pY).
+	 * 
+	 * @param pX The x coordinate of the point.
+	 * @param pY The y coordinate of the point.
+	 * @return This path.
+	 */
+	public PrimitivePath moveTo(double pX, double pY)
+	{
+		add(MOVE_TO, COORDINATES_PER_POINT);
+		aCoordinates[aCoordinateCount++] = pX;
+		aCoordinates[aCoordinateCount++] = pY;
+		return this;
+	}
+	
+	/**
+	 * Adds a straight line from the current point to (pX, pY).
+	 * 
+	 * @param pX The x coordinate of the end point.
+	 * @param pY The y coordinate of the end point.
+	 * @return This path.
+	 * @pre size() > 0
+	 */
+	public PrimitivePath lineTo(double pX, double pY)
+	{
+		assert aSize > 0;
+		add(LINE_TO, COORDINATES_PER_POINT);
+		aCoordinates[aCoordinateCount++] = pX;
+		aCoordinates[aCoordinateCount++] = pY;
+		return this;
+	}
+	
+	/**
+	 * Adds a quadratic curve from the current point to (pX, pY).
+	 * 
+	 * @param pControlX The x coordinate of the control point.
+	 * @param pControlY The y coordinate of the control point.
+	 * @param pX The x coordinate of the end point.
+	 * @param pY The y coordinate of the end point.
+	 * @return This path.
+	 * @pre size() > 0
+	 */
+	public PrimitivePath quadTo(double pControlX, double pControlY, double pX, double pY)
+	{
+		assert aSize > 0;
+		add(QUAD_TO, COORDINATES_PER_QUAD);
+		aCoordinates[aCoordinateCount++] = pControlX;
+		aCoordinates[aCoordinateCount++] = pControlY;
+		aCoordinates[aCoordinateCount++] = pX;
+		aCoordinates[aCoordinateCount++] = pY;
+		return this;
+	}
+	
+	/**
+	 * Adds all the operations of pPath to this path.
+	 * 
+	 * @param pPath The path to append.
+	 * @return This path.
+	 * @pre pPath != null && (pPath.size() == 0 || pPath.getOperation(0) == MOVE_TO)
+	 */
+	public PrimitivePath append(PrimitivePath pPath)
+	{
+		assert pPath != null && (pPath.aSize == 0 || pPath.aOperations[0] == MOVE_TO);
+		ensureCapacity(pPath.aSize, pPath.aCoordinateCount);
+		System.arraycopy(pPath.aOperations, 0, aOperations, aSize, pPath.aSize);
+		System.arraycopy(pPath.aCoordinates, 0, aCoordinates, aCoordinateCount, pPath.aCoordinateCount);
+		aSize += pPath.aSize;
+		aCoordinateCount += pPath.aCoordinateCount;
+		return this;
+	}
+	
+	/**
+	 * @return The number of operations in this path.
+	 */
+	public int size()
+	{
+		return aSize;
+	}
+	
+	/**
+	 * @param pIndex The index of an operation.
+	 * @return The operation at pIndex: MOVE_TO, LINE_TO, or QUAD_TO.
+	 * @pre pIndex >= 0 && pIndex < size()
+	 */
+	public byte getOperation(int pIndex)
+	{
+		assert pIndex >= 0 && pIndex < aSize;
+		return aOperations[pIndex];
+	}
+	
+	/**
+	 * @param pIndex The index of a coordinate. The coordinates of all the 
+	 *     operations are stored in sequence.
+	 * @return The coordinate at pIndex.
+	 * @pre pIndex >= 0 && pIndex < the number of coordinates
+	 */
+	public double getCoordinate(int pIndex)
+	{
+		assert pIndex >= 0 && pIndex < aCoordinateCount;
+		return aCoordinates[pIndex];
+	}
+	
+	/**
+	 * @param pOperation An operation.
+	 * @return The number of coordinates consumed by pOperation.
+	 */
+	public static int coordinatesFor(byte pOperation)
+	{
+		if( pOperation == QUAD_TO )
+		{
+			return COORDINATES_PER_QUAD;
+		}
+		return COORDINATES_PER_POINT;
+	}
+	
+	/**
+	 * Computes the bounds of this path when stroked with a width of one, 
+	 * exactly as they were computed for the scene-graph paths previously 
+	 * used by the viewers, so that the bounds of diagram elements are unchanged.
+	 * The bounds account for square caps at the ends of each sub-path, for 
+	 * mitered corners, and for the extrema of the curves.
+	 * 
+	 * @return The bounds of this path, truncated to integers. A path without 
+	 *     any line or curve has empty bounds at the origin.
+	 */
+	public Rectangle getBounds()
+	{
+		float[] extent = computeExtent();
+		if( extent[0] > extent[2] )
+		{
+			return new Rectangle(0, 0, 0, 0);
+		}
+		return new Rectangle((int) extent[0], (int) extent[1], (int)(extent[2] - extent[0]), (int)(extent[3] - extent[1]));
+	}
+	
+	/**
+	 * @return The exact width of the bounds of this path, as computed by 
+	 *     getBounds() before truncation, or -1 if the path does not have any 
+	 *     line or curve.
+	 */
+	public double getWidth()
+	{
+		float[] extent = computeExtent();
+		if( extent[0] > extent[2] )
+		{
+			return -1;
+		}
+		return extent[2] - extent[0];
+	}
+	
+	/*
+	 * Returns the minimum and maximum x and y coordinates of the stroked path. 
+	 * The computation replicates the one of the JavaFX toolkit, in single precision, 
+	 * because the bounds are truncated to integers and a rounding difference would 
+	 * move them by one pixel. The joins and caps are computed from the offset vectors,
+	 * which are perpendicular to each segment and have a length of half the stroke.
+	 * The minimum is greater than the maximum if there is nothing to stroke.
+	 */
+	private float[] computeExtent()
+	{
+		float[] box = { Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, 
+				Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY };
+		float[] offset = new float[2];
+		float startX = 0;
+		float startY = 0;
+		float x = 0;
+		float y = 0;
+		float startDX = 0; // The direction of the first segment of a sub-path
+		float startDY = 0;
+		float startMX = 0; // The offset of the first segment of a sub-path
+		float startMY = 0;
+		float previousDX = 0; // The direction at the end of the previous segment
+		float previousDY = 0;
+		float previousMX = 0; // The offset at the end of the previous segment
+		float previousMY = 0;
+		boolean first = true;
+		int coordinate = 0;
+		for( int i = 0; i < aSize; i++ )
+		{
+			byte operation = aOperations[i];
+			if( operation == MOVE_TO )
+			{
+				if( !first )
+				{
+					addCap(box, x, y, previousMX, previousMY);
+					addCap(box, startX, startY, -startMX, -startMY);
+				}
+				x = (float) aCoordinates[coordinate];
+				y = (float) aCoordinates[coordinate + 1];
+				startX = x;
+				startY = y;
+			}
+			else
+			{
+				float endX = (float) aCoordinates[coordinate + coordinatesFor(operation) - 2];
+				float endY = (float) aCoordinates[coordinate + coordinatesFor(operation) - 1];
+				float dx = endX - x;
+				float dy = endY - y;
+				if( operation == LINE_TO && dx == 0 && dy == 0 )
+				{
+					dx = 1; // A segment of length zero is stroked as a square
+				}
+				float controlX = (float) aCoordinates[coordinate];
+				float controlY = (float) aCoordinates[coordinate + 1];
+				if( operation == QUAD_TO )
+				{
+					dx = controlX - x;
+					dy = controlY - y;
+				}
+				computeOffset(dx, dy, offset);
+				if( !first )
+				{
+					addMiter(box, previousDX, previousDY, dx, dy, previousMX, previousMY, offset[0], offset[1], x, y);
+				}
+				else
+				{
+					startDX = dx;
+					startDY = dy;
+					startMX = offset[0];
+					startMY = offset[1];
+				}
+				previousDX = dx;
+				previousDY = dy;
+				if( operation == QUAD_TO )
+				{
+					if( box[0] > controlX - HALF_STROKE || box[2] < controlX + HALF_STROKE )
+					{
+						addExtremum(box, 0, x, controlX, endX);
+					}
+					if( box[1] > controlY - HALF_STROKE || box[3] < controlY + HALF_STROKE )
+					{
+						addExtremum(box, 1, y, controlY, endY);
+					}
+					previousDX = endX - controlX;
+					previousDY = endY - controlY;
+					computeOffset(previousDX, previousDY, offset);
+				}
+				previousMX = offset[0];
+				previousMY = offset[1];
+				x = endX;
+				y = endY;
+			}
+			first = operation == MOVE_TO;
+			coordinate += coordinatesFor(operation);
+		}
+		if( !first )
+		{
+			addCap(box, x, y, previousMX, previousMY);
+			addCap(box, startX, startY, -startMX, -startMY);
+		}
+		box[0] -= ANTI_ALIASING_PAD;
+		box[1] -= ANTI_ALIASING_PAD;
+		box[2] += ANTI_ALIASING_PAD;
+		box[3] += ANTI_ALIASING_PAD;
+		return box;
+	}
+	
+	/*
+	 * Stores in pOffset the vector perpendicular to (pDX, pDY) with a length of half the stroke.
+	 */
+	private static void computeOffset(float pDX, float pDY, float[] pOffset)
+	{
+		float length = (float) Math.sqrt(pDX * pDX + pDY * pDY);
+		if( length == 0 )
+		{
+			pOffset[0] = 0;
+			pOffset[1] = 0;
+		}
+		else
+		{
+			pOffset[0] = pDY * HALF_STROKE / length;
+			pOffset[1] = -(pDX * HALF_STROKE) / length;
+		}
+	}
+	
+	private static void include(float[] pBox, float pX1, float pY1, float pX2, float pY2)
+	{
+		pBox[0] = Math.min(pBox[0], Math.min(pX1, pX2));
+		pBox[1] = Math.min(pBox[1], Math.min(pY1, pY2));
+		pBox[2] = Math.max(pBox[2], Math.max(pX1, pX2));
+		pBox[3] = Math.max(pBox[3], Math.max(pY1, pY2));
+	}
+	
+	/*
+	 * Includes the corners of a square cap at (pX, pY), where the offset of the 
+	 * segment is (pMX, pMY). The cap extends in the direction (-pMY, pMX).
+	 */
+	private static void addCap(float[] pBox, float pX, float pY, float pMX, float pMY)
+	{
+		include(pBox, pX + pMX - pMY, pY + pMY + pMX, pX - pMX - pMY, pY - pMY + pMX);
+	}
+	
+	/*
+	 * Includes the corners of a join at (pX, pY) between a segment in direction 
+	 * (pDX1, pDY1) with offset (pMX1, pMY1), and a segment in direction (pDX2, pDY2)
+	 * with offset (pMX2, pMY2). The corners are beveled, and the tip of the miter on 
+	 * the outer side is included unless it exceeds the miter limit.
+	 */
+	private static void addMiter(float[] pBox, float pDX1, float pDY1, float pDX2, float pDY2, 
+			float pMX1, float pMY1, float pMX2, float pMY2, float pX, float pY)
+	{
+		include(pBox, pX + pMX1, pY + pMY1, pX - pMX1, pY - pMY1);
+		include(pBox, pX + pMX2, pY + pMY2, pX - pMX2, pY - pMY2);
+		float mx1 = pMX1;
+		float my1 = pMY1;
+		float mx2 = pMX2;
+		float my2 = pMY2;
+		if( pDX1 * pDY2 <= pDY1 * pDX2 ) // Clockwise turn
+		{
+			mx1 = -mx1;
+			my1 = -my1;
+			mx2 = -mx2;
+			my2 = -my2;
+		}
+		// Intersection of the outer sides of both segments
+		float x0 = pX - pDX1 + mx1;
+		float y0 = pY - pDY1 + my1;
+		float x10 = pX + mx1 - x0;
+		float y10 = pY + my1 - y0;
+		float x0p = pX + pDX2 + mx2;
+		float y0p = pY + pDY2 + my2;
+		float x10p = pX + mx2 - x0p;
+		float y10p = pY + my2 - y0p;
+		float t = (x10p * (y0 - y0p) - y10p * (x0 - x0p)) / (x10 * y10p - x10p * y10);
+		float miterX = x0 + t * x10;
+		float miterY = y0 + t * y10;
+		float lengthSquared = (miterX - pX) * (miterX - pX) + (miterY - pY) * (miterY - pY);
+		if( lengthSquared < MAX_MITER_LENGTH * MAX_MITER_LENGTH ) // Also false if the segments are parallel
+		{
+			include(pBox, miterX, miterY, miterX, miterY);
+		}
+	}
+	
+	/*
+	 * Includes the extremum of a quadratic curve along one axis (0 for x, 1 for y), if it 
+	 * is between the ends of the curve. The stroke extends by half its width along that axis.
+	 */
+	private static void addExtremum(float[] pBox, int pAxis, float pStart, float pControl, float pEnd)
+	{
+		float numerator = pStart - pControl;
+		float denominator = pEnd - pControl + numerator;
+		if( denominator == 0 )
+		{
+			return;
+		}
+		float t = numerator / denominator;
+		if( t <= 0 || t >= 1 )
+		{
+			return;
+		}
+		float u = 1 - t;
+		float value = pStart * u * u + 2 * pControl * t * u + pEnd * t * t;
+		pBox[pAxis] = Math.min(pBox[pAxis], value - HALF_STROKE);
+		pBox[pAxis + 2] = Math.max(pBox[pAxis + 2], value + HALF_STROKE);
+	}
+	
+	private void add(byte pOperation, int pCoordinates)
+	{
+		ensureCapacity(1, pCoordinates);
+		aOperations[aSize++] = pOperation;
+	}
+	
+	private void ensureCapacity(int pOperations, int pCoordinates)
+	{
+		if( aSize + pOperations > aOperations.length )
+		{
+			aOperations = Arrays.copyOf(aOperations, Math.max(aOperations.length * 2, aSize + pOperations));
+		}
+		if( aCoordinateCount + pCoordinates > aCoordinates.length )
+		{
+			aCoordinates = Arrays.copyOf(aCoordinates, Math.max(aCoordinates.length * 2, aCoordinateCount + pCoordinates));
+		}
+	}
+}
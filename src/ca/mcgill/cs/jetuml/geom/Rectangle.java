@@ -29,8 +29,8 @@ import ca.mcgill.cs.jetuml.annotations.Immutable;
 @Immutable
 public class Rectangle
 {
-	private int aX;
-	private int aY;
+	private final int aX;
+	private final int aY;
 	private final int aWidth;
 	private final int aHeight;
 	
@@ -85,6 +85,21 @@ public class Rectangle
 		return aY + aHeight;
 	}
 	
+	/**
+	 * @return The X-coordinate of the center of this rectangle.
+	 */
+	public int getCenterX()
+	{
+		return aX + aWidth/2;
+	}
+	
+	/**
+	 * @return The Y-coordinate of the center of this rectangle.
+	 */
+	public int getCenterY()
+	{
+		return aY + aHeight/2;
+	}
 
 	/**
 	 * @return The width.
@@ -104,10 +119,14 @@ public class Rectangle
 	/**
 	 * @param pDeltaX The amount to translate in the X-coordinate.
 	 * @param pDeltaY The amount to translate in the Y-coordinate.
-	 * @return The translated rectangle.
+	 * @return The translated rectangle, or this rectangle if both deltas are zero.
 	 */
 	public Rectangle translated(int pDeltaX, int pDeltaY)
 	{
+		if( pDeltaX == 0 && pDeltaY == 0 )
+		{
+			return this;
+		}
 		return new Rectangle(aX + pDeltaX, aY + pDeltaY, aWidth, aHeight);
 	}
 	
@@ -141,17 +160,22 @@ public class Rectangle
 	 */
 	public Point getCenter()
 	{
-		return new Point( aX + aWidth/2, aY + aHeight/2);
+		return new Point(getCenterX(), getCenterY());
 	}
 	
 	/**
 	 * @param pPoint The point to include.
-	 * @return A new rectangle that is this rectangle enlarged to include pPoint.
+	 * @return A rectangle that is this rectangle enlarged to include pPoint, 
+	 *     or this rectangle if it already contains pPoint.
 	 * @pre pPoint != null
 	 */ 
 	public Rectangle add(Point pPoint)
 	{
 		assert pPoint != null;
+		if( contains(pPoint) )
+		{
+			return this;
+		}
 		int x = aX;
 		int y = aY;
 		int width = aWidth;
@@ -179,12 +203,17 @@ public class Rectangle
 	
 	/**
 	 * @param pRectangle The rectangle to include.
-	 * @return A new rectangle that is this rectangle enlarged to include pRectangle.
+	 * @return A rectangle that is this rectangle enlarged to include pRectangle,
+	 *     or this rectangle if it already contains pRectangle.
 	 * @pre pRectangle != null
 	 */ 
 	public Rectangle add(Rectangle pRectangle)
 	{
 		assert pRectangle != null;
+		if( contains(pRectangle) )
+		{
+			return this;
+		}
 		int x = Math.min(aX, pRectangle.aX);
 		int y = Math.min(aY, pRectangle.aY);
 		int maxX = Math.max(getMaxX(), pRectangle.getMaxX());
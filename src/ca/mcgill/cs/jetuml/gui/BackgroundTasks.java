@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.gui;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+
+/**
+ * Runs the tasks that take too long for the JavaFX application thread, 
+ * such as importing or laying out a diagram, on a shared background thread. 
+ * The outcome of each task is handed back to the JavaFX application thread. 
+ * Tasks run one at a time, in the order they are submitted.
+ * 
+ * A task must not modify a diagram that is shown: it computes what 
+ * to change, and the change is applied on the JavaFX application thread.
+ */
+final class BackgroundTasks
+{
+	private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(pTask -> 
+	{
+		Thread thread = new Thread(pTask, "JetUML Background Task");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private BackgroundTasks() {}
+	
+	/**
+	 * Runs pTask in the background, then passes its result to pOnDone, 
+	 * or the exception it threw to pOnFailed, on the JavaFX application thread.
+	 * 
+	 * @param pTask The task to run.
+	 * @param pOnDone Receives the result of the task.
+	 * @param pOnFailed Receives the exception thrown by the task.
+	 * @param <T> The type of the result of the task.
+	 * @pre pTask != null && pOnDone != null && pOnFailed != null
+	 */
+	static <T> void run(Callable<T> pTask, Consumer<T> pOnDone, Consumer<Exception> pOnFailed)
+	{
+		assert pTask != null && pOnDone != null && pOnFailed != null;
+		WORKER.execute(() -> 
+		{
+			try
+			{
+				T result = pTask.call();
+				Platform.runLater(() -> pOnDone.accept(result));
+			}
+			catch( Exception exception )
+			{
+				Platform.runLater(() -> pOnFailed.accept(exception));
+			}
+		});
+	}
+}
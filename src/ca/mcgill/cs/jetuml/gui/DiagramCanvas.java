@@ -20,35 +20,48 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.gui;
 
-import static ca.mcgill.cs.jetuml.diagram.DiagramType.viewerFor;
+import java.util.Optional;
 
+import ca.mcgill.cs.jetuml.application.FlightRecorderEvents.RenderingEvent;
+import ca.mcgill.cs.jetuml.application.Metrics;
 import ca.mcgill.cs.jetuml.application.UserPreferences;
 import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
 import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreferenceChangeHandler;
 import ca.mcgill.cs.jetuml.application.UserPreferences.IntegerPreference;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationObserver;
 import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.persistence.DiagramIndex;
+import ca.mcgill.cs.jetuml.views.CanvasDrawingContext;
+import ca.mcgill.cs.jetuml.views.DiagramBoundsTracker;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.Grid;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
 import ca.mcgill.cs.jetuml.views.ViewerUtilities;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
 /**
- * A canvas on which to view diagrams.
+ * A canvas on which to view diagrams. The canvas grows when an operation
+ * extends the diagram beyond its current size.
  */
-public class DiagramCanvas extends Canvas implements SelectionObserver, BooleanPreferenceChangeHandler
+public class DiagramCanvas extends Canvas implements SelectionObserver, BooleanPreferenceChangeHandler, DiagramOperationObserver
 {	
 	private static final double LINE_WIDTH = 0.6;
 	/* The number of pixels to leave around a diagram when the canvas size
 	 * is automatically increased to accommodate a diagram larger than the 
 	 * preferred size. */
 	private static final int DIMENSION_BUFFER = 20;
+	private static final Metrics.Timer PAINT_TIMER = Metrics.timer(Metrics.CANVAS_PAINT);
+	private static final Metrics.Timer GRID_TIMER = Metrics.timer(Metrics.CANVAS_PAINT_GRID);
+	private static final Metrics.Timer DIAGRAM_TIMER = Metrics.timer(Metrics.CANVAS_PAINT_DIAGRAM);
+	private static final Metrics.Timer SELECTION_TIMER = Metrics.timer(Metrics.CANVAS_PAINT_SELECTION);
 	
 	private final Diagram aDiagram;
+	private final DiagramBoundsTracker aBoundsTracker;
 	private DiagramCanvasController aController;
 	
 	/**
@@ -59,8 +72,25 @@ public class DiagramCanvas extends Canvas implements SelectionObserver, BooleanP
 	 */
 	public DiagramCanvas(Diagram pDiagram)
 	{
-		assert pDiagram != null;
-		Dimension dimension = getDiagramCanvasWidth(pDiagram);
+		this(pDiagram, Optional.empty());
+	}
+	
+	/**
+	 * Constructs the canvas, assigns the diagram to it. If pIndex is present
+	 * and matches the diagram, the bounds of the elements are taken from the 
+	 * index instead of being measured.
+	 * 
+	 * @param pDiagram The diagram to draw on this canvas.
+	 * @param pIndex The index of the file the diagram was read from, if any.
+	 * @pre pDiagram != null && pIndex != null;
+	 */
+	public DiagramCanvas(Diagram pDiagram, Optional<DiagramIndex> pIndex)
+	{
+		assert pDiagram != null && pIndex != null;
+		aBoundsTracker = new DiagramBoundsTracker(pDiagram);
+		pIndex.filter(index -> index.matches(pDiagram))
+			.ifPresent(index -> aBoundsTracker.seed(index.getNodeBounds(pDiagram), index.getRoutes(pDiagram)));
+		Dimension dimension = getDiagramCanvasWidth(aBoundsTracker.getBounds());
 		setWidth(dimension.width());
 		setHeight(dimension.height());
 		getGraphicsContext2D().setLineWidth(LINE_WIDTH);
@@ -92,24 +122,81 @@ public class DiagramCanvas extends Canvas implements SelectionObserver, BooleanP
 		return aDiagram;
 	}
 	
+	/**
+	 * @return The tracker of the bounds of the elements of the diagram
+	 *     painted on this canvas.
+	 */
+	public DiagramBoundsTracker getBoundsTracker()
+	{
+		return aBoundsTracker;
+	}
+	
 	/**
 	 * Paints the panel and all the graph elements in aDiagramView.
-	 * Called after the panel is resized.
+	 * Called after the panel is resized. Each phase of the painting 
+	 * is timed when metrics are enabled.
 	 */
 	public void paintPanel()
 	{
-		GraphicsContext context = getGraphicsContext2D();
+		RenderingEvent event = new RenderingEvent();
+		event.begin();
+		long start = PAINT_TIMER.start();
+		DrawingContext context = new CanvasDrawingContext(getGraphicsContext2D());
 		context.setFill(Color.WHITE); 
 		context.fillRect(0, 0, getWidth(), getHeight());
+		long phase = GRID_TIMER.start();
 		if(UserPreferences.instance().getBoolean(BooleanPreference.showGrid)) 
 		{
 			Grid.draw(context, new Rectangle(0, 0, (int) getWidth(), (int) getHeight()));
 		}
+		GRID_TIMER.stop(phase);
+		phase = DIAGRAM_TIMER.start();
 		DiagramType.viewerFor(aDiagram).draw(aDiagram, context);
+		DIAGRAM_TIMER.stop(phase);
+		phase = SELECTION_TIMER.start();
 		aController.synchronizeSelectionModel();
 		aController.getSelectionModel().forEach( selected -> ViewerUtilities.drawSelectionHandles(selected, context));
 		aController.getSelectionModel().getRubberband().ifPresent( rubberband -> ToolGraphics.drawRubberband(context, rubberband));
 		aController.getSelectionModel().getLasso().ifPresent( lasso -> ToolGraphics.drawLasso(context, lasso));
+		SELECTION_TIMER.stop(phase);
+		PAINT_TIMER.stop(start);
+		event.end();
+		if( event.shouldCommit() )
+		{
+			event.setArea(false, (int) getWidth(), (int) getHeight());
+			event.setDiagram(aDiagram);
+			event.commit();
+		}
+	}
+	
+	@Override
+	public void operationExecuted(DiagramOperation pOperation)
+	{
+		aBoundsTracker.operationExecuted(pOperation);
+		fitDiagram();
+	}
+
+	@Override
+	public void operationUndone(DiagramOperation pOperation)
+	{
+		aBoundsTracker.operationUndone(pOperation);
+		fitDiagram();
+	}
+	
+	/*
+	 * Grows the canvas if the diagram no longer fits in it. The canvas
+	 * never shrinks, so that elements can be moved back without the
+	 * view jumping.
+	 */
+	private void fitDiagram()
+	{
+		Dimension dimension = getDiagramCanvasWidth(aBoundsTracker.getBounds());
+		if( dimension.width() > getWidth() || dimension.height() > getHeight() )
+		{
+			setWidth(Math.max(getWidth(), dimension.width()));
+			setHeight(Math.max(getHeight(), dimension.height()));
+			paintPanel();
+		}
 	}
 	
 	@Override
@@ -132,12 +219,11 @@ public class DiagramCanvas extends Canvas implements SelectionObserver, BooleanP
 	 * the preferred dimension. Otherwise, grow the dimensions to accommodate
 	 * the diagram.
 	 */
-	private static Dimension getDiagramCanvasWidth(Diagram pDiagram)
+	private static Dimension getDiagramCanvasWidth(Rectangle pBounds)
 	{
-		Rectangle bounds = viewerFor(pDiagram).getBounds(pDiagram);
 		return new Dimension(
-				Math.max(getPreferredDiagramWidth(), bounds.getMaxX() + DIMENSION_BUFFER),
-				Math.max(getPreferredDiagramHeight(), bounds.getMaxY() + DIMENSION_BUFFER));
+				Math.max(getPreferredDiagramWidth(), pBounds.getMaxX() + DIMENSION_BUFFER),
+				Math.max(getPreferredDiagramHeight(), pBounds.getMaxY() + DIMENSION_BUFFER));
 	}
 	
 	private static int getPreferredDiagramWidth()
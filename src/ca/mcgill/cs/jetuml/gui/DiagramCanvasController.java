@@ -20,6 +20,7 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.gui;
 
+import static ca.mcgill.cs.jetuml.application.ApplicationResources.RESOURCES;
 import static ca.mcgill.cs.jetuml.diagram.DiagramType.viewerFor;
 
 import java.util.ArrayList;
@@ -28,8 +29,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import ca.mcgill.cs.jetuml.application.Clipboard;
+import ca.mcgill.cs.jetuml.application.Metrics;
 import ca.mcgill.cs.jetuml.application.MoveTracker;
 import ca.mcgill.cs.jetuml.application.UserPreferences;
 import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
@@ -40,6 +43,7 @@ import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
 import ca.mcgill.cs.jetuml.diagram.builder.CompoundOperation;
 import ca.mcgill.cs.jetuml.diagram.builder.DiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationObserver;
 import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationProcessor;
 import ca.mcgill.cs.jetuml.diagram.nodes.FieldNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
@@ -47,7 +51,13 @@ import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Line;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.layout.AutoLayout;
+import ca.mcgill.cs.jetuml.layout.HierarchicalLayout;
+import ca.mcgill.cs.jetuml.layout.LayoutTask;
 import ca.mcgill.cs.jetuml.views.Grid;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.ButtonType;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
 
@@ -62,6 +72,7 @@ public class DiagramCanvasController
 	
 	private static final int CONNECT_THRESHOLD = 8;
 	private static final int GRID_SIZE = 10;
+	private static final Metrics.Timer HIT_TEST_TIMER = Metrics.timer(Metrics.CANVAS_HIT_TEST);
 	
 	private final SelectionModel aSelectionModel;
 	private final MoveTracker aMoveTracker = new MoveTracker();
@@ -71,7 +82,7 @@ public class DiagramCanvasController
 	private DragMode aDragMode;
 	private Point aLastMousePoint;
 	private Point aMouseDownPoint;  
-	private DiagramOperationProcessor aProcessor = new DiagramOperationProcessor();
+	private final DiagramOperationProcessor aProcessor;
 	private MouseDraggedGestureHandler aHandler;
 	
 	/**
@@ -86,6 +97,7 @@ public class DiagramCanvasController
 		aDiagramBuilder = DiagramType.newBuilderInstanceFor(aCanvas.getDiagram());
 		aDiagramBuilder.setCanvasDimension(new Dimension((int) aCanvas.getWidth(), (int)aCanvas.getHeight()));
 		aSelectionModel = new SelectionModel(aCanvas);
+		aProcessor = new DiagramOperationProcessor(aCanvas.getDiagram());
 		aToolBar = pToolBar;
 		aCanvas.setOnMousePressed(this::mousePressed);
 		aCanvas.setOnMouseReleased(this::mouseReleased);
@@ -127,6 +139,28 @@ public class DiagramCanvasController
 		aProcessor.diagramSaved();
 	}
 	
+	/**
+	 * Registers pObserver to be notified of the operations applied to the diagram.
+	 * 
+	 * @param pObserver The observer to add.
+	 * @pre pObserver != null
+	 */
+	public void addOperationObserver(DiagramOperationObserver pObserver)
+	{
+		aProcessor.addObserver(pObserver);
+	}
+	
+	/**
+	 * Stops notifying pObserver of the operations applied to the diagram.
+	 * 
+	 * @param pObserver The observer to remove.
+	 * @pre pObserver != null
+	 */
+	public void removeOperationObserver(DiagramOperationObserver pObserver)
+	{
+		aProcessor.removeObserver(pObserver);
+	}
+	
 	/**
 	 * @return True if the diagram controlled by this controller 
 	 *     has unsaved changes.
@@ -273,6 +307,7 @@ public class DiagramCanvasController
 
 	private Optional<? extends DiagramElement> getSelectedElement(MouseEvent pEvent)
 	{
+		long start = HIT_TEST_TIMER.start();
 		Point mousePoint = getMousePoint(pEvent);
 		Optional<? extends DiagramElement> element = 
 				viewerFor(aDiagramBuilder.getDiagram()).findEdge(aDiagramBuilder.getDiagram(), mousePoint);
@@ -281,6 +316,7 @@ public class DiagramCanvasController
 			element = viewerFor(aDiagramBuilder.getDiagram())
 					.findNode(aDiagramBuilder.getDiagram(), new Point(mousePoint.getX(), mousePoint.getY())); 
 		}
+		HIT_TEST_TIMER.stop(start);
 		return element;
 	}
 
@@ -407,6 +443,71 @@ public class DiagramCanvasController
 		aToolBar.setToolToBeSelect();
 		aSelectionModel.selectAll(aCanvas.getDiagram());
 	}
+	
+	/**
+	 * Lays out the diagram automatically, if its type supports it.
+	 * The layout is computed in the background and applied when it is 
+	 * ready. It can be undone in a single step.
+	 */
+	public void layoutDiagram()
+	{
+		if( !AutoLayout.supports(aDiagramBuilder.getDiagram().getType()) )
+		{
+			return;
+		}
+		executeLayout(AutoLayout.prepare(aDiagramBuilder));
+	}
+	
+	/**
+	 * Lays out the generalization hierarchies or state machine of 
+	 * the diagram in layers, if its type supports it. As above, the layout 
+	 * is computed in the background, and it can be undone in a single step.
+	 */
+	public void layoutDiagramInLayers()
+	{
+		if( !HierarchicalLayout.supports(aDiagramBuilder.getDiagram().getType()) )
+		{
+			return;
+		}
+		executeLayout(HierarchicalLayout.prepare(aDiagramBuilder));
+	}
+	
+	/*
+	 * Computes the layout in the background, then applies it if it moves any node.
+	 */
+	private void executeLayout(LayoutTask pTask)
+	{
+		BackgroundTasks.run(() -> 
+		{
+			pTask.compute(ForkJoinPool.commonPool());
+			return pTask;
+		}, 
+		pComputed -> executeLayout(pComputed.createOperation()), 
+		pException -> showLayoutError());
+	}
+	
+	/*
+	 * The diagram may have been closed while its layout was computed,
+	 * in which case the alert has no owner.
+	 */
+	private void showLayoutError()
+	{
+		Alert alert = new Alert(AlertType.ERROR, RESOURCES.getString("error.layout"), ButtonType.OK);
+		if( aCanvas.getScene() != null )
+		{
+			alert.initOwner(aCanvas.getScene().getWindow());
+		}
+		alert.showAndWait();
+	}
+	
+	private void executeLayout(CompoundOperation pOperation)
+	{
+		if( !pOperation.isEmpty() )
+		{
+			aProcessor.executeNewOperation(pOperation);
+			aCanvas.paintPanel();
+		}
+	}
 
 	private void mousePressed(MouseEvent pEvent)
 	{
@@ -26,14 +26,33 @@ import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
+import ca.mcgill.cs.jetuml.application.AutosaveService;
+import ca.mcgill.cs.jetuml.application.IncrementalSaveService;
 import ca.mcgill.cs.jetuml.application.UserPreferences;
+import ca.mcgill.cs.jetuml.application.WorkspaceSession.View;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.persistence.DiagramIndex;
+import ca.mcgill.cs.jetuml.persistence.DiagramIndexFile;
+import ca.mcgill.cs.jetuml.persistence.PersistenceService;
+import ca.mcgill.cs.jetuml.search.SearchIndex;
+import ca.mcgill.cs.jetuml.search.SearchMode;
+import ca.mcgill.cs.jetuml.viewers.edges.EdgeViewerRegistry;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+import ca.mcgill.cs.jetuml.views.DiagramBoundsTracker;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Group;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Tab;
@@ -49,12 +68,25 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	private static final double SCALE_MULTIPLIER = 1.25;
 	private static final double ZOOM_MIN = DEFAULT_SCALE / (SCALE_MULTIPLIER * SCALE_MULTIPLIER);
 	private static final double ZOOM_MAX = DEFAULT_SCALE * SCALE_MULTIPLIER * SCALE_MULTIPLIER;
+	/* Diagrams with at least this number of root nodes and edges are saved with an 
+	 * index, so that their outline can be shown immediately when they are opened. */
+	private static final int INDEX_THRESHOLD = 1000;
+	private static final int MINIMAP_MARGIN = 16;
 	
 	private final DoubleProperty aZoom;
 	private final Diagram aDiagram;
 	private DiagramCanvas aDiagramCanvas;
 	private final DiagramCanvasController aDiagramCanvasController;
 	private Optional<File> aFile = Optional.empty(); // The file associated with this diagram
+	private final AutosaveService aAutosaveService;
+	private final IncrementalSaveService aIncrementalSaveService;
+	private final MetricsOverlay aMetricsOverlay;
+	private final Minimap aMinimap;
+	private final SearchIndex aSearchIndex;
+	private final boolean aOpenedWithIndex;
+	/* The stamp of the file of the diagram when its current index was saved. */
+	private Optional<String> aIndexStamp = Optional.empty();
+	private boolean aRestored = false;
 	
 	/**
      * Constructs a diagram tab initialized with pDiagram.
@@ -62,14 +94,37 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	 */
 	public DiagramTab(Diagram pDiagram)
 	{
+		this(pDiagram, Optional.empty());
+	}
+	
+	/**
+	 * Constructs a diagram tab initialized with pDiagram, read from a file 
+	 * whose index, if present, gives the bounds of its elements.
+	 * 
+	 * @param pDiagram The initial diagram
+	 * @param pIndex The index of the file pDiagram was read from, if any.
+	 * @pre pIndex != null
+	 */
+	public DiagramTab(Diagram pDiagram, Optional<DiagramIndex> pIndex)
+	{
+		assert pIndex != null;
 		aDiagram = pDiagram;
+		aOpenedWithIndex = pIndex.isPresent();
 		DiagramTabToolBar sideBar = new DiagramTabToolBar(pDiagram);
 		UserPreferences.instance().addBooleanPreferenceChangeHandler(sideBar);
-		aDiagramCanvas = new DiagramCanvas(pDiagram);
+		aDiagramCanvas = new DiagramCanvas(pDiagram, pIndex);
 		UserPreferences.instance().addBooleanPreferenceChangeHandler(aDiagramCanvas);
 		aDiagramCanvasController = new DiagramCanvasController(aDiagramCanvas, sideBar, this);
 		aDiagramCanvas.setController(aDiagramCanvasController);
 		aDiagramCanvas.paintPanel();
+		aDiagramCanvasController.addOperationObserver(aDiagramCanvas);
+		aAutosaveService = new AutosaveService(pDiagram);
+		UserPreferences.instance().addBooleanPreferenceChangeHandler(aAutosaveService);
+		aDiagramCanvasController.addOperationObserver(aAutosaveService);
+		aIncrementalSaveService = new IncrementalSaveService(pDiagram);
+		aDiagramCanvasController.addOperationObserver(aIncrementalSaveService);
+		aSearchIndex = new SearchIndex(pDiagram);
+		aDiagramCanvasController.addOperationObserver(aSearchIndex);
 		
 		BorderPane layout = new BorderPane();
 		layout.setRight(sideBar);
@@ -79,7 +134,8 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 		// canvas and not the parent container.
 		StackPane pane = new StackPane(aDiagramCanvas);
 		final int buffer = 12; // (border insets + border width + 1)*2
-		pane.setMaxSize(aDiagramCanvas.getWidth() + buffer, aDiagramCanvas.getHeight() + buffer);
+		pane.maxWidthProperty().bind(aDiagramCanvas.widthProperty().add(buffer));
+		pane.maxHeightProperty().bind(aDiagramCanvas.heightProperty().add(buffer));
 		final String cssDefault = "-fx-border-color: grey; -fx-border-insets: 4;"
 				+ "-fx-border-width: 1; -fx-border-style: solid;";
 		pane.setStyle(cssDefault);
@@ -100,7 +156,20 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 
 		scroll.setFitToWidth(true);
 		scroll.setFitToHeight(true);
-		layout.setCenter(scroll);
+		
+		aMetricsOverlay = new MetricsOverlay();
+		UserPreferences.instance().addBooleanPreferenceChangeHandler(aMetricsOverlay);
+		StackPane.setAlignment(aMetricsOverlay, Pos.TOP_LEFT);
+		aMinimap = new Minimap(aDiagramCanvas, this::getViewportProjection, this::centerOn);
+		UserPreferences.instance().addBooleanPreferenceChangeHandler(aMinimap);
+		aDiagramCanvasController.addOperationObserver(aMinimap);
+		StackPane.setAlignment(aMinimap, Pos.BOTTOM_RIGHT);
+		StackPane.setMargin(aMinimap, new Insets(MINIMAP_MARGIN));
+		scroll.hvalueProperty().addListener(pObservable -> aMinimap.paint());
+		scroll.vvalueProperty().addListener(pObservable -> aMinimap.paint());
+		scroll.viewportBoundsProperty().addListener(pObservable -> aMinimap.paint());
+		aZoom.addListener(pObservable -> aMinimap.paint());
+		layout.setCenter(new StackPane(scroll, aMetricsOverlay, aMinimap));
 		
 		setTitle();
 		setContent(layout);
@@ -113,6 +182,12 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 		});
 	}
 	
+	/* retrieves the scroll pane from the component graph, under the metrics overlay */
+	private ScrollPane scrollPane()
+	{
+		return (ScrollPane)((StackPane)((BorderPane)getContent()).getCenter()).getChildren().get(0);
+	}
+	
 	/* retrieves the toolbar from the component graph */
 	private DiagramTabToolBar toolBar()
 	{
@@ -125,7 +200,131 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	public void close()
 	{
 		UserPreferences.instance().removeBooleanPreferenceChangeHandler(aDiagramCanvas);
+		aDiagramCanvasController.removeOperationObserver(aDiagramCanvas);
 		UserPreferences.instance().removeBooleanPreferenceChangeHandler((DiagramTabToolBar)((BorderPane)getContent()).getRight());
+		UserPreferences.instance().removeBooleanPreferenceChangeHandler(aAutosaveService);
+		aDiagramCanvasController.removeOperationObserver(aAutosaveService);
+		aAutosaveService.discard();
+		aDiagramCanvasController.removeOperationObserver(aIncrementalSaveService);
+		aDiagramCanvasController.removeOperationObserver(aSearchIndex);
+		UserPreferences.instance().removeBooleanPreferenceChangeHandler(aMetricsOverlay);
+		aMetricsOverlay.dispose();
+		UserPreferences.instance().removeBooleanPreferenceChangeHandler(aMinimap);
+		aDiagramCanvasController.removeOperationObserver(aMinimap);
+		aMinimap.dispose();
+		if( !hasUnsavedChanges() )
+		{
+			try
+			{
+				aIncrementalSaveService.compact();
+			}
+			catch(IOException exception)
+			{
+				// The log of the file remains valid, so the diagram can still be read.
+			}
+		}
+	}
+	
+	/**
+	 * Indicates that the diagram in this tab was just read from its file.
+	 * 
+	 * @param pMigrated True if the diagram was migrated from an older format.
+	 * @pre getFile().isPresent()
+	 */
+	public void diagramOpened(boolean pMigrated)
+	{
+		assert aFile.isPresent();
+		aIncrementalSaveService.diagramOpened(aFile.get(), pMigrated);
+		if( aOpenedWithIndex )
+		{
+			// The index is only read if it matches the file
+			aIndexStamp = Optional.of(PersistenceService.stamp(aFile.get()));
+		}
+	}
+	
+	/**
+	 * Saves the diagram in this tab to pFile, and associates
+	 * the tab with pFile. Large diagrams are also indexed.
+	 * 
+	 * @param pFile The file in which to save the diagram.
+	 * @throws IOException If the diagram cannot be saved.
+	 * @pre pFile != null
+	 */
+	public void save(File pFile) throws IOException
+	{
+		assert pFile != null;
+		aIncrementalSaveService.save(pFile);
+		if( aDiagram.rootNodes().size() + aDiagram.edges().size() >= INDEX_THRESHOLD )
+		{
+			writeIndex(pFile);
+		}
+		setFile(pFile);
+		diagramSaved();
+	}
+	
+	/**
+	 * Saves an index of the diagram with its file, including the bounds of the nodes
+	 * and the routes of the edges, so that its outline can be shown as soon as it is 
+	 * reopened. Does nothing if the diagram has no file or has unsaved changes, since 
+	 * the index would then not match the file, or if the file was not modified since 
+	 * it was last indexed. The index is written in the background.
+	 */
+	public void index()
+	{
+		if( aFile.isPresent() && !hasUnsavedChanges() && 
+				!aIndexStamp.equals(Optional.of(PersistenceService.stamp(aFile.get()))) )
+		{
+			writeIndex(aFile.get());
+		}
+	}
+	
+	/*
+	 * The index is taken from the bounds tracked by the canvas, so only the elements
+	 * that changed since they were last measured are measured again. The index does 
+	 * not refer to the diagram, so it can be encoded and written in the background.
+	 */
+	private void writeIndex(File pFile)
+	{
+		DiagramBoundsTracker tracker = aDiagramCanvas.getBoundsTracker();
+		aIndexStamp = Optional.of(PersistenceService.stamp(pFile));
+		DiagramIndexFile.writeLater(pFile, DiagramIndex.create(aDiagram, tracker::getBounds, tracker::getConnectionPoints));
+	}
+	
+	/**
+	 * @return The zoom level and scroll position of this tab.
+	 * @pre getFile().isPresent()
+	 */
+	public View getView()
+	{
+		assert aFile.isPresent();
+		ScrollPane scrollPane = scrollPane();
+		return new View(aFile.get(), aZoom.get(), scrollPane.getHvalue(), scrollPane.getVvalue());
+	}
+	
+	/**
+	 * Restores the zoom level and scroll position of this tab.
+	 * 
+	 * @param pView The view to restore.
+	 * @pre pView != null
+	 */
+	public void restoreView(View pView)
+	{
+		assert pView != null;
+		aZoom.set(max(ZOOM_MIN, min(pView.getZoom(), ZOOM_MAX)));
+		ScrollPane scrollPane = scrollPane();
+		scrollPane.setHvalue(pView.getHorizontalScroll());
+		scrollPane.setVvalue(pView.getVerticalScroll());
+	}
+	
+	/**
+	 * Indicates that the diagram in this tab was restored from a recovery 
+	 * copy. The diagram is considered to have unsaved changes until it is saved,
+	 * and a new recovery copy is written immediately.
+	 */
+	public void diagramRestored()
+	{
+		aRestored = true;
+		aAutosaveService.snapshot();
 	}
 
 	/**
@@ -200,6 +399,121 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 		aDiagramCanvasController.selectAll();
 	}
 	
+	/**
+	 * Lays out the diagram automatically.
+	 */
+	public void layoutDiagram()
+	{
+		aDiagramCanvasController.layoutDiagram();
+	}
+	
+	/**
+	 * Lays out the diagram in layers.
+	 */
+	public void layoutDiagramInLayers()
+	{
+		aDiagramCanvasController.layoutDiagramInLayers();
+	}
+	
+	/**
+	 * Finds the elements of the diagram whose text matches a query.
+	 * 
+	 * @param pQuery The text to search, ignoring case.
+	 * @param pMode How the text of an element must contain pQuery.
+	 * @param pMaxMatches The maximum number of matches to return.
+	 * @return The matches, in the order of the diagram.
+	 * @pre pQuery != null && pMode != null && pMaxMatches >= 0
+	 */
+	public List<SearchIndex.Match> search(String pQuery, SearchMode pMode, int pMaxMatches)
+	{
+		return aSearchIndex.search(pQuery, pMode, pMaxMatches);
+	}
+	
+	/**
+	 * @return True if the diagram can be searched without rebuilding its index.
+	 */
+	public boolean isSearchReady()
+	{
+		return aSearchIndex.isValid();
+	}
+	
+	/**
+	 * Rebuilds the index of the diagram in the background if it is out 
+	 * of date, then runs pOnReady. If the diagram is changed while the index 
+	 * is rebuilt, the index stays out of date and is rebuilt by the next search.
+	 * 
+	 * @param pOnReady Run on the JavaFX application thread once the index is rebuilt.
+	 * @pre pOnReady != null
+	 */
+	public void prepareSearch(Runnable pOnReady)
+	{
+		assert pOnReady != null;
+		if( aSearchIndex.isValid() )
+		{
+			pOnReady.run();
+			return;
+		}
+		SearchIndex.Rebuild rebuild = aSearchIndex.startRebuild();
+		BackgroundTasks.run(() -> 
+		{
+			rebuild.build();
+			return rebuild;
+		}, 
+		pRebuild -> 
+		{
+			aSearchIndex.finishRebuild(pRebuild);
+			pOnReady.run();
+		}, 
+		pException -> pOnReady.run());
+	}
+	
+	/**
+	 * Selects an element of the diagram and scrolls the diagram
+	 * so that the element is visible.
+	 * 
+	 * @param pElement The element to reveal.
+	 * @pre pElement != null && getDiagram().contains(pElement)
+	 */
+	public void reveal(DiagramElement pElement)
+	{
+		assert pElement != null && aDiagram.contains(pElement);
+		aDiagramCanvasController.getSelectionModel().set(pElement);
+		Rectangle bounds;
+		if( pElement instanceof Node )
+		{
+			bounds = NodeViewerRegistry.getBounds((Node) pElement);
+		}
+		else
+		{
+			bounds = EdgeViewerRegistry.getBounds((Edge) pElement);
+		}
+		// The top left corner is revealed last so that it is visible 
+		// when the element is larger than the viewport.
+		interactionTo(clampToCanvas(bounds.getMaxX(), bounds.getMaxY()));
+		interactionTo(clampToCanvas(bounds.getX(), bounds.getY()));
+	}
+	
+	/*
+	 * The bounds of an element can extend past the canvas, for example
+	 * the label of an edge, and points outside the canvas cannot be revealed.
+	 */
+	private Point clampToCanvas(int pX, int pY)
+	{
+		return new Point(max(0, min((int) aDiagramCanvas.getWidth(), pX)), 
+				max(0, min((int) aDiagramCanvas.getHeight(), pY)));
+	}
+	
+	/*
+	 * Scrolls the diagram so that the viewport is centered on pPoint of the canvas, 
+	 * or as close as possible.
+	 */
+	private void centerOn(Point pPoint)
+	{
+		ViewportProjection projection = getViewportProjection();
+		scrollPane().setHvalue(projection.getHValueToCenterX(pPoint.getX()));
+		scrollPane().setVvalue(projection.getVValueToCenterY(pPoint.getY()));
+	}
+	
 	/**
 	 * Zooms in the diagram.
 	 */
@@ -248,6 +562,8 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	public void diagramSaved()
 	{
 		aDiagramCanvasController.diagramSaved();
+		aRestored = false;
+		aAutosaveService.discard();
 	}
 	
 	/**
@@ -256,7 +572,7 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	 */
 	public boolean hasUnsavedChanges()
 	{
-		return aDiagramCanvasController.hasUnsavedChanges();
+		return aRestored || aDiagramCanvasController.hasUnsavedChanges();
 	}
 
 	/**
@@ -276,6 +592,7 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	{
 		assert pFile != null;
 		aFile = Optional.of(pFile);
+		aAutosaveService.setFile(pFile);
 		setTitle();
 	}
 
@@ -283,19 +600,20 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	public void interactionTo(Point pTo)
 	{
 		ViewportProjection projection = getViewportProjection();
-		((ScrollPane)((BorderPane)getContent()).getCenter()).setHvalue(projection.getAdjustedHValueToRevealX(pTo.getX()));
-		((ScrollPane)((BorderPane)getContent()).getCenter()).setVvalue(projection.getAdjustedVValueToRevealY(pTo.getY()));
+		scrollPane().setHvalue(projection.getAdjustedHValueToRevealX(pTo.getX()));
+		scrollPane().setVvalue(projection.getAdjustedVValueToRevealY(pTo.getY()));
 	}
 	
 	private ViewportProjection getViewportProjection()
 	{
-		ScrollPane scrollPane = (ScrollPane)((BorderPane)getContent()).getCenter();
+		ScrollPane scrollPane = scrollPane();
 		Bounds bounds = scrollPane.getViewportBounds();
 		// Because, when the scrollbars are not displayed, the Scrollpane will increase
 		// the viewport size beyond the canvas size, it's necessary to max out the dimensions
-		// at the size of the canvas.
-		int viewportWidth = Math.min((int) bounds.getWidth(), (int) aDiagramCanvas.getWidth());
-		int viewportHeight = Math.min((int) bounds.getHeight(), (int) aDiagramCanvas.getHeight());
+		// at the size of the canvas. The viewport is measured in pixels of the canvas, 
+		// which are scaled by the zoom.
+		int viewportWidth = Math.min((int) (bounds.getWidth() / aZoom.get()), (int) aDiagramCanvas.getWidth());
+		int viewportHeight = Math.min((int) (bounds.getHeight() / aZoom.get()), (int) aDiagramCanvas.getHeight());
 		return new ViewportProjection(viewportWidth, viewportHeight, 
 				(int) aDiagramCanvas.getWidth(), (int) aDiagramCanvas.getHeight(), 
 				scrollPane.getHvalue(), scrollPane.getVvalue());
@@ -29,19 +29,11 @@ import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
 import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreferenceChangeHandler;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.DiagramElement;
-import ca.mcgill.cs.jetuml.diagram.Edge;
-import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.Prototypes;
-import ca.mcgill.cs.jetuml.geom.Rectangle;
-import ca.mcgill.cs.jetuml.viewers.edges.EdgeViewerRegistry;
-import ca.mcgill.cs.jetuml.viewers.nodes.AbstractNodeViewer;
-import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
-import ca.mcgill.cs.jetuml.views.ToolGraphics;
+import ca.mcgill.cs.jetuml.views.IconCache;
 import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 import javafx.scene.Parent;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonBase;
 import javafx.scene.control.ContextMenu;
@@ -50,6 +42,7 @@ import javafx.scene.control.ToggleButton;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.control.ToolBar;
 import javafx.scene.control.Tooltip;
+import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
 /**
@@ -85,22 +78,12 @@ public class DiagramTabToolBar extends ToolBar implements BooleanPreferenceChang
 	// of eliminating the current selection.
 	private void installSelectionTool(ToggleGroup pToggleGroup)
 	{
-		SelectableToolButton selectionButton = new SelectableToolButton(createSelectionIcon(), 
+		SelectableToolButton selectionButton = new SelectableToolButton(IconCache.instance().selectionIcon(), 
 				RESOURCES.getString("toolbar.select.tooltip"), pToggleGroup);
-		add(selectionButton, createSelectionIcon(), RESOURCES.getString("toolbar.select.tooltip"));
+		add(selectionButton, IconCache.instance().selectionIcon(), RESOURCES.getString("toolbar.select.tooltip"));
 		UserPreferences.instance().addBooleanPreferenceChangeHandler(selectionButton);
 	}
 	
-	private static Canvas createSelectionIcon()
-	{
-		int offset = AbstractNodeViewer.OFFSET + 3;
-		Canvas canvas = new Canvas(AbstractNodeViewer.BUTTON_SIZE, AbstractNodeViewer.BUTTON_SIZE);
-		GraphicsContext graphics = canvas.getGraphicsContext2D();
-		ToolGraphics.drawHandles(graphics, new Rectangle(offset, offset, 
-				AbstractNodeViewer.BUTTON_SIZE - (offset*2), AbstractNodeViewer.BUTTON_SIZE-(offset*2) ));
-		return canvas;
-	}
-	
 	private void installDiagramElementTools(Diagram pDiagram, ToggleGroup pToggleGroup)
 	{
 		for( DiagramElement element : pDiagram.getPrototypes() )
@@ -110,19 +93,7 @@ public class DiagramTabToolBar extends ToolBar implements BooleanPreferenceChang
 							UserPreferences.instance().getBoolean(BooleanPreference.verboseToolTips)), 
 					pToggleGroup, element);
 			UserPreferences.instance().addBooleanPreferenceChangeHandler(button);
-			add(button, createIcon(element), Prototypes.instance().tooltip(element, false));
-		}
-	}
-	
-	private static Canvas createIcon( DiagramElement pElement )
-	{
-		if( pElement instanceof Node )
-		{
-			return NodeViewerRegistry.createIcon((Node)pElement);
-		}
-		else
-		{
-			return EdgeViewerRegistry.createIcon((Edge)pElement);
+			add(button, IconCache.instance().icon(element), Prototypes.instance().tooltip(element, false));
 		}
 	}
 	
@@ -166,12 +137,12 @@ public class DiagramTabToolBar extends ToolBar implements BooleanPreferenceChang
 	 * @param pButton The button to add.
 	 * @param pText The text for the menu
 	 */
-	private void add(ButtonBase pButton, Canvas pIcon, String pText)
+	private void add(ButtonBase pButton, Image pIcon, String pText)
 	{
 		assert pButton != null;
 		getItems().add( pButton );
 		MenuItem item = new MenuItem(pText);
-		item.setGraphic(pIcon);
+		item.setGraphic(new ImageView(pIcon));
 		item.setOnAction(pButton.getOnAction());
 		aPopupMenu.getItems().add(item);
 	}
@@ -281,4 +252,4 @@ public class DiagramTabToolBar extends ToolBar implements BooleanPreferenceChang
 			showButtonLabels(UserPreferences.instance().getBoolean(BooleanPreference.showToolHints));
 		}
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -29,38 +29,56 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.prefs.Preferences;
 import java.util.stream.Stream;
 
 import javax.imageio.ImageIO;
 
 import ca.mcgill.cs.jetuml.JetUML;
+import ca.mcgill.cs.jetuml.application.AutosaveService;
+import ca.mcgill.cs.jetuml.application.AutosaveService.RecoveredDiagram;
 import ca.mcgill.cs.jetuml.application.FileExtensions;
+import ca.mcgill.cs.jetuml.application.Metrics;
 import ca.mcgill.cs.jetuml.application.RecentFilesQueue;
 import ca.mcgill.cs.jetuml.application.UserPreferences;
 import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
+import ca.mcgill.cs.jetuml.application.WorkspaceSession;
+import ca.mcgill.cs.jetuml.application.WorkspaceSession.View;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.builder.SequenceDiagramBuilder;
 import ca.mcgill.cs.jetuml.gui.tips.TipDialog;
-import ca.mcgill.cs.jetuml.persistence.DeserializationException;
-import ca.mcgill.cs.jetuml.persistence.PersistenceService;
+import ca.mcgill.cs.jetuml.importer.BytecodeImporter;
+import ca.mcgill.cs.jetuml.importer.TraceImporter;
+import ca.mcgill.cs.jetuml.layout.AutoLayout;
+import ca.mcgill.cs.jetuml.layout.HierarchicalLayout;
+import ca.mcgill.cs.jetuml.persistence.DiagramIndex;
+import ca.mcgill.cs.jetuml.persistence.DiagramIndexFile;
+import ca.mcgill.cs.jetuml.persistence.DiagramReader;
 import ca.mcgill.cs.jetuml.persistence.VersionedDiagram;
 import ca.mcgill.cs.jetuml.views.ImageCreator;
+import javafx.application.Platform;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
@@ -68,6 +86,7 @@ import javafx.scene.image.Image;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
@@ -81,13 +100,21 @@ public class EditorFrame extends BorderPane
 	private static final String KEY_LAST_SAVEAS_DIR = "lastSaveAsDir";
 	private static final String KEY_LAST_IMAGE_FORMAT = "lastImageFormat";
 	private static final String USER_MANUAL_URL = "https://www.jetuml.org/docs/user-guide.html";
+	private static final String RECORDING_EXTENSION = ".jfr";
+	private static final int SPACING = 5;
 	
 	private static final String[] IMAGE_FORMATS = validFormats("png", "jpg", "gif", "bmp");
 	
+	private final DiagramReader aReader = new DiagramReader(Platform::runLater);
 	private Stage aMainStage;
 	private RecentFilesQueue aRecentFiles = new RecentFilesQueue();
 	private Menu aRecentFilesMenu;
+	private MenuItem aLayoutItem;
+	private MenuItem aLayeredLayoutItem;
 	private WelcomeTab aWelcomeTab;
+	private Optional<SearchDialog> aSearchDialog = Optional.empty();
+	private Optional<ImportClassesDialog> aImportClassesDialog = Optional.empty();
+	private Optional<ImportTraceDialog> aImportTraceDialog = Optional.empty();
 	
 	/**
 	 * Constructs a blank frame with a desktop pane but no diagram window.
@@ -98,6 +125,7 @@ public class EditorFrame extends BorderPane
 	public EditorFrame(Stage pMainStage, Optional<File> pOpenWith) 
 	{
 		aMainStage = pMainStage;
+		Metrics.setEnabled(UserPreferences.instance().getBoolean(BooleanPreference.showMetrics));
 		aRecentFiles.deserialize(Preferences.userNodeForPackage(JetUML.class).get("recent", "").trim());
 
 		MenuBar menuBar = new MenuBar();
@@ -117,18 +145,22 @@ public class EditorFrame extends BorderPane
 		aWelcomeTab = new WelcomeTab(newDiagramHandlers);
 		showWelcomeTabIfNecessary();
 		
+		if( UserPreferences.instance().getBoolean(BooleanPreference.restoreSession) )
+		{
+			restoreSession();
+		}
 		pOpenWith.ifPresent(this::open);
 		
 		setOnKeyPressed(e -> 
 		{
-			if( !isWelcomeTabShowing() && e.isShiftDown() )
+			if( isDiagramTabSelected() && e.isShiftDown() )
 			{
 				getSelectedDiagramTab().shiftKeyPressed();
 			}
 		});
 		setOnKeyTyped(e -> 
 		{
-			if( !isWelcomeTabShowing() && !e.isShortcutDown())
+			if( isDiagramTabSelected() && !e.isShortcutDown())
 			{
 				getSelectedDiagramTab().keyTyped(e.getCharacter());
 			}
@@ -156,17 +188,21 @@ public class EditorFrame extends BorderPane
 	 * menus and their immediate sub-menus), that have "true" in their user data,
 	 * indicating that they should only be enabled if there is a diagram 
 	 * present. Then, sets their visibility to the boolean value that
-	 * indicates whether there is a diagram present.
+	 * indicates whether a diagram tab is selected.
 	 * 
 	 * This method assumes that any sub-menu beyond the second level (sub-menus of
-	 * top menus) will NOT be diagram-specific.
+	 * top menus) will NOT be diagram-specific. The layout menu items are also 
+	 * disabled for the types of diagrams they do not support.
 	 */
 	private void setMenuVisibility()
 	{
 			((MenuBar)getTop()).getMenus().stream() // All top level menus
 				.flatMap(menu -> Stream.concat(Stream.of(menu), menu.getItems().stream())) // All menus and immediate sub-menus
 				.filter( item -> Boolean.TRUE.equals(item.getUserData())) // Retain only diagram-relevant menu items
-				.forEach( item -> item.setDisable(isWelcomeTabShowing()));
+				.forEach( item -> item.setDisable(!isDiagramTabSelected()));
+		aLayoutItem.setDisable(!isDiagramTabSelected() || !AutoLayout.supports(getSelectedDiagramTab().getDiagram().getType()));
+		aLayeredLayoutItem.setDisable(!isDiagramTabSelected() || 
+				!HierarchicalLayout.supports(getSelectedDiagramTab().getDiagram().getType()));
 	}
 	
 	// Returns the new menu
@@ -188,6 +224,8 @@ public class EditorFrame extends BorderPane
 		pMenuBar.getMenus().add(factory.createMenu("file", false, 
 				newMenu,
 				factory.createMenuItem("file.open", false, event -> openFile()),
+				factory.createMenuItem("file.import_classes", false, event -> importClasses()),
+				factory.createMenuItem("file.import_trace", false, event -> importTrace()),
 				aRecentFilesMenu,
 				factory.createMenuItem("file.close", true, event -> close()),
 				factory.createMenuItem("file.save", true, event -> save()),
@@ -202,15 +240,20 @@ public class EditorFrame extends BorderPane
 	private void createEditMenu(MenuBar pMenuBar) 
 	{
 		MenuFactory factory = new MenuFactory(RESOURCES);
+		aLayoutItem = factory.createMenuItem("edit.layout", true, pEvent -> getSelectedDiagramTab().layoutDiagram());
+		aLayeredLayoutItem = factory.createMenuItem("edit.layered_layout", true, pEvent -> getSelectedDiagramTab().layoutDiagramInLayers());
 		pMenuBar.getMenus().add(factory.createMenu("edit", true, 
 				factory.createMenuItem("edit.undo", true, pEvent -> getSelectedDiagramTab().undo()),
 				factory.createMenuItem("edit.redo", true, pEvent -> getSelectedDiagramTab().redo()),
 				factory.createMenuItem("edit.selectall", true, pEvent -> getSelectedDiagramTab().selectAll()),
+				factory.createMenuItem("edit.find", true, pEvent -> find()),
 				factory.createMenuItem("edit.properties", true, pEvent -> getSelectedDiagramTab().editSelected()),
 				factory.createMenuItem("edit.cut", true, pEvent -> getSelectedDiagramTab().cut()),
 				factory.createMenuItem("edit.paste", true, pEvent -> getSelectedDiagramTab().paste()),
 				factory.createMenuItem("edit.copy", true, pEvent -> getSelectedDiagramTab().copy()),
-				factory.createMenuItem("edit.delete", true, pEvent -> getSelectedDiagramTab().removeSelected() )));
+				factory.createMenuItem("edit.delete", true, pEvent -> getSelectedDiagramTab().removeSelected() ),
+				aLayoutItem,
+				aLayeredLayoutItem));
 	}
 	
 	private void createViewMenu(MenuBar pMenuBar) 
@@ -237,6 +280,40 @@ public class EditorFrame extends BorderPane
 						UserPreferences.instance().getBoolean(BooleanPreference.autoEditNode),
 						event -> UserPreferences.instance().setBoolean(BooleanPreference.autoEditNode, 
 								((CheckMenuItem) event.getSource()).isSelected())),
+				
+				factory.createCheckMenuItem("view.autosave", false, 
+						UserPreferences.instance().getBoolean(BooleanPreference.autosave),
+						event -> UserPreferences.instance().setBoolean(BooleanPreference.autosave, 
+								((CheckMenuItem) event.getSource()).isSelected())),
+				
+				factory.createCheckMenuItem("view.incremental_save", false, 
+						UserPreferences.instance().getBoolean(BooleanPreference.incrementalSave),
+						event -> UserPreferences.instance().setBoolean(BooleanPreference.incrementalSave, 
+								((CheckMenuItem) event.getSource()).isSelected())),
+				
+				factory.createCheckMenuItem("view.restore_session", false, 
+						UserPreferences.instance().getBoolean(BooleanPreference.restoreSession),
+						event -> UserPreferences.instance().setBoolean(BooleanPreference.restoreSession, 
+								((CheckMenuItem) event.getSource()).isSelected())),
+				
+				factory.createCheckMenuItem("view.show_metrics", false, 
+						UserPreferences.instance().getBoolean(BooleanPreference.showMetrics),
+						event -> 
+						{
+							boolean selected = ((CheckMenuItem) event.getSource()).isSelected();
+							Metrics.setEnabled(selected);
+							UserPreferences.instance().setBoolean(BooleanPreference.showMetrics, selected);
+						}),
+				
+				factory.createCheckMenuItem("view.show_minimap", false, 
+						UserPreferences.instance().getBoolean(BooleanPreference.showMinimap),
+						event -> UserPreferences.instance().setBoolean(BooleanPreference.showMinimap, 
+								((CheckMenuItem) event.getSource()).isSelected())),
+				
+				factory.createCheckMenuItem("view.tiled_export", false, 
+						UserPreferences.instance().getBoolean(BooleanPreference.tiledExport),
+						event -> UserPreferences.instance().setBoolean(BooleanPreference.tiledExport, 
+								((CheckMenuItem) event.getSource()).isSelected())),
 		
 				factory.createMenuItem("view.diagram_size", false, event -> new DiagramSizeDialog(aMainStage).show()),
 				factory.createMenuItem("view.zoom_in", true, event -> getSelectedDiagramTab().zoomIn()),
@@ -275,11 +352,23 @@ public class EditorFrame extends BorderPane
 	
 	/*
 	 * Opens a file with the given name, or switches to the frame if it is already
-	 * open.
+	 * open. The file is read in the background by a pool of workers, so several 
+	 * files are read concurrently. In the meantime, a loading tab shows the progress 
+	 * and, if the file has an index, the outline of the diagram. Only the diagram 
+	 * tab is built on the JavaFX application thread.
 	 * 
 	 * @param pName the file to open. Not null.
 	 */
 	private void open(File pFile) 
+	{
+		open(pFile, pTab -> {});
+	}
+	
+	/*
+	 * Opens pFile as above, and hands the new diagram tab to pOnOpened 
+	 * once the diagram is loaded.
+	 */
+	private void open(File pFile, Consumer<DiagramTab> pOnOpened)
 	{
 		assert pFile != null;
 		Optional<DiagramTab> tab = findTabFor(pFile);
@@ -289,29 +378,219 @@ public class EditorFrame extends BorderPane
 			addRecentFile(pFile.getPath());
 			return;
 		}
+		for( Tab loadingTab : tabs() )
+		{
+			if( loadingTab instanceof LoadingTab && ((LoadingTab) loadingTab).getFile().equals(pFile.getAbsoluteFile()))
+			{
+				tabPane().getSelectionModel().select(loadingTab);
+				return;
+			}
+		}
 		
-		try 
+		LoadingTab loadingTab = new LoadingTab(pFile.getAbsoluteFile());
+		loadingTab.setOnClosed(pEvent -> showWelcomeTabIfNecessary());
+		insertTab(loadingTab);
+		aReader.read(pFile, new DiagramReader.Listener()
 		{
-			VersionedDiagram versionedDiagram = PersistenceService.read(pFile); 
-			DiagramTab frame = new DiagramTab(versionedDiagram.diagram());
-			frame.setFile(pFile.getAbsoluteFile());
-			addRecentFile(pFile.getPath());
-			insertGraphFrameIntoTabbedPane(frame);
-			if( versionedDiagram.wasMigrated())
+			@Override
+			public void indexRead(File pIndexedFile, DiagramIndex pIndex)
+			{
+				loadingTab.showOutline(pIndex);
+			}
+			
+			@Override
+			public void diagramRead(File pReadFile, VersionedDiagram pDiagram, long pReadNanos)
+			{
+				addRecentFile(pReadFile.getPath());
+				diagramLoaded(loadingTab, pDiagram).ifPresent(pOnOpened);
+			}
+
+			@Override
+			public void readFailed(File pFailedFile, Exception pException)
+			{
+				tabs().remove(loadingTab);
+				showWelcomeTabIfNecessary();
+				showOpenError();
+			}
+		});
+	}
+	
+	/*
+	 * Opens pFile as above, and hands its diagram tab to pOnShown
+	 * whether it was already open or not.
+	 */
+	private void show(File pFile, Consumer<DiagramTab> pOnShown)
+	{
+		Optional<DiagramTab> tab = findTabFor(pFile);
+		if( tab.isPresent() )
+		{
+			tabPane().getSelectionModel().select(tab.get());
+			pOnShown.accept(tab.get());
+		}
+		else
+		{
+			open(pFile, pOnShown);
+		}
+	}
+	
+	/*
+	 * Shows the dialog to search the diagram in the selected tab.
+	 */
+	private void find()
+	{
+		if( !aSearchDialog.isPresent() )
+		{
+			aSearchDialog = Optional.of(new SearchDialog(aMainStage, this::show));
+		}
+		aSearchDialog.get().show(getSelectedDiagramTab());
+	}
+	
+	/*
+	 * Opens all the files in pFiles. The files are read concurrently.
+	 */
+	private void open(List<File> pFiles)
+	{
+		pFiles.forEach(this::open);
+	}
+	
+	/*
+	 * Replaces pLoadingTab with a tab for the loaded diagram, unless
+	 * the loading tab was closed in the meantime, and returns the new tab.
+	 */
+	private Optional<DiagramTab> diagramLoaded(LoadingTab pLoadingTab, VersionedDiagram pVersionedDiagram)
+	{
+		int position = tabs().indexOf(pLoadingTab);
+		if( position < 0 )
+		{
+			return Optional.empty();
+		}
+		boolean selected = pLoadingTab.isSelected();
+		DiagramTab frame = new DiagramTab(pVersionedDiagram.diagram(), pLoadingTab.getIndex());
+		frame.setFile(pLoadingTab.getFile());
+		frame.diagramOpened(pVersionedDiagram.wasMigrated());
+		tabs().set(position, frame);
+		if( selected )
+		{
+			tabPane().getSelectionModel().select(frame);
+		}
+		warnIfMigrated(pVersionedDiagram);
+		return Optional.of(frame);
+	}
+	
+	/*
+	 * Reopens the diagrams that were open at the end of the previous session, 
+	 * in the same order and with the same zoom level and scroll position. Each 
+	 * tab shows the outline of its diagram from the index saved at the end of 
+	 * the session while the diagram is read and validated in the background.
+	 */
+	private void restoreSession()
+	{
+		WorkspaceSession session = WorkspaceSession.load(WorkspaceSession.defaultFile());
+		for( View view : session.views() )
+		{
+			open(view.getFile(), pTab -> pTab.restoreView(view));
+		}
+		if( session.selected() >= 0 )
+		{
+			tabPane().getSelectionModel().select(session.selected());
+		}
+	}
+	
+	/*
+	 * Saves the tabs open with a file, and indexes their diagrams so that
+	 * their outlines can be shown immediately in the next session. 
+	 * Diagrams that are still loading are reopened with the default view.
+	 */
+	private void saveSession()
+	{
+		List<View> views = new ArrayList<>();
+		int selected = -1;
+		for( Tab tab : tabs() )
+		{
+			if( tab.isSelected() )
+			{
+				selected = views.size();
+			}
+			if( tab instanceof DiagramTab && ((DiagramTab) tab).getFile().isPresent() )
+			{
+				((DiagramTab) tab).index();
+				views.add(((DiagramTab) tab).getView());
+			}
+			else if( tab instanceof LoadingTab )
+			{
+				views.add(new View(((LoadingTab) tab).getFile(), 1, 0, 0));
+			}
+			else if( selected == views.size() )
 			{
-				String message = String.format(RESOURCES.getString("warning.version.message"), 
-						versionedDiagram.version().toString());
-				Alert alert = new Alert(AlertType.WARNING, message, ButtonType.OK);
-				alert.setTitle(RESOURCES.getString("warning.version.title"));
-				alert.initOwner(aMainStage);
-				alert.showAndWait();
+				selected = -1;
 			}
 		}
-		catch(IOException | DeserializationException exception) 
+		try
+		{
+			new WorkspaceSession(views, selected).save(WorkspaceSession.defaultFile());
+		}
+		catch(IOException exception)
+		{
+			// The next session will start without the open diagrams.
+		}
+	}
+	
+	private void warnIfMigrated(VersionedDiagram pVersionedDiagram)
+	{
+		if( pVersionedDiagram.wasMigrated())
+		{
+			String message = String.format(RESOURCES.getString("warning.version.message"), 
+					pVersionedDiagram.version().toString());
+			Alert alert = new Alert(AlertType.WARNING, message, ButtonType.OK);
+			alert.setTitle(RESOURCES.getString("warning.version.title"));
+			alert.initOwner(aMainStage);
+			alert.showAndWait();
+		}
+	}
+	
+	private void showOpenError()
+	{
+		Alert alert = new Alert(AlertType.ERROR, RESOURCES.getString("error.open_file"), ButtonType.OK);
+		alert.initOwner(aMainStage);
+		alert.showAndWait();
+	}
+	
+	/**
+	 * Offers to restore the diagrams whose unsaved changes were recovered 
+	 * from a previous session that did not terminate normally. The recovery 
+	 * files are deleted once the diagrams are restored or the user declines
+	 * to restore them, and restored diagrams get new recovery files. Restored 
+	 * diagrams are associated with the file they were saved to, if any.
+	 */
+	public void restoreUnsavedDiagrams()
+	{
+		List<RecoveredDiagram> diagrams = AutosaveService.recover(AutosaveService.defaultDirectory());
+		if( !diagrams.isEmpty() )
 		{
-			Alert alert = new Alert(AlertType.ERROR, RESOURCES.getString("error.open_file"), ButtonType.OK);
+			Alert alert = new Alert(AlertType.CONFIRMATION, 
+					MessageFormat.format(RESOURCES.getString("dialog.recover.ok"), new Object[] { Integer.valueOf(diagrams.size()) }),
+					ButtonType.YES, 
+					ButtonType.NO);
 			alert.initOwner(aMainStage);
+			alert.setTitle(RESOURCES.getString("dialog.recover.title"));
+			alert.setHeaderText(RESOURCES.getString("dialog.recover.title"));
 			alert.showAndWait();
+			
+			if( alert.getResult() == ButtonType.YES )
+			{
+				for( RecoveredDiagram diagram : diagrams )
+				{
+					DiagramTab tab = new DiagramTab(diagram.getDiagram());
+					diagram.getFile().ifPresent(tab::setFile);
+					insertGraphFrameIntoTabbedPane(tab);
+					tab.diagramRestored();
+					diagram.delete();
+				}
+			}
+			else if( alert.getResult() == ButtonType.NO )
+			{
+				diagrams.forEach(RecoveredDiagram::delete);
+			}
 		}
 	}
 	
@@ -376,11 +655,177 @@ public class EditorFrame extends BorderPane
 		fileChooser.setInitialDirectory(aRecentFiles.getMostRecentDirectory());
 		fileChooser.getExtensionFilters().addAll(FileExtensions.all());
 
-		File selectedFile = fileChooser.showOpenDialog(aMainStage);
-		if(selectedFile != null) 
+		List<File> selectedFiles = fileChooser.showOpenMultipleDialog(aMainStage);
+		if(selectedFiles != null) 
+		{
+			open(selectedFiles);
+		}
+	}
+
+	/*
+	 * Creates a class diagram of the classes in a JAR file that pass the 
+	 * filters chosen by the user, and opens it in a new tab. The classes are 
+	 * imported in the background, into a diagram that is not shown yet, 
+	 * while a progress tab stands in for the diagram tab. Closing the progress 
+	 * tab discards the diagram.
+	 */
+	private void importClasses()
+	{
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setInitialDirectory(aRecentFiles.getMostRecentDirectory());
+		fileChooser.getExtensionFilters().add(new ExtensionFilter(RESOURCES.getString("files.jar.name"), "*.jar"));
+		File file = fileChooser.showOpenDialog(aMainStage);
+		if( file == null )
+		{
+			return;
+		}
+		if( !aImportClassesDialog.isPresent() )
+		{
+			aImportClassesDialog = Optional.of(new ImportClassesDialog(aMainStage));
+		}
+		Optional<BytecodeImporter> importer = aImportClassesDialog.get().show();
+		if( !importer.isPresent() )
+		{
+			return;
+		}
+		Tab progressTab = insertProgressTab(file.getName(), RESOURCES.getString("dialog.import_classes.progress"));
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		// The classes are read in the background, but placed on this thread, which measures their text.
+		BackgroundTasks.run(() -> importer.get().importClasses(file.toPath(), new ClassDiagramBuilder(diagram)), 
+		pResult -> 
+		{
+			pResult.getOperation().execute();
+			replaceProgressTab(progressTab, new DiagramTab(diagram));
+		}, 
+		pException -> 
+		{
+			removeProgressTab(progressTab);
+			Alert alert = new Alert(AlertType.ERROR, RESOURCES.getString("error.import_classes"), ButtonType.OK);
+			alert.initOwner(aMainStage);
+			alert.showAndWait();
+		});
+	}
+	
+	/*
+	 * Inserts a tab that shows that the diagram named pName is being created 
+	 * in the background.
+	 */
+	private Tab insertProgressTab(String pName, String pMessage)
+	{
+		Tab tab = new Tab(pName, new HBox(SPACING, new ProgressIndicator(), new Label(pMessage)));
+		tab.setOnClosed(pEvent -> showWelcomeTabIfNecessary());
+		insertTab(tab);
+		return tab;
+	}
+	
+	/*
+	 * Replaces pProgressTab with pTab, unless the progress tab was closed 
+	 * in the meantime.
+	 */
+	private void replaceProgressTab(Tab pProgressTab, DiagramTab pTab)
+	{
+		int position = tabs().indexOf(pProgressTab);
+		if( position < 0 )
+		{
+			return;
+		}
+		boolean selected = pProgressTab.isSelected();
+		tabs().set(position, pTab);
+		if( selected )
+		{
+			tabPane().getSelectionModel().select(pTab);
+		}
+	}
+	
+	private void removeProgressTab(Tab pProgressTab)
+	{
+		tabs().remove(pProgressTab);
+		showWelcomeTabIfNecessary();
+	}
+	
+	/**
+	 * Creates a sequence diagram from a trace, or from the samples of the first 
+	 * sampled thread in a flight recording, and opens it in a new tab.
+	 */
+	private void importTrace()
+	{
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setInitialDirectory(aRecentFiles.getMostRecentDirectory());
+		fileChooser.getExtensionFilters().addAll(
+				new ExtensionFilter(RESOURCES.getString("files.trace.name"), "*.trace", "*.txt"),
+				new ExtensionFilter(RESOURCES.getString("files.recording.name"), "*" + RECORDING_EXTENSION));
+		File file = fileChooser.showOpenDialog(aMainStage);
+		if( file == null )
+		{
+			return;
+		}
+		if( !file.getName().endsWith(RECORDING_EXTENSION) )
 		{
-			open(selectedFile);
+			importTrace(file, List.of());
+			return;
 		}
+		Tab progressTab = insertProgressTab(file.getName(), RESOURCES.getString("dialog.import_trace.reading"));
+		BackgroundTasks.run(() -> TraceImporter.sampledThreads(file.toPath()), 
+		pThreads -> 
+		{
+			removeProgressTab(progressTab);
+			importTrace(file, pThreads);
+		}, 
+		pException -> 
+		{
+			removeProgressTab(progressTab);
+			showImportTraceError();
+		});
+	}
+	
+	/*
+	 * Lets the user choose what to import from pFile, then imports it 
+	 * in the background. pThreads are the threads sampled in a recording, 
+	 * and are empty for a text trace.
+	 */
+	private void importTrace(File pFile, List<String> pThreads)
+	{
+		if( !aImportTraceDialog.isPresent() )
+		{
+			aImportTraceDialog = Optional.of(new ImportTraceDialog(aMainStage));
+		}
+		Optional<TraceImporter> importer = aImportTraceDialog.get().show(pThreads);
+		if( !importer.isPresent() )
+		{
+			return;
+		}
+		Optional<String> thread = aImportTraceDialog.get().getThread();
+		Tab progressTab = insertProgressTab(pFile.getName(), RESOURCES.getString("dialog.import_trace.progress"));
+		Diagram diagram = new Diagram(DiagramType.SEQUENCE);
+		// The trace is read in the background, but the lifelines are placed on this thread, which measures their text.
+		BackgroundTasks.run(() -> 
+		{
+			if( pFile.getName().endsWith(RECORDING_EXTENSION) )
+			{
+				return importer.get().importRecording(pFile.toPath(), thread.orElse(null), new SequenceDiagramBuilder(diagram));
+			}
+			try( Reader reader = Files.newBufferedReader(pFile.toPath()) )
+			{
+				return importer.get().importTrace(reader, new SequenceDiagramBuilder(diagram));
+			}
+		}, 
+		pResult -> 
+		{
+			pResult.getOperation().execute();
+			replaceProgressTab(progressTab, new DiagramTab(diagram));
+		}, 
+		pException -> 
+		{
+			removeProgressTab(progressTab);
+			showImportTraceError();
+		});
+	}
+	
+	private void showImportTraceError()
+	{
+		Alert alert = new Alert(AlertType.ERROR, RESOURCES.getString("error.import_trace"), ButtonType.OK);
+		alert.initOwner(aMainStage);
+		alert.showAndWait();
 	}
 
 	/**
@@ -478,8 +923,7 @@ public class EditorFrame extends BorderPane
 		}
 		try 
 		{
-			PersistenceService.save(diagramTab.getDiagram(), file.get());
-			diagramTab.diagramSaved();
+			diagramTab.save(file.get());
 		} 
 		catch(IOException exception) 
 		{
@@ -514,11 +958,8 @@ public class EditorFrame extends BorderPane
 			File result = fileChooser.showSaveDialog(aMainStage);
 			if( result != null )
 			{
-				PersistenceService.save(diagram, result);
+				diagramTab.save(result);
 				addRecentFile(result.getAbsolutePath());
-				diagramTab.setFile(result);
-				diagramTab.setText(diagramTab.getFile().get().getName());
-				diagramTab.diagramSaved();
 				File dir = result.getParentFile();
 				if( dir != null )
 				{
@@ -634,7 +1075,9 @@ public class EditorFrame extends BorderPane
 	}
 
 	/*
-	 * Return the image corresponding to the graph.
+	 * Return the image corresponding to the graph. The image is rasterized 
+	 * in tiles on several threads if the user preference is set, and 
+	 * otherwise is a snapshot of the diagram drawn on a canvas.
 	 * 
 	 * @param pDiagram The graph to convert to an image.
 	 * 
@@ -643,6 +1086,10 @@ public class EditorFrame extends BorderPane
 	 */
 	private static BufferedImage getBufferedImage(Diagram pDiagram) 
 	{
+		if( UserPreferences.instance().getBoolean(BooleanPreference.tiledExport) )
+		{
+			return ImageCreator.createBufferedImage(pDiagram);
+		}
 		return SwingFXUtils.fromFXImage(ImageCreator.createImage(pDiagram), null);
 	}
 	
@@ -674,17 +1121,38 @@ public class EditorFrame extends BorderPane
 
 			if (alert.getResult() == ButtonType.YES) 
 			{
-				Preferences.userNodeForPackage(JetUML.class).put("recent", aRecentFiles.serialize());
-				System.exit(0);
+				shutDown();
 			}
 		}
 		else 
 		{
-			Preferences.userNodeForPackage(JetUML.class).put("recent", aRecentFiles.serialize());
-			System.exit(0);
+			shutDown();
 		}
 	}		
 	
+	/*
+	 * Discards the recovery copies of all diagrams before terminating,
+	 * since the user has agreed to abandon any unsaved changes.
+	 */
+	private void shutDown()
+	{
+		Preferences.userNodeForPackage(JetUML.class).put("recent", aRecentFiles.serialize());
+		tabs().stream()
+			.filter( tab -> tab instanceof DiagramTab )
+			.forEach( tab -> ((DiagramTab) tab).close());
+		if( UserPreferences.instance().getBoolean(BooleanPreference.restoreSession) )
+		{
+			saveSession();
+		}
+		else
+		{
+			WorkspaceSession.clear(WorkspaceSession.defaultFile());
+		}
+		AutosaveService.flush();
+		DiagramIndexFile.flush();
+		System.exit(0);
+	}
+	
 	private List<Tab> tabs()
 	{
 		return ((TabPane) getCenter()).getTabs();
@@ -702,14 +1170,24 @@ public class EditorFrame extends BorderPane
 				tabs().get(0) instanceof WelcomeTab;
 	}
 	
+	private boolean isDiagramTabSelected()
+	{
+		return tabPane().getSelectionModel().getSelectedItem() instanceof DiagramTab;
+	}
+	
 	/* Insert a graph frame into the tabbedpane */ 
 	private void insertGraphFrameIntoTabbedPane(DiagramTab pGraphFrame) 
+	{
+		insertTab(pGraphFrame);
+	}
+	
+	private void insertTab(Tab pTab) 
 	{
 		if( isWelcomeTabShowing() )
 		{
 			tabs().remove(0);
 		}
-		tabs().add(pGraphFrame);
+		tabs().add(pTab);
 		tabPane().getSelectionModel().selectLast();
 	}
 	
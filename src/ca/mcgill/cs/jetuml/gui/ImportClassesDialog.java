@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.gui;
+
+import static ca.mcgill.cs.jetuml.application.ApplicationResources.RESOURCES;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import ca.mcgill.cs.jetuml.importer.BytecodeImporter;
+import ca.mcgill.cs.jetuml.importer.Visibility;
+import javafx.geometry.Insets;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+
+/**
+ * A modal dialog that lets users choose the packages and the least 
+ * visibility of the classes and members to import from compiled classes. 
+ * The choices are kept from one import to the next.
+ */
+public class ImportClassesDialog
+{
+	private static final int SPACING = 10;
+	private static final int COLUMN_COUNT = 30;
+	
+	private final Dialog<ButtonType> aDialog = new Dialog<>();
+	private final TextField aPackagesField = new TextField();
+	private final ChoiceBox<Visibility> aVisibilityChoice = new ChoiceBox<>();
+	
+	/**
+	 * Creates a new dialog.
+	 * 
+	 * @param pOwner The stage that owns this dialog.
+	 */
+	public ImportClassesDialog(Stage pOwner)
+	{
+		aDialog.initOwner(pOwner);
+		aDialog.setTitle(RESOURCES.getString("dialog.import_classes.title"));
+		aDialog.setHeaderText(RESOURCES.getString("dialog.import_classes.message"));
+		aDialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+		
+		aPackagesField.setPrefColumnCount(COLUMN_COUNT);
+		aPackagesField.setPromptText(RESOURCES.getString("dialog.import_classes.all_packages"));
+		aVisibilityChoice.getItems().addAll(Visibility.values());
+		aVisibilityChoice.setValue(Visibility.PUBLIC);
+		
+		GridPane form = new GridPane();
+		form.setHgap(SPACING);
+		form.setVgap(SPACING);
+		form.setPadding(new Insets(SPACING));
+		form.addRow(0, new Label(RESOURCES.getString("dialog.import_classes.packages")), aPackagesField);
+		form.addRow(1, new Label(RESOURCES.getString("dialog.import_classes.visibility")), aVisibilityChoice);
+		aDialog.getDialogPane().setContent(form);
+	}
+	
+	/**
+	 * Shows the dialog and blocks the remainder of the UI
+	 * until it is closed.
+	 * 
+	 * @return An importer with the filters chosen, or nothing if the dialog was cancelled.
+	 */
+	public Optional<BytecodeImporter> show()
+	{
+		if( aDialog.showAndWait().filter(pButton -> pButton == ButtonType.OK).isEmpty() )
+		{
+			return Optional.empty();
+		}
+		List<String> prefixes = Arrays.stream(aPackagesField.getText().split(","))
+				.map(String::trim)
+				.filter(pPrefix -> !pPrefix.isEmpty())
+				.collect(Collectors.toList());
+		return Optional.of(new BytecodeImporter(BytecodeImporter.packagesStartingWith(prefixes), aVisibilityChoice.getValue()));
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.gui;
+
+import static ca.mcgill.cs.jetuml.application.ApplicationResources.RESOURCES;
+
+import java.util.List;
+import java.util.Optional;
+
+import ca.mcgill.cs.jetuml.importer.TraceImporter;
+import javafx.geometry.Insets;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+
+/**
+ * A modal dialog that lets users choose the limits on the calls to import 
+ * from a trace and, for a recording, the thread whose samples to import. 
+ * The limits are kept from one import to the next.
+ */
+public class ImportTraceDialog
+{
+	private static final int SPACING = 10;
+	private static final int CALLS_STEP = 1000;
+	
+	private final Dialog<ButtonType> aDialog = new Dialog<>();
+	private final Spinner<Integer> aDepthSpinner = new Spinner<>(1, Integer.MAX_VALUE, TraceImporter.DEFAULT_MAX_DEPTH);
+	private final Spinner<Integer> aCallsSpinner = new Spinner<>(1, Integer.MAX_VALUE, TraceImporter.DEFAULT_MAX_CALLS, CALLS_STEP);
+	private final ChoiceBox<String> aThreadChoice = new ChoiceBox<>();
+	private final Label aThreadLabel = new Label(RESOURCES.getString("dialog.import_trace.thread"));
+	
+	/**
+	 * Creates a new dialog.
+	 * 
+	 * @param pOwner The stage that owns this dialog.
+	 */
+	public ImportTraceDialog(Stage pOwner)
+	{
+		aDialog.initOwner(pOwner);
+		aDialog.setTitle(RESOURCES.getString("dialog.import_trace.title"));
+		aDialog.setHeaderText(RESOURCES.getString("dialog.import_trace.message"));
+		aDialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+		
+		aDepthSpinner.setEditable(true);
+		aCallsSpinner.setEditable(true);
+		
+		GridPane form = new GridPane();
+		form.setHgap(SPACING);
+		form.setVgap(SPACING);
+		form.setPadding(new Insets(SPACING));
+		form.addRow(0, new Label(RESOURCES.getString("dialog.import_trace.depth")), aDepthSpinner);
+		form.addRow(1, new Label(RESOURCES.getString("dialog.import_trace.calls")), aCallsSpinner);
+		form.addRow(2, aThreadLabel, aThreadChoice);
+		aDialog.getDialogPane().setContent(form);
+	}
+	
+	/**
+	 * Shows the dialog and blocks the remainder of the UI
+	 * until it is closed. The choice of a thread is only shown if 
+	 * there are threads to choose from, and the first one is chosen 
+	 * by default.
+	 * 
+	 * @param pThreads The threads that can be chosen, from the most relevant one.
+	 * @return An importer with the limits chosen, or nothing if the dialog was cancelled.
+	 * @pre pThreads != null
+	 */
+	public Optional<TraceImporter> show(List<String> pThreads)
+	{
+		assert pThreads != null;
+		aThreadChoice.getItems().setAll(pThreads);
+		aThreadChoice.getSelectionModel().selectFirst();
+		aThreadLabel.setVisible(!pThreads.isEmpty());
+		aThreadLabel.setManaged(!pThreads.isEmpty());
+		aThreadChoice.setVisible(!pThreads.isEmpty());
+		aThreadChoice.setManaged(!pThreads.isEmpty());
+		if( aDialog.showAndWait().filter(pButton -> pButton == ButtonType.OK).isEmpty() )
+		{
+			return Optional.empty();
+		}
+		return Optional.of(new TraceImporter(aDepthSpinner.getValue(), aCallsSpinner.getValue(), true));
+	}
+	
+	/**
+	 * @return The thread chosen the last time the dialog was shown, if there 
+	 *     were threads to choose from.
+	 */
+	public Optional<String> getThread()
+	{
+		return Optional.ofNullable(aThreadChoice.getValue());
+	}
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.gui;
+
+import static ca.mcgill.cs.jetuml.application.ApplicationResources.RESOURCES;
+
+import java.io.File;
+import java.util.List;
+import java.util.Optional;
+
+import ca.mcgill.cs.jetuml.geom.Line;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.persistence.DiagramIndex;
+import ca.mcgill.cs.jetuml.persistence.DiagramIndex.IndexedEdge;
+import ca.mcgill.cs.jetuml.persistence.DiagramIndex.IndexedNode;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Tab;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.paint.Color;
+
+/**
+ * A tab that shows the progress of loading a diagram. If the diagram has
+ * an index, the tab also shows the outline of the diagram as recorded in 
+ * the index: each node is drawn as a placeholder rectangle and each edge 
+ * as a straight line between its connection points, or between the centers 
+ * of its nodes if its route was not indexed. The tab is replaced by a diagram 
+ * tab once the diagram is loaded, which takes the bounds of the elements of 
+ * the diagram from the index instead of measuring them.
+ */
+public class LoadingTab extends Tab
+{
+	private static final double LINE_WIDTH = 0.6;
+	private static final int DIMENSION_BUFFER = 20;
+	/* Canvases are backed by a texture, whose size is limited. Larger 
+	 * outlines are scaled down to fit. */
+	private static final double MAX_DIMENSION = 8192;
+	private static final Color PLACEHOLDER_FILL = Color.rgb(235, 235, 235);
+	private static final Color PLACEHOLDER_STROKE = Color.GRAY;
+	private static final int SPACING = 5;
+	
+	private final File aFile;
+	private final BorderPane aLayout = new BorderPane();
+	private Optional<DiagramIndex> aIndex = Optional.empty();
+	
+	/**
+	 * Creates a tab that shows the progress of loading pFile.
+	 * 
+	 * @param pFile The file being loaded.
+	 * @pre pFile != null
+	 */
+	public LoadingTab(File pFile)
+	{
+		assert pFile != null;
+		aFile = pFile;
+		setText(pFile.getName());
+		HBox status = new HBox(SPACING, new ProgressIndicator(), new Label(RESOURCES.getString("dialog.open.loading")));
+		aLayout.setTop(status);
+		setContent(aLayout);
+	}
+	
+	/**
+	 * Shows the outline of the diagram being loaded.
+	 * 
+	 * @param pIndex The index of the diagram being loaded.
+	 * @pre pIndex != null
+	 */
+	public void showOutline(DiagramIndex pIndex)
+	{
+		assert pIndex != null;
+		aIndex = Optional.of(pIndex);
+		Rectangle bounds = pIndex.getBounds();
+		double width = bounds.getMaxX() + DIMENSION_BUFFER;
+		double height = bounds.getMaxY() + DIMENSION_BUFFER;
+		double scale = Math.min(1, MAX_DIMENSION / Math.max(width, height));
+		Canvas canvas = new Canvas(width * scale, height * scale);
+		draw(pIndex, canvas.getGraphicsContext2D(), scale);
+		aLayout.setCenter(new ScrollPane(canvas));
+	}
+	
+	/**
+	 * @return The index of the diagram being loaded, if it was read.
+	 */
+	public Optional<DiagramIndex> getIndex()
+	{
+		return aIndex;
+	}
+	
+	/**
+	 * @return The file being loaded.
+	 */
+	public File getFile()
+	{
+		return aFile;
+	}
+	
+	private static void draw(DiagramIndex pIndex, GraphicsContext pContext, double pScale)
+	{
+		pContext.scale(pScale, pScale);
+		pContext.setLineWidth(LINE_WIDTH);
+		pContext.setStroke(PLACEHOLDER_STROKE);
+		List<IndexedNode> nodes = pIndex.nodes();
+		for( IndexedEdge edge : pIndex.edges() )
+		{
+			Optional<Line> route = edge.getRoute();
+			if( route.isPresent() )
+			{
+				pContext.strokeLine(route.get().getX1(), route.get().getY1(), route.get().getX2(), route.get().getY2());
+			}
+			else
+			{
+				Rectangle start = nodes.get(edge.getStart()).getBounds();
+				Rectangle end = nodes.get(edge.getEnd()).getBounds();
+				pContext.strokeLine(start.getCenterX(), start.getCenterY(), 
+						end.getCenterX(), end.getCenterY());
+			}
+		}
+		pContext.setFill(PLACEHOLDER_FILL);
+		for( IndexedNode node : nodes )
+		{
+			Rectangle bounds = node.getBounds();
+			pContext.fillRect(bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight());
+			pContext.strokeRect(bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight());
+		}
+	}
+}
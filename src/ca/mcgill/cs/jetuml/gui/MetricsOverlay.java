@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.application.UserPreferences;
+import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
+import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreferenceChangeHandler;
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Region;
+
+/**
+ * A label shown over a diagram that reports the frame rate of the canvases, the 
+ * time spent in each phase of painting them, and the cost of the other hot paths 
+ * measured by the metrics registry. The values are averaged over the last update 
+ * period. The overlay is only shown, and only updated, while the user preference 
+ * to show metrics is set.
+ * 
+ * A frame is a pulse of JavaFX in which at least one canvas was painted, so 
+ * several paintings between two pulses count as a single frame. The metrics 
+ * are global, so all the overlays show the same values, and they are 
+ * updated by a single timer that runs while at least one overlay is shown.
+ */
+public class MetricsOverlay extends Label implements BooleanPreferenceChangeHandler
+{
+	private static final long UPDATE_PERIOD = 500_000_000L;
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+	private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+	private static final String STYLE = "-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 4;"
+			+ "-fx-font-family: monospace; -fx-font-size: 11px; -fx-border-color: grey;";
+	
+	private static final Monitor MONITOR = new Monitor();
+	
+	/**
+	 * Creates an overlay, shown if the user preference is set.
+	 */
+	public MetricsOverlay()
+	{
+		setStyle(STYLE);
+		setMouseTransparent(true);
+		setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+		showIfEnabled();
+	}
+	
+	@Override
+	public void preferenceChanged(BooleanPreference pPreference)
+	{
+		if( pPreference == BooleanPreference.showMetrics )
+		{
+			showIfEnabled();
+		}
+	}
+	
+	/**
+	 * Stops updating the overlay. This method should be called when the 
+	 * diagram is closed.
+	 */
+	public void dispose()
+	{
+		MONITOR.remove(this);
+	}
+	
+	private void showIfEnabled()
+	{
+		boolean enabled = UserPreferences.instance().getBoolean(BooleanPreference.showMetrics);
+		setVisible(enabled);
+		if( enabled )
+		{
+			MONITOR.add(this);
+		}
+		else
+		{
+			MONITOR.remove(this);
+		}
+	}
+	
+	/*
+	 * Samples the metrics at each pulse for all the overlays shown, 
+	 * and updates them at the end of each period.
+	 */
+	private static final class Monitor extends AnimationTimer
+	{
+		private final Metrics.Timer aPaint = Metrics.timer(Metrics.CANVAS_PAINT);
+		private final Metrics.Counter aBounds = Metrics.counter(Metrics.NODE_BOUNDS);
+		private final Metrics.Timer aHitTest = Metrics.timer(Metrics.CANVAS_HIT_TEST);
+		private final Metrics.Timer aSave = Metrics.timer(Metrics.PERSISTENCE_SAVE);
+		private final Metrics.Timer aRead = Metrics.timer(Metrics.PERSISTENCE_READ);
+		
+		private final Sample aPaintSample = new Sample(aPaint);
+		private final Sample aGridSample = new Sample(Metrics.timer(Metrics.CANVAS_PAINT_GRID));
+		private final Sample aDiagramSample = new Sample(Metrics.timer(Metrics.CANVAS_PAINT_DIAGRAM));
+		private final Sample aSelectionSample = new Sample(Metrics.timer(Metrics.CANVAS_PAINT_SELECTION));
+		private final Sample aPathsSample = new Sample(Metrics.timer(Metrics.EDGE_PATH));
+		private final List<MetricsOverlay> aOverlays = new ArrayList<>();
+		private long aBoundsCount = 0;
+		private long aLastUpdate = 0;
+		private long aLastPaintCount = 0;
+		private long aFrames = 0;
+		
+		void add(MetricsOverlay pOverlay)
+		{
+			if( aOverlays.contains(pOverlay) )
+			{
+				return;
+			}
+			aOverlays.add(pOverlay);
+			if( aOverlays.size() == 1 )
+			{
+				aLastUpdate = System.nanoTime();
+				sample();
+				start();
+			}
+		}
+		
+		void remove(MetricsOverlay pOverlay)
+		{
+			aOverlays.remove(pOverlay);
+			if( aOverlays.isEmpty() )
+			{
+				stop();
+			}
+		}
+		
+		@Override
+		public void handle(long pNow)
+		{
+			long paintCount = aPaint.count();
+			if( paintCount != aLastPaintCount )
+			{
+				aFrames++;
+				aLastPaintCount = paintCount;
+			}
+			if( pNow - aLastUpdate >= UPDATE_PERIOD )
+			{
+				update(pNow);
+			}
+		}
+		
+		private void update(long pNow)
+		{
+			double seconds = (pNow - aLastUpdate) / NANOS_PER_SECOND;
+			aLastUpdate = pNow;
+			long frames = aFrames;
+			long bounds = aBounds.count() - aBoundsCount;
+			long paints = sample();
+			long paintDivisor = Math.max(paints, 1);
+			String text = String.format("%.0f fps (%d paints) | paint %.2f ms%n"
+					+ "grid %.2f ms | diagram %.2f ms | selection %.2f ms%n"
+					+ "bounds/paint %d | paths/paint %d (%.2f ms)%n"
+					+ "hit test %.2f ms | save %.0f ms | read %.0f ms",
+					frames / seconds, paints, aPaintSample.mean(), aGridSample.mean(), aDiagramSample.mean(), 
+					aSelectionSample.mean(), bounds / paintDivisor, aPathsSample.count() / paintDivisor, 
+					aPathsSample.total() / paintDivisor, aHitTest.lastNanos() / NANOS_PER_MILLI, 
+					aSave.lastNanos() / NANOS_PER_MILLI, aRead.lastNanos() / NANOS_PER_MILLI);
+			for( MetricsOverlay overlay : aOverlays )
+			{
+				overlay.setText(text);
+			}
+		}
+		
+		/*
+		 * Samples all the timers shown, and returns the number of paintings
+		 * since the previous sample.
+		 */
+		private long sample()
+		{
+			aGridSample.next();
+			aDiagramSample.next();
+			aSelectionSample.next();
+			aPathsSample.next();
+			aBoundsCount = aBounds.count();
+			aFrames = 0;
+			aLastPaintCount = aPaint.count();
+			return aPaintSample.next();
+		}
+	}
+	
+	/*
+	 * The activity of a timer since the previous sample.
+	 */
+	private static final class Sample
+	{
+		private final Metrics.Timer aSampledTimer;
+		private long aCount = 0;
+		private long aNanos = 0;
+		private long aDeltaCount = 0;
+		private long aDeltaNanos = 0;
+		
+		Sample(Metrics.Timer pTimer)
+		{
+			aSampledTimer = pTimer;
+		}
+		
+		/*
+		 * Takes a new sample and returns the number of operations since the previous one.
+		 */
+		long next()
+		{
+			long count = aSampledTimer.count();
+			long nanos = aSampledTimer.totalNanos();
+			aDeltaCount = count - aCount;
+			aDeltaNanos = nanos - aNanos;
+			aCount = count;
+			aNanos = nanos;
+			return aDeltaCount;
+		}
+		
+		/*
+		 * The number of operations in the last sample.
+		 */
+		long count()
+		{
+			return aDeltaCount;
+		}
+		
+		/*
+		 * The mean duration of the operations in the last sample, in milliseconds.
+		 */
+		double mean()
+		{
+			return aDeltaCount == 0 ? 0 : aDeltaNanos / NANOS_PER_MILLI / aDeltaCount;
+		}
+		
+		/*
+		 * The total duration of the operations in the last sample, in milliseconds.
+		 */
+		double total()
+		{
+			return aDeltaNanos / NANOS_PER_MILLI;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.gui;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.application.UserPreferences;
+import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
+import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreferenceChangeHandler;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationObserver;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.views.DiagramOutline;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import javafx.util.Duration;
+
+/**
+ * A small view of the whole diagram of a canvas, shown over the diagram, with 
+ * the part of the canvas visible in the viewport outlined. Clicking or dragging 
+ * on the minimap centers the viewport on the corresponding point of the canvas.
+ * 
+ * The minimap does not draw the diagram. It shows a snapshot of the outline of the 
+ * diagram, which is rasterized in the background at the size of the minimap. The 
+ * outline is built from the bounds that the canvas tracks as operations are applied,
+ * so only the elements that changed are measured again, and a new snapshot 
+ * is only taken once the diagram has not changed for a short delay, so that the 
+ * minimap does not slow down editing. Moving the viewport only draws the snapshot 
+ * again. The minimap is only shown, and only updated, while the user preference 
+ * to show it is set.
+ */
+public class Minimap extends Canvas implements DiagramOperationObserver, BooleanPreferenceChangeHandler
+{
+	private static final double SIZE = 200;
+	private static final Duration REFRESH_DELAY = Duration.millis(200);
+	private static final Color VIEWPORT_STROKE = Color.rgb(220, 60, 40);
+	private static final Color BORDER_STROKE = Color.GREY;
+	private static final Metrics.Timer SNAPSHOT_TIMER = Metrics.timer(Metrics.MINIMAP_SNAPSHOT);
+	
+	private static final ExecutorService RASTERIZER = Executors.newSingleThreadExecutor(pTask -> 
+	{
+		Thread thread = new Thread(pTask, "JetUML Minimap");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private final DiagramCanvas aCanvas;
+	private final Supplier<ViewportProjection> aViewport;
+	private final Consumer<Point> aNavigator;
+	private final PauseTransition aRefreshDelay = new PauseTransition(REFRESH_DELAY);
+	private WritableImage aSnapshot;
+	private double aScale = 1;
+	/* Identifies the latest snapshot requested, so that older ones are discarded. */
+	private int aGeneration = 0;
+	private boolean aChanged = true;
+	
+	/**
+	 * Creates a minimap of the diagram of pCanvas, shown if the user preference is set.
+	 * 
+	 * @param pCanvas The canvas whose diagram to show.
+	 * @param pViewport Supplies the projection of the viewport on pCanvas.
+	 * @param pNavigator Centers the viewport on a point of pCanvas.
+	 * @pre pCanvas != null && pViewport != null && pNavigator != null
+	 */
+	public Minimap(DiagramCanvas pCanvas, Supplier<ViewportProjection> pViewport, Consumer<Point> pNavigator)
+	{
+		assert pCanvas != null && pViewport != null && pNavigator != null;
+		aCanvas = pCanvas;
+		aViewport = pViewport;
+		aNavigator = pNavigator;
+		aRefreshDelay.setOnFinished(pEvent -> refresh());
+		pCanvas.widthProperty().addListener((pObservable, pOldValue, pNewValue) -> diagramChanged());
+		pCanvas.heightProperty().addListener((pObservable, pOldValue, pNewValue) -> diagramChanged());
+		setOnMousePressed(this::navigate);
+		setOnMouseDragged(this::navigate);
+		showIfEnabled();
+	}
+	
+	@Override
+	public void operationExecuted(DiagramOperation pOperation)
+	{
+		diagramChanged();
+	}
+
+	@Override
+	public void operationUndone(DiagramOperation pOperation)
+	{
+		diagramChanged();
+	}
+	
+	@Override
+	public void preferenceChanged(BooleanPreference pPreference)
+	{
+		if( pPreference == BooleanPreference.showMinimap )
+		{
+			showIfEnabled();
+		}
+	}
+	
+	/**
+	 * Stops updating the minimap. This method should be called when the 
+	 * diagram is closed.
+	 */
+	public void dispose()
+	{
+		aRefreshDelay.stop();
+		aGeneration++;
+	}
+	
+	/**
+	 * Draws the snapshot of the diagram and the outline of the viewport 
+	 * again. This method should be called when the viewport moves.
+	 */
+	public void paint()
+	{
+		GraphicsContext context = getGraphicsContext2D();
+		context.clearRect(0, 0, getWidth(), getHeight());
+		if( aSnapshot == null )
+		{
+			return;
+		}
+		context.drawImage(aSnapshot, 0, 0);
+		ViewportProjection viewport = aViewport.get();
+		context.setStroke(VIEWPORT_STROKE);
+		context.strokeRect(viewport.getHiddenLeft() * aScale + 0.5, viewport.getHiddenTop() * aScale + 0.5, 
+				Math.max(1, viewport.getWidthRatio() * aCanvas.getWidth() * aScale - 1), 
+				Math.max(1, viewport.getHeightRatio() * aCanvas.getHeight() * aScale - 1));
+		context.setStroke(BORDER_STROKE);
+		context.strokeRect(0.5, 0.5, getWidth() - 1, getHeight() - 1);
+	}
+	
+	private void showIfEnabled()
+	{
+		boolean enabled = UserPreferences.instance().getBoolean(BooleanPreference.showMinimap);
+		setVisible(enabled);
+		if( enabled && aChanged )
+		{
+			refresh();
+		}
+		else if( !enabled )
+		{
+			aRefreshDelay.stop();
+		}
+	}
+	
+	private void diagramChanged()
+	{
+		aChanged = true;
+		if( isVisible() )
+		{
+			aRefreshDelay.playFromStart();
+		}
+	}
+	
+	/*
+	 * Measures the elements that changed on this thread, as measuring uses the
+	 * viewers, then rasterizes the outline in the background.
+	 */
+	private void refresh()
+	{
+		long start = SNAPSHOT_TIMER.start();
+		aChanged = false;
+		double scale = Math.min(SIZE / Math.max(aCanvas.getWidth(), 1), SIZE / Math.max(aCanvas.getHeight(), 1));
+		int width = (int) Math.ceil(aCanvas.getWidth() * scale);
+		int height = (int) Math.ceil(aCanvas.getHeight() * scale);
+		DiagramOutline outline = aCanvas.getBoundsTracker().getOutline();
+		int generation = ++aGeneration;
+		SNAPSHOT_TIMER.stop(start);
+		RASTERIZER.execute(() -> 
+		{
+			int[] pixels = outline.rasterize(width, height, scale);
+			Platform.runLater(() -> snapshotTaken(generation, pixels, width, height, scale));
+		});
+	}
+	
+	private void snapshotTaken(int pGeneration, int[] pPixels, int pWidth, int pHeight, double pScale)
+	{
+		if( pGeneration != aGeneration || pWidth == 0 || pHeight == 0 )
+		{
+			return;
+		}
+		if( aSnapshot == null || (int) aSnapshot.getWidth() != pWidth || (int) aSnapshot.getHeight() != pHeight )
+		{
+			aSnapshot = new WritableImage(pWidth, pHeight);
+			setWidth(pWidth);
+			setHeight(pHeight);
+		}
+		aSnapshot.getPixelWriter().setPixels(0, 0, pWidth, pHeight, PixelFormat.getIntArgbInstance(), pPixels, 0, pWidth);
+		aScale = pScale;
+		paint();
+	}
+	
+	private void navigate(MouseEvent pEvent)
+	{
+		int x = (int) Math.max(0, Math.min(aCanvas.getWidth(), pEvent.getX() / aScale));
+		int y = (int) Math.max(0, Math.min(aCanvas.getHeight(), pEvent.getY() / aScale));
+		aNavigator.accept(new Point(x, y));
+		pEvent.consume();
+	}
+}
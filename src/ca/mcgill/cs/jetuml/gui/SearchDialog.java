@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.gui;
+
+import static ca.mcgill.cs.jetuml.application.ApplicationResources.RESOURCES;
+
+import java.io.File;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import ca.mcgill.cs.jetuml.search.FolderSearch;
+import ca.mcgill.cs.jetuml.search.SearchIndex;
+import ca.mcgill.cs.jetuml.search.SearchMode;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.image.Image;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+/**
+ * A dialog that finds the elements of the selected diagram whose text 
+ * matches a query, or the elements of all the diagrams in the folder of 
+ * its file, as the query is typed. Selecting a match reveals the element, 
+ * opening its diagram if necessary. The dialog does not block the diagrams, 
+ * so that they can be edited while it is shown. The indexes that are out of 
+ * date are brought up to date in the background, and the search is repeated 
+ * once they are ready. Until then, the search of a folder uses its previous 
+ * index, if any.
+ */
+public class SearchDialog
+{
+	private static final int SPACING = 10;
+	private static final int MAX_MATCHES = 100;
+	private static final int MAX_LABEL_LENGTH = 80;
+	private static final String ELLIPSIS = "...";
+	
+	private final Stage aStage = new Stage();
+	private final BiConsumer<File, Consumer<DiagramTab>> aOpener;
+	private final TextField aQueryField = new TextField();
+	private final CheckBox aPrefixBox = new CheckBox(RESOURCES.getString("dialog.search.prefix"));
+	private final CheckBox aFolderBox = new CheckBox(RESOURCES.getString("dialog.search.folder"));
+	private final Label aStatus = new Label();
+	private final ListView<Result> aResults = new ListView<>();
+	private DiagramTab aTab;
+	private Optional<FolderSearch> aFolderSearch = Optional.empty();
+	/* The files of the folder may have changed since the folder search was opened. */
+	private boolean aFolderSearchStale = true;
+	private boolean aIndexingFolder = false;
+	private boolean aIndexingTab = false;
+	
+	/**
+	 * Creates a new dialog.
+	 * 
+	 * @param pOwner The stage that owns this stage.
+	 * @param pOpener Opens a diagram file, or selects its tab if it is 
+	 *     already open, and hands the tab to a consumer.
+	 */
+	public SearchDialog(Stage pOwner, BiConsumer<File, Consumer<DiagramTab>> pOpener)
+	{
+		aOpener = pOpener;
+		aStage.initOwner(pOwner);
+		aStage.setTitle(RESOURCES.getString("dialog.search.title"));
+		aStage.getIcons().add(new Image(RESOURCES.getString("application.icon")));
+		aStage.setScene(createScene());
+	}
+	
+	private Scene createScene()
+	{
+		aQueryField.textProperty().addListener((pObservable, pOldValue, pNewValue) -> search());
+		aPrefixBox.setOnAction(pEvent -> search());
+		aFolderBox.setOnAction(pEvent -> 
+		{
+			aFolderSearchStale = true;
+			search();
+		});
+		aResults.getSelectionModel().selectedItemProperty().addListener((pObservable, pOldValue, pNewValue) -> 
+		{
+			if( pNewValue != null )
+			{
+				pNewValue.aAction.run();
+			}
+		});
+		VBox layout = new VBox(SPACING, aQueryField, aPrefixBox, aFolderBox, aStatus, aResults);
+		layout.setPadding(new Insets(SPACING));
+		return new Scene(layout);
+	}
+	
+	/**
+	 * Shows the dialog to search the diagram in pTab, 
+	 * or the diagrams in the folder of its file.
+	 * 
+	 * @param pTab The tab whose diagram to search.
+	 * @pre pTab != null
+	 */
+	public void show(DiagramTab pTab)
+	{
+		assert pTab != null;
+		aTab = pTab;
+		aFolderBox.setDisable(!pTab.getFile().isPresent());
+		if( !pTab.getFile().isPresent() )
+		{
+			aFolderBox.setSelected(false);
+		}
+		aFolderSearchStale = true;
+		search();
+		aStage.show();
+		aStage.toFront();
+		aQueryField.requestFocus();
+		aQueryField.selectAll();
+	}
+	
+	private SearchMode mode()
+	{
+		if( aPrefixBox.isSelected() )
+		{
+			return SearchMode.PREFIX;
+		}
+		return SearchMode.SUBSTRING;
+	}
+	
+	private void search()
+	{
+		aResults.getItems().clear();
+		String query = aQueryField.getText();
+		if( aTab == null || query.isEmpty() )
+		{
+			aStatus.setText("");
+			return;
+		}
+		boolean ready;
+		if( aFolderBox.isSelected() )
+		{
+			ready = searchFolder(query);
+		}
+		else
+		{
+			ready = searchTab(query);
+		}
+		if( !ready )
+		{
+			aStatus.setText(RESOURCES.getString("dialog.search.indexing"));
+			return;
+		}
+		String status = RESOURCES.getString("dialog.search.matches");
+		if( aResults.getItems().size() == MAX_MATCHES )
+		{
+			status = RESOURCES.getString("dialog.search.more_matches");
+		}
+		aStatus.setText(status.replace("#1", Integer.toString(aResults.getItems().size())));
+	}
+	
+	/*
+	 * Returns false if the index of the diagram is being rebuilt.
+	 */
+	private boolean searchTab(String pQuery)
+	{
+		if( !aTab.isSearchReady() )
+		{
+			if( !aIndexingTab )
+			{
+				aIndexingTab = true;
+				aTab.prepareSearch(() -> 
+				{
+					aIndexingTab = false;
+					search();
+				});
+			}
+			return false;
+		}
+		for( SearchIndex.Match match : aTab.search(pQuery, mode(), MAX_MATCHES) )
+		{
+			DiagramTab tab = aTab;
+			aResults.getItems().add(new Result(label(match.getProperty(), match.getText()), () -> reveal(tab, match)));
+		}
+		return true;
+	}
+	
+	/*
+	 * Returns false if there is no index of the folder yet.
+	 */
+	private boolean searchFolder(String pQuery)
+	{
+		File folder = aTab.getFile().get().getAbsoluteFile().getParentFile();
+		boolean current = aFolderSearch.isPresent() && aFolderSearch.get().getFolder().equals(folder);
+		if( (!current || aFolderSearchStale) && !aIndexingFolder )
+		{
+			indexFolder(folder);
+		}
+		if( !current )
+		{
+			return false;
+		}
+		for( FolderSearch.Match match : aFolderSearch.get().search(pQuery, mode(), MAX_MATCHES) )
+		{
+			String label = match.getFile().getName() + ": " + label(match.getProperty(), match.getText());
+			aResults.getItems().add(new Result(label, 
+					() -> aOpener.accept(match.getFile(), pTab -> pTab.prepareSearch(() -> reveal(pTab, match)))));
+		}
+		return true;
+	}
+	
+	private void indexFolder(File pFolder)
+	{
+		aIndexingFolder = true;
+		aFolderSearchStale = false;
+		BackgroundTasks.run(() -> FolderSearch.open(pFolder), 
+		pSearch -> 
+		{
+			aIndexingFolder = false;
+			aFolderSearch = Optional.of(pSearch);
+			search();
+		}, 
+		pException -> 
+		{
+			aIndexingFolder = false;
+			aFolderBox.setSelected(false);
+			Alert alert = new Alert(AlertType.ERROR, RESOURCES.getString("error.search_folder"), ButtonType.OK);
+			alert.initOwner(aStage);
+			alert.showAndWait();
+			search();
+		});
+	}
+	
+	/*
+	 * Reveals the element of a match, unless it was removed from 
+	 * the diagram since the search, in which case the search is refreshed.
+	 */
+	private void reveal(DiagramTab pTab, SearchIndex.Match pMatch)
+	{
+		if( pTab.getTabPane() != null && pTab.getDiagram().contains(pMatch.getElement()) )
+		{
+			pTab.getTabPane().getSelectionModel().select(pTab);
+			pTab.reveal(pMatch.getElement());
+		}
+		else
+		{
+			search();
+		}
+	}
+	
+	/*
+	 * Reveals the first element of the diagram in pTab whose property has the 
+	 * text of the match, as the diagram is not indexed by element across files.
+	 */
+	private static void reveal(DiagramTab pTab, FolderSearch.Match pMatch)
+	{
+		for( SearchIndex.Match match : pTab.search(pMatch.getText(), SearchMode.SUBSTRING, Integer.MAX_VALUE) )
+		{
+			if( match.getProperty().equals(pMatch.getProperty()) && match.getText().equals(pMatch.getText()) )
+			{
+				pTab.reveal(match.getElement());
+				return;
+			}
+		}
+	}
+	
+	private static String label(String pProperty, String pText)
+	{
+		String text = pText.trim().replaceAll("\\s+", " ");
+		if( text.length() > MAX_LABEL_LENGTH )
+		{
+			text = text.substring(0, MAX_LABEL_LENGTH) + ELLIPSIS;
+		}
+		return pProperty + ": " + text;
+	}
+	
+	/*
+	 * A match as shown in the list, with the action that reveals it.
+	 */
+	private static final class Result
+	{
+		private final String aLabel;
+		private final Runnable aAction;
+		
+		Result(String pLabel, Runnable pAction)
+		{
+			aLabel = pLabel;
+			aAction = pAction;
+		}
+		
+		@Override
+		public String toString()
+		{
+			return aLabel;
+		}
+	}
+}
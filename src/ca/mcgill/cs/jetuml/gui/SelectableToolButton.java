@@ -27,12 +27,13 @@ import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
 import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreferenceChangeHandler;
 import ca.mcgill.cs.jetuml.diagram.DiagramElement;
 import ca.mcgill.cs.jetuml.diagram.Prototypes;
-import ca.mcgill.cs.jetuml.views.ViewerUtilities;
+import ca.mcgill.cs.jetuml.views.IconCache;
 import javafx.geometry.Pos;
-import javafx.scene.canvas.Canvas;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.control.Tooltip;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 
 /**
  * A selectable button that wraps a creation tool represented by an 
@@ -53,11 +54,11 @@ public class SelectableToolButton extends ToggleButton implements BooleanPrefere
 	 * @param pToggleGroup The toggle group this button is part of.
 	 * @pre pImage != null && pToolTip != null && pToggleGroup != null.
 	 */
-	public SelectableToolButton(Canvas pIcon, String pToolTip, ToggleGroup pToggleGroup)
+	public SelectableToolButton(Image pIcon, String pToolTip, ToggleGroup pToggleGroup)
 	{
 		assert pIcon != null && pToolTip != null && pToggleGroup != null;
 		setStyle(BUTTON_STYLE_CSS);
-		setGraphic(pIcon);
+		setGraphic(new ImageView(pIcon));
 		setToggleGroup(pToggleGroup);
 		setSelected(true);
 		setTooltip(new Tooltip(pToolTip));
@@ -78,7 +79,7 @@ public class SelectableToolButton extends ToggleButton implements BooleanPrefere
 	 */
 	public SelectableToolButton(String pToolTip, ToggleGroup pToggleGroup, DiagramElement pPrototype)
 	{
-		this(ViewerUtilities.createIcon(pPrototype), pToolTip, pToggleGroup);
+		this(IconCache.instance().icon(pPrototype), pToolTip, pToggleGroup);
 		aPrototype = Optional.of(pPrototype);
 		setSelected(false);
 	}
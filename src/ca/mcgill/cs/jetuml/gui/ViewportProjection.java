@@ -191,6 +191,39 @@ public final class ViewportProjection
 		}
 	}
 	
+	/**
+	 * @param pX An x-coordinate on the canvas.
+	 * @return A newly computed HValue that will center the viewport 
+	 *     on pX, or as close as possible without going past the canvas.
+	 */
+	public double getHValueToCenterX(int pX)
+	{
+		if( hiddenWidth() == 0 )
+		{
+			return aHValue;
+		}
+		return clamp((pX - aViewportWidth / 2.0) / hiddenWidth());
+	}
+	
+	/**
+	 * @param pY A y-coordinate on the canvas.
+	 * @return A newly computed VValue that will center the viewport 
+	 *     on pY, or as close as possible without going past the canvas.
+	 */
+	public double getVValueToCenterY(int pY)
+	{
+		if( hiddenHeight() == 0 )
+		{
+			return aVValue;
+		}
+		return clamp((pY - aViewportHeight / 2.0) / hiddenHeight());
+	}
+	
+	private static double clamp(double pValue)
+	{
+		return Math.max(0, Math.min(1, pValue));
+	}
+	
 	/**
 	 * @param pY A y-coordinate to reveal.
 	 * @return A newly computed VValue that will ensure pY
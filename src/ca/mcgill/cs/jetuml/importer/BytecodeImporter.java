@@ -0,0 +1,555 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
+import ca.mcgill.cs.jetuml.diagram.edges.AssociationEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.GeneralizationEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.InterfaceNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.TypeNode;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.importer.ClassFile.Member;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+
+/**
+ * Creates a class diagram from compiled classes, in a directory tree 
+ * or in a JAR file. The class files are read and parsed in parallel, 
+ * without loading the classes. The diagram has a class or interface node 
+ * for each class, with its fields and methods, in a package node for 
+ * its package, and the following edges between the imported classes:
+ * <ul>
+ * <li>a generalization edge to the superclass and to each interface;</li>
+ * <li>an association edge to the classes that are the type, the element 
+ * type or a type argument of a field;</li>
+ * <li>a dependency edge to the other classes it refers to.</li>
+ * </ul>
+ * Packages, and classes and members, can be filtered by name and by visibility 
+ * respectively. Members that the compiler generates are always left out.
+ */
+public final class BytecodeImporter
+{
+	private static final String CLASS_EXTENSION = ".class";
+	/* Layout of the nodes of a package in rows, as in ClassDiagramBuilder. */
+	private static final int PADDING = 10;
+	private static final int TOP_HEIGHT = 20;
+	private static final int GAP = 20;
+	private static final int ROW_WIDTH = 1000;
+	/* Layout of the packages, and of the classes of the default package, in rows. */
+	private static final int PACKAGE_ROW_WIDTH = 3000;
+	private static final int PACKAGE_GAP = 40;
+	private static final Metrics.Timer IMPORT_TIMER = Metrics.timer(Metrics.IMPORT_BYTECODE);
+	
+	private final Predicate<String> aPackageFilter;
+	private final Visibility aMinimumVisibility;
+	
+	/**
+	 * @param pPackageFilter Accepts the names of the packages to import, as in 
+	 *     {@code java.util}. The default package is the empty string.
+	 * @param pMinimumVisibility The least visibility of the classes and members to import.
+	 * @pre pPackageFilter != null && pMinimumVisibility != null
+	 */
+	public BytecodeImporter(Predicate<String> pPackageFilter, Visibility pMinimumVisibility)
+	{
+		assert pPackageFilter != null && pMinimumVisibility != null;
+		aPackageFilter = pPackageFilter;
+		aMinimumVisibility = pMinimumVisibility;
+	}
+	
+	/**
+	 * Creates a package filter that accepts the packages whose name is one of 
+	 * pPrefixes, or starts with one of pPrefixes followed by a dot. For example,
+	 * the prefix {@code java.util} accepts {@code java.util} and {@code java.util.zip}, 
+	 * but not {@code java.utilities}.
+	 * 
+	 * @param pPrefixes The names of the packages to accept, with their subpackages. 
+	 *     All packages are accepted if the list is empty.
+	 * @return A filter for the constructor.
+	 * @pre pPrefixes != null
+	 */
+	public static Predicate<String> packagesStartingWith(List<String> pPrefixes)
+	{
+		assert pPrefixes != null;
+		if( pPrefixes.isEmpty() )
+		{
+			return pPackage -> true;
+		}
+		return pPackage -> pPrefixes.stream()
+				.anyMatch(pPrefix -> pPackage.equals(pPrefix) || pPackage.startsWith(pPrefix + "."));
+	}
+	
+	/**
+	 * Imports the classes of pSource on the common fork-join pool.
+	 * 
+	 * @param pSource A directory, which is searched for class files recursively, or a JAR file.
+	 * @param pBuilder The builder for the diagram to import into.
+	 * @return An operation that adds the classes to the diagram, and statistics about the import.
+	 * @throws IOException If pSource cannot be read or contains a malformed class file.
+	 * @pre pSource != null && pBuilder != null
+	 */
+	public Result importClasses(Path pSource, ClassDiagramBuilder pBuilder) throws IOException
+	{
+		return importClasses(pSource, pBuilder, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Imports the classes of pSource, reading and parsing the class files on pPool.
+	 * 
+	 * @param pSource A directory, which is searched for class files recursively, or a JAR file.
+	 * @param pBuilder The builder for the diagram to import into.
+	 * @param pPool The pool on which to read and parse the class files.
+	 * @return An operation that adds the classes to the diagram, and statistics about the import.
+	 * @throws IOException If pSource cannot be read or contains a malformed class file.
+	 * @pre pSource != null && pBuilder != null && pPool != null
+	 */
+	public Result importClasses(Path pSource, ClassDiagramBuilder pBuilder, ForkJoinPool pPool) throws IOException
+	{
+		assert pSource != null && pBuilder != null && pPool != null;
+		long start = System.nanoTime();
+		List<ClassFile> classes;
+		if( Files.isDirectory(pSource) )
+		{
+			List<Path> files;
+			try( Stream<Path> paths = Files.walk(pSource) )
+			{
+				files = paths.filter(pPath -> pPath.toString().endsWith(CLASS_EXTENSION) && Files.isRegularFile(pPath))
+						.collect(Collectors.toList());
+			}
+			classes = parse(files.stream().map(pPath -> (Callable<byte[]>) () -> Files.readAllBytes(pPath))
+					.collect(Collectors.toList()), pPool);
+		}
+		else
+		{
+			try( ZipFile jar = new ZipFile(pSource.toFile()) )
+			{
+				List<Callable<byte[]>> entries = new ArrayList<>();
+				for( ZipEntry entry : jar.stream().collect(Collectors.toList()) )
+				{
+					if( !entry.isDirectory() && entry.getName().endsWith(CLASS_EXTENSION) && 
+							!entry.getName().startsWith("META-INF/") )
+					{
+						entries.add(() -> 
+						{
+							try( InputStream input = jar.getInputStream(entry) )
+							{
+								return input.readAllBytes();
+							}
+						});
+					}
+				}
+				classes = parse(entries, pPool);
+			}
+		}
+		List<ClassFile> imported = classes.stream()
+				.filter(pClass -> !pClass.isHidden() && Visibility.of(pClass.getAccess()).isAtLeast(aMinimumVisibility) &&
+						aPackageFilter.test(Descriptors.packageName(pClass.getName())))
+				.sorted(Comparator.comparing(ClassFile::getName))
+				.collect(Collectors.toList());
+		List<DiagramElement> elements = createElements(imported, pBuilder);
+		DiagramOperation operation = pBuilder.createAddElementsOperation(elements);
+		long nanos = System.nanoTime() - start;
+		IMPORT_TIMER.record(nanos);
+		return new Result(operation, rootsOf(elements), classes.size(), imported.size(), nanos);
+	}
+	
+	/*
+	 * Reads and parses the class files in parallel, and returns them in 
+	 * the order of pSources.
+	 */
+	private static List<ClassFile> parse(List<Callable<byte[]>> pSources, ForkJoinPool pPool) throws IOException
+	{
+		List<Future<ClassFile>> tasks = new ArrayList<>();
+		for( Callable<byte[]> source : pSources )
+		{
+			tasks.add(pPool.submit(() -> ClassFile.parse(source.call())));
+		}
+		List<ClassFile> classes = new ArrayList<>();
+		try
+		{
+			for( Future<ClassFile> task : tasks )
+			{
+				classes.add(task.get());
+			}
+		}
+		catch( InterruptedException exception )
+		{
+			tasks.forEach(pTask -> pTask.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch( ExecutionException exception )
+		{
+			tasks.forEach(pTask -> pTask.cancel(true));
+			if( exception.getCause() instanceof IOException )
+			{
+				throw (IOException) exception.getCause();
+			}
+			throw new IOException(exception.getCause());
+		}
+		return classes;
+	}
+	
+	/*
+	 * Returns the root nodes and the edges for pClasses, which are sorted by name.
+	 * The nodes are placed later, by arrange, because placing them measures their text.
+	 */
+	private List<DiagramElement> createElements(List<ClassFile> pClasses, ClassDiagramBuilder pBuilder)
+	{
+		Map<String, TypeNode> nodes = new HashMap<>();
+		Map<String, List<TypeNode>> packages = new TreeMap<>();
+		for( ClassFile classFile : pClasses )
+		{
+			TypeNode node = createNode(classFile);
+			nodes.put(classFile.getName(), node);
+			packages.computeIfAbsent(Descriptors.packageName(classFile.getName()), pName -> new ArrayList<>()).add(node);
+		}
+		
+		List<Node> roots = new ArrayList<>();
+		for( Map.Entry<String, List<TypeNode>> entry : packages.entrySet() )
+		{
+			if( entry.getKey().isEmpty() )
+			{
+				roots.addAll(entry.getValue());
+			}
+			else
+			{
+				PackageNode packageNode = new PackageNode();
+				packageNode.setName(entry.getKey());
+				entry.getValue().forEach(packageNode::addChild);
+				roots.add(packageNode);
+			}
+		}
+		List<DiagramElement> elements = new ArrayList<>(roots);
+		
+		// There is at most one edge between two classes: a generalization, else an 
+		// association, else a dependency, which is bidirectional if both classes refer 
+		// to each other.
+		Edges edges = new Edges(pBuilder);
+		pClasses.forEach(pClass -> addGeneralizations(pClass, nodes, edges));
+		pClasses.forEach(pClass -> addAssociations(pClass, nodes, edges));
+		pClasses.forEach(pClass -> addDependencies(pClass, nodes, edges));
+		elements.addAll(edges.aEdges);
+		return elements;
+	}
+	
+	private TypeNode createNode(ClassFile pClass)
+	{
+		boolean isInterface = (pClass.getAccess() & ClassFile.ACC_INTERFACE) != 0;
+		TypeNode node = isInterface ? new InterfaceNode() : new ClassNode();
+		node.setName(Descriptors.simpleName(pClass.getName()));
+		if( !isInterface )
+		{
+			StringBuilder attributes = new StringBuilder();
+			for( Member field : pClass.getFields() )
+			{
+				if( isVisible(field) )
+				{
+					appendLine(attributes, String.format("%s%s : %s", Visibility.of(field.getAccess()).getSymbol(), 
+							field.getName(), Descriptors.typeName(field.getDescriptor())));
+				}
+			}
+			((ClassNode) node).setAttributes(attributes.toString());
+		}
+		StringBuilder methods = new StringBuilder();
+		for( Member method : pClass.getMethods() )
+		{
+			if( isVisible(method) && !"<clinit>".equals(method.getName()) )
+			{
+				boolean constructor = "<init>".equals(method.getName());
+				String simpleName = Descriptors.simpleName(pClass.getName());
+				String name = constructor ? simpleName.substring(simpleName.lastIndexOf('.') + 1) : method.getName();
+				String returnType = constructor ? "" : " : " + Descriptors.returnType(method.getDescriptor());
+				appendLine(methods, String.format("%s%s(%s)%s", Visibility.of(method.getAccess()).getSymbol(), name, 
+						String.join(", ", Descriptors.parameterTypes(method.getDescriptor())), returnType));
+			}
+		}
+		node.setMethods(methods.toString());
+		return node;
+	}
+	
+	private boolean isVisible(Member pMember)
+	{
+		return (pMember.getAccess() & (ClassFile.ACC_SYNTHETIC | ClassFile.ACC_BRIDGE)) == 0 &&
+				Visibility.of(pMember.getAccess()).isAtLeast(aMinimumVisibility);
+	}
+	
+	private static void appendLine(StringBuilder pText, String pLine)
+	{
+		if( pText.length() > 0 )
+		{
+			pText.append('\n');
+		}
+		pText.append(pLine);
+	}
+	
+	private static List<Node> rootsOf(List<DiagramElement> pElements)
+	{
+		return pElements.stream()
+				.filter(pElement -> pElement instanceof Node)
+				.map(pElement -> (Node) pElement)
+				.collect(Collectors.toList());
+	}
+	
+	/*
+	 * Places the classes of each package in rows inside their package, then 
+	 * the packages and the classes of the default package in rows according 
+	 * to their bounds, so that they do not overlap.
+	 */
+	private static void arrange(List<Node> pRoots)
+	{
+		for( Node root : pRoots )
+		{
+			if( root instanceof PackageNode )
+			{
+				arrange(root.getChildren(), PADDING, PADDING + TOP_HEIGHT, ROW_WIDTH, GAP);
+			}
+		}
+		arrange(pRoots, 0, 0, PACKAGE_ROW_WIDTH, PACKAGE_GAP);
+	}
+	
+	/*
+	 * Places the nodes in rows of at most pRowWidth, from pX and pY, unless a 
+	 * node is wider than a row.
+	 */
+	private static void arrange(List<? extends Node> pNodes, int pX, int pY, int pRowWidth, int pGap)
+	{
+		int x = pX;
+		int y = pY;
+		int rowHeight = 0;
+		for( Node node : pNodes )
+		{
+			Rectangle bounds = NodeViewerRegistry.getBounds(node);
+			if( x > pX && x + bounds.getWidth() > pX + pRowWidth )
+			{
+				x = pX;
+				y += rowHeight + pGap;
+				rowHeight = 0;
+			}
+			node.translate(x - bounds.getX(), y - bounds.getY());
+			x += bounds.getWidth() + pGap;
+			rowHeight = Math.max(rowHeight, bounds.getHeight());
+		}
+	}
+	
+	private static void addGeneralizations(ClassFile pClass, Map<String, TypeNode> pNodes, Edges pEdges)
+	{
+		TypeNode start = pNodes.get(pClass.getName());
+		if( pClass.getSuperName() != null && pNodes.containsKey(pClass.getSuperName()) )
+		{
+			pEdges.connect(new GeneralizationEdge(), start, pNodes.get(pClass.getSuperName()));
+		}
+		boolean isInterface = (pClass.getAccess() & ClassFile.ACC_INTERFACE) != 0;
+		for( String name : pClass.getInterfaces() )
+		{
+			if( pNodes.containsKey(name) )
+			{
+				GeneralizationEdge.Type type = isInterface ? GeneralizationEdge.Type.Inheritance : 
+					GeneralizationEdge.Type.Implementation;
+				pEdges.connect(new GeneralizationEdge(type), start, pNodes.get(name));
+			}
+		}
+	}
+	
+	private static void addAssociations(ClassFile pClass, Map<String, TypeNode> pNodes, Edges pEdges)
+	{
+		TypeNode start = pNodes.get(pClass.getName());
+		Set<String> types = new LinkedHashSet<>();
+		for( Member field : pClass.getFields() )
+		{
+			if( (field.getAccess() & ClassFile.ACC_SYNTHETIC) == 0 )
+			{
+				field.addClassNames(types);
+			}
+		}
+		for( String name : types )
+		{
+			TypeNode end = pNodes.get(name);
+			if( end == null || end == start || pEdges.find(start, end) != null )
+			{
+				continue;
+			}
+			Edge reverse = pEdges.find(end, start);
+			if( reverse instanceof AssociationEdge )
+			{
+				((AssociationEdge) reverse).setDirectionality(AssociationEdge.Directionality.Bidirectional);
+			}
+			else if( reverse == null )
+			{
+				AssociationEdge edge = new AssociationEdge();
+				edge.setDirectionality(AssociationEdge.Directionality.Unidirectional);
+				pEdges.connect(edge, start, end);
+			}
+		}
+	}
+	
+	private static void addDependencies(ClassFile pClass, Map<String, TypeNode> pNodes, Edges pEdges)
+	{
+		TypeNode start = pNodes.get(pClass.getName());
+		for( String name : pClass.getReferences() )
+		{
+			TypeNode end = pNodes.get(name);
+			if( end == null || end == start || pEdges.find(start, end) != null )
+			{
+				continue;
+			}
+			Edge reverse = pEdges.find(end, start);
+			if( reverse instanceof DependencyEdge )
+			{
+				((DependencyEdge) reverse).setDirectionality(DependencyEdge.Directionality.Bidirectional);
+			}
+			else if( reverse == null )
+			{
+				pEdges.connect(new DependencyEdge(), start, end);
+			}
+		}
+	}
+	
+	/*
+	 * The edges created so far, indexed by their start and end nodes.
+	 */
+	private static final class Edges
+	{
+		private final ClassDiagramBuilder aBuilder;
+		private final List<Edge> aEdges = new ArrayList<>();
+		private final Map<Node, Map<Node, Edge>> aIndex = new IdentityHashMap<>();
+		
+		Edges(ClassDiagramBuilder pBuilder)
+		{
+			aBuilder = pBuilder;
+		}
+		
+		void connect(Edge pEdge, Node pStart, Node pEnd)
+		{
+			pEdge.connect(pStart, pEnd, aBuilder.getDiagram());
+			aEdges.add(pEdge);
+			aIndex.computeIfAbsent(pStart, pNode -> new IdentityHashMap<>()).put(pEnd, pEdge);
+		}
+		
+		Edge find(Node pStart, Node pEnd)
+		{
+			return aIndex.getOrDefault(pStart, Collections.emptyMap()).get(pEnd);
+		}
+	}
+	
+	/**
+	 * The outcome of an import.
+	 */
+	public static final class Result
+	{
+		private final DiagramOperation aOperation;
+		private final List<Node> aRoots;
+		private final int aClassFiles;
+		private final int aImported;
+		private final long aNanos;
+		private boolean aArranged = false;
+		
+		private Result(DiagramOperation pOperation, List<Node> pRoots, int pClassFiles, int pImported, long pNanos)
+		{
+			aOperation = pOperation;
+			aRoots = pRoots;
+			aClassFiles = pClassFiles;
+			aImported = pImported;
+			aNanos = pNanos;
+		}
+		
+		/**
+		 * Places the imported classes the first time it is called. Placing the 
+		 * classes measures their text, so this method must be called on the 
+		 * JavaFX application thread, while the import itself can run on any thread.
+		 * 
+		 * @return The operation that adds the imported classes to the diagram. 
+		 *     The classes are only added when it is executed.
+		 */
+		public DiagramOperation getOperation()
+		{
+			if( !aArranged )
+			{
+				arrange(aRoots);
+				aArranged = true;
+			}
+			return aOperation;
+		}
+		
+		/**
+		 * @return The number of class files that were parsed.
+		 */
+		public int getClassFileCount()
+		{
+			return aClassFiles;
+		}
+		
+		/**
+		 * @return The number of classes that passed the filters, and are in the diagram.
+		 */
+		public int getImportedCount()
+		{
+			return aImported;
+		}
+		
+		/**
+		 * @return The duration of the import, in nanoseconds.
+		 */
+		public long getNanos()
+		{
+			return aNanos;
+		}
+		
+		/**
+		 * @return The number of class files parsed per second.
+		 */
+		public double getClassesPerSecond()
+		{
+			return aNanos == 0 ? 0 : aClassFiles * 1e9 / aNanos;
+		}
+	}
+}
@@ -0,0 +1,417 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The declarations of a compiled class that appear in a class diagram: its 
+ * name, supertypes, fields and methods, and the classes it refers to. A class
+ * file is parsed directly from its bytes, without loading the class, and the 
+ * bodies of the methods are skipped: the classes they use all appear in the 
+ * constant pool. Class names are in internal form, as in {@code java/lang/String}.
+ */
+final class ClassFile
+{
+	static final int ACC_PUBLIC = 0x0001;
+	static final int ACC_PRIVATE = 0x0002;
+	static final int ACC_PROTECTED = 0x0004;
+	static final int ACC_STATIC = 0x0008;
+	static final int ACC_BRIDGE = 0x0040;
+	static final int ACC_INTERFACE = 0x0200;
+	static final int ACC_ABSTRACT = 0x0400;
+	static final int ACC_SYNTHETIC = 0x1000;
+	static final int ACC_ANNOTATION = 0x2000;
+	static final int ACC_MODULE = 0x8000;
+	
+	private static final int MAGIC = 0xCAFEBABE;
+	
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_FLOAT = 4;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_INTERFACE_METHODREF = 11;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	private static final int CONSTANT_METHOD_HANDLE = 15;
+	private static final int CONSTANT_METHOD_TYPE = 16;
+	private static final int CONSTANT_DYNAMIC = 17;
+	private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+	private static final int CONSTANT_MODULE = 19;
+	private static final int CONSTANT_PACKAGE = 20;
+	
+	private static final int SIZE_OF_INT = 4;
+	private static final int SIZE_OF_LONG = 8;
+	private static final int SIZE_OF_METHOD_HANDLE = 3;
+	/* The size of an entry of the InnerClasses attribute: four unsigned shorts. */
+	private static final int SIZE_OF_INNER_CLASS = 8;
+	
+	private final String aName;
+	private final int aAccess;
+	private final String aSuperName;
+	private final List<String> aInterfaces;
+	private final List<Member> aFields;
+	private final List<Member> aMethods;
+	private final Set<String> aReferences;
+	private final boolean aLocal;
+	
+	private ClassFile(String pName, int pAccess, String pSuperName, List<String> pInterfaces, 
+			List<Member> pFields, List<Member> pMethods, Set<String> pReferences, boolean pLocal)
+	{
+		aName = pName;
+		aAccess = pAccess;
+		aSuperName = pSuperName;
+		aInterfaces = Collections.unmodifiableList(pInterfaces);
+		aFields = Collections.unmodifiableList(pFields);
+		aMethods = Collections.unmodifiableList(pMethods);
+		aReferences = Collections.unmodifiableSet(pReferences);
+		aLocal = pLocal;
+	}
+	
+	/**
+	 * @return The internal name of the class.
+	 */
+	String getName()
+	{
+		return aName;
+	}
+	
+	/**
+	 * @return The access flags of the class. For a member class, these
+	 *     are the flags declared in its source, rather than the flags of 
+	 *     its class file, which cannot be private or protected.
+	 */
+	int getAccess()
+	{
+		return aAccess;
+	}
+	
+	/**
+	 * @return The internal name of the superclass, or null for java/lang/Object
+	 *     and module descriptors.
+	 */
+	String getSuperName()
+	{
+		return aSuperName;
+	}
+	
+	/**
+	 * @return The internal names of the interfaces the class implements, or
+	 *     that the interface extends.
+	 */
+	List<String> getInterfaces()
+	{
+		return aInterfaces;
+	}
+	
+	/**
+	 * @return The fields, in declaration order.
+	 */
+	List<Member> getFields()
+	{
+		return aFields;
+	}
+	
+	/**
+	 * @return The methods, including constructors, in declaration order.
+	 */
+	List<Member> getMethods()
+	{
+		return aMethods;
+	}
+	
+	/**
+	 * @return The internal names of all the classes the class refers to, 
+	 *     in its code or its declarations, including itself.
+	 */
+	Set<String> getReferences()
+	{
+		return aReferences;
+	}
+	
+	/**
+	 * @return True if the class is anonymous, local to a method, synthetic, 
+	 *     or a module or package descriptor: such classes do not appear in 
+	 *     class diagrams.
+	 */
+	boolean isHidden()
+	{
+		return aLocal || (aAccess & (ACC_SYNTHETIC | ACC_MODULE)) != 0 || aName.endsWith("package-info");
+	}
+	
+	/**
+	 * Parses a class file.
+	 * 
+	 * @param pBytes The content of a class file.
+	 * @return The declarations of the class.
+	 * @throws IOException If pBytes is not a well-formed class file.
+	 * @pre pBytes != null
+	 */
+	static ClassFile parse(byte[] pBytes) throws IOException
+	{
+		assert pBytes != null;
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(pBytes));
+		if( input.readInt() != MAGIC )
+		{
+			throw new IOException("Not a class file");
+		}
+		input.readUnsignedShort(); // Minor version
+		input.readUnsignedShort(); // Major version
+		
+		int count = input.readUnsignedShort();
+		String[] utf8 = new String[count];
+		int[] classes = new int[count];
+		int[] descriptors = new int[count];
+		for( int i = 1; i < count; i++ )
+		{
+			int tag = input.readUnsignedByte();
+			switch( tag )
+			{
+			case CONSTANT_UTF8: 
+				utf8[i] = input.readUTF(); 
+				break;
+			case CONSTANT_CLASS: 
+				classes[i] = input.readUnsignedShort(); 
+				break;
+			case CONSTANT_NAME_AND_TYPE:
+				input.readUnsignedShort();
+				descriptors[i] = input.readUnsignedShort();
+				break;
+			case CONSTANT_STRING: case CONSTANT_METHOD_TYPE: case CONSTANT_MODULE: case CONSTANT_PACKAGE:
+				skip(input, 2);
+				break;
+			case CONSTANT_INTEGER: case CONSTANT_FLOAT: case CONSTANT_FIELDREF: case CONSTANT_METHODREF: 
+			case CONSTANT_INTERFACE_METHODREF: case CONSTANT_DYNAMIC: case CONSTANT_INVOKE_DYNAMIC:
+				skip(input, SIZE_OF_INT);
+				break;
+			case CONSTANT_LONG: case CONSTANT_DOUBLE:
+				skip(input, SIZE_OF_LONG);
+				i++; // These constants take two entries
+				break;
+			case CONSTANT_METHOD_HANDLE:
+				skip(input, SIZE_OF_METHOD_HANDLE);
+				break;
+			default:
+				throw new IOException("Unknown constant pool tag " + tag);
+			}
+		}
+		ConstantPool pool = new ConstantPool(utf8, classes);
+		
+		int access = input.readUnsignedShort();
+		String name = pool.className(input.readUnsignedShort());
+		int superIndex = input.readUnsignedShort();
+		String superName = superIndex == 0 ? null : pool.className(superIndex);
+		List<String> interfaces = new ArrayList<>();
+		for( int i = input.readUnsignedShort(); i > 0; i-- )
+		{
+			interfaces.add(pool.className(input.readUnsignedShort()));
+		}
+		List<Member> fields = readMembers(input, pool);
+		List<Member> methods = readMembers(input, pool);
+		
+		boolean local = false;
+		for( int i = input.readUnsignedShort(); i > 0; i-- )
+		{
+			String attribute = pool.utf8(input.readUnsignedShort());
+			int length = input.readInt();
+			if( !"InnerClasses".equals(attribute) )
+			{
+				skip(input, length);
+				continue;
+			}
+			for( int j = input.readUnsignedShort(); j > 0; j-- )
+			{
+				int inner = input.readUnsignedShort();
+				int outer = input.readUnsignedShort();
+				input.readUnsignedShort(); // Simple name
+				int innerAccess = input.readUnsignedShort();
+				if( inner != 0 && name.equals(pool.className(inner)) )
+				{
+					access = innerAccess;
+					local = outer == 0;
+				}
+			}
+		}
+		
+		Set<String> references = new LinkedHashSet<>();
+		for( int i = 1; i < count; i++ )
+		{
+			if( classes[i] != 0 )
+			{
+				String className = pool.utf8(classes[i]);
+				// The name of an array class is its descriptor.
+				if( className.startsWith("[") )
+				{
+					Descriptors.addClassNames(className, references);
+				}
+				else
+				{
+					references.add(className);
+				}
+			}
+			else if( descriptors[i] != 0 )
+			{
+				Descriptors.addClassNames(pool.utf8(descriptors[i]), references);
+			}
+		}
+		for( Member member : fields )
+		{
+			member.addClassNames(references);
+		}
+		for( Member member : methods )
+		{
+			member.addClassNames(references);
+		}
+		return new ClassFile(name, access, superName, interfaces, fields, methods, references, local);
+	}
+	
+	private static List<Member> readMembers(DataInputStream pInput, ConstantPool pPool) throws IOException
+	{
+		List<Member> members = new ArrayList<>();
+		for( int i = pInput.readUnsignedShort(); i > 0; i-- )
+		{
+			int access = pInput.readUnsignedShort();
+			String name = pPool.utf8(pInput.readUnsignedShort());
+			String descriptor = pPool.utf8(pInput.readUnsignedShort());
+			String signature = null;
+			for( int j = pInput.readUnsignedShort(); j > 0; j-- )
+			{
+				String attribute = pPool.utf8(pInput.readUnsignedShort());
+				int length = pInput.readInt();
+				if( "Signature".equals(attribute) )
+				{
+					signature = pPool.utf8(pInput.readUnsignedShort());
+				}
+				else
+				{
+					skip(pInput, length);
+				}
+			}
+			members.add(new Member(access, name, descriptor, signature));
+		}
+		return members;
+	}
+	
+	private static void skip(DataInputStream pInput, int pBytes) throws IOException
+	{
+		if( pInput.skipBytes(pBytes) != pBytes )
+		{
+			throw new EOFException();
+		}
+	}
+	
+	/*
+	 * The strings and class names of the constant pool.
+	 */
+	private static final class ConstantPool
+	{
+		private final String[] aUtf8;
+		private final int[] aClasses;
+		
+		ConstantPool(String[] pUtf8, int[] pClasses)
+		{
+			aUtf8 = pUtf8;
+			aClasses = pClasses;
+		}
+		
+		String utf8(int pIndex) throws IOException
+		{
+			if( pIndex <= 0 || pIndex >= aUtf8.length || aUtf8[pIndex] == null )
+			{
+				throw new IOException("Invalid constant pool index " + pIndex);
+			}
+			return aUtf8[pIndex];
+		}
+		
+		String className(int pIndex) throws IOException
+		{
+			if( pIndex <= 0 || pIndex >= aClasses.length || aClasses[pIndex] == 0 )
+			{
+				throw new IOException("Invalid class index " + pIndex);
+			}
+			return utf8(aClasses[pIndex]);
+		}
+	}
+	
+	/**
+	 * A field or a method.
+	 */
+	static final class Member
+	{
+		private final int aAccess;
+		private final String aName;
+		private final String aDescriptor;
+		private final String aSignature;
+		
+		Member(int pAccess, String pName, String pDescriptor, String pSignature)
+		{
+			aAccess = pAccess;
+			aName = pName;
+			aDescriptor = pDescriptor;
+			aSignature = pSignature;
+		}
+		
+		int getAccess()
+		{
+			return aAccess;
+		}
+		
+		String getName()
+		{
+			return aName;
+		}
+		
+		/**
+		 * @return The erased type of the member, as in {@code (Ljava/lang/String;)V}.
+		 */
+		String getDescriptor()
+		{
+			return aDescriptor;
+		}
+		
+		/**
+		 * Adds the classes that appear in the type of the member, including its 
+		 * type arguments, to pNames.
+		 * 
+		 * @param pNames The names to add to.
+		 */
+		void addClassNames(Set<String> pNames)
+		{
+			Descriptors.addClassNames(aDescriptor, pNames);
+			if( aSignature != null )
+			{
+				Descriptors.addClassNames(aSignature, pNames);
+			}
+		}
+	}
+}
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Utilities to read the names of the types in the descriptors and
+ * generic signatures of class files.
+ */
+final class Descriptors
+{
+	private static final String PRIMITIVE_DESCRIPTORS = "BCDFIJSZV";
+	private static final String[] PRIMITIVE_NAMES = 
+		{"byte", "char", "double", "float", "int", "long", "short", "boolean", "void"};
+	
+	private Descriptors() {}
+	
+	/**
+	 * @param pInternalName The internal name of a class, as in {@code java/util/Map$Entry}.
+	 * @return The name of its package, as in {@code java.util}, or the empty string
+	 *     for the default package.
+	 */
+	static String packageName(String pInternalName)
+	{
+		int slash = pInternalName.lastIndexOf('/');
+		return slash < 0 ? "" : pInternalName.substring(0, slash).replace('/', '.');
+	}
+	
+	/**
+	 * @param pInternalName The internal name of a class, as in {@code java/util/Map$Entry}.
+	 * @return Its name in its package, as in {@code Map.Entry}.
+	 */
+	static String simpleName(String pInternalName)
+	{
+		return pInternalName.substring(pInternalName.lastIndexOf('/') + 1).replace('$', '.');
+	}
+	
+	/**
+	 * @param pDescriptor A field descriptor, as in {@code [Ljava/lang/String;}.
+	 * @return The name of the type, as written in Java source, as in {@code String[]}.
+	 */
+	static String typeName(String pDescriptor)
+	{
+		StringBuilder name = new StringBuilder();
+		appendType(pDescriptor, 0, name);
+		return name.toString();
+	}
+	
+	/**
+	 * @param pDescriptor A method descriptor, as in {@code (ILjava/lang/String;)V}.
+	 * @return The names of the types of the parameters, as in {@code [int, String]}.
+	 */
+	static List<String> parameterTypes(String pDescriptor)
+	{
+		List<String> types = new ArrayList<>();
+		int position = 1;
+		while( pDescriptor.charAt(position) != ')' )
+		{
+			StringBuilder name = new StringBuilder();
+			position = appendType(pDescriptor, position, name);
+			types.add(name.toString());
+		}
+		return types;
+	}
+	
+	/**
+	 * @param pDescriptor A method descriptor, as in {@code (ILjava/lang/String;)V}.
+	 * @return The name of the return type, as in {@code void}.
+	 */
+	static String returnType(String pDescriptor)
+	{
+		return typeName(pDescriptor.substring(pDescriptor.indexOf(')') + 1));
+	}
+	
+	/*
+	 * Appends the name of the type that starts at pPosition to pName, and 
+	 * returns the position after the type.
+	 */
+	private static int appendType(String pDescriptor, int pPosition, StringBuilder pName)
+	{
+		char type = pDescriptor.charAt(pPosition);
+		int primitive = PRIMITIVE_DESCRIPTORS.indexOf(type);
+		if( primitive >= 0 )
+		{
+			pName.append(PRIMITIVE_NAMES[primitive]);
+			return pPosition + 1;
+		}
+		else if( type == '[' )
+		{
+			int end = appendType(pDescriptor, pPosition + 1, pName);
+			pName.append("[]");
+			return end;
+		}
+		else if( type == 'L' )
+		{
+			int semicolon = pDescriptor.indexOf(';', pPosition);
+			pName.append(simpleName(pDescriptor.substring(pPosition + 1, semicolon)));
+			return semicolon + 1;
+		}
+		throw new IllegalArgumentException("Invalid descriptor: " + pDescriptor);
+	}
+	
+	/**
+	 * Adds the internal names of the classes that appear in a descriptor or 
+	 * a generic signature to pNames, including the type arguments and the 
+	 * bounds of the type parameters of the signature.
+	 * 
+	 * @param pSignature A field or method descriptor, or a generic signature.
+	 * @param pNames The names to add to.
+	 */
+	static void addClassNames(String pSignature, Set<String> pNames)
+	{
+		int position = 0;
+		if( pSignature.startsWith("<") )
+		{
+			position = readTypeParameters(pSignature, 1, pNames);
+		}
+		while( position < pSignature.length() )
+		{
+			position = readType(pSignature, position, pNames);
+		}
+	}
+	
+	/*
+	 * Reads the type parameters that start at pPosition, just after the '<', 
+	 * and returns the position after the closing '>'.
+	 */
+	private static int readTypeParameters(String pSignature, int pPosition, Set<String> pNames)
+	{
+		int position = pPosition;
+		while( pSignature.charAt(position) != '>' )
+		{
+			position = pSignature.indexOf(':', position);
+			while( pSignature.charAt(position) == ':' )
+			{
+				position++;
+				// The class bound of a type parameter is empty if it only has interface bounds.
+				if( pSignature.charAt(position) != ':' )
+				{
+					position = readType(pSignature, position, pNames);
+				}
+			}
+		}
+		return position + 1;
+	}
+	
+	/*
+	 * Reads the type that starts at pPosition, or the single character that 
+	 * delimits the types of a method signature, and returns the position after it.
+	 */
+	private static int readType(String pSignature, int pPosition, Set<String> pNames)
+	{
+		char type = pSignature.charAt(pPosition);
+		if( type == 'T' )
+		{
+			return pSignature.indexOf(';', pPosition) + 1;
+		}
+		if( type != 'L' )
+		{
+			return pPosition + 1;
+		}
+		StringBuilder name = new StringBuilder();
+		int position = pPosition + 1;
+		while( true )
+		{
+			char next = pSignature.charAt(position);
+			if( next == ';' )
+			{
+				pNames.add(name.toString());
+				return position + 1;
+			}
+			if( next == '<' )
+			{
+				position++;
+				while( pSignature.charAt(position) != '>' )
+				{
+					char argument = pSignature.charAt(position);
+					position = argument == '*' ? position + 1 : 
+						readType(pSignature, argument == '+' || argument == '-' ? position + 1 : position, pNames);
+				}
+				position++;
+			}
+			else if( next == '.' )
+			{
+				// The inner class of a parameterized class.
+				name.append('$');
+				position++;
+			}
+			else
+			{
+				name.append(next);
+				position++;
+			}
+		}
+	}
+}
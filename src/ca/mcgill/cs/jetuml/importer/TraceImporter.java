@@ -0,0 +1,603 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.SequenceDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.edges.CallEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.ConstructorEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.ReturnEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.ImplicitParameterNode;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.viewers.nodes.ImplicitParameterNodeViewer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Creates a sequence diagram from a trace of the calls of a program. The trace 
+ * is streamed: the importer only keeps the calls that are in progress, in addition 
+ * to the elements of the diagram, whose number is bounded. The diagram has an 
+ * implicit parameter node for each object that receives a call, a call node for 
+ * each call, and a call edge to each call node from the call node of its caller. 
+ * The first call on an object is a constructor call if it is to {@code <init>}, and 
+ * a call to another object has a return edge.
+ * 
+ * The trace can be a text file with one event per line:
+ * <ul>
+ * <li>{@code > object type method} for a call of method on the object with the given 
+ * identifier, whose class is type;</li>
+ * <li>{@code <} for the return from the call that is in progress;</li>
+ * <li>a line that is blank or starts with {@code #} is ignored.</li>
+ * </ul>
+ * It can also be a Java Flight Recorder recording of execution samples, where the 
+ * differences between consecutive stack traces of a thread are taken as calls 
+ * and returns, on one implicit parameter node per class. By default, the thread 
+ * is the one with the most samples.
+ * 
+ * Calls nested deeper than a maximum depth are left out, and the import stops 
+ * adding calls after a maximum number of calls. Consecutive calls from the 
+ * same caller that repeat the same calls, as in a loop, can be folded into the 
+ * first one, whose label then shows the number of repetitions.
+ */
+public final class TraceImporter
+{
+	/**
+	 * The maximum nesting depth suggested for an import.
+	 */
+	public static final int DEFAULT_MAX_DEPTH = 32;
+	
+	/**
+	 * The maximum number of calls suggested for an import.
+	 */
+	public static final int DEFAULT_MAX_CALLS = 20000;
+	
+	private static final String CONSTRUCTOR = "<init>";
+	private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+	/* The horizontal offset of a nested call node, and half the width of a call node, as in CallNodeViewer. */
+	private static final int NESTING_OFFSET = 8;
+	private static final int GAP = 40;
+	private static final long PRIME = 0x100000001b3L;
+	private static final ImplicitParameterNodeViewer IMPLICIT_PARAMETER_NODE_VIEWER = new ImplicitParameterNodeViewer();
+	private static final Metrics.Timer IMPORT_TIMER = Metrics.timer(Metrics.IMPORT_TRACE);
+	
+	private final int aMaxDepth;
+	private final int aMaxCalls;
+	private final boolean aFold;
+	
+	/**
+	 * @param pMaxDepth The maximum number of nested calls, from the first call of the trace.
+	 * @param pMaxCalls The maximum number of call nodes in the diagram.
+	 * @param pFold Whether to fold repeated calls.
+	 * @pre pMaxDepth > 0 && pMaxCalls > 0
+	 */
+	public TraceImporter(int pMaxDepth, int pMaxCalls, boolean pFold)
+	{
+		assert pMaxDepth > 0 && pMaxCalls > 0;
+		aMaxDepth = pMaxDepth;
+		aMaxCalls = pMaxCalls;
+		aFold = pFold;
+	}
+	
+	/**
+	 * Imports a trace in the text format.
+	 * 
+	 * @param pTrace The trace to read. It is not closed.
+	 * @param pBuilder The builder for the diagram to import into.
+	 * @return An operation that adds the calls to the diagram, and statistics about the import.
+	 * @throws IOException If pTrace cannot be read or has a malformed line.
+	 * @pre pTrace != null && pBuilder != null
+	 */
+	public Result importTrace(Reader pTrace, SequenceDiagramBuilder pBuilder) throws IOException
+	{
+		assert pTrace != null && pBuilder != null;
+		long start = System.nanoTime();
+		Trace trace = new Trace(pBuilder);
+		BufferedReader reader = pTrace instanceof BufferedReader ? (BufferedReader) pTrace : new BufferedReader(pTrace);
+		int lineNumber = 0;
+		for( String line = reader.readLine(); line != null; line = reader.readLine() )
+		{
+			lineNumber++;
+			line = line.trim();
+			if( line.isEmpty() || line.charAt(0) == '#' )
+			{
+				continue;
+			}
+			if( line.charAt(0) == '>' )
+			{
+				String[] tokens = line.substring(1).trim().split("\\s+", 3);
+				if( tokens.length < 3 )
+				{
+					throw new IOException(String.format("Malformed call at line %d: %s", lineNumber, line));
+				}
+				trace.enter(tokens[0], tokens[1], tokens[2]);
+			}
+			else if( line.equals("<") )
+			{
+				trace.exit();
+			}
+			else
+			{
+				throw new IOException(String.format("Malformed event at line %d: %s", lineNumber, line));
+			}
+		}
+		return trace.finish(start);
+	}
+	
+	/**
+	 * Imports the execution samples of a thread in a Java Flight Recorder recording. 
+	 * 
+	 * @param pRecording The recording file.
+	 * @param pThread The name of the thread whose samples to import, or null for 
+	 *     the thread with the most samples.
+	 * @param pBuilder The builder for the diagram to import into.
+	 * @return An operation that adds the calls to the diagram, and statistics about the import.
+	 * @throws IOException If pRecording cannot be read.
+	 * @pre pRecording != null && pBuilder != null
+	 */
+	public Result importRecording(Path pRecording, String pThread, SequenceDiagramBuilder pBuilder) throws IOException
+	{
+		assert pRecording != null && pBuilder != null;
+		long start = System.nanoTime();
+		Trace trace = new Trace(pBuilder);
+		String thread = pThread;
+		if( thread == null )
+		{
+			List<String> threads = sampledThreads(pRecording);
+			if( threads.isEmpty() )
+			{
+				return trace.finish(start);
+			}
+			thread = threads.get(0);
+		}
+		List<String> previous = new ArrayList<>();
+		try( RecordingFile recording = new RecordingFile(pRecording) )
+		{
+			while( recording.hasMoreEvents() )
+			{
+				RecordedEvent event = recording.readEvent();
+				if( !event.getEventType().getName().equals(EXECUTION_SAMPLE) || event.getStackTrace() == null )
+				{
+					continue;
+				}
+				RecordedThread sampled = event.getThread("sampledThread");
+				if( sampled == null || !thread.equals(sampled.getJavaName()) )
+				{
+					continue;
+				}
+				// The frames are from the top of the stack, and each one is a type and a method.
+				List<RecordedFrame> frames = event.getStackTrace().getFrames();
+				List<String> stack = new ArrayList<>();
+				for( int i = frames.size() - 1; i >= 0; i-- )
+				{
+					if( frames.get(i).isJavaFrame() )
+					{
+						stack.add(frames.get(i).getMethod().getType().getName());
+						stack.add(frames.get(i).getMethod().getName());
+					}
+				}
+				int common = 0;
+				while( common < previous.size() && common < stack.size() && 
+						previous.get(common).equals(stack.get(common)) && previous.get(common + 1).equals(stack.get(common + 1)) )
+				{
+					common += 2;
+				}
+				for( int i = common; i < previous.size(); i += 2 )
+				{
+					trace.exit();
+				}
+				for( int i = common; i < stack.size(); i += 2 )
+				{
+					trace.enter(stack.get(i), stack.get(i), stack.get(i + 1));
+				}
+				previous = stack;
+			}
+		}
+		return trace.finish(start);
+	}
+	
+	/**
+	 * Finds the threads that have execution samples in a recording.
+	 * 
+	 * @param pRecording The recording file.
+	 * @return The names of the sampled threads, from the one with the most samples 
+	 *     to the one with the fewest.
+	 * @throws IOException If pRecording cannot be read.
+	 * @pre pRecording != null
+	 */
+	public static List<String> sampledThreads(Path pRecording) throws IOException
+	{
+		assert pRecording != null;
+		Map<String, Integer> samples = new HashMap<>();
+		try( RecordingFile recording = new RecordingFile(pRecording) )
+		{
+			while( recording.hasMoreEvents() )
+			{
+				RecordedEvent event = recording.readEvent();
+				if( !event.getEventType().getName().equals(EXECUTION_SAMPLE) || event.getStackTrace() == null )
+				{
+					continue;
+				}
+				RecordedThread sampled = event.getThread("sampledThread");
+				if( sampled != null && sampled.getJavaName() != null )
+				{
+					samples.merge(sampled.getJavaName(), 1, Integer::sum);
+				}
+			}
+		}
+		return samples.entrySet().stream()
+				.sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList());
+	}
+	
+	private static String simpleName(String pType)
+	{
+		return pType.substring(pType.lastIndexOf('.') + 1).replace('$', '.');
+	}
+	
+	private static long mix(long pHash, long pValue)
+	{
+		return (pHash ^ pValue) * PRIME;
+	}
+	
+	/*
+	 * An implicit parameter node and the call nodes that it will have.
+	 */
+	private static final class Lifeline
+	{
+		private final String aObject;
+		private final ImplicitParameterNode aNode = new ImplicitParameterNode();
+		private final List<CallNode> aCalls = new ArrayList<>();
+		private int aOpenCalls;
+		private int aMaxNesting;
+		
+		Lifeline(String pObject, String pName)
+		{
+			aObject = pObject;
+			aNode.setName(pName);
+		}
+	}
+	
+	/*
+	 * A call in progress. The marks are the number of lifelines, calls and edges
+	 * before the call, and the hash identifies the call and, once it returns, its callees.
+	 */
+	private static final class Frame
+	{
+		private final Lifeline aLifeline;
+		private CallNode aCall;
+		private final String aMethod;
+		private final boolean aConstructor;
+		private final int aLifelineMark;
+		private final int aCallMark;
+		private final int aEdgeMark;
+		private long aHash;
+		/* The call edge and the hash of the last callee that returned, and the number of times it was repeated. */
+		private CallEdge aLastEdge;
+		private long aLastHash;
+		private int aRepetitions;
+		private CallNode aFirstCallee;
+		private String aFirstMethod;
+		private int aCallees;
+		
+		Frame(Lifeline pLifeline, CallNode pCall, String pMethod, boolean pConstructor, long pHash, 
+				int pLifelineMark, int pCallMark, int pEdgeMark)
+		{
+			aLifeline = pLifeline;
+			aCall = pCall;
+			aMethod = pMethod;
+			aConstructor = pConstructor;
+			aHash = pHash;
+			aLifelineMark = pLifelineMark;
+			aCallMark = pCallMark;
+			aEdgeMark = pEdgeMark;
+		}
+	}
+	
+	/*
+	 * The state of an import: the calls in progress, and the elements created so far.
+	 */
+	private final class Trace
+	{
+		private final SequenceDiagramBuilder aBuilder;
+		private final Map<String, Lifeline> aObjects = new HashMap<>();
+		private final List<Lifeline> aLifelines = new ArrayList<>();
+		/* The lifeline of each call node, in the order they were created. */
+		private final List<Lifeline> aCallOwners = new ArrayList<>();
+		private final List<Edge> aEdges = new ArrayList<>();
+		/* The calls in progress, below a frame for the callers of the first calls. */
+		private final Deque<Frame> aStack = new ArrayDeque<>();
+		private final Frame aRoot = new Frame(null, null, "", false, 0, 0, 0, 0);
+		private int aSkipped;
+		private int aEvents;
+		private boolean aTruncated;
+		
+		Trace(SequenceDiagramBuilder pBuilder)
+		{
+			aBuilder = pBuilder;
+			aStack.push(aRoot);
+		}
+		
+		void enter(String pObject, String pType, String pMethod)
+		{
+			aEvents++;
+			if( aSkipped > 0 || aStack.size() > aMaxDepth || aCallOwners.size() >= aMaxCalls )
+			{
+				aTruncated |= aCallOwners.size() >= aMaxCalls;
+				aSkipped++;
+				return;
+			}
+			Frame caller = aStack.peek();
+			if( caller == aRoot && aRoot.aCallees == 1 && aRoot.aCall == null )
+			{
+				addEntryPoint();
+			}
+			int lifelineMark = aLifelines.size();
+			int edgeMark = aEdges.size();
+			Lifeline lifeline = aObjects.get(pObject);
+			boolean constructor = false;
+			if( lifeline == null )
+			{
+				String name = pObject.equals(pType) ? ":" + simpleName(pType) : pObject + ":" + simpleName(pType);
+				lifeline = new Lifeline(pObject, name);
+				aObjects.put(pObject, lifeline);
+				aLifelines.add(lifeline);
+				constructor = pMethod.equals(CONSTRUCTOR) && caller.aCall != null;
+			}
+			int callMark = aCallOwners.size();
+			CallNode call = new CallNode();
+			lifeline.aCalls.add(call);
+			aCallOwners.add(lifeline);
+			lifeline.aMaxNesting = Math.max(lifeline.aMaxNesting, lifeline.aOpenCalls);
+			lifeline.aOpenCalls++;
+			if( caller.aCall != null )
+			{
+				CallEdge edge = constructor ? new ConstructorEdge() : new CallEdge();
+				if( !constructor )
+				{
+					edge.setMiddleLabel(pMethod);
+				}
+				connect(edge, caller.aCall, call);
+			}
+			else if( caller.aCallees == 0 )
+			{
+				caller.aFirstCallee = call;
+				caller.aFirstMethod = pMethod;
+			}
+			caller.aCallees++;
+			long hash = mix(mix(mix(pType.hashCode(), pMethod.hashCode()), constructor ? 1 : 0), 
+					lifeline == caller.aLifeline ? 1 : 0);
+			aStack.push(new Frame(lifeline, call, pMethod, constructor, hash, lifelineMark, callMark, edgeMark));
+		}
+		
+		void exit()
+		{
+			aEvents++;
+			if( aSkipped > 0 )
+			{
+				aSkipped--;
+				return;
+			}
+			if( aStack.peek() == aRoot )
+			{
+				return; // A return from a call that started before the trace
+			}
+			Frame frame = aStack.pop();
+			Frame caller = aStack.peek();
+			frame.aLifeline.aOpenCalls--;
+			CallEdge edge = caller.aCall == null ? null : (CallEdge) aEdges.get(frame.aEdgeMark);
+			if( aFold && !frame.aConstructor && caller.aLastEdge != null && caller.aLastHash == frame.aHash )
+			{
+				fold(frame);
+				caller.aRepetitions++;
+				caller.aLastEdge.setMiddleLabel(String.format("%s (x%d)", frame.aMethod, caller.aRepetitions + 1));
+			}
+			else
+			{
+				// The entry point is not part of the program, so there is no return to it
+				if( caller != aRoot && caller.aLifeline != frame.aLifeline )
+				{
+					connect(new ReturnEdge(), frame.aCall, caller.aCall);
+				}
+				caller.aLastEdge = edge;
+				caller.aLastHash = frame.aHash;
+				caller.aRepetitions = 0;
+			}
+			caller.aHash = mix(caller.aHash, frame.aHash);
+		}
+		
+		/*
+		 * Removes the elements created since pFrame was entered.
+		 */
+		private void fold(Frame pFrame)
+		{
+			for( int i = aCallOwners.size() - 1; i >= pFrame.aCallMark; i-- )
+			{
+				List<CallNode> calls = aCallOwners.remove(i).aCalls;
+				calls.remove(calls.size() - 1);
+			}
+			for( int i = aLifelines.size() - 1; i >= pFrame.aLifelineMark; i-- )
+			{
+				aObjects.remove(aLifelines.remove(i).aObject);
+			}
+			aEdges.subList(pFrame.aEdgeMark, aEdges.size()).clear();
+		}
+		
+		/*
+		 * Adds a lifeline with a call to the first calls of the trace, once there 
+		 * is more than one, so that they are shown one after the other.
+		 */
+		private void addEntryPoint()
+		{
+			Lifeline lifeline = new Lifeline("", ":Trace");
+			aRoot.aCall = new CallNode();
+			lifeline.aCalls.add(aRoot.aCall);
+			aLifelines.add(0, lifeline);
+			CallEdge edge = new CallEdge();
+			edge.connect(aRoot.aCall, aRoot.aFirstCallee, aBuilder.getDiagram());
+			edge.setMiddleLabel(aRoot.aFirstMethod);
+			aEdges.add(0, edge);
+			aRoot.aLastEdge = edge;
+		}
+		
+		private void connect(Edge pEdge, CallNode pStart, CallNode pEnd)
+		{
+			pEdge.connect(pStart, pEnd, aBuilder.getDiagram());
+			aEdges.add(pEdge);
+		}
+		
+		/*
+		 * Adds the call nodes to their lifelines. The lifelines are placed later,
+		 * by place, because placing them measures their text.
+		 */
+		Result finish(long pStart)
+		{
+			List<DiagramElement> elements = new ArrayList<>();
+			for( Lifeline lifeline : aLifelines )
+			{
+				lifeline.aCalls.forEach(lifeline.aNode::addChild);
+				elements.add(lifeline.aNode);
+			}
+			elements.addAll(aEdges);
+			DiagramOperation operation = aBuilder.createAddElementsOperation(elements);
+			long nanos = System.nanoTime() - pStart;
+			IMPORT_TIMER.record(nanos);
+			return new Result(operation, new ArrayList<>(aLifelines), aEvents, 
+					aCallOwners.size() + (aRoot.aCall == null ? 0 : 1), aTruncated, nanos);
+		}
+	}
+	
+	/*
+	 * Places the lifelines from left to right, in the order of their first call, 
+	 * with enough space for their nested call nodes.
+	 */
+	private static void place(List<Lifeline> pLifelines)
+	{
+		int x = 0;
+		for( Lifeline lifeline : pLifelines )
+		{
+			lifeline.aNode.moveTo(new Point(x, 0));
+			int width = IMPLICIT_PARAMETER_NODE_VIEWER.getTopRectangle(lifeline.aNode).getWidth();
+			x += Math.max(width, width / 2 + NESTING_OFFSET * (lifeline.aMaxNesting + 1)) + GAP;
+		}
+	}
+	
+	/**
+	 * The outcome of an import.
+	 */
+	public static final class Result
+	{
+		private final DiagramOperation aOperation;
+		private final List<Lifeline> aLifelines;
+		private final int aEvents;
+		private final int aCalls;
+		private final boolean aTruncated;
+		private final long aNanos;
+		private boolean aPlaced = false;
+		
+		private Result(DiagramOperation pOperation, List<Lifeline> pLifelines, int pEvents, int pCalls, 
+				boolean pTruncated, long pNanos)
+		{
+			aOperation = pOperation;
+			aLifelines = pLifelines;
+			aEvents = pEvents;
+			aCalls = pCalls;
+			aTruncated = pTruncated;
+			aNanos = pNanos;
+		}
+		
+		/**
+		 * Places the lifelines the first time it is called. Placing the lifelines 
+		 * measures their text, so this method must be called on the JavaFX 
+		 * application thread, while the import itself can run on any thread.
+		 * 
+		 * @return The operation that adds the calls to the diagram. 
+		 *     The calls are only added when it is executed.
+		 */
+		public DiagramOperation getOperation()
+		{
+			if( !aPlaced )
+			{
+				place(aLifelines);
+				aPlaced = true;
+			}
+			return aOperation;
+		}
+		
+		/**
+		 * @return The number of calls and returns that were read.
+		 */
+		public int getEventCount()
+		{
+			return aEvents;
+		}
+		
+		/**
+		 * @return The number of call nodes in the diagram.
+		 */
+		public int getCallCount()
+		{
+			return aCalls;
+		}
+		
+		/**
+		 * @return True if calls were left out because the maximum number of calls was reached.
+		 */
+		public boolean isTruncated()
+		{
+			return aTruncated;
+		}
+		
+		/**
+		 * @return The duration of the import, in nanoseconds.
+		 */
+		public long getNanos()
+		{
+			return aNanos;
+		}
+		
+		/**
+		 * @return The number of events read per second.
+		 */
+		public double getEventsPerSecond()
+		{
+			return aNanos == 0 ? 0 : aEvents * 1e9 / aNanos;
+		}
+	}
+}
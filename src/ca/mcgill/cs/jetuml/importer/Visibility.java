@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+/**
+ * The visibility of a class or a member, from the most to the least visible.
+ */
+public enum Visibility
+{
+	PUBLIC("+"), PROTECTED("#"), PACKAGE("~"), PRIVATE("-");
+	
+	private final String aSymbol;
+	
+	Visibility(String pSymbol)
+	{
+		aSymbol = pSymbol;
+	}
+	
+	/**
+	 * @return The UML symbol for this visibility, as in "+" for public.
+	 */
+	public String getSymbol()
+	{
+		return aSymbol;
+	}
+	
+	/**
+	 * @param pMinimum A visibility.
+	 * @return True if this visibility is pMinimum or more visible than it.
+	 * @pre pMinimum != null
+	 */
+	public boolean isAtLeast(Visibility pMinimum)
+	{
+		assert pMinimum != null;
+		return ordinal() <= pMinimum.ordinal();
+	}
+	
+	/**
+	 * @param pAccess The access flags of a class or a member in a class file.
+	 * @return The visibility declared by the flags.
+	 */
+	static Visibility of(int pAccess)
+	{
+		if( (pAccess & ClassFile.ACC_PUBLIC) != 0 )
+		{
+			return PUBLIC;
+		}
+		else if( (pAccess & ClassFile.ACC_PROTECTED) != 0 )
+		{
+			return PROTECTED;
+		}
+		else if( (pAccess & ClassFile.ACC_PRIVATE) != 0 )
+		{
+			return PRIVATE;
+		}
+		return PACKAGE;
+	}
+}
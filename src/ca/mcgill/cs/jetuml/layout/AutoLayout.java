@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.CompoundOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramBuilder;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+
+/**
+ * Lays out the nodes of class and object diagrams automatically, 
+ * with a force-directed engine. Only the root nodes of a diagram 
+ * are placed: their children move with them, and an edge between 
+ * children connects their root nodes. The result is a single operation
+ * that moves all the nodes, so that it can be undone in one step. The layout 
+ * can be computed on another thread, as a LayoutTask.
+ */
+public final class AutoLayout
+{
+	private static final int MAX_ITERATIONS = 300;
+	/* Distance between the layout and the top-left corner of the diagram. */
+	private static final int MARGIN = 20;
+	private static final Metrics.Timer LAYOUT_TIMER = Metrics.timer(Metrics.LAYOUT_FORCE_DIRECTED);
+	
+	private AutoLayout() {}
+	
+	/**
+	 * @param pType A diagram type.
+	 * @return True if diagrams of type pType can be laid out automatically.
+	 */
+	public static boolean supports(DiagramType pType)
+	{
+		return pType == DiagramType.CLASS || pType == DiagramType.OBJECT;
+	}
+	
+	/**
+	 * Lays out the diagram of pBuilder on the common fork-join pool.
+	 * 
+	 * @param pBuilder The builder for the diagram to lay out.
+	 * @return An operation that moves the root nodes of the diagram to their
+	 *     new position. Executing it applies the layout.
+	 * @pre pBuilder != null && supports(pBuilder.getDiagram().getType())
+	 */
+	public static CompoundOperation createLayoutOperation(DiagramBuilder pBuilder)
+	{
+		return createLayoutOperation(pBuilder, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Lays out the diagram of pBuilder on pPool.
+	 * 
+	 * @param pBuilder The builder for the diagram to lay out.
+	 * @param pPool The pool on which to run the layout engine.
+	 * @return An operation that moves the root nodes of the diagram to their
+	 *     new position. Executing it applies the layout.
+	 * @pre pBuilder != null && pPool != null && supports(pBuilder.getDiagram().getType())
+	 */
+	public static CompoundOperation createLayoutOperation(DiagramBuilder pBuilder, ForkJoinPool pPool)
+	{
+		assert pPool != null;
+		LayoutTask task = prepare(pBuilder);
+		task.compute(pPool);
+		return task.createOperation();
+	}
+	
+	/**
+	 * Prepares a layout of the diagram of pBuilder, which captures the nodes
+	 * and edges of the diagram. Must be called on the thread that modifies 
+	 * the diagram.
+	 * 
+	 * @param pBuilder The builder for the diagram to lay out.
+	 * @return A layout to compute.
+	 * @pre pBuilder != null && supports(pBuilder.getDiagram().getType())
+	 */
+	public static LayoutTask prepare(DiagramBuilder pBuilder)
+	{
+		assert pBuilder != null && supports(pBuilder.getDiagram().getType());
+		Diagram diagram = pBuilder.getDiagram();
+		List<Node> nodes = new ArrayList<>(diagram.rootNodes());
+		Map<Node, Integer> indices = new IdentityHashMap<>();
+		Rectangle[] bounds = new Rectangle[nodes.size()];
+		double[] x = new double[nodes.size()];
+		double[] y = new double[nodes.size()];
+		double[] radii = new double[nodes.size()];
+		for( int i = 0; i < nodes.size(); i++ )
+		{
+			indices.put(nodes.get(i), i);
+			bounds[i] = NodeViewerRegistry.getBounds(nodes.get(i));
+			x[i] = bounds[i].getCenterX();
+			y[i] = bounds[i].getCenterY();
+			radii[i] = Math.hypot(bounds[i].getWidth(), bounds[i].getHeight()) / 2;
+		}
+		List<int[]> edges = new ArrayList<>();
+		for( Edge edge : diagram.edges() )
+		{
+			// The end of an edge to a point is not a node of the diagram.
+			Integer source = indices.get(edge.getStart().getRoot());
+			Integer target = indices.get(edge.getEnd().getRoot());
+			if( source != null && target != null && !source.equals(target) )
+			{
+				edges.add(new int[] {source, target});
+			}
+		}
+		int[] sources = new int[edges.size()];
+		int[] targets = new int[edges.size()];
+		for( int j = 0; j < edges.size(); j++ )
+		{
+			sources[j] = edges.get(j)[0];
+			targets[j] = edges.get(j)[1];
+		}
+		
+		return new LayoutTask(pBuilder, nodes, pPool -> 
+		{
+			long start = LAYOUT_TIMER.start();
+			new ForceDirectedLayout(pPool, MAX_ITERATIONS).layout(x, y, radii, sources, targets);
+			LAYOUT_TIMER.stop(start);
+			
+			double minX = Double.POSITIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY;
+			for( int i = 0; i < bounds.length; i++ )
+			{
+				minX = Math.min(minX, x[i] - bounds[i].getWidth() / 2.0);
+				minY = Math.min(minY, y[i] - bounds[i].getHeight() / 2.0);
+			}
+			Point[] positions = new Point[bounds.length];
+			for( int i = 0; i < bounds.length; i++ )
+			{
+				positions[i] = new Point((int) Math.round(x[i] - bounds[i].getWidth() / 2.0 - minX) + MARGIN, 
+						(int) Math.round(y[i] - bounds[i].getHeight() / 2.0 - minY) + MARGIN);
+			}
+			return positions;
+		});
+	}
+}
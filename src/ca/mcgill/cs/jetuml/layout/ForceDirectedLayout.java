@@ -0,0 +1,531 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A force-directed layout engine for graphs of circular nodes of 
+ * different radii. Connected nodes attract each other, and all nodes 
+ * repel each other, until the layout reaches an equilibrium. The 
+ * repulsion between all pairs of nodes is approximated with a 
+ * Barnes-Hut quadtree, so that each iteration takes O(n log n) time. 
+ * The forces on the nodes are computed in parallel, on a fork-join pool.
+ * 
+ * The engine works in place on arrays of coordinates, which 
+ * represent the centers of the nodes. It is not thread-safe, but 
+ * different engines can be used concurrently.
+ */
+public final class ForceDirectedLayout
+{
+	/* Ratio of the size of a cell of the quadtree to its distance
+	 * under which the cell is treated as a single body. */
+	private static final double THETA = 0.8;
+	/* Number of nodes under which the forces are computed sequentially. */
+	private static final int SEQUENTIAL_THRESHOLD = 256;
+	/* Fraction of the temperature kept after each iteration. */
+	private static final double COOLING = 0.95;
+	/* The temperature never goes under this fraction of its initial value. */
+	private static final double MIN_TEMPERATURE = 0.01;
+	/* Layouts stop when no node moves further than this, in pixels. */
+	private static final double CONVERGENCE = 0.5;
+	/* Strength of the pull of each node towards the center of the graph. */
+	private static final double GRAVITY = 0.05;
+	private static final double MIN_DISTANCE = 0.01;
+	/* Fraction of the extent of the initial layout that a node can move in the first iteration. */
+	private static final double INITIAL_TEMPERATURE = 0.1;
+	/* The golden angle, pi * (3 - sqrt(5)) radians, used to spread coincident nodes. */
+	private static final double GOLDEN_ANGLE = 2.399963229728653;
+	
+	private final ForkJoinPool aPool;
+	private final int aMaxIterations;
+	
+	/**
+	 * Creates an engine that runs on pPool.
+	 * 
+	 * @param pPool The pool on which to compute the forces.
+	 * @param pMaxIterations The maximum number of iterations of a layout.
+	 * @pre pPool != null && pMaxIterations > 0
+	 */
+	public ForceDirectedLayout(ForkJoinPool pPool, int pMaxIterations)
+	{
+		assert pPool != null && pMaxIterations > 0;
+		aPool = pPool;
+		aMaxIterations = pMaxIterations;
+	}
+	
+	/**
+	 * Lays out a graph in place. The graph has pX.length nodes. Node i has its
+	 * center at (pX[i], pY[i]) and radius pRadii[i]. Edge j connects nodes
+	 * pSources[j] and pTargets[j]. The nodes start from the positions in pX and pY,
+	 * and nodes that share a position are first spread around it.
+	 * 
+	 * @param pX The x coordinates of the centers of the nodes, updated by the layout.
+	 * @param pY The y coordinates of the centers of the nodes, updated by the layout.
+	 * @param pRadii The radii of the nodes.
+	 * @param pSources The first node of each edge.
+	 * @param pTargets The second node of each edge.
+	 * @return The number of iterations until the layout converged, or the maximum 
+	 *     number of iterations if it did not.
+	 * @pre pX.length == pY.length && pX.length == pRadii.length && pSources.length == pTargets.length
+	 */
+	public int layout(double[] pX, double[] pY, double[] pRadii, int[] pSources, int[] pTargets)
+	{
+		assert pX.length == pY.length && pX.length == pRadii.length && pSources.length == pTargets.length;
+		final int size = pX.length;
+		if( size < 2 )
+		{
+			return 0;
+		}
+		Graph graph = new Graph(pX, pY, pRadii, pSources, pTargets);
+		spreadCoincidentNodes(graph);
+		double temperature = Math.max(graph.aIdealLength * Math.sqrt(size), graph.extent() * INITIAL_TEMPERATURE);
+		final double minTemperature = temperature * MIN_TEMPERATURE;
+		for( int iteration = 1; iteration <= aMaxIterations; iteration++ )
+		{
+			graph.aTree.build(pX, pY);
+			graph.computeCenter();
+			aPool.invoke(new RangeTask(0, size, SEQUENTIAL_THRESHOLD, graph::computeDisplacements));
+			final double limit = temperature;
+			double moved = aPool.invoke(new RangeTask(0, size, SEQUENTIAL_THRESHOLD, (pStart, pEnd) -> graph.move(pStart, pEnd, limit)));
+			if( moved < CONVERGENCE )
+			{
+				return iteration;
+			}
+			temperature = Math.max(minTemperature, temperature * COOLING);
+		}
+		return aMaxIterations;
+	}
+	
+	/*
+	 * Places nodes that have the same center as an earlier node on a 
+	 * spiral around it, since forces between coincident nodes have no direction.
+	 */
+	private static void spreadCoincidentNodes(Graph pGraph)
+	{
+		Set<Long> positions = new HashSet<>();
+		for( int i = 0; i < pGraph.aX.length; i++ )
+		{
+			double x = pGraph.aX[i];
+			double y = pGraph.aY[i];
+			int turn = 0;
+			while( !positions.add(key(x, y)) )
+			{
+				turn++;
+				double radius = pGraph.aIdealLength * Math.sqrt(turn);
+				x = pGraph.aX[i] + radius * Math.cos(turn * GOLDEN_ANGLE);
+				y = pGraph.aY[i] + radius * Math.sin(turn * GOLDEN_ANGLE);
+			}
+			pGraph.aX[i] = x;
+			pGraph.aY[i] = y;
+		}
+	}
+	
+	private static long key(double pX, double pY)
+	{
+		return (Math.round(pX) << Integer.SIZE) ^ Integer.toUnsignedLong((int) Math.round(pY));
+	}
+	
+	/*
+	 * The nodes, their adjacency lists in compressed form, and the 
+	 * displacement of each node in the current iteration.
+	 */
+	private static final class Graph
+	{
+		private final double[] aX;
+		private final double[] aY;
+		private final double[] aRadii;
+		private final double[] aDisplacementX;
+		private final double[] aDisplacementY;
+		private final int[] aNeighborStart;
+		private final int[] aNeighbors;
+		private final double aIdealLength;
+		private final QuadTree aTree;
+		private double aCenterX;
+		private double aCenterY;
+		
+		Graph(double[] pX, double[] pY, double[] pRadii, int[] pSources, int[] pTargets)
+		{
+			aX = pX;
+			aY = pY;
+			aRadii = pRadii;
+			aDisplacementX = new double[pX.length];
+			aDisplacementY = new double[pX.length];
+			aNeighborStart = new int[pX.length + 1];
+			aNeighbors = new int[2 * pSources.length];
+			for( int j = 0; j < pSources.length; j++ )
+			{
+				aNeighborStart[pSources[j] + 1]++;
+				aNeighborStart[pTargets[j] + 1]++;
+			}
+			for( int i = 0; i < pX.length; i++ )
+			{
+				aNeighborStart[i + 1] += aNeighborStart[i];
+			}
+			int[] next = aNeighborStart.clone();
+			for( int j = 0; j < pSources.length; j++ )
+			{
+				aNeighbors[next[pSources[j]]++] = pTargets[j];
+				aNeighbors[next[pTargets[j]]++] = pSources[j];
+			}
+			double totalRadius = 0;
+			for( double radius : pRadii )
+			{
+				totalRadius += radius;
+			}
+			aIdealLength = Math.max(1, 2 * totalRadius / pRadii.length);
+			aTree = new QuadTree(pX.length, pRadii);
+		}
+		
+		/*
+		 * Returns the length of the diagonal of the box around the centers of the nodes.
+		 */
+		double extent()
+		{
+			double minX = Double.POSITIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY;
+			double maxY = Double.NEGATIVE_INFINITY;
+			for( int i = 0; i < aX.length; i++ )
+			{
+				minX = Math.min(minX, aX[i]);
+				minY = Math.min(minY, aY[i]);
+				maxX = Math.max(maxX, aX[i]);
+				maxY = Math.max(maxY, aY[i]);
+			}
+			return Math.hypot(maxX - minX, maxY - minY);
+		}
+		
+		void computeCenter()
+		{
+			double x = 0;
+			double y = 0;
+			for( int i = 0; i < aX.length; i++ )
+			{
+				x += aX[i];
+				y += aY[i];
+			}
+			aCenterX = x / aX.length;
+			aCenterY = y / aX.length;
+		}
+		
+		/*
+		 * The repulsion between nodes is k^2/d and the attraction between 
+		 * connected nodes is d^2/k, where k is the ideal length of an edge and d
+		 * is the distance between the borders of the nodes when it is known.
+		 */
+		double computeDisplacements(int pStart, int pEnd)
+		{
+			final double idealSquared = aIdealLength * aIdealLength;
+			int[] stack = new int[aTree.maxStackSize()];
+			for( int i = pStart; i < pEnd; i++ )
+			{
+				double forceX = 0;
+				double forceY = 0;
+				int top = 0;
+				stack[top++] = 0;
+				while( top > 0 )
+				{
+					int cell = stack[--top];
+					int mass = aTree.aMass[cell];
+					if( mass == 0 || aTree.aBody[cell] == i && mass == 1 )
+					{
+						continue;
+					}
+					double dx = aX[i] - aTree.aCenterX[cell];
+					double dy = aY[i] - aTree.aCenterY[cell];
+					double distance = Math.sqrt(dx * dx + dy * dy);
+					if( aTree.aBody[cell] >= 0 )
+					{
+						double gap = Math.max(MIN_DISTANCE, distance - aRadii[i] - aTree.aRadius[cell]);
+						if( distance < MIN_DISTANCE )
+						{
+							dx = Math.cos(i);
+							dy = Math.sin(i);
+							distance = 1;
+						}
+						double force = mass * idealSquared / gap / distance;
+						forceX += dx * force;
+						forceY += dy * force;
+					}
+					else if( aTree.aSize[cell] < THETA * distance )
+					{
+						double force = mass * idealSquared / distance / distance;
+						forceX += dx * force;
+						forceY += dy * force;
+					}
+					else
+					{
+						for( int quadrant = 0; quadrant < 4; quadrant++ )
+						{
+							int child = aTree.aChildren[4 * cell + quadrant];
+							if( child >= 0 )
+							{
+								stack[top++] = child;
+							}
+						}
+					}
+				}
+				for( int k = aNeighborStart[i]; k < aNeighborStart[i + 1]; k++ )
+				{
+					int j = aNeighbors[k];
+					double dx = aX[j] - aX[i];
+					double dy = aY[j] - aY[i];
+					double distance = Math.sqrt(dx * dx + dy * dy);
+					if( distance >= MIN_DISTANCE )
+					{
+						double gap = Math.max(0, distance - aRadii[i] - aRadii[j]);
+						double force = gap * gap / aIdealLength / distance;
+						forceX += dx * force;
+						forceY += dy * force;
+					}
+				}
+				forceX += (aCenterX - aX[i]) * GRAVITY;
+				forceY += (aCenterY - aY[i]) * GRAVITY;
+				aDisplacementX[i] = forceX;
+				aDisplacementY[i] = forceY;
+			}
+			return 0;
+		}
+		
+		/*
+		 * Moves each node along its displacement, by at most pLimit, and 
+		 * returns the largest distance moved.
+		 */
+		double move(int pStart, int pEnd, double pLimit)
+		{
+			double moved = 0;
+			for( int i = pStart; i < pEnd; i++ )
+			{
+				double length = Math.sqrt(aDisplacementX[i] * aDisplacementX[i] + aDisplacementY[i] * aDisplacementY[i]);
+				if( length > 0 )
+				{
+					double step = Math.min(length, pLimit);
+					aX[i] += aDisplacementX[i] / length * step;
+					aY[i] += aDisplacementY[i] / length * step;
+					moved = Math.max(moved, step);
+				}
+			}
+			return moved;
+		}
+	}
+	
+	/*
+	 * A Barnes-Hut quadtree stored in parallel arrays. Cell 0 is the root. 
+	 * A leaf holds the index of its body, or of its first body if its bodies are
+	 * too close to be separated. Internal cells hold -1. Each cell holds the number 
+	 * of bodies it contains and their center of mass. The arrays are reused 
+	 * from one iteration to the next.
+	 */
+	private static final class QuadTree
+	{
+		private static final int MAX_DEPTH = 48;
+		
+		private final double[] aRadii;
+		private int aCells;
+		private int aDepth;
+		private double[] aMinX;
+		private double[] aMinY;
+		private double[] aSize;
+		private double[] aCenterX;
+		private double[] aCenterY;
+		private double[] aRadius;
+		private int[] aMass;
+		private int[] aBody;
+		private int[] aChildren;
+		
+		QuadTree(int pBodies, double[] pRadii)
+		{
+			aRadii = pRadii;
+			allocate(2 * pBodies + 1);
+		}
+		
+		private void allocate(int pCapacity)
+		{
+			aMinX = new double[pCapacity];
+			aMinY = new double[pCapacity];
+			aSize = new double[pCapacity];
+			aCenterX = new double[pCapacity];
+			aCenterY = new double[pCapacity];
+			aRadius = new double[pCapacity];
+			aMass = new int[pCapacity];
+			aBody = new int[pCapacity];
+			aChildren = new int[4 * pCapacity];
+		}
+		
+		int maxStackSize()
+		{
+			return 3 * (aDepth + 1) + 4;
+		}
+		
+		void build(double[] pX, double[] pY)
+		{
+			double minX = Double.POSITIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY;
+			double maxY = Double.NEGATIVE_INFINITY;
+			for( int i = 0; i < pX.length; i++ )
+			{
+				minX = Math.min(minX, pX[i]);
+				minY = Math.min(minY, pY[i]);
+				maxX = Math.max(maxX, pX[i]);
+				maxY = Math.max(maxY, pY[i]);
+			}
+			aCells = 0;
+			aDepth = 0;
+			newCell(minX, minY, Math.max(MIN_DISTANCE, Math.max(maxX - minX, maxY - minY)));
+			for( int i = 0; i < pX.length; i++ )
+			{
+				insert(i, pX, pY);
+			}
+			for( int cell = 0; cell < aCells; cell++ )
+			{
+				aCenterX[cell] /= aMass[cell];
+				aCenterY[cell] /= aMass[cell];
+			}
+		}
+		
+		private int newCell(double pMinX, double pMinY, double pSize)
+		{
+			if( aCells == aMass.length )
+			{
+				grow();
+			}
+			int cell = aCells++;
+			aMinX[cell] = pMinX;
+			aMinY[cell] = pMinY;
+			aSize[cell] = pSize;
+			aCenterX[cell] = 0;
+			aCenterY[cell] = 0;
+			aRadius[cell] = 0;
+			aMass[cell] = 0;
+			aBody[cell] = -1;
+			for( int quadrant = 0; quadrant < 4; quadrant++ )
+			{
+				aChildren[4 * cell + quadrant] = -1;
+			}
+			return cell;
+		}
+		
+		private void grow()
+		{
+			double[] minX = aMinX;
+			double[] minY = aMinY;
+			double[] size = aSize;
+			double[] centerX = aCenterX;
+			double[] centerY = aCenterY;
+			double[] radius = aRadius;
+			int[] mass = aMass;
+			int[] body = aBody;
+			int[] children = aChildren;
+			allocate(2 * mass.length);
+			System.arraycopy(minX, 0, aMinX, 0, aCells);
+			System.arraycopy(minY, 0, aMinY, 0, aCells);
+			System.arraycopy(size, 0, aSize, 0, aCells);
+			System.arraycopy(centerX, 0, aCenterX, 0, aCells);
+			System.arraycopy(centerY, 0, aCenterY, 0, aCells);
+			System.arraycopy(radius, 0, aRadius, 0, aCells);
+			System.arraycopy(mass, 0, aMass, 0, aCells);
+			System.arraycopy(body, 0, aBody, 0, aCells);
+			System.arraycopy(children, 0, aChildren, 0, 4 * aCells);
+		}
+		
+		/*
+		 * Inserts body pBody by walking down from the root, accumulating its
+		 * position in each cell it goes through. A leaf whose body must share 
+		 * the cell is split, unless the maximal depth is reached.
+		 */
+		private void insert(int pBody, double[] pX, double[] pY)
+		{
+			int cell = 0;
+			int depth = 0;
+			while( true )
+			{
+				if( aMass[cell] == 0 )
+				{
+					aBody[cell] = pBody;
+					aRadius[cell] = aRadii[pBody];
+					add(cell, pBody, pX, pY);
+					break;
+				}
+				if( aBody[cell] >= 0 )
+				{
+					if( depth >= MAX_DEPTH )
+					{
+						aRadius[cell] = Math.max(aRadius[cell], aRadii[pBody]);
+						add(cell, pBody, pX, pY);
+						break;
+					}
+					// Splits the leaf: its body moves to a child.
+					int body = aBody[cell];
+					aBody[cell] = -1;
+					int child = childFor(cell, pX[body], pY[body]);
+					aBody[child] = body;
+					aRadius[child] = aRadii[body];
+					aMass[child] = 1;
+					aCenterX[child] = pX[body];
+					aCenterY[child] = pY[body];
+				}
+				add(cell, pBody, pX, pY);
+				cell = childFor(cell, pX[pBody], pY[pBody]);
+				depth++;
+				aDepth = Math.max(aDepth, depth);
+			}
+		}
+		
+		private void add(int pCell, int pBody, double[] pX, double[] pY)
+		{
+			aMass[pCell]++;
+			aCenterX[pCell] += pX[pBody];
+			aCenterY[pCell] += pY[pBody];
+		}
+		
+		/*
+		 * Returns the child of pCell that contains the point, creating it if necessary.
+		 */
+		private int childFor(int pCell, double pX, double pY)
+		{
+			double half = aSize[pCell] / 2;
+			int quadrant = 0;
+			double minX = aMinX[pCell];
+			double minY = aMinY[pCell];
+			if( pX >= minX + half )
+			{
+				quadrant += 1;
+				minX += half;
+			}
+			if( pY >= minY + half )
+			{
+				quadrant += 2;
+				minY += half;
+			}
+			int child = aChildren[4 * pCell + quadrant];
+			if( child < 0 )
+			{
+				child = newCell(minX, minY, half);
+				aChildren[4 * pCell + quadrant] = child;
+			}
+			return child;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.CompoundOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.edges.GeneralizationEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.StateTransitionEdge;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.edges.SegmentationStyleFactory;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+
+/**
+ * Lays out the generalization hierarchies of class diagrams and the 
+ * state machines of state diagrams in layers, with a layered engine. 
+ * In class diagrams, superclasses and interfaces are placed above the 
+ * types that extend or implement them; in state diagrams, transitions 
+ * point down as much as possible. Other edges do not constrain the layout. 
+ * In particular, dependencies are left out: they usually cross the hierarchies 
+ * and form cycles, so layering them would scatter the classes of a hierarchy 
+ * over more layers and bury the generalizations the layout is meant to show.
+ * As with the automatic layout, only the root nodes of a diagram are placed, 
+ * so that a package is laid out as a block with its content, and the result 
+ * is a single operation. The layout can be computed on another thread, as a 
+ * LayoutTask.
+ */
+public final class HierarchicalLayout
+{
+	/* Distance between the layout and the top-left corner of the diagram. */
+	private static final int MARGIN = 20;
+	/* Distance between two layers, which leaves room for the middle segment of a VHV edge. */
+	private static final int LAYER_GAP = 60;
+	/* Distance between two nodes of a layer, which leaves room for an HVH edge between them. */
+	private static final int NODE_GAP = 40;
+	private static final Metrics.Timer LAYOUT_TIMER = Metrics.timer(Metrics.LAYOUT_LAYERED);
+	
+	private HierarchicalLayout() {}
+	
+	/**
+	 * @param pType A diagram type.
+	 * @return True if diagrams of type pType can be laid out in layers.
+	 */
+	public static boolean supports(DiagramType pType)
+	{
+		return pType == DiagramType.CLASS || pType == DiagramType.STATE;
+	}
+	
+	/**
+	 * Lays out the diagram of pBuilder on the common fork-join pool.
+	 * 
+	 * @param pBuilder The builder for the diagram to lay out.
+	 * @return An operation that moves the root nodes of the diagram to their
+	 *     new position. Executing it applies the layout.
+	 * @pre pBuilder != null && supports(pBuilder.getDiagram().getType())
+	 */
+	public static CompoundOperation createLayoutOperation(DiagramBuilder pBuilder)
+	{
+		return createLayoutOperation(pBuilder, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Lays out the diagram of pBuilder on pPool.
+	 * 
+	 * @param pBuilder The builder for the diagram to lay out.
+	 * @param pPool The pool on which to run the layout engine.
+	 * @return An operation that moves the root nodes of the diagram to their
+	 *     new position. Executing it applies the layout.
+	 * @pre pBuilder != null && pPool != null && supports(pBuilder.getDiagram().getType())
+	 */
+	public static CompoundOperation createLayoutOperation(DiagramBuilder pBuilder, ForkJoinPool pPool)
+	{
+		assert pPool != null;
+		LayoutTask task = prepare(pBuilder);
+		task.compute(pPool);
+		return task.createOperation();
+	}
+	
+	/**
+	 * Prepares a layout of the diagram of pBuilder, which captures the nodes
+	 * and edges of the diagram. Must be called on the thread that modifies 
+	 * the diagram.
+	 * 
+	 * @param pBuilder The builder for the diagram to lay out.
+	 * @return A layout to compute.
+	 * @pre pBuilder != null && supports(pBuilder.getDiagram().getType())
+	 */
+	public static LayoutTask prepare(DiagramBuilder pBuilder)
+	{
+		assert pBuilder != null && supports(pBuilder.getDiagram().getType());
+		Diagram diagram = pBuilder.getDiagram();
+		List<Node> nodes = new ArrayList<>(diagram.rootNodes());
+		Map<Node, Integer> indices = new IdentityHashMap<>();
+		Rectangle[] bounds = new Rectangle[nodes.size()];
+		int[] widths = new int[nodes.size()];
+		int[] heights = new int[nodes.size()];
+		for( int i = 0; i < nodes.size(); i++ )
+		{
+			indices.put(nodes.get(i), i);
+			bounds[i] = NodeViewerRegistry.getBounds(nodes.get(i));
+			widths[i] = bounds[i].getWidth();
+			heights[i] = bounds[i].getHeight();
+		}
+		List<int[]> edges = new ArrayList<>();
+		for( Edge edge : diagram.edges() )
+		{
+			Node upper;
+			Node lower;
+			if( edge instanceof GeneralizationEdge )
+			{
+				upper = edge.getEnd();
+				lower = edge.getStart();
+			}
+			else if( edge instanceof StateTransitionEdge )
+			{
+				upper = edge.getStart();
+				lower = edge.getEnd();
+			}
+			else
+			{
+				continue;
+			}
+			Integer upperIndex = indices.get(upper.getRoot());
+			Integer lowerIndex = indices.get(lower.getRoot());
+			if( upperIndex != null && lowerIndex != null && !upperIndex.equals(lowerIndex) )
+			{
+				edges.add(new int[] {upperIndex, lowerIndex});
+			}
+		}
+		int[] uppers = new int[edges.size()];
+		int[] lowers = new int[edges.size()];
+		for( int j = 0; j < edges.size(); j++ )
+		{
+			uppers[j] = edges.get(j)[0];
+			lowers[j] = edges.get(j)[1];
+		}
+		
+		int gap = SegmentationStyleFactory.getMinimumSegmentationGap();
+		return new LayoutTask(pBuilder, nodes, pPool -> 
+		{
+			long start = LAYOUT_TIMER.start();
+			LayeredLayout.Result result = new LayeredLayout(pPool, Math.max(LAYER_GAP, gap), Math.max(NODE_GAP, gap))
+					.layout(widths, heights, uppers, lowers);
+			LAYOUT_TIMER.stop(start);
+			Point[] positions = new Point[widths.length];
+			for( int i = 0; i < widths.length; i++ )
+			{
+				positions[i] = new Point(result.getX(i) + MARGIN, result.getY(i) + MARGIN);
+			}
+			return positions;
+		});
+	}
+}
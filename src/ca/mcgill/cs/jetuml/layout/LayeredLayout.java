@@ -0,0 +1,768 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * A layered (Sugiyama-style) layout engine for directed graphs, such as
+ * generalization hierarchies and state machines. Each edge goes from an
+ * upper node to a lower node. The engine:
+ * <ol>
+ * <li>reverses the edges that close a cycle, so that the graph becomes acyclic;</li>
+ * <li>assigns each node to a layer, so that every edge points down;</li>
+ * <li>splits the edges that span several layers with dummy nodes;</li>
+ * <li>orders the nodes of each layer to reduce the number of edge crossings;</li>
+ * <li>assigns coordinates, keeping each node close to its neighbors.</li>
+ * </ol>
+ * Crossing reduction runs several independent trials in parallel on the 
+ * fork-join pool, and keeps the best. Coordinate assignment alternates 
+ * between the layers of even and odd rank: because the neighbors of a layer 
+ * are all in layers of the other parity, all the layers of one parity are 
+ * placed in parallel. The result does not depend on the number of threads.
+ */
+public final class LayeredLayout
+{
+	/* Number of sweeps of crossing reduction, alternately down and up, in each trial. */
+	private static final int ORDERING_PASSES = 24;
+	/* Number of sweeps without improvement after which a trial stops. */
+	private static final int MAX_STALE_PASSES = 4;
+	/* Number of independent trials of crossing reduction. */
+	private static final int TRIALS = 4;
+	/* Number of passes of coordinate assignment, each processing all the layers of one parity. */
+	private static final int PLACEMENT_PASSES = 16;
+	
+	private final ForkJoinPool aPool;
+	private final int aLayerGap;
+	private final int aNodeGap;
+	
+	/**
+	 * @param pPool The pool on which to run the layout.
+	 * @param pLayerGap The vertical distance between two layers.
+	 * @param pNodeGap The horizontal distance between two nodes of the same layer.
+	 * @pre pPool != null && pLayerGap >= 0 && pNodeGap >= 0
+	 */
+	public LayeredLayout(ForkJoinPool pPool, int pLayerGap, int pNodeGap)
+	{
+		assert pPool != null && pLayerGap >= 0 && pNodeGap >= 0;
+		aPool = pPool;
+		aLayerGap = pLayerGap;
+		aNodeGap = pNodeGap;
+	}
+	
+	/**
+	 * Lays out a graph. Edges from a node to itself are ignored.
+	 * 
+	 * @param pWidths The width of each node.
+	 * @param pHeights The height of each node.
+	 * @param pUppers The node at the upper end of each edge.
+	 * @param pLowers The node at the lower end of each edge.
+	 * @return The position of the nodes, and the quality of the layout.
+	 * @pre pWidths != null && pHeights != null && pWidths.length == pHeights.length
+	 * @pre pUppers != null && pLowers != null && pUppers.length == pLowers.length
+	 */
+	public Result layout(int[] pWidths, int[] pHeights, int[] pUppers, int[] pLowers)
+	{
+		assert pWidths != null && pHeights != null && pWidths.length == pHeights.length;
+		assert pUppers != null && pLowers != null && pUppers.length == pLowers.length;
+		int[][] edges = removeCycles(pWidths.length, pUppers, pLowers);
+		int[] layers = assignLayers(pWidths.length, edges[0], edges[1]);
+		Graph graph = new Graph(pWidths, pHeights, layers, edges[0], edges[1]);
+		long crossings = graph.order();
+		graph.place();
+		return graph.result(crossings);
+	}
+	
+	/*
+	 * Reverses the edges that close a cycle, as found by a depth-first 
+	 * search, and drops the edges from a node to itself. The search starts
+	 * from the nodes without upper neighbors, such as initial states, so 
+	 * that they stay at the top. Returns the
+	 * upper and lower ends of the remaining edges, which form an acyclic graph.
+	 */
+	private static int[][] removeCycles(int pNodes, int[] pUppers, int[] pLowers)
+	{
+		int[][] adjacency = adjacency(pNodes, pUppers, pLowers);
+		int[] starts = adjacency[0];
+		int[] edgeIds = adjacency[1];
+		int[] uppers = new int[pUppers.length];
+		int[] lowers = new int[pUppers.length];
+		int count = 0;
+		boolean[] hasUpper = new boolean[pNodes];
+		for( int j = 0; j < pLowers.length; j++ )
+		{
+			hasUpper[pLowers[j]] |= pUppers[j] != pLowers[j];
+		}
+		
+		final int onStack = 1;
+		final int done = 2;
+		int[] state = new int[pNodes];
+		int[] stack = new int[pNodes];
+		int[] next = new int[pNodes];
+		for( int k = 0; k < 2 * pNodes; k++ )
+		{
+			int root = k % pNodes;
+			if( state[root] != 0 || k < pNodes && hasUpper[root] )
+			{
+				continue;
+			}
+			int depth = 0;
+			stack[0] = root;
+			next[root] = starts[root];
+			state[root] = onStack;
+			while( depth >= 0 )
+			{
+				int node = stack[depth];
+				if( next[node] == starts[node + 1] )
+				{
+					state[node] = done;
+					depth--;
+					continue;
+				}
+				int edge = edgeIds[next[node]++];
+				int target = pLowers[edge];
+				if( target == node )
+				{
+					continue;
+				}
+				if( state[target] == onStack )
+				{
+					uppers[count] = target;
+					lowers[count++] = node;
+				}
+				else
+				{
+					uppers[count] = node;
+					lowers[count++] = target;
+					if( state[target] == 0 )
+					{
+						state[target] = onStack;
+						next[target] = starts[target];
+						stack[++depth] = target;
+					}
+				}
+			}
+		}
+		return new int[][] {Arrays.copyOf(uppers, count), Arrays.copyOf(lowers, count)};
+	}
+	
+	/*
+	 * Assigns each node of an acyclic graph to the layer just below its lowest 
+	 * upper neighbor, in topological order. Nodes without upper neighbors are 
+	 * on layer 0.
+	 */
+	private static int[] assignLayers(int pNodes, int[] pUppers, int[] pLowers)
+	{
+		int[][] adjacency = adjacency(pNodes, pUppers, pLowers);
+		int[] starts = adjacency[0];
+		int[] edgeIds = adjacency[1];
+		int[] inDegrees = new int[pNodes];
+		for( int lower : pLowers )
+		{
+			inDegrees[lower]++;
+		}
+		int[] queue = new int[pNodes];
+		int tail = 0;
+		for( int node = 0; node < pNodes; node++ )
+		{
+			if( inDegrees[node] == 0 )
+			{
+				queue[tail++] = node;
+			}
+		}
+		int[] layers = new int[pNodes];
+		for( int head = 0; head < tail; head++ )
+		{
+			int node = queue[head];
+			for( int k = starts[node]; k < starts[node + 1]; k++ )
+			{
+				int target = pLowers[edgeIds[k]];
+				layers[target] = Math.max(layers[target], layers[node] + 1);
+				if( --inDegrees[target] == 0 )
+				{
+					queue[tail++] = target;
+				}
+			}
+		}
+		return layers;
+	}
+	
+	/*
+	 * Returns the outgoing edges of each node in compressed form: the edges 
+	 * of node i are at indices [starts[i], starts[i+1]) of the second array.
+	 */
+	private static int[][] adjacency(int pNodes, int[] pFrom, int[] pTo)
+	{
+		int[] starts = new int[pNodes + 1];
+		for( int from : pFrom )
+		{
+			starts[from + 1]++;
+		}
+		for( int i = 0; i < pNodes; i++ )
+		{
+			starts[i + 1] += starts[i];
+		}
+		int[] fill = Arrays.copyOf(starts, pNodes);
+		int[] edgeIds = new int[pFrom.length];
+		for( int j = 0; j < pFrom.length; j++ )
+		{
+			edgeIds[fill[pFrom[j]]++] = j;
+		}
+		return new int[][] {starts, edgeIds};
+	}
+	
+	/**
+	 * The result of a layout: the position of each node, and two measures
+	 * of the quality of the layout.
+	 */
+	public static final class Result
+	{
+		private final int[] aX;
+		private final int[] aY;
+		private final int[] aLayers;
+		private final long aCrossings;
+		private final double aEdgeLength;
+		
+		private Result(int[] pX, int[] pY, int[] pLayers, long pCrossings, double pEdgeLength)
+		{
+			aX = pX;
+			aY = pY;
+			aLayers = pLayers;
+			aCrossings = pCrossings;
+			aEdgeLength = pEdgeLength;
+		}
+		
+		/**
+		 * @param pNode The index of a node.
+		 * @return The x coordinate of the left side of the node. The leftmost nodes are at 0.
+		 * @pre pNode >= 0 && pNode < number of nodes
+		 */
+		public int getX(int pNode)
+		{
+			return aX[pNode];
+		}
+		
+		/**
+		 * @param pNode The index of a node.
+		 * @return The y coordinate of the top of the node. The nodes of the top layer are at 0 or below.
+		 * @pre pNode >= 0 && pNode < number of nodes
+		 */
+		public int getY(int pNode)
+		{
+			return aY[pNode];
+		}
+		
+		/**
+		 * @param pNode The index of a node.
+		 * @return The layer of the node, starting from 0 for the top layer.
+		 * @pre pNode >= 0 && pNode < number of nodes
+		 */
+		public int getLayer(int pNode)
+		{
+			return aLayers[pNode];
+		}
+		
+		/**
+		 * @return The number of pairs of edge segments that cross between two layers.
+		 */
+		public long getCrossings()
+		{
+			return aCrossings;
+		}
+		
+		/**
+		 * @return The total length of the edges, from the center of a node to the 
+		 *     center of the next, through the dummy nodes of the edges that span 
+		 *     several layers.
+		 */
+		public double getEdgeLength()
+		{
+			return aEdgeLength;
+		}
+	}
+	
+	/*
+	 * The proper layered graph: every edge connects two consecutive layers, 
+	 * which requires a chain of dummy nodes for each edge that spans several 
+	 * layers. The original nodes come first, followed by the dummy nodes.
+	 */
+	private final class Graph
+	{
+		private final int aOriginals;
+		private final int[] aWidths;
+		private final int[] aHeights;
+		private final int[] aLayerOf;
+		/* The nodes of each layer, in order. */
+		private final int[][] aLayers;
+		/* The index of each node in its layer. */
+		private final int[] aPositions;
+		/* Neighbors in the layer above, then in the layer below, in compressed form. */
+		private final int[] aUpStarts;
+		private final int[] aUp;
+		private final int[] aDownStarts;
+		private final int[] aDown;
+		private final double[] aCenters;
+		
+		Graph(int[] pWidths, int[] pHeights, int[] pLayers, int[] pUppers, int[] pLowers)
+		{
+			aOriginals = pWidths.length;
+			int size = aOriginals;
+			int segments = 0;
+			for( int j = 0; j < pUppers.length; j++ )
+			{
+				int span = pLayers[pLowers[j]] - pLayers[pUppers[j]];
+				size += span - 1;
+				segments += span;
+			}
+			aWidths = Arrays.copyOf(pWidths, size);
+			aHeights = Arrays.copyOf(pHeights, size);
+			aLayerOf = Arrays.copyOf(pLayers, size);
+			int[] segmentUppers = new int[segments];
+			int[] segmentLowers = new int[segments];
+			int dummy = aOriginals;
+			int segment = 0;
+			for( int j = 0; j < pUppers.length; j++ )
+			{
+				int upper = pUppers[j];
+				for( int layer = pLayers[upper] + 1; layer < pLayers[pLowers[j]]; layer++ )
+				{
+					aLayerOf[dummy] = layer;
+					segmentUppers[segment] = upper;
+					segmentLowers[segment++] = dummy;
+					upper = dummy++;
+				}
+				segmentUppers[segment] = upper;
+				segmentLowers[segment++] = pLowers[j];
+			}
+			int[][] up = neighbors(size, segmentLowers, segmentUppers);
+			aUpStarts = up[0];
+			aUp = up[1];
+			int[][] down = neighbors(size, segmentUppers, segmentLowers);
+			aDownStarts = down[0];
+			aDown = down[1];
+			
+			int layerCount = 0;
+			for( int layer : aLayerOf )
+			{
+				layerCount = Math.max(layerCount, layer + 1);
+			}
+			int[] layerSizes = new int[layerCount];
+			for( int layer : aLayerOf )
+			{
+				layerSizes[layer]++;
+			}
+			aLayers = new int[layerCount][];
+			for( int layer = 0; layer < layerCount; layer++ )
+			{
+				aLayers[layer] = new int[layerSizes[layer]];
+			}
+			aPositions = new int[size];
+			Arrays.fill(layerSizes, 0);
+			for( int node = 0; node < size; node++ )
+			{
+				int layer = aLayerOf[node];
+				aPositions[node] = layerSizes[layer];
+				aLayers[layer][layerSizes[layer]++] = node;
+			}
+			aCenters = new double[size];
+		}
+		
+		/*
+		 * Returns the neighbors of each node through the given segments, 
+		 * in compressed form.
+		 */
+		private int[][] neighbors(int pSize, int[] pFrom, int[] pTo)
+		{
+			int[][] adjacency = adjacency(pSize, pFrom, pTo);
+			int[] neighbors = adjacency[1];
+			for( int k = 0; k < neighbors.length; k++ )
+			{
+				neighbors[k] = pTo[neighbors[k]];
+			}
+			return adjacency;
+		}
+		
+		/*
+		 * Orders the layers to reduce crossings, and returns the number of 
+		 * crossings of the best ordering found. Each sweep orders the layers one
+		 * after the other, and depends on the previous one, so the parallelism is 
+		 * in the trials: they start from different orderings and run concurrently.
+		 * The first trial starts from the order of the nodes, the others from 
+		 * shuffles of it with a fixed seed, so that the result does not depend 
+		 * on the number of threads.
+		 */
+		long order()
+		{
+			Ordering[] trials = new Ordering[TRIALS];
+			aPool.invoke(new RangeTask(0, TRIALS, 1, (pStart, pEnd) -> 
+			{
+				for( int trial = pStart; trial < pEnd; trial++ )
+				{
+					trials[trial] = new Ordering(trial);
+					trials[trial].sweep();
+				}
+				return 0;
+			}));
+			Ordering best = trials[0];
+			for( Ordering trial : trials )
+			{
+				if( trial.aCrossings < best.aCrossings )
+				{
+					best = trial;
+				}
+			}
+			for( int layer = 0; layer < aLayers.length; layer++ )
+			{
+				aLayers[layer] = best.aLayers[layer];
+			}
+			System.arraycopy(best.aPositions, 0, aPositions, 0, aPositions.length);
+			return best.aCrossings;
+		}
+		
+		/*
+		 * Applies pOperation to all the layers of the given parity, in parallel.
+		 */
+		private void forEachLayer(int pParity, IntConsumer pOperation)
+		{
+			int count = (aLayers.length - pParity + 1) / 2;
+			aPool.invoke(new RangeTask(0, count, 1, (pStart, pEnd) -> 
+			{
+				for( int i = pStart; i < pEnd; i++ )
+				{
+					pOperation.accept(2 * i + pParity);
+				}
+				return 0;
+			}));
+		}
+		
+		/*
+		 * An ordering of the nodes of each layer, improved by alternating 
+		 * sweeps up and down, which keeps the best ordering it finds.
+		 */
+		private final class Ordering
+		{
+			private final int[][] aLayers;
+			private final int[] aPositions;
+			private long aCrossings;
+			
+			Ordering(int pSeed)
+			{
+				aLayers = new int[Graph.this.aLayers.length][];
+				aPositions = new int[Graph.this.aPositions.length];
+				Random random = new Random(pSeed);
+				for( int layer = 0; layer < aLayers.length; layer++ )
+				{
+					int[] nodes = Graph.this.aLayers[layer].clone();
+					for( int i = nodes.length - 1; i > 0 && pSeed > 0; i-- )
+					{
+						int j = random.nextInt(i + 1);
+						int node = nodes[i];
+						nodes[i] = nodes[j];
+						nodes[j] = node;
+					}
+					aLayers[layer] = nodes;
+					for( int i = 0; i < nodes.length; i++ )
+					{
+						aPositions[nodes[i]] = i;
+					}
+				}
+			}
+			
+			/*
+			 * Sweeps down, ordering each layer after the layer above it, then up, 
+			 * ordering each layer after the layer below it, and so on. 
+			 */
+			void sweep()
+			{
+				aCrossings = Long.MAX_VALUE;
+				int[][] best = null;
+				int stale = 0;
+				for( int pass = 0; pass < ORDERING_PASSES && aCrossings > 0 && stale < MAX_STALE_PASSES; pass++ )
+				{
+					if( pass % 2 == 0 )
+					{
+						for( int layer = 1; layer < aLayers.length; layer++ )
+						{
+							reorder(layer, aUpStarts, aUp);
+						}
+					}
+					else
+					{
+						for( int layer = aLayers.length - 2; layer >= 0; layer-- )
+						{
+							reorder(layer, aDownStarts, aDown);
+						}
+					}
+					long crossings = countCrossings();
+					if( crossings < aCrossings )
+					{
+						aCrossings = crossings;
+						best = copyLayers();
+						stale = 0;
+					}
+					else
+					{
+						stale++;
+					}
+				}
+				if( best != null )
+				{
+					for( int layer = 0; layer < aLayers.length; layer++ )
+					{
+						aLayers[layer] = best[layer];
+						for( int i = 0; i < best[layer].length; i++ )
+						{
+							aPositions[best[layer][i]] = i;
+						}
+					}
+				}
+			}
+			
+			/*
+			 * Sorts a layer by the barycenter of the positions of the neighbors of 
+			 * its nodes, given in compressed form. A node without neighbors keeps 
+			 * its position.
+			 */
+			private void reorder(int pLayer, int[] pStarts, int[] pNeighbors)
+			{
+				int[] nodes = aLayers[pLayer];
+				// Each key holds the barycenter, as a float whose bits sort like the value 
+				// since it is not negative, then the position, which keeps the sort stable.
+				long[] keys = new long[nodes.length];
+				for( int i = 0; i < nodes.length; i++ )
+				{
+					int node = nodes[i];
+					double sum = 0;
+					for( int k = pStarts[node]; k < pStarts[node + 1]; k++ )
+					{
+						sum += aPositions[pNeighbors[k]];
+					}
+					int count = pStarts[node + 1] - pStarts[node];
+					float barycenter = count == 0 ? i : (float) (sum / count);
+					keys[i] = (long) Float.floatToIntBits(barycenter) << Integer.SIZE | i;
+				}
+				Arrays.sort(keys);
+				int[] reordered = new int[nodes.length];
+				for( int i = 0; i < nodes.length; i++ )
+				{
+					reordered[i] = nodes[(int) keys[i]];
+					aPositions[reordered[i]] = i;
+				}
+				aLayers[pLayer] = reordered;
+			}
+			
+			private long countCrossings()
+			{
+				long total = 0;
+				for( int layer = 0; layer < aLayers.length - 1; layer++ )
+				{
+					total += countCrossings(layer);
+				}
+				return total;
+			}
+			
+			/*
+			 * Counts the crossings between pLayer and the layer below it, as the 
+			 * number of inversions of the lower positions of the segments sorted by 
+			 * their upper position, with a Fenwick tree.
+			 */
+			private long countCrossings(int pLayer)
+			{
+				int[] nodes = aLayers[pLayer];
+				int lowerSize = aLayers[pLayer + 1].length;
+				int segments = 0;
+				for( int node : nodes )
+				{
+					segments += aDownStarts[node + 1] - aDownStarts[node];
+				}
+				long[] keys = new long[segments];
+				int segment = 0;
+				for( int node : nodes )
+				{
+					for( int k = aDownStarts[node]; k < aDownStarts[node + 1]; k++ )
+					{
+						keys[segment++] = (long) aPositions[node] * lowerSize + aPositions[aDown[k]];
+					}
+				}
+				Arrays.sort(keys);
+				int[] tree = new int[lowerSize + 1];
+				long crossings = 0;
+				for( int i = 0; i < segments; i++ )
+				{
+					int lower = (int) (keys[i] % lowerSize);
+					// Count the previous segments that end strictly to the right of this one.
+					int notGreater = 0;
+					for( int k = lower + 1; k > 0; k -= k & -k )
+					{
+						notGreater += tree[k];
+					}
+					crossings += i - notGreater;
+					for( int k = lower + 1; k <= lowerSize; k += k & -k )
+					{
+						tree[k]++;
+					}
+				}
+				return crossings;
+			}
+			
+			private int[][] copyLayers()
+			{
+				int[][] copy = new int[aLayers.length][];
+				for( int layer = 0; layer < aLayers.length; layer++ )
+				{
+					copy[layer] = aLayers[layer].clone();
+				}
+				return copy;
+			}
+		}
+		
+		/*
+		 * Places the nodes of each layer from left to right, then moves them 
+		 * towards the barycenter of the centers of their neighbors, without 
+		 * changing their order or bringing them closer than the node gap.
+		 */
+		void place()
+		{
+			for( int[] nodes : aLayers )
+			{
+				double right = 0;
+				for( int node : nodes )
+				{
+					aCenters[node] = right + aWidths[node] / 2.0;
+					right += aWidths[node] + aNodeGap;
+				}
+			}
+			for( int pass = 0; pass < PLACEMENT_PASSES; pass++ )
+			{
+				forEachLayer(pass % 2, this::align);
+			}
+		}
+		
+		private void align(int pLayer)
+		{
+			int[] nodes = aLayers[pLayer];
+			if( nodes.length == 0 )
+			{
+				return;
+			}
+			double[] targets = new double[nodes.length];
+			for( int i = 0; i < nodes.length; i++ )
+			{
+				int node = nodes[i];
+				double sum = 0;
+				int count = 0;
+				for( int k = aUpStarts[node]; k < aUpStarts[node + 1]; k++ )
+				{
+					sum += aCenters[aUp[k]];
+					count++;
+				}
+				for( int k = aDownStarts[node]; k < aDownStarts[node + 1]; k++ )
+				{
+					sum += aCenters[aDown[k]];
+					count++;
+				}
+				targets[i] = count == 0 ? aCenters[node] : sum / count;
+			}
+			// The placement closest to the targets, in the least-squares sense, that keeps the 
+			// order and the gaps, is an isotonic regression of the targets minus the cumulative
+			// gaps. It is solved by pooling adjacent blocks of nodes until their means increase.
+			double[] offsets = new double[nodes.length];
+			double[] sums = new double[nodes.length];
+			int[] counts = new int[nodes.length];
+			int blocks = 0;
+			for( int i = 0; i < nodes.length; i++ )
+			{
+				if( i > 0 )
+				{
+					offsets[i] = offsets[i - 1] + separation(nodes[i - 1], nodes[i]);
+				}
+				sums[blocks] = targets[i] - offsets[i];
+				counts[blocks++] = 1;
+				while( blocks > 1 && sums[blocks - 2] * counts[blocks - 1] > sums[blocks - 1] * counts[blocks - 2] )
+				{
+					sums[blocks - 2] += sums[blocks - 1];
+					counts[blocks - 2] += counts[blocks - 1];
+					blocks--;
+				}
+			}
+			int i = 0;
+			for( int block = 0; block < blocks; block++ )
+			{
+				double mean = sums[block] / counts[block];
+				for( int end = i + counts[block]; i < end; i++ )
+				{
+					aCenters[nodes[i]] = mean + offsets[i];
+				}
+			}
+		}
+		
+		/*
+		 * The smallest distance between the centers of two neighbors in a layer.
+		 * Dummy nodes, which have no width, only need half the gap.
+		 */
+		private double separation(int pLeft, int pRight)
+		{
+			double gap = pLeft >= aOriginals || pRight >= aOriginals ? aNodeGap / 2.0 : aNodeGap;
+			return (aWidths[pLeft] + aWidths[pRight]) / 2.0 + gap;
+		}
+		
+		Result result(long pCrossings)
+		{
+			double[] middles = new double[aLayers.length];
+			double top = 0;
+			for( int layer = 0; layer < aLayers.length; layer++ )
+			{
+				int height = 0;
+				for( int node : aLayers[layer] )
+				{
+					height = Math.max(height, aHeights[node]);
+				}
+				middles[layer] = top + height / 2.0;
+				top += height + aLayerGap;
+			}
+			double left = Double.POSITIVE_INFINITY;
+			for( int node = 0; node < aCenters.length; node++ )
+			{
+				left = Math.min(left, aCenters[node] - aWidths[node] / 2.0);
+			}
+			int[] x = new int[aOriginals];
+			int[] y = new int[aOriginals];
+			for( int node = 0; node < aOriginals; node++ )
+			{
+				x[node] = (int) Math.round(aCenters[node] - aWidths[node] / 2.0 - left);
+				y[node] = (int) Math.round(middles[aLayerOf[node]] - aHeights[node] / 2.0);
+			}
+			double length = 0;
+			for( int node = 0; node < aCenters.length; node++ )
+			{
+				for( int k = aDownStarts[node]; k < aDownStarts[node + 1]; k++ )
+				{
+					int lower = aDown[k];
+					length += Math.hypot(aCenters[lower] - aCenters[node], middles[aLayerOf[lower]] - middles[aLayerOf[node]]);
+				}
+			}
+			return new Result(x, y, Arrays.copyOf(aLayerOf, aOriginals), pCrossings, length);
+		}
+	}
+}
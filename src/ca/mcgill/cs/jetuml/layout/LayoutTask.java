@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.CompoundOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramBuilder;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+import ca.mcgill.cs.jetuml.views.Grid;
+
+/**
+ * A layout of the root nodes of a diagram, in three steps, so that the 
+ * layout engine does not run on the thread that modifies the diagram:
+ * <ol>
+ * <li>the layout is prepared from the nodes and edges of the diagram, 
+ * on the thread that modifies the diagram;</li>
+ * <li>the layout is computed, on any thread;</li>
+ * <li>the operation that moves the nodes is created back on the thread 
+ * that modifies the diagram.</li>
+ * </ol>
+ * The nodes are moved so that the top-left corner of their bounds is on the 
+ * grid. Nodes that are no longer root nodes of the diagram when the operation 
+ * is created are left where they are.
+ */
+public final class LayoutTask
+{
+	private final DiagramBuilder aBuilder;
+	private final List<Node> aNodes;
+	private final Engine aEngine;
+	private Optional<Point[]> aPositions = Optional.empty();
+	
+	/*
+	 * @param pNodes The root nodes of the diagram of pBuilder, when the layout is prepared.
+	 * @param pEngine Computes the new top-left corner of the bounds of each of pNodes.
+	 */
+	LayoutTask(DiagramBuilder pBuilder, List<Node> pNodes, Engine pEngine)
+	{
+		aBuilder = pBuilder;
+		aNodes = pNodes;
+		aEngine = pEngine;
+	}
+	
+	/**
+	 * Computes the layout with the engine, which runs on pPool. 
+	 * Can be called on any thread, once.
+	 * 
+	 * @param pPool The pool on which to run the layout engine.
+	 * @pre pPool != null && !isComputed()
+	 */
+	public void compute(ForkJoinPool pPool)
+	{
+		assert pPool != null && !isComputed();
+		aPositions = Optional.of(aEngine.layout(pPool));
+	}
+	
+	/**
+	 * @return True if the layout was computed.
+	 */
+	public boolean isComputed()
+	{
+		return aPositions.isPresent();
+	}
+	
+	/**
+	 * Creates the operation that moves the nodes to their new position, 
+	 * from their current position. Must be called on the thread that 
+	 * modifies the diagram.
+	 * 
+	 * @return An operation that moves the root nodes of the diagram to their
+	 *     new position. Executing it applies the layout.
+	 * @pre isComputed()
+	 */
+	public CompoundOperation createOperation()
+	{
+		assert isComputed();
+		Set<Node> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+		roots.addAll(aBuilder.getDiagram().rootNodes());
+		CompoundOperation operation = new CompoundOperation();
+		for( int i = 0; i < aNodes.size(); i++ )
+		{
+			Node node = aNodes.get(i);
+			if( !roots.contains(node) )
+			{
+				continue;
+			}
+			Point target = Grid.snapped(aPositions.get()[i]);
+			Rectangle bounds = NodeViewerRegistry.getBounds(node);
+			int dx = target.getX() - bounds.getX();
+			int dy = target.getY() - bounds.getY();
+			if( dx != 0 || dy != 0 )
+			{
+				operation.add(aBuilder.createMoveNodeOperation(node, dx, dy));
+			}
+		}
+		return operation;
+	}
+	
+	/*
+	 * Computes the new top-left corner of the bounds of each node, 
+	 * from the data captured when the layout was prepared.
+	 */
+	interface Engine
+	{
+		Point[] layout(ForkJoinPool pPool);
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Applies an operation to a range of indices on a fork-join pool, by 
+ * splitting the range until it is no longer than a threshold. The 
+ * operation returns a value for each subrange, and the task returns 
+ * the largest of these values.
+ */
+final class RangeTask extends RecursiveTask<Double>
+{
+	private static final long serialVersionUID = 1L;
+	
+	private final int aStart;
+	private final int aEnd;
+	private final int aThreshold;
+	private final transient RangeOperation aOperation;
+	
+	/**
+	 * @param pStart The first index of the range.
+	 * @param pEnd The index after the last index of the range.
+	 * @param pThreshold The length under which a range is not split.
+	 * @param pOperation The operation to apply.
+	 * @pre pStart <= pEnd && pThreshold > 0 && pOperation != null
+	 */
+	RangeTask(int pStart, int pEnd, int pThreshold, RangeOperation pOperation)
+	{
+		assert pStart <= pEnd && pThreshold > 0 && pOperation != null;
+		aStart = pStart;
+		aEnd = pEnd;
+		aThreshold = pThreshold;
+		aOperation = pOperation;
+	}
+	
+	@Override
+	protected Double compute()
+	{
+		if( aEnd - aStart <= aThreshold )
+		{
+			return aOperation.apply(aStart, aEnd);
+		}
+		int middle = (aStart + aEnd) >>> 1;
+		RangeTask left = new RangeTask(aStart, middle, aThreshold, aOperation);
+		left.fork();
+		double right = new RangeTask(middle, aEnd, aThreshold, aOperation).compute();
+		return Math.max(left.join(), right);
+	}
+	
+	/**
+	 * An operation on a range of indices.
+	 */
+	@FunctionalInterface
+	interface RangeOperation
+	{
+		/**
+		 * @param pStart The first index of the range.
+		 * @param pEnd The index after the last index of the range.
+		 * @return A value computed for the range.
+		 */
+		double apply(int pStart, int pEnd);
+	}
+}
@@ -0,0 +1,430 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Converts encoded diagrams between their JSON representation and a compact
+ * binary representation. The conversion is lossless: decoding the binary form 
+ * of a JSON object produces an object equal to the original.
+ * 
+ * A binary file starts with a magic number and a format version, followed by 
+ * sections. Each section is a one-byte tag followed by the length of its 
+ * content, so that readers can skip the sections they do not need. The string 
+ * table section holds each distinct string once, such as type and property 
+ * names, which the document section refers to by index. All integers are 
+ * stored as variable-length quantities.
+ */
+final class BinaryEncoding
+{
+	private static final byte[] MAGIC = {'J', 'E', 'T', 'B'};
+	private static final byte FORMAT_VERSION = 1;
+	
+	private static final byte SECTION_STRINGS = 1;
+	private static final byte SECTION_DOCUMENT = 2;
+	
+	private static final byte VALUE_NULL = 0;
+	private static final byte VALUE_FALSE = 1;
+	private static final byte VALUE_TRUE = 2;
+	private static final byte VALUE_INTEGER = 3;
+	private static final byte VALUE_DOUBLE = 4;
+	private static final byte VALUE_STRING = 5;
+	private static final byte VALUE_ARRAY = 6;
+	private static final byte VALUE_OBJECT = 7;
+	
+	private static final int VARINT_BITS = 7;
+	private static final int VARINT_MASK = 0x7F;
+	private static final int VARINT_CONTINUATION = 0x80;
+	private static final int MAX_VARINT_SHIFT = 63;
+	
+	private BinaryEncoding() {}
+	
+	/**
+	 * @param pContent The content of a file.
+	 * @return True if pContent starts with the magic number of the binary format.
+	 *     The position of pContent is not changed.
+	 * @pre pContent != null
+	 */
+	static boolean isBinary(ByteBuffer pContent)
+	{
+		assert pContent != null;
+		if( pContent.remaining() < MAGIC.length )
+		{
+			return false;
+		}
+		for( int i = 0; i < MAGIC.length; i++ )
+		{
+			if( pContent.get(pContent.position() + i) != MAGIC[i] )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @param pObject The JSON object to encode.
+	 * @return The binary representation of pObject.
+	 * @pre pObject != null
+	 */
+	static byte[] encode(JSONObject pObject)
+	{
+		assert pObject != null;
+		Map<String, Integer> strings = new LinkedHashMap<>();
+		ByteWriter document = new ByteWriter();
+		writeValue(pObject, document, strings);
+		
+		ByteWriter table = new ByteWriter();
+		table.writeVarint(strings.size());
+		for( String string : strings.keySet() )
+		{
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			table.writeVarint(bytes.length);
+			table.write(bytes, bytes.length);
+		}
+		
+		ByteWriter result = new ByteWriter();
+		result.write(MAGIC, MAGIC.length);
+		result.write(FORMAT_VERSION);
+		writeSection(SECTION_STRINGS, table, result);
+		writeSection(SECTION_DOCUMENT, document, result);
+		return result.toByteArray();
+	}
+	
+	/**
+	 * Reads the binary file at pPath by mapping it in memory.
+	 * 
+	 * @param pPath The file to read.
+	 * @return The JSON object encoded in the file.
+	 * @throws IOException If the file cannot be read.
+	 * @throws DeserializationException If the file is not a valid binary diagram file.
+	 * @pre pPath != null
+	 */
+	static JSONObject read(Path pPath) throws IOException
+	{
+		assert pPath != null;
+		try( FileChannel channel = FileChannel.open(pPath, StandardOpenOption.READ) )
+		{
+			return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	
+	/**
+	 * @param pContent The binary representation of a JSON object, from its current position.
+	 * @return The decoded JSON object.
+	 * @throws DeserializationException If pContent is not a valid binary representation.
+	 * @pre pContent != null
+	 */
+	static JSONObject decode(ByteBuffer pContent)
+	{
+		assert pContent != null;
+		if( !isBinary(pContent) )
+		{
+			throw new DeserializationException("Not a binary diagram file");
+		}
+		try
+		{
+			pContent.position(pContent.position() + MAGIC.length);
+			if( pContent.get() != FORMAT_VERSION )
+			{
+				throw new DeserializationException("Unsupported binary format version");
+			}
+			String[] strings = null;
+			Object document = null;
+			while( pContent.hasRemaining() )
+			{
+				byte tag = pContent.get();
+				int length = toInt(readVarint(pContent));
+				ByteBuffer section = pContent.slice();
+				section.limit(length);
+				pContent.position(pContent.position() + length);
+				if( tag == SECTION_STRINGS )
+				{
+					strings = readStrings(section);
+				}
+				else if( tag == SECTION_DOCUMENT )
+				{
+					if( strings == null )
+					{
+						throw new DeserializationException("Missing string table");
+					}
+					document = readValue(section, strings);
+				}
+			}
+			if( !(document instanceof JSONObject) )
+			{
+				throw new DeserializationException("Missing document");
+			}
+			return (JSONObject) document;
+		}
+		catch( BufferUnderflowException | IllegalArgumentException exception )
+		{
+			throw new DeserializationException("Truncated or malformed binary diagram file", exception);
+		}
+	}
+	
+	private static void writeSection(byte pTag, ByteWriter pContent, ByteWriter pOut)
+	{
+		pOut.write(pTag);
+		pOut.writeVarint(pContent.size());
+		pOut.write(pContent.aBytes, pContent.size());
+	}
+	
+	private static void writeValue(Object pValue, ByteWriter pOut, Map<String, Integer> pStrings)
+	{
+		if( pValue instanceof JSONObject )
+		{
+			JSONObject object = (JSONObject) pValue;
+			pOut.write(VALUE_OBJECT);
+			pOut.writeVarint(object.length());
+			for( String key : object.keySet() )
+			{
+				pOut.writeVarint(indexOf(key, pStrings));
+				writeValue(object.get(key), pOut, pStrings);
+			}
+		}
+		else if( pValue instanceof JSONArray )
+		{
+			JSONArray array = (JSONArray) pValue;
+			pOut.write(VALUE_ARRAY);
+			pOut.writeVarint(array.length());
+			for( int i = 0; i < array.length(); i++ )
+			{
+				writeValue(array.get(i), pOut, pStrings);
+			}
+		}
+		else if( pValue instanceof String )
+		{
+			pOut.write(VALUE_STRING);
+			pOut.writeVarint(indexOf((String) pValue, pStrings));
+		}
+		else if( pValue instanceof Integer || pValue instanceof Long )
+		{
+			long value = ((Number) pValue).longValue();
+			pOut.write(VALUE_INTEGER);
+			pOut.writeVarint((value << 1) ^ (value >> MAX_VARINT_SHIFT)); // Zigzag encoding of negative values
+		}
+		else if( pValue instanceof Double )
+		{
+			pOut.write(VALUE_DOUBLE);
+			pOut.writeLong(Double.doubleToLongBits((Double) pValue));
+		}
+		else if( pValue instanceof Boolean )
+		{
+			pOut.write((Boolean) pValue ? VALUE_TRUE : VALUE_FALSE);
+		}
+		else if( pValue == JSONObject.NULL )
+		{
+			pOut.write(VALUE_NULL);
+		}
+		else
+		{
+			throw new IllegalArgumentException("Unsupported value: " + pValue);
+		}
+	}
+	
+	private static int indexOf(String pString, Map<String, Integer> pStrings)
+	{
+		return pStrings.computeIfAbsent(pString, string -> pStrings.size());
+	}
+	
+	private static String[] readStrings(ByteBuffer pSection)
+	{
+		String[] strings = new String[toInt(readVarint(pSection))];
+		for( int i = 0; i < strings.length; i++ )
+		{
+			int length = toInt(readVarint(pSection));
+			if( pSection.hasArray() )
+			{
+				strings[i] = new String(pSection.array(), pSection.arrayOffset() + pSection.position(), length, StandardCharsets.UTF_8);
+				pSection.position(pSection.position() + length);
+			}
+			else
+			{
+				byte[] bytes = new byte[length];
+				pSection.get(bytes);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+		}
+		return strings;
+	}
+	
+	private static Object readValue(ByteBuffer pIn, String[] pStrings)
+	{
+		byte tag = pIn.get();
+		switch( tag )
+		{
+		case VALUE_OBJECT:
+			JSONObject object = new JSONObject();
+			int length = toInt(readVarint(pIn));
+			for( int i = 0; i < length; i++ )
+			{
+				String key = string(readVarint(pIn), pStrings);
+				object.put(key, readValue(pIn, pStrings));
+			}
+			return object;
+		case VALUE_ARRAY:
+			JSONArray array = new JSONArray();
+			int size = toInt(readVarint(pIn));
+			for( int i = 0; i < size; i++ )
+			{
+				array.put(readValue(pIn, pStrings));
+			}
+			return array;
+		case VALUE_STRING:
+			return string(readVarint(pIn), pStrings);
+		case VALUE_INTEGER:
+			long encoded = readVarint(pIn);
+			long value = (encoded >>> 1) ^ -(encoded & 1);
+			if( value == (int) value )
+			{
+				return (int) value;
+			}
+			return value;
+		case VALUE_DOUBLE:
+			return Double.longBitsToDouble(pIn.getLong());
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+		case VALUE_NULL:
+			return JSONObject.NULL;
+		default:
+			throw new DeserializationException("Unknown value type " + tag);
+		}
+	}
+	
+	private static String string(long pIndex, String[] pStrings)
+	{
+		if( pIndex < 0 || pIndex >= pStrings.length )
+		{
+			throw new DeserializationException("Invalid string index " + pIndex);
+		}
+		return pStrings[(int) pIndex];
+	}
+	
+	private static int toInt(long pValue)
+	{
+		if( pValue < 0 || pValue > Integer.MAX_VALUE )
+		{
+			throw new DeserializationException("Invalid length " + pValue);
+		}
+		return (int) pValue;
+	}
+	
+	/*
+	 * Reads an unsigned variable-length quantity: seven bits per byte,
+	 * least significant group first, with the high bit set on all bytes but the last.
+	 */
+	private static long readVarint(ByteBuffer pIn)
+	{
+		long result = 0;
+		for( int shift = 0; shift <= MAX_VARINT_SHIFT; shift += VARINT_BITS )
+		{
+			byte next = pIn.get();
+			result |= (long)(next & VARINT_MASK) << shift;
+			if( (next & VARINT_CONTINUATION) == 0 )
+			{
+				return result;
+			}
+		}
+		throw new DeserializationException("Malformed variable-length integer");
+	}
+	
+	/*
+	 * A growable byte array, to avoid the synchronization of ByteArrayOutputStream
+	 * and to give access to the bytes written without copying them.
+	 */
+	private static final class ByteWriter
+	{
+		private static final int INITIAL_CAPACITY = 256;
+		private static final int LONG_BYTES = 8;
+		private static final int BYTE_BITS = 8;
+		private static final int BYTE_MASK = 0xFF;
+		
+		private byte[] aBytes = new byte[INITIAL_CAPACITY];
+		private int aSize = 0;
+		
+		int size()
+		{
+			return aSize;
+		}
+		
+		void write(byte pByte)
+		{
+			ensureCapacity(1);
+			aBytes[aSize++] = pByte;
+		}
+		
+		void write(byte[] pBytes, int pLength)
+		{
+			ensureCapacity(pLength);
+			System.arraycopy(pBytes, 0, aBytes, aSize, pLength);
+			aSize += pLength;
+		}
+		
+		void writeVarint(long pValue)
+		{
+			long value = pValue;
+			while( (value & ~VARINT_MASK) != 0 )
+			{
+				write((byte)((value & VARINT_MASK) | VARINT_CONTINUATION));
+				value >>>= VARINT_BITS;
+			}
+			write((byte) value);
+		}
+		
+		void writeLong(long pValue)
+		{
+			ensureCapacity(LONG_BYTES);
+			for( int i = LONG_BYTES - 1; i >= 0; i-- )
+			{
+				aBytes[aSize++] = (byte)((pValue >>> (i * BYTE_BITS)) & BYTE_MASK);
+			}
+		}
+		
+		byte[] toByteArray()
+		{
+			return Arrays.copyOf(aBytes, aSize);
+		}
+		
+		private void ensureCapacity(int pExtra)
+		{
+			if( aSize + pExtra > aBytes.length )
+			{
+				aBytes = Arrays.copyOf(aBytes, Math.max(aBytes.length * 2, aSize + pExtra));
+			}
+		}
+	}
+}
@@ -0,0 +1,414 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.geom.Line;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+
+/**
+ * A lightweight summary of a diagram: the type and bounds of each node, 
+ * and the type and end points of each edge, optionally with the route 
+ * of the edge as computed by its viewer. An index can be read much 
+ * faster than the diagram it summarizes, so it can be used to show an 
+ * outline of a large diagram while the diagram itself is being loaded.
+ * 
+ * Nodes are identified by the same identifiers as in the encoded diagram,
+ * which are their positions in the list of nodes of the index.
+ */
+public final class DiagramIndex
+{
+	private static final String KEY_DIAGRAM = "diagram";
+	private static final String KEY_NODES = "nodes";
+	private static final String KEY_EDGES = "edges";
+	private static final String KEY_ROUTES = "routes";
+	private static final int NODE_FIELDS = 5;
+	private static final int EDGE_FIELDS = 3;
+	private static final int ROUTE_FIELDS = 4;
+	
+	private final DiagramType aDiagramType;
+	private final List<IndexedNode> aNodes;
+	private final List<IndexedEdge> aEdges;
+	
+	private DiagramIndex(DiagramType pDiagramType, List<IndexedNode> pNodes, List<IndexedEdge> pEdges)
+	{
+		aDiagramType = pDiagramType;
+		aNodes = Collections.unmodifiableList(pNodes);
+		aEdges = Collections.unmodifiableList(pEdges);
+	}
+	
+	/**
+	 * Creates the index of a diagram.
+	 * 
+	 * @param pDiagram The diagram to index.
+	 * @param pBounds A function that returns the bounds of a node.
+	 * @return The index of pDiagram.
+	 * @pre pDiagram != null && pBounds != null
+	 */
+	public static DiagramIndex create(Diagram pDiagram, Function<Node, Rectangle> pBounds)
+	{
+		assert pDiagram != null && pBounds != null;
+		return create(pDiagram, pBounds, pEdge -> null);
+	}
+	
+	/**
+	 * Creates the index of a diagram that includes the route of each edge.
+	 * 
+	 * @param pDiagram The diagram to index.
+	 * @param pBounds A function that returns the bounds of a node.
+	 * @param pRoutes A function that returns the connection points of an edge.
+	 * @return The index of pDiagram.
+	 * @pre pDiagram != null && pBounds != null && pRoutes != null
+	 */
+	public static DiagramIndex create(Diagram pDiagram, Function<Node, Rectangle> pBounds, Function<Edge, Line> pRoutes)
+	{
+		assert pDiagram != null && pBounds != null && pRoutes != null;
+		SerializationContext context = new SerializationContext(pDiagram);
+		List<IndexedNode> nodes = new ArrayList<>();
+		for( Node node : context )
+		{
+			nodes.add(new IndexedNode(node.getClass().getSimpleName(), pBounds.apply(node)));
+		}
+		List<IndexedEdge> edges = new ArrayList<>();
+		for( Edge edge : pDiagram.edges() )
+		{
+			edges.add(new IndexedEdge(edge.getClass().getSimpleName(), 
+					context.getId(edge.getStart()), context.getId(edge.getEnd()), pRoutes.apply(edge)));
+		}
+		return new DiagramIndex(pDiagram.getType(), nodes, edges);
+	}
+	
+	/**
+	 * @return The type of the indexed diagram.
+	 */
+	public DiagramType diagramType()
+	{
+		return aDiagramType;
+	}
+	
+	/**
+	 * @return The nodes of the diagram, in order of identifier.
+	 */
+	public List<IndexedNode> nodes()
+	{
+		return aNodes;
+	}
+	
+	/**
+	 * @return The edges of the diagram.
+	 */
+	public List<IndexedEdge> edges()
+	{
+		return aEdges;
+	}
+	
+	/**
+	 * @return The number of elements in the diagram.
+	 */
+	public int size()
+	{
+		return aNodes.size() + aEdges.size();
+	}
+	
+	/**
+	 * @return The smallest rectangle enclosing all the nodes of the diagram.
+	 */
+	public Rectangle getBounds()
+	{
+		if( aNodes.isEmpty() )
+		{
+			return new Rectangle(0, 0, 0, 0);
+		}
+		Rectangle bounds = aNodes.get(0).getBounds();
+		for( IndexedNode node : aNodes )
+		{
+			bounds = bounds.add(node.getBounds());
+		}
+		return bounds;
+	}
+	
+	/**
+	 * Checks whether pDiagram has the elements recorded in this index, in the
+	 * same order, and whether the routes of its edges were indexed. This is the
+	 * case when pDiagram was read from the indexed file.
+	 * 
+	 * @param pDiagram A diagram.
+	 * @return True if the bounds and routes of this index can be used for pDiagram.
+	 * @pre pDiagram != null
+	 */
+	public boolean matches(Diagram pDiagram)
+	{
+		assert pDiagram != null;
+		if( pDiagram.getType() != aDiagramType || pDiagram.edges().size() != aEdges.size() )
+		{
+			return false;
+		}
+		SerializationContext context = new SerializationContext(pDiagram);
+		int id = 0;
+		for( Node node : context )
+		{
+			if( id == aNodes.size() || !node.getClass().getSimpleName().equals(aNodes.get(id).getType()) )
+			{
+				return false;
+			}
+			id++;
+		}
+		if( id != aNodes.size() )
+		{
+			return false;
+		}
+		for( int i = 0; i < aEdges.size(); i++ )
+		{
+			if( !matches(aEdges.get(i), pDiagram.edges().get(i), context) )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static boolean matches(IndexedEdge pIndexed, Edge pEdge, SerializationContext pContext)
+	{
+		return pIndexed.getRoute().isPresent() && pEdge.getClass().getSimpleName().equals(pIndexed.getType()) &&
+				pContext.getId(pEdge.getStart()) == pIndexed.getStart() && pContext.getId(pEdge.getEnd()) == pIndexed.getEnd();
+	}
+	
+	/**
+	 * @param pDiagram The diagram read from the indexed file.
+	 * @return The bounds recorded for each node of pDiagram.
+	 * @pre matches(pDiagram)
+	 */
+	public Map<Node, Rectangle> getNodeBounds(Diagram pDiagram)
+	{
+		assert matches(pDiagram);
+		Map<Node, Rectangle> bounds = new IdentityHashMap<>();
+		int id = 0;
+		for( Node node : new SerializationContext(pDiagram) )
+		{
+			bounds.put(node, aNodes.get(id).getBounds());
+			id++;
+		}
+		return bounds;
+	}
+	
+	/**
+	 * @param pDiagram The diagram read from the indexed file.
+	 * @return The route recorded for each edge of pDiagram.
+	 * @pre matches(pDiagram)
+	 */
+	public Map<Edge, Line> getRoutes(Diagram pDiagram)
+	{
+		assert matches(pDiagram);
+		Map<Edge, Line> routes = new IdentityHashMap<>();
+		for( int i = 0; i < aEdges.size(); i++ )
+		{
+			routes.put(pDiagram.edges().get(i), aEdges.get(i).getRoute().get());
+		}
+		return routes;
+	}
+	
+	/*
+	 * Nodes, edges, and routes are stored as flat arrays of their fields, 
+	 * to keep the encoded index compact. Routes are only stored if all the 
+	 * edges have one.
+	 */
+	JSONObject toJSONObject()
+	{
+		JSONArray nodes = new JSONArray();
+		for( IndexedNode node : aNodes )
+		{
+			nodes.put(node.getType());
+			nodes.put(node.getBounds().getX());
+			nodes.put(node.getBounds().getY());
+			nodes.put(node.getBounds().getWidth());
+			nodes.put(node.getBounds().getHeight());
+		}
+		JSONArray edges = new JSONArray();
+		JSONArray routes = new JSONArray();
+		boolean routed = true;
+		for( IndexedEdge edge : aEdges )
+		{
+			edges.put(edge.getType());
+			edges.put(edge.getStart());
+			edges.put(edge.getEnd());
+			Optional<Line> route = edge.getRoute();
+			routed = routed && route.isPresent();
+			if( routed )
+			{
+				routes.put(route.get().getX1());
+				routes.put(route.get().getY1());
+				routes.put(route.get().getX2());
+				routes.put(route.get().getY2());
+			}
+		}
+		JSONObject object = new JSONObject();
+		object.put(KEY_DIAGRAM, aDiagramType.getName());
+		object.put(KEY_NODES, nodes);
+		object.put(KEY_EDGES, edges);
+		if( routed )
+		{
+			object.put(KEY_ROUTES, routes);
+		}
+		return object;
+	}
+	
+	/*
+	 * throws DeserializationException
+	 */
+	static DiagramIndex fromJSONObject(JSONObject pObject)
+	{
+		try
+		{
+			JSONArray nodeFields = pObject.getJSONArray(KEY_NODES);
+			List<IndexedNode> nodes = new ArrayList<>();
+			for( int i = 0; i + NODE_FIELDS <= nodeFields.length(); i += NODE_FIELDS )
+			{
+				nodes.add(new IndexedNode(nodeFields.getString(i), new Rectangle(nodeFields.getInt(i+1), 
+						nodeFields.getInt(i+2), nodeFields.getInt(i+3), nodeFields.getInt(i+4))));
+			}
+			JSONArray edgeFields = pObject.getJSONArray(KEY_EDGES);
+			JSONArray routeFields = pObject.has(KEY_ROUTES) ? pObject.getJSONArray(KEY_ROUTES) : null;
+			if( routeFields != null && routeFields.length() / ROUTE_FIELDS != edgeFields.length() / EDGE_FIELDS )
+			{
+				throw new DeserializationException("Invalid number of routes in index");
+			}
+			List<IndexedEdge> edges = new ArrayList<>();
+			for( int i = 0, j = 0; i + EDGE_FIELDS <= edgeFields.length(); i += EDGE_FIELDS, j += ROUTE_FIELDS )
+			{
+				Line route = null;
+				if( routeFields != null )
+				{
+					route = new Line(new Point(routeFields.getInt(j), routeFields.getInt(j+1)), 
+							new Point(routeFields.getInt(j+2), routeFields.getInt(j+3)));
+				}
+				IndexedEdge edge = new IndexedEdge(edgeFields.getString(i), edgeFields.getInt(i+1), edgeFields.getInt(i+2), route);
+				if( edge.getStart() < 0 || edge.getStart() >= nodes.size() || edge.getEnd() < 0 || edge.getEnd() >= nodes.size() )
+				{
+					throw new DeserializationException("Invalid node identifier in index");
+				}
+				edges.add(edge);
+			}
+			return new DiagramIndex(DiagramType.fromName(pObject.getString(KEY_DIAGRAM)), nodes, edges);
+		}
+		catch( JSONException | IllegalArgumentException exception )
+		{
+			throw new DeserializationException("Cannot decode index", exception);
+		}
+	}
+	
+	/**
+	 * A node in an index.
+	 */
+	public static final class IndexedNode
+	{
+		private final String aType;
+		private final Rectangle aBounds;
+		
+		private IndexedNode(String pType, Rectangle pBounds)
+		{
+			aType = pType;
+			aBounds = pBounds;
+		}
+		
+		/**
+		 * @return The simple name of the class of the node.
+		 */
+		public String getType()
+		{
+			return aType;
+		}
+		
+		/**
+		 * @return The bounds of the node.
+		 */
+		public Rectangle getBounds()
+		{
+			return aBounds;
+		}
+	}
+	
+	/**
+	 * An edge in an index.
+	 */
+	public static final class IndexedEdge
+	{
+		private final String aType;
+		private final int aStart;
+		private final int aEnd;
+		private final Line aRoute;
+		
+		private IndexedEdge(String pType, int pStart, int pEnd, Line pRoute)
+		{
+			aType = pType;
+			aStart = pStart;
+			aEnd = pEnd;
+			aRoute = pRoute;
+		}
+		
+		/**
+		 * @return The simple name of the class of the edge.
+		 */
+		public String getType()
+		{
+			return aType;
+		}
+		
+		/**
+		 * @return The identifier of the start node of the edge.
+		 */
+		public int getStart()
+		{
+			return aStart;
+		}
+		
+		/**
+		 * @return The identifier of the end node of the edge.
+		 */
+		public int getEnd()
+		{
+			return aEnd;
+		}
+		
+		/**
+		 * @return The connection points of the edge, if they were indexed.
+		 */
+		public Optional<Line> getRoute()
+		{
+			return Optional.ofNullable(aRoute);
+		}
+	}
+}
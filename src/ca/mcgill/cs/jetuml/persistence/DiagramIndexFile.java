@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Stores the index of a diagram file next to it, in a file with the 
+ * same name and an additional extension, in binary form. An index is bound
+ * to the size and modification time of the diagram file and of its log of 
+ * changes when the diagram is indexed, and is ignored once either of them 
+ * changes. Indexes can be written in the background, since encoding and 
+ * writing a large index takes time and the index is optional.
+ */
+public final class DiagramIndexFile
+{
+	private static final String EXTENSION = ".idx";
+	private static final String KEY_INDEX = "index";
+	private static final String KEY_BASE = "base";
+	private static final long FLUSH_TIMEOUT_SECONDS = 10;
+	
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(pTask -> 
+	{
+		Thread thread = new Thread(pTask, "JetUML Index Writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private DiagramIndexFile() {}
+	
+	/**
+	 * Saves an index of the diagram saved in pFile.
+	 * 
+	 * @param pFile The file in which the indexed diagram is saved.
+	 * @param pIndex The index of the diagram.
+	 * @throws IOException If there is a problem writing the index.
+	 * @pre pFile != null && pIndex != null
+	 */
+	public static void write(File pFile, DiagramIndex pIndex) throws IOException
+	{
+		assert pFile != null && pIndex != null;
+		write(pFile, pIndex, PersistenceService.stamp(pFile));
+	}
+	
+	/**
+	 * Saves an index of the diagram saved in pFile on a background thread. The
+	 * index is bound to the current state of pFile, so it is ignored if pFile
+	 * changes before the index is written. The index is not written if there is 
+	 * a problem writing it.
+	 * 
+	 * @param pFile The file in which the indexed diagram is saved.
+	 * @param pIndex The index of the diagram.
+	 * @pre pFile != null && pIndex != null
+	 */
+	public static void writeLater(File pFile, DiagramIndex pIndex)
+	{
+		assert pFile != null && pIndex != null;
+		String stamp = PersistenceService.stamp(pFile);
+		WRITER.execute(() -> 
+		{
+			try
+			{
+				write(pFile, pIndex, stamp);
+			}
+			catch( IOException exception )
+			{
+				// The index is optional: the diagram will be opened without its outline.
+			}
+		});
+	}
+	
+	/**
+	 * Blocks until all the indexes submitted so far have been written, 
+	 * or until a timeout expires.
+	 */
+	public static void flush()
+	{
+		try
+		{
+			WRITER.submit(() -> {}).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+		catch( InterruptedException exception )
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch( ExecutionException | TimeoutException exception )
+		{
+			// Nothing more can be done at this point
+		}
+	}
+	
+	private static void write(File pFile, DiagramIndex pIndex, String pStamp) throws IOException
+	{
+		JSONObject object = new JSONObject();
+		object.put(KEY_BASE, pStamp);
+		object.put(KEY_INDEX, pIndex.toJSONObject());
+		Files.write(fileFor(pFile).toPath(), BinaryEncoding.encode(object));
+	}
+	
+	/**
+	 * Reads the index of the diagram saved in pFile, if there is one
+	 * and it was saved for the current content of pFile.
+	 * 
+	 * @param pFile A diagram file.
+	 * @return The index of the diagram saved in pFile, if available.
+	 * @throws IOException If there is a problem reading the index.
+	 * @pre pFile != null
+	 */
+	public static Optional<DiagramIndex> read(File pFile) throws IOException
+	{
+		assert pFile != null;
+		Path index = fileFor(pFile).toPath();
+		if( !Files.exists(index) )
+		{
+			return Optional.empty();
+		}
+		try
+		{
+			JSONObject object = BinaryEncoding.read(index);
+			if( !PersistenceService.stamp(pFile).equals(object.getString(KEY_BASE)) )
+			{
+				return Optional.empty();
+			}
+			return Optional.of(DiagramIndex.fromJSONObject((JSONObject) object.get(KEY_INDEX)));
+		}
+		catch( DeserializationException | JSONException | ClassCastException exception )
+		{
+			return Optional.empty();
+		}
+	}
+	
+	/**
+	 * Deletes the index of the diagram saved in pFile, if there is one.
+	 * 
+	 * @param pFile A diagram file.
+	 * @throws IOException If there is a problem deleting the index.
+	 * @pre pFile != null
+	 */
+	public static void delete(File pFile) throws IOException
+	{
+		assert pFile != null;
+		Files.deleteIfExists(fileFor(pFile).toPath());
+	}
+	
+	private static File fileFor(File pFile)
+	{
+		return new File(pFile.getPath() + EXTENSION);
+	}
+}
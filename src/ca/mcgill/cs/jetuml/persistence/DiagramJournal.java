@@ -0,0 +1,469 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+
+/**
+ * Records the changes made to a diagram since it was last encoded in full,
+ * as a sequence of self-contained JSON entries that can be appended to a file
+ * one line at a time. Each entry describes the final state of the elements 
+ * affected by one operation: the nodes and edges that were removed, and the 
+ * complete encoding of the nodes and edges that were added or changed.
+ * 
+ * Nodes are identified with the same identifiers as the ones produced by 
+ * JsonEncoder for the diagram at the time the journal is created, and edges 
+ * with their index at that time. Elements added afterwards receive fresh 
+ * identifiers. Replaying the entries on the decoded snapshot with method
+ * replay reproduces the state of the diagram.
+ * 
+ * The relative order of root nodes is not tracked: root nodes are always 
+ * appended when they are restored, as is the case when they are added to 
+ * a diagram through a DiagramBuilder.
+ */
+public final class DiagramJournal
+{
+	private static final String KEY_NODES = "nodes";
+	private static final String KEY_EDGES = "edges";
+	private static final String KEY_REMOVED_NODES = "removedNodes";
+	private static final String KEY_REMOVED_EDGES = "removedEdges";
+	private static final String KEY_ID = "id";
+	private static final String KEY_TYPE = "type";
+	private static final String KEY_PARENT = "parent";
+	private static final String KEY_INDEX = "index";
+	private static final String KEY_CHILDREN = "children";
+	private static final String KEY_START = "start";
+	private static final String KEY_END = "end";
+	
+	private final Diagram aDiagram;
+	private final Map<Node, Integer> aNodeIds = new IdentityHashMap<>();
+	private final Map<Edge, Integer> aEdgeIds = new IdentityHashMap<>();
+	private int aNextNodeId;
+	private int aNextEdgeId;
+	
+	/**
+	 * Creates a journal for the current state of pDiagram. The state 
+	 * of the diagram when this constructor is called is the state that
+	 * must be encoded as the snapshot on which the entries will be replayed.
+	 * 
+	 * @param pDiagram The diagram to track.
+	 * @pre pDiagram != null
+	 */
+	public DiagramJournal(Diagram pDiagram)
+	{
+		assert pDiagram != null;
+		aDiagram = pDiagram;
+		SerializationContext context = new SerializationContext(pDiagram);
+		for( Node node : context )
+		{
+			aNodeIds.put(node, context.getId(node));
+		}
+		aNextNodeId = aNodeIds.size();
+		for( Edge edge : pDiagram.edges() )
+		{
+			aEdgeIds.put(edge, aNextEdgeId++);
+		}
+	}
+	
+	/**
+	 * Creates an entry that describes the current state of pElements. 
+	 * This method must be called after each change to the diagram, with all 
+	 * the elements that were changed, and before the diagram changes again.
+	 * 
+	 * @param pElements The elements that have changed since the last entry.
+	 * @return A JSON object that encodes the changes.
+	 * @pre pElements != null
+	 */
+	public JSONObject record(Iterable<DiagramElement> pElements)
+	{
+		assert pElements != null;
+		Map<Node, Integer> roots = indexMap(aDiagram.rootNodes());
+		Map<Edge, Integer> edgeIndices = new IdentityHashMap<>();
+		JSONArray removedNodes = new JSONArray();
+		JSONArray removedEdges = new JSONArray();
+		Set<Node> changedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<Edge> changedEdges = Collections.newSetFromMap(new IdentityHashMap<>());
+		for( DiagramElement element : pElements )
+		{
+			if( element instanceof Node )
+			{
+				Node node = (Node) element;
+				if( isInDiagram(node, roots) )
+				{
+					changedNodes.add(topmostUnknownAncestor(node));
+				}
+				else if( aNodeIds.containsKey(node) )
+				{
+					removedNodes.put(aNodeIds.get(node));
+				}
+			}
+			else if( element instanceof Edge )
+			{
+				if( edgeIndices.isEmpty() )
+				{
+					edgeIndices = indexMap(aDiagram.edges());
+				}
+				Edge edge = (Edge) element;
+				if( edgeIndices.containsKey(edge) )
+				{
+					changedEdges.add(edge);
+				}
+				else if( aEdgeIds.containsKey(edge) )
+				{
+					removedEdges.put(aEdgeIds.get(edge));
+				}
+			}
+		}
+		for( Edge edge : changedEdges )
+		{
+			for( Node node : List.of(edge.getStart(), edge.getEnd()) )
+			{
+				if( !aNodeIds.containsKey(node) )
+				{
+					changedNodes.add(topmostUnknownAncestor(node));
+				}
+			}
+		}
+		JSONObject entry = new JSONObject();
+		entry.put(KEY_REMOVED_EDGES, removedEdges);
+		entry.put(KEY_REMOVED_NODES, removedNodes);
+		entry.put(KEY_NODES, encodeNodes(changedNodes, roots));
+		List<Edge> sortedEdges = new ArrayList<>(changedEdges);
+		Map<Edge, Integer> indices = edgeIndices;
+		sortedEdges.sort(Comparator.comparing(indices::get));
+		JSONArray encodedEdges = new JSONArray();
+		for( Edge edge : sortedEdges )
+		{
+			encodedEdges.put(encodeEdge(edge, indices.get(edge)));
+		}
+		entry.put(KEY_EDGES, encodedEdges);
+		return entry;
+	}
+	
+	/*
+	 * Only the nodes that are not contained in another changed node need to 
+	 * be encoded, since nodes are encoded with their children. Nodes are 
+	 * encoded in increasing order of their position in their parent so that
+	 * they can be reinserted in sequence.
+	 */
+	private JSONArray encodeNodes(Set<Node> pNodes, Map<Node, Integer> pRoots)
+	{
+		List<Node> nodes = new ArrayList<>();
+		for( Node node : pNodes )
+		{
+			if( !hasAncestorIn(node, pNodes) )
+			{
+				nodes.add(node);
+			}
+		}
+		Map<Node, Integer> indices = new IdentityHashMap<>();
+		for( Node node : nodes )
+		{
+			indices.put(node, node.hasParent() ? node.getParent().getChildren().indexOf(node) : pRoots.get(node));
+		}
+		nodes.sort(Comparator.comparing(indices::get));
+		JSONArray result = new JSONArray();
+		for( Node node : nodes )
+		{
+			JSONObject object = encodeNode(node);
+			if( node.hasParent() )
+			{
+				object.put(KEY_PARENT, idOf(node.getParent()));
+				object.put(KEY_INDEX, indices.get(node));
+			}
+			result.put(object);
+		}
+		return result;
+	}
+	
+	private JSONObject encodeNode(Node pNode)
+	{
+		JSONObject object = JsonEncoder.toJSONObject(pNode);
+		object.put(KEY_ID, idOf(pNode));
+		object.put(KEY_TYPE, pNode.getClass().getSimpleName());
+		JSONArray children = new JSONArray();
+		for( Node child : pNode.getChildren() )
+		{
+			children.put(encodeNode(child));
+		}
+		object.put(KEY_CHILDREN, children);
+		return object;
+	}
+	
+	private JSONObject encodeEdge(Edge pEdge, int pIndex)
+	{
+		JSONObject object = JsonEncoder.toJSONObject(pEdge);
+		object.put(KEY_ID, aEdgeIds.computeIfAbsent(pEdge, edge -> aNextEdgeId++));
+		object.put(KEY_TYPE, pEdge.getClass().getSimpleName());
+		object.put(KEY_START, idOf(pEdge.getStart()));
+		object.put(KEY_END, idOf(pEdge.getEnd()));
+		object.put(KEY_INDEX, pIndex);
+		return object;
+	}
+	
+	private int idOf(Node pNode)
+	{
+		return aNodeIds.computeIfAbsent(pNode, node -> aNextNodeId++);
+	}
+	
+	/*
+	 * A node that was never recorded can only be restored if its parent
+	 * is known, so we record the first of its ancestors that is not a 
+	 * child of an unrecorded node.
+	 */
+	private Node topmostUnknownAncestor(Node pNode)
+	{
+		Node result = pNode;
+		while( result.hasParent() && !aNodeIds.containsKey(result.getParent()) )
+		{
+			result = result.getParent();
+		}
+		return result;
+	}
+	
+	private static boolean isInDiagram(Node pNode, Map<Node, Integer> pRoots)
+	{
+		return pRoots.containsKey(pNode.getRoot());
+	}
+	
+	private static boolean hasAncestorIn(Node pNode, Set<Node> pNodes)
+	{
+		Node node = pNode;
+		while( node.hasParent() )
+		{
+			node = node.getParent();
+			if( pNodes.contains(node) )
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static <T> Map<T, Integer> indexMap(List<T> pElements)
+	{
+		Map<T, Integer> result = new IdentityHashMap<>();
+		for( int i = 0; i < pElements.size(); i++ )
+		{
+			result.put(pElements.get(i), i);
+		}
+		return result;
+	}
+	
+	/**
+	 * Decodes a snapshot and applies the journal entries recorded since the
+	 * snapshot was taken.
+	 * 
+	 * @param pSnapshot A diagram encoded with JsonEncoder.
+	 * @param pEntries The entries recorded with a DiagramJournal created for the diagram 
+	 *     in the state encoded in pSnapshot, in the order they were recorded.
+	 * @return The diagram in the state described by the last entry.
+	 * @throws DeserializationException If the snapshot or one of the entries cannot be decoded.
+	 * @pre pSnapshot != null && pEntries != null
+	 */
+	public static Diagram replay(JSONObject pSnapshot, Iterable<JSONObject> pEntries)
+	{
+		assert pSnapshot != null && pEntries != null;
+		DeserializationContext context = JsonDecoder.decodeInContext(pSnapshot);
+		Replay replay = new Replay(context);
+		try
+		{
+			for( JSONObject entry : pEntries )
+			{
+				replay.apply(entry);
+			}
+		}
+		catch( JSONException | IllegalArgumentException | IllegalStateException exception )
+		{
+			throw new DeserializationException("Cannot replay journal entry", exception);
+		}
+		return context.pDiagram();
+	}
+	
+	/*
+	 * The state required to apply a sequence of entries to a diagram.
+	 */
+	private static final class Replay
+	{
+		private final Diagram aDiagram;
+		private final Map<Integer, Node> aNodes = new HashMap<>();
+		private final Map<Integer, Edge> aEdges = new HashMap<>();
+		
+		Replay(DeserializationContext pContext)
+		{
+			aDiagram = pContext.pDiagram();
+			for( Node node : pContext )
+			{
+				aNodes.put(pContext.getId(node), node);
+			}
+			List<Edge> edges = aDiagram.edges();
+			for( int i = 0; i < edges.size(); i++ )
+			{
+				aEdges.put(i, edges.get(i));
+			}
+		}
+		
+		void apply(JSONObject pEntry)
+		{
+			JSONArray removedEdges = pEntry.getJSONArray(KEY_REMOVED_EDGES);
+			for( int i = 0; i < removedEdges.length(); i++ )
+			{
+				Edge edge = known(aEdges, removedEdges.getInt(i));
+				if( aDiagram.edges().contains(edge) )
+				{
+					aDiagram.removeEdge(edge);
+				}
+			}
+			JSONArray removedNodes = pEntry.getJSONArray(KEY_REMOVED_NODES);
+			for( int i = 0; i < removedNodes.length(); i++ )
+			{
+				detach(known(aNodes, removedNodes.getInt(i)));
+			}
+			JSONArray nodes = pEntry.getJSONArray(KEY_NODES);
+			for( int i = 0; i < nodes.length(); i++ )
+			{
+				JSONObject object = nodes.getJSONObject(i);
+				Node node = update(object);
+				if( object.has(KEY_PARENT) )
+				{
+					Node parent = known(aNodes, object.getInt(KEY_PARENT));
+					if( !node.hasParent() || node.getParent() != parent )
+					{
+						detach(node);
+						parent.addChild(Math.min(object.getInt(KEY_INDEX), parent.getChildren().size()), node);
+						attach(node);
+					}
+				}
+				else if( !aDiagram.containsAsRoot(node) )
+				{
+					detach(node);
+					aDiagram.addRootNode(node);
+				}
+			}
+			JSONArray edges = pEntry.getJSONArray(KEY_EDGES);
+			for( int i = 0; i < edges.length(); i++ )
+			{
+				JSONObject object = edges.getJSONObject(i);
+				Edge edge = aEdges.get(object.getInt(KEY_ID));
+				if( edge == null )
+				{
+					edge = JsonDecoder.createEdge(object);
+					aEdges.put(object.getInt(KEY_ID), edge);
+				}
+				else
+				{
+					JsonDecoder.setProperties(edge, object);
+				}
+				edge.connect(known(aNodes, object.getInt(KEY_START)), known(aNodes, object.getInt(KEY_END)), aDiagram);
+				if( !aDiagram.edges().contains(edge) )
+				{
+					aDiagram.addEdge(Math.min(object.getInt(KEY_INDEX), aDiagram.edges().size()), edge);
+				}
+			}
+		}
+		
+		/*
+		 * Creates or updates the node encoded in pObject, with its children, 
+		 * without changing its location in the diagram.
+		 */
+		private Node update(JSONObject pObject)
+		{
+			Node node = aNodes.get(pObject.getInt(KEY_ID));
+			if( node == null )
+			{
+				node = JsonDecoder.createNode(pObject);
+				aNodes.put(pObject.getInt(KEY_ID), node);
+			}
+			else
+			{
+				JsonDecoder.setProperties(node, pObject);
+			}
+			JSONArray encodedChildren = pObject.getJSONArray(KEY_CHILDREN);
+			List<Node> children = new ArrayList<>();
+			for( int i = 0; i < encodedChildren.length(); i++ )
+			{
+				children.add(update(encodedChildren.getJSONObject(i)));
+			}
+			if( !children.equals(node.getChildren()) )
+			{
+				for( Node child : new ArrayList<>(node.getChildren()) )
+				{
+					node.removeChild(child);
+				}
+				for( Node child : children )
+				{
+					detach(child);
+					node.addChild(child);
+					if( node.getDiagram().isPresent() )
+					{
+						attach(child);
+					}
+				}
+			}
+			return node;
+		}
+		
+		private void detach(Node pNode)
+		{
+			if( pNode.hasParent() )
+			{
+				pNode.getParent().removeChild(pNode);
+				pNode.detach();
+			}
+			else if( aDiagram.containsAsRoot(pNode) )
+			{
+				aDiagram.removeRootNode(pNode);
+			}
+		}
+		
+		private void attach(Node pNode)
+		{
+			pNode.attach(aDiagram);
+			pNode.getChildren().forEach(this::attach);
+		}
+		
+		private static <T> T known(Map<Integer, T> pElements, int pId)
+		{
+			T element = pElements.get(pId);
+			if( element == null )
+			{
+				throw new IllegalStateException("Unknown element identifier: " + pId);
+			}
+			return element;
+		}
+	}
+}
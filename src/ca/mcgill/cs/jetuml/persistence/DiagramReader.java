@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reads diagram files concurrently on a shared pool of worker threads. 
+ * Reading a file includes reading its index, decoding it, migrating it 
+ * if it was saved by an older version, and replaying its log of changes. 
+ * The progress of each read is reported to a listener through a callback 
+ * executor, typically the JavaFX application thread, which is then only 
+ * left with building the views of the diagrams.
+ */
+public final class DiagramReader
+{
+	private static final int WORKER_COUNT = Runtime.getRuntime().availableProcessors();
+	
+	private static final ExecutorService WORKERS = Executors.newFixedThreadPool(WORKER_COUNT, pTask -> 
+	{
+		Thread thread = new Thread(pTask, "JetUML Diagram Reader");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private final Executor aCallbackExecutor;
+	
+	/**
+	 * Creates a reader that notifies its listeners through pCallbackExecutor.
+	 * 
+	 * @param pCallbackExecutor The executor on which to run the listener callbacks.
+	 * @pre pCallbackExecutor != null
+	 */
+	public DiagramReader(Executor pCallbackExecutor)
+	{
+		assert pCallbackExecutor != null;
+		aCallbackExecutor = pCallbackExecutor;
+	}
+	
+	/**
+	 * Reads pFile in the background. If the file has a valid index, the listener is 
+	 * first given the index, then it is given either the diagram or the reason why 
+	 * it could not be read. 
+	 * 
+	 * @param pFile The file to read.
+	 * @param pListener The listener to notify.
+	 * @pre pFile != null && pListener != null
+	 */
+	public void read(File pFile, Listener pListener)
+	{
+		assert pFile != null && pListener != null;
+		WORKERS.execute(() -> 
+		{
+			long start = System.nanoTime();
+			try
+			{
+				Optional<DiagramIndex> index = DiagramIndexFile.read(pFile);
+				if( index.isPresent() )
+				{
+					aCallbackExecutor.execute(() -> pListener.indexRead(pFile, index.get()));
+				}
+				VersionedDiagram diagram = PersistenceService.read(pFile);
+				long nanos = System.nanoTime() - start;
+				aCallbackExecutor.execute(() -> pListener.diagramRead(pFile, diagram, nanos));
+			}
+			catch( Exception exception )
+			{
+				// Any failure, including an unexpected content, is reported, so that the listener always gets an outcome.
+				aCallbackExecutor.execute(() -> pListener.readFailed(pFile, exception));
+			}
+		});
+	}
+	
+	/**
+	 * Receives the outcome of reading a file. All methods are called through 
+	 * the callback executor of the reader.
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called when the index of a file is read, before the diagram is read.
+		 * 
+		 * @param pFile The file being read.
+		 * @param pIndex The index of the diagram in the file.
+		 */
+		default void indexRead(File pFile, DiagramIndex pIndex) {}
+		
+		/**
+		 * Called when a diagram is read.
+		 * 
+		 * @param pFile The file read.
+		 * @param pDiagram The diagram read.
+		 * @param pReadNanos The time taken to read the file, in nanoseconds.
+		 */
+		void diagramRead(File pFile, VersionedDiagram pDiagram, long pReadNanos);
+		
+		/**
+		 * Called when a file cannot be read.
+		 * 
+		 * @param pFile The file that could not be read.
+		 * @param pException The reason why the file could not be read.
+		 */
+		void readFailed(File pFile, Exception pException);
+	}
+}
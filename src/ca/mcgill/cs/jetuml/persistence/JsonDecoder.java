@@ -20,15 +20,20 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.persistence;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
 import ca.mcgill.cs.jetuml.diagram.DiagramType;
 import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.diagram.Node;
-import ca.mcgill.cs.jetuml.diagram.Property;
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
 
 /**
  * Converts a JSONObject to a versioned diagram.
@@ -46,6 +51,16 @@ public final class JsonDecoder
 	 * @throws DeserializationException If it's not possible to decode the object into a valid diagram.
 	 */
 	public static Diagram decode(JSONObject pDiagram)
+	{
+		return decodeInContext(pDiagram).pDiagram();
+	}
+	
+	/*
+	 * Decodes pDiagram and returns the context that maps the decoded 
+	 * nodes to their serialized identifiers.
+	 * throws Deserialization Exception
+	 */
+	static DeserializationContext decodeInContext(JSONObject pDiagram)
 	{
 		assert pDiagram != null;
 		try
@@ -57,7 +72,7 @@ public final class JsonDecoder
 			restoreRootNodes(context);
 			decodeEdges(context, pDiagram);
 			context.attachNodes();
-			return diagram;
+			return context;
 		}
 		catch( JSONException | IllegalArgumentException exception )
 		{
@@ -75,36 +90,48 @@ public final class JsonDecoder
 		JSONArray nodes = pObject.getJSONArray("nodes");
 		for( int i = 0; i < nodes.length(); i++ )
 		{
-			try
-			{
-				JSONObject object = nodes.getJSONObject(i);
-				Class<?> nodeClass = Class.forName(PREFIX_NODES + object.getString("type"));
-				Node node = (Node) nodeClass.getDeclaredConstructor().newInstance();
-				for( Property property : node.properties() )
-				{
-					property.set(object.get(property.getName()));
-				}
-				pContext.addNode(node, object.getInt("id"));
-			}
-			catch( ReflectiveOperationException exception )
-			{
-				throw new DeserializationException("Cannot instantiate serialized object", exception);
-			}
+			JSONObject object = nodes.getJSONObject(i);
+			pContext.addNode(createNode(object), object.getInt("id"));
+		}
+	}
+	
+	/*
+	 * Creates a node of the type encoded in pObject and initializes its properties. 
+	 * The node is not attached to any diagram or parent.
+	 * throws Deserialization Exception
+	 */
+	static Node createNode(JSONObject pObject)
+	{
+		try
+		{
+			Class<?> nodeClass = Class.forName(PREFIX_NODES + pObject.getString("type"));
+			Node node = (Node) nodeClass.getDeclaredConstructor().newInstance();
+			setProperties(node, pObject);
+			return node;
+		}
+		catch( ReflectiveOperationException exception )
+		{
+			throw new DeserializationException("Cannot instantiate serialized object", exception);
 		}
 	}
 	
 	/* 
-	 * Discovers the root nodes and stores them in the diagram.
+	 * Discovers the root nodes and stores them in the diagram. Since identifiers
+	 * are assigned in depth-first order, sorting the root nodes by identifier
+	 * restores their original order.
 	 */
 	private static void restoreRootNodes(DeserializationContext pContext)
 	{
+		List<Node> roots = new ArrayList<>();
 		for( Node node : pContext )
 		{
 			if( !node.hasParent() )
 			{
-				pContext.pDiagram().addRootNode(node);
+				roots.add(node);
 			}
 		}
+		roots.sort(Comparator.comparingInt(pContext::getId));
+		roots.forEach(pContext.pDiagram()::addRootNode);
 	}
 	
 	/* 
@@ -139,23 +166,42 @@ public final class JsonDecoder
 		JSONArray edges = pObject.getJSONArray("edges");
 		for( int i = 0; i < edges.length(); i++ )
 		{
-			try
-			{
-				JSONObject object = edges.getJSONObject(i);
-				Class<?> edgeClass = Class.forName(PREFIX_EDGES + object.getString("type"));
-				Edge edge = (Edge) edgeClass.getDeclaredConstructor().newInstance();
-				
-				for( Property property : edge.properties())
-				{
-					property.set(object.get(property.getName()));
-				}
-				edge.connect(pContext.getNode(object.getInt("start")), pContext.getNode(object.getInt("end")), pContext.pDiagram());
-				pContext.pDiagram().addEdge(edge);
-			}
-			catch( ReflectiveOperationException exception )
-			{
-				throw new DeserializationException("Cannot instantiate serialized object", exception);
-			}
+			JSONObject object = edges.getJSONObject(i);
+			Edge edge = createEdge(object);
+			edge.connect(pContext.getNode(object.getInt("start")), pContext.getNode(object.getInt("end")), pContext.pDiagram());
+			pContext.pDiagram().addEdge(edge);
+		}
+	}
+	
+	/*
+	 * Creates an edge of the type encoded in pObject and initializes its properties. 
+	 * The edge is not connected.
+	 * throws Deserialization Exception
+	 */
+	static Edge createEdge(JSONObject pObject)
+	{
+		try
+		{
+			Class<?> edgeClass = Class.forName(PREFIX_EDGES + pObject.getString("type"));
+			Edge edge = (Edge) edgeClass.getDeclaredConstructor().newInstance();
+			setProperties(edge, pObject);
+			return edge;
+		}
+		catch( ReflectiveOperationException exception )
+		{
+			throw new DeserializationException("Cannot instantiate serialized object", exception);
+		}
+	}
+	
+	/*
+	 * Assigns to each property of pElement the value stored under its name in pObject.
+	 */
+	static void setProperties(DiagramElement pElement, JSONObject pObject)
+	{
+		PropertyDescriptors descriptors = pElement.propertyDescriptors();
+		for( int i = 0; i < descriptors.size(); i++ )
+		{
+			pElement.setPropertyValue(i, pObject.get(descriptors.getName(i)));
 		}
 	}
 }
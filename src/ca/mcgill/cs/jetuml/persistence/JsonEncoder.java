@@ -25,10 +25,10 @@ import org.json.JSONObject;
 
 import ca.mcgill.cs.jetuml.JetUML;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
 import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.diagram.Node;
-import ca.mcgill.cs.jetuml.diagram.Properties;
-import ca.mcgill.cs.jetuml.diagram.Property;
+import ca.mcgill.cs.jetuml.diagram.PropertyDescriptors;
 
 /**
  * Converts a graph to JSON notation. The notation includes:
@@ -70,7 +70,7 @@ public final class JsonEncoder
 	
 	private static JSONObject encodeNode(Node pNode, SerializationContext pContext)
 	{
-		JSONObject object = toJSONObject(pNode.properties());
+		JSONObject object = toJSONObject(pNode);
 		object.put("id", pContext.getId(pNode));
 		object.put("type", pNode.getClass().getSimpleName());
 		if( pNode.getChildren().size() > 0 )
@@ -92,7 +92,7 @@ public final class JsonEncoder
 		JSONArray edges = new JSONArray();
 		for( Edge edge : pContext.pDiagram().edges() ) 
 		{
-			JSONObject object = toJSONObject(edge.properties());
+			JSONObject object = toJSONObject(edge);
 			object.put("type", edge.getClass().getSimpleName());
 			object.put("start", pContext.getId(edge.getStart()));
 			object.put("end", pContext.getId(edge.getEnd()));
@@ -102,23 +102,24 @@ public final class JsonEncoder
 		return edges;
 	}
 	
-	private static JSONObject toJSONObject(Properties pProperties)
+	static JSONObject toJSONObject(DiagramElement pElement)
 	{
 		JSONObject object = new JSONObject();
-		for( Property property : pProperties )
+		PropertyDescriptors descriptors = pElement.propertyDescriptors();
+		for( int i = 0; i < descriptors.size(); i++ )
 		{
-			Object value = property.get();
+			Object value = pElement.getPropertyValue(i);
 			if( value instanceof String || value instanceof Enum )
 			{
-				object.put(property.getName(), value.toString());
+				object.put(descriptors.getName(i), value.toString());
 			}
 			else if( value instanceof Integer)
 			{
-				object.put(property.getName(), (int) value);
+				object.put(descriptors.getName(i), (int) value);
 			}
 			else if( value instanceof Boolean)
 			{
-				object.put(property.getName(), (boolean) value);
+				object.put(descriptors.getName(i), (boolean) value);
 			}
 		}
 		return object;
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import ca.mcgill.cs.jetuml.application.Version;
+
+/**
+ * The outcome of the migration of a set of diagram files, as produced by
+ * VersionMigrator.migrateAll.
+ */
+public final class MigrationReport
+{
+	private final List<Outcome> aOutcomes;
+	
+	MigrationReport(List<Outcome> pOutcomes)
+	{
+		aOutcomes = Collections.unmodifiableList(new ArrayList<>(pOutcomes));
+	}
+	
+	/**
+	 * @return The outcome for each file, in order of file name.
+	 */
+	public List<Outcome> outcomes()
+	{
+		return aOutcomes;
+	}
+	
+	/**
+	 * @return The number of files that had to be transformed to be migrated.
+	 */
+	public int getMigratedCount()
+	{
+		return (int) aOutcomes.stream().filter(Outcome::wasMigrated).count();
+	}
+	
+	/**
+	 * @return The number of files that could not be migrated.
+	 */
+	public int getFailureCount()
+	{
+		return (int) aOutcomes.stream().filter(outcome -> outcome.getError().isPresent()).count();
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder result = new StringBuilder();
+		for( Outcome outcome : aOutcomes )
+		{
+			result.append(outcome).append(System.lineSeparator());
+		}
+		result.append(String.format("%d files, %d migrated, %d unchanged, %d failed", aOutcomes.size(), 
+				getMigratedCount(), aOutcomes.size() - getMigratedCount() - getFailureCount(), getFailureCount()));
+		return result.toString();
+	}
+	
+	/**
+	 * The outcome of the migration of one file.
+	 */
+	public static final class Outcome
+	{
+		private final File aFile;
+		private final Optional<Version> aVersion;
+		private final boolean aMigrated;
+		private final Optional<String> aError;
+		
+		private Outcome(File pFile, Optional<Version> pVersion, boolean pMigrated, Optional<String> pError)
+		{
+			aFile = pFile;
+			aVersion = pVersion;
+			aMigrated = pMigrated;
+			aError = pError;
+		}
+		
+		static Outcome success(File pFile, Version pVersion, boolean pMigrated)
+		{
+			return new Outcome(pFile, Optional.of(pVersion), pMigrated, Optional.empty());
+		}
+		
+		static Outcome failure(File pFile, Exception pException)
+		{
+			return new Outcome(pFile, Optional.empty(), false, Optional.of(String.valueOf(pException.getMessage())));
+		}
+		
+		/**
+		 * @return The migrated file.
+		 */
+		public File getFile()
+		{
+			return aFile;
+		}
+		
+		/**
+		 * @return The version of JetUML with which the file had been saved, 
+		 *     if the file could be read.
+		 */
+		public Optional<Version> getVersion()
+		{
+			return aVersion;
+		}
+		
+		/**
+		 * @return True if the diagram had to be transformed to be migrated.
+		 */
+		public boolean wasMigrated()
+		{
+			return aMigrated;
+		}
+		
+		/**
+		 * @return A description of the problem that prevented the migration, if any.
+		 */
+		public Optional<String> getError()
+		{
+			return aError;
+		}
+		
+		@Override
+		public String toString()
+		{
+			if( aError.isPresent() )
+			{
+				return String.format("%s: failed (%s)", aFile.getName(), aError.get());
+			}
+			return String.format("%s: %s from %s", aFile.getName(), aMigrated ? "migrated" : "unchanged", aVersion.get());
+		}
+	}
+}
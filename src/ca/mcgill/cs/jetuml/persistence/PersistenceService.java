@@ -22,29 +22,56 @@ package ca.mcgill.cs.jetuml.persistence;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import ca.mcgill.cs.jetuml.application.FileExtensions;
+import ca.mcgill.cs.jetuml.application.FlightRecorderEvents.FileEvent;
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.application.Version;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 
 /**
- * Services for saving and loading Diagram objects. The files are encoded
- * in UTF-8.
+ * Services for saving and loading Diagram objects. 
+ * 
+ * Diagram files are encoded in UTF-8, except for files with the binary 
+ * extension, which use the compact format of BinaryEncoding. When a file 
+ * is read, its format is recognized from its content.
+ * 
+ * A diagram file can be accompanied by a log of the changes saved 
+ * incrementally since the diagram was last written in full. The log is 
+ * applied when the diagram is read.
  */
 public final class PersistenceService
 {
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+	private static final String LOG_EXTENSION = ".log";
+	private static final String KEY_BASE = "base";
+	private static final String HASH_ALGORITHM = "SHA-256";
+	private static final Metrics.Timer SAVE_TIMER = Metrics.timer(Metrics.PERSISTENCE_SAVE);
+	private static final Metrics.Timer READ_TIMER = Metrics.timer(Metrics.PERSISTENCE_READ);
+	
 	private PersistenceService() {}
 	
 	/**
-     * Saves the current diagram in a file. 
+     * Saves the current diagram in a file. Any log of changes
+     * previously appended to the file and any index of the file are deleted.
      * 
      * @param pDiagram The diagram to save
      * @param pFile The file in which to save the diagram
@@ -55,10 +82,66 @@ public final class PersistenceService
 	public static void save(Diagram pDiagram, File pFile) throws IOException
 	{
 		assert pDiagram != null && pFile != null;
-		try( PrintWriter out = new PrintWriter(
-				new OutputStreamWriter(new FileOutputStream(pFile), StandardCharsets.UTF_8)))
+		FileEvent event = new FileEvent();
+		event.begin();
+		long start = SAVE_TIMER.start();
+		try
+		{
+			write(JsonEncoder.encode(pDiagram), pFile);
+			Files.deleteIfExists(logFileFor(pFile).toPath());
+			DiagramIndexFile.delete(pFile);
+			commit(event, true, pFile, Optional.of(pDiagram), false);
+		}
+		catch(IOException exception)
+		{
+			commit(event, true, pFile, Optional.of(pDiagram), true);
+			throw exception;
+		}
+		finally
+		{
+			SAVE_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Writes an encoded diagram to a file. The content is first written to 
+	 * a temporary file in the same directory, which then replaces pFile, so 
+	 * that an interrupted write never leaves a truncated diagram behind. 
+	 * The diagram is written in binary form if pFile has the binary extension.
+	 * This method does not access the diagram, so it can be called from any thread.
+	 * 
+	 * @param pEncodedDiagram The diagram to save, as encoded by JsonEncoder.
+	 * @param pFile The file in which to save the diagram
+	 * @throws IOException If there is a problem writing to pFile.
+	 * @pre pEncodedDiagram != null && pFile != null.
+	 */
+	public static void write(JSONObject pEncodedDiagram, File pFile) throws IOException
+	{
+		assert pEncodedDiagram != null && pFile != null;
+		Path target = pFile.toPath().toAbsolutePath();
+		Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), TEMPORARY_EXTENSION);
+		try
+		{
+			if( FileExtensions.isBinary(pFile) )
+			{
+				Files.write(temporary, BinaryEncoding.encode(pEncodedDiagram));
+			}
+			else
+			{
+				Files.write(temporary, (pEncodedDiagram.toString() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+			}
+			try
+			{
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch( AtomicMoveNotSupportedException exception )
+			{
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
 		{
-			out.println(JsonEncoder.encode(pDiagram).toString());
+			Files.deleteIfExists(temporary);
 		}
 	}
 	
@@ -74,16 +157,208 @@ public final class PersistenceService
 	public static VersionedDiagram read(File pFile) throws IOException, DeserializationException
 	{
 		assert pFile != null;
-		try( BufferedReader in = new BufferedReader(
-				new InputStreamReader(new FileInputStream(pFile), StandardCharsets.UTF_8)))
+		FileEvent event = new FileEvent();
+		event.begin();
+		long start = READ_TIMER.start();
+		try
+		{
+			VersionedDiagram diagram = readDiagram(pFile);
+			commit(event, false, pFile, Optional.of(diagram.diagram()), false);
+			return diagram;
+		}
+		catch(IOException | DeserializationException exception)
+		{
+			commit(event, false, pFile, Optional.empty(), true);
+			throw exception;
+		}
+		finally
+		{
+			READ_TIMER.stop(start);
+		}
+	}
+	
+	/*
+	 * Commits an event for a file. The diagram is empty if it could not be read.
+	 */
+	private static void commit(FileEvent pEvent, boolean pSave, File pFile, Optional<Diagram> pDiagram, boolean pFailed)
+	{
+		pEvent.end();
+		if( pEvent.shouldCommit() )
 		{
+			pEvent.setFile(pSave, pFile.getPath(), pFile.length(), pFailed);
+			pDiagram.ifPresent(pEvent::setDiagram);
+			pEvent.commit();
+		}
+	}
+	
+	private static VersionedDiagram readDiagram(File pFile) throws IOException, DeserializationException
+	{
+		File log = logFileFor(pFile);
+		try
+		{
+			if( log.exists() )
+			{
+				byte[] content = Files.readAllBytes(pFile.toPath());
+				Optional<List<JSONObject>> entries = readLog(log, hash(content));
+				if( entries.isPresent() )
+				{
+					JSONObject object = decode(content);
+					return new VersionedDiagram(DiagramJournal.replay(object, entries.get()), 
+							Version.parse(object.getString("version")), false);
+				}
+			}
 			// Extra wrapper to support backward compatibility. Eventually take down the migrator.
 			// Replace VersionMigrator.migrate with JSonDecoder.decode
-			return new VersionMigrator().migrate(new JSONObject(in.readLine())); 
+			return new VersionMigrator().migrate(readObject(pFile.toPath())); 
 		}
 		catch( JSONException e )
 		{
 			throw new DeserializationException("Cannot decode the file", e);
 		}
 	}
+	
+	/*
+	 * Reads the JSON object encoded in a file, in either format.
+	 * Binary files are mapped in memory instead of being copied.
+	 */
+	private static JSONObject readObject(Path pPath) throws IOException
+	{
+		try( FileChannel channel = FileChannel.open(pPath, StandardOpenOption.READ) )
+		{
+			ByteBuffer magic = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.BYTES));
+			channel.read(magic, 0);
+			magic.flip();
+			if( BinaryEncoding.isBinary(magic) )
+			{
+				return BinaryEncoding.decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			}
+			BufferedReader in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+			return new JSONObject(in.readLine());
+		}
+	}
+	
+	/*
+	 * Decodes the JSON object encoded in the content of a file, in either format.
+	 */
+	private static JSONObject decode(byte[] pContent)
+	{
+		ByteBuffer content = ByteBuffer.wrap(pContent);
+		if( BinaryEncoding.isBinary(content) )
+		{
+			return BinaryEncoding.decode(content);
+		}
+		return new JSONObject(new String(pContent, StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * @param pFile A diagram file.
+	 * @return The file that holds the changes saved incrementally to pFile, 
+	 *     which may not exist.
+	 * @pre pFile != null
+	 */
+	public static File logFileFor(File pFile)
+	{
+		assert pFile != null;
+		return new File(pFile.getPath() + LOG_EXTENSION);
+	}
+	
+	/**
+	 * Identifies the saved state of a diagram file and of its log from their 
+	 * sizes and modification times, without reading them.
+	 * 
+	 * @param pFile A diagram file.
+	 * @return A string that changes when pFile or its log is modified.
+	 * @pre pFile != null
+	 */
+	public static String stamp(File pFile)
+	{
+		assert pFile != null;
+		File log = logFileFor(pFile);
+		return String.format("%d:%d:%d:%d", pFile.length(), pFile.lastModified(), log.length(), log.lastModified());
+	}
+	
+	/**
+	 * Saves changes to a diagram by appending them to the log of pFile, instead 
+	 * of rewriting the entire diagram. The entries must have been recorded with 
+	 * a DiagramJournal created when the diagram was in the state saved in pFile, 
+	 * and all the entries recorded since must be appended in order. The 
+	 * log is bound to the current content of pFile: it is ignored if pFile is
+	 * modified by other means, and deleted when the diagram is saved in full 
+	 * with method save.
+	 * 
+	 * @param pFile The file in which the diagram was last saved in full.
+	 * @param pEntries The journal entries to append.
+	 * @throws IOException If there is a problem reading pFile or writing to its log.
+	 * @pre pFile != null && pEntries != null
+	 */
+	public static void appendToLog(File pFile, List<JSONObject> pEntries) throws IOException
+	{
+		assert pFile != null && pEntries != null;
+		Path log = logFileFor(pFile).toPath();
+		List<String> lines = new ArrayList<>();
+		if( !Files.exists(log) )
+		{
+			lines.add(new JSONObject().put(KEY_BASE, hash(Files.readAllBytes(pFile.toPath()))).toString());
+		}
+		for( JSONObject entry : pEntries )
+		{
+			lines.add(entry.toString());
+		}
+		Files.write(log, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+	
+	/*
+	 * Returns the entries of the log, or empty if the log was not created
+	 * for the version of the file with hash pBase. An entry that was not
+	 * completely written ends the log.
+	 */
+	private static Optional<List<JSONObject>> readLog(File pLog, String pBase) throws IOException
+	{
+		List<String> lines = Files.readAllLines(pLog.toPath(), StandardCharsets.UTF_8);
+		List<JSONObject> entries = new ArrayList<>();
+		try
+		{
+			if( lines.isEmpty() || !pBase.equals(new JSONObject(lines.get(0)).get(KEY_BASE)) )
+			{
+				return Optional.empty();
+			}
+		}
+		catch( JSONException exception )
+		{
+			return Optional.empty();
+		}
+		try
+		{
+			for( String line : lines.subList(1, lines.size()) )
+			{
+				entries.add(new JSONObject(line));
+			}
+		}
+		catch( JSONException exception )
+		{
+			// Only keep the complete entries
+		}
+		return Optional.of(entries);
+	}
+	
+	/*
+	 * A digest of the content of a file, in hexadecimal.
+	 */
+	static String hash(byte[] pContent)
+	{
+		try
+		{
+			StringBuilder result = new StringBuilder();
+			for( byte value : MessageDigest.getInstance(HASH_ALGORITHM).digest(pContent) )
+			{
+				result.append(String.format("%02x", value));
+			}
+			return result.toString();
+		}
+		catch( NoSuchAlgorithmException exception )
+		{
+			// All Java platforms are required to support the algorithm
+			throw new IllegalStateException(exception);
+		}
+	}
 }
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import org.json.JSONObject;
+
+/**
+ * Stores the search index of the diagrams of a folder in a hidden 
+ * file of this folder, in binary form.
+ */
+public final class SearchIndexFile
+{
+	/**
+	 * The name of the file that holds the search index of a folder.
+	 */
+	public static final String NAME = ".jetuml-search.idx";
+	
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+	
+	private SearchIndexFile() {}
+	
+	/**
+	 * Saves the search index of the diagrams in a folder. The index is
+	 * first written to a temporary file, so that an interrupted write 
+	 * leaves the previous index intact.
+	 * 
+	 * @param pFolder The folder whose diagrams are indexed.
+	 * @param pIndex The encoded search index.
+	 * @throws IOException If there is a problem writing the index.
+	 * @pre pFolder != null && pIndex != null
+	 */
+	public static void write(File pFolder, JSONObject pIndex) throws IOException
+	{
+		assert pFolder != null && pIndex != null;
+		Path temporary = new File(pFolder, NAME + TEMPORARY_EXTENSION).toPath();
+		Files.write(temporary, BinaryEncoding.encode(pIndex));
+		Files.move(temporary, new File(pFolder, NAME).toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	/**
+	 * Reads the search index of the diagrams in a folder, if there is one.
+	 * 
+	 * @param pFolder The folder whose diagrams are indexed.
+	 * @return The encoded search index, or empty if there is none or it cannot be decoded.
+	 * @throws IOException If there is a problem reading the index.
+	 * @pre pFolder != null
+	 */
+	public static Optional<JSONObject> read(File pFolder) throws IOException
+	{
+		assert pFolder != null;
+		Path index = new File(pFolder, NAME).toPath();
+		if( !Files.exists(index) )
+		{
+			return Optional.empty();
+		}
+		try
+		{
+			return Optional.of(BinaryEncoding.read(index));
+		}
+		catch( DeserializationException exception )
+		{
+			return Optional.empty();
+		}
+	}
+}
@@ -20,22 +20,21 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.persistence;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import ca.mcgill.cs.jetuml.JetUML;
+import ca.mcgill.cs.jetuml.application.FlightRecorderEvents.MigrationEvent;
 import ca.mcgill.cs.jetuml.application.Version;
 
 /**
@@ -53,35 +52,84 @@ import ca.mcgill.cs.jetuml.application.Version;
  * * All labels of GeneralizationEdges will be dropped
  * * AssociationEdges with a "Start" directionality will be flipped
  * * The types of associations are renamed
+ * 
+ * All the rules are applied in a single pass over the nodes and a single
+ * pass over the edges of the diagram. Dependency edges between the same 
+ * nodes are matched through a hash map keyed by their unordered pair of end points.
  */
 public final class VersionMigrator
 {
+	private static final String TYPE = "type";
+	private static final String DIRECTIONALITY = "directionality";
+	private static final String INTERFACE_STEREOTYPE = "\u00ABinterface\u00BB";
+	private static final int INTEGER_BITS = 32;
+	private static final long INTEGER_MASK = 0xFFFFFFFFL;
+	
 	private boolean aMigrated;
 
 	/**
-	 * Creates a new version migrator. Can be reused.
+	 * Creates a new version migrator. Can be reused, but not 
+	 * by different threads at the same time.
 	 */
 	public VersionMigrator()
 	{}
 
 	/**
-	 * Currently for testing.
+	 * Migrates all the diagram files in a directory, and prints the report.
 	 * 
-	 * @param pArgs
-	 *            Not used
-	 * @throws IOException
-	 *             If there's a problem.
+	 * @param pArgs The directory of the files to migrate, and the directory
+	 *     in which to save the migrated files.
 	 */
-	public static void main(String[] pArgs) throws IOException
+	public static void main(String[] pArgs)
 	{
-		try (BufferedReader in = new BufferedReader(
-				new InputStreamReader(new FileInputStream("test.class.jet"), StandardCharsets.UTF_8)))
+		if( pArgs.length != 2 )
 		{
-			new VersionMigrator().migrate(new JSONObject(in.readLine()));
+			System.err.println("Usage: VersionMigrator <source directory> <target directory>");
+			return;
 		}
-		catch( JSONException e )
+		System.out.println(migrateAll(new File(pArgs[0]), new File(pArgs[1])));
+	}
+	
+	/**
+	 * Reads all the diagram files in pSourceDirectory, and saves them in the current
+	 * format, with the same name, in pTargetDirectory. The files are migrated in 
+	 * parallel. Files that cannot be read or saved are reported and skipped.
+	 * 
+	 * @param pSourceDirectory The directory of the files to migrate.
+	 * @param pTargetDirectory The directory in which to save the migrated files.
+	 *     Must be different from pSourceDirectory.
+	 * @return A report of the outcome for each file.
+	 * @pre pSourceDirectory != null && pTargetDirectory != null
+	 */
+	public static MigrationReport migrateAll(File pSourceDirectory, File pTargetDirectory)
+	{
+		assert pSourceDirectory != null && pTargetDirectory != null;
+		File[] files = pSourceDirectory.listFiles(file -> file.isFile() && 
+				file.getName().endsWith(".jet"));
+		if( files == null )
 		{
-			throw new DeserializationException("Cannot decode the file", e);
+			files = new File[0];
+		}
+		pTargetDirectory.mkdirs();
+		List<MigrationReport.Outcome> outcomes = Arrays.stream(files)
+				.sorted()
+				.parallel()
+				.map(file -> migrateFile(file, new File(pTargetDirectory, file.getName())))
+				.collect(Collectors.toList());
+		return new MigrationReport(outcomes);
+	}
+	
+	private static MigrationReport.Outcome migrateFile(File pSource, File pTarget)
+	{
+		try
+		{
+			VersionedDiagram diagram = PersistenceService.read(pSource);
+			PersistenceService.save(diagram.diagram(), pTarget);
+			return MigrationReport.Outcome.success(pSource, diagram.version(), diagram.wasMigrated());
+		}
+		catch( IOException | DeserializationException | JSONException exception )
+		{
+			return MigrationReport.Outcome.failure(pSource, exception);
 		}
 	}
 	
@@ -91,6 +139,21 @@ public final class VersionMigrator
 	 * @return A migrated Diagram object.
 	 */
 	public VersionedDiagram migrate(JSONObject pDiagram)
+	{
+		MigrationEvent event = new MigrationEvent();
+		event.begin();
+		VersionedDiagram diagram = migrateDiagram(pDiagram);
+		event.end();
+		if( event.shouldCommit() )
+		{
+			event.setMigration(diagram.version().toString(), diagram.wasMigrated());
+			event.setDiagram(diagram.diagram());
+			event.commit();
+		}
+		return diagram;
+	}
+	
+	private VersionedDiagram migrateDiagram(JSONObject pDiagram)
 	{
 		Version version = Version.parse(pDiagram.getString("version"));
 
@@ -102,154 +165,112 @@ public final class VersionMigrator
 		aMigrated = false;
 
 		// JSONObject to JSONObject conversions
-		convertPackageNodeToPackageDescriptionNode(pDiagram);
-		removeSelfDependencies(pDiagram);
-		addDirectionalityPropertyToDependencyEdges(pDiagram);
-		replaceDualDependenciesWithBidirectionalEdge(pDiagram);
-		removeInterfaceStereotype(pDiagram);
-		flipInversedAssociations(pDiagram);
-		renameAssociationDirectionality(pDiagram);
-
-		return new VersionedDiagram(JsonDecoder.decode(pDiagram), version, aMigrated);
-	}
-
-	private void convertPackageNodeToPackageDescriptionNode(JSONObject pDiagram)
-	{
 		JSONArray nodes = pDiagram.getJSONArray("nodes");
 		for( int i = 0; i < nodes.length(); i++ )
 		{
-			JSONObject object = nodes.getJSONObject(i);
-			if( object.getString("type").equals("PackageNode") && !object.has("children") && object.has("contents") )
-			{
-				object.put("type", "PackageDescriptionNode");
-				aMigrated = true;
-			}
+			migrateNode(nodes.getJSONObject(i));
 		}
-	}
-	
-	private void removeInterfaceStereotype(JSONObject pDiagram)
-	{
-		JSONArray nodes = pDiagram.getJSONArray("nodes");
-		for( int i = 0; i < nodes.length(); i++ )
-		{
-			JSONObject object = nodes.getJSONObject(i);
-			if( object.getString("type").equals("InterfaceNode") )
-			{
-				if( object.getString("name").contains("\u00ABinterface\u00BB"))
-				{
-					object.put("name", object.getString("name").replace("\u00ABinterface\u00BB", "").trim());
-					aMigrated = true;
-				}
-			}
-		}
-	}
-
-	private void removeSelfDependencies(JSONObject pDiagram)
-	{
+		
 		JSONArray edges = pDiagram.getJSONArray("edges");
-		List<JSONObject> newEdges = new ArrayList<>();
+		Map<Long, JSONObject> dependencies = new HashMap<>();
+		List<JSONObject> newEdges = new ArrayList<>(edges.length());
 		for( int i = 0; i < edges.length(); i++ )
 		{
 			JSONObject object = edges.getJSONObject(i);
-			if( object.getString("type").equals("DependencyEdge") && object.getInt("start") == object.getInt("end") )
-			{
-				aMigrated = true; // We don't add the dependency, essentially removing it.
-			}
-			else
+			if( migrateEdge(object, dependencies) )
 			{
 				newEdges.add(object);
 			}
 		}
 		pDiagram.put("edges", new JSONArray(newEdges));
+
+		return new VersionedDiagram(JsonDecoder.decode(pDiagram), version, aMigrated);
 	}
 
-	private void addDirectionalityPropertyToDependencyEdges(JSONObject pDiagram)
+	private void migrateNode(JSONObject pNode)
 	{
-		JSONArray edges = pDiagram.getJSONArray("edges");
-		for( int i = 0; i < edges.length(); i++ )
+		String type = pNode.getString(TYPE);
+		if( type.equals("PackageNode") && !pNode.has("children") && pNode.has("contents") )
 		{
-			JSONObject object = edges.getJSONObject(i);
-			if( object.getString("type").equals("DependencyEdge") )
-			{
-				object.put("directionality", "Unidirectional");
-				aMigrated = true;
-			}
+			pNode.put(TYPE, "PackageDescriptionNode");
+			aMigrated = true;
+		}
+		else if( type.equals("InterfaceNode") && pNode.getString("name").contains(INTERFACE_STEREOTYPE) )
+		{
+			pNode.put("name", pNode.getString("name").replace(INTERFACE_STEREOTYPE, "").trim());
+			aMigrated = true;
 		}
 	}
 	
 	/*
-	 * Replace associations with a "Start" directionality with
-	 * a directional edge in the reverse direction. 
+	 * Migrates pEdge and returns whether it must be kept. pDependencies maps the 
+	 * end points of the dependency edges kept so far to these edges. 
 	 */
-	private void flipInversedAssociations(JSONObject pDiagram)
+	private boolean migrateEdge(JSONObject pEdge, Map<Long, JSONObject> pDependencies)
 	{
-		JSONArray edges = pDiagram.getJSONArray("edges");
-		for( int i = 0; i < edges.length(); i++ )
+		String type = pEdge.getString(TYPE);
+		if( type.equals("DependencyEdge") )
 		{
-			JSONObject object = edges.getJSONObject(i);
-			if( object.getString("type").equals("AssociationEdge") && object.getString("directionality").equals("Start"))
-			{
-				object.put("directionality", "End");
-				int start = object.getInt("start");
-				int end = object.getInt("end");
-				object.put("start", end);
-				object.put("end", start);
-				aMigrated = true;
-			}
+			return migrateDependency(pEdge, pDependencies);
+		}
+		else if( type.equals("AssociationEdge") )
+		{
+			migrateAssociation(pEdge);
 		}
+		return true;
 	}
 	
-	private void renameAssociationDirectionality(JSONObject pDiagram)
+	/*
+	 * Self-dependencies are removed, and a dependency between the same nodes 
+	 * as a previous one is merged into the previous one, which becomes bidirectional.
+	 */
+	private boolean migrateDependency(JSONObject pEdge, Map<Long, JSONObject> pDependencies)
 	{
-		JSONArray edges = pDiagram.getJSONArray("edges");
-		for( int i = 0; i < edges.length(); i++ )
+		aMigrated = true;
+		int start = pEdge.getInt("start");
+		int end = pEdge.getInt("end");
+		if( start == end )
 		{
-			JSONObject object = edges.getJSONObject(i);
-			if( object.getString("type").equals("AssociationEdge"))
-			{
-				if( object.get("directionality").equals("None"))
-				{
-					object.put("directionality", "Unspecified");
-				}
-				else if( object.get("directionality").equals("End"))
-				{
-					object.put("directionality", "Unidirectional");
-				}
-				else if( object.get("directionality").equals("Both"))
-				{
-					object.put("directionality", "Bidirectional");
-				}
-				aMigrated = true;
-			}
+			return false;
+		}
+		pEdge.put(DIRECTIONALITY, "Unidirectional");
+		long key = ((long) Math.min(start, end) << INTEGER_BITS) | (Math.max(start, end) & INTEGER_MASK);
+		JSONObject previous = pDependencies.putIfAbsent(key, pEdge);
+		if( previous == null )
+		{
+			return true;
 		}
+		previous.put(DIRECTIONALITY, "Bidirectional");
+		previous.put("middleLabel", previous.get("middleLabel") + " + " + pEdge.get("middleLabel"));
+		return false;
 	}
-
-	private void replaceDualDependenciesWithBidirectionalEdge(JSONObject pDiagram)
+	
+	/*
+	 * Associations with a "Start" directionality are replaced with a directional 
+	 * edge in the reverse direction, then all directionalities are renamed.
+	 */
+	private void migrateAssociation(JSONObject pEdge)
 	{
-		Map<Set<Integer>, JSONObject> links = new HashMap<>();
-		List<JSONObject> newEdges = new ArrayList<>();
-		
-		JSONArray edges = pDiagram.getJSONArray("edges");
-		for( int i = 0; i < edges.length(); i++ )
+		aMigrated = true;
+		Object directionality = pEdge.get(DIRECTIONALITY);
+		if( directionality.equals("Start") )
 		{
-			JSONObject object = edges.getJSONObject(i);
-			newEdges.add(object);
-			if( object.getString("type").equals("DependencyEdge") ) 
-			{
-				Set<Integer> key = Set.of(object.getInt("start"), object.getInt("end"));
-				if( links.containsKey(key))
-				{
-					newEdges.remove(object);
-					links.get(key).put("directionality", "Bidirectional");
-					links.get(key).put("middleLabel", links.get(key).get("middleLabel") + " + " + object.get("middleLabel"));
-					aMigrated = true;
-				}
-				else
-				{
-					links.put(Set.of(object.getInt("start"), object.getInt("end")), object);
-				}
-			}
+			int start = pEdge.getInt("start");
+			pEdge.put("start", pEdge.getInt("end"));
+			pEdge.put("end", start);
+			directionality = "End";
+		}
+		if( directionality.equals("None") )
+		{
+			pEdge.put(DIRECTIONALITY, "Unspecified");
+		}
+		else if( directionality.equals("End") )
+		{
+			pEdge.put(DIRECTIONALITY, "Unidirectional");
+		}
+		else if( directionality.equals("Both") )
+		{
+			pEdge.put(DIRECTIONALITY, "Bidirectional");
 		}
-		pDiagram.put("edges", new JSONArray(newEdges));
 	}
 }
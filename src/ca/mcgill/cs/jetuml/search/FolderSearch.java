@@ -0,0 +1,351 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.persistence.DeserializationException;
+import ca.mcgill.cs.jetuml.persistence.PersistenceService;
+import ca.mcgill.cs.jetuml.persistence.SearchIndexFile;
+
+/**
+ * A search of the text of the elements of all the diagram files in a folder, 
+ * as indexed by SearchIndex. The text of the diagrams is saved in an index 
+ * file in the folder, so that a diagram is only read again when its file, 
+ * or the log of the changes to it, is modified. The search itself does not
+ * read any diagram. Saving the index is best effort: if the folder cannot 
+ * be written to, the index is only kept in memory by the search.
+ */
+public final class FolderSearch
+{
+	private static final String[] EXTENSIONS = {".jet", ".jetb"};
+	private static final String KEY_FILES = "files";
+	private static final String KEY_NAME = "name";
+	private static final String KEY_STAMP = "stamp";
+	private static final String KEY_TEXTS = "texts";
+	
+	private final File aFolder;
+	private final List<IndexedFile> aFiles;
+	private final int aReadCount;
+	private final boolean aIndexSaved;
+	private final TextIndex aIndex = new TextIndex();
+	private final List<Match> aMatches = new ArrayList<>();
+	
+	private FolderSearch(File pFolder, List<IndexedFile> pFiles, int pReadCount, boolean pIndexSaved)
+	{
+		aFolder = pFolder;
+		aFiles = pFiles;
+		aReadCount = pReadCount;
+		aIndexSaved = pIndexSaved;
+		for( IndexedFile file : pFiles )
+		{
+			for( int i = 0; i < file.aTexts.length; i += 2 )
+			{
+				aIndex.add(file.aTexts[i + 1]);
+				aMatches.add(new Match(new File(pFolder, file.aName), file.aTexts[i], file.aTexts[i + 1]));
+			}
+		}
+	}
+	
+	/**
+	 * Prepares a search of the diagram files in pFolder. The diagrams that 
+	 * are not in the index of the folder, or were modified since they were 
+	 * indexed, are read and indexed, and the index is saved if it changed. 
+	 * Files that cannot be decoded as diagrams are indexed without text. 
+	 * An index that cannot be read is ignored, and an index that cannot be 
+	 * saved is only kept by the search. This method can be called on any thread.
+	 * 
+	 * @param pFolder The folder to search.
+	 * @return A search of the diagrams in pFolder.
+	 * @throws IOException If the folder or a diagram cannot be read.
+	 * @pre pFolder != null && pFolder.isDirectory()
+	 */
+	public static FolderSearch open(File pFolder) throws IOException
+	{
+		assert pFolder != null && pFolder.isDirectory();
+		Map<String, IndexedFile> saved = readIndex(pFolder);
+		File[] diagrams = pFolder.listFiles(pFile -> pFile.isFile() && isDiagram(pFile.getName()));
+		if( diagrams == null )
+		{
+			throw new IOException("Cannot list the files of " + pFolder);
+		}
+		Arrays.sort(diagrams);
+		List<IndexedFile> files = new ArrayList<>();
+		int read = 0;
+		for( File diagram : diagrams )
+		{
+			String stamp = PersistenceService.stamp(diagram);
+			IndexedFile file = saved.get(diagram.getName());
+			if( file == null || !file.aStamp.equals(stamp) )
+			{
+				file = new IndexedFile(diagram.getName(), stamp, read(diagram));
+				read++;
+			}
+			files.add(file);
+		}
+		boolean indexSaved = true;
+		if( read > 0 || files.size() != saved.size() )
+		{
+			try
+			{
+				SearchIndexFile.write(pFolder, encode(files));
+			}
+			catch( IOException exception )
+			{
+				indexSaved = false;
+			}
+		}
+		return new FolderSearch(pFolder, files, read, indexSaved);
+	}
+	
+	private static Map<String, IndexedFile> readIndex(File pFolder)
+	{
+		try
+		{
+			Optional<JSONObject> index = SearchIndexFile.read(pFolder);
+			if( index.isPresent() )
+			{
+				return decode(index.get());
+			}
+		}
+		catch( IOException exception )
+		{
+			// The diagrams are read again
+		}
+		return new HashMap<>();
+	}
+	
+	/**
+	 * Finds the elements of the diagrams whose text matches a query, in the
+	 * order of the names of the files, then in the order of the diagrams.
+	 * 
+	 * @param pQuery The text to search, ignoring case.
+	 * @param pMode How the text of an element must contain pQuery.
+	 * @param pMaxMatches The maximum number of matches to return.
+	 * @return The matches, one for each property of an element whose text matches.
+	 * @pre pQuery != null && pMode != null && pMaxMatches >= 0
+	 */
+	public List<Match> search(String pQuery, SearchMode pMode, int pMaxMatches)
+	{
+		assert pQuery != null && pMode != null && pMaxMatches >= 0;
+		List<Match> matches = new ArrayList<>();
+		if( pMaxMatches > 0 )
+		{
+			aIndex.search(pQuery, pMode, pId -> 
+			{
+				matches.add(aMatches.get(pId));
+				return matches.size() < pMaxMatches;
+			});
+		}
+		return matches;
+	}
+	
+	/**
+	 * @return The folder that is searched.
+	 */
+	public File getFolder()
+	{
+		return aFolder;
+	}
+	
+	/**
+	 * @return The number of diagram files in the folder.
+	 */
+	public int getFileCount()
+	{
+		return aFiles.size();
+	}
+	
+	/**
+	 * @return True if the index of the folder is saved and up to date, 
+	 *     false if it could not be saved.
+	 */
+	public boolean isIndexSaved()
+	{
+		return aIndexSaved;
+	}
+	
+	/**
+	 * @return The number of diagram files that had to be read, 
+	 *     because they were not indexed or were modified.
+	 */
+	public int getReadCount()
+	{
+		return aReadCount;
+	}
+	
+	private static boolean isDiagram(String pName)
+	{
+		return Arrays.stream(EXTENSIONS).anyMatch(pName::endsWith);
+	}
+	
+	/*
+	 * Returns the names and values of the text properties of the elements 
+	 * of the diagram in pFile, in alternation.
+	 */
+	private static String[] read(File pFile) throws IOException
+	{
+		Diagram diagram;
+		try
+		{
+			diagram = PersistenceService.read(pFile).diagram();
+		}
+		catch( DeserializationException exception )
+		{
+			return new String[0];
+		}
+		List<String> texts = new ArrayList<>();
+		List<Node> nodes = new ArrayList<>(diagram.rootNodes());
+		for( int i = 0; i < nodes.size(); i++ )
+		{
+			SearchIndex.forEachText(nodes.get(i), (pProperty, pText) -> 
+			{
+				texts.add(pProperty);
+				texts.add(pText);
+			});
+			nodes.addAll(nodes.get(i).getChildren());
+		}
+		for( Edge edge : diagram.edges() )
+		{
+			SearchIndex.forEachText(edge, (pProperty, pText) -> 
+			{
+				texts.add(pProperty);
+				texts.add(pText);
+			});
+		}
+		return texts.toArray(new String[texts.size()]);
+	}
+	
+	private static JSONObject encode(List<IndexedFile> pFiles)
+	{
+		JSONArray files = new JSONArray();
+		for( IndexedFile file : pFiles )
+		{
+			JSONObject object = new JSONObject();
+			object.put(KEY_NAME, file.aName);
+			object.put(KEY_STAMP, file.aStamp);
+			object.put(KEY_TEXTS, new JSONArray(file.aTexts));
+			files.put(object);
+		}
+		return new JSONObject().put(KEY_FILES, files);
+	}
+	
+	/*
+	 * Returns the files of an index by name, or none if the index cannot be decoded, 
+	 * so that all the files are read again.
+	 */
+	private static Map<String, IndexedFile> decode(JSONObject pIndex)
+	{
+		Map<String, IndexedFile> files = new HashMap<>();
+		try
+		{
+			JSONArray array = pIndex.getJSONArray(KEY_FILES);
+			for( int i = 0; i < array.length(); i++ )
+			{
+				JSONObject object = array.getJSONObject(i);
+				JSONArray textArray = object.getJSONArray(KEY_TEXTS);
+				String[] texts = new String[textArray.length() / 2 * 2];
+				for( int j = 0; j < texts.length; j++ )
+				{
+					texts[j] = textArray.getString(j);
+				}
+				files.put(object.getString(KEY_NAME), new IndexedFile(object.getString(KEY_NAME), object.getString(KEY_STAMP), texts));
+			}
+			return files;
+		}
+		catch( JSONException exception )
+		{
+			return new HashMap<>();
+		}
+	}
+	
+	/*
+	 * A diagram file, and the names and values of its text properties, in alternation.
+	 */
+	private static final class IndexedFile
+	{
+		private final String aName;
+		private final String aStamp;
+		private final String[] aTexts;
+		
+		IndexedFile(String pName, String pStamp, String[] pTexts)
+		{
+			aName = pName;
+			aStamp = pStamp;
+			aTexts = pTexts;
+		}
+	}
+	
+	/**
+	 * A property of an element of a diagram file whose text matches a query.
+	 */
+	public static final class Match
+	{
+		private final File aFile;
+		private final String aProperty;
+		private final String aText;
+		
+		private Match(File pFile, String pProperty, String pText)
+		{
+			aFile = pFile;
+			aProperty = pProperty;
+			aText = pText;
+		}
+		
+		/**
+		 * @return The diagram file.
+		 */
+		public File getFile()
+		{
+			return aFile;
+		}
+		
+		/**
+		 * @return The name of the property that matches.
+		 */
+		public String getProperty()
+		{
+			return aProperty;
+		}
+		
+		/**
+		 * @return The text of the property, when it was indexed.
+		 */
+		public String getText()
+		{
+			return aText;
+		}
+	}
+}
@@ -0,0 +1,446 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.Property;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationObserver;
+
+/**
+ * An index of the text of the elements of a diagram: the value of each of 
+ * their properties that is a string, such as the name of a node, the methods 
+ * of a class, or the labels of an edge. The index is kept up to date as 
+ * operations are applied to the diagram: when an operation is observed, 
+ * only the elements it affects are indexed again. The index is only rebuilt 
+ * entirely, the next time it is searched, when the effect of an operation 
+ * is not known. The index can also be rebuilt on another thread, from the 
+ * text of the elements captured on the thread that modifies the diagram.
+ * 
+ * Changes made to the diagram without going through an observed operation 
+ * are not detected: call invalidate() after making them.
+ */
+public final class SearchIndex implements DiagramOperationObserver
+{
+	private static final Metrics.Timer SEARCH_TIMER = Metrics.timer(Metrics.SEARCH_QUERY);
+	
+	private final Diagram aDiagram;
+	private TextIndex aIndex = new TextIndex();
+	/* The element and the property of each text, by identifier in the text index. */
+	private List<Match> aMatches = new ArrayList<>();
+	private Map<DiagramElement, int[]> aTexts = new IdentityHashMap<>();
+	private boolean aValid = false;
+	/* The number of operations observed and invalidations, to detect stale rebuilds. */
+	private int aChangeCount = 0;
+	
+	/**
+	 * Creates an index of pDiagram. The index is built the 
+	 * first time it is searched.
+	 * 
+	 * @param pDiagram The diagram to index.
+	 * @pre pDiagram != null
+	 */
+	public SearchIndex(Diagram pDiagram)
+	{
+		assert pDiagram != null;
+		aDiagram = pDiagram;
+	}
+	
+	/**
+	 * Finds the elements whose text matches a query, in the order of the 
+	 * diagram for the elements indexed together.
+	 * 
+	 * @param pQuery The text to search, ignoring case.
+	 * @param pMode How the text of an element must contain pQuery.
+	 * @param pMaxMatches The maximum number of matches to return.
+	 * @return The matches, one for each property of an element whose text matches.
+	 * @pre pQuery != null && pMode != null && pMaxMatches >= 0
+	 */
+	public List<Match> search(String pQuery, SearchMode pMode, int pMaxMatches)
+	{
+		assert pQuery != null && pMode != null && pMaxMatches >= 0;
+		if( !aValid )
+		{
+			rebuild();
+		}
+		long start = SEARCH_TIMER.start();
+		List<Match> matches = new ArrayList<>();
+		if( pMaxMatches > 0 )
+		{
+			aIndex.search(pQuery, pMode, pId -> 
+			{
+				matches.add(aMatches.get(pId));
+				return matches.size() < pMaxMatches;
+			});
+		}
+		SEARCH_TIMER.stop(start);
+		return matches;
+	}
+	
+	/**
+	 * @return The number of texts in the index.
+	 */
+	public int size()
+	{
+		if( !aValid )
+		{
+			rebuild();
+		}
+		return aIndex.size();
+	}
+	
+	/**
+	 * @return True if the index is up to date, so that searching it 
+	 *     does not rebuild it.
+	 */
+	public boolean isValid()
+	{
+		return aValid;
+	}
+	
+	/**
+	 * Forces the index to be entirely rebuilt the next time it is searched.
+	 */
+	public void invalidate()
+	{
+		aValid = false;
+		aChangeCount++;
+	}
+	
+	/**
+	 * Captures the text of the elements of the diagram, so that the index 
+	 * can be rebuilt from it on another thread. Only capturing the text takes 
+	 * place on the calling thread, which must be the thread that modifies the diagram.
+	 * 
+	 * @return A rebuild to build, then to pass to finishRebuild on the calling thread.
+	 */
+	public Rebuild startRebuild()
+	{
+		List<Match> texts = new ArrayList<>();
+		for( Node node : aDiagram.rootNodes() )
+		{
+			captureWithChildren(node, texts);
+		}
+		for( Edge edge : aDiagram.edges() )
+		{
+			capture(edge, texts);
+		}
+		return new Rebuild(texts, aChangeCount);
+	}
+	
+	private static void captureWithChildren(Node pNode, List<Match> pTexts)
+	{
+		capture(pNode, pTexts);
+		pNode.getChildren().forEach(pChild -> captureWithChildren(pChild, pTexts));
+	}
+	
+	private static void capture(DiagramElement pElement, List<Match> pTexts)
+	{
+		forEachText(pElement, (pProperty, pText) -> pTexts.add(new Match(pElement, pProperty, pText)));
+	}
+	
+	/**
+	 * Replaces the content of the index with a rebuild, unless the index 
+	 * observed an operation or was invalidated since the rebuild was started, 
+	 * in which case the rebuild is out of date.
+	 * 
+	 * @param pRebuild A rebuild started by this index, and built.
+	 * @return True if the content of the index was replaced.
+	 * @pre pRebuild != null && pRebuild.isBuilt()
+	 */
+	public boolean finishRebuild(Rebuild pRebuild)
+	{
+		assert pRebuild != null && pRebuild.isBuilt();
+		if( pRebuild.aChangeCount != aChangeCount )
+		{
+			return false;
+		}
+		aIndex = pRebuild.aIndex;
+		aMatches = pRebuild.aMatches;
+		aTexts = pRebuild.aTexts;
+		aValid = true;
+		return true;
+	}
+	
+	@Override
+	public void operationExecuted(DiagramOperation pOperation)
+	{
+		update(pOperation.getAffectedElements());
+	}
+
+	@Override
+	public void operationUndone(DiagramOperation pOperation)
+	{
+		update(pOperation.getAffectedElements());
+	}
+	
+	private void rebuild()
+	{
+		Rebuild rebuild = startRebuild();
+		rebuild.build();
+		finishRebuild(rebuild);
+	}
+	
+	/*
+	 * The affected elements are indexed again if they are still in the diagram, 
+	 * with the nodes they contain, and removed from the index otherwise.
+	 */
+	private void update(Optional<List<DiagramElement>> pElements)
+	{
+		aChangeCount++;
+		if( !aValid )
+		{
+			return;
+		}
+		if( !pElements.isPresent() )
+		{
+			invalidate();
+			return;
+		}
+		// A single element is looked up directly rather than through a set of the whole diagram.
+		boolean single = pElements.get().size() == 1;
+		Set<Node> roots = null;
+		Set<Edge> edges = null;
+		for( DiagramElement element : pElements.get() )
+		{
+			if( element instanceof Node )
+			{
+				if( roots == null && !single )
+				{
+					roots = identitySet(aDiagram.rootNodes());
+				}
+				Node node = (Node) element;
+				removeWithChildren(node);
+				if( single ? containsIdentical(aDiagram.rootNodes(), node.getRoot()) : roots.contains(node.getRoot()) )
+				{
+					addWithChildren(node);
+				}
+			}
+			else if( element instanceof Edge )
+			{
+				if( edges == null && !single )
+				{
+					edges = identitySet(aDiagram.edges());
+				}
+				remove(element);
+				if( single ? containsIdentical(aDiagram.edges(), element) : edges.contains(element) )
+				{
+					add(element);
+				}
+			}
+		}
+	}
+	
+	private static <T> Set<T> identitySet(List<T> pElements)
+	{
+		Set<T> set = Collections.newSetFromMap(new IdentityHashMap<>());
+		set.addAll(pElements);
+		return set;
+	}
+	
+	private static boolean containsIdentical(List<? extends DiagramElement> pElements, DiagramElement pElement)
+	{
+		for( DiagramElement element : pElements )
+		{
+			if( element == pElement )
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private void addWithChildren(Node pNode)
+	{
+		add(pNode);
+		pNode.getChildren().forEach(this::addWithChildren);
+	}
+	
+	private void removeWithChildren(Node pNode)
+	{
+		remove(pNode);
+		pNode.getChildren().forEach(this::removeWithChildren);
+	}
+	
+	private void add(DiagramElement pElement)
+	{
+		List<Integer> ids = new ArrayList<>();
+		forEachText(pElement, (pProperty, pText) -> 
+		{
+			int id = aIndex.add(pText);
+			Match match = new Match(pElement, pProperty, pText);
+			if( id == aMatches.size() )
+			{
+				aMatches.add(match);
+			}
+			else
+			{
+				aMatches.set(id, match);
+			}
+			ids.add(id);
+		});
+		if( !ids.isEmpty() )
+		{
+			aTexts.put(pElement, ids.stream().mapToInt(Integer::intValue).toArray());
+		}
+	}
+	
+	private void remove(DiagramElement pElement)
+	{
+		int[] ids = aTexts.remove(pElement);
+		if( ids != null )
+		{
+			for( int id : ids )
+			{
+				aIndex.remove(id);
+				aMatches.set(id, null);
+			}
+		}
+	}
+	
+	/**
+	 * Calls pConsumer with the name and the value of each property of pElement
+	 * whose value is a string that is not blank.
+	 * 
+	 * @param pElement The element whose text to find.
+	 * @param pConsumer Called with the name and the value of each text property.
+	 */
+	static void forEachText(DiagramElement pElement, BiConsumer<String, String> pConsumer)
+	{
+		for( Property property : pElement.properties() )
+		{
+			Object value = property.get();
+			if( value instanceof String && !((String) value).isBlank() )
+			{
+				pConsumer.accept(property.getName(), (String) value);
+			}
+		}
+	}
+	
+	/**
+	 * The content of an index, built from the text of the elements of 
+	 * a diagram as captured by startRebuild.
+	 */
+	public static final class Rebuild
+	{
+		private final List<Match> aMatches;
+		private final int aChangeCount;
+		private final TextIndex aIndex = new TextIndex();
+		private final Map<DiagramElement, int[]> aTexts = new IdentityHashMap<>();
+		private boolean aBuilt = false;
+		
+		private Rebuild(List<Match> pMatches, int pChangeCount)
+		{
+			aMatches = pMatches;
+			aChangeCount = pChangeCount;
+		}
+		
+		/**
+		 * Indexes the text captured. Can be called on any thread, once.
+		 * 
+		 * @pre !isBuilt()
+		 */
+		public void build()
+		{
+			assert !aBuilt;
+			// The texts of an element were captured consecutively.
+			int first = 0;
+			for( int id = 0; id < aMatches.size(); id++ )
+			{
+				int added = aIndex.add(aMatches.get(id).aText);
+				assert added == id;
+				if( id + 1 == aMatches.size() || aMatches.get(id + 1).aElement != aMatches.get(first).aElement )
+				{
+					int[] ids = new int[id + 1 - first];
+					for( int i = 0; i < ids.length; i++ )
+					{
+						ids[i] = first + i;
+					}
+					aTexts.put(aMatches.get(first).aElement, ids);
+					first = id + 1;
+				}
+			}
+			aBuilt = true;
+		}
+		
+		/**
+		 * @return True if build was called.
+		 */
+		public boolean isBuilt()
+		{
+			return aBuilt;
+		}
+	}
+	
+	/**
+	 * A property of an element whose text matches a query.
+	 */
+	public static final class Match
+	{
+		private final DiagramElement aElement;
+		private final String aProperty;
+		private final String aText;
+		
+		private Match(DiagramElement pElement, String pProperty, String pText)
+		{
+			aElement = pElement;
+			aProperty = pProperty;
+			aText = pText;
+		}
+		
+		/**
+		 * @return The element that matches.
+		 */
+		public DiagramElement getElement()
+		{
+			return aElement;
+		}
+		
+		/**
+		 * @return The name of the property that matches.
+		 */
+		public String getProperty()
+		{
+			return aProperty;
+		}
+		
+		/**
+		 * @return The text of the property, when it was indexed.
+		 */
+		public String getText()
+		{
+			return aText;
+		}
+	}
+}
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * An index of texts, identified by integers, that finds the texts 
+ * containing a query without scanning them all. For each sequence of 
+ * one, two and three characters, the index keeps the sorted list of 
+ * the texts where it occurs. A query of up to three characters is 
+ * looked up directly; a longer query is looked up as the intersection 
+ * of the lists of its sequences of three characters, and each text in 
+ * the intersection is then checked. 
+ * 
+ * Identifiers are allocated by the index in increasing order, so that
+ * adding a text only appends to the lists. Removing a text only forgets 
+ * it: its identifier stays in the lists, where it is skipped, until the 
+ * removed texts outnumber the others and the lists are purged. 
+ * Identifiers are not reused.
+ */
+final class TextIndex
+{
+	private static final int GRAM = 3;
+	private static final int CHAR_BITS = 16;
+	private static final int INITIAL_CAPACITY = 16;
+	/* Beyond this number of lists, checking the texts is cheaper than intersecting more lists. */
+	private static final int MAX_INTERSECTED = 4;
+	
+	private String[] aTexts = new String[INITIAL_CAPACITY];
+	private int aCapacityUsed;
+	private int aSize;
+	private int aRemovedCount;
+	private final Map<Long, Postings> aPostings = new HashMap<>();
+	
+	/**
+	 * @param pText The text to add.
+	 * @return The identifier of pText in this index.
+	 * @pre pText != null
+	 */
+	int add(String pText)
+	{
+		assert pText != null;
+		if( aCapacityUsed == aTexts.length )
+		{
+			aTexts = Arrays.copyOf(aTexts, aTexts.length * 2);
+		}
+		int id = aCapacityUsed++;
+		String text = normalize(pText);
+		aTexts[id] = text;
+		aSize++;
+		for( int length = 1; length <= GRAM; length++ )
+		{
+			for( int i = 0; i + length <= text.length(); i++ )
+			{
+				aPostings.computeIfAbsent(key(text, i, length), pKey -> new Postings()).add(id);
+			}
+		}
+		return id;
+	}
+	
+	/**
+	 * Removes a text.
+	 * 
+	 * @param pId The identifier of the text to remove.
+	 * @pre contains(pId)
+	 */
+	void remove(int pId)
+	{
+		assert contains(pId);
+		aTexts[pId] = null;
+		aSize--;
+		aRemovedCount++;
+		if( aRemovedCount > aSize )
+		{
+			purge();
+		}
+	}
+	
+	/*
+	 * Removes the identifiers of the removed texts from the lists.
+	 */
+	private void purge()
+	{
+		aPostings.values().removeIf(pPostings -> 
+		{
+			int size = 0;
+			for( int i = 0; i < pPostings.aSize; i++ )
+			{
+				if( aTexts[pPostings.aIds[i]] != null )
+				{
+					pPostings.aIds[size++] = pPostings.aIds[i];
+				}
+			}
+			pPostings.aSize = size;
+			return size == 0;
+		});
+		aRemovedCount = 0;
+	}
+	
+	/**
+	 * @param pId An identifier.
+	 * @return True if pId identifies a text of this index.
+	 */
+	boolean contains(int pId)
+	{
+		return pId >= 0 && pId < aCapacityUsed && aTexts[pId] != null;
+	}
+	
+	/**
+	 * @return The number of texts in this index.
+	 */
+	int size()
+	{
+		return aSize;
+	}
+	
+	/**
+	 * Removes all the texts.
+	 */
+	void clear()
+	{
+		Arrays.fill(aTexts, 0, aCapacityUsed, null);
+		aCapacityUsed = 0;
+		aSize = 0;
+		aRemovedCount = 0;
+		aPostings.clear();
+	}
+	
+	/**
+	 * Finds the texts that match a query, in increasing order of identifier.
+	 * 
+	 * @param pQuery The text to search.
+	 * @param pMode How the texts must contain pQuery.
+	 * @param pMatch Called with the identifier of each text that matches, 
+	 *     until it returns false.
+	 * @pre pQuery != null && pMode != null && pMatch != null
+	 */
+	void search(String pQuery, SearchMode pMode, IntPredicate pMatch)
+	{
+		assert pQuery != null && pMode != null && pMatch != null;
+		String query = normalize(pQuery);
+		if( query.isEmpty() )
+		{
+			return;
+		}
+		int length = Math.min(GRAM, query.length());
+		List<Postings> lists = new ArrayList<>();
+		for( int i = 0; i + length <= query.length(); i++ )
+		{
+			Postings postings = aPostings.get(key(query, i, length));
+			if( postings == null )
+			{
+				return;
+			}
+			lists.add(postings);
+		}
+		lists.sort(Comparator.comparingInt(pPostings -> pPostings.aSize));
+		Postings driver = lists.get(0);
+		int intersected = Math.min(lists.size(), MAX_INTERSECTED);
+		for( int i = 0; i < driver.aSize; i++ )
+		{
+			int id = driver.aIds[i];
+			if( aTexts[id] != null && containedInAll(lists, intersected, id) && matches(aTexts[id], query, pMode) && !pMatch.test(id) )
+			{
+				return;
+			}
+		}
+	}
+	
+	private static boolean containedInAll(List<Postings> pLists, int pCount, int pId)
+	{
+		for( int i = 1; i < pCount; i++ )
+		{
+			if( Arrays.binarySearch(pLists.get(i).aIds, 0, pLists.get(i).aSize, pId) < 0 )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @param pText A text, as normalized by the index.
+	 * @param pQuery A query, as normalized by the index.
+	 * @param pMode How pText must contain pQuery.
+	 * @return The position of the first match of pQuery in pText, or -1 if there is none.
+	 */
+	static int indexOf(String pText, String pQuery, SearchMode pMode)
+	{
+		int index = pText.indexOf(pQuery);
+		if( pMode == SearchMode.PREFIX )
+		{
+			while( index > 0 && Character.isLetterOrDigit(pText.charAt(index - 1)) )
+			{
+				index = pText.indexOf(pQuery, index + 1);
+			}
+		}
+		return index;
+	}
+	
+	private static boolean matches(String pText, String pQuery, SearchMode pMode)
+	{
+		return indexOf(pText, pQuery, pMode) >= 0;
+	}
+	
+	/**
+	 * @param pText A text or a query.
+	 * @return pText as it is indexed and searched.
+	 */
+	static String normalize(String pText)
+	{
+		return pText.toLowerCase(Locale.ROOT);
+	}
+	
+	private static Long key(String pText, int pStart, int pLength)
+	{
+		long key = pLength;
+		for( int i = pStart; i < pStart + pLength; i++ )
+		{
+			key = key << CHAR_BITS | pText.charAt(i);
+		}
+		return key;
+	}
+	
+	/*
+	 * The sorted identifiers of the texts that contain a sequence of characters.
+	 */
+	private static final class Postings
+	{
+		private int[] aIds = new int[2];
+		private int aSize;
+		
+		/*
+		 * @pre pId is not smaller than the identifiers in the list.
+		 */
+		void add(int pId)
+		{
+			if( aSize > 0 && aIds[aSize - 1] == pId )
+			{
+				return; // The sequence occurs more than once in the text
+			}
+			if( aSize == aIds.length )
+			{
+				aIds = Arrays.copyOf(aIds, aSize * 2);
+			}
+			aIds[aSize++] = pId;
+		}
+	}
+}
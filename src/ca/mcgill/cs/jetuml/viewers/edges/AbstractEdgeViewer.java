@@ -25,18 +25,15 @@ import static ca.mcgill.cs.jetuml.views.StringViewer.FONT;
 import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Direction;
+import ca.mcgill.cs.jetuml.geom.GeomUtils;
 import ca.mcgill.cs.jetuml.geom.Line;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.FontMetrics;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
-import javafx.geometry.Bounds;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
-import javafx.scene.shape.Shape;
 
 /**
  * Provides shared services for viewing an edge.
@@ -59,14 +56,12 @@ public abstract class AbstractEdgeViewer implements EdgeViewer
 	 * @return The shape. 
 	 * @pre pEdge != null
 	 */
-	protected Shape getShape(Edge pEdge)
+	protected PrimitivePath getShape(Edge pEdge)
 	{
 		assert pEdge != null;
 		Line endPoints = getConnectionPoints(pEdge);
-		Path path = new Path();
-		path.getElements().addAll(new MoveTo(endPoints.getX1(), endPoints.getY1()), 
-				new LineTo(endPoints.getX2(), endPoints.getY2()));
-		return path;
+		return new PrimitivePath().moveTo(endPoints.getX1(), endPoints.getY1())
+				.lineTo(endPoints.getX2(), endPoints.getY2());
 	}
 	
 	/**
@@ -87,17 +82,13 @@ public abstract class AbstractEdgeViewer implements EdgeViewer
 		{
 			return false;
 		}
-
-		Shape fatPath = getShape(pEdge);
-		fatPath.setStrokeWidth(2 * MAX_DISTANCE);
-		return fatPath.contains(pPoint.getX(), pPoint.getY());
+		return GeomUtils.strokeContains(getShape(pEdge), 2 * MAX_DISTANCE, pPoint);
 	}
 	
 	@Override
 	public Rectangle getBounds(Edge pEdge)
 	{
-		Bounds bounds = getShape(pEdge).getBoundsInLocal();
-		return new Rectangle((int)bounds.getMinX(), (int)bounds.getMinY(), (int)bounds.getWidth(), (int)bounds.getHeight());
+		return getShape(pEdge).getBounds();
 	}
 	
 	/*
@@ -120,7 +111,7 @@ public abstract class AbstractEdgeViewer implements EdgeViewer
 	}
 
 	@Override
-	public void drawSelectionHandles(Edge pEdge, GraphicsContext pGraphics)
+	public void drawSelectionHandles(Edge pEdge, DrawingContext pGraphics)
 	{
 		ToolGraphics.drawHandles(pGraphics, getConnectionPoints(pEdge));		
 	}
@@ -27,24 +27,21 @@ import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.edges.CallEdge;
 import ca.mcgill.cs.jetuml.diagram.edges.ConstructorEdge;
 import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
-import ca.mcgill.cs.jetuml.geom.Conversions;
 import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Direction;
 import ca.mcgill.cs.jetuml.geom.Line;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
 import ca.mcgill.cs.jetuml.views.ArrowHead;
 import ca.mcgill.cs.jetuml.views.ArrowHeadView;
+import ca.mcgill.cs.jetuml.views.CanvasDrawingContext;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.StringViewer;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
-import javafx.scene.shape.Shape;
 
 /**
  * A viewer to show call edges in a sequence diagrams. These are labeled
@@ -59,18 +56,16 @@ public final class CallEdgeViewer extends AbstractEdgeViewer
 	private static final int SHIFT = -10;
 	
 	@Override
-	protected Shape getShape(Edge pEdge)
+	protected PrimitivePath getShape(Edge pEdge)
 	{
 		Point[] points = getPoints(pEdge);
-		Path path = new Path();
+		PrimitivePath path = new PrimitivePath();
 		Point point = points[points.length - 1];
-		MoveTo moveTo = new MoveTo(point.getX(), point.getY());
-		path.getElements().add(moveTo);
+		path.moveTo(point.getX(), point.getY());
 		for(int i = points.length - 2; i >= 0; i--)
 		{
 			point = points[i];
-			LineTo lineTo = new LineTo(point.getX(), point.getY());
-			path.getElements().add(lineTo);
+			path.lineTo(point.getX(), point.getY());
 		}
 		return path;
 	}
@@ -100,8 +95,8 @@ public final class CallEdgeViewer extends AbstractEdgeViewer
 	{
 		Rectangle bounds = super.getBounds(pEdge);
 		Line connectionPoints = getConnectionPoints(pEdge);
-		bounds = bounds.add(Conversions.toRectangle(getArrowHeadView((CallEdge)pEdge).getPath(connectionPoints.getPoint1(), 
-					connectionPoints.getPoint2()).getBoundsInLocal()));
+		bounds = bounds.add(getArrowHeadView((CallEdge)pEdge).getBounds(connectionPoints.getPoint1(), 
+					connectionPoints.getPoint2()));
 		final String label = ((CallEdge)pEdge).getMiddleLabel();
 		if( label.length() > 0 )
 		{
@@ -111,9 +106,9 @@ public final class CallEdgeViewer extends AbstractEdgeViewer
 	}
 
 	@Override
-	public void draw(Edge pEdge, GraphicsContext pGraphics)
+	public void draw(Edge pEdge, DrawingContext pGraphics)
 	{
-		ToolGraphics.strokeSharpPath(pGraphics, (Path) getShape(pEdge), LineStyle.SOLID);
+		ToolGraphics.strokeSharpPath(pGraphics, getShape(pEdge), LineStyle.SOLID);
 		
 		Point[] points = getPoints(pEdge); // TODO already called by getShape(), find a way to avoid having to do 2 calls.
 		getArrowHeadView((CallEdge)pEdge).draw(pGraphics, points[points.length - 2], points[points.length - 1]);
@@ -143,7 +138,7 @@ public final class CallEdgeViewer extends AbstractEdgeViewer
 		}
 	}
 
-	private void drawLabel(CallEdge pEdge, GraphicsContext pGraphics, String pLabel)
+	private void drawLabel(CallEdge pEdge, DrawingContext pGraphics, String pLabel)
 	{
 		if( pEdge.isSelfEdge() )
 		{
@@ -187,7 +182,7 @@ public final class CallEdgeViewer extends AbstractEdgeViewer
 			}
 			Point endPoint = NodeViewerRegistry.getConnectionPoints(endNode, direction);
          
-			if(start.getCenter().getX() < endPoint.getX())
+			if(start.getCenterX() < endPoint.getX())
 			{
 				points.add(new Point(start.getMaxX(), endPoint.getY()));
 			}
@@ -206,10 +201,9 @@ public final class CallEdgeViewer extends AbstractEdgeViewer
 		final float scale = 0.6f;
 		final int offset = 15;
 		Canvas canvas = new Canvas(BUTTON_SIZE, BUTTON_SIZE);
-		GraphicsContext graphics = canvas.getGraphicsContext2D();
+		DrawingContext graphics = new CanvasDrawingContext(canvas.getGraphicsContext2D());
 		canvas.getGraphicsContext2D().scale(scale, scale);
-		Path path = new Path();
-		path.getElements().addAll(new MoveTo(1, offset), new LineTo(BUTTON_SIZE*(1/scale)-1, offset));
+		PrimitivePath path = new PrimitivePath().moveTo(1, offset).lineTo(BUTTON_SIZE*(1/scale)-1, offset);
 		ToolGraphics.strokeSharpPath(graphics, path, LineStyle.SOLID);
 		ArrowHead.V.view().draw(graphics, new Point(1, offset), new Point((int)(BUTTON_SIZE*(1/scale)-1), offset));
 		return canvas;
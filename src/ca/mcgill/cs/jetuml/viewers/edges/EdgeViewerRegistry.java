@@ -40,8 +40,8 @@ import ca.mcgill.cs.jetuml.diagram.edges.UseCaseGeneralizationEdge;
 import ca.mcgill.cs.jetuml.geom.Line;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 
 /**
  * Keeps track of the association between an edge type and the viewer
@@ -111,7 +111,7 @@ public final class EdgeViewerRegistry
      * @param pGraphics the graphics context
      * @pre pEdge != null
 	 */
-   	public static void draw(Edge pEdge, GraphicsContext pGraphics)
+   	public static void draw(Edge pEdge, DrawingContext pGraphics)
    	{
    		INSTANCE.viewerFor(pEdge).draw(pEdge, pGraphics);
    	}
@@ -122,7 +122,7 @@ public final class EdgeViewerRegistry
      * @param pGraphics the graphics context
      * @pre pEdge != null && pGraphics != null
 	 */
-   	public static void drawSelectionHandles(Edge pEdge, GraphicsContext pGraphics)
+   	public static void drawSelectionHandles(Edge pEdge, DrawingContext pGraphics)
    	{
    		INSTANCE.viewerFor(pEdge).drawSelectionHandles(pEdge, pGraphics);
    	}
@@ -27,9 +27,9 @@ import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.views.ArrowHead;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.StringViewer;
-import javafx.scene.canvas.GraphicsContext;
 
 /**
  * Can draw a straight edge with a label than can be obtained dynamically. 
@@ -56,7 +56,7 @@ public class LabeledStraightEdgeViewer extends StraightEdgeViewer
 	}
 	
 	@Override
-	public void draw(Edge pEdge, GraphicsContext pGraphics)
+	public void draw(Edge pEdge, DrawingContext pGraphics)
 	{
 		super.draw(pEdge, pGraphics);
 		String label = aLabelExtractor.apply(pEdge);
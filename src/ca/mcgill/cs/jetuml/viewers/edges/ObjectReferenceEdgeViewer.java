@@ -24,18 +24,15 @@ import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.geom.Direction;
 import ca.mcgill.cs.jetuml.geom.Line;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
 import ca.mcgill.cs.jetuml.views.ArrowHead;
+import ca.mcgill.cs.jetuml.views.CanvasDrawingContext;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
-import javafx.scene.shape.QuadCurveTo;
-import javafx.scene.shape.Shape;
 
 /**
  * A viewer for an S- or C-shaped edge with an arrowhead.
@@ -45,7 +42,7 @@ public final class ObjectReferenceEdgeViewer extends AbstractEdgeViewer
 	private static final int ENDSIZE = 10;
 	
 	@Override
-	protected Shape getShape(Edge pEdge)
+	protected PrimitivePath getShape(Edge pEdge)
 	{
 		if(isSShaped(pEdge))
 		{
@@ -57,7 +54,7 @@ public final class ObjectReferenceEdgeViewer extends AbstractEdgeViewer
 		}			
 	}
 	
-	private Path getSShape(Line pConnectionPoints)
+	private PrimitivePath getSShape(Line pConnectionPoints)
 	{
 		final int x1 = pConnectionPoints.getX1() + ENDSIZE;
 		final int y1 = pConnectionPoints.getY1();
@@ -66,18 +63,15 @@ public final class ObjectReferenceEdgeViewer extends AbstractEdgeViewer
 		final int xmid = (pConnectionPoints.getX1() + pConnectionPoints.getX2()) / 2;
 		final int ymid = (pConnectionPoints.getY1() + pConnectionPoints.getY2()) / 2;
      
-		MoveTo moveTo = new MoveTo(pConnectionPoints.getX1(), y1);
-		LineTo lineTo1 = new LineTo(x1, y1);
-		QuadCurveTo quadTo1 = new QuadCurveTo((x1 + xmid) / 2, y1, xmid, ymid);
-		QuadCurveTo quadTo2 = new QuadCurveTo((x2 + xmid) / 2, y2, x2, y2);
-		LineTo lineTo2 = new LineTo(pConnectionPoints.getX2(), y2);
-		
-		Path path = new Path();
-		path.getElements().addAll(moveTo, lineTo1, quadTo1, quadTo2, lineTo2);
-		return path;
+		return new PrimitivePath()
+				.moveTo(pConnectionPoints.getX1(), y1)
+				.lineTo(x1, y1)
+				.quadTo((x1 + xmid) / 2, y1, xmid, ymid)
+				.quadTo((x2 + xmid) / 2, y2, x2, y2)
+				.lineTo(pConnectionPoints.getX2(), y2);
 	}
 	
-	private Path getCShape(Line pConnectionPoints)
+	private PrimitivePath getCShape(Line pConnectionPoints)
 	{
 		final int x1 = Math.max(pConnectionPoints.getX1(), pConnectionPoints.getX2()) + ENDSIZE;
 		final int y1 = pConnectionPoints.getY1();
@@ -85,15 +79,12 @@ public final class ObjectReferenceEdgeViewer extends AbstractEdgeViewer
 		final int y2 = pConnectionPoints.getY2();
 		final int ymid = (pConnectionPoints.getY1() + pConnectionPoints.getY2()) / 2;
 		
-		MoveTo moveTo = new MoveTo(pConnectionPoints.getX1(), y1);
-		LineTo lineTo1 = new LineTo(x1, y1);
-		QuadCurveTo quadTo1 = new QuadCurveTo(x2, y1, x2, ymid);
-		QuadCurveTo quadTo2 = new QuadCurveTo(x2, y2, x1, y2);
-		LineTo lineTo2 = new LineTo(pConnectionPoints.getX2(), y2);
-		
-		Path path = new Path();
-		path.getElements().addAll(moveTo, lineTo1, quadTo1, quadTo2, lineTo2);
-		return path;
+		return new PrimitivePath()
+				.moveTo(pConnectionPoints.getX1(), y1)
+				.lineTo(x1, y1)
+				.quadTo(x2, y1, x2, ymid)
+				.quadTo(x2, y2, x1, y2)
+				.lineTo(pConnectionPoints.getX2(), y2);
 	}
 	
 	/**
@@ -108,9 +99,9 @@ public final class ObjectReferenceEdgeViewer extends AbstractEdgeViewer
 	}
 
 	@Override
-	public void draw(Edge pEdge, GraphicsContext pGraphics)
+	public void draw(Edge pEdge, DrawingContext pGraphics)
 	{
-		ToolGraphics.strokeSharpPath(pGraphics, (Path) getShape(pEdge), LineStyle.SOLID);
+		ToolGraphics.strokeSharpPath(pGraphics, getShape(pEdge), LineStyle.SOLID);
 		Line connectionPoints = getConnectionPoints(pEdge);
 		
 		if(isSShaped(pEdge))
@@ -145,9 +136,9 @@ public final class ObjectReferenceEdgeViewer extends AbstractEdgeViewer
 	public Canvas createIcon(Edge pEdge)
 	{   //CSOFF: Magic numbers
 		Canvas canvas = new Canvas(BUTTON_SIZE, BUTTON_SIZE);
-		GraphicsContext graphics = canvas.getGraphicsContext2D();
+		DrawingContext graphics = new CanvasDrawingContext(canvas.getGraphicsContext2D());
 		graphics.scale(0.6, 0.6);
-		Path path = getCShape(new Line(new Point(5, 5), new Point(15,25)));
+		PrimitivePath path = getCShape(new Line(new Point(5, 5), new Point(15,25)));
 		ToolGraphics.strokeSharpPath(graphics, path, LineStyle.SOLID);
 		ArrowHead.BLACK_TRIANGLE.view().draw(graphics, new Point(20,25), new Point(15, 25));
 		return canvas;
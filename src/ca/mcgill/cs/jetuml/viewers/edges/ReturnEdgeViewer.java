@@ -25,16 +25,15 @@ import ca.mcgill.cs.jetuml.diagram.edges.ReturnEdge;
 import ca.mcgill.cs.jetuml.diagram.nodes.PointNode;
 import ca.mcgill.cs.jetuml.geom.Line;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
 import ca.mcgill.cs.jetuml.views.ArrowHead;
+import ca.mcgill.cs.jetuml.views.CanvasDrawingContext;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
 
 /**
  * Viewer for a labeled, straight edge with customized code to
@@ -60,7 +59,7 @@ public final class ReturnEdgeViewer extends LabeledStraightEdgeViewer
 		{
 			return new Line(new Point(end.getX(), end.getY()), new Point(start.getMaxX(), end.getY()));
 		}      
-		else if(start.getCenter().getX() < end.getCenter().getX())
+		else if(start.getCenterX() < end.getCenterX())
 		{
 			return new Line(new Point(start.getMaxX(), start.getMaxY()), new Point(end.getX(), start.getMaxY()));
 		}
@@ -76,12 +75,11 @@ public final class ReturnEdgeViewer extends LabeledStraightEdgeViewer
 		final float scale = 0.6f;
 		final int offset = 25;
 		Canvas canvas = new Canvas(BUTTON_SIZE, BUTTON_SIZE);
-		GraphicsContext graphics = canvas.getGraphicsContext2D();
+		DrawingContext graphics = new CanvasDrawingContext(canvas.getGraphicsContext2D());
 		canvas.getGraphicsContext2D().scale(scale, scale);
-		Path path = new Path();
-		path.getElements().addAll(new MoveTo(1, offset), new LineTo(BUTTON_SIZE*(1/scale)-1, offset));
+		PrimitivePath path = new PrimitivePath().moveTo(1, offset).lineTo(BUTTON_SIZE*(1/scale)-1, offset);
 		ToolGraphics.strokeSharpPath(graphics, path, LineStyle.DOTTED);
 		ArrowHead.V.view().draw(graphics, new Point((int)(BUTTON_SIZE*(1/scale)-1), offset), new Point(1, offset));
 		return canvas;
 	}
-}
\ No newline at end of file
+}
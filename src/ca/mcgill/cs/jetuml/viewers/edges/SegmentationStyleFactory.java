@@ -38,6 +38,7 @@ import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
 import ca.mcgill.cs.jetuml.geom.Conversions;
 import ca.mcgill.cs.jetuml.geom.Direction;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.viewers.edges.SegmentationStyle.Side;
 import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
 import ca.mcgill.cs.jetuml.viewers.nodes.PackageDescriptionNodeViewer;
@@ -93,6 +94,18 @@ public final class SegmentationStyleFactory
 		return new VHV();
 	}
 	
+	/**
+	 * The VHV and HVH styles can only segment an edge between two 
+	 * nodes that are at least this far apart, vertically and horizontally
+	 * respectively. Closer nodes are connected with a straight line.
+	 * @return The smallest gap between two nodes that leaves room for 
+	 *     a segmented edge between them.
+	 */
+	public static int getMinimumSegmentationGap()
+	{
+		return 2 * MIN_SEGMENT;
+	}
+	
 	/*
 	 * The idea for creating a self path is to find the top left corner of 
 	 * the actual figure and walk back N pixels away from it.
@@ -135,7 +148,8 @@ public final class SegmentationStyleFactory
 		}
 		else
 		{
-			return new Point2D(NodeViewerRegistry.getBounds(pNode).getMaxX(), NodeViewerRegistry.getBounds(pNode).getY());
+			Rectangle bounds = NodeViewerRegistry.getBounds(pNode);
+			return new Point2D(bounds.getMaxX(), bounds.getY());
 		}
 	}
 	
@@ -202,23 +216,24 @@ public final class SegmentationStyleFactory
 	{
 		assert pNode != null && pSide != null && pPosition != null && pNode.getDiagram().isPresent();
 		Point start = NodeViewerRegistry.getConnectionPoints(pNode, pSide.getDirection());
+		Rectangle bounds = NodeViewerRegistry.getBounds(pNode);
 		if( pSide.isEastWest() )
 		{
-			double yPosition = start.getY()+ pPosition.computeNudge(NodeViewerRegistry.getBounds(pNode).getHeight()); // Default
+			double yPosition = start.getY()+ pPosition.computeNudge(bounds.getHeight()); // Default
 			if( hasSelfEdge(pNode) && pSide == Side.EAST )
 			{
-				double increment = (NodeViewerRegistry.getBounds(pNode).getHeight() - MARGIN) / (pPosition.aTotal+1);
-				yPosition = NodeViewerRegistry.getBounds(pNode).getY() + MARGIN + pPosition.getIndex() * increment;
+				double increment = (bounds.getHeight() - MARGIN) / (pPosition.aTotal+1);
+				yPosition = bounds.getY() + MARGIN + pPosition.getIndex() * increment;
 			}
 			return new Point( start.getX(), (int) Math.round(yPosition));	
 		}
 		else
 		{
-			double xPosition = start.getX()+ pPosition.computeNudge(NodeViewerRegistry.getBounds(pNode).getWidth());
+			double xPosition = start.getX()+ pPosition.computeNudge(bounds.getWidth());
 			if( hasSelfEdge(pNode) && pSide == Side.NORTH )
 			{
-				double increment = (NodeViewerRegistry.getBounds(pNode).getWidth() - MARGIN) / (pPosition.aTotal+1);
-				xPosition = NodeViewerRegistry.getBounds(pNode).getX() + pPosition.getIndex() * increment;
+				double increment = (bounds.getWidth() - MARGIN) / (pPosition.aTotal+1);
+				xPosition = bounds.getX() + pPosition.getIndex() * increment;
 			}
 			return new Point( (int) Math.round(xPosition), start.getY());
 		}
@@ -376,13 +391,13 @@ public final class SegmentationStyleFactory
 						
 			if( pSide.isEastWest() )
 			{		
-				return NodeViewerRegistry.getBounds(otherNode1).getCenter().getY() - 
-						NodeViewerRegistry.getBounds(otherNode2).getCenter().getY();
+				return NodeViewerRegistry.getBounds(otherNode1).getCenterY() - 
+						NodeViewerRegistry.getBounds(otherNode2).getCenterY();
 			}
 			else
 			{
-				return NodeViewerRegistry.getBounds(otherNode1).getCenter().getX() - 
-						NodeViewerRegistry.getBounds(otherNode2).getCenter().getX();
+				return NodeViewerRegistry.getBounds(otherNode1).getCenterX() - 
+						NodeViewerRegistry.getBounds(otherNode2).getCenterX();
 			}
 		});
 	}
@@ -22,26 +22,24 @@ package ca.mcgill.cs.jetuml.viewers.edges;
 
 import java.util.function.Function;
 
+import ca.mcgill.cs.jetuml.application.Metrics;
 import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.geom.Conversions;
 import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Line;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.views.ArrowHead;
+import ca.mcgill.cs.jetuml.views.CanvasDrawingContext;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
-import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.geometry.VPos;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
-import javafx.scene.shape.Shape;
 import javafx.scene.text.TextAlignment;
 
 /**
@@ -49,6 +47,8 @@ import javafx.scene.text.TextAlignment;
  */
 public class SegmentedEdgeViewer extends AbstractEdgeViewer
 {
+	private static final Metrics.Timer PATH_TIMER = Metrics.timer(Metrics.EDGE_PATH);
+	
 	private Function<Edge, LineStyle> aLineStyleExtractor;
 	private Function<Edge, ArrowHead> aArrowStartExtractor;
 	private Function<Edge, ArrowHead> aArrowEndExtractor;
@@ -87,7 +87,7 @@ public class SegmentedEdgeViewer extends AbstractEdgeViewer
 	 * @param pString the string to draw 
 	 * @param pCenter true if the string should be centered along the segment
 	 */
-	private static void drawString(GraphicsContext pGraphics, Point2D pEndPoint1, Point2D pEndPoint2, 
+	private static void drawString(DrawingContext pGraphics, Point2D pEndPoint1, Point2D pEndPoint2, 
 			ArrowHead pArrowHead, String pString, boolean pCenter)
 	{
 		if (pString == null || pString.length() == 0)
@@ -122,10 +122,10 @@ public class SegmentedEdgeViewer extends AbstractEdgeViewer
 	}
 	
 	@Override
-	public void draw(Edge pEdge, GraphicsContext pGraphics)
+	public void draw(Edge pEdge, DrawingContext pGraphics)
 	{
 		Point2D[] points = getPoints(pEdge);		
-		ToolGraphics.strokeSharpPath(pGraphics, getSegmentPath(pEdge), aLineStyleExtractor.apply(pEdge));
+		ToolGraphics.strokeSharpPath(pGraphics, getSegmentPath(points), aLineStyleExtractor.apply(pEdge));
 		aArrowStartExtractor.apply(pEdge).view().draw(pGraphics, 
 				Conversions.toPoint(points[1]), 
 				Conversions.toPoint(points[0]));
@@ -188,16 +188,16 @@ public class SegmentedEdgeViewer extends AbstractEdgeViewer
 			}
 			if(pArrow != null)
 			{
-				Bounds arrowBounds = pArrow.view().getPath(
+				double arrowWidth = pArrow.view().getPath(
 						Conversions.toPoint(pEndPoint1), 
-						Conversions.toPoint(pEndPoint2)).getBoundsInLocal();
+						Conversions.toPoint(pEndPoint2)).getWidth();
 				if(pEndPoint1.getX() < pEndPoint2.getX())
 				{
-					xoff -= arrowBounds.getWidth();
+					xoff -= arrowWidth;
 				}
 				else
 				{
-					xoff += arrowBounds.getWidth();
+					xoff += arrowWidth;
 				}
 			}
 		}
@@ -206,7 +206,10 @@ public class SegmentedEdgeViewer extends AbstractEdgeViewer
 	
 	private Point2D[] getPoints(Edge pEdge)
 	{
-		return aStyle.getPath(pEdge);
+		long start = PATH_TIMER.start();
+		Point2D[] path = aStyle.getPath(pEdge);
+		PATH_TIMER.stop(start);
+		return path;
 	}
 
 	@Override
@@ -218,31 +221,28 @@ public class SegmentedEdgeViewer extends AbstractEdgeViewer
 	}
 	
 	@Override
-	protected Shape getShape(Edge pEdge)
+	protected PrimitivePath getShape(Edge pEdge)
 	{
-		Path path = getSegmentPath(pEdge);
 		Point2D[] points = getPoints(pEdge);
-		path.getElements().addAll(aArrowStartExtractor.apply(pEdge).view().getPath(
+		PrimitivePath path = getSegmentPath(points);
+		path.append(aArrowStartExtractor.apply(pEdge).view().getPath(
 				Conversions.toPoint(points[1]),
-				Conversions.toPoint(points[0])).getElements());
-		path.getElements().addAll(aArrowEndExtractor.apply(pEdge).view().getPath(
+				Conversions.toPoint(points[0])));
+		path.append(aArrowEndExtractor.apply(pEdge).view().getPath(
 				Conversions.toPoint(points[points.length - 2]), 
-				Conversions.toPoint(points[points.length - 1])).getElements());
+				Conversions.toPoint(points[points.length - 1])));
 		return path;
 	}
 
-	private Path getSegmentPath(Edge pEdge)
+	private static PrimitivePath getSegmentPath(Point2D[] pPoints)
 	{
-		Point2D[] points = getPoints(pEdge);
-		Path path = new Path();
-		Point2D p = points[points.length - 1];
-		MoveTo moveTo = new MoveTo((float) p.getX(), (float) p.getY());
-		path.getElements().add(moveTo);
-		for(int i = points.length - 2; i >= 0; i--)
+		PrimitivePath path = new PrimitivePath();
+		Point2D p = pPoints[pPoints.length - 1];
+		path.moveTo((float) p.getX(), (float) p.getY());
+		for(int i = pPoints.length - 2; i >= 0; i--)
 		{
-			p = points[i];
-			LineTo lineTo = new LineTo((float) p.getX(), (float) p.getY());
-			path.getElements().add(lineTo);
+			p = pPoints[i];
+			path.lineTo((float) p.getX(), (float) p.getY());
 		}
 		return path;
 	}
@@ -289,12 +289,11 @@ public class SegmentedEdgeViewer extends AbstractEdgeViewer
 	public Canvas createIcon(Edge pEdge) 
 	{
 		Canvas canvas = new Canvas(BUTTON_SIZE, BUTTON_SIZE);
-		Path path = new Path();
-		path.getElements().addAll(new MoveTo(OFFSET, OFFSET), new LineTo(BUTTON_SIZE-OFFSET, BUTTON_SIZE-OFFSET));
-		ToolGraphics.strokeSharpPath(canvas.getGraphicsContext2D(), path, aLineStyleExtractor.apply(pEdge));
-		aArrowEndExtractor.apply(pEdge).view().draw(canvas.getGraphicsContext2D(), 
+		PrimitivePath path = new PrimitivePath().moveTo(OFFSET, OFFSET).lineTo(BUTTON_SIZE-OFFSET, BUTTON_SIZE-OFFSET);
+		ToolGraphics.strokeSharpPath(new CanvasDrawingContext(canvas.getGraphicsContext2D()), path, aLineStyleExtractor.apply(pEdge));
+		aArrowEndExtractor.apply(pEdge).view().draw(new CanvasDrawingContext(canvas.getGraphicsContext2D()), 
 				new Point(OFFSET, OFFSET), new Point(BUTTON_SIZE-OFFSET, BUTTON_SIZE - OFFSET));
-		aArrowStartExtractor.apply(pEdge).view().draw(canvas.getGraphicsContext2D(), 
+		aArrowStartExtractor.apply(pEdge).view().draw(new CanvasDrawingContext(canvas.getGraphicsContext2D()), 
 				new Point(BUTTON_SIZE-OFFSET, BUTTON_SIZE - OFFSET), new Point(OFFSET, OFFSET));
 		return canvas;
 	}
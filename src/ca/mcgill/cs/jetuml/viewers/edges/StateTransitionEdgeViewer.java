@@ -27,25 +27,23 @@ import ca.mcgill.cs.jetuml.diagram.edges.StateTransitionEdge;
 import ca.mcgill.cs.jetuml.geom.Conversions;
 import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Direction;
+import ca.mcgill.cs.jetuml.geom.GeomUtils;
 import ca.mcgill.cs.jetuml.geom.Line;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
 import ca.mcgill.cs.jetuml.views.ArrowHead;
+import ca.mcgill.cs.jetuml.views.CanvasDrawingContext;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
 import javafx.geometry.Point2D;
 import javafx.geometry.Rectangle2D;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
-import javafx.scene.shape.Arc;
 import javafx.scene.shape.ArcType;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
-import javafx.scene.shape.QuadCurveTo;
-import javafx.scene.shape.Shape;
 import javafx.scene.text.Font;
 import javafx.scene.text.TextAlignment;
 
@@ -58,7 +56,9 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 	private static final int DEGREES_5 = 5;
 	private static final int DEGREES_10 = 10;
 	private static final int DEGREES_20 = 20;
+	private static final int DEGREES_90 = 90;
 	private static final int DEGREES_270 = 270;
+	private static final int SELF_EDGE_RADIUS = SELF_EDGE_OFFSET * 2;
 	private static final double LINE_WIDTH = 0.6;
 	
 	private static final int RADIANS_TO_PIXELS = 10;
@@ -73,7 +73,7 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 	private Font aFont = FONT;
 	
 	@Override
-	public void draw(Edge pEdge, GraphicsContext pGraphics)
+	public void draw(Edge pEdge, DrawingContext pGraphics)
 	{
 		if(isSelfEdge(pEdge))
 		{
@@ -82,13 +82,13 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 		}
 		else 
 		{
-			ToolGraphics.strokeSharpPath(pGraphics, (Path) getShape(pEdge), LineStyle.SOLID);
+			ToolGraphics.strokeSharpPath(pGraphics, getShape(pEdge), LineStyle.SOLID);
 		}
 		drawLabel((StateTransitionEdge)pEdge, pGraphics);
 		drawArrowHead(pEdge, pGraphics);
 	}
 	
-	private void drawArrowHead(Edge pEdge, GraphicsContext pGraphics)
+	private void drawArrowHead(Edge pEdge, DrawingContext pGraphics)
 	{
 		if( isSelfEdge(pEdge) )
 		{
@@ -114,7 +114,7 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 	 *  Draws the label.
 	 *  @param pGraphics2D the graphics context
 	 */
-	private void drawLabel(StateTransitionEdge pEdge, GraphicsContext pGraphics)
+	private void drawLabel(StateTransitionEdge pEdge, DrawingContext pGraphics)
 	{
 		adjustLabelFont(pEdge);
 		Rectangle2D labelBounds = getLabelBounds(pEdge);
@@ -133,13 +133,13 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 		pGraphics.translate(-x, -y);        
 	}
 	
-	private void drawSelfEdge(Edge pEdge, GraphicsContext pGraphics)
+	private void drawSelfEdge(Edge pEdge, DrawingContext pGraphics)
 	{
-		Arc arc = (Arc) getShape(pEdge);
+		Point2D center = getSelfEdgeCenter(pEdge);
 		double width = pGraphics.getLineWidth();
 		pGraphics.setLineWidth(LINE_WIDTH);
-		pGraphics.strokeArc(arc.getCenterX(), arc.getCenterY(), arc.getRadiusX(), arc.getRadiusY(), arc.getStartAngle(), 
-				arc.getLength(), arc.getType());
+		pGraphics.strokeArc(center.getX(), center.getY(), SELF_EDGE_RADIUS, SELF_EDGE_RADIUS, getSelfEdgeStartAngle(pEdge), 
+				DEGREES_270, ArcType.OPEN);
 		pGraphics.setLineWidth(width);
 	}
 	
@@ -262,17 +262,18 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 		}
 	}
 
+	/*
+	 * Self edges are arcs, which are drawn, measured, and hit-tested 
+	 * from their center and start angle instead of from a path.
+	 */
 	@Override
-	protected Shape getShape(Edge pEdge)
+	protected PrimitivePath getShape(Edge pEdge)
 	{
-		if( isSelfEdge(pEdge) )
-		{
-			return getSelfEdgeShape(pEdge);
-		}
-		else
-		{
-			return getNormalEdgeShape(pEdge);
-		}
+		assert !isSelfEdge(pEdge);
+		Line line = getConnectionPoints(pEdge);
+		Point2D control = getControlPoint(pEdge);
+		return new PrimitivePath().moveTo(line.getPoint1().getX(), line.getPoint1().getY())
+				.quadTo(control.getX(), control.getY(), line.getPoint2().getX(), line.getPoint2().getY());
 	}
 	
 	private boolean isSelfEdge(Edge pEdge)
@@ -280,41 +281,75 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 		return pEdge.getStart() == pEdge.getEnd();
 	}
 	
-	private Shape getSelfEdgeShape(Edge pEdge)
+	/*
+	 * The self edge is an arc of 270 degrees around this center.
+	 */
+	private Point2D getSelfEdgeCenter(Edge pEdge)
 	{
 		Line line = getSelfEdgeConnectionPoints(pEdge);
-		Arc arc = new Arc();
-		arc.setRadiusX(SELF_EDGE_OFFSET*2);
-		arc.setRadiusY(SELF_EDGE_OFFSET*2);
-		arc.setLength(DEGREES_270);
-		arc.setType(ArcType.OPEN);
 		if( getPosition(pEdge) == 1 )
 		{
-			arc.setCenterX(line.getX1());
-			arc.setCenterY(line.getY1()-SELF_EDGE_OFFSET);
-			arc.setStartAngle(DEGREES_270);
+			return new Point2D(line.getX1(), line.getY1()-SELF_EDGE_OFFSET);
 		}
 		else
 		{		
-			arc.setCenterX(line.getX1()-SELF_EDGE_OFFSET);
-			arc.setCenterY(line.getY1()-SELF_EDGE_OFFSET*2);
-			arc.setStartAngle(1);
+			return new Point2D(line.getX1()-SELF_EDGE_OFFSET, line.getY1()-SELF_EDGE_OFFSET*2);
+		}
+	}
+	
+	private int getSelfEdgeStartAngle(Edge pEdge)
+	{
+		if( getPosition(pEdge) == 1 )
+		{
+			return DEGREES_270;
+		}
+		else
+		{
+			return 1;
 		}
-		return arc;
+	}
+	
+	/*
+	 * The bounds of the self-edge arc: its end points, and the points where 
+	 * it crosses the horizontal and vertical axes through its center.
+	 */
+	private Rectangle getSelfEdgeBounds(Edge pEdge)
+	{
+		Point2D center = getSelfEdgeCenter(pEdge);
+		int start = getSelfEdgeStartAngle(pEdge);
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		int firstAxis = (start + DEGREES_90 - 1) / DEGREES_90 * DEGREES_90;
+		int[] angles = { start, start + DEGREES_270, firstAxis, firstAxis + DEGREES_90, 
+				firstAxis + 2 * DEGREES_90, firstAxis + DEGREES_270 };
+		for( int angle : angles )
+		{
+			if( angle <= start + DEGREES_270 )
+			{
+				// Angles are counter-clockwise, and the y axis points down.
+				double x = center.getX() + SELF_EDGE_RADIUS * Math.cos(Math.toRadians(angle));
+				double y = center.getY() - SELF_EDGE_RADIUS * Math.sin(Math.toRadians(angle));
+				minX = Math.min(minX, x);
+				minY = Math.min(minY, y);
+				maxX = Math.max(maxX, x);
+				maxY = Math.max(maxY, y);
+			}
+		}
+		return new Rectangle((int) minX, (int) minY, (int)(maxX - minX), (int)(maxY - minY));
 	}
 	
 	@Override
 	public boolean contains(Edge pEdge, Point pPoint)
 	{
-		boolean result = super.contains(pEdge, pPoint);
-		if (getShape(pEdge) instanceof Arc)
+		if( !isSelfEdge(pEdge) )
 		{
-			Arc arc = (Arc) getShape(pEdge);
-			arc.setRadiusX(arc.getRadiusX() + 2 * MAX_DISTANCE);
-			arc.setRadiusY(arc.getRadiusY() + 2 * MAX_DISTANCE);
-			result = arc.contains(pPoint.getX(), pPoint.getY());
+			return super.contains(pEdge, pPoint);
 		}
-		return result;
+		Point2D center = getSelfEdgeCenter(pEdge);
+		return GeomUtils.arcContains(center.getX(), center.getY(), SELF_EDGE_RADIUS + 2 * MAX_DISTANCE, 
+				getSelfEdgeStartAngle(pEdge), DEGREES_270, pPoint);
 	}
 	
 	/** 
@@ -365,18 +400,6 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 		}
 	}
 	
-	private Shape getNormalEdgeShape(Edge pEdge)
-	{
-		Line line = getConnectionPoints(pEdge);
-		Path path = new Path();
-		MoveTo moveTo = new MoveTo(line.getPoint1().getX(), line.getPoint1().getY());
-		QuadCurveTo curveTo = new QuadCurveTo(getControlPoint(pEdge).getX(), getControlPoint(pEdge).getY(), 
-				line.getPoint2().getX(), line.getPoint2().getY());
-		path.getElements().addAll(moveTo, curveTo);
-		return path;
-	}
-	
-	
 	/**
      *  Gets the control point for the quadratic spline.
      * @return the control point
@@ -397,7 +420,16 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 	@Override
 	public Rectangle getBounds(Edge pEdge)
 	{
-		return super.getBounds(pEdge).add(Conversions.toRectangle(getLabelBounds((StateTransitionEdge)pEdge)));
+		Rectangle bounds;
+		if( isSelfEdge(pEdge) )
+		{
+			bounds = getSelfEdgeBounds(pEdge);
+		}
+		else
+		{
+			bounds = super.getBounds(pEdge);
+		}
+		return bounds.add(Conversions.toRectangle(getLabelBounds((StateTransitionEdge)pEdge)));
 	}
 	
 	@Override
@@ -438,7 +470,7 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 	public Canvas createIcon(Edge pEdge)
 	{   //CSOFF: Magic numbers
 		Canvas canvas = new Canvas(BUTTON_SIZE, BUTTON_SIZE);
-		GraphicsContext graphics = canvas.getGraphicsContext2D();
+		DrawingContext graphics = new CanvasDrawingContext(canvas.getGraphicsContext2D());
 		graphics.scale(0.6, 0.6);
 		Line line = new Line(new Point(2,2), new Point(40,40));
 		final double tangent = Math.tan(Math.toRadians(DEGREES_10));
@@ -447,10 +479,8 @@ public final class StateTransitionEdgeViewer extends AbstractEdgeViewer
 		Point control = new Point((int)((line.getX1() + line.getX2()) / 2 + tangent * dy), 
 				(int)((line.getY1() + line.getY2()) / 2 - tangent * dx));         
 		
-		Path path = new Path();
-		MoveTo moveTo = new MoveTo(line.getPoint1().getX(), line.getPoint1().getY());
-		QuadCurveTo curveTo = new QuadCurveTo(control.getX(), control.getY(), line.getPoint2().getX(), line.getPoint2().getY());
-		path.getElements().addAll(moveTo, curveTo);
+		PrimitivePath path = new PrimitivePath().moveTo(line.getPoint1().getX(), line.getPoint1().getY())
+				.quadTo(control.getX(), control.getY(), line.getPoint2().getX(), line.getPoint2().getY());
 		
 		ToolGraphics.strokeSharpPath(graphics, path, LineStyle.SOLID);
 		ArrowHead.V.view().draw(graphics, control, new Point(40, 40));
@@ -21,18 +21,16 @@
 package ca.mcgill.cs.jetuml.viewers.edges;
 
 import ca.mcgill.cs.jetuml.diagram.Edge;
-import ca.mcgill.cs.jetuml.geom.Conversions;
 import ca.mcgill.cs.jetuml.geom.Line;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.views.ArrowHead;
+import ca.mcgill.cs.jetuml.views.CanvasDrawingContext;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
 
 /**
  * Can draw an edge as a straight line between the connection
@@ -58,10 +56,9 @@ public class StraightEdgeViewer extends AbstractEdgeViewer
 	}
 	
 	@Override
-	public void draw(Edge pEdge, GraphicsContext pGraphics)
+	public void draw(Edge pEdge, DrawingContext pGraphics)
 	{
-		Path shape = (Path) getShape(pEdge);
-		ToolGraphics.strokeSharpPath(pGraphics, shape, aLineStyle);
+		ToolGraphics.strokeSharpPath(pGraphics, getShape(pEdge), aLineStyle);
 		Line connectionPoints = getConnectionPoints(pEdge);
 		aArrowHead.view().draw(pGraphics, connectionPoints.getPoint1(), connectionPoints.getPoint2());
 	}
@@ -73,8 +70,7 @@ public class StraightEdgeViewer extends AbstractEdgeViewer
 		if( aArrowHead != ArrowHead.NONE )
 		{
 			Line connectionPoints = getConnectionPoints(pEdge);
-			bounds = bounds.add(Conversions.toRectangle(aArrowHead.view().getPath(connectionPoints.getPoint1(), 
-					connectionPoints.getPoint2()).getBoundsInLocal()));
+			bounds = bounds.add(aArrowHead.view().getBounds(connectionPoints.getPoint1(), connectionPoints.getPoint2()));
 		}
 		return bounds;
 	}
@@ -83,10 +79,9 @@ public class StraightEdgeViewer extends AbstractEdgeViewer
 	public Canvas createIcon(Edge pEdge)
 	{
 		Canvas canvas = new Canvas(BUTTON_SIZE, BUTTON_SIZE);
-		Path path = new Path();
-		path.getElements().addAll(new MoveTo(OFFSET, OFFSET), new LineTo(BUTTON_SIZE-OFFSET, BUTTON_SIZE-OFFSET));
-		ToolGraphics.strokeSharpPath(canvas.getGraphicsContext2D(), path, aLineStyle);
-		aArrowHead.view().draw(canvas.getGraphicsContext2D(), new Point(OFFSET, OFFSET), new Point(BUTTON_SIZE-OFFSET, BUTTON_SIZE - OFFSET));
+		PrimitivePath path = new PrimitivePath().moveTo(OFFSET, OFFSET).lineTo(BUTTON_SIZE-OFFSET, BUTTON_SIZE-OFFSET);
+		ToolGraphics.strokeSharpPath(new CanvasDrawingContext(canvas.getGraphicsContext2D()), path, aLineStyle);
+		aArrowHead.view().draw(new CanvasDrawingContext(canvas.getGraphicsContext2D()), new Point(OFFSET, OFFSET), new Point(BUTTON_SIZE-OFFSET, BUTTON_SIZE - OFFSET));
 		return canvas;
 	}
 }
@@ -27,9 +27,10 @@ import ca.mcgill.cs.jetuml.geom.Direction;
 import ca.mcgill.cs.jetuml.geom.GeomUtils;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.CanvasDrawingContext;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
 /**
@@ -56,19 +57,19 @@ public abstract class AbstractNodeViewer implements NodeViewer
 		Optional<Point> result = Optional.empty();
 		if( pDirection == Direction.NORTH )
 		{
-			result = Optional.of(new Point(pBounds.getCenter().getX(), pBounds.getY()));
+			result = Optional.of(new Point(pBounds.getCenterX(), pBounds.getY()));
 		}
 		else if( pDirection == Direction.SOUTH )
 		{
-			result =  Optional.of(new Point(pBounds.getCenter().getX(), pBounds.getMaxY()));
+			result =  Optional.of(new Point(pBounds.getCenterX(), pBounds.getMaxY()));
 		}
 		else if( pDirection == Direction.EAST)
 		{
-			result = Optional.of(new Point(pBounds.getMaxX(), pBounds.getCenter().getY()));
+			result = Optional.of(new Point(pBounds.getMaxX(), pBounds.getCenterY()));
 		}
 		else if( pDirection == Direction.WEST )
 		{
-			result = Optional.of(new Point(pBounds.getX(), pBounds.getCenter().getY()));
+			result = Optional.of(new Point(pBounds.getX(), pBounds.getCenterY()));
 		}
 		return result;
 	}
@@ -85,7 +86,7 @@ public abstract class AbstractNodeViewer implements NodeViewer
 	}
 	
 	@Override
-	public void drawSelectionHandles(Node pNode, GraphicsContext pGraphics)
+	public void drawSelectionHandles(Node pNode, DrawingContext pGraphics)
 	{
 		ToolGraphics.drawHandles(pGraphics, getBounds(pNode));		
 	}
@@ -100,12 +101,12 @@ public abstract class AbstractNodeViewer implements NodeViewer
 		double scaleY = (BUTTON_SIZE - OFFSET)/ (double) height;
 		double scale = Math.min(scaleX, scaleY);
 		Canvas canvas = new Canvas(BUTTON_SIZE, BUTTON_SIZE);
-		GraphicsContext graphics = canvas.getGraphicsContext2D();
+		DrawingContext graphics = new CanvasDrawingContext(canvas.getGraphicsContext2D());
 		graphics.scale(scale, scale);
 		graphics.translate(Math.max((height - width) / 2, 0), Math.max((width - height) / 2, 0));
 		graphics.setFill(Color.WHITE);
 		graphics.setStroke(Color.BLACK);
-		draw(pNode, canvas.getGraphicsContext2D());
+		draw(pNode, graphics);
 		return canvas;
 	}
 }
@@ -26,14 +26,18 @@ import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.nodes.AbstractPackageNode;
 import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Direction;
+import ca.mcgill.cs.jetuml.geom.GeomUtils;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.StringViewer;
 import ca.mcgill.cs.jetuml.views.ViewUtils;
-import javafx.scene.canvas.GraphicsContext;
 
 /**
- * Common functionality to view the different types of package nodes.
+ * Common functionality to view the different types of package nodes. 
+ * A package is drawn as a top rectangle holding its name over a bottom 
+ * rectangle. Both rectangles are computed together, as the layout of 
+ * the package, so that each service computes the layout only once.
  */
 public abstract class AbstractPackageNodeViewer extends AbstractNodeViewer
 {
@@ -46,11 +50,12 @@ public abstract class AbstractPackageNodeViewer extends AbstractNodeViewer
 	private static final StringViewer NAME_VIEWER = new StringViewer(StringViewer.Align.LEFT, false, false);
 	
 	@Override
-	public void draw(Node pNode, GraphicsContext pGraphics)
+	public void draw(Node pNode, DrawingContext pGraphics)
 	{
 		assert pNode instanceof AbstractPackageNode;
-		Rectangle topBounds = getTopBounds((AbstractPackageNode)pNode);
-		Rectangle bottomBounds = getBottomBounds((AbstractPackageNode)pNode);
+		PackageLayout layout = layout((AbstractPackageNode)pNode);
+		Rectangle topBounds = layout.getTop();
+		Rectangle bottomBounds = layout.getBottom();
 		ViewUtils.drawRectangle(pGraphics, topBounds );
 		ViewUtils.drawRectangle(pGraphics, bottomBounds );
 		NAME_VIEWER.draw(((AbstractPackageNode)pNode).getName(), pGraphics, new Rectangle(topBounds.getX() + NAME_GAP, 
@@ -61,16 +66,17 @@ public abstract class AbstractPackageNodeViewer extends AbstractNodeViewer
 	public Point getConnectionPoint(Node pNode, Direction pDirection)
 	{
 		assert pNode instanceof AbstractPackageNode;
-		Rectangle topBounds = getTopBounds((AbstractPackageNode)pNode);
-		Rectangle bottomBounds = getBottomBounds((AbstractPackageNode)pNode);
-		Rectangle bounds = topBounds.add(bottomBounds);
+		PackageLayout layout = layout((AbstractPackageNode)pNode);
+		Rectangle topBounds = layout.getTop();
+		Rectangle bottomBounds = layout.getBottom();
+		Rectangle bounds = layout.getBounds();
 		
-		Point connectionPoint = super.getConnectionPoint(pNode, pDirection);
+		Point connectionPoint = GeomUtils.intersectRectangle(bounds, pDirection);
 		if( connectionPoint.getY() < bottomBounds.getY() && topBounds.getMaxX() < connectionPoint.getX() )
 		{
 			// The connection point falls in the empty top-right corner, re-compute it so
 			// it intersects the top of the bottom rectangle (basic triangle proportions)
-			int delta = topBounds.getHeight() * (connectionPoint.getX() - bounds.getCenter().getX()) * 2 / 
+			int delta = topBounds.getHeight() * (connectionPoint.getX() - bounds.getCenterX()) * 2 / 
 					bounds.getHeight();
 			int newX = connectionPoint.getX() - delta;
 			if( newX < topBounds.getMaxX() )
@@ -89,7 +95,7 @@ public abstract class AbstractPackageNodeViewer extends AbstractNodeViewer
 	public Rectangle getBounds(Node pNode)
 	{
 		assert pNode instanceof AbstractPackageNode;
-		return getTopBounds((AbstractPackageNode)pNode).add(getBottomBounds((AbstractPackageNode)pNode));
+		return layout((AbstractPackageNode)pNode).getBounds();
 	}
 	
 	/**
@@ -111,15 +117,64 @@ public abstract class AbstractPackageNodeViewer extends AbstractNodeViewer
 		return new Dimension(topWidth, TOP_HEIGHT);
 	}
 	
-	/*
-	 * By default the node's top bounds is based on its position.
-	 */
-	protected Rectangle getTopBounds(AbstractPackageNode pNode)
+	protected final Rectangle getTopBounds(AbstractPackageNode pNode)
+	{
+		return layout(pNode).getTop();
+	}
+	
+	protected final Rectangle getBottomBounds(AbstractPackageNode pNode)
 	{
-		Point position = pNode.position();
-		Dimension topDimension = getTopDimension(pNode);
-		return new Rectangle(position.getX(), position.getY(), topDimension.width(), topDimension.height());
+		return layout(pNode).getBottom();
 	}
 	
-	protected abstract Rectangle getBottomBounds(AbstractPackageNode pNode);
+	/**
+	 * Computes the top and bottom rectangles of a package. 
+	 * 
+	 * @param pNode The package node.
+	 * @return The layout of pNode.
+	 */
+	protected abstract PackageLayout layout(AbstractPackageNode pNode);
+	
+	/**
+	 * The top and bottom rectangles of a package.
+	 */
+	protected static final class PackageLayout
+	{
+		private final Rectangle aTop;
+		private final Rectangle aBottom;
+		
+		/**
+		 * @param pTop The rectangle that holds the name of the package.
+		 * @param pBottom The rectangle under the top one.
+		 */
+		protected PackageLayout(Rectangle pTop, Rectangle pBottom)
+		{
+			aTop = pTop;
+			aBottom = pBottom;
+		}
+		
+		/**
+		 * @return The rectangle that holds the name of the package.
+		 */
+		public Rectangle getTop()
+		{
+			return aTop;
+		}
+		
+		/**
+		 * @return The rectangle under the top one.
+		 */
+		public Rectangle getBottom()
+		{
+			return aBottom;
+		}
+		
+		/**
+		 * @return The bounds of the package.
+		 */
+		public Rectangle getBounds()
+		{
+			return aTop.add(aBottom);
+		}
+	}
 }
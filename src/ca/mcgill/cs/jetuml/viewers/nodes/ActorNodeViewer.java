@@ -23,15 +23,12 @@ package ca.mcgill.cs.jetuml.viewers.nodes;
 import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.nodes.ActorNode;
 import ca.mcgill.cs.jetuml.geom.Dimension;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.StringViewer;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
-import javafx.scene.shape.QuadCurveTo;
 
 /**
  * An object to render an actor in a use case diagram.
@@ -61,7 +58,7 @@ public final class ActorNodeViewer extends AbstractNodeViewer
 	}
 
 	@Override
-	public void draw(Node pNode, GraphicsContext pGraphics)
+	public void draw(Node pNode, DrawingContext pGraphics)
 	{	
 		Rectangle bounds = getBounds(pNode);
 		Dimension nameBounds = NAME_VIEWER.getDimension(((ActorNode)pNode).getName());
@@ -71,10 +68,8 @@ public final class ActorNodeViewer extends AbstractNodeViewer
 		ToolGraphics.strokeSharpPath(pGraphics, createStickManPath(pNode), LineStyle.SOLID);
 	}
 	
-	private Path createStickManPath(Node pNode)
+	private PrimitivePath createStickManPath(Node pNode)
 	{
-		Path path = new Path();
-		
 		int neckX = pNode.position().getX() + WIDTH / 2;
 		int neckY = pNode.position().getY() + HEAD_SIZE + PADDING;
 		int hipX = neckX;
@@ -84,18 +79,17 @@ public final class ActorNodeViewer extends AbstractNodeViewer
 		float feetX2 = hipX + dx + 1;
 		float feetY  = hipY + dx + 1;
 		
-		path.getElements().addAll(
-				new MoveTo(neckX, neckY),
-				new QuadCurveTo(neckX + HEAD_SIZE / 2, neckY, neckX + HEAD_SIZE / 2, neckY - HEAD_SIZE / 2),
-				new QuadCurveTo(neckX + HEAD_SIZE / 2, neckY - HEAD_SIZE, neckX, neckY - HEAD_SIZE),
-				new QuadCurveTo(neckX - HEAD_SIZE / 2, neckY - HEAD_SIZE, neckX-HEAD_SIZE / 2, neckY - HEAD_SIZE / 2),
-				new QuadCurveTo(neckX - HEAD_SIZE / 2, neckY, neckX, neckY),
-				new LineTo(hipX, hipY),
-				new MoveTo(neckX - ARMS_SIZE / 2, neckY + BODY_SIZE / 3),
-				new LineTo(neckX + ARMS_SIZE / 2, neckY + BODY_SIZE / 3),
-				new MoveTo(feetX1, feetY),
-				new LineTo(hipX, hipY),
-				new LineTo(feetX2, feetY));	
-		return path;
+		return new PrimitivePath()
+				.moveTo(neckX, neckY)
+				.quadTo(neckX + HEAD_SIZE / 2, neckY, neckX + HEAD_SIZE / 2, neckY - HEAD_SIZE / 2)
+				.quadTo(neckX + HEAD_SIZE / 2, neckY - HEAD_SIZE, neckX, neckY - HEAD_SIZE)
+				.quadTo(neckX - HEAD_SIZE / 2, neckY - HEAD_SIZE, neckX-HEAD_SIZE / 2, neckY - HEAD_SIZE / 2)
+				.quadTo(neckX - HEAD_SIZE / 2, neckY, neckX, neckY)
+				.lineTo(hipX, hipY)
+				.moveTo(neckX - ARMS_SIZE / 2, neckY + BODY_SIZE / 3)
+				.lineTo(neckX + ARMS_SIZE / 2, neckY + BODY_SIZE / 3)
+				.moveTo(feetX1, feetY)
+				.lineTo(hipX, hipY)
+				.lineTo(feetX2, feetY);
 	}
 }
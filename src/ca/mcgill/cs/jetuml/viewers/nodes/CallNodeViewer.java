@@ -32,9 +32,9 @@ import ca.mcgill.cs.jetuml.diagram.nodes.ImplicitParameterNode;
 import ca.mcgill.cs.jetuml.geom.Direction;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.ViewUtils;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
 /**
@@ -50,7 +50,7 @@ public final class CallNodeViewer extends AbstractNodeViewer
 	private static final ImplicitParameterNodeViewer IMPLICIT_PARAMETER_NODE_VIEWER = new ImplicitParameterNodeViewer();
 	
 	@Override
-	public void draw(Node pNode, GraphicsContext pGraphics)
+	public void draw(Node pNode, DrawingContext pGraphics)
 	{
 		if(((CallNode)pNode).isOpenBottom())
 		{
@@ -101,9 +101,9 @@ public final class CallNodeViewer extends AbstractNodeViewer
 			int depth = 0;
 			if( diagram != null )
 			{
-				depth = new ControlFlow(diagram).getNestingDepth((CallNode)pNode);
+				depth = SequenceLayout.controlFlow(diagram).getNestingDepth((CallNode)pNode);
 			}
-			return IMPLICIT_PARAMETER_NODE_VIEWER.getTopRectangle(implicitParameterNode).getCenter().getX() -
+			return IMPLICIT_PARAMETER_NODE_VIEWER.getTopRectangle(implicitParameterNode).getCenterX() -
 					WIDTH / 2 + depth * WIDTH/2;
 		}
 		else
@@ -126,7 +126,7 @@ public final class CallNodeViewer extends AbstractNodeViewer
 		{
 			return 0; // Only used for the ImageCreator
 		}
-		ControlFlow flow = new ControlFlow(diagram);
+		ControlFlow flow = SequenceLayout.controlFlow(diagram);
 		Optional<CallNode> caller = flow.getCaller(callNode);
 		if( caller.isPresent() )
 		{
@@ -161,13 +161,18 @@ public final class CallNodeViewer extends AbstractNodeViewer
 	 *     Otherwise, return with a gap from last callee.
 	 */
 	public int getMaxY(Node pNode)
+	{
+		return SequenceLayout.callBottom(pNode, this::computeMaxY);
+	}
+	
+	private int computeMaxY(Node pNode)
 	{
 		final CallNode callNode = (CallNode) pNode;
 		final Diagram diagram = callNode.getDiagram().get();
 		List<Node> callees = new ArrayList<>();
 		if( diagram != null )
 		{
-			callees = new ControlFlow(diagram).getCallees(callNode);
+			callees = SequenceLayout.controlFlow(diagram).getCallees(callNode);
 		}
 		if( callees.isEmpty() )
 		{
@@ -197,13 +202,18 @@ public final class CallNodeViewer extends AbstractNodeViewer
 		Optional<Diagram> diagram = pNode.getDiagram();
 		if(diagram.isPresent())
 		{
-			ControlFlow flow = new ControlFlow(diagram.get());
+			ControlFlow flow = SequenceLayout.controlFlow(diagram.get());
 			return flow.isConstructorExecution(pNode);
 		}
 		return false;
 	}
 	
 	protected int getY(Node pNode)
+	{
+		return SequenceLayout.callTop(pNode, this::computeY);
+	}
+	
+	private int computeY(Node pNode)
 	{
 		if(isInConstructorCall(pNode))
 		{
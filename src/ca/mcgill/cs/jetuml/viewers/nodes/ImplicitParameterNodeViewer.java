@@ -33,13 +33,15 @@ import ca.mcgill.cs.jetuml.diagram.nodes.ImplicitParameterNode;
 import ca.mcgill.cs.jetuml.geom.Direction;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.StringViewer;
 import ca.mcgill.cs.jetuml.views.ViewUtils;
-import javafx.scene.canvas.GraphicsContext;
 
 /**
- * An object to render an implicit parameter in a Sequence diagram.
+ * An object to render an implicit parameter in a Sequence diagram. The 
+ * top rectangle and the bounds of each implicit parameter are memoized
+ * in the layout of the diagram, see SequenceLayout.
  */
 public final class ImplicitParameterNodeViewer extends AbstractNodeViewer
 {
@@ -53,12 +55,12 @@ public final class ImplicitParameterNodeViewer extends AbstractNodeViewer
 	private static final CallNodeViewer CALL_NODE_VIEWER = new CallNodeViewer();
 	
 	@Override
-	public void draw(Node pNode, GraphicsContext pGraphics)
+	public void draw(Node pNode, DrawingContext pGraphics)
 	{
 		Rectangle top = getTopRectangle(pNode);
 		ViewUtils.drawRectangle(pGraphics, top);
 		NAME_VIEWER.draw(((ImplicitParameterNode)pNode).getName(), pGraphics, top);
-		int xmid = top.getCenter().getX();
+		int xmid = top.getCenterX();
 		ViewUtils.drawLine(pGraphics, xmid,  top.getMaxY(), xmid, getBounds(pNode).getMaxY(), LineStyle.DOTTED);
 	}
 	
@@ -102,6 +104,11 @@ public final class ImplicitParameterNodeViewer extends AbstractNodeViewer
      * @return the top rectangle
 	 */
 	public Rectangle getTopRectangle(Node pNode)
+	{
+		return SequenceLayout.topRectangle(pNode, this::computeTopRectangle);
+	}
+	
+	private Rectangle computeTopRectangle(Node pNode)
 	{
 		int width = Math.max(NAME_VIEWER.getDimension(((ImplicitParameterNode)pNode).getName()).width()+ 
 				HORIZONTAL_PADDING, DEFAULT_WIDTH);
@@ -115,6 +122,11 @@ public final class ImplicitParameterNodeViewer extends AbstractNodeViewer
 
 	@Override
 	public Rectangle getBounds(Node pNode)
+	{
+		return SequenceLayout.lifeline(pNode, this::computeBounds);
+	}
+	
+	private Rectangle computeBounds(Node pNode)
 	{
 		Rectangle topRectangle = getTopRectangle(pNode);
 		Point childrenMaxXY = getMaxXYofChildren(pNode);
@@ -126,7 +138,7 @@ public final class ImplicitParameterNodeViewer extends AbstractNodeViewer
 	private int getYWithConstructorCall(Node pNode) 
 	{
 		assert isInConstructorCall(pNode);
-		ControlFlow controlFlow = new ControlFlow(pNode.getDiagram().get());
+		ControlFlow controlFlow = SequenceLayout.controlFlow(pNode.getDiagram().get());
 		CallNode child = (CallNode) getFirstChild(pNode).get();
 		// If the node is the first callee, set a fix distance from its caller
 		if( controlFlow.isFirstCallee(child) )
@@ -156,7 +168,7 @@ public final class ImplicitParameterNodeViewer extends AbstractNodeViewer
 		Optional<Diagram> diagram = pNode.getDiagram();
 		if(diagram.isPresent())
 		{
-			ControlFlow flow = new ControlFlow(diagram.get());
+			ControlFlow flow = SequenceLayout.controlFlow(diagram.get());
 			Optional<Node> child = getFirstChild(pNode);
 			return child.isPresent() && flow.isConstructorExecution(child.get());
 		}	
@@ -22,6 +22,7 @@ package ca.mcgill.cs.jetuml.viewers.nodes;
 
 import java.util.IdentityHashMap;
 
+import ca.mcgill.cs.jetuml.application.Metrics;
 import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.nodes.ActorNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
@@ -41,8 +42,8 @@ import ca.mcgill.cs.jetuml.diagram.nodes.UseCaseNode;
 import ca.mcgill.cs.jetuml.geom.Direction;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 
 /**
  * Keeps track of the association between a node type and the viewer
@@ -51,6 +52,7 @@ import javafx.scene.canvas.GraphicsContext;
 public final class NodeViewerRegistry
 {	
 	private static final NodeViewerRegistry INSTANCE = new NodeViewerRegistry();
+	private static final Metrics.Counter BOUNDS_COUNTER = Metrics.counter(Metrics.NODE_BOUNDS);
 	
 	private IdentityHashMap<Class<? extends Node>, NodeViewer> aRegistry = 
 			new IdentityHashMap<>();
@@ -113,7 +115,7 @@ public final class NodeViewerRegistry
      * @param pGraphics the graphics context
      * @pre pNode != null
 	 */
-   	public static void draw(Node pNode, GraphicsContext pGraphics)
+   	public static void draw(Node pNode, DrawingContext pGraphics)
    	{
    		INSTANCE.viewerFor(pNode).draw(pNode, pGraphics);
    	}
@@ -124,7 +126,7 @@ public final class NodeViewerRegistry
      * @param pGraphics the graphics context
      * @pre pNode != null && pGraphics != null
 	 */
-   	public static void drawSelectionHandles(Node pNode, GraphicsContext pGraphics)
+   	public static void drawSelectionHandles(Node pNode, DrawingContext pGraphics)
    	{
    		INSTANCE.viewerFor(pNode).drawSelectionHandles(pNode, pGraphics);
    	}
@@ -138,6 +140,7 @@ public final class NodeViewerRegistry
    	 */
 	public static Rectangle getBounds(Node pNode)
 	{
+		BOUNDS_COUNTER.increment();
 		return INSTANCE.viewerFor(pNode).getBounds(pNode);
 	}
 	
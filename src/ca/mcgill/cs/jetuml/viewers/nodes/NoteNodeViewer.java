@@ -23,14 +23,12 @@ package ca.mcgill.cs.jetuml.viewers.nodes;
 import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.nodes.NoteNode;
 import ca.mcgill.cs.jetuml.geom.Dimension;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.StringViewer;
 import ca.mcgill.cs.jetuml.views.ToolGraphics;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
 
 /**
  * An object to render a NoteNode.
@@ -44,7 +42,7 @@ public final class NoteNodeViewer extends AbstractNodeViewer
 	private static final StringViewer NOTE_VIEWER = new StringViewer(StringViewer.Align.LEFT, false, false);
 	
 	@Override
-	public void draw(Node pNode, GraphicsContext pGraphics)
+	public void draw(Node pNode, DrawingContext pGraphics)
 	{
 		ToolGraphics.strokeAndFillSharpPath(pGraphics, createNotePath(pNode), NOTE_COLOR, true);
 		ToolGraphics.strokeAndFillSharpPath(pGraphics, createFoldPath(pNode), Color.WHITE, false);
@@ -52,35 +50,30 @@ public final class NoteNodeViewer extends AbstractNodeViewer
 				new Rectangle(pNode.position().getX(), pNode.position().getY(), DEFAULT_WIDTH, DEFAULT_HEIGHT));
 	}
 	
-	private Path createNotePath(Node pNode)
+	private PrimitivePath createNotePath(Node pNode)
 	{
-		Path path = new Path();
 		Rectangle bounds = getBounds(pNode);		
-		path.getElements().addAll(
-				new MoveTo(bounds.getX(), bounds.getY()),
-				new LineTo(bounds.getMaxX() - FOLD_LENGTH, bounds.getY()),
-				new LineTo(bounds.getMaxX(), bounds.getY() + FOLD_LENGTH),
-				new LineTo(bounds.getMaxX(), bounds.getMaxY()),
-				new LineTo(bounds.getX(), bounds.getMaxY()),
-				new LineTo(bounds.getX(), bounds.getY()));
-		return path;
+		return new PrimitivePath()
+				.moveTo(bounds.getX(), bounds.getY())
+				.lineTo(bounds.getMaxX() - FOLD_LENGTH, bounds.getY())
+				.lineTo(bounds.getMaxX(), bounds.getY() + FOLD_LENGTH)
+				.lineTo(bounds.getMaxX(), bounds.getMaxY())
+				.lineTo(bounds.getX(), bounds.getMaxY())
+				.lineTo(bounds.getX(), bounds.getY());
 	}
 	
 	/**
 	 * Fills in note fold.
-	 * @param pGraphics GraphicsContext in which to fill the fold
+	 * @param pGraphics Drawing context in which to fill the fold
 	 */
-	private Path createFoldPath(Node pNode)
+	private PrimitivePath createFoldPath(Node pNode)
 	{
 		Rectangle bounds = getBounds(pNode);
-		Path path = new Path();
-		path.getElements().addAll(
-				new MoveTo(bounds.getMaxX() - FOLD_LENGTH, bounds.getY()),
-				new LineTo(bounds.getMaxX() - FOLD_LENGTH, bounds.getY() + FOLD_LENGTH),
-				new LineTo(bounds.getMaxX(), bounds.getY() + FOLD_LENGTH),
-				new LineTo(bounds.getMaxX() - FOLD_LENGTH, bounds.getY())
-		);
-		return path;
+		return new PrimitivePath()
+				.moveTo(bounds.getMaxX() - FOLD_LENGTH, bounds.getY())
+				.lineTo(bounds.getMaxX() - FOLD_LENGTH, bounds.getY() + FOLD_LENGTH)
+				.lineTo(bounds.getMaxX(), bounds.getY() + FOLD_LENGTH)
+				.lineTo(bounds.getMaxX() - FOLD_LENGTH, bounds.getY());
 	}
 	
 	@Override
@@ -20,19 +20,27 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.viewers.nodes;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.nodes.FieldNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.ObjectNode;
 import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.Grid;
 import ca.mcgill.cs.jetuml.views.LineStyle;
 import ca.mcgill.cs.jetuml.views.StringViewer;
 import ca.mcgill.cs.jetuml.views.ViewUtils;
-import javafx.scene.canvas.GraphicsContext;
 
 /**
- * An object to render an object in an object diagram.
+ * An object to render an object in an object diagram. The layout of 
+ * the fields of an object is computed in one pass over the fields and 
+ * reused until the fields change, so that laying out each field of an 
+ * object does not require visiting all the others.
  */
 public final class ObjectNodeViewer extends AbstractNodeViewer
 {
@@ -43,9 +51,11 @@ public final class ObjectNodeViewer extends AbstractNodeViewer
 	private static final int YGAP = 5;
 	private static final StringViewer NAME_VIEWER = new StringViewer(StringViewer.Align.CENTER, true, true);
 	private static final FieldNodeViewer FIELD_NODE_VIEWER = new FieldNodeViewer();
+	/* The layouts do not refer to the nodes, whose fields refer back to them, so that they can be discarded. */
+	private static final Map<ObjectNode, FieldLayout> LAYOUTS = Collections.synchronizedMap(new WeakHashMap<>());
 	
 	@Override
-	public void draw(Node pNode, GraphicsContext pGraphics)
+	public void draw(Node pNode, DrawingContext pGraphics)
 	{
 		final Rectangle bounds = getBounds(pNode);
 		final Rectangle topRectangle = getTopRectangle(pNode);
@@ -72,32 +82,16 @@ public final class ObjectNodeViewer extends AbstractNodeViewer
 	 */
 	public int getSplitPosition(Node pNode)
 	{
-		int leftWidth = 0;
-		for(Node field : ((ObjectNode)pNode).getChildren())
-		{
-			leftWidth = Math.max(leftWidth, FIELD_NODE_VIEWER.leftWidth(field));
-		}
-		return pNode.position().getX() + leftWidth + XGAP;
+		return pNode.position().getX() + getFieldLayout((ObjectNode)pNode).aLeftWidth + XGAP;
 	}
 	
 	@Override
 	public Rectangle getBounds(Node pNode)
 	{
 		Rectangle bounds = getTopRectangle(pNode);
-		int leftWidth = 0;
-		int rightWidth = 0;
-		int height = 0;
-		if( ((ObjectNode)pNode).getChildren().size() > 0 )
-		{
-			height = YGAP;
-		}
-		for(Node field : ((ObjectNode)pNode).getChildren())
-		{
-			height += FIELD_NODE_VIEWER.getHeight(field) + YGAP;   
-			leftWidth = Math.max(leftWidth, FIELD_NODE_VIEWER.leftWidth(field));
-			rightWidth = Math.max(rightWidth, FIELD_NODE_VIEWER.rightWidth(field));
-		}
-		int width = Math.max(bounds.getWidth(), leftWidth + rightWidth + 2 * XGAP);
+		FieldLayout layout = getFieldLayout((ObjectNode)pNode);
+		int height = layout.aHeight;
+		int width = Math.max(bounds.getWidth(), layout.aLeftWidth + layout.aRightWidth + 2 * XGAP);
 		width = Grid.toMultiple(width);
 		return new Rectangle(bounds.getX(), bounds.getY(), width, Grid.toMultiple(bounds.getHeight() + height));
 	}
@@ -109,18 +103,56 @@ public final class ObjectNodeViewer extends AbstractNodeViewer
 	 */
 	public int getYPosition(Node pNode, FieldNode pFieldNode)
 	{
-		assert ((ObjectNode)pNode).getChildren().contains(pFieldNode);
-		Rectangle bounds = getTopRectangle(pNode);
-		int yPosition = bounds.getMaxY() + YGAP; 
-		for( Node field : ((ObjectNode)pNode).getChildren() )
+		int index = ((ObjectNode)pNode).getChildren().indexOf(pFieldNode);
+		assert index >= 0;
+		return getTopRectangle(pNode).getMaxY() + getFieldLayout((ObjectNode)pNode).aOffsets[index];
+	}
+	
+	/*
+	 * Returns the layout of the fields of pNode, computing it again 
+	 * only if the fields have changed since it was last computed.
+	 */
+	private static FieldLayout getFieldLayout(ObjectNode pNode)
+	{
+		FieldLayout layout = LAYOUTS.get(pNode);
+		if( layout == null || layout.aRevision != pNode.getFieldsRevision() )
+		{
+			layout = new FieldLayout(pNode);
+			LAYOUTS.put(pNode, layout);
+		}
+		return layout;
+	}
+	
+	/*
+	 * The widths of the name and value columns of the fields of an object,
+	 * the height of the fields, and the offset of each field from the 
+	 * bottom of the name of the object, by index of the field.
+	 */
+	private static final class FieldLayout
+	{
+		private final int aRevision;
+		private final int[] aOffsets;
+		private int aLeftWidth = 0;
+		private int aRightWidth = 0;
+		private int aHeight = 0;
+		
+		FieldLayout(ObjectNode pNode)
 		{
-			yPosition += YGAP;
-			if( field == pFieldNode )
+			aRevision = pNode.getFieldsRevision();
+			List<Node> fields = pNode.getChildren();
+			aOffsets = new int[fields.size()];
+			if( fields.size() > 0 )
+			{
+				aHeight = YGAP;
+			}
+			for( int i = 0; i < fields.size(); i++ )
 			{
-				return yPosition;
+				Node field = fields.get(i);
+				aOffsets[i] = aHeight + YGAP;
+				aHeight += FIELD_NODE_VIEWER.getHeight(field) + YGAP;
+				aLeftWidth = Math.max(aLeftWidth, FIELD_NODE_VIEWER.leftWidth(field));
+				aRightWidth = Math.max(aRightWidth, FIELD_NODE_VIEWER.rightWidth(field));
 			}
-			yPosition += FIELD_NODE_VIEWER.getHeight(field);
 		}
-		return yPosition;
 	}
 }
@@ -26,10 +26,12 @@ import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.nodes.AbstractPackageNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.PackageDescriptionNode;
 import ca.mcgill.cs.jetuml.geom.Dimension;
+import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.CanvasDrawingContext;
+import ca.mcgill.cs.jetuml.views.DrawingContext;
 import ca.mcgill.cs.jetuml.views.StringViewer;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 
 /**
  * An object to render a package in a class diagram.
@@ -39,7 +41,7 @@ public final class PackageDescriptionNodeViewer extends AbstractPackageNodeViewe
 	private static final StringViewer CONTENTS_VIEWER = new StringViewer(StringViewer.Align.CENTER, false, false);
 	
 	@Override
-	public void draw(Node pNode, GraphicsContext pGraphics)
+	public void draw(Node pNode, DrawingContext pGraphics)
 	{
 		super.draw(pNode, pGraphics);
 		Rectangle bottomBounds = getBottomBounds((AbstractPackageNode)pNode);
@@ -47,7 +49,8 @@ public final class PackageDescriptionNodeViewer extends AbstractPackageNodeViewe
 				bottomBounds.getY(), bottomBounds.getWidth(), bottomBounds.getHeight()));
 	}
 	
-	protected Rectangle getBottomBounds(AbstractPackageNode pNode)
+	@Override
+	protected PackageLayout layout(AbstractPackageNode pNode)
 	{
 		Dimension contentsBounds = CONTENTS_VIEWER.getDimension(((PackageDescriptionNode)pNode).getContents());
 		int width = max(contentsBounds.width() + 2 * PADDING, DEFAULT_WIDTH);
@@ -56,8 +59,9 @@ public final class PackageDescriptionNodeViewer extends AbstractPackageNodeViewe
 		Dimension topDimension = getTopDimension(pNode);
 		width = max( width, topDimension.width()+ (DEFAULT_WIDTH - DEFAULT_TOP_WIDTH));
 		
-		return new Rectangle(pNode.position().getX(), pNode.position().getY() + topDimension.height(), 
-				width, height);
+		Point position = pNode.position();
+		return new PackageLayout(new Rectangle(position.getX(), position.getY(), topDimension.width(), topDimension.height()),
+				new Rectangle(position.getX(), position.getY() + topDimension.height(), width, height));
 	}
 	
 	/*
@@ -68,7 +72,7 @@ public final class PackageDescriptionNodeViewer extends AbstractPackageNodeViewe
 	{
 		assert pNode instanceof AbstractPackageNode;
 		Canvas icon = super.createIcon(pNode);
-		CONTENTS_VIEWER.draw("description", icon.getGraphicsContext2D(), getBottomBounds((AbstractPackageNode)pNode));
+		CONTENTS_VIEWER.draw("description", new CanvasDrawingContext(icon.getGraphicsContext2D()), getBottomBounds((AbstractPackageNode)pNode));
 		return icon;
 	}
 }
@@ -74,15 +74,14 @@ public final class PackageNodeViewer extends AbstractPackageNodeViewer
 		return new Point(pChildrenBounds.get().getX() - PADDING, pChildrenBounds.get().getY() - PADDING - TOP_HEIGHT);
 	}
 	
-	protected Rectangle getTopBounds(AbstractPackageNode pNode)
-	{
-		Optional<Rectangle> childrenBounds = getChildrenBounds(pNode);
-		Point position = getPosition(pNode, childrenBounds);
-		Dimension topDimension = getTopDimension(pNode);
-		return new Rectangle(position.getX(), position.getY(), topDimension.width(), topDimension.height());
-	}
-	
-	protected Rectangle getBottomBounds(AbstractPackageNode pNode)
+	/*
+	 * The bounds of the children are computed once and shared by the top 
+	 * and bottom rectangles. Because the bounds of a nested package are 
+	 * in turn obtained through a single call to this method, laying out
+	 * a package visits each node of its subtree exactly once.
+	 */
+	@Override
+	protected PackageLayout layout(AbstractPackageNode pNode)
 	{
 		int width = DEFAULT_WIDTH;
 		int height = DEFAULT_BOTTOM_HEIGHT;
@@ -91,6 +90,7 @@ public final class PackageNodeViewer extends AbstractPackageNodeViewer
 		Point position = getPosition(pNode, childrenBounds);
 		
 		Dimension topDimension = getTopDimension(pNode);
+		Rectangle top = new Rectangle(position.getX(), position.getY(), topDimension.width(), topDimension.height());
 		
 		if( childrenBounds.isPresent() )
 		{
@@ -100,7 +100,7 @@ public final class PackageNodeViewer extends AbstractPackageNodeViewer
 		
 		width = max( width, topDimension.width()+ (DEFAULT_WIDTH - DEFAULT_TOP_WIDTH));
 		
-		return new Rectangle(position.getX(), position.getY() + topDimension.height(), 
-				width, height);
+		return new PackageLayout(top, new Rectangle(position.getX(), position.getY() + topDimension.height(), 
+				width, height));
 	}
 }
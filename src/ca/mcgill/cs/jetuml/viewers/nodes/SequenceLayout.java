@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.viewers.nodes;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import ca.mcgill.cs.jetuml.diagram.ControlFlow;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+
+/**
+ * The geometry of a sequence diagram, shared by the viewers of its nodes 
+ * for the duration of a query. The position of each node of a sequence 
+ * diagram depends on the calls that lead to it, so that, without sharing, 
+ * drawing or hit-testing a diagram computes the position of the same nodes 
+ * over and over. 
+ * 
+ * A layout is created when a query on a diagram starts, for example 
+ * drawing it or finding the node at a point, and is discarded when the 
+ * query ends. In between, the control flow of the diagram is indexed 
+ * once, and the top rectangle and bounds of each lifeline and the vertical 
+ * extent of each call are computed once. Because the diagram cannot change 
+ * during a query, the layout never needs to be invalidated. 
+ * 
+ * The layout is confined to the thread that runs the query.
+ */
+public final class SequenceLayout
+{
+	private static final ThreadLocal<SequenceLayout> CURRENT = new ThreadLocal<>();
+	private static final CallNodeViewer CALL_NODE_VIEWER = new CallNodeViewer();
+	
+	private final Diagram aDiagram;
+	private final ControlFlow aControlFlow;
+	private final Map<Node, Rectangle> aTopRectangles = new IdentityHashMap<>();
+	private final Map<Node, Rectangle> aLifelines = new IdentityHashMap<>();
+	private final Map<Node, Integer> aCallTops = new IdentityHashMap<>();
+	private final Map<Node, Integer> aCallBottoms = new IdentityHashMap<>();
+	private boolean aCallsComputed = false;
+	
+	private SequenceLayout(Diagram pDiagram)
+	{
+		aDiagram = pDiagram;
+		aControlFlow = ControlFlow.snapshot(pDiagram);
+	}
+	
+	/**
+	 * Runs pQuery with a layout of pDiagram shared by all the node viewers
+	 * it uses. If a query on pDiagram is already running on this thread, 
+	 * pQuery shares its layout.
+	 * 
+	 * @param pDiagram The diagram to query.
+	 * @param pQuery The query to run. Must not modify pDiagram.
+	 * @param <T> The type of the result of the query.
+	 * @return The result of pQuery.
+	 * @pre pDiagram != null && pQuery != null
+	 */
+	public static <T> T query(Diagram pDiagram, Supplier<T> pQuery)
+	{
+		assert pDiagram != null && pQuery != null;
+		SequenceLayout current = CURRENT.get();
+		if( current != null && current.aDiagram == pDiagram )
+		{
+			return pQuery.get();
+		}
+		CURRENT.set(new SequenceLayout(pDiagram));
+		try
+		{
+			return pQuery.get();
+		}
+		finally
+		{
+			if( current == null )
+			{
+				CURRENT.remove();
+			}
+			else
+			{
+				CURRENT.set(current);
+			}
+		}
+	}
+	
+	/**
+	 * @param pDiagram The diagram to query.
+	 * @return The indexed control flow of the layout of pDiagram if a query on it
+	 *     is running on this thread, and a new control flow of pDiagram otherwise.
+	 * @pre pDiagram != null
+	 */
+	public static ControlFlow controlFlow(Diagram pDiagram)
+	{
+		assert pDiagram != null;
+		SequenceLayout current = CURRENT.get();
+		if( current != null && current.aDiagram == pDiagram )
+		{
+			return current.aControlFlow;
+		}
+		return new ControlFlow(pDiagram);
+	}
+	
+	static Rectangle topRectangle(Node pNode, Function<Node, Rectangle> pCompute)
+	{
+		return memoize(pNode, layout -> layout.aTopRectangles, pCompute);
+	}
+	
+	static Rectangle lifeline(Node pNode, Function<Node, Rectangle> pCompute)
+	{
+		return memoize(pNode, layout -> layout.aLifelines, pCompute);
+	}
+	
+	static int callTop(Node pNode, Function<Node, Integer> pCompute)
+	{
+		return memoize(pNode, layout -> layout.calls().aCallTops, pCompute);
+	}
+	
+	static int callBottom(Node pNode, Function<Node, Integer> pCompute)
+	{
+		return memoize(pNode, layout -> layout.calls().aCallBottoms, pCompute);
+	}
+	
+	/*
+	 * Computes the top of each call before its callees and its bottom after them, 
+	 * the first time the vertical extent of a call is needed in this layout. The 
+	 * top of a call depends on its caller and on the bottom of the previous callee, 
+	 * so that computing the extent of the last calls of a large diagram on demand 
+	 * recurses through all the calls before them. Computing them in the order 
+	 * of the control flow, with an explicit stack, keeps the recursion shallow.
+	 */
+	private SequenceLayout calls()
+	{
+		if( aCallsComputed )
+		{
+			return this;
+		}
+		aCallsComputed = true;
+		for( Node lifeline : aDiagram.rootNodes() )
+		{
+			for( Node call : lifeline.getChildren() )
+			{
+				if( call.getClass() == CallNode.class && aControlFlow.getCaller(call).isEmpty() )
+				{
+					computeCalls(call);
+				}
+			}
+		}
+		return this;
+	}
+	
+	private void computeCalls(Node pEntry)
+	{
+		Deque<Iterator<Node>> callees = new ArrayDeque<>();
+		Deque<Node> calls = new ArrayDeque<>();
+		CALL_NODE_VIEWER.getY(pEntry);
+		calls.push(pEntry);
+		callees.push(aControlFlow.getCallees(pEntry).iterator());
+		while( !calls.isEmpty() )
+		{
+			if( callees.peek().hasNext() )
+			{
+				Node callee = callees.peek().next();
+				CALL_NODE_VIEWER.getY(callee);
+				calls.push(callee);
+				callees.push(aControlFlow.getCallees(callee).iterator());
+			}
+			else
+			{
+				CALL_NODE_VIEWER.getMaxY(calls.pop());
+				callees.pop();
+			}
+		}
+	}
+	
+	/*
+	 * Returns the value of pNode in the table of the layout of its diagram, computing 
+	 * it if it is not there. Starts a query if none is running on the diagram, so that 
+	 * the computation of the value reuses the values it depends on. Nodes outside 
+	 * of a diagram are not memoized.
+	 */
+	private static <T> T memoize(Node pNode, Function<SequenceLayout, Map<Node, T>> pTable, Function<Node, T> pCompute)
+	{
+		Optional<Diagram> diagram = pNode.getDiagram();
+		if( diagram.isEmpty() )
+		{
+			return pCompute.apply(pNode);
+		}
+		return query(diagram.get(), () -> 
+		{
+			Map<Node, T> table = pTable.apply(CURRENT.get());
+			T value = table.get(pNode);
+			if( value == null )
+			{
+				// Not computeIfAbsent: the computation adds the values it depends on to the table.
+				value = pCompute.apply(pNode);
+				table.put(pNode, value);
+			}
+			return value;
+		});
+	}
+}
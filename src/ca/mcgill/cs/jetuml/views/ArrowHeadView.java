@@ -29,11 +29,9 @@ import static ca.mcgill.cs.jetuml.views.ArrowHead.TRIANGLE;
 import static ca.mcgill.cs.jetuml.views.ArrowHead.V;
 
 import ca.mcgill.cs.jetuml.geom.Point;
-import javafx.scene.canvas.GraphicsContext;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
 
 /**
  * Defines how to draw arrow heads.
@@ -61,7 +59,7 @@ public final class ArrowHeadView
 	 * @param pPoint1 a point on the axis of the arrow head
 	 * @param pEnd the end point of the arrow head
 	 */
-	public void draw(GraphicsContext pGraphics, Point pPoint1, Point pEnd)
+	public void draw(DrawingContext pGraphics, Point pPoint1, Point pEnd)
 	{
 		if(aArrowHead == ArrowHead.BLACK_DIAMOND || aArrowHead == BLACK_TRIANGLE) 
 		{
@@ -79,11 +77,11 @@ public final class ArrowHeadView
      * @param pEnd the end point of the arrow head
      * @return the path
      */
-   	public Path getPath(Point pPoint1, Point pEnd)
+   	public PrimitivePath getPath(Point pPoint1, Point pEnd)
    	{
    		if(aArrowHead == NONE) 
    		{
-   			return new Path();
+   			return new PrimitivePath();
    		}
    		
    		int dx = pEnd.getX() - pPoint1.getX();
@@ -94,31 +92,34 @@ public final class ArrowHeadView
    		int x2 = (int) Math.round(pEnd.getX() - ARROW_LENGTH * Math.cos(angle - ARROW_ANGLE));
    		int y2 = (int) Math.round(pEnd.getY() - ARROW_LENGTH * Math.sin(angle - ARROW_ANGLE));
 
-   		MoveTo moveToOrigin = new MoveTo(pEnd.getX(), pEnd.getY());
-   		LineTo lineTo1 = new LineTo(x1, y1);
-   		Path path = new Path();
-   		path.getElements().addAll(moveToOrigin, lineTo1);
+   		PrimitivePath path = new PrimitivePath();
+   		path.moveTo(pEnd.getX(), pEnd.getY()).lineTo(x1, y1);
    		if(aArrowHead == V)
    		{
-   			MoveTo moveTo2 = new MoveTo(x2, y2);
-   			LineTo lineTo2 = new LineTo(pEnd.getX(), pEnd.getY());
-   			path.getElements().addAll(moveTo2, lineTo2);
+   			path.moveTo(x2, y2).lineTo(pEnd.getX(), pEnd.getY());
    		}
    		else if(aArrowHead == TRIANGLE || aArrowHead == BLACK_TRIANGLE)
    		{
-   			LineTo lineTo3 = new LineTo(x2, y2); 
-   			LineTo lineTo4 = new LineTo(moveToOrigin.getX(), moveToOrigin.getY());
-   			path.getElements().addAll(lineTo3, lineTo4);
+   			path.lineTo(x2, y2).lineTo(pEnd.getX(), pEnd.getY());
    		}
    		else if(aArrowHead == DIAMOND || aArrowHead == BLACK_DIAMOND)
    		{
    			final int x3 = (int) Math.round( x2 - ARROW_LENGTH * Math.cos(angle + ARROW_ANGLE));
    			final int y3 = (int) Math.round( y2 - ARROW_LENGTH * Math.sin(angle + ARROW_ANGLE));
-   			LineTo lineTo5 = new LineTo(x3, y3);
-   			LineTo lineTo6 = new LineTo(x2, y2);
-   			LineTo lineTo7 = new LineTo(moveToOrigin.getX(), moveToOrigin.getY());
-   			path.getElements().addAll(lineTo5, lineTo6, lineTo7);
+   			path.lineTo(x3, y3).lineTo(x2, y2).lineTo(pEnd.getX(), pEnd.getY());
    		}      
    		return path;
    	}
+   	
+   	/**
+   	 * Gets the bounds of the arrowhead, computed from its geometry 
+   	 * without drawing it.
+   	 * @param pPoint1 a point on the axis of the arrow head
+   	 * @param pEnd the end point of the arrow head
+   	 * @return the bounds, which are empty for an arrowhead of type NONE
+   	 */
+   	public Rectangle getBounds(Point pPoint1, Point pEnd)
+   	{
+   		return getPath(pPoint1, pEnd).getBounds();
+   	}
 }
@@ -0,0 +1,469 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationObserver;
+import ca.mcgill.cs.jetuml.geom.Line;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.edges.EdgeViewerRegistry;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+
+/**
+ * Maintains the bounds of a diagram as operations are applied to it, so that
+ * they can be queried in constant time. The bounds of each root node and edge 
+ * are remembered. When an operation is observed, only the elements it affects 
+ * are measured again and the bounds grow to include them. The bounds are only 
+ * recomputed entirely, the next time they are requested, when an element that 
+ * was on the boundary shrinks or is removed, or when the effect of an operation 
+ * is not known.
+ * 
+ * The bounds of the other nodes and the connection points of the edges, which
+ * make up the outline of the diagram, are also remembered once they have been
+ * requested. An operation only makes the tracker forget them for the elements 
+ * whose bounds it measures again.
+ * 
+ * The bounds are the same as the ones computed by DiagramViewer#getBounds,
+ * except when the tracker is seeded with bounds measured previously.
+ * Changes made to the diagram without going through an observed operation 
+ * are not detected: call invalidate() after making them.
+ */
+public final class DiagramBoundsTracker implements DiagramOperationObserver
+{
+	private static final Rectangle EMPTY = new Rectangle(0, 0, 0, 0);
+	
+	private final Diagram aDiagram;
+	private final Map<Node, Rectangle> aNodeBounds = new IdentityHashMap<>();
+	private final Map<Edge, Rectangle> aEdgeBounds = new IdentityHashMap<>();
+	private final Map<Node, Rectangle> aChildBounds = new IdentityHashMap<>();
+	private final Map<Edge, Line> aConnectionPoints = new IdentityHashMap<>();
+	/* The edges attached to each node, so that the edges of a node can be found without scanning the diagram. */
+	private final Map<Node, List<Edge>> aEdgesOf = new IdentityHashMap<>();
+	private boolean aValid = false;
+	private int aMinX;
+	private int aMinY;
+	private int aMaxX;
+	private int aMaxY;
+	private Rectangle aBounds;
+	
+	/**
+	 * Creates a tracker for pDiagram. The bounds are computed the 
+	 * first time they are requested.
+	 * 
+	 * @param pDiagram The diagram whose bounds to track.
+	 * @pre pDiagram != null
+	 */
+	public DiagramBoundsTracker(Diagram pDiagram)
+	{
+		assert pDiagram != null;
+		aDiagram = pDiagram;
+	}
+	
+	/**
+	 * Starts tracking the bounds from the bounds of the nodes and the connection
+	 * points of the edges measured previously, for example when the diagram was 
+	 * indexed, instead of measuring them. Because the bounds of an edge can only 
+	 * be measured with the viewers, they are taken as the smallest rectangle 
+	 * enclosing its connection points until the edge is measured again, which 
+	 * can leave out its labels and arrow heads. 
+	 * 
+	 * @param pNodeBounds The bounds of each node of the diagram.
+	 * @param pConnectionPoints The connection points of each edge of the diagram.
+	 * @pre pNodeBounds != null && pConnectionPoints != null
+	 * @pre pNodeBounds and pConnectionPoints have all the elements of the diagram.
+	 */
+	public void seed(Map<Node, Rectangle> pNodeBounds, Map<Edge, Line> pConnectionPoints)
+	{
+		assert pNodeBounds != null && pConnectionPoints != null;
+		initialize();
+		for( Map.Entry<Node, Rectangle> entry : pNodeBounds.entrySet() )
+		{
+			if( entry.getKey().hasParent() )
+			{
+				aChildBounds.put(entry.getKey(), entry.getValue());
+			}
+			else
+			{
+				aNodeBounds.put(entry.getKey(), entry.getValue());
+				include(entry.getValue());
+			}
+		}
+		for( Edge edge : aDiagram.edges() )
+		{
+			Line points = pConnectionPoints.get(edge);
+			Rectangle bounds = new Rectangle(points.getX1(), points.getY1(), 0, 0).add(points.getPoint2());
+			aConnectionPoints.put(edge, points);
+			aEdgeBounds.put(edge, bounds);
+			connect(edge);
+			include(bounds);
+		}
+		aValid = true;
+		aBounds = null;
+	}
+	
+	/**
+	 * @return The smallest rectangle enclosing the diagram, or an
+	 *     empty rectangle at the origin if the diagram has no nodes.
+	 */
+	public Rectangle getBounds()
+	{
+		if( !aValid )
+		{
+			recompute();
+		}
+		if( aBounds == null )
+		{
+			aBounds = aNodeBounds.isEmpty() ? EMPTY : new Rectangle(aMinX, aMinY, aMaxX - aMinX, aMaxY - aMinY);
+		}
+		return aBounds;
+	}
+	
+	/**
+	 * @param pNode A node of the diagram, root or child.
+	 * @return The bounds of pNode, measured only if they were never requested or
+	 *     if pNode was affected by an operation since.
+	 * @pre pNode != null
+	 */
+	public Rectangle getBounds(Node pNode)
+	{
+		assert pNode != null;
+		if( !aValid )
+		{
+			recompute();
+		}
+		Rectangle bounds = aNodeBounds.get(pNode);
+		if( bounds == null )
+		{
+			bounds = aChildBounds.computeIfAbsent(pNode, NodeViewerRegistry::getBounds);
+		}
+		return bounds;
+	}
+	
+	/**
+	 * @param pEdge An edge of the diagram.
+	 * @return The connection points of pEdge, measured only if they were never 
+	 *     requested or if pEdge was affected by an operation since.
+	 * @pre pEdge != null
+	 */
+	public Line getConnectionPoints(Edge pEdge)
+	{
+		assert pEdge != null;
+		if( !aValid )
+		{
+			recompute();
+		}
+		return aConnectionPoints.computeIfAbsent(pEdge, EdgeViewerRegistry::getConnectionPoints);
+	}
+	
+	/**
+	 * @return The outline of the diagram, made of the bounds of all its nodes and the
+	 *     connection points of all its edges. Only the elements that were affected
+	 *     by an operation since the last outline are measured.
+	 */
+	public DiagramOutline getOutline()
+	{
+		DiagramOutline.Builder builder = new DiagramOutline.Builder();
+		for( Node root : aDiagram.rootNodes() )
+		{
+			addToOutline(builder, root);
+		}
+		for( Edge edge : aDiagram.edges() )
+		{
+			builder.addEdge(getConnectionPoints(edge));
+		}
+		return builder.build();
+	}
+	
+	private void addToOutline(DiagramOutline.Builder pBuilder, Node pNode)
+	{
+		pBuilder.addNode(getBounds(pNode));
+		for( Node child : pNode.getChildren() )
+		{
+			addToOutline(pBuilder, child);
+		}
+	}
+	
+	/**
+	 * Forces all the bounds to be entirely recomputed the next time they are requested.
+	 */
+	public void invalidate()
+	{
+		aChildBounds.clear();
+		aConnectionPoints.clear();
+		invalidateBounds();
+	}
+	
+	/*
+	 * The bounds of the diagram must be recomputed, but the bounds of the elements
+	 * that were not affected are still correct.
+	 */
+	private void invalidateBounds()
+	{
+		aValid = false;
+		aBounds = null;
+	}
+	
+	@Override
+	public void operationExecuted(DiagramOperation pOperation)
+	{
+		update(pOperation.getAffectedElements());
+	}
+
+	@Override
+	public void operationUndone(DiagramOperation pOperation)
+	{
+		update(pOperation.getAffectedElements());
+	}
+	
+	private void initialize()
+	{
+		aNodeBounds.clear();
+		aEdgeBounds.clear();
+		aEdgesOf.clear();
+		aMinX = Integer.MAX_VALUE;
+		aMinY = Integer.MAX_VALUE;
+		aMaxX = Integer.MIN_VALUE;
+		aMaxY = Integer.MIN_VALUE;
+	}
+	
+	private void recompute()
+	{
+		initialize();
+		for( Node node : aDiagram.rootNodes() )
+		{
+			Rectangle bounds = NodeViewerRegistry.getBounds(node);
+			aNodeBounds.put(node, bounds);
+			include(bounds);
+		}
+		for( Edge edge : aDiagram.edges() )
+		{
+			Rectangle bounds = EdgeViewerRegistry.getBounds(edge);
+			aEdgeBounds.put(edge, bounds);
+			connect(edge);
+			include(bounds);
+		}
+		aValid = true;
+		aBounds = null;
+	}
+	
+	private void include(Rectangle pBounds)
+	{
+		aMinX = Math.min(aMinX, pBounds.getX());
+		aMinY = Math.min(aMinY, pBounds.getY());
+		aMaxX = Math.max(aMaxX, pBounds.getMaxX());
+		aMaxY = Math.max(aMaxY, pBounds.getMaxY());
+	}
+	
+	/*
+	 * In sequence diagrams, the bounds of nodes depend on the calls they make, 
+	 * so the effect of an operation is never local.
+	 */
+	private void update(Optional<List<DiagramElement>> pElements)
+	{
+		if( !aValid )
+		{
+			// The edges around the affected elements cannot be found
+			invalidate();
+			return;
+		}
+		if( !pElements.isPresent() || aDiagram.getType() == DiagramType.SEQUENCE )
+		{
+			invalidate();
+			return;
+		}
+		aBounds = null;
+		Set<Node> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<Node> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<Edge> edges = Collections.newSetFromMap(new IdentityHashMap<>());
+		for( DiagramElement element : pElements.get() )
+		{
+			if( element instanceof Node )
+			{
+				Node node = (Node) element;
+				Node root = node.getRoot();
+				if( !aDiagram.containsAsRoot(root) && !aNodeBounds.containsKey(root) )
+				{
+					// A child was detached from a container we cannot find
+					invalidate();
+					return;
+				}
+				if( aNodeBounds.containsKey(node) && !aDiagram.containsAsRoot(node))
+				{
+					remove(aNodeBounds.remove(node));
+				}
+				roots.add(root);
+				addWithChildren(touched, node);
+				forgetWithChildren(root);
+			}
+			else if( element instanceof Edge )
+			{
+				Edge edge = (Edge) element;
+				edges.add(edge);
+				touched.add(edge.getStart());
+				touched.add(edge.getEnd());
+			}
+		}
+		for( Node root : roots )
+		{
+			if( aDiagram.containsAsRoot(root) )
+			{
+				replace(aNodeBounds, root, NodeViewerRegistry.getBounds(root));
+			}
+		}
+		updateEdges(edges, touched);
+		if( aNodeBounds.size() != aDiagram.rootNodes().size() || aEdgeBounds.size() != aDiagram.edges().size() )
+		{
+			invalidate();
+		}
+	}
+	
+	/*
+	 * The path of an edge depends on the other edges attached to the same nodes, 
+	 * and on the position of the nodes at their other end. The edges to measure
+	 * again are therefore the ones attached to a touched node, or to a node that 
+	 * shares an edge with a touched node. They are found through the edges of 
+	 * each node, so moving nodes takes a time that only depends on the number of 
+	 * edges around them. Only edges that are themselves affected, which are added 
+	 * or removed at a linear cost by the diagram anyway, are looked up in the diagram.
+	 */
+	private void updateEdges(Set<Edge> pAffected, Set<Node> pTouched)
+	{
+		Set<Edge> edges = Collections.newSetFromMap(new IdentityHashMap<>());
+		for( Edge edge : pAffected )
+		{
+			if( aDiagram.edges().contains(edge) )
+			{
+				connect(edge);
+				edges.add(edge);
+			}
+			else
+			{
+				disconnect(edge);
+				aConnectionPoints.remove(edge);
+				remove(aEdgeBounds.remove(edge));
+			}
+		}
+		Set<Node> neighbors = Collections.newSetFromMap(new IdentityHashMap<>());
+		neighbors.addAll(pTouched);
+		for( Node node : pTouched )
+		{
+			for( Edge edge : edgesOf(node) )
+			{
+				neighbors.add(edge.getStart());
+				neighbors.add(edge.getEnd());
+			}
+		}
+		for( Node node : neighbors )
+		{
+			edges.addAll(edgesOf(node));
+		}
+		for( Edge edge : edges )
+		{
+			replace(aEdgeBounds, edge, EdgeViewerRegistry.getBounds(edge));
+			aConnectionPoints.remove(edge);
+		}
+	}
+	
+	private List<Edge> edgesOf(Node pNode)
+	{
+		return aEdgesOf.getOrDefault(pNode, Collections.emptyList());
+	}
+	
+	private void connect(Edge pEdge)
+	{
+		for( Node node : new Node[] { pEdge.getStart(), pEdge.getEnd() } )
+		{
+			List<Edge> edges = aEdgesOf.computeIfAbsent(node, key -> new ArrayList<>());
+			if( !edges.contains(pEdge) )
+			{
+				edges.add(pEdge);
+			}
+		}
+	}
+	
+	private void disconnect(Edge pEdge)
+	{
+		for( Node node : new Node[] { pEdge.getStart(), pEdge.getEnd() } )
+		{
+			List<Edge> edges = aEdgesOf.get(node);
+			if( edges != null )
+			{
+				edges.remove(pEdge);
+				if( edges.isEmpty() )
+				{
+					aEdgesOf.remove(node);
+				}
+			}
+		}
+	}
+	
+	private <E extends DiagramElement> void replace(Map<E, Rectangle> pMap, E pElement, Rectangle pBounds)
+	{
+		Rectangle old = pMap.put(pElement, pBounds);
+		if( old != null && !pBounds.contains(old) )
+		{
+			remove(old);
+		}
+		include(pBounds);
+	}
+	
+	/*
+	 * Invalidates the bounds if pBounds, which no longer belongs to the diagram,
+	 * was on its boundary.
+	 */
+	private void remove(Rectangle pBounds)
+	{
+		if( pBounds != null && (pBounds.getX() == aMinX || pBounds.getY() == aMinY || 
+				pBounds.getMaxX() == aMaxX || pBounds.getMaxY() == aMaxY ))
+		{
+			invalidateBounds();
+		}
+	}
+	
+	/*
+	 * The bounds of a node depend on its children, and the bounds of its children
+	 * on their parent, so the bounds of the whole tree of an affected node are forgotten.
+	 */
+	private void forgetWithChildren(Node pNode)
+	{
+		aChildBounds.remove(pNode);
+		pNode.getChildren().forEach(this::forgetWithChildren);
+	}
+	
+	private static void addWithChildren(Set<Node> pNodes, Node pNode)
+	{
+		pNodes.add(pNode);
+		pNode.getChildren().forEach(child -> addWithChildren(pNodes, child));
+	}
+}
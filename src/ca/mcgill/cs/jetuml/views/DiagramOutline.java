@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import java.util.Arrays;
+
+import ca.mcgill.cs.jetuml.geom.Line;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+
+/**
+ * An immutable outline of a diagram: the bounds of its nodes, parents before
+ * their children, and the connection points of its edges. Because it does not
+ * refer to the diagram, an outline can be rasterized on any thread, into an
+ * image much smaller than the diagram. Edges are drawn as lines under the nodes, 
+ * which are drawn as filled rectangles.
+ */
+public final class DiagramOutline
+{
+	/** The color of the pixels that are not covered by an element, in ARGB. */
+	public static final int BACKGROUND = 0xFFFFFFFF;
+	/** The color of the inside of the nodes, in ARGB. */
+	public static final int NODE_FILL = 0xFFDDE4EE;
+	/** The color of the border of the nodes, in ARGB. */
+	public static final int NODE_BORDER = 0xFF6F7D91;
+	/** The color of the edges, in ARGB. */
+	public static final int EDGE = 0xFFA0A0A0;
+	
+	private static final int COORDINATES = 4;
+	
+	/* The x, y, width and height of each node, in sequence. */
+	private final int[] aNodes;
+	/* The x1, y1, x2 and y2 of each edge, in sequence. */
+	private final int[] aEdges;
+	
+	private DiagramOutline(int[] pNodes, int[] pEdges)
+	{
+		aNodes = pNodes;
+		aEdges = pEdges;
+	}
+	
+	/**
+	 * @return The number of nodes in the outline.
+	 */
+	public int getNodeCount()
+	{
+		return aNodes.length / COORDINATES;
+	}
+	
+	/**
+	 * @return The number of edges in the outline.
+	 */
+	public int getEdgeCount()
+	{
+		return aEdges.length / COORDINATES;
+	}
+	
+	/**
+	 * Draws the outline, scaled, in a new image.
+	 * 
+	 * @param pWidth The width of the image.
+	 * @param pHeight The height of the image.
+	 * @param pScale The size of a pixel of the image in the diagram, as the 
+	 *     ratio of the size of the image to the size of the diagram.
+	 * @return The pixels of the image, row by row, in ARGB.
+	 * @pre pWidth >= 0 && pHeight >= 0 && pScale > 0
+	 */
+	public int[] rasterize(int pWidth, int pHeight, double pScale)
+	{
+		assert pWidth >= 0 && pHeight >= 0 && pScale > 0;
+		int[] pixels = new int[pWidth * pHeight];
+		Arrays.fill(pixels, BACKGROUND);
+		for( int i = 0; i < aEdges.length; i += COORDINATES )
+		{
+			drawLine(pixels, pWidth, pHeight, scale(aEdges[i], pScale), scale(aEdges[i + 1], pScale), 
+					scale(aEdges[i + 2], pScale), scale(aEdges[i + 3], pScale));
+		}
+		for( int i = 0; i < aNodes.length; i += COORDINATES )
+		{
+			int x1 = scale(aNodes[i], pScale);
+			int y1 = scale(aNodes[i + 1], pScale);
+			int x2 = Math.max(x1, scale(aNodes[i] + aNodes[i + 2], pScale) - 1);
+			int y2 = Math.max(y1, scale(aNodes[i + 1] + aNodes[i + 3], pScale) - 1);
+			fillRectangle(pixels, pWidth, pHeight, x1, y1, x2, y2, NODE_BORDER);
+			fillRectangle(pixels, pWidth, pHeight, x1 + 1, y1 + 1, x2 - 1, y2 - 1, NODE_FILL);
+		}
+		return pixels;
+	}
+	
+	private static int scale(int pCoordinate, double pScale)
+	{
+		return (int) Math.floor(pCoordinate * pScale);
+	}
+	
+	/*
+	 * Fills the pixels from (pX1, pY1) to (pX2, pY2) included, clipped to the image.
+	 */
+	private static void fillRectangle(int[] pPixels, int pWidth, int pHeight, int pX1, int pY1, int pX2, int pY2, int pColor)
+	{
+		int x1 = Math.max(pX1, 0);
+		int x2 = Math.min(pX2, pWidth - 1);
+		for( int y = Math.max(pY1, 0); y <= Math.min(pY2, pHeight - 1); y++ )
+		{
+			if( x1 <= x2 )
+			{
+				Arrays.fill(pPixels, y * pWidth + x1, y * pWidth + x2 + 1, pColor);
+			}
+		}
+	}
+	
+	/*
+	 * Bresenham's algorithm, clipped to the image.
+	 */
+	private static void drawLine(int[] pPixels, int pWidth, int pHeight, int pX1, int pY1, int pX2, int pY2)
+	{
+		int dx = Math.abs(pX2 - pX1);
+		int dy = -Math.abs(pY2 - pY1);
+		int stepX = pX1 < pX2 ? 1 : -1;
+		int stepY = pY1 < pY2 ? 1 : -1;
+		int error = dx + dy;
+		int x = pX1;
+		int y = pY1;
+		while( true )
+		{
+			if( x >= 0 && x < pWidth && y >= 0 && y < pHeight )
+			{
+				pPixels[y * pWidth + x] = EDGE;
+			}
+			if( x == pX2 && y == pY2 )
+			{
+				return;
+			}
+			int error2 = 2 * error;
+			if( error2 >= dy )
+			{
+				error += dy;
+				x += stepX;
+			}
+			if( error2 <= dx )
+			{
+				error += dx;
+				y += stepY;
+			}
+		}
+	}
+	
+	/**
+	 * Collects the elements of an outline.
+	 */
+	public static final class Builder
+	{
+		private int[] aNodes = new int[COORDINATES];
+		private int aNodeCount;
+		private int[] aEdges = new int[COORDINATES];
+		private int aEdgeCount;
+		
+		/**
+		 * Adds a node, drawn over the nodes added before.
+		 * 
+		 * @param pBounds The bounds of the node.
+		 * @return This builder.
+		 * @pre pBounds != null
+		 */
+		public Builder addNode(Rectangle pBounds)
+		{
+			assert pBounds != null;
+			aNodes = append(aNodes, aNodeCount++, pBounds.getX(), pBounds.getY(), pBounds.getWidth(), pBounds.getHeight());
+			return this;
+		}
+		
+		/**
+		 * Adds an edge.
+		 * 
+		 * @param pConnectionPoints The points the edge connects.
+		 * @return This builder.
+		 * @pre pConnectionPoints != null
+		 */
+		public Builder addEdge(Line pConnectionPoints)
+		{
+			assert pConnectionPoints != null;
+			aEdges = append(aEdges, aEdgeCount++, pConnectionPoints.getX1(), pConnectionPoints.getY1(), 
+					pConnectionPoints.getX2(), pConnectionPoints.getY2());
+			return this;
+		}
+		
+		private static int[] append(int[] pArray, int pIndex, int pFirst, int pSecond, int pThird, int pFourth)
+		{
+			int[] array = pArray;
+			int start = pIndex * COORDINATES;
+			if( start + COORDINATES > array.length )
+			{
+				array = Arrays.copyOf(array, array.length * 2);
+			}
+			array[start] = pFirst;
+			array[start + 1] = pSecond;
+			array[start + 2] = pThird;
+			array[start + 3] = pFourth;
+			return array;
+		}
+		
+		/**
+		 * @return An outline of the elements added.
+		 */
+		public DiagramOutline build()
+		{
+			return new DiagramOutline(Arrays.copyOf(aNodes, aNodeCount * COORDINATES), 
+					Arrays.copyOf(aEdges, aEdgeCount * COORDINATES));
+		}
+	}
+}
@@ -31,7 +31,6 @@ import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.viewers.edges.EdgeViewerRegistry;
 import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
-import javafx.scene.canvas.GraphicsContext;
 
 /**
  * A strategy for drawing a diagram and computing geometric properties of a 
@@ -48,14 +47,14 @@ public class DiagramViewer
 	 * @param pDiagram the diagram to draw.
 	 * @pre pDiagram != null && pGraphics != null.
 	 */
-	public final void draw(Diagram pDiagram, GraphicsContext pGraphics)
+	public void draw(Diagram pDiagram, DrawingContext pGraphics)
 	{
 		assert pDiagram != null && pGraphics != null;
 		pDiagram.rootNodes().forEach(node -> drawNode(node, pGraphics));
 		pDiagram.edges().forEach(edge -> EdgeViewerRegistry.draw(edge, pGraphics));
 	}
 	
-	private void drawNode(Node pNode, GraphicsContext pGraphics)
+	private void drawNode(Node pNode, DrawingContext pGraphics)
 	{
 		NodeViewerRegistry.draw(pNode, pGraphics);
 		pNode.getChildren().forEach(node -> drawNode(node, pGraphics));
@@ -70,7 +69,7 @@ public class DiagramViewer
 	 * @return An edge containing pPoint or null if no edge contains pPoint
 	 * @pre pDiagram != null && pPoint != null
 	 */
-	public final Optional<Edge> findEdge(Diagram pDiagram, Point pPoint)
+	public Optional<Edge> findEdge(Diagram pDiagram, Point pPoint)
 	{
 		assert pDiagram != null && pPoint != null;
 		for(Edge edge : pDiagram.edges())
@@ -91,7 +90,7 @@ public class DiagramViewer
      * @return a node containing pPoint or null if no nodes contain pPoint
      * @pre pDiagram != null && pPoint != null.
      */
-	public final Optional<Node> findNode(Diagram pDiagram, Point pPoint)
+	public Optional<Node> findNode(Diagram pDiagram, Point pPoint)
 	{
 		assert pDiagram != null && pPoint != null;
 		Node result = null;
@@ -147,33 +146,34 @@ public class DiagramViewer
 	 * @return The bounding rectangle
 	 * @pre pDiagram != null
 	 */
-	public final Rectangle getBounds(Diagram pDiagram)
+	public Rectangle getBounds(Diagram pDiagram)
 	{
 		assert pDiagram != null;
-		Rectangle bounds = null;
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxY = Integer.MIN_VALUE;
 		for(Node node : pDiagram.rootNodes() )
 		{
-			if(bounds == null)
-			{
-				bounds = NodeViewerRegistry.getBounds(node);
-			}
-			else
-			{
-				bounds = bounds.add(NodeViewerRegistry.getBounds(node));
-			}
+			Rectangle bounds = NodeViewerRegistry.getBounds(node);
+			minX = Math.min(minX, bounds.getX());
+			minY = Math.min(minY, bounds.getY());
+			maxX = Math.max(maxX, bounds.getMaxX());
+			maxY = Math.max(maxY, bounds.getMaxY());
 		}
-		for(Edge edge : pDiagram.edges())
-		{
-			bounds = bounds.add(EdgeViewerRegistry.getBounds(edge));
-		}
-		if(bounds == null )
+		if( minX == Integer.MAX_VALUE )
 		{
 			return new Rectangle(0, 0, 0, 0);
 		}
-		else
+		for(Edge edge : pDiagram.edges())
 		{
-			return new Rectangle(bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight());
+			Rectangle bounds = EdgeViewerRegistry.getBounds(edge);
+			minX = Math.min(minX, bounds.getX());
+			minY = Math.min(minY, bounds.getY());
+			maxX = Math.max(maxX, bounds.getMaxX());
+			maxY = Math.max(maxY, bounds.getMaxY());
 		}
+		return new Rectangle(minX, minY, maxX - minX, maxY - minY);
 	}
 	
 	/**
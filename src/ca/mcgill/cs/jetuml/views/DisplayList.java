@@ -0,0 +1,507 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import java.awt.font.FontRenderContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import javafx.geometry.VPos;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.effect.Effect;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.ArcType;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * An immutable sequence of drawing commands, obtained by drawing on 
+ * a recorder, that can be replayed on any drawing context. Each 
+ * primitive is recorded with conservative bounds in device coordinates,
+ * so that replaying a region of the drawing skips the primitives that 
+ * cannot touch it. Changes of state are always replayed.
+ * 
+ * Once built, a display list can be replayed by several threads at the same
+ * time, which is what makes it possible to rasterize a diagram in parallel
+ * even though the viewers themselves must run on a single thread.
+ */
+public final class DisplayList
+{
+	private final List<Consumer<DrawingContext>> aCommands;
+	private final double[] aBounds; // minX, minY, maxX, maxY for each command, NaN for state changes
+	
+	private DisplayList(List<Consumer<DrawingContext>> pCommands, double[] pBounds)
+	{
+		aCommands = pCommands;
+		aBounds = pBounds;
+	}
+	
+	/**
+	 * @return The number of commands in this display list.
+	 */
+	public int size()
+	{
+		return aCommands.size();
+	}
+	
+	/**
+	 * Replays all the commands on pContext.
+	 * 
+	 * @param pContext The context to draw on.
+	 * @pre pContext != null
+	 */
+	public void replay(DrawingContext pContext)
+	{
+		assert pContext != null;
+		aCommands.forEach(command -> command.accept(pContext));
+	}
+	
+	/**
+	 * Replays the changes of state and the primitives that could draw
+	 * inside pRegion on pContext.
+	 * 
+	 * @param pContext The context to draw on.
+	 * @param pRegion The region of interest, in device coordinates.
+	 * @return The number of primitives that were drawn.
+	 * @pre pContext != null && pRegion != null
+	 */
+	public int replay(DrawingContext pContext, Rectangle pRegion)
+	{
+		assert pContext != null && pRegion != null;
+		int drawn = 0;
+		for( int i = 0; i < aCommands.size(); i++ )
+		{
+			int offset = i * 4;
+			if( Double.isNaN(aBounds[offset]) )
+			{
+				aCommands.get(i).accept(pContext);
+			}
+			else if( aBounds[offset] < pRegion.getMaxX() && aBounds[offset + 2] > pRegion.getX() &&
+					aBounds[offset + 1] < pRegion.getMaxY() && aBounds[offset + 3] > pRegion.getY() )
+			{
+				aCommands.get(i).accept(pContext);
+				drawn++;
+			}
+		}
+		return drawn;
+	}
+	
+	/**
+	 * A drawing context that records the commands it receives instead of 
+	 * drawing them. The recorder starts with the same state as a new JavaFX
+	 * canvas. It is not thread-safe.
+	 */
+	public static final class Recorder implements DrawingContext
+	{
+		private static final double SHADOW_PADDING = 1;
+		private static final byte MOVE_TO = 0;
+		private static final byte LINE_TO = 1;
+		private static final byte QUAD_TO = 2;
+		private static final int INITIAL_CAPACITY = 16;
+		
+		private final List<Consumer<DrawingContext>> aCommands = new ArrayList<>();
+		private double[] aBounds = new double[INITIAL_CAPACITY * 4];
+		private final FontRenderContext aFontRenderContext = new FontRenderContext(null, true, true);
+		
+		private Paint aFill = Color.BLACK;
+		private Paint aStroke = Color.BLACK;
+		private double aShadowPadding;
+		private double aLineWidth = 1;
+		private double[] aDashes;
+		private Font aFont = Font.getDefault();
+		private TextAlignment aTextAlign = TextAlignment.LEFT;
+		private VPos aTextBaseline = VPos.BASELINE;
+		private double aScaleX = 1;
+		private double aScaleY = 1;
+		private double aTranslateX;
+		private double aTranslateY;
+		
+		private byte[] aPathOperations = new byte[INITIAL_CAPACITY];
+		private double[] aPathCoordinates = new double[INITIAL_CAPACITY * 2];
+		private int aPathSize;
+		private int aPathCoordinateCount;
+		private double aPathMinX;
+		private double aPathMinY;
+		private double aPathMaxX;
+		private double aPathMaxY;
+		
+		/**
+		 * @return An immutable display list with the commands recorded so far.
+		 */
+		public DisplayList build()
+		{
+			return new DisplayList(Collections.unmodifiableList(new ArrayList<>(aCommands)), 
+					Arrays.copyOf(aBounds, aCommands.size() * 4));
+		}
+		
+		private void state(Consumer<DrawingContext> pCommand)
+		{
+			add(pCommand, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+		}
+		
+		/*
+		 * Records a primitive with its bounds in local coordinates. The bounds are 
+		 * converted to device coordinates, and padded to account for the width of 
+		 * the lines, antialiasing and drop shadows.
+		 */
+		private void primitive(Consumer<DrawingContext> pCommand, double pMinX, double pMinY, double pMaxX, double pMaxY)
+		{
+			double x1 = aTranslateX + aScaleX * pMinX;
+			double x2 = aTranslateX + aScaleX * pMaxX;
+			double y1 = aTranslateY + aScaleY * pMinY;
+			double y2 = aTranslateY + aScaleY * pMaxY;
+			double padding = aLineWidth * Math.max(Math.abs(aScaleX), Math.abs(aScaleY)) + 1;
+			add(pCommand, Math.min(x1, x2) - padding, Math.min(y1, y2) - padding, 
+					Math.max(x1, x2) + padding + aShadowPadding, Math.max(y1, y2) + padding + aShadowPadding);
+		}
+		
+		private void add(Consumer<DrawingContext> pCommand, double pMinX, double pMinY, double pMaxX, double pMaxY)
+		{
+			int offset = aCommands.size() * 4;
+			if( offset + 4 > aBounds.length )
+			{
+				aBounds = Arrays.copyOf(aBounds, aBounds.length * 2);
+			}
+			aBounds[offset] = pMinX;
+			aBounds[offset + 1] = pMinY;
+			aBounds[offset + 2] = pMaxX;
+			aBounds[offset + 3] = pMaxY;
+			aCommands.add(pCommand);
+		}
+		
+		@Override
+		public Paint getFill()
+		{
+			return aFill;
+		}
+
+		@Override
+		public void setFill(Paint pFill)
+		{
+			aFill = pFill;
+			state(context -> context.setFill(pFill));
+		}
+
+		@Override
+		public Paint getStroke()
+		{
+			return aStroke;
+		}
+
+		@Override
+		public void setStroke(Paint pStroke)
+		{
+			aStroke = pStroke;
+			state(context -> context.setStroke(pStroke));
+		}
+
+		@Override
+		public void setEffect(Effect pEffect)
+		{
+			aShadowPadding = 0;
+			if( pEffect instanceof DropShadow )
+			{
+				DropShadow shadow = (DropShadow) pEffect;
+				aShadowPadding = Math.max(shadow.getOffsetX(), shadow.getOffsetY()) + shadow.getRadius() + SHADOW_PADDING;
+			}
+			state(context -> context.setEffect(pEffect));
+		}
+
+		@Override
+		public double getLineWidth()
+		{
+			return aLineWidth;
+		}
+
+		@Override
+		public void setLineWidth(double pWidth)
+		{
+			aLineWidth = pWidth;
+			state(context -> context.setLineWidth(pWidth));
+		}
+
+		@Override
+		public double[] getLineDashes()
+		{
+			if( aDashes == null )
+			{
+				return null;
+			}
+			return aDashes.clone();
+		}
+
+		@Override
+		public void setLineDashes(double... pDashes)
+		{
+			if( pDashes == null || pDashes.length == 0 )
+			{
+				aDashes = null;
+			}
+			else
+			{
+				aDashes = pDashes.clone();
+			}
+			double[] dashes = aDashes;
+			state(context -> context.setLineDashes(dashes));
+		}
+
+		@Override
+		public Font getFont()
+		{
+			return aFont;
+		}
+
+		@Override
+		public void setFont(Font pFont)
+		{
+			aFont = pFont;
+			state(context -> context.setFont(pFont));
+		}
+
+		@Override
+		public TextAlignment getTextAlign()
+		{
+			return aTextAlign;
+		}
+
+		@Override
+		public void setTextAlign(TextAlignment pAlignment)
+		{
+			aTextAlign = pAlignment;
+			state(context -> context.setTextAlign(pAlignment));
+		}
+
+		@Override
+		public VPos getTextBaseline()
+		{
+			return aTextBaseline;
+		}
+
+		@Override
+		public void setTextBaseline(VPos pBaseline)
+		{
+			aTextBaseline = pBaseline;
+			state(context -> context.setTextBaseline(pBaseline));
+		}
+
+		@Override
+		public void translate(double pX, double pY)
+		{
+			aTranslateX += aScaleX * pX;
+			aTranslateY += aScaleY * pY;
+			state(context -> context.translate(pX, pY));
+		}
+
+		@Override
+		public void scale(double pX, double pY)
+		{
+			aScaleX *= pX;
+			aScaleY *= pY;
+			state(context -> context.scale(pX, pY));
+		}
+
+		@Override
+		public void fillRect(double pX, double pY, double pWidth, double pHeight)
+		{
+			primitive(context -> context.fillRect(pX, pY, pWidth, pHeight), pX, pY, pX + pWidth, pY + pHeight);
+		}
+
+		@Override
+		public void strokeRect(double pX, double pY, double pWidth, double pHeight)
+		{
+			primitive(context -> context.strokeRect(pX, pY, pWidth, pHeight), pX, pY, pX + pWidth, pY + pHeight);
+		}
+
+		@Override
+		public void fillRoundRect(double pX, double pY, double pWidth, double pHeight, double pArcWidth, double pArcHeight)
+		{
+			primitive(context -> context.fillRoundRect(pX, pY, pWidth, pHeight, pArcWidth, pArcHeight), 
+					pX, pY, pX + pWidth, pY + pHeight);
+		}
+
+		@Override
+		public void strokeRoundRect(double pX, double pY, double pWidth, double pHeight, double pArcWidth, double pArcHeight)
+		{
+			primitive(context -> context.strokeRoundRect(pX, pY, pWidth, pHeight, pArcWidth, pArcHeight), 
+					pX, pY, pX + pWidth, pY + pHeight);
+		}
+
+		@Override
+		public void fillOval(double pX, double pY, double pWidth, double pHeight)
+		{
+			primitive(context -> context.fillOval(pX, pY, pWidth, pHeight), pX, pY, pX + pWidth, pY + pHeight);
+		}
+
+		@Override
+		public void strokeOval(double pX, double pY, double pWidth, double pHeight)
+		{
+			primitive(context -> context.strokeOval(pX, pY, pWidth, pHeight), pX, pY, pX + pWidth, pY + pHeight);
+		}
+
+		@Override
+		public void strokeArc(double pX, double pY, double pWidth, double pHeight, double pStartAngle, double pExtent, ArcType pType)
+		{
+			primitive(context -> context.strokeArc(pX, pY, pWidth, pHeight, pStartAngle, pExtent, pType), 
+					pX, pY, pX + pWidth, pY + pHeight);
+		}
+
+		@Override
+		public void strokeLine(double pX1, double pY1, double pX2, double pY2)
+		{
+			primitive(context -> context.strokeLine(pX1, pY1, pX2, pY2), 
+					Math.min(pX1, pX2), Math.min(pY1, pY2), Math.max(pX1, pX2), Math.max(pY1, pY2));
+		}
+
+		/*
+		 * The vertical bounds of the text cover the height of the whole block of
+		 * lines on both sides of pY, which holds for any baseline.
+		 */
+		@Override
+		public void fillText(String pText, double pX, double pY)
+		{
+			java.awt.Font font = Java2DDrawingContext.toAwtFont(aFont);
+			double width = 0;
+			double height = 0;
+			for( String line : pText.split("\n", -1) )
+			{
+				java.awt.geom.Rectangle2D bounds = font.getStringBounds(line, aFontRenderContext);
+				width = Math.max(width, bounds.getWidth());
+				height += bounds.getHeight();
+			}
+			double minX = pX;
+			if( aTextAlign == TextAlignment.CENTER )
+			{
+				minX -= width / 2;
+			}
+			else if( aTextAlign == TextAlignment.RIGHT )
+			{
+				minX -= width;
+			}
+			primitive(context -> context.fillText(pText, pX, pY), minX, pY - height, minX + width, pY + height);
+		}
+
+		@Override
+		public void beginPath()
+		{
+			aPathSize = 0;
+			aPathCoordinateCount = 0;
+			aPathMinX = Double.POSITIVE_INFINITY;
+			aPathMinY = Double.POSITIVE_INFINITY;
+			aPathMaxX = Double.NEGATIVE_INFINITY;
+			aPathMaxY = Double.NEGATIVE_INFINITY;
+		}
+
+		@Override
+		public void moveTo(double pX, double pY)
+		{
+			addPathOperation(MOVE_TO, pX, pY);
+		}
+
+		@Override
+		public void lineTo(double pX, double pY)
+		{
+			addPathOperation(LINE_TO, pX, pY);
+		}
+
+		@Override
+		public void quadraticCurveTo(double pControlX, double pControlY, double pX, double pY)
+		{
+			addPathOperation(QUAD_TO, pControlX, pControlY, pX, pY);
+		}
+		
+		private void addPathOperation(byte pOperation, double... pCoordinates)
+		{
+			if( aPathSize == aPathOperations.length )
+			{
+				aPathOperations = Arrays.copyOf(aPathOperations, aPathOperations.length * 2);
+			}
+			if( aPathCoordinateCount + pCoordinates.length > aPathCoordinates.length )
+			{
+				aPathCoordinates = Arrays.copyOf(aPathCoordinates, aPathCoordinates.length * 2);
+			}
+			aPathOperations[aPathSize++] = pOperation;
+			for( int i = 0; i < pCoordinates.length; i += 2 )
+			{
+				aPathMinX = Math.min(aPathMinX, pCoordinates[i]);
+				aPathMaxX = Math.max(aPathMaxX, pCoordinates[i]);
+				aPathMinY = Math.min(aPathMinY, pCoordinates[i + 1]);
+				aPathMaxY = Math.max(aPathMaxY, pCoordinates[i + 1]);
+				aPathCoordinates[aPathCoordinateCount++] = pCoordinates[i];
+				aPathCoordinates[aPathCoordinateCount++] = pCoordinates[i + 1];
+			}
+		}
+
+		@Override
+		public void fill()
+		{
+			pathPrimitive(DrawingContext::fill);
+		}
+
+		@Override
+		public void stroke()
+		{
+			pathPrimitive(DrawingContext::stroke);
+		}
+		
+		/*
+		 * Paths are recorded as a single command that rebuilds the path 
+		 * and paints it, so that they can be skipped like other primitives.
+		 */
+		private void pathPrimitive(Consumer<DrawingContext> pPaint)
+		{
+			if( aPathSize == 0 )
+			{
+				return;
+			}
+			byte[] operations = Arrays.copyOf(aPathOperations, aPathSize);
+			double[] coordinates = Arrays.copyOf(aPathCoordinates, aPathCoordinateCount);
+			primitive(context -> 
+			{
+				context.beginPath();
+				int coordinate = 0;
+				for( byte operation : operations )
+				{
+					if( operation == MOVE_TO )
+					{
+						context.moveTo(coordinates[coordinate], coordinates[coordinate + 1]);
+					}
+					else if( operation == LINE_TO )
+					{
+						context.lineTo(coordinates[coordinate], coordinates[coordinate + 1]);
+					}
+					else
+					{
+						context.quadraticCurveTo(coordinates[coordinate], coordinates[coordinate + 1], 
+								coordinates[coordinate + 2], coordinates[coordinate + 3]);
+						coordinate += 2;
+					}
+					coordinate += 2;
+				}
+				pPaint.accept(context);
+			}, aPathMinX, aPathMinY, aPathMaxX, aPathMaxY);
+		}
+	}
+}
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import javafx.geometry.VPos;
+import javafx.scene.effect.Effect;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.ArcType;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * The drawing primitives used by the viewers. The methods have the same 
+ * semantics as their namesake in javafx.scene.canvas.GraphicsContext, 
+ * which allows diagrams to be drawn either on a JavaFX canvas or, through
+ * a recording, on Java2D images outside of the JavaFX rendering thread.
+ * Only translations and scaling are supported as transforms.
+ */
+public interface DrawingContext
+{
+	/**
+	 * @return The current fill paint.
+	 */
+	Paint getFill();
+	
+	/**
+	 * @param pFill The new fill paint.
+	 */
+	void setFill(Paint pFill);
+	
+	/**
+	 * @return The current stroke paint.
+	 */
+	Paint getStroke();
+	
+	/**
+	 * @param pStroke The new stroke paint.
+	 */
+	void setStroke(Paint pStroke);
+	
+	/**
+	 * @param pEffect The effect to apply to subsequent primitives, or null for none.
+	 */
+	void setEffect(Effect pEffect);
+	
+	/**
+	 * @return The current line width.
+	 */
+	double getLineWidth();
+	
+	/**
+	 * @param pWidth The new line width.
+	 */
+	void setLineWidth(double pWidth);
+	
+	/**
+	 * @return The current dash array, or null for solid lines.
+	 */
+	double[] getLineDashes();
+	
+	/**
+	 * @param pDashes The new dash array, or null for solid lines.
+	 */
+	void setLineDashes(double... pDashes);
+	
+	/**
+	 * @return The current font.
+	 */
+	Font getFont();
+	
+	/**
+	 * @param pFont The new font.
+	 */
+	void setFont(Font pFont);
+	
+	/**
+	 * @return The current horizontal text alignment.
+	 */
+	TextAlignment getTextAlign();
+	
+	/**
+	 * @param pAlignment The new horizontal text alignment.
+	 */
+	void setTextAlign(TextAlignment pAlignment);
+	
+	/**
+	 * @return The current vertical text alignment.
+	 */
+	VPos getTextBaseline();
+	
+	/**
+	 * @param pBaseline The new vertical text alignment.
+	 */
+	void setTextBaseline(VPos pBaseline);
+	
+	/**
+	 * Adds a translation to the current transform.
+	 * 
+	 * @param pX The horizontal translation.
+	 * @param pY The vertical translation.
+	 */
+	void translate(double pX, double pY);
+	
+	/**
+	 * Adds a scaling to the current transform.
+	 * 
+	 * @param pX The horizontal scale factor.
+	 * @param pY The vertical scale factor.
+	 */
+	void scale(double pX, double pY);
+	
+	/**
+	 * Fills a rectangle.
+	 * 
+	 * @param pX The x-coordinate of the top left corner.
+	 * @param pY The y-coordinate of the top left corner.
+	 * @param pWidth The width.
+	 * @param pHeight The height.
+	 */
+	void fillRect(double pX, double pY, double pWidth, double pHeight);
+	
+	/**
+	 * Strokes a rectangle.
+	 * 
+	 * @param pX The x-coordinate of the top left corner.
+	 * @param pY The y-coordinate of the top left corner.
+	 * @param pWidth The width.
+	 * @param pHeight The height.
+	 */
+	void strokeRect(double pX, double pY, double pWidth, double pHeight);
+	
+	/**
+	 * Fills a rectangle with rounded corners.
+	 * 
+	 * @param pX The x-coordinate of the top left corner.
+	 * @param pY The y-coordinate of the top left corner.
+	 * @param pWidth The width.
+	 * @param pHeight The height.
+	 * @param pArcWidth The width of the corner arcs.
+	 * @param pArcHeight The height of the corner arcs.
+	 */
+	void fillRoundRect(double pX, double pY, double pWidth, double pHeight, double pArcWidth, double pArcHeight);
+	
+	/**
+	 * Strokes a rectangle with rounded corners.
+	 * 
+	 * @param pX The x-coordinate of the top left corner.
+	 * @param pY The y-coordinate of the top left corner.
+	 * @param pWidth The width.
+	 * @param pHeight The height.
+	 * @param pArcWidth The width of the corner arcs.
+	 * @param pArcHeight The height of the corner arcs.
+	 */
+	void strokeRoundRect(double pX, double pY, double pWidth, double pHeight, double pArcWidth, double pArcHeight);
+	
+	/**
+	 * Fills an oval.
+	 * 
+	 * @param pX The x-coordinate of the top left corner of the bounds.
+	 * @param pY The y-coordinate of the top left corner of the bounds.
+	 * @param pWidth The width.
+	 * @param pHeight The height.
+	 */
+	void fillOval(double pX, double pY, double pWidth, double pHeight);
+	
+	/**
+	 * Strokes an oval.
+	 * 
+	 * @param pX The x-coordinate of the top left corner of the bounds.
+	 * @param pY The y-coordinate of the top left corner of the bounds.
+	 * @param pWidth The width.
+	 * @param pHeight The height.
+	 */
+	void strokeOval(double pX, double pY, double pWidth, double pHeight);
+	
+	/**
+	 * Strokes an arc.
+	 * 
+	 * @param pX The x-coordinate of the top left corner of the bounds.
+	 * @param pY The y-coordinate of the top left corner of the bounds.
+	 * @param pWidth The width.
+	 * @param pHeight The height.
+	 * @param pStartAngle The start angle, in degrees.
+	 * @param pExtent The angular extent, in degrees.
+	 * @param pType How the arc is closed.
+	 */
+	void strokeArc(double pX, double pY, double pWidth, double pHeight, double pStartAngle, double pExtent, ArcType pType);
+	
+	/**
+	 * Strokes a line.
+	 * 
+	 * @param pX1 The x-coordinate of the first point.
+	 * @param pY1 The y-coordinate of the first point.
+	 * @param pX2 The x-coordinate of the second point.
+	 * @param pY2 The y-coordinate of the second point.
+	 */
+	void strokeLine(double pX1, double pY1, double pX2, double pY2);
+	
+	/**
+	 * Fills a string, using the current font and text alignments.
+	 * 
+	 * @param pText The text to fill.
+	 * @param pX The x-coordinate of the anchor.
+	 * @param pY The y-coordinate of the anchor.
+	 */
+	void fillText(String pText, double pX, double pY);
+	
+	/**
+	 * Starts a new path.
+	 */
+	void beginPath();
+	
+	/**
+	 * Starts a new sub-path of the current path.
+	 * 
+	 * @param pX The x-coordinate of the point.
+	 * @param pY The y-coordinate of the point.
+	 */
+	void moveTo(double pX, double pY);
+	
+	/**
+	 * Adds a segment to the current path.
+	 * 
+	 * @param pX The x-coordinate of the end point.
+	 * @param pY The y-coordinate of the end point.
+	 */
+	void lineTo(double pX, double pY);
+	
+	/**
+	 * Adds a quadratic curve to the current path.
+	 * 
+	 * @param pControlX The x-coordinate of the control point.
+	 * @param pControlY The y-coordinate of the control point.
+	 * @param pX The x-coordinate of the end point.
+	 * @param pY The y-coordinate of the end point.
+	 */
+	void quadraticCurveTo(double pControlX, double pControlY, double pX, double pY);
+	
+	/**
+	 * Fills the current path.
+	 */
+	void fill();
+	
+	/**
+	 * Strokes the current path.
+	 */
+	void stroke();
+}
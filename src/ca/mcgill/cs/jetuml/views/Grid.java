@@ -24,7 +24,6 @@ package ca.mcgill.cs.jetuml.views;
 import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 
@@ -44,7 +43,7 @@ public final class Grid
      * @param pGraphics the graphics context
      * @param pBounds the bounding rectangle
      */
-	public static void draw(GraphicsContext pGraphics, Rectangle pBounds)
+	public static void draw(DrawingContext pGraphics, Rectangle pBounds)
 	{
 		Paint oldStroke = pGraphics.getStroke();
 		pGraphics.setStroke(GRID_COLOR);
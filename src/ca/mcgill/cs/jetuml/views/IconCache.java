@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.Prototypes;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.nodes.AbstractNodeViewer;
+import javafx.application.Platform;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+/**
+ * A process-wide cache of the icons of the tools. The icon of each prototype
+ * is rendered once into an image, which can then be shown by any number of 
+ * tool bars and menus. Prototypes are identified by identity, and must not
+ * be modified once their icon is obtained. Only the elements of Prototypes 
+ * are cached, so that the cache stays bounded: the icon of any other 
+ * element is rendered each time it is requested.
+ * 
+ * Icons are rendered on the JavaFX application thread, and the time spent 
+ * rendering them is recorded in the ICON_RENDER timer of Metrics. This class is not 
+ * thread-safe: it must only be used from a single thread, normally the 
+ * JavaFX application thread.
+ */
+public final class IconCache
+{
+	private static final IconCache INSTANCE = new IconCache();
+	private static final Metrics.Timer RENDER_TIMER = Metrics.timer(Metrics.ICON_RENDER);
+	
+	private final Map<DiagramElement, Image> aIcons = new IdentityHashMap<>();
+	private Image aSelectionIcon;
+	
+	private IconCache() {}
+	
+	/**
+	 * @return The singleton instance of this class.
+	 */
+	public static IconCache instance()
+	{
+		return INSTANCE;
+	}
+	
+	/**
+	 * @param pPrototype The prototype for which we want an icon.
+	 * @return An image of pPrototype, rendered the first time it is requested
+	 *     if it is one of the prototypes of Prototypes.
+	 * @pre pPrototype != null
+	 */
+	public Image icon(DiagramElement pPrototype)
+	{
+		assert pPrototype != null;
+		if( !Prototypes.instance().isPrototype(pPrototype) )
+		{
+			return render(() -> ViewerUtilities.createIcon(pPrototype));
+		}
+		Image icon = aIcons.get(pPrototype);
+		if( icon == null )
+		{
+			icon = render(() -> ViewerUtilities.createIcon(pPrototype));
+			aIcons.put(pPrototype, icon);
+		}
+		return icon;
+	}
+	
+	/**
+	 * @return The image of the selection tool.
+	 */
+	public Image selectionIcon()
+	{
+		if( aSelectionIcon == null )
+		{
+			aSelectionIcon = render(IconCache::createSelectionIcon);
+		}
+		return aSelectionIcon;
+	}
+	
+	/**
+	 * @return The number of prototype icons in the cache.
+	 */
+	public int size()
+	{
+		return aIcons.size();
+	}
+	
+	/*
+	 * Discards all the icons, so that tests do not depend on the icons 
+	 * rendered by other tests.
+	 */
+	void clear()
+	{
+		aIcons.clear();
+		aSelectionIcon = null;
+	}
+	
+	private static Canvas createSelectionIcon()
+	{
+		int offset = AbstractNodeViewer.OFFSET + 3;
+		Canvas canvas = new Canvas(AbstractNodeViewer.BUTTON_SIZE, AbstractNodeViewer.BUTTON_SIZE);
+		ToolGraphics.drawHandles(new CanvasDrawingContext(canvas.getGraphicsContext2D()), new Rectangle(offset, offset, 
+				AbstractNodeViewer.BUTTON_SIZE - (offset*2), AbstractNodeViewer.BUTTON_SIZE-(offset*2) ));
+		return canvas;
+	}
+	
+	/*
+	 * Draws the icon and takes a snapshot of it. Snapshots can only be taken on the 
+	 * JavaFX application thread, so this waits for it if called from another thread.
+	 */
+	private Image render(Supplier<Canvas> pFactory)
+	{
+		long start = RENDER_TIMER.start();
+		Image image;
+		if( Platform.isFxApplicationThread() )
+		{
+			image = snapshot(pFactory.get());
+		}
+		else
+		{
+			FutureTask<Image> task = new FutureTask<>(() -> snapshot(pFactory.get()));
+			Platform.runLater(task);
+			try
+			{
+				image = task.get();
+			}
+			catch( InterruptedException exception )
+			{
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(exception);
+			}
+			catch( ExecutionException exception )
+			{
+				throw new IllegalStateException(exception.getCause());
+			}
+		}
+		RENDER_TIMER.stop(start);
+		return image;
+	}
+	
+	private static Image snapshot(Canvas pCanvas)
+	{
+		SnapshotParameters parameters = new SnapshotParameters();
+		parameters.setFill(Color.TRANSPARENT);
+		return pCanvas.snapshot(parameters, null);
+	}
+}
@@ -20,11 +20,13 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.views;
 
+import java.awt.image.BufferedImage;
+
+import ca.mcgill.cs.jetuml.application.FlightRecorderEvents.RenderingEvent;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.DiagramType;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
@@ -49,11 +51,13 @@ public final class ImageCreator
 	public static Image createImage(Diagram pDiagram)
 	{
 		assert pDiagram != null;
+		RenderingEvent event = new RenderingEvent();
+		event.begin();
 		DiagramViewer viewer = DiagramType.viewerFor(pDiagram);
 		Rectangle bounds = viewer.getBounds(pDiagram);
 		Canvas canvas = new Canvas(bounds.getWidth() + DIAGRAM_PADDING * 2, 
 				bounds.getHeight() + DIAGRAM_PADDING *2);
-		GraphicsContext context = canvas.getGraphicsContext2D();
+		DrawingContext context = new CanvasDrawingContext(canvas.getGraphicsContext2D());
 		context.setLineWidth(LINE_WIDTH);
 		context.setFill(Color.WHITE);
 		context.translate(-bounds.getX()+DIAGRAM_PADDING, -bounds.getY()+DIAGRAM_PADDING);
@@ -61,6 +65,100 @@ public final class ImageCreator
 		WritableImage image = new WritableImage(bounds.getWidth() + DIAGRAM_PADDING * 2, 
 				bounds.getHeight() + DIAGRAM_PADDING *2);
 		canvas.snapshot(null, image);
+		event.end();
+		if( event.shouldCommit() )
+		{
+			event.setArea(true, (int) image.getWidth(), (int) image.getHeight());
+			event.setDiagram(pDiagram);
+			event.commit();
+		}
 		return image;
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Creates an image of an entire diagram, with a white border around, 
+	 * like createImage, but rasterizes it with Java2D on several threads. 
+	 * The drawing of the diagram is recorded on the calling thread, which 
+	 * must therefore be the thread that owns the diagram and can measure 
+	 * text, normally the JavaFX application thread. Only the rasterization 
+	 * is done on other threads. Shadows are approximated, so the image 
+	 * is not identical to the one of createImage.
+	 * 
+	 * @param pDiagram The diagram to create an image of.
+	 * @return An image of the diagram.
+	 * @pre pDiagram != null.
+	 */
+	public static BufferedImage createBufferedImage(Diagram pDiagram)
+	{
+		assert pDiagram != null;
+		return render(pDiagram, 1);
+	}
+	
+	/**
+	 * Creates a reduced image of an entire diagram, rasterized like 
+	 * createBufferedImage. Diagrams that already fit in the maximum size
+	 * are not enlarged.
+	 * 
+	 * @param pDiagram The diagram to create a thumbnail of.
+	 * @param pMaxSize The maximum width and height of the thumbnail.
+	 * @return A thumbnail of the diagram.
+	 * @pre pDiagram != null && pMaxSize > 0
+	 */
+	public static BufferedImage createThumbnail(Diagram pDiagram, int pMaxSize)
+	{
+		assert pDiagram != null && pMaxSize > 0;
+		Rectangle bounds = DiagramType.viewerFor(pDiagram).getBounds(pDiagram);
+		int size = Math.max(bounds.getWidth(), bounds.getHeight()) + DIAGRAM_PADDING * 2;
+		return render(pDiagram, Math.min(1, pMaxSize / (double) size));
+	}
+	
+	/**
+	 * Records the drawing of pDiagram, with a white border around and scaled
+	 * by pScale, in image coordinates. The viewers are not thread-safe, so
+	 * the recording is done on the calling thread.
+	 * 
+	 * @param pDiagram The diagram to record.
+	 * @param pScale The scale factor.
+	 * @return The display list of the diagram.
+	 * @pre pDiagram != null && pScale > 0
+	 */
+	public static DisplayList record(Diagram pDiagram, double pScale)
+	{
+		assert pDiagram != null && pScale > 0;
+		DiagramViewer viewer = DiagramType.viewerFor(pDiagram);
+		Rectangle bounds = viewer.getBounds(pDiagram);
+		DisplayList.Recorder recorder = new DisplayList.Recorder();
+		recorder.scale(pScale, pScale);
+		recorder.setLineWidth(LINE_WIDTH);
+		recorder.setFill(Color.WHITE);
+		recorder.translate(-bounds.getX()+DIAGRAM_PADDING, -bounds.getY()+DIAGRAM_PADDING);
+		viewer.draw(pDiagram, recorder);
+		return recorder.build();
+	}
+	
+	private static BufferedImage render(Diagram pDiagram, double pScale)
+	{
+		RenderingEvent event = new RenderingEvent();
+		event.begin();
+		Rectangle bounds = DiagramType.viewerFor(pDiagram).getBounds(pDiagram);
+		int width = Math.max(1, (int) Math.ceil((bounds.getWidth() + DIAGRAM_PADDING * 2) * pScale));
+		int height = Math.max(1, (int) Math.ceil((bounds.getHeight() + DIAGRAM_PADDING * 2) * pScale));
+		BufferedImage image = RendererHolder.RENDERER.render(record(pDiagram, pScale), width, height);
+		event.end();
+		if( event.shouldCommit() )
+		{
+			event.setArea(true, width, height);
+			event.setDiagram(pDiagram);
+			event.commit();
+		}
+		return image;
+	}
+	
+	/*
+	 * Creates the worker threads the first time an image is rasterized.
+	 */
+	private static final class RendererHolder
+	{
+		private static final TileRenderer RENDERER = new TileRenderer(Runtime.getRuntime().availableProcessors());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,481 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javafx.geometry.VPos;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.effect.Effect;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.ArcType;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Draws on a Java2D graphics object, for example one obtained from a 
+ * BufferedImage. Paints are converted to AWT colors and fonts to the AWT 
+ * font of the same family, style and size. The only supported effect is 
+ * the drop shadow, which is approximated by drawing an offset copy of each 
+ * primitive in the shadow color, without blurring it.
+ * 
+ * Like the Graphics2D object it wraps, instances of this class are not 
+ * thread-safe, but different instances can draw concurrently.
+ */
+public final class Java2DDrawingContext implements DrawingContext
+{
+	private static final String SYSTEM_FONT = "System";
+	private static final double SHADOW_OPACITY = 0.75;
+	private static final float MITER_LIMIT = 10;
+	private static final Map<Font, java.awt.Font> FONTS = new ConcurrentHashMap<>();
+	
+	private final Graphics2D aGraphics;
+	private Paint aFill = Color.BLACK;
+	private Paint aStroke = Color.BLACK;
+	private java.awt.Color aAwtFill = java.awt.Color.BLACK;
+	private java.awt.Color aAwtStroke = java.awt.Color.BLACK;
+	private java.awt.Color aShadowColor;
+	private double aShadowX;
+	private double aShadowY;
+	private double aLineWidth = 1;
+	private double[] aDashes;
+	private BasicStroke aBasicStroke;
+	private Font aFont = Font.getDefault();
+	private TextAlignment aTextAlign = TextAlignment.LEFT;
+	private VPos aTextBaseline = VPos.BASELINE;
+	private Path2D aPath = new Path2D.Double();
+	
+	/**
+	 * Creates a drawing context with the same initial state as a
+	 * new JavaFX canvas, and turns on antialiasing for pGraphics.
+	 * 
+	 * @param pGraphics The graphics object to draw on.
+	 * @pre pGraphics != null
+	 */
+	public Java2DDrawingContext(Graphics2D pGraphics)
+	{
+		assert pGraphics != null;
+		aGraphics = pGraphics;
+		aGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		aGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		aGraphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+		aGraphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+	}
+	
+	/**
+	 * Obtains the AWT font that corresponds to a JavaFX font. The JavaFX
+	 * "System" family is mapped to the AWT "Dialog" logical font.
+	 * 
+	 * @param pFont The JavaFX font.
+	 * @return The AWT font with the same family, style and size.
+	 * @pre pFont != null
+	 */
+	public static java.awt.Font toAwtFont(Font pFont)
+	{
+		assert pFont != null;
+		return FONTS.computeIfAbsent(pFont, font -> 
+		{
+			String family = font.getFamily();
+			if( SYSTEM_FONT.equals(family) )
+			{
+				family = java.awt.Font.DIALOG;
+			}
+			int style = java.awt.Font.PLAIN;
+			if( font.getStyle().contains("Bold") )
+			{
+				style |= java.awt.Font.BOLD;
+			}
+			if( font.getStyle().contains("Italic") )
+			{
+				style |= java.awt.Font.ITALIC;
+			}
+			return new java.awt.Font(family, style, 1).deriveFont((float) font.getSize());
+		});
+	}
+	
+	private static java.awt.Color toAwtColor(Paint pPaint)
+	{
+		if( pPaint instanceof Color )
+		{
+			Color color = (Color) pPaint;
+			return new java.awt.Color((float) color.getRed(), (float) color.getGreen(), 
+					(float) color.getBlue(), (float) color.getOpacity());
+		}
+		return java.awt.Color.BLACK;
+	}
+
+	@Override
+	public Paint getFill()
+	{
+		return aFill;
+	}
+
+	@Override
+	public void setFill(Paint pFill)
+	{
+		aFill = pFill;
+		aAwtFill = toAwtColor(pFill);
+	}
+
+	@Override
+	public Paint getStroke()
+	{
+		return aStroke;
+	}
+
+	@Override
+	public void setStroke(Paint pStroke)
+	{
+		aStroke = pStroke;
+		aAwtStroke = toAwtColor(pStroke);
+	}
+
+	@Override
+	public void setEffect(Effect pEffect)
+	{
+		aShadowColor = null;
+		if( pEffect instanceof DropShadow )
+		{
+			DropShadow shadow = (DropShadow) pEffect;
+			Color color = shadow.getColor();
+			aShadowColor = toAwtColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 
+					color.getOpacity() * SHADOW_OPACITY));
+			aShadowX = shadow.getOffsetX();
+			aShadowY = shadow.getOffsetY();
+		}
+	}
+
+	@Override
+	public double getLineWidth()
+	{
+		return aLineWidth;
+	}
+
+	@Override
+	public void setLineWidth(double pWidth)
+	{
+		aLineWidth = pWidth;
+		aBasicStroke = null;
+	}
+
+	@Override
+	public double[] getLineDashes()
+	{
+		if( aDashes == null )
+		{
+			return null;
+		}
+		return aDashes.clone();
+	}
+
+	@Override
+	public void setLineDashes(double... pDashes)
+	{
+		if( pDashes == null || pDashes.length == 0 )
+		{
+			aDashes = null;
+		}
+		else
+		{
+			aDashes = pDashes.clone();
+		}
+		aBasicStroke = null;
+	}
+
+	@Override
+	public Font getFont()
+	{
+		return aFont;
+	}
+
+	@Override
+	public void setFont(Font pFont)
+	{
+		aFont = pFont;
+	}
+
+	@Override
+	public TextAlignment getTextAlign()
+	{
+		return aTextAlign;
+	}
+
+	@Override
+	public void setTextAlign(TextAlignment pAlignment)
+	{
+		aTextAlign = pAlignment;
+	}
+
+	@Override
+	public VPos getTextBaseline()
+	{
+		return aTextBaseline;
+	}
+
+	@Override
+	public void setTextBaseline(VPos pBaseline)
+	{
+		aTextBaseline = pBaseline;
+	}
+
+	@Override
+	public void translate(double pX, double pY)
+	{
+		aGraphics.translate(pX, pY);
+	}
+
+	@Override
+	public void scale(double pX, double pY)
+	{
+		aGraphics.scale(pX, pY);
+	}
+
+	@Override
+	public void fillRect(double pX, double pY, double pWidth, double pHeight)
+	{
+		fill(new Rectangle2D.Double(pX, pY, pWidth, pHeight));
+	}
+
+	@Override
+	public void strokeRect(double pX, double pY, double pWidth, double pHeight)
+	{
+		stroke(new Rectangle2D.Double(pX, pY, pWidth, pHeight));
+	}
+
+	@Override
+	public void fillRoundRect(double pX, double pY, double pWidth, double pHeight, double pArcWidth, double pArcHeight)
+	{
+		fill(new RoundRectangle2D.Double(pX, pY, pWidth, pHeight, pArcWidth, pArcHeight));
+	}
+
+	@Override
+	public void strokeRoundRect(double pX, double pY, double pWidth, double pHeight, double pArcWidth, double pArcHeight)
+	{
+		stroke(new RoundRectangle2D.Double(pX, pY, pWidth, pHeight, pArcWidth, pArcHeight));
+	}
+
+	@Override
+	public void fillOval(double pX, double pY, double pWidth, double pHeight)
+	{
+		fill(new Ellipse2D.Double(pX, pY, pWidth, pHeight));
+	}
+
+	@Override
+	public void strokeOval(double pX, double pY, double pWidth, double pHeight)
+	{
+		stroke(new Ellipse2D.Double(pX, pY, pWidth, pHeight));
+	}
+
+	@Override
+	public void strokeArc(double pX, double pY, double pWidth, double pHeight, double pStartAngle, double pExtent, ArcType pType)
+	{
+		int type = Arc2D.OPEN;
+		if( pType == ArcType.CHORD )
+		{
+			type = Arc2D.CHORD;
+		}
+		else if( pType == ArcType.ROUND )
+		{
+			type = Arc2D.PIE;
+		}
+		stroke(new Arc2D.Double(pX, pY, pWidth, pHeight, pStartAngle, pExtent, type));
+	}
+
+	@Override
+	public void strokeLine(double pX1, double pY1, double pX2, double pY2)
+	{
+		stroke(new Line2D.Double(pX1, pY1, pX2, pY2));
+	}
+
+	/*
+	 * Mirrors the JavaFX layout of multi-line text: each line is aligned on 
+	 * pX and the baseline refers to the first line, the bottom to the last one,
+	 * and the center to the middle of the block.
+	 */
+	@Override
+	public void fillText(String pText, double pX, double pY)
+	{
+		java.awt.Font font = toAwtFont(aFont);
+		aGraphics.setFont(font);
+		java.awt.FontMetrics metrics = aGraphics.getFontMetrics();
+		String[] lines = pText.split("\n", -1);
+		double lineHeight = metrics.getAscent() + metrics.getDescent() + metrics.getLeading();
+		double blockHeight = lineHeight * lines.length;
+		double y = pY;
+		if( aTextBaseline == VPos.TOP )
+		{
+			y += metrics.getAscent();
+		}
+		else if( aTextBaseline == VPos.CENTER )
+		{
+			y += metrics.getAscent() - blockHeight / 2;
+		}
+		else if( aTextBaseline == VPos.BOTTOM )
+		{
+			y += metrics.getAscent() - blockHeight;
+		}
+		for( String line : lines )
+		{
+			double x = pX;
+			if( aTextAlign == TextAlignment.CENTER )
+			{
+				x -= font.getStringBounds(line, aGraphics.getFontRenderContext()).getWidth() / 2;
+			}
+			else if( aTextAlign == TextAlignment.RIGHT )
+			{
+				x -= font.getStringBounds(line, aGraphics.getFontRenderContext()).getWidth();
+			}
+			if( aShadowColor != null )
+			{
+				AffineTransform transform = shiftToShadow();
+				aGraphics.setColor(aShadowColor);
+				aGraphics.drawString(line, (float) x, (float) y);
+				aGraphics.setTransform(transform);
+			}
+			aGraphics.setColor(aAwtFill);
+			aGraphics.drawString(line, (float) x, (float) y);
+			y += lineHeight;
+		}
+	}
+
+	@Override
+	public void beginPath()
+	{
+		aPath = new Path2D.Double();
+	}
+
+	@Override
+	public void moveTo(double pX, double pY)
+	{
+		aPath.moveTo(pX, pY);
+	}
+
+	@Override
+	public void lineTo(double pX, double pY)
+	{
+		if( aPath.getCurrentPoint() == null )
+		{
+			aPath.moveTo(pX, pY);
+		}
+		else
+		{
+			aPath.lineTo(pX, pY);
+		}
+	}
+
+	@Override
+	public void quadraticCurveTo(double pControlX, double pControlY, double pX, double pY)
+	{
+		if( aPath.getCurrentPoint() == null )
+		{
+			aPath.moveTo(pControlX, pControlY);
+		}
+		aPath.quadTo(pControlX, pControlY, pX, pY);
+	}
+
+	@Override
+	public void fill()
+	{
+		fill(aPath);
+	}
+
+	@Override
+	public void stroke()
+	{
+		stroke(aPath);
+	}
+	
+	private void fill(Shape pShape)
+	{
+		if( aShadowColor != null )
+		{
+			AffineTransform transform = shiftToShadow();
+			aGraphics.setColor(aShadowColor);
+			aGraphics.fill(pShape);
+			aGraphics.setTransform(transform);
+		}
+		aGraphics.setColor(aAwtFill);
+		aGraphics.fill(pShape);
+	}
+	
+	private void stroke(Shape pShape)
+	{
+		aGraphics.setStroke(getBasicStroke());
+		if( aShadowColor != null )
+		{
+			AffineTransform transform = shiftToShadow();
+			aGraphics.setColor(aShadowColor);
+			aGraphics.draw(pShape);
+			aGraphics.setTransform(transform);
+		}
+		aGraphics.setColor(aAwtStroke);
+		aGraphics.draw(pShape);
+	}
+	
+	/*
+	 * Shadow offsets are in device pixels, as with the JavaFX effect.
+	 * Returns the transform to restore.
+	 */
+	private AffineTransform shiftToShadow()
+	{
+		AffineTransform transform = aGraphics.getTransform();
+		AffineTransform shifted = AffineTransform.getTranslateInstance(aShadowX, aShadowY);
+		shifted.concatenate(transform);
+		aGraphics.setTransform(shifted);
+		return transform;
+	}
+	
+	/*
+	 * JavaFX strokes use square caps, miter joins and a miter limit 
+	 * of 10 by default, like BasicStroke.
+	 */
+	private BasicStroke getBasicStroke()
+	{
+		if( aBasicStroke == null )
+		{
+			float[] dashes = null;
+			if( aDashes != null )
+			{
+				dashes = new float[aDashes.length];
+				for( int i = 0; i < aDashes.length; i++ )
+				{
+					dashes[i] = (float) aDashes[i];
+				}
+			}
+			aBasicStroke = new BasicStroke((float) aLineWidth, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER, 
+					MITER_LIMIT, dashes, 0);
+		}
+		return aBasicStroke;
+	}
+}
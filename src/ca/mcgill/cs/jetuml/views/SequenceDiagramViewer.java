@@ -21,23 +21,57 @@
 
 package ca.mcgill.cs.jetuml.views;
 
+import java.util.Optional;
+
 import ca.mcgill.cs.jetuml.diagram.ControlFlow;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.nodes.SequenceLayout;
 
 /**
- * A specialized viewer stategy for a sequence diagram.
+ * A specialized viewer stategy for a sequence diagram. Drawing a sequence
+ * diagram, finding one of its elements, and computing its bounds each
+ * share a single layout of the diagram among the viewers of its elements.
  */
 public class SequenceDiagramViewer extends DiagramViewer
 {
+	@Override
+	public void draw(Diagram pDiagram, DrawingContext pGraphics)
+	{
+		SequenceLayout.query(pDiagram, () -> 
+		{
+			super.draw(pDiagram, pGraphics);
+			return null;
+		});
+	}
+	
+	@Override
+	public Optional<Edge> findEdge(Diagram pDiagram, Point pPoint)
+	{
+		return SequenceLayout.query(pDiagram, () -> super.findEdge(pDiagram, pPoint));
+	}
+	
+	@Override
+	public Optional<Node> findNode(Diagram pDiagram, Point pPoint)
+	{
+		return SequenceLayout.query(pDiagram, () -> super.findNode(pDiagram, pPoint));
+	}
+	
+	@Override
+	public Rectangle getBounds(Diagram pDiagram)
+	{
+		return SequenceLayout.query(pDiagram, () -> super.getBounds(pDiagram));
+	}
+	
 	@Override
 	protected Node deepFindNode(Diagram pDiagram, Node pNode, Point pPoint )
 	{		
-		ControlFlow flow = new ControlFlow(pDiagram);
+		ControlFlow flow = SequenceLayout.controlFlow(pDiagram);
 		if( pNode instanceof CallNode )
 		{
 			for(Node child : flow.getCallees(pNode))
@@ -23,7 +23,6 @@ package ca.mcgill.cs.jetuml.views;
 import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import javafx.geometry.VPos;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.TextAlignment;
@@ -130,7 +129,7 @@ public final class StringViewer
      * @param pGraphics the graphics context
      * @param pRectangle the rectangle into which to place the string
 	 */
-	public void draw(String pString, GraphicsContext pGraphics, Rectangle pRectangle)
+	public void draw(String pString, DrawingContext pGraphics, Rectangle pRectangle)
 	{
 		final VPos oldVPos = pGraphics.getTextBaseline();
 		final TextAlignment oldAlign = pGraphics.getTextAlign();
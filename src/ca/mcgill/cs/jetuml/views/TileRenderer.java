@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+
+/**
+ * Rasterizes display lists into Java2D images using a pool of worker
+ * threads. The image is split into square tiles that are rendered 
+ * concurrently. Each tile is a sub-image that shares the pixels of the 
+ * final image, so the tiles do not need to be copied once rendered. Tiles
+ * only replay the primitives whose bounds intersect them.
+ */
+public final class TileRenderer
+{
+	public static final int TILE_SIZE = 256;
+	
+	private final ExecutorService aWorkers;
+	private final int aThreadCount;
+	
+	/**
+	 * Creates a renderer with its own pool of daemon worker threads.
+	 * 
+	 * @param pThreadCount The number of worker threads.
+	 * @pre pThreadCount > 0
+	 */
+	public TileRenderer(int pThreadCount)
+	{
+		assert pThreadCount > 0;
+		aThreadCount = pThreadCount;
+		aWorkers = Executors.newFixedThreadPool(pThreadCount, pTask -> 
+		{
+			Thread thread = new Thread(pTask, "JetUML Tile Renderer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * @return The number of worker threads of this renderer.
+	 */
+	public int getThreadCount()
+	{
+		return aThreadCount;
+	}
+	
+	/**
+	 * Renders pDrawing on a white image of the given size. The display 
+	 * list is in the coordinates of the image. Blocks until all the tiles 
+	 * are rendered.
+	 * 
+	 * @param pDrawing The drawing to render.
+	 * @param pWidth The width of the image.
+	 * @param pHeight The height of the image.
+	 * @return An ARGB image with the rendered drawing.
+	 * @pre pDrawing != null && pWidth > 0 && pHeight > 0
+	 */
+	public BufferedImage render(DisplayList pDrawing, int pWidth, int pHeight)
+	{
+		assert pDrawing != null && pWidth > 0 && pHeight > 0;
+		BufferedImage image = new BufferedImage(pWidth, pHeight, BufferedImage.TYPE_INT_ARGB);
+		List<CompletableFuture<Void>> tiles = new ArrayList<>();
+		for( int y = 0; y < pHeight; y += TILE_SIZE )
+		{
+			for( int x = 0; x < pWidth; x += TILE_SIZE )
+			{
+				Rectangle tile = new Rectangle(x, y, Math.min(TILE_SIZE, pWidth - x), Math.min(TILE_SIZE, pHeight - y));
+				tiles.add(CompletableFuture.runAsync(() -> renderTile(pDrawing, image, tile), aWorkers));
+			}
+		}
+		CompletableFuture.allOf(tiles.toArray(new CompletableFuture<?>[tiles.size()])).join();
+		return image;
+	}
+	
+	/**
+	 * Stops the worker threads once the tiles already submitted are rendered.
+	 */
+	public void shutdown()
+	{
+		aWorkers.shutdown();
+	}
+	
+	private static void renderTile(DisplayList pDrawing, BufferedImage pImage, Rectangle pTile)
+	{
+		Graphics2D graphics = pImage.getSubimage(pTile.getX(), pTile.getY(), pTile.getWidth(), pTile.getHeight()).createGraphics();
+		try
+		{
+			graphics.setColor(java.awt.Color.WHITE);
+			graphics.fillRect(0, 0, pTile.getWidth(), pTile.getHeight());
+			graphics.translate(-pTile.getX(), -pTile.getY());
+			pDrawing.replay(new Java2DDrawingContext(graphics), pTile);
+		}
+		finally
+		{
+			graphics.dispose();
+		}
+	}
+}
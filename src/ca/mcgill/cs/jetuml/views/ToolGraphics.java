@@ -22,16 +22,11 @@
 package ca.mcgill.cs.jetuml.views;
 
 import ca.mcgill.cs.jetuml.geom.Line;
+import ca.mcgill.cs.jetuml.geom.PrimitivePath;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
-import javafx.scene.shape.PathElement;
-import javafx.scene.shape.QuadCurveTo;
 
 /**
  * A utility class to draw various graphics for diagram handling tools.
@@ -55,7 +50,7 @@ public final class ToolGraphics
 	 * @param pX The x-coordinate of the center of the handle.
 	 * @param pY The y-coordinate of the center of the handle.
 	 */
-	private static void drawHandle(GraphicsContext pGraphics, int pX, int pY)
+	private static void drawHandle(DrawingContext pGraphics, int pX, int pY)
 	{
 		Paint oldStroke = pGraphics.getStroke();
 		Paint oldFill = pGraphics.getFill();
@@ -74,7 +69,7 @@ public final class ToolGraphics
 	 * @param pGraphics The graphics context on which to draw the handles.
 	 * @param pBounds Defines the four points where to draw the handles
 	 */
-	public static void drawHandles(GraphicsContext pGraphics, Rectangle pBounds)
+	public static void drawHandles(DrawingContext pGraphics, Rectangle pBounds)
 	{
 		drawHandle(pGraphics, pBounds.getX(), pBounds.getY());
 		drawHandle(pGraphics, pBounds.getX(), pBounds.getMaxY());
@@ -89,7 +84,7 @@ public final class ToolGraphics
 	 * @param pGraphics The graphics context on which to draw the handles.
 	 * @param pBounds Defines the two points where to draw the handles
 	 */
-	public static void drawHandles(GraphicsContext pGraphics, Line pBounds)
+	public static void drawHandles(DrawingContext pGraphics, Line pBounds)
 	{
 		drawHandle(pGraphics, pBounds.getX1(), pBounds.getY1());
 		drawHandle(pGraphics, pBounds.getX2(), pBounds.getY2());
@@ -102,7 +97,7 @@ public final class ToolGraphics
 	 * @param pGraphics The graphics context on which to draw the line.
 	 * @param pLine The line that represents the rubberband.
 	 */
-	public static void drawRubberband(GraphicsContext pGraphics, Line pLine)
+	public static void drawRubberband(DrawingContext pGraphics, Line pLine)
 	{
 		Paint oldStroke = pGraphics.getStroke();
 		pGraphics.setStroke(SELECTION_FILL_COLOR);
@@ -117,7 +112,7 @@ public final class ToolGraphics
 	 * @param pGraphics The graphics context on which to draw the lasso.
 	 * @param pRectangle The rectangle that defines the lasso.
 	 */
-	public static void drawLasso(GraphicsContext pGraphics, Rectangle pRectangle)
+	public static void drawLasso(DrawingContext pGraphics, Rectangle pRectangle)
 	{
 		ViewUtils.drawRectangle(pGraphics, SELECTION_COLOR, SELECTION_FILL_TRANSPARENT, 
 				pRectangle.getX(), pRectangle.getY(), pRectangle.getWidth(), pRectangle.getHeight());
@@ -134,7 +129,7 @@ public final class ToolGraphics
 	 * @param pX2 The x-coordinate of the second point.
 	 * @param pY2 The y-coordinate of the second point.
 	 */
-	public static void strokeSharpLine(GraphicsContext pGraphics, int pX1, int pY1, int pX2, int pY2)
+	public static void strokeSharpLine(DrawingContext pGraphics, int pX1, int pY1, int pX2, int pY2)
 	{
 		pGraphics.strokeLine(pX1 + 0.5, pY1 + 0.5, pX2 + 0.5, pY2 + 0.5);
 	}
@@ -149,7 +144,7 @@ public final class ToolGraphics
 	 * @param pPath The path to stroke
 	 * @param pStyle The line style for the path.
 	 */
-	public static void strokeSharpPath(GraphicsContext pGraphics, Path pPath, LineStyle pStyle)
+	public static void strokeSharpPath(DrawingContext pGraphics, PrimitivePath pPath, LineStyle pStyle)
 	{
 		double[] oldDash = pGraphics.getLineDashes();
 		pGraphics.setLineDashes(pStyle.getLineDashes());
@@ -161,27 +156,38 @@ public final class ToolGraphics
 		pGraphics.setLineWidth(width);
 	}
 	
-	private static void applyPath(GraphicsContext pGraphics, Path pPath)
+	private static void applyPath(DrawingContext pGraphics, PrimitivePath pPath)
 	{
 		pGraphics.beginPath();
-		for(PathElement element : pPath.getElements())
+		int coordinate = 0;
+		for( int i = 0; i < pPath.size(); i++ )
 		{
-			if(element instanceof MoveTo)
+			byte operation = pPath.getOperation(i);
+			if( operation == PrimitivePath.MOVE_TO )
 			{
-				pGraphics.moveTo(((int)((MoveTo) element).getX()) + 0.5, ((int)((MoveTo) element).getY()) + 0.5);
+				pGraphics.moveTo(sharp(pPath.getCoordinate(coordinate)), sharp(pPath.getCoordinate(coordinate + 1)));
 			}
-			else if(element instanceof LineTo)
+			else if( operation == PrimitivePath.LINE_TO )
 			{
-				pGraphics.lineTo(((int)((LineTo) element).getX()) + 0.5, ((int)((LineTo) element).getY()) + 0.5);
+				pGraphics.lineTo(sharp(pPath.getCoordinate(coordinate)), sharp(pPath.getCoordinate(coordinate + 1)));
 			}
-			else if (element instanceof QuadCurveTo)
+			else
 			{
-				QuadCurveTo curve = (QuadCurveTo) element;
-				pGraphics.quadraticCurveTo(((int)curve.getControlX())+0.5, ((int)curve.getControlY()) + 0.5, 
-						((int) curve.getX()) + 0.5, ((int) curve.getY()) + 0.5);
+				pGraphics.quadraticCurveTo(sharp(pPath.getCoordinate(coordinate)), sharp(pPath.getCoordinate(coordinate + 1)), 
+						sharp(pPath.getCoordinate(coordinate + 2)), sharp(pPath.getCoordinate(coordinate + 3)));
 			}
+			coordinate += PrimitivePath.coordinatesFor(operation);
 		}
 	}
+	
+	/*
+	 * Converts a coordinate to an integer and aligns it to the center of the pixel.
+	 */
+	private static double sharp(double pCoordinate)
+	{
+		return ((int) pCoordinate) + 0.5;
+	}
+	
 	/**
 	 * Strokes and fills a path, by converting the elements to integer coordinates and then
 	 * aligning them to the center of the pixels, so that it aligns precisely
@@ -193,7 +199,7 @@ public final class ToolGraphics
 	 * @param pFill The fill color for the path.
 	 * @param pShadow True to include a drop shadow.
 	 */
-	public static void strokeAndFillSharpPath(GraphicsContext pGraphics, Path pPath, Paint pFill, boolean pShadow)
+	public static void strokeAndFillSharpPath(DrawingContext pGraphics, PrimitivePath pPath, Paint pFill, boolean pShadow)
 	{
 		double width = pGraphics.getLineWidth();
 		Paint fill = pGraphics.getFill();
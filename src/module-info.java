@@ -23,8 +23,9 @@ module jetuml {
 	requires javafx.swing;
 	requires java.desktop;
 	requires java.prefs;
+	requires jdk.jfr;
 	requires transitive javafx.graphics;
 	requires static org.junit.jupiter.api;
 	requires static org.junit.jupiter.params;
 	exports ca.mcgill.cs.jetuml;
-}
\ No newline at end of file
+}
\ No newline at end of file
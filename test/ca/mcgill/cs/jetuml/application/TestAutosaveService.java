@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.application.AutosaveService.RecoveredDiagram;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationProcessor;
+import ca.mcgill.cs.jetuml.diagram.builder.SimpleOperation;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.NoteNode;
+
+public class TestAutosaveService
+{
+	private File aDirectory;
+	private Diagram aDiagram;
+	private ClassNode aNode;
+	private DiagramOperationProcessor aProcessor;
+	private AutosaveService aService;
+	
+	@BeforeEach
+	public void setUp() throws IOException
+	{
+		aDirectory = Files.createTempDirectory("autosave").toFile();
+		aDiagram = new Diagram(DiagramType.CLASS);
+		aNode = new ClassNode();
+		aNode.setName("Node");
+		aDiagram.addRootNode(aNode);
+		aProcessor = new DiagramOperationProcessor();
+		aService = new AutosaveService(aDiagram, aDirectory);
+		aService.preferenceChanged(UserPreferences.BooleanPreference.showGrid); // No effect
+		aProcessor.addObserver(aService);
+	}
+	
+	@AfterEach
+	public void tearDown() throws IOException
+	{
+		AutosaveService.flush();
+		for( File file : aDirectory.listFiles() )
+		{
+			Files.delete(file.toPath());
+		}
+		Files.delete(aDirectory.toPath());
+	}
+	
+	private void move(int pX, int pY)
+	{
+		aProcessor.executeNewOperation(new SimpleOperation(()-> aNode.translate(pX, pY), ()-> aNode.translate(-pX, -pY), aNode));
+	}
+	
+	private void addNote()
+	{
+		NoteNode note = new NoteNode();
+		aProcessor.executeNewOperation(new SimpleOperation(()-> aDiagram.addRootNode(note), ()-> aDiagram.removeRootNode(note)));
+	}
+	
+	private Diagram recoverSingle()
+	{
+		AutosaveService.flush();
+		List<RecoveredDiagram> diagrams = AutosaveService.recover(aDirectory);
+		assertEquals(1, diagrams.size());
+		return diagrams.get(0).getDiagram();
+	}
+	
+	private int recoveryFileCount()
+	{
+		return aDirectory.list((pDir, pName) -> pName.endsWith(".jet") || pName.endsWith(".journal")).length;
+	}
+	
+	@Test
+	public void testNothingWrittenUntilChanged()
+	{
+		AutosaveService.flush();
+		assertEquals(0, aDirectory.list().length);
+		assertEquals(0, AutosaveService.recover(aDirectory).size());
+	}
+	
+	@Test
+	public void testTimesAreRecordedInMetrics()
+	{
+		boolean enabled = Metrics.isEnabled();
+		Metrics.setEnabled(true);
+		try
+		{
+			long captures = Metrics.timer(Metrics.AUTOSAVE_CAPTURE).count();
+			long writes = Metrics.timer(Metrics.AUTOSAVE_WRITE).count();
+			move(10, 10);
+			move(5, 0);
+			AutosaveService.flush();
+			assertEquals(captures + 2, Metrics.timer(Metrics.AUTOSAVE_CAPTURE).count());
+			assertEquals(writes + 2, Metrics.timer(Metrics.AUTOSAVE_WRITE).count());
+		}
+		finally
+		{
+			Metrics.setEnabled(enabled);
+		}
+	}
+	
+	@Test
+	public void testSnapshotThenJournal()
+	{
+		move(10, 10);
+		move(5, 0);
+		aProcessor.undoLastExecutedOperation();
+		move(1, 2);
+		Diagram recovered = recoverSingle();
+		assertEquals(1, aService.getSnapshotCount());
+		assertEquals(3, aService.getJournalEntryCount());
+		assertEquals(0, aService.getFailureCount());
+		assertEquals(1, recovered.rootNodes().size());
+		ClassNode node = (ClassNode) recovered.rootNodes().get(0);
+		assertEquals("Node", node.getName());
+		assertEquals(11, node.position().getX());
+		assertEquals(12, node.position().getY());
+	}
+	
+	@Test
+	public void testSnapshotForUndescribedOperation()
+	{
+		move(10, 10);
+		addNote();
+		move(1, 1);
+		Diagram recovered = recoverSingle();
+		assertEquals(2, aService.getSnapshotCount());
+		assertEquals(1, aService.getJournalEntryCount());
+		assertEquals(2, recovered.rootNodes().size());
+		assertEquals(11, recovered.rootNodes().get(0).position().getX());
+	}
+	
+	@Test
+	public void testTruncatedEntryIgnored() throws IOException
+	{
+		move(10, 10);
+		move(1, 1);
+		AutosaveService.flush();
+		Path journal = aDirectory.listFiles((pDir, pName) -> pName.endsWith(".journal"))[0].toPath();
+		Files.write(journal, List.of("{\"removedEdges\":["), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		Diagram recovered = recoverSingle();
+		assertEquals(11, recovered.rootNodes().get(0).position().getX());
+	}
+	
+	@Test
+	public void testDiscard()
+	{
+		move(10, 10);
+		aService.discard();
+		AutosaveService.flush();
+		assertEquals(0, recoveryFileCount());
+		move(1, 1);
+		assertEquals(11, recoverSingle().rootNodes().get(0).position().getX());
+	}
+	
+	@Test
+	public void testDisabled()
+	{
+		UserPreferences preferences = UserPreferences.instance();
+		boolean enabled = preferences.getBoolean(UserPreferences.BooleanPreference.autosave);
+		move(10, 10);
+		try
+		{
+			preferences.setBoolean(UserPreferences.BooleanPreference.autosave, false);
+			aService.preferenceChanged(UserPreferences.BooleanPreference.autosave);
+			move(1, 1);
+			AutosaveService.flush();
+			assertEquals(0, recoveryFileCount());
+		}
+		finally
+		{
+			preferences.setBoolean(UserPreferences.BooleanPreference.autosave, enabled);
+		}
+	}
+	
+	@Test
+	public void testFileRestored()
+	{
+		move(10, 10);
+		AutosaveService.flush();
+		assertFalse(AutosaveService.recover(aDirectory).get(0).getFile().isPresent());
+		File file = new File(aDirectory, "Diagram.class.jet");
+		aService.setFile(file);
+		aService.snapshot();
+		AutosaveService.flush();
+		assertEquals(Optional.of(file.getAbsoluteFile()), AutosaveService.recover(aDirectory).get(0).getFile());
+	}
+	
+	@Test
+	public void testDeleteOnlyRestored()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		AutosaveService service = new AutosaveService(diagram, aDirectory);
+		aService.snapshot();
+		service.snapshot();
+		AutosaveService.flush();
+		List<RecoveredDiagram> diagrams = AutosaveService.recover(aDirectory);
+		assertEquals(2, diagrams.size());
+		diagrams.get(0).delete();
+		assertEquals(2, recoveryFileCount());
+		assertEquals(1, AutosaveService.recover(aDirectory).size());
+	}
+	
+	@Test
+	public void testSessionOfRunningInstanceSkipped() throws IOException
+	{
+		move(10, 10);
+		AutosaveService.flush();
+		Path snapshot = aDirectory.listFiles((pDir, pName) -> pName.endsWith(".jet"))[0].toPath();
+		Files.copy(snapshot, snapshot.resolveSibling("other_diagram.jet"), StandardCopyOption.REPLACE_EXISTING);
+		try( FileChannel channel = FileChannel.open(aDirectory.toPath().resolve("other.lock"), 
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE) )
+		{
+			FileLock lock = channel.tryLock();
+			assertEquals(1, AutosaveService.recover(aDirectory).size());
+			lock.release();
+		}
+		List<RecoveredDiagram> diagrams = AutosaveService.recover(aDirectory);
+		assertEquals(2, diagrams.size());
+		for( RecoveredDiagram diagram : diagrams )
+		{
+			diagram.delete();
+		}
+		assertEquals(0, recoveryFileCount());
+		assertFalse(Files.exists(aDirectory.toPath().resolve("other.lock")));
+	}
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationProcessor;
+import ca.mcgill.cs.jetuml.diagram.builder.SimpleOperation;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.persistence.DeserializationException;
+import ca.mcgill.cs.jetuml.persistence.PersistenceService;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class TestFlightRecorderEvents
+{
+	private Diagram aDiagram;
+	private File aFile;
+	private Recording aRecording;
+	
+	@BeforeEach
+	public void setUp() throws IOException
+	{
+		aDiagram = new Diagram(DiagramType.CLASS);
+		ClassNode node = new ClassNode();
+		node.attach(aDiagram);
+		aDiagram.addRootNode(node);
+		aFile = File.createTempFile("diagram", ".class.jet");
+		aRecording = new Recording();
+		aRecording.enable("jetuml.DiagramOperation");
+		aRecording.enable("jetuml.DiagramFile");
+		aRecording.enable("jetuml.DiagramMigration");
+		aRecording.start();
+	}
+	
+	@AfterEach
+	public void tearDown() throws IOException
+	{
+		aRecording.close();
+		Files.deleteIfExists(aFile.toPath());
+	}
+	
+	private List<RecordedEvent> events(String pName) throws IOException
+	{
+		if( aRecording.getState() == RecordingState.RUNNING )
+		{
+			aRecording.stop();
+		}
+		Path dump = Files.createTempFile("recording", ".jfr");
+		try
+		{
+			aRecording.dump(dump);
+			return RecordingFile.readAllEvents(dump).stream()
+					.filter(pEvent -> pEvent.getEventType().getName().equals(pName))
+					.collect(Collectors.toList());
+		}
+		finally
+		{
+			Files.deleteIfExists(dump);
+		}
+	}
+	
+	@Test
+	public void testFileEvents() throws Exception
+	{
+		PersistenceService.save(aDiagram, aFile);
+		PersistenceService.read(aFile);
+		List<RecordedEvent> events = events("jetuml.DiagramFile");
+		assertEquals(2, events.size());
+		assertTrue(events.get(0).getBoolean("save"));
+		assertFalse(events.get(1).getBoolean("save"));
+		for( RecordedEvent event : events )
+		{
+			assertEquals(aFile.getPath(), event.getString("path"));
+			assertEquals(aFile.length(), event.getLong("size"));
+			assertFalse(event.getBoolean("failed"));
+			assertEquals("ClassDiagram", event.getString("diagramType"));
+			assertEquals(1, event.getInt("rootNodes"));
+			assertEquals(0, event.getInt("edges"));
+		}
+		List<RecordedEvent> migrations = events("jetuml.DiagramMigration");
+		assertEquals(1, migrations.size());
+		assertFalse(migrations.get(0).getBoolean("migrated"));
+	}
+	
+	@Test
+	public void testFailedFileEvents() throws Exception
+	{
+		Files.writeString(aFile.toPath(), "not a diagram");
+		assertThrows(DeserializationException.class, () -> PersistenceService.read(aFile));
+		File missing = new File(aFile.getPath() + ".missing", "diagram.class.jet");
+		assertThrows(IOException.class, () -> PersistenceService.save(aDiagram, missing));
+		List<RecordedEvent> events = events("jetuml.DiagramFile");
+		assertEquals(2, events.size());
+		assertFalse(events.get(0).getBoolean("save"));
+		assertTrue(events.get(0).getBoolean("failed"));
+		assertEquals(null, events.get(0).getString("diagramType"));
+		assertTrue(events.get(1).getBoolean("save"));
+		assertTrue(events.get(1).getBoolean("failed"));
+		assertEquals("ClassDiagram", events.get(1).getString("diagramType"));
+	}
+	
+	@Test
+	public void testOperationEvents() throws IOException
+	{
+		ClassNode node = new ClassNode();
+		DiagramOperationProcessor processor = new DiagramOperationProcessor(aDiagram);
+		processor.executeNewOperation(new SimpleOperation(() -> 
+		{
+			node.attach(aDiagram);
+			aDiagram.addRootNode(node);
+		}, 
+		() -> aDiagram.removeRootNode(node), node));
+		processor.undoLastExecutedOperation();
+		processor.executeNewOperation(new SimpleOperation(() -> {}, () -> {}));
+		List<RecordedEvent> events = events("jetuml.DiagramOperation");
+		assertEquals(3, events.size());
+		assertFalse(events.get(0).getBoolean("undo"));
+		assertEquals(1, events.get(0).getInt("affectedElements"));
+		assertEquals("ClassDiagram", events.get(0).getString("diagramType"));
+		assertTrue(events.get(1).getBoolean("undo"));
+		assertEquals(-1, events.get(2).getInt("affectedElements"));
+		assertEquals("ClassDiagram", events.get(2).getString("diagramType"));
+		assertEquals(1, events.get(2).getInt("rootNodes"));
+	}
+	
+	@Test
+	public void testOperationEventsWithoutDiagram() throws IOException
+	{
+		ClassNode node = new ClassNode();
+		node.attach(aDiagram);
+		DiagramOperationProcessor processor = new DiagramOperationProcessor();
+		processor.executeNewOperation(new SimpleOperation(() -> aDiagram.addRootNode(node), 
+				() -> aDiagram.removeRootNode(node), node));
+		List<RecordedEvent> events = events("jetuml.DiagramOperation");
+		assertEquals(1, events.size());
+		assertEquals(1, events.get(0).getInt("affectedElements"));
+		assertEquals(null, events.get(0).getString("diagramType"));
+	}
+}
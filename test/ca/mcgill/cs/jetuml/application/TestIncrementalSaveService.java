@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationProcessor;
+import ca.mcgill.cs.jetuml.diagram.builder.SimpleOperation;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.NoteNode;
+import ca.mcgill.cs.jetuml.persistence.DeserializationException;
+import ca.mcgill.cs.jetuml.persistence.PersistenceService;
+
+public class TestIncrementalSaveService
+{
+	private boolean aPreference;
+	private File aDirectory;
+	private File aFile;
+	private Diagram aDiagram;
+	private ClassNode aNode;
+	private DiagramOperationProcessor aProcessor;
+	private IncrementalSaveService aService;
+	
+	@BeforeEach
+	public void setUp() throws IOException
+	{
+		aPreference = UserPreferences.instance().getBoolean(BooleanPreference.incrementalSave);
+		UserPreferences.instance().setBoolean(BooleanPreference.incrementalSave, true);
+		aDirectory = Files.createTempDirectory("incremental").toFile();
+		aFile = new File(aDirectory, "diagram.class.jet");
+		aDiagram = new Diagram(DiagramType.CLASS);
+		aNode = new ClassNode();
+		aNode.setName("Node");
+		aDiagram.addRootNode(aNode);
+		aProcessor = new DiagramOperationProcessor();
+		aService = new IncrementalSaveService(aDiagram);
+		aProcessor.addObserver(aService);
+	}
+	
+	@AfterEach
+	public void tearDown() throws IOException
+	{
+		UserPreferences.instance().setBoolean(BooleanPreference.incrementalSave, aPreference);
+		Files.deleteIfExists(PersistenceService.logFileFor(aFile).toPath());
+		Files.deleteIfExists(aFile.toPath());
+		Files.deleteIfExists(aDirectory.toPath());
+	}
+	
+	private void move(int pX, int pY)
+	{
+		aProcessor.executeNewOperation(new SimpleOperation(()-> aNode.translate(pX, pY), ()-> aNode.translate(-pX, -pY), aNode));
+	}
+	
+	private void addNote()
+	{
+		NoteNode note = new NoteNode();
+		aProcessor.executeNewOperation(new SimpleOperation(()-> aDiagram.addRootNode(note), ()-> aDiagram.removeRootNode(note)));
+	}
+	
+	private ClassNode readNode() throws IOException, DeserializationException
+	{
+		Diagram diagram = PersistenceService.read(aFile).diagram();
+		return (ClassNode) diagram.rootNodes().get(0);
+	}
+	
+	@Test
+	public void testFirstSaveWritesEntireDiagram() throws Exception
+	{
+		move(10, 10);
+		aService.save(aFile);
+		assertTrue(aFile.exists());
+		assertFalse(PersistenceService.logFileFor(aFile).exists());
+		assertEquals(0, aService.getLogLength());
+		assertEquals(10, readNode().position().getX());
+	}
+	
+	@Test
+	public void testSaveAppendsToLog() throws Exception
+	{
+		aService.save(aFile);
+		long length = aFile.length();
+		move(10, 10);
+		aService.save(aFile);
+		move(5, 0);
+		aProcessor.undoLastExecutedOperation();
+		move(1, 2);
+		aService.save(aFile);
+		assertEquals(length, aFile.length());
+		assertTrue(PersistenceService.logFileFor(aFile).exists());
+		assertEquals(4, aService.getLogLength());
+		ClassNode node = readNode();
+		assertEquals("Node", node.getName());
+		assertEquals(11, node.position().getX());
+		assertEquals(12, node.position().getY());
+	}
+	
+	@Test
+	public void testCompact() throws Exception
+	{
+		aService.save(aFile);
+		move(10, 10);
+		aService.save(aFile);
+		aService.compact();
+		assertFalse(PersistenceService.logFileFor(aFile).exists());
+		assertEquals(0, aService.getLogLength());
+		assertEquals(10, readNode().position().getX());
+	}
+	
+	@Test
+	public void testUndescribedOperationCompacts() throws Exception
+	{
+		aService.save(aFile);
+		move(10, 10);
+		aService.save(aFile);
+		addNote();
+		aService.save(aFile);
+		assertFalse(PersistenceService.logFileFor(aFile).exists());
+		assertEquals(2, PersistenceService.read(aFile).diagram().rootNodes().size());
+		move(1, 1);
+		aService.save(aFile);
+		assertEquals(1, aService.getLogLength());
+		assertEquals(11, readNode().position().getX());
+	}
+	
+	@Test
+	public void testDisabled() throws Exception
+	{
+		UserPreferences.instance().setBoolean(BooleanPreference.incrementalSave, false);
+		aService.save(aFile);
+		move(10, 10);
+		aService.save(aFile);
+		assertFalse(PersistenceService.logFileFor(aFile).exists());
+		assertEquals(10, readNode().position().getX());
+	}
+	
+	@Test
+	public void testOtherFileCompacts() throws Exception
+	{
+		aService.save(aFile);
+		move(10, 10);
+		File other = new File(aDirectory, "other.class.jet");
+		try
+		{
+			aService.save(other);
+			assertFalse(PersistenceService.logFileFor(other).exists());
+		}
+		finally
+		{
+			Files.deleteIfExists(other.toPath());
+		}
+	}
+	
+	@Test
+	public void testOpenedWithLogCompactsOnFirstSave() throws Exception
+	{
+		aService.save(aFile);
+		move(10, 10);
+		aService.save(aFile);
+		
+		Diagram diagram = PersistenceService.read(aFile).diagram();
+		IncrementalSaveService service = new IncrementalSaveService(diagram);
+		service.diagramOpened(aFile, false);
+		service.save(aFile);
+		assertFalse(PersistenceService.logFileFor(aFile).exists());
+		assertEquals(10, readNode().position().getX());
+	}
+	
+	@Test
+	public void testStaleLogIgnored() throws Exception
+	{
+		aService.save(aFile);
+		move(10, 10);
+		aService.save(aFile);
+		Files.write(aFile.toPath(), new byte[] {' '}, StandardOpenOption.APPEND);
+		assertEquals(0, readNode().position().getX());
+	}
+}
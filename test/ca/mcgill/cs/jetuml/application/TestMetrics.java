@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestMetrics
+{
+	private final Metrics.Counter aCounter = Metrics.counter("test.counter");
+	private final Metrics.Timer aTimer = Metrics.timer("test.timer");
+	
+	@BeforeEach
+	public void setUp()
+	{
+		Metrics.reset();
+		Metrics.setEnabled(true);
+	}
+	
+	@AfterEach
+	public void tearDown()
+	{
+		Metrics.setEnabled(false);
+		Metrics.reset();
+	}
+	
+	@Test
+	public void testRegistration()
+	{
+		assertSame(aCounter, Metrics.counter("test.counter"));
+		assertSame(aTimer, Metrics.timer("test.timer"));
+		assertSame(aCounter, Metrics.counters().get("test.counter"));
+		assertSame(aTimer, Metrics.timers().get("test.timer"));
+	}
+	
+	@Test
+	public void testCounter()
+	{
+		aCounter.increment();
+		aCounter.increment();
+		assertEquals(2, aCounter.count());
+		Metrics.setEnabled(false);
+		aCounter.increment();
+		assertEquals(2, aCounter.count());
+		Metrics.reset();
+		assertEquals(0, aCounter.count());
+	}
+	
+	@Test
+	public void testTimer()
+	{
+		aTimer.record(3000);
+		aTimer.record(5000);
+		assertEquals(2, aTimer.count());
+		assertEquals(8000, aTimer.totalNanos());
+		assertEquals(4000, aTimer.meanNanos());
+		assertEquals(5000, aTimer.lastNanos());
+		long start = aTimer.start();
+		aTimer.stop(start);
+		assertEquals(3, aTimer.count());
+	}
+	
+	@Test
+	public void testTimerDisabled()
+	{
+		Metrics.setEnabled(false);
+		long start = aTimer.start();
+		aTimer.stop(start);
+		assertEquals(0, aTimer.count());
+		assertEquals(0, aTimer.meanNanos());
+		assertEquals(0, aTimer.percentileNanos(0.5));
+	}
+	
+	@Test
+	public void testTimerStartedWhileEnabled()
+	{
+		long start = aTimer.start();
+		Metrics.setEnabled(false);
+		aTimer.stop(start);
+		assertEquals(1, aTimer.count());
+	}
+	
+	@Test
+	public void testPercentiles()
+	{
+		aTimer.record(500); // bucket [0, 1) us
+		for( int i = 0; i < 8; i++ )
+		{
+			aTimer.record(3000); // bucket [2, 4) us
+		}
+		aTimer.record(100_000); // bucket [64, 128) us
+		assertEquals(1000, aTimer.percentileNanos(0));
+		assertEquals(1000, aTimer.percentileNanos(0.1));
+		assertEquals(4000, aTimer.percentileNanos(0.5));
+		assertEquals(4000, aTimer.percentileNanos(0.9));
+		assertEquals(128_000, aTimer.percentileNanos(1));
+		assertTrue(aTimer.percentileNanos(1) >= aTimer.lastNanos());
+	}
+}
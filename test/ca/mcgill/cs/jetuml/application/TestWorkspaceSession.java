@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.application.WorkspaceSession.View;
+
+public class TestWorkspaceSession
+{
+	private static final File CLASS_DIAGRAM = new File("testdata/testPersistenceService.class.jet");
+	private static final File STATE_DIAGRAM = new File("testdata/testPersistenceService.state.jet");
+	
+	private File aFile;
+	
+	@BeforeEach
+	public void setUp() throws IOException
+	{
+		aFile = File.createTempFile("session", ".json");
+	}
+	
+	@AfterEach
+	public void tearDown() throws IOException
+	{
+		Files.deleteIfExists(aFile.toPath());
+	}
+	
+	@Test
+	public void testSaveAndLoad() throws IOException
+	{
+		new WorkspaceSession(Arrays.asList(new View(CLASS_DIAGRAM, 1.25, 0.5, 0), 
+				new View(STATE_DIAGRAM, 1, 0, 1)), 1).save(aFile);
+		WorkspaceSession session = WorkspaceSession.load(aFile);
+		assertEquals(2, session.views().size());
+		assertEquals(1, session.selected());
+		View view = session.views().get(0);
+		assertEquals(CLASS_DIAGRAM.getAbsoluteFile(), view.getFile());
+		assertEquals(1.25, view.getZoom());
+		assertEquals(0.5, view.getHorizontalScroll());
+		assertEquals(0, view.getVerticalScroll());
+		view = session.views().get(1);
+		assertEquals(STATE_DIAGRAM.getAbsoluteFile(), view.getFile());
+		assertEquals(1, view.getZoom());
+		assertEquals(1, view.getVerticalScroll());
+	}
+	
+	@Test
+	public void testMissingFilesDropped() throws IOException
+	{
+		new WorkspaceSession(Arrays.asList(new View(new File("testdata/doesNotExist.class.jet"), 1, 0, 0), 
+				new View(STATE_DIAGRAM, 1, 0, 0)), 1).save(aFile);
+		WorkspaceSession session = WorkspaceSession.load(aFile);
+		assertEquals(1, session.views().size());
+		assertEquals(STATE_DIAGRAM.getAbsoluteFile(), session.views().get(0).getFile());
+		assertEquals(0, session.selected());
+		
+		new WorkspaceSession(Arrays.asList(new View(new File("testdata/doesNotExist.class.jet"), 1, 0, 0), 
+				new View(STATE_DIAGRAM, 1, 0, 0)), 0).save(aFile);
+		assertEquals(-1, WorkspaceSession.load(aFile).selected());
+	}
+	
+	@Test
+	public void testEmptySession() throws IOException
+	{
+		new WorkspaceSession(Collections.emptyList(), -1).save(aFile);
+		WorkspaceSession session = WorkspaceSession.load(aFile);
+		assertTrue(session.views().isEmpty());
+		assertEquals(-1, session.selected());
+	}
+	
+	@Test
+	public void testLoadCorruptOrMissing() throws IOException
+	{
+		Files.write(aFile.toPath(), "{\"tabs\":[{\"file\":3}]".getBytes(StandardCharsets.UTF_8));
+		assertTrue(WorkspaceSession.load(aFile).views().isEmpty());
+		WorkspaceSession.clear(aFile);
+		assertFalse(aFile.exists());
+		assertTrue(WorkspaceSession.load(aFile).views().isEmpty());
+	}
+}
@@ -125,6 +125,20 @@ public class TestControlFlow
 		aDiagramAccessor.connectAndAdd(aCallEdge3, aCall2, aCall5);
 	}
 	
+	@Test
+	public void testSnapshot()
+	{
+		ControlFlow snapshot = ControlFlow.snapshot(aDiagram);
+		for( CallNode node : new CallNode[] {aCall1, aCall2, aCall3, aCall4, aCall5})
+		{
+			assertEquals(aFlow.getCaller(node), snapshot.getCaller(node));
+			assertEquals(aFlow.getCallees(node), snapshot.getCallees(node));
+			assertEquals(aFlow.isConstructorExecution(node), snapshot.isConstructorExecution(node));
+			assertEquals(aFlow.getNestingDepth(node), snapshot.getNestingDepth(node));
+		}
+		assertFalse(snapshot.isConstructorExecution(aParameter2));
+	}
+	
 	@Test
 	public void testGetCallerNoCaller()
 	{
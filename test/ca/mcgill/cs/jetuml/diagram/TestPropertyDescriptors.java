@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.diagram;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.NoteNode;
+
+public class TestPropertyDescriptors
+{
+	private PropertyDescriptors aDescriptors;
+	private NoteNode aNode;
+	
+	@BeforeEach
+	public void setup()
+	{
+		aDescriptors = new PropertyDescriptors();
+		aNode = new NoteNode();
+	}
+	
+	@Test
+	public void testEmpty()
+	{
+		assertEquals(0, aDescriptors.size());
+		assertEquals(-1, aDescriptors.indexOf("name"));
+	}
+	
+	@Test
+	public void testAdd()
+	{
+		aDescriptors.add(NoteNode.class, "name", NoteNode::getName, (pNode, pName) -> pNode.setName((String) pName));
+		assertEquals(1, aDescriptors.size());
+		assertEquals("name", aDescriptors.getName(0));
+		assertTrue(aDescriptors.isVisible(0));
+		assertEquals(0, aDescriptors.indexOf("name"));
+		aDescriptors.set(aNode, 0, "Foo");
+		assertEquals("Foo", aNode.getName());
+		assertEquals("Foo", aDescriptors.get(aNode, 0));
+	}
+	
+	@Test
+	public void testAddInvisible()
+	{
+		aDescriptors.addInvisible(NoteNode.class, "x", pNode -> pNode.position().getX(), (pNode, pX) -> {});
+		assertFalse(aDescriptors.isVisible(0));
+	}
+	
+	@Test
+	public void testAddDuplicate()
+	{
+		aDescriptors.add(NoteNode.class, "name", NoteNode::getName, (pNode, pName) -> pNode.setName((String) pName));
+		aDescriptors.add(NoteNode.class, "name", pNode -> "X", (pNode, pName) -> {});
+		assertEquals(1, aDescriptors.size());
+		aNode.setName("Foo");
+		assertEquals("Foo", aDescriptors.get(aNode, 0));
+	}
+	
+	@Test
+	public void testAddAt()
+	{
+		aDescriptors.add(NoteNode.class, "a", pNode -> "A", (pNode, pValue) -> {});
+		aDescriptors.add(NoteNode.class, "b", pNode -> "B", (pNode, pValue) -> {});
+		aDescriptors.addAt(NoteNode.class, "c", pNode -> "C", (pNode, pValue) -> {}, 1);
+		assertEquals("a", aDescriptors.getName(0));
+		assertEquals("c", aDescriptors.getName(1));
+		assertEquals("b", aDescriptors.getName(2));
+		assertEquals(0, aDescriptors.indexOf("a"));
+		assertEquals(1, aDescriptors.indexOf("c"));
+		assertEquals(2, aDescriptors.indexOf("b"));
+		assertEquals("B", aDescriptors.get(aNode, 2));
+	}
+	
+	@Test
+	public void testSharedByClass()
+	{
+		assertSame(new ClassNode().propertyDescriptors(), new ClassNode().propertyDescriptors());
+		assertNotSame(new ClassNode().propertyDescriptors(), aNode.propertyDescriptors());
+	}
+	
+	@Test
+	public void testElementAccess()
+	{
+		ClassNode node = new ClassNode();
+		PropertyDescriptors descriptors = node.propertyDescriptors();
+		node.setAttributes("foo");
+		assertEquals("foo", node.getPropertyValue(descriptors.indexOf("attributes")));
+		node.setPropertyValue(descriptors.indexOf("name"), "Bar");
+		assertEquals("Bar", node.getName());
+		node.setPropertyValue(descriptors.indexOf("x"), 10);
+		assertEquals(10, node.position().getX());
+	}
+	
+	@Test
+	public void testClone()
+	{
+		ClassNode node = new ClassNode();
+		ClassNode clone = (ClassNode) node.clone();
+		int name = node.propertyDescriptors().indexOf("name");
+		clone.setPropertyValue(name, "Clone");
+		assertEquals("", node.getPropertyValue(name));
+		assertEquals("Clone", clone.getPropertyValue(name));
+		assertEquals("Clone", clone.properties().get("name").get());
+	}
+}
@@ -23,11 +23,14 @@ package ca.mcgill.cs.jetuml.diagram.builder;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+
 public class TestCompoundOperation
 {
 	private StringBuilder aBuilder;
@@ -136,4 +139,19 @@ public class TestCompoundOperation
 		aOperation.add(new SimpleOperation(()-> aBuilder.append("A"), ()->aBuilder.append("1")));
 		assertFalse(aOperation.isEmpty());
 	}
+	
+	@Test
+	public void testAffectedElements()
+	{
+		assertEquals(0, aOperation.getAffectedElements().get().size());
+		ClassNode node1 = new ClassNode();
+		ClassNode node2 = new ClassNode();
+		aOperation.add(new SimpleOperation(()-> {}, ()-> {}, node1));
+		aOperation.add(new SimpleOperation(()-> {}, ()-> {}, node2));
+		assertEquals(2, aOperation.getAffectedElements().get().size());
+		assertSame(node1, aOperation.getAffectedElements().get().get(0));
+		assertSame(node2, aOperation.getAffectedElements().get().get(1));
+		aOperation.add(new SimpleOperation(()-> {}, ()-> {}));
+		assertFalse(aOperation.getAffectedElements().isPresent());
+	}
 }
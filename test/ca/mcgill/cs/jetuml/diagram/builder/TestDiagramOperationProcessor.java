@@ -280,4 +280,35 @@ public class TestDiagramOperationProcessor
 		aProcessor.redoLastUndoneOperation();
 		assertFalse(aProcessor.hasUnsavedOperations());
 	}
+	
+	@Test
+	public void testObservers()
+	{
+		StringBuilder log = new StringBuilder();
+		DiagramOperationObserver observer = new DiagramOperationObserver()
+		{
+			@Override
+			public void operationExecuted(DiagramOperation pOperation)
+			{
+				log.append("E" + aBuilder.toString());
+			}
+
+			@Override
+			public void operationUndone(DiagramOperation pOperation)
+			{
+				log.append("U" + aBuilder.toString());
+			}
+		};
+		aProcessor.addObserver(observer);
+		aProcessor.executeNewOperation(createOperation('A'));
+		aProcessor.executeNewOperation(createOperation('B'));
+		aProcessor.undoLastExecutedOperation();
+		aProcessor.redoLastUndoneOperation();
+		aBuilder.append('C');
+		aProcessor.storeAlreadyExecutedOperation(createOperation('C'));
+		assertEquals("EAEABUAEABEABC", log.toString());
+		aProcessor.removeObserver(observer);
+		aProcessor.undoLastExecutedOperation();
+		assertEquals("EAEABUAEABEABC", log.toString());
+	}
 }
@@ -22,9 +22,17 @@
 package ca.mcgill.cs.jetuml.diagram.builder;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+
 public class TestSimpleOperation
 {
 	private class Box
@@ -43,4 +51,22 @@ public class TestSimpleOperation
 		operation.undo();
 		assertEquals(2, box.aValue);
 	}
+	
+	@Test
+	public void testAffectedElementsUnknown()
+	{
+		assertFalse(new SimpleOperation( ()-> {}, ()-> {}).getAffectedElements().isPresent());
+	}
+	
+	@Test
+	public void testAffectedElements()
+	{
+		ClassNode node = new ClassNode();
+		DependencyEdge edge = new DependencyEdge();
+		SimpleOperation operation = new SimpleOperation( ()-> {}, ()-> {}, node, edge);
+		List<DiagramElement> elements = operation.getAffectedElements().get();
+		assertEquals(2, elements.size());
+		assertSame(node, elements.get(0));
+		assertSame(edge, elements.get(1));
+	}
 }
@@ -83,14 +83,15 @@ public class TestActorNode
 	}
 	
 	/*
-	 * The position should be a clone
+	 * The position is immutable and shared, but moving the clone
+	 * must not move the original
 	 */
 	@Test
 	public void testClone_OfPosition()
 	{
 		ActorNode clone = (ActorNode) aNode.clone();
-		assertNotSame(aNode.position(), clone.position());
-		clone.position().setX(100);
+		assertEquals(aNode.position(), clone.position());
+		clone.translate(100, 0);
 		assertNotEquals(100, aNode.position().getX());
 	}
 	
@@ -21,6 +21,7 @@
 package ca.mcgill.cs.jetuml.diagram.nodes;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 
@@ -166,4 +167,24 @@ public class TestObjectNode
 		assertEquals( 1, aObject1.getChildren().size());
 		assertEquals( aField2, aObject1.getChildren().get(0));
 	}
+	
+	@Test
+	public void testGetFieldsRevision()
+	{
+		int revision = aObject1.getFieldsRevision();
+		aObject1.addChild(aField1);
+		assertNotEquals(revision, aObject1.getFieldsRevision());
+		revision = aObject1.getFieldsRevision();
+		aField1.setName("x");
+		assertNotEquals(revision, aObject1.getFieldsRevision());
+		revision = aObject1.getFieldsRevision();
+		aField1.properties().get("value").set("y");
+		assertNotEquals(revision, aObject1.getFieldsRevision());
+		revision = aObject1.getFieldsRevision();
+		aObject1.translate(10, 10);
+		aField2.setName("z");
+		assertEquals(revision, aObject1.getFieldsRevision());
+		aObject1.removeChild(aField1);
+		assertNotEquals(revision, aObject1.getFieldsRevision());
+	}
 }
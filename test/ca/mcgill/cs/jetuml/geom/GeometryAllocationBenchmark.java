@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.geom;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the number of bytes allocated by the geometry operations used 
+ * in the routing and bounds computation loops. This is not a unit test: run 
+ * it as an application, optionally with the number of iterations as argument.
+ * Requires a JVM that supports thread allocation accounting. Run with 
+ * -XX:-DoEscapeAnalysis to count the allocations that the JIT compiler 
+ * removes in this isolated setting but not in the viewers.
+ */
+public final class GeometryAllocationBenchmark
+{
+	private static final int DEFAULT_ITERATIONS = 1000000;
+	private static final Rectangle RECTANGLE = new Rectangle(10, 20, 100, 60);
+	private static final Point INSIDE = new Point(50, 50);
+	
+	private static int aSink;
+	
+	private GeometryAllocationBenchmark() {}
+	
+	/**
+	 * @param pArgs The number of iterations, optional.
+	 */
+	public static void main(String[] pArgs)
+	{
+		int iterations = pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : DEFAULT_ITERATIONS;
+		System.out.println(String.format("%-40s %12s", "Operation", "Bytes/op"));
+		report("Rectangle.getCenter().getX()", iterations, () -> aSink += RECTANGLE.getCenter().getX());
+		report("Rectangle.getCenterX()", iterations, () -> aSink += RECTANGLE.getCenterX());
+		report("Rectangle.add(contained point)", iterations, () -> aSink += RECTANGLE.add(INSIDE).getWidth());
+		report("Rectangle.add(contained rectangle)", iterations, () -> aSink += RECTANGLE.add(RECTANGLE).getWidth());
+		report("Rectangle.translated(0, 0)", iterations, () -> aSink += RECTANGLE.translated(0, 0).getX());
+		report("Rectangle.translated(1, 1)", iterations, () -> aSink += RECTANGLE.translated(1, 1).getX());
+		report("Point.translated(0, 0)", iterations, () -> aSink += INSIDE.translated(0, 0).getX());
+		report("Conversions.toPoint(toPoint2D(...))", iterations, 
+				() -> aSink += Conversions.toPoint(Conversions.toPoint2D(INSIDE)).getX());
+	}
+	
+	private static void report(String pName, int pIterations, Runnable pOperation)
+	{
+		System.out.println(String.format("%-40s %12.2f", pName, allocated(pIterations, pOperation)));
+	}
+	
+	/*
+	 * Returns the average number of bytes allocated by a run, after an equal number of warm-up runs.
+	 */
+	private static double allocated(int pIterations, Runnable pOperation)
+	{
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		for( int i = 0; i < pIterations; i++ )
+		{
+			pOperation.run();
+		}
+		long start = bean.getThreadAllocatedBytes(thread);
+		for( int i = 0; i < pIterations; i++ )
+		{
+			pOperation.run();
+		}
+		return (bean.getThreadAllocatedBytes(thread) - start) / (double) pIterations;
+	}
+}
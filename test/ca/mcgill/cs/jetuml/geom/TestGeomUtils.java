@@ -23,13 +23,62 @@ package ca.mcgill.cs.jetuml.geom;
 
 import static ca.mcgill.cs.jetuml.geom.GeomUtils.max;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
+import javafx.scene.shape.Arc;
+import javafx.scene.shape.ArcType;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.Shape;
+
 public class TestGeomUtils
 {
 	private static final Rectangle aRectangle = new Rectangle(0,0, 60, 40);
 	private static final Rectangle aSquare = new Rectangle(0,0, 20, 20);
+	private static final int STROKE_WIDTH = 6;
+	
+	/*
+	 * Checks that strokeContains agrees with stroking the same scene-graph path
+	 * on all the points around the path, except for points within pTolerance 
+	 * of the boundary of the scene-graph stroke, whose geometry is approximated.
+	 */
+	private static void assertSameStrokeContains(PrimitivePath pPath, double pTolerance)
+	{
+		Path path = TestPrimitivePath.toPath(pPath);
+		path.setStrokeWidth(STROKE_WIDTH);
+		Rectangle bounds = pPath.getBounds();
+		for( int x = bounds.getX() - STROKE_WIDTH; x <= bounds.getMaxX() + STROKE_WIDTH; x++ )
+		{
+			for( int y = bounds.getY() - STROKE_WIDTH; y <= bounds.getMaxY() + STROKE_WIDTH; y++ )
+			{
+				boolean expected = path.contains(x, y);
+				if( expected != GeomUtils.strokeContains(pPath, STROKE_WIDTH, new Point(x, y)) )
+				{
+					assertTrue(isNearBoundary(path, x, y, pTolerance), String.format("(%d, %d) in %s", x, y, path));
+				}
+			}
+		}
+	}
+	
+	private static boolean isNearBoundary(Shape pShape, int pX, int pY, double pTolerance)
+	{
+		boolean inside = pShape.contains(pX, pY);
+		for( double dx = -pTolerance; dx <= pTolerance; dx += pTolerance )
+		{
+			for( double dy = -pTolerance; dy <= pTolerance; dy += pTolerance )
+			{
+				if( pShape.contains(pX + dx, pY + dy) != inside )
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
 	
 	@Test
 	public void testMaxBottom()
@@ -288,4 +337,139 @@ public class TestGeomUtils
 	{
 		assertEquals(new Point(3,3), GeomUtils.intersectRoundedRectangle(aRectangle, Direction.fromAngle(305)));
 	}
+	
+	@Test
+	void testStrokeContainsLine()
+	{
+		PrimitivePath path = new PrimitivePath().moveTo(10, 100).lineTo(50, 100);
+		assertTrue(GeomUtils.strokeContains(path, STROKE_WIDTH, new Point(30, 100)));
+		assertTrue(GeomUtils.strokeContains(path, STROKE_WIDTH, new Point(30, 97)));
+		assertFalse(GeomUtils.strokeContains(path, STROKE_WIDTH, new Point(30, 103)));
+		assertTrue(GeomUtils.strokeContains(path, STROKE_WIDTH, new Point(7, 97))); // Square cap
+		assertFalse(GeomUtils.strokeContains(path, STROKE_WIDTH, new Point(6, 100)));
+		assertTrue(GeomUtils.strokeContains(path, STROKE_WIDTH, new Point(52, 102)));
+		assertFalse(GeomUtils.strokeContains(path, STROKE_WIDTH, new Point(53, 100)));
+		assertFalse(GeomUtils.strokeContains(new PrimitivePath().moveTo(10, 100), STROKE_WIDTH, new Point(10, 100)));
+		assertSameStrokeContains(path, 0);
+		assertSameStrokeContains(new PrimitivePath().moveTo(0, 0).lineTo(100, 30), 0.01);
+		assertSameStrokeContains(new PrimitivePath().moveTo(10, 10).lineTo(10, 10), 0);
+	}
+	
+	@Test
+	void testStrokeContainsJoins()
+	{
+		PrimitivePath path = new PrimitivePath().moveTo(10, 100).lineTo(50, 100).lineTo(50, 130);
+		assertTrue(GeomUtils.strokeContains(path, STROKE_WIDTH, new Point(52, 97))); // Mitered corner
+		assertFalse(GeomUtils.strokeContains(path, STROKE_WIDTH, new Point(53, 97)));
+		assertSameStrokeContains(path, 0);
+		assertSameStrokeContains(new PrimitivePath().moveTo(0, 0).lineTo(100, 0).lineTo(0, 30), 0.01); // Mitered
+		assertSameStrokeContains(new PrimitivePath().moveTo(0, 0).lineTo(100, 0).lineTo(0, 10), 0.01); // Beveled
+		assertSameStrokeContains(new PrimitivePath().moveTo(0, 0).lineTo(100, 0).lineTo(0, 0), 0.01); // Reversed
+		assertSameStrokeContains(new PrimitivePath().moveTo(10, 10).lineTo(10, 10).lineTo(30, 50), 0.01);
+	}
+	
+	@Test
+	void testStrokeContainsArrowHeads()
+	{
+		assertSameStrokeContains(new PrimitivePath().moveTo(50, 50).lineTo(41, 45).lineTo(41, 55).lineTo(50, 50), 0.01);
+		assertSameStrokeContains(new PrimitivePath().moveTo(50, 50).lineTo(41, 45).moveTo(41, 55).lineTo(50, 50), 0.01);
+	}
+	
+	@Test
+	void testStrokeContainsRandomSegmentedPaths()
+	{
+		Random random = new Random(0);
+		for( int i = 0; i < 50; i++ )
+		{
+			int x = random.nextInt(100);
+			int y = random.nextInt(100);
+			PrimitivePath path = new PrimitivePath().moveTo(x, y);
+			for( int j = 0; j < 4; j++ )
+			{
+				if( j % 2 == 0 )
+				{
+					x = random.nextInt(100);
+				}
+				else
+				{
+					y = random.nextInt(100);
+				}
+				path.lineTo(x, y);
+			}
+			assertSameStrokeContains(path, 0);
+		}
+	}
+	
+	@Test
+	void testStrokeContainsRandomPolylines()
+	{
+		Random random = new Random(0);
+		for( int i = 0; i < 50; i++ )
+		{
+			PrimitivePath path = new PrimitivePath().moveTo(random.nextInt(100), random.nextInt(100));
+			for( int j = 0; j < 4; j++ )
+			{
+				path.lineTo(random.nextInt(100), random.nextInt(100));
+			}
+			assertSameStrokeContains(path, 0.01);
+		}
+	}
+	
+	/*
+	 * Curves shaped like the ones of state transitions, bent by 10 or 20 degrees
+	 * at each end.
+	 */
+	@Test
+	void testStrokeContainsRandomCurves()
+	{
+		Random random = new Random(0);
+		for( int i = 0; i < 50; i++ )
+		{
+			int x1 = random.nextInt(200);
+			int y1 = random.nextInt(200);
+			int x2 = random.nextInt(200);
+			int y2 = random.nextInt(200);
+			double tangent = Math.tan(Math.toRadians(i % 2 == 0 ? 10 : 20));
+			PrimitivePath path = new PrimitivePath().moveTo(x1, y1).quadTo((x1 + x2) / 2.0 + tangent * (y2 - y1) / 2, 
+					(y1 + y2) / 2.0 - tangent * (x2 - x1) / 2, x2, y2);
+			assertSameStrokeContains(path, 0.05);
+		}
+	}
+	
+	@Test
+	void testArcContains()
+	{
+		assertTrue(GeomUtils.arcContains(100, 100, 36, 270, 270, new Point(100, 100)));
+		assertFalse(GeomUtils.arcContains(100, 100, 36, 270, 270, new Point(136, 100)));
+		assertTrue(GeomUtils.arcContains(100, 100, 36, 270, 270, new Point(135, 100)));
+		assertTrue(GeomUtils.arcContains(100, 100, 36, 270, 270, new Point(100, 65)));
+		assertFalse(GeomUtils.arcContains(100, 100, 36, 270, 270, new Point(75, 120))); // Beyond the chord
+		assertTrue(GeomUtils.arcContains(100, 100, 36, 270, 270, new Point(82, 118))); // On the chord
+		assertTrue(GeomUtils.arcContains(100, 100, 36, 0, 360, new Point(75, 120)));
+		assertFalse(GeomUtils.arcContains(100, 100, 36, 0, 90, new Point(99, 99)));
+		assertTrue(GeomUtils.arcContains(100, 100, 36, 0, 90, new Point(120, 80)));
+	}
+	
+	@Test
+	void testArcContainsRandomArcs()
+	{
+		Random random = new Random(0);
+		for( int i = 0; i < 50; i++ )
+		{
+			int centerX = random.nextInt(100);
+			int centerY = random.nextInt(100);
+			int[] starts = { 270, 1, random.nextInt(360) };
+			double start = starts[i % starts.length];
+			double extent = i % 2 == 0 ? 270 : 1 + random.nextInt(359);
+			Arc arc = new Arc(centerX, centerY, 36, 36, start, extent);
+			arc.setType(ArcType.OPEN);
+			for( int x = centerX - 40; x <= centerX + 40; x++ )
+			{
+				for( int y = centerY - 40; y <= centerY + 40; y++ )
+				{
+					assertEquals(arc.contains(x, y), GeomUtils.arcContains(centerX, centerY, 36, start, extent, new Point(x, y)));
+				}
+			}
+		}
+	}
 }
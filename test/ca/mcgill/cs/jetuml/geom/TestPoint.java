@@ -22,6 +22,7 @@ package ca.mcgill.cs.jetuml.geom;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
@@ -57,6 +58,14 @@ public class TestPoint
 		assertEquals( point.getY(), clone.getY());
 	}
 	
+	@Test
+	public void testTranslated()
+	{
+		assertSame(ONE, ONE.translated(0, 0));
+		assertEquals(new Point(3,-1), ONE.translated(2, -2));
+		assertEquals(new Point(1,1), ONE);
+	}
+	
 	@Test
 	public void testHashCode()
 	{
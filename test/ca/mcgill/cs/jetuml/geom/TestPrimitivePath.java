@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.geom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.QuadCurveTo;
+
+public class TestPrimitivePath
+{
+	/*
+	 * Builds the same path with scene-graph elements, whose geometry
+	 * is the reference for the geometry of primitive paths.
+	 */
+	static Path toPath(PrimitivePath pPath)
+	{
+		Path path = new Path();
+		int coordinate = 0;
+		for( int i = 0; i < pPath.size(); i++ )
+		{
+			byte operation = pPath.getOperation(i);
+			if( operation == PrimitivePath.MOVE_TO )
+			{
+				path.getElements().add(new MoveTo(pPath.getCoordinate(coordinate), pPath.getCoordinate(coordinate + 1)));
+			}
+			else if( operation == PrimitivePath.LINE_TO )
+			{
+				path.getElements().add(new LineTo(pPath.getCoordinate(coordinate), pPath.getCoordinate(coordinate + 1)));
+			}
+			else
+			{
+				path.getElements().add(new QuadCurveTo(pPath.getCoordinate(coordinate), pPath.getCoordinate(coordinate + 1), 
+						pPath.getCoordinate(coordinate + 2), pPath.getCoordinate(coordinate + 3)));
+			}
+			coordinate += PrimitivePath.coordinatesFor(operation);
+		}
+		return path;
+	}
+	
+	private static void assertSameBounds(PrimitivePath pPath)
+	{
+		assertEquals(Conversions.toRectangle(toPath(pPath).getBoundsInLocal()), pPath.getBounds());
+	}
+	
+	@Test
+	public void testEmpty()
+	{
+		PrimitivePath path = new PrimitivePath();
+		assertEquals(0, path.size());
+		assertEquals(new Rectangle(0, 0, 0, 0), path.getBounds());
+		assertEquals(-1, path.getWidth());
+		path.moveTo(10, 10);
+		assertEquals(new Rectangle(0, 0, 0, 0), path.getBounds());
+	}
+	
+	@Test
+	public void testOperations()
+	{
+		PrimitivePath path = new PrimitivePath().moveTo(1, 2).lineTo(3, 4).quadTo(5, 6, 7, 8);
+		assertEquals(3, path.size());
+		assertEquals(PrimitivePath.MOVE_TO, path.getOperation(0));
+		assertEquals(PrimitivePath.LINE_TO, path.getOperation(1));
+		assertEquals(PrimitivePath.QUAD_TO, path.getOperation(2));
+		for( int i = 0; i < 8; i++ )
+		{
+			assertEquals(i + 1, path.getCoordinate(i));
+		}
+	}
+	
+	@Test
+	public void testAppend()
+	{
+		PrimitivePath path = new PrimitivePath().moveTo(0, 0).lineTo(10, 0);
+		PrimitivePath other = new PrimitivePath().moveTo(20, 20);
+		for( int i = 0; i < 20; i++ )
+		{
+			other.lineTo(i, 30);
+		}
+		path.append(other).append(new PrimitivePath());
+		assertEquals(23, path.size());
+		assertEquals(PrimitivePath.MOVE_TO, path.getOperation(2));
+		assertEquals(20, path.getCoordinate(4));
+		assertEquals(30, path.getCoordinate(45));
+		assertSameBounds(path);
+	}
+	
+	@Test
+	public void testBoundsLines()
+	{
+		assertEquals(new Rectangle(-1, -1, 102, 2), new PrimitivePath().moveTo(0, 0).lineTo(100, 0).getBounds());
+		assertSameBounds(new PrimitivePath().moveTo(0, 0).lineTo(100, 100));
+		assertSameBounds(new PrimitivePath().moveTo(0, 0).lineTo(100, 0).lineTo(100, 50));
+		assertSameBounds(new PrimitivePath().moveTo(0, 0).lineTo(100, 0).lineTo(0, 10)); // Beveled
+		assertSameBounds(new PrimitivePath().moveTo(0, 0).lineTo(100, 0).lineTo(0, 30)); // Mitered
+		assertSameBounds(new PrimitivePath().moveTo(0, 0).lineTo(10, 0).moveTo(50, 50).lineTo(60, 70));
+		assertSameBounds(new PrimitivePath().moveTo(10, 10).lineTo(10, 10));
+		assertSameBounds(new PrimitivePath().moveTo(10, 10).lineTo(10, 10).lineTo(30, 50));
+	}
+	
+	@Test
+	public void testBoundsCurves()
+	{
+		assertEquals(new Rectangle(-1, -1, 102, 27), new PrimitivePath().moveTo(0, 0).quadTo(50, 50, 100, 0).getBounds());
+		assertSameBounds(new PrimitivePath().moveTo(0, 0).quadTo(0, 0, 100, 20));
+		assertSameBounds(new PrimitivePath().moveTo(0, 0).quadTo(100, 20, 100, 20));
+		assertSameBounds(new PrimitivePath().moveTo(0, 0).lineTo(10, 0).quadTo(30, 0, 30, 20).quadTo(30, 40, 10, 40));
+	}
+	
+	@Test
+	public void testBoundsArrowHeads()
+	{
+		assertSameBounds(new PrimitivePath().moveTo(50, 50).lineTo(41, 45).lineTo(41, 55).lineTo(50, 50));
+		assertSameBounds(new PrimitivePath().moveTo(50, 50).lineTo(41, 45).moveTo(41, 55).lineTo(50, 50));
+		assertEquals(toPath(new PrimitivePath().moveTo(50, 50).lineTo(41, 45)).getBoundsInLocal().getWidth(), 
+				new PrimitivePath().moveTo(50, 50).lineTo(41, 45).getWidth());
+	}
+	
+	@Test
+	public void testBoundsRandomPolylines()
+	{
+		Random random = new Random(0);
+		for( int i = 0; i < 1000; i++ )
+		{
+			PrimitivePath path = new PrimitivePath().moveTo(random.nextInt(200), random.nextInt(200));
+			for( int j = 0; j < 4; j++ )
+			{
+				path.lineTo(random.nextInt(200), random.nextInt(200));
+			}
+			assertSameBounds(path);
+		}
+	}
+	
+	@Test
+	public void testBoundsRandomSegmentedPaths()
+	{
+		Random random = new Random(0);
+		for( int i = 0; i < 1000; i++ )
+		{
+			int x = random.nextInt(200);
+			int y = random.nextInt(200);
+			PrimitivePath path = new PrimitivePath().moveTo(x, y);
+			for( int j = 0; j < 4; j++ )
+			{
+				if( j % 2 == 0 )
+				{
+					x = random.nextInt(200);
+				}
+				else
+				{
+					y = random.nextInt(200);
+				}
+				path.lineTo(x, y);
+			}
+			assertSameBounds(path);
+		}
+	}
+	
+	@Test
+	public void testBoundsRandomPaths()
+	{
+		Random random = new Random(0);
+		for( int i = 0; i < 1000; i++ )
+		{
+			PrimitivePath path = new PrimitivePath().moveTo(random.nextDouble() * 200, random.nextDouble() * 200);
+			for( int j = 0; j < 4; j++ )
+			{
+				int choice = random.nextInt(4);
+				if( choice == 0 )
+				{
+					path.quadTo(random.nextInt(200), random.nextInt(200), random.nextInt(200), random.nextInt(200));
+				}
+				else if( choice == 1 )
+				{
+					path.moveTo(random.nextInt(200), random.nextInt(200));
+				}
+				else
+				{
+					path.lineTo(random.nextDouble() * 200, random.nextInt(200));
+				}
+			}
+			path.lineTo(random.nextInt(200), random.nextInt(200));
+			assertSameBounds(path);
+		}
+	}
+}
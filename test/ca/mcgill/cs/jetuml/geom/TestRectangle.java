@@ -22,6 +22,7 @@ package ca.mcgill.cs.jetuml.geom;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
@@ -114,4 +115,30 @@ public class TestRectangle
 		rectangle = rectangle.add( new Rectangle(0,0,20,20));
 		assertEquals( new Rectangle(0,0,20,20), rectangle);
 	}
+	
+	@Test
+	public void testAddContained()
+	{
+		assertSame(RECTANGLE_1, RECTANGLE_1.add(new Point(30,20)));
+		assertSame(RECTANGLE_1, RECTANGLE_1.add(new Point(60,40)));
+		assertSame(RECTANGLE_1, RECTANGLE_1.add(new Rectangle(10,10,20,20)));
+		assertSame(RECTANGLE_1, RECTANGLE_1.add(RECTANGLE_1));
+	}
+	
+	@Test
+	public void testTranslatedByZero()
+	{
+		assertSame(RECTANGLE_1, RECTANGLE_1.translated(0, 0));
+	}
+	
+	@Test
+	public void testGetCenterXY()
+	{
+		assertEquals(RECTANGLE_1.getCenter().getX(), RECTANGLE_1.getCenterX());
+		assertEquals(RECTANGLE_1.getCenter().getY(), RECTANGLE_1.getCenterY());
+		assertEquals(100, RECTANGLE_2.getCenterX());
+		assertEquals(20, RECTANGLE_2.getCenterY());
+		assertEquals(35, RECTANGLE_1.translated(5, -5).getCenterX());
+		assertEquals(15, RECTANGLE_1.translated(5, -5).getCenterY());
+	}
 }
@@ -295,4 +295,19 @@ public class TestViewportProjection
 		assertEquals(0.152, projection.getAdjustedVValueToRevealY(464), 0.001);
 	}
 	
+	@Test
+	public void testGetValuesToCenter()
+	{
+		ViewportProjection projection = new ViewportProjection(500, 200, 1000, 1000, 0.3, 0.7);
+		assertEquals(0.5, projection.getHValueToCenterX(500), 0.0);
+		assertEquals(0.5, projection.getVValueToCenterY(500), 0.0);
+		assertEquals(0.1, projection.getHValueToCenterX(300), 0.0001);
+		assertEquals(0.0, projection.getHValueToCenterX(100), 0.0);
+		assertEquals(1.0, projection.getHValueToCenterX(900), 0.0);
+		assertEquals(0.0, projection.getVValueToCenterY(0), 0.0);
+		assertEquals(1.0, projection.getVValueToCenterY(1000), 0.0);
+		projection = new ViewportProjection(1000, 1000, 1000, 1000, 0.3, 0.7);
+		assertEquals(0.3, projection.getHValueToCenterX(200), 0.0);
+		assertEquals(0.7, projection.getVValueToCenterY(200), 0.0);
+	}
 }
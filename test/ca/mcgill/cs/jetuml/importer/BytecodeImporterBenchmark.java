@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
+import javafx.application.Platform;
+import javafx.scene.control.Control;
+
+/**
+ * Measures the throughput of the import of compiled classes, in classes
+ * per second, with one worker thread and with one per processor. By default, 
+ * the classes are those of the JavaFX controls, in their JAR file or directory. 
+ * Each measure is preceded by a run to warm up the virtual machine. This is 
+ * not a unit test: run it as an application, optionally with a JAR file or a 
+ * directory of class files as argument.
+ */
+public final class BytecodeImporterBenchmark
+{
+	private static final int RUNS = 3;
+	
+	private BytecodeImporterBenchmark() {}
+	
+	/**
+	 * @param pArgs A JAR file or a directory, optional.
+	 * @throws IOException If the classes cannot be read.
+	 * @throws URISyntaxException If the location of the default classes is invalid.
+	 */
+	public static void main(String[] pArgs) throws IOException, URISyntaxException
+	{
+		JavaFXLoader.load();
+		Path source = pArgs.length > 0 ? Paths.get(pArgs[0]) : 
+			Paths.get(Control.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		run(source, 1);
+		run(source, Runtime.getRuntime().availableProcessors());
+		Platform.exit();
+	}
+	
+	private static void run(Path pSource, int pThreads) throws IOException
+	{
+		ForkJoinPool pool = new ForkJoinPool(pThreads);
+		BytecodeImporter importer = new BytecodeImporter(pPackage -> true, Visibility.PUBLIC);
+		BytecodeImporter.Result result = null;
+		for( int i = 0; i <= RUNS; i++ )
+		{
+			result = importer.importClasses(pSource, new ClassDiagramBuilder(new Diagram(DiagramType.CLASS)), pool);
+		}
+		pool.shutdown();
+		System.out.println(String.format("%s, %d threads: %d class files, %d imported in %.0f ms, %.0f classes/s", 
+				pSource.getFileName(), pThreads, result.getClassFileCount(), result.getImportedCount(), 
+				result.getNanos() / 1e6, result.getClassesPerSecond()));
+	}
+}
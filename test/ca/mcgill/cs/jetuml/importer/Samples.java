@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classes whose class files the importer tests read.
+ */
+public final class Samples
+{
+	private Samples() {}
+	
+	/**
+	 * @return The names of the class files of the samples, relative to the 
+	 *     directory of this class.
+	 */
+	public static List<String> classFiles()
+	{
+		return List.of("Samples$Shape.class", "Samples$AbstractShape.class", "Samples$Circle.class", 
+				"Samples$Drawing.class", "Samples$Drawing$1.class", "Samples$Hidden.class");
+	}
+	
+	public interface Shape
+	{
+		double area();
+	}
+	
+	public abstract static class AbstractShape implements Shape
+	{
+		protected String aName;
+	}
+	
+	public static final class Circle extends AbstractShape
+	{
+		private double aRadius;
+		
+		public Circle(double pRadius)
+		{
+			aRadius = pRadius;
+		}
+		
+		@Override
+		public double area()
+		{
+			return Math.PI * aRadius * aRadius;
+		}
+	}
+	
+	public static final class Drawing
+	{
+		private final List<Shape> aShapes = new ArrayList<>();
+		
+		public void add(Circle pCircle, int[] pIndices)
+		{
+			aShapes.add(pCircle);
+		}
+		
+		public <T extends Comparable<? super T>> Map<String, T[]> index()
+		{
+			return null;
+		}
+		
+		public Runnable task()
+		{
+			return new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					aShapes.clear();
+				}
+			};
+		}
+	}
+	
+	private static final class Hidden
+	{}
+}
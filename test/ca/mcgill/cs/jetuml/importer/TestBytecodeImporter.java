@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.edges.AssociationEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.GeneralizationEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.InterfaceNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.TypeNode;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+
+public class TestBytecodeImporter
+{
+	private static final String PACKAGE = "ca.mcgill.cs.jetuml.importer";
+	
+	@TempDir
+	public Path aDirectory;
+	
+	private final Diagram aDiagram = new Diagram(DiagramType.CLASS);
+	private final ClassDiagramBuilder aBuilder = new ClassDiagramBuilder(aDiagram);
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@Test
+	public void testImportDirectory() throws IOException
+	{
+		Path classes = aDirectory.resolve("classes");
+		Path packageDirectory = classes.resolve(PACKAGE.replace('.', '/'));
+		Files.createDirectories(packageDirectory);
+		for( String name : Samples.classFiles() )
+		{
+			try( InputStream input = Samples.class.getResourceAsStream(name) )
+			{
+				Files.copy(input, packageDirectory.resolve(name));
+			}
+		}
+		
+		BytecodeImporter.Result result = new BytecodeImporter(pPackage -> true, Visibility.PUBLIC).importClasses(classes, aBuilder);
+		assertEquals(6, result.getClassFileCount());
+		assertEquals(4, result.getImportedCount());
+		assertTrue(result.getClassesPerSecond() > 0);
+		assertEquals(0, aDiagram.rootNodes().size());
+		
+		result.getOperation().execute();
+		assertEquals(1, aDiagram.rootNodes().size());
+		PackageNode packageNode = (PackageNode) aDiagram.rootNodes().get(0);
+		assertEquals(PACKAGE, packageNode.getName());
+		Map<String, TypeNode> nodes = nodes(packageNode);
+		assertEquals(4, nodes.size());
+		assertTrue(nodes.get("Shape") instanceof InterfaceNode);
+		assertEquals("+area() : double", nodes.get("Shape").getMethods());
+		ClassNode circle = (ClassNode) nodes.get("Circle");
+		assertEquals("", circle.getAttributes());
+		assertEquals("+Circle(double)\n+area() : double", circle.getMethods());
+		assertEquals("+Drawing()\n+add(Samples.Circle, int[]) : void\n+index() : Map\n+task() : Runnable", 
+				nodes.get("Drawing").getMethods());
+		
+		assertEquals(4, aDiagram.edges().size());
+		GeneralizationEdge implementation = edge(GeneralizationEdge.class, nodes.get("AbstractShape"), nodes.get("Shape"));
+		assertEquals(GeneralizationEdge.Type.Implementation, implementation.getType());
+		GeneralizationEdge inheritance = edge(GeneralizationEdge.class, circle, nodes.get("AbstractShape"));
+		assertEquals(GeneralizationEdge.Type.Inheritance, inheritance.getType());
+		edge(AssociationEdge.class, nodes.get("Drawing"), nodes.get("Shape"));
+		edge(DependencyEdge.class, nodes.get("Drawing"), circle);
+		
+		result.getOperation().undo();
+		assertEquals(0, aDiagram.rootNodes().size());
+		assertEquals(0, aDiagram.edges().size());
+	}
+	
+	@Test
+	public void testImportJarWithPrivateMembers() throws IOException
+	{
+		Path jar = aDirectory.resolve("samples.jar");
+		try( ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar)) )
+		{
+			for( String name : Samples.classFiles() )
+			{
+				output.putNextEntry(new ZipEntry(PACKAGE.replace('.', '/') + "/" + name));
+				try( InputStream input = Samples.class.getResourceAsStream(name) )
+				{
+					input.transferTo(output);
+				}
+				output.closeEntry();
+			}
+		}
+		
+		BytecodeImporter.Result result = new BytecodeImporter(pPackage -> true, Visibility.PRIVATE).importClasses(jar, aBuilder);
+		assertEquals(5, result.getImportedCount());
+		result.getOperation().execute();
+		Map<String, TypeNode> nodes = nodes((PackageNode) aDiagram.rootNodes().get(0));
+		assertEquals("-aRadius : double", ((ClassNode) nodes.get("Circle")).getAttributes());
+		assertEquals("#aName : String", ((ClassNode) nodes.get("AbstractShape")).getAttributes());
+		assertTrue(nodes.containsKey("Hidden"));
+	}
+	
+	@Test
+	public void testPackageFilter() throws IOException
+	{
+		Path jar = aDirectory.resolve("empty.jar");
+		try( OutputStream output = new ZipOutputStream(Files.newOutputStream(jar)) )
+		{
+			((ZipOutputStream) output).putNextEntry(new ZipEntry("a/B.class"));
+			try( InputStream input = Samples.class.getResourceAsStream("Samples$Shape.class") )
+			{
+				input.transferTo(output);
+			}
+		}
+		BytecodeImporter.Result result = new BytecodeImporter(pPackage -> pPackage.startsWith("java."), Visibility.PRIVATE)
+				.importClasses(jar, aBuilder);
+		assertEquals(1, result.getClassFileCount());
+		assertEquals(0, result.getImportedCount());
+		result.getOperation().execute();
+		assertEquals(0, aDiagram.rootNodes().size());
+	}
+	
+	@Test
+	public void testPackagesStartingWith()
+	{
+		Predicate<String> filter = BytecodeImporter.packagesStartingWith(List.of("java.util", "javax"));
+		assertTrue(filter.test("java.util"));
+		assertTrue(filter.test("java.util.zip"));
+		assertTrue(filter.test("javax.swing"));
+		assertFalse(filter.test("java.utilities"));
+		assertFalse(filter.test("java.lang"));
+		assertFalse(filter.test(""));
+		assertTrue(BytecodeImporter.packagesStartingWith(List.of()).test(""));
+	}
+	
+	@Test
+	public void testPackagesDoNotOverlap() throws IOException
+	{
+		Path jar = createPackagesJar();
+		new BytecodeImporter(pPackage -> true, Visibility.PUBLIC).importClasses(jar, aBuilder)
+			.getOperation().execute();
+		List<Node> roots = aDiagram.rootNodes();
+		assertEquals(3, roots.size());
+		for( Node node : roots )
+		{
+			assertTrue(node instanceof PackageNode);
+			for( Node other : roots )
+			{
+				if( node != other )
+				{
+					assertFalse(overlap(NodeViewerRegistry.getBounds(node), NodeViewerRegistry.getBounds(other)), 
+							node + " overlaps " + other);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testClassesArePlacedWithTheOperation() throws IOException
+	{
+		Path jar = createPackagesJar();
+		boolean enabled = Metrics.isEnabled();
+		Metrics.setEnabled(true);
+		try
+		{
+			Metrics.Counter bounds = Metrics.counter(Metrics.NODE_BOUNDS);
+			long count = bounds.count();
+			BytecodeImporter.Result result = new BytecodeImporter(pPackage -> true, Visibility.PUBLIC).importClasses(jar, aBuilder);
+			// The import does not measure the nodes, so it can run on any thread
+			assertEquals(count, bounds.count());
+			result.getOperation();
+			assertTrue(bounds.count() > count);
+		}
+		finally
+		{
+			Metrics.setEnabled(enabled);
+		}
+	}
+	
+	/*
+	 * Creates a JAR with classes from three packages.
+	 */
+	private Path createPackagesJar() throws IOException
+	{
+		Path jar = aDirectory.resolve("packages.jar");
+		try( ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar)) )
+		{
+			for( Class<?> type : List.of(Runnable.class, Iterable.class, Comparable.class, 
+					java.util.RandomAccess.class, java.io.Closeable.class, java.io.Flushable.class) )
+			{
+				String name = type.getName().replace('.', '/') + ".class";
+				output.putNextEntry(new ZipEntry(name));
+				try( InputStream input = type.getResourceAsStream("/" + name) )
+				{
+					input.transferTo(output);
+				}
+				output.closeEntry();
+			}
+		}
+		return jar;
+	}
+	
+	@Test
+	public void testMalformedClassFile() throws IOException
+	{
+		Files.write(aDirectory.resolve("Bad.class"), new byte[] {1, 2, 3});
+		assertThrows(IOException.class, 
+				() -> new BytecodeImporter(pPackage -> true, Visibility.PUBLIC).importClasses(aDirectory, aBuilder));
+	}
+	
+	private static boolean overlap(Rectangle pFirst, Rectangle pSecond)
+	{
+		return pFirst.getX() < pSecond.getMaxX() && pSecond.getX() < pFirst.getMaxX() && 
+				pFirst.getY() < pSecond.getMaxY() && pSecond.getY() < pFirst.getMaxY();
+	}
+	
+	private static Map<String, TypeNode> nodes(PackageNode pPackage)
+	{
+		Map<String, TypeNode> nodes = new HashMap<>();
+		for( Node node : pPackage.getChildren() )
+		{
+			String name = ((TypeNode) node).getName();
+			nodes.put(name.substring(name.lastIndexOf('.') + 1), (TypeNode) node);
+		}
+		return nodes;
+	}
+	
+	private <E extends Edge> E edge(Class<E> pType, Node pStart, Node pEnd)
+	{
+		for( Edge edge : aDiagram.edges() )
+		{
+			if( edge.getStart() == pStart && edge.getEnd() == pEnd )
+			{
+				assertSame(pType, edge.getClass());
+				return pType.cast(edge);
+			}
+		}
+		throw new AssertionError("No edge from " + pStart + " to " + pEnd);
+	}
+}
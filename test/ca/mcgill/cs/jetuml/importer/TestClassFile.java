@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.importer.ClassFile.Member;
+
+public class TestClassFile
+{
+	private static final String PREFIX = "ca/mcgill/cs/jetuml/importer/Samples$";
+	
+	@Test
+	public void testClass() throws IOException
+	{
+		ClassFile circle = parse("Circle");
+		assertEquals(PREFIX + "Circle", circle.getName());
+		assertEquals(PREFIX + "AbstractShape", circle.getSuperName());
+		assertEquals(List.of(), circle.getInterfaces());
+		assertEquals(Visibility.PUBLIC, Visibility.of(circle.getAccess()));
+		assertTrue((circle.getAccess() & ClassFile.ACC_STATIC) != 0);
+		assertFalse(circle.isHidden());
+		
+		assertEquals(1, circle.getFields().size());
+		Member radius = circle.getFields().get(0);
+		assertEquals("aRadius", radius.getName());
+		assertEquals("D", radius.getDescriptor());
+		assertEquals(Visibility.PRIVATE, Visibility.of(radius.getAccess()));
+		assertEquals(Arrays.asList("<init>", "area"), 
+				circle.getMethods().stream().map(Member::getName).collect(Collectors.toList()));
+		assertTrue(circle.getReferences().contains(PREFIX + "AbstractShape"));
+		assertTrue(circle.getReferences().contains("java/lang/Math"));
+	}
+	
+	@Test
+	public void testInterface() throws IOException
+	{
+		ClassFile shape = parse("Shape");
+		assertTrue((shape.getAccess() & ClassFile.ACC_INTERFACE) != 0);
+		assertEquals("java/lang/Object", shape.getSuperName());
+		
+		ClassFile abstractShape = parse("AbstractShape");
+		assertEquals(List.of(PREFIX + "Shape"), abstractShape.getInterfaces());
+		assertEquals(Visibility.PROTECTED, Visibility.of(abstractShape.getFields().get(0).getAccess()));
+	}
+	
+	@Test
+	public void testReferencesIncludeTypeArguments() throws IOException
+	{
+		ClassFile drawing = parse("Drawing");
+		assertTrue(drawing.getReferences().contains(PREFIX + "Shape"));
+		assertTrue(drawing.getReferences().contains(PREFIX + "Circle"));
+		assertTrue(drawing.getReferences().contains("java/lang/Comparable"));
+	}
+	
+	@Test
+	public void testHidden() throws IOException
+	{
+		assertTrue(parse("Drawing$1").isHidden());
+		ClassFile hidden = parse("Hidden");
+		assertFalse(hidden.isHidden());
+		assertEquals(Visibility.PRIVATE, Visibility.of(hidden.getAccess()));
+	}
+	
+	@Test
+	public void testMalformed() throws IOException
+	{
+		assertThrows(IOException.class, () -> ClassFile.parse(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+		byte[] bytes = bytes("Circle");
+		assertThrows(IOException.class, () -> ClassFile.parse(Arrays.copyOf(bytes, bytes.length / 2)));
+	}
+	
+	@Test
+	public void testVisibility()
+	{
+		assertTrue(Visibility.PUBLIC.isAtLeast(Visibility.PACKAGE));
+		assertTrue(Visibility.PACKAGE.isAtLeast(Visibility.PACKAGE));
+		assertFalse(Visibility.PRIVATE.isAtLeast(Visibility.PACKAGE));
+	}
+	
+	private static ClassFile parse(String pName) throws IOException
+	{
+		return ClassFile.parse(bytes(pName));
+	}
+	
+	private static byte[] bytes(String pName) throws IOException
+	{
+		try( InputStream input = Samples.class.getResourceAsStream("Samples$" + pName + ".class") )
+		{
+			return input.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class TestDescriptors
+{
+	@Test
+	public void testPackageName()
+	{
+		assertEquals("java.util", Descriptors.packageName("java/util/Map$Entry"));
+		assertEquals("", Descriptors.packageName("Main"));
+	}
+	
+	@Test
+	public void testSimpleName()
+	{
+		assertEquals("Map.Entry", Descriptors.simpleName("java/util/Map$Entry"));
+		assertEquals("Main", Descriptors.simpleName("Main"));
+	}
+	
+	@Test
+	public void testTypeName()
+	{
+		assertEquals("int", Descriptors.typeName("I"));
+		assertEquals("String[][]", Descriptors.typeName("[[Ljava/lang/String;"));
+		assertEquals("Map.Entry", Descriptors.typeName("Ljava/util/Map$Entry;"));
+	}
+	
+	@Test
+	public void testMethodTypes()
+	{
+		assertEquals(Arrays.asList("int", "String", "long[]"), Descriptors.parameterTypes("(ILjava/lang/String;[J)V"));
+		assertEquals(List.of(), Descriptors.parameterTypes("()Ljava/lang/Object;"));
+		assertEquals("void", Descriptors.returnType("(ILjava/lang/String;[J)V"));
+		assertEquals("Object", Descriptors.returnType("()Ljava/lang/Object;"));
+	}
+	
+	@Test
+	public void testAddClassNamesDescriptor()
+	{
+		assertEquals(Set.of("java/lang/String", "java/util/List"), classNames("(I[Ljava/lang/String;)Ljava/util/List;"));
+	}
+	
+	@Test
+	public void testAddClassNamesSignature()
+	{
+		assertEquals(Set.of("java/util/Map", "java/lang/String", "java/util/List", "a/Shape"), 
+				classNames("Ljava/util/Map<Ljava/lang/String;Ljava/util/List<+La/Shape;>;>;"));
+		assertEquals(Set.of("java/lang/Comparable", "java/util/List", "java/lang/Integer"), 
+				classNames("<T::Ljava/lang/Comparable<-TT;>;>(Ljava/util/List<*>;TT;)Ljava/lang/Integer;"));
+		assertEquals(Set.of("a/Outer$Inner", "java/lang/String"), classNames("La/Outer<TT;>.Inner<Ljava/lang/String;>;"));
+	}
+	
+	private static Set<String> classNames(String pSignature)
+	{
+		Set<String> names = new HashSet<>();
+		Descriptors.addClassNames(pSignature, names);
+		return names;
+	}
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.ControlFlow;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.SequenceDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.edges.CallEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.ConstructorEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.ReturnEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.ImplicitParameterNode;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+import jdk.jfr.Recording;
+
+public class TestTraceImporter
+{
+	@TempDir
+	public Path aDirectory;
+	
+	private final Diagram aDiagram = new Diagram(DiagramType.SEQUENCE);
+	private final SequenceDiagramBuilder aBuilder = new SequenceDiagramBuilder(aDiagram);
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	private TraceImporter.Result importTrace(TraceImporter pImporter, String... pLines) throws IOException
+	{
+		TraceImporter.Result result = pImporter.importTrace(new StringReader(String.join("\n", pLines)), aBuilder);
+		result.getOperation().execute();
+		return result;
+	}
+	
+	private List<String> names()
+	{
+		return aDiagram.rootNodes().stream().map(pNode -> ((ImplicitParameterNode) pNode).getName()).collect(Collectors.toList());
+	}
+	
+	private Node call(int pLifeline, int pCall)
+	{
+		return aDiagram.rootNodes().get(pLifeline).getChildren().get(pCall);
+	}
+	
+	private void assertEdge(Class<?> pType, String pLabel, Node pStart, Node pEnd, Edge pEdge)
+	{
+		assertSame(pType, pEdge.getClass());
+		assertSame(pStart, pEdge.getStart());
+		assertSame(pEnd, pEdge.getEnd());
+		if( pLabel != null )
+		{
+			assertEquals(pLabel, ((CallEdge) pEdge).getMiddleLabel());
+		}
+	}
+	
+	@Test
+	public void testCallsAndReturns() throws IOException
+	{
+		TraceImporter.Result result = importTrace(new TraceImporter(10, 100, false), 
+				"# A trace", 
+				"> 1 app.Main run", 
+				"  > 2 java.util.ArrayList size", 
+				"  <", 
+				"", 
+				"  > 1 app.Main check(int)", 
+				"  <", 
+				"<");
+		assertEquals(6, result.getEventCount());
+		assertEquals(3, result.getCallCount());
+		assertFalse(result.isTruncated());
+		assertTrue(result.getEventsPerSecond() > 0);
+		assertEquals(List.of("1:Main", "2:ArrayList"), names());
+		Node run = call(0, 0);
+		Node size = call(1, 0);
+		Node check = call(0, 1);
+		assertEquals(3, aDiagram.edges().size());
+		assertEdge(CallEdge.class, "size", run, size, aDiagram.edges().get(0));
+		assertEdge(ReturnEdge.class, null, size, run, aDiagram.edges().get(1));
+		assertEdge(CallEdge.class, "check(int)", run, check, aDiagram.edges().get(2));
+		ControlFlow flow = new ControlFlow(aDiagram);
+		assertEquals(1, flow.getNestingDepth((CallNode) check));
+		
+		result.getOperation().undo();
+		assertTrue(aDiagram.rootNodes().isEmpty());
+		assertTrue(aDiagram.edges().isEmpty());
+	}
+	
+	@Test
+	public void testLifelinesArePlacedWithTheOperation() throws IOException
+	{
+		TraceImporter.Result result = new TraceImporter(10, 100, false).importTrace(
+				new StringReader(String.join("\n", "> 1 app.Main run", "> 2 app.List size", "<", "<")), aBuilder);
+		// The lifelines are not measured by the import, so it can run on any thread
+		assertTrue(aDiagram.rootNodes().isEmpty());
+		result.getOperation().execute();
+		assertEquals(0, aDiagram.rootNodes().get(0).position().getX());
+		assertTrue(aDiagram.rootNodes().get(1).position().getX() > 0);
+	}
+	
+	@Test
+	public void testConstructorCall() throws IOException
+	{
+		importTrace(new TraceImporter(10, 100, false), "> 1 Main run", "> 2 Point <init>", "<", "> 2 Point <init>", "<", "<");
+		assertEquals(List.of("1:Main", "2:Point"), names());
+		assertEquals(4, aDiagram.edges().size());
+		assertEdge(ConstructorEdge.class, null, call(0, 0), call(1, 0), aDiagram.edges().get(0));
+		// Only the first call on an object can construct it
+		assertEdge(CallEdge.class, "<init>", call(0, 0), call(1, 1), aDiagram.edges().get(2));
+		assertTrue(new ControlFlow(aDiagram).isConstructorExecution(call(1, 0)));
+	}
+	
+	@Test
+	public void testEntryPointForSeveralFirstCalls() throws IOException
+	{
+		importTrace(new TraceImporter(10, 100, false), "> 1 Main setup", "<", "> 1 Main run", "<", "> 2 Main run", "<");
+		assertEquals(List.of(":Trace", "1:Main", "2:Main"), names());
+		assertEquals(3, aDiagram.edges().size());
+		assertEdge(CallEdge.class, "setup", call(0, 0), call(1, 0), aDiagram.edges().get(0));
+		assertEdge(CallEdge.class, "run", call(0, 0), call(1, 1), aDiagram.edges().get(1));
+		assertEdge(CallEdge.class, "run", call(0, 0), call(2, 0), aDiagram.edges().get(2));
+	}
+	
+	@Test
+	public void testFoldRepeatedCalls() throws IOException
+	{
+		TraceImporter.Result result = importTrace(new TraceImporter(10, 100, true), "> 1 Main run", 
+				"> 2 List add", "> 3 Item <init>", "<", "<",
+				"> 2 List add", "> 4 Item <init>", "<", "<",
+				"> 2 List add", "> 5 Item <init>", "<", "<",
+				"> 2 List size", "<",
+				"<");
+		assertEquals(4, result.getCallCount());
+		assertEquals(List.of("1:Main", "2:List", "3:Item"), names());
+		assertEquals(6, aDiagram.edges().size());
+		assertEdge(CallEdge.class, "add (x3)", call(0, 0), call(1, 0), aDiagram.edges().get(0));
+		assertEdge(ConstructorEdge.class, null, call(1, 0), call(2, 0), aDiagram.edges().get(1));
+		assertEdge(CallEdge.class, "size", call(0, 0), call(1, 1), aDiagram.edges().get(4));
+	}
+	
+	@Test
+	public void testNoFoldOfDifferentCalls() throws IOException
+	{
+		importTrace(new TraceImporter(10, 100, true), "> 1 Main run", 
+				"> 2 List add", "> 3 Item <init>", "<", "<",
+				"> 2 List add", "<",
+				"<");
+		assertEquals(List.of("1:Main", "2:List", "3:Item"), names());
+		assertEquals(2, aDiagram.rootNodes().get(1).getChildren().size());
+	}
+	
+	@Test
+	public void testDepthAndCallLimits() throws IOException
+	{
+		TraceImporter.Result result = importTrace(new TraceImporter(2, 100, false), 
+				"> 1 Main run", "> 2 List add", "> 3 Item <init>", "<", "<", "> 2 List size", "<", "<");
+		assertEquals(3, result.getCallCount());
+		assertFalse(result.isTruncated());
+		assertEquals(List.of("1:Main", "2:List"), names());
+		
+		result = new TraceImporter(10, 2, false).importTrace(new StringReader(String.join("\n", 
+				"> 1 Main run", "> 2 List add", "> 3 Item <init>", "<", "<", "> 2 List size", "<", "<")), 
+				new SequenceDiagramBuilder(new Diagram(DiagramType.SEQUENCE)));
+		assertEquals(2, result.getCallCount());
+		assertEquals(8, result.getEventCount());
+		assertTrue(result.isTruncated());
+	}
+	
+	@Test
+	public void testMalformedTrace()
+	{
+		assertThrows(IOException.class, () -> importTrace(new TraceImporter(10, 100, false), "> 1 Main run", "> 2 List"));
+		assertThrows(IOException.class, () -> importTrace(new TraceImporter(10, 100, false), "< 1"));
+	}
+	
+	@Test
+	public void testLayout() throws IOException
+	{
+		importTrace(new TraceImporter(10, 100, false), "> 1 Main run", 
+				"> 1 Main helper", "> 1 Main helper", "> 2 List add", "<", "<", "<",
+				"> 2 List size", "<", "<");
+		Rectangle main = NodeViewerRegistry.getBounds(aDiagram.rootNodes().get(0));
+		Rectangle list = NodeViewerRegistry.getBounds(aDiagram.rootNodes().get(1));
+		Rectangle run = NodeViewerRegistry.getBounds(call(0, 0));
+		Rectangle innerHelper = NodeViewerRegistry.getBounds(call(0, 2));
+		Rectangle add = NodeViewerRegistry.getBounds(call(1, 0));
+		Rectangle size = NodeViewerRegistry.getBounds(call(1, 1));
+		assertTrue(innerHelper.getX() > run.getX());
+		assertTrue(innerHelper.getMaxX() <= list.getX());
+		assertTrue(main.getMaxX() <= list.getX());
+		assertTrue(add.getY() > innerHelper.getY());
+		assertTrue(size.getY() > add.getMaxY());
+		assertTrue(run.getMaxY() > size.getMaxY());
+	}
+	
+	@Test
+	public void testImportRecording() throws Exception
+	{
+		Path file = aDirectory.resolve("samples.jfr");
+		try( Recording recording = new Recording() )
+		{
+			recording.enable("jdk.ExecutionSample").withPeriod(java.time.Duration.ofMillis(10));
+			recording.start();
+			long end = System.nanoTime() + 500_000_000L;
+			long sum = 0;
+			while( System.nanoTime() < end )
+			{
+				sum += fibonacci(20);
+			}
+			assertTrue(sum > 0);
+			recording.stop();
+			recording.dump(file);
+		}
+		TraceImporter.Result result = new TraceImporter(1000, 1000, true)
+				.importRecording(file, Thread.currentThread().getName(), aBuilder);
+		result.getOperation().execute();
+		assertTrue(result.getEventCount() > 0);
+		assertTrue(names().contains(":TestTraceImporter"));
+		assertTrue(aDiagram.rootNodes().stream().allMatch(pNode -> ((ImplicitParameterNode) pNode).getName().startsWith(":")));
+		
+		// The thread that computed is the most sampled one, and is imported by default
+		assertEquals(Thread.currentThread().getName(), TraceImporter.sampledThreads(file).get(0));
+		TraceImporter.Result defaultResult = new TraceImporter(1000, 1000, true)
+				.importRecording(file, null, new SequenceDiagramBuilder(new Diagram(DiagramType.SEQUENCE)));
+		assertEquals(result.getEventCount(), defaultResult.getEventCount());
+	}
+	
+	private static long fibonacci(int pNumber)
+	{
+		return pNumber < 2 ? pNumber : fibonacci(pNumber - 1) + fibonacci(pNumber - 2);
+	}
+}
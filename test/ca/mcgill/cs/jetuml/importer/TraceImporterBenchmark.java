@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.importer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.SequenceDiagramBuilder;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.views.CanvasDrawingContext;
+import ca.mcgill.cs.jetuml.views.DiagramViewer;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+
+/**
+ * Measures the throughput of the import of a trace, in events per second, 
+ * and the time to compute the bounds of the resulting sequence diagram and 
+ * to draw it, for a random trace of 100 000 events with and without folding. 
+ * The trace has loops that repeat the same calls. Each measure is preceded by 
+ * a run to warm up the virtual machine. This is not a unit test: run it as an 
+ * application.
+ */
+public final class TraceImporterBenchmark
+{
+	private static final int EVENTS = 100_000;
+	private static final int OBJECTS = 200;
+	private static final int MAX_DEPTH = 12;
+	private static final int MAX_CALLEES = 6;
+	private static final int MAX_REPETITIONS = 10;
+	private static final int CANVAS_SIZE = 1000;
+	private static final long SEED = 42;
+	
+	private TraceImporterBenchmark() {}
+	
+	/**
+	 * @param pArgs Not used.
+	 * @throws IOException Never, as the trace is in memory.
+	 */
+	public static void main(String[] pArgs) throws IOException
+	{
+		JavaFXLoader.load();
+		String trace = createTrace();
+		run(trace, false);
+		run(trace, true);
+		Platform.exit();
+	}
+	
+	private static void run(String pTrace, boolean pFold) throws IOException
+	{
+		TraceImporter importer = new TraceImporter(Integer.MAX_VALUE, Integer.MAX_VALUE, pFold);
+		for( int i = 0; i < 2; i++ )
+		{
+			Diagram diagram = new Diagram(DiagramType.SEQUENCE);
+			TraceImporter.Result result = importer.importTrace(new StringReader(pTrace), new SequenceDiagramBuilder(diagram));
+			result.getOperation().execute();
+			DiagramViewer viewer = DiagramType.viewerFor(diagram);
+			long start = System.nanoTime();
+			Rectangle bounds = viewer.getBounds(diagram);
+			long boundsNanos = System.nanoTime() - start;
+			start = System.nanoTime();
+			viewer.draw(diagram, new CanvasDrawingContext(new Canvas(CANVAS_SIZE, CANVAS_SIZE).getGraphicsContext2D()));
+			long drawNanos = System.nanoTime() - start;
+			if( i > 0 )
+			{
+				System.out.println(String.format("Fold %b: %d events, %d calls, %d lifelines in %.0f ms (%.0f events/s); " + 
+						"bounds %dx%d in %.0f ms, drawn in %.0f ms", pFold, result.getEventCount(), result.getCallCount(), 
+						diagram.rootNodes().size(), result.getNanos() / 1e6, result.getEventsPerSecond(), 
+						bounds.getWidth(), bounds.getHeight(), boundsNanos / 1e6, drawNanos / 1e6));
+			}
+		}
+	}
+	
+	/*
+	 * A trace of calls on random objects, where each call has random callees, 
+	 * one of which may be called in a loop.
+	 */
+	private static String createTrace()
+	{
+		StringBuilder trace = new StringBuilder();
+		Random random = new Random(SEED);
+		int events = 0;
+		while( events < EVENTS )
+		{
+			events += appendCall(trace, random, 0, random.nextInt(OBJECTS), random.nextInt(MAX_CALLEES));
+		}
+		return trace.toString();
+	}
+	
+	private static int appendCall(StringBuilder pTrace, Random pRandom, int pDepth, int pObject, int pMethod)
+	{
+		pTrace.append(String.format("> %d app.Type%d method%d%n", pObject, pObject % (OBJECTS / 4), pMethod));
+		int events = 2;
+		if( pDepth < MAX_DEPTH )
+		{
+			int callees = pRandom.nextInt(MAX_CALLEES + 1) / (pDepth / 2 + 1);
+			for( int i = 0; i < callees; i++ )
+			{
+				int object = pRandom.nextInt(OBJECTS);
+				int method = pRandom.nextInt(MAX_CALLEES);
+				int repetitions = pRandom.nextInt(MAX_CALLEES) == 0 ? pRandom.nextInt(MAX_REPETITIONS) + 1 : 1;
+				long seed = pRandom.nextLong();
+				for( int j = 0; j < repetitions; j++ )
+				{
+					events += appendCall(pTrace, new Random(seed), pDepth + 1, object, method);
+				}
+			}
+		}
+		pTrace.append("<").append(System.lineSeparator());
+		return events;
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the time to lay out a random connected graph, with one worker 
+ * thread and with one per processor. The graph is a random tree plus as 
+ * many random edges as a fifth of its nodes, and all its nodes start at the
+ * same position, as nodes created programmatically do. This is not a unit 
+ * test: run it as an application, optionally with the number of nodes as argument.
+ */
+public final class ForceDirectedLayoutBenchmark
+{
+	private static final int DEFAULT_NODES = 5000;
+	private static final int MAX_ITERATIONS = 300;
+	private static final int EXTRA_EDGES_RATIO = 5;
+	private static final int MIN_RADIUS = 40;
+	private static final int RADIUS_RANGE = 60;
+	private static final long SEED = 42;
+	
+	private ForceDirectedLayoutBenchmark() {}
+	
+	/**
+	 * @param pArgs The number of nodes, optional.
+	 */
+	public static void main(String[] pArgs)
+	{
+		int nodes = pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : DEFAULT_NODES;
+		run(nodes, 1);
+		run(nodes, Runtime.getRuntime().availableProcessors());
+	}
+	
+	private static void run(int pNodes, int pThreads)
+	{
+		Random random = new Random(SEED);
+		double[] x = new double[pNodes];
+		double[] y = new double[pNodes];
+		double[] radii = new double[pNodes];
+		int edges = pNodes - 1 + pNodes / EXTRA_EDGES_RATIO;
+		int[] sources = new int[edges];
+		int[] targets = new int[edges];
+		for( int i = 0; i < pNodes; i++ )
+		{
+			radii[i] = MIN_RADIUS + random.nextInt(RADIUS_RANGE);
+		}
+		for( int j = 0; j < edges; j++ )
+		{
+			sources[j] = j < pNodes - 1 ? j + 1 : random.nextInt(pNodes);
+			targets[j] = j < pNodes - 1 ? random.nextInt(j + 1) : random.nextInt(pNodes);
+		}
+		ForkJoinPool pool = new ForkJoinPool(pThreads);
+		long start = System.nanoTime();
+		int iterations = new ForceDirectedLayout(pool, MAX_ITERATIONS).layout(x, y, radii, sources, targets);
+		long elapsed = System.nanoTime() - start;
+		pool.shutdown();
+		System.out.println(String.format("%d nodes, %d edges, %d threads: %d iterations in %.2f s", 
+				pNodes, edges, pThreads, iterations, elapsed / 1e9));
+	}
+}
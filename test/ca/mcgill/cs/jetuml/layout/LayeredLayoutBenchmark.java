@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the time and the quality of the layered layout of random 
+ * hierarchies of 1000 to 10000 nodes, with one worker thread and with 
+ * one per processor. Each hierarchy is a random tree plus as many random 
+ * edges as a fifth of its nodes, some of which close cycles. The quality 
+ * is the number of edge crossings and the total edge length. This is not 
+ * a unit test: run it as an application, optionally with the numbers of 
+ * nodes as arguments.
+ */
+public final class LayeredLayoutBenchmark
+{
+	private static final int[] DEFAULT_NODES = {1000, 5000, 10000};
+	private static final int LAYER_GAP = 60;
+	private static final int NODE_GAP = 40;
+	private static final int EXTRA_EDGES_RATIO = 5;
+	private static final int MIN_WIDTH = 80;
+	private static final int WIDTH_RANGE = 120;
+	private static final int MIN_HEIGHT = 40;
+	private static final int HEIGHT_RANGE = 60;
+	/* Each node of the tree extends one of the last nodes, which gives hierarchies of realistic depth. */
+	private static final int PARENT_WINDOW = 50;
+	private static final long SEED = 42;
+	
+	private LayeredLayoutBenchmark() {}
+	
+	/**
+	 * @param pArgs The numbers of nodes, optional.
+	 */
+	public static void main(String[] pArgs)
+	{
+		int[] sizes = DEFAULT_NODES;
+		if( pArgs.length > 0 )
+		{
+			sizes = new int[pArgs.length];
+			for( int i = 0; i < pArgs.length; i++ )
+			{
+				sizes[i] = Integer.parseInt(pArgs[i]);
+			}
+		}
+		for( int nodes : sizes )
+		{
+			run(nodes, 1);
+			run(nodes, Runtime.getRuntime().availableProcessors());
+		}
+	}
+	
+	private static void run(int pNodes, int pThreads)
+	{
+		Random random = new Random(SEED);
+		int[] widths = new int[pNodes];
+		int[] heights = new int[pNodes];
+		int edges = pNodes - 1 + pNodes / EXTRA_EDGES_RATIO;
+		int[] uppers = new int[edges];
+		int[] lowers = new int[edges];
+		for( int i = 0; i < pNodes; i++ )
+		{
+			widths[i] = MIN_WIDTH + random.nextInt(WIDTH_RANGE);
+			heights[i] = MIN_HEIGHT + random.nextInt(HEIGHT_RANGE);
+		}
+		for( int j = 0; j < edges; j++ )
+		{
+			if( j < pNodes - 1 )
+			{
+				lowers[j] = j + 1;
+				uppers[j] = Math.max(0, j - random.nextInt(PARENT_WINDOW));
+			}
+			else
+			{
+				uppers[j] = random.nextInt(pNodes);
+				lowers[j] = random.nextInt(pNodes);
+			}
+		}
+		ForkJoinPool pool = new ForkJoinPool(pThreads);
+		long start = System.nanoTime();
+		LayeredLayout.Result result = new LayeredLayout(pool, LAYER_GAP, NODE_GAP).layout(widths, heights, uppers, lowers);
+		long elapsed = System.nanoTime() - start;
+		pool.shutdown();
+		int layers = 0;
+		for( int i = 0; i < pNodes; i++ )
+		{
+			layers = Math.max(layers, result.getLayer(i) + 1);
+		}
+		System.out.println(String.format("%d nodes, %d edges, %d threads: %d layers in %.2f s, %d crossings, edge length %.0f", 
+				pNodes, edges, pThreads, layers, elapsed / 1e9, result.getCrossings(), result.getEdgeLength()));
+	}
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.builder.CompoundOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.ObjectDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.ObjectReferenceEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.FieldNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.ObjectNode;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+
+public class TestAutoLayout
+{
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@Test
+	public void testSupports()
+	{
+		assertTrue(AutoLayout.supports(DiagramType.CLASS));
+		assertTrue(AutoLayout.supports(DiagramType.OBJECT));
+		assertFalse(AutoLayout.supports(DiagramType.SEQUENCE));
+		assertFalse(AutoLayout.supports(DiagramType.STATE));
+	}
+	
+	@Test
+	public void testLayoutSeparatesNodesAndCanBeUndone()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		List<Node> nodes = new ArrayList<>();
+		for( int i = 0; i < 5; i++ )
+		{
+			ClassNode node = new ClassNode();
+			diagram.addRootNode(node);
+			nodes.add(node);
+		}
+		for( int i = 1; i < nodes.size(); i++ )
+		{
+			DependencyEdge edge = new DependencyEdge();
+			edge.connect(nodes.get(0), nodes.get(i), diagram);
+			diagram.addEdge(edge);
+		}
+		CompoundOperation operation = AutoLayout.createLayoutOperation(new ClassDiagramBuilder(diagram));
+		assertEquals(nodes.size(), operation.getAffectedElements().get().size());
+		
+		operation.execute();
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		for( int i = 0; i < nodes.size(); i++ )
+		{
+			Rectangle bounds = NodeViewerRegistry.getBounds(nodes.get(i));
+			minX = Math.min(minX, bounds.getX());
+			minY = Math.min(minY, bounds.getY());
+			for( int j = i + 1; j < nodes.size(); j++ )
+			{
+				assertFalse(overlap(bounds, NodeViewerRegistry.getBounds(nodes.get(j))));
+			}
+		}
+		assertEquals(20, minX);
+		assertEquals(20, minY);
+		
+		operation.undo();
+		for( Node node : nodes )
+		{
+			assertEquals(new Point(0, 0), node.position());
+		}
+	}
+	
+	@Test
+	public void testLayoutComputedOnAnotherThread() throws InterruptedException
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		List<Node> nodes = new ArrayList<>();
+		for( int i = 0; i < 4; i++ )
+		{
+			ClassNode node = new ClassNode();
+			node.translate(i * 3, i * 7);
+			diagram.addRootNode(node);
+			nodes.add(node);
+		}
+		LayoutTask task = AutoLayout.prepare(new ClassDiagramBuilder(diagram));
+		assertFalse(task.isComputed());
+		Thread thread = new Thread(() -> task.compute(ForkJoinPool.commonPool()));
+		thread.start();
+		thread.join();
+		assertTrue(task.isComputed());
+		
+		Node removed = nodes.remove(3);
+		diagram.removeRootNode(removed);
+		CompoundOperation operation = task.createOperation();
+		assertEquals(3, operation.getAffectedElements().get().size());
+		operation.execute();
+		assertEquals(new Point(9, 21), removed.position());
+		for( Node node : nodes )
+		{
+			Rectangle bounds = NodeViewerRegistry.getBounds(node);
+			assertEquals(0, bounds.getX() % 10);
+			assertEquals(0, bounds.getY() % 10);
+		}
+	}
+	
+	@Test
+	public void testFieldsMoveWithTheirObject()
+	{
+		Diagram diagram = new Diagram(DiagramType.OBJECT);
+		ObjectNode object1 = new ObjectNode();
+		ObjectNode object2 = new ObjectNode();
+		FieldNode field = new FieldNode();
+		object1.addChild(field);
+		diagram.addRootNode(object1);
+		diagram.addRootNode(object2);
+		ObjectReferenceEdge edge = new ObjectReferenceEdge();
+		edge.connect(field, object2, diagram);
+		diagram.addEdge(edge);
+		
+		AutoLayout.createLayoutOperation(new ObjectDiagramBuilder(diagram)).execute();
+		assertEquals(object1.position(), field.position());
+		assertFalse(overlap(NodeViewerRegistry.getBounds(object1), NodeViewerRegistry.getBounds(object2)));
+	}
+	
+	private static boolean overlap(Rectangle pRectangle1, Rectangle pRectangle2)
+	{
+		return pRectangle1.getX() < pRectangle2.getMaxX() && pRectangle2.getX() < pRectangle1.getMaxX() &&
+				pRectangle1.getY() < pRectangle2.getMaxY() && pRectangle2.getY() < pRectangle1.getMaxY();
+	}
+}
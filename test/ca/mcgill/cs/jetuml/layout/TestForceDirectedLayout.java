@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class TestForceDirectedLayout
+{
+	private static final int MAX_ITERATIONS = 300;
+	
+	private final ForkJoinPool aPool = new ForkJoinPool(4);
+	private final ForceDirectedLayout aLayout = new ForceDirectedLayout(aPool, MAX_ITERATIONS);
+	
+	@AfterEach
+	public void teardown()
+	{
+		aPool.shutdownNow();
+	}
+	
+	@Test
+	public void testSingleNode()
+	{
+		double[] x = {10};
+		double[] y = {20};
+		assertEquals(0, aLayout.layout(x, y, new double[] {5}, new int[0], new int[0]));
+		assertEquals(10, x[0]);
+		assertEquals(20, y[0]);
+	}
+	
+	@Test
+	public void testCoincidentNodesAreSeparated()
+	{
+		final int size = 600;
+		double[] x = new double[size];
+		double[] y = new double[size];
+		double[] radii = new double[size];
+		Arrays.fill(radii, 10);
+		aLayout.layout(x, y, radii, new int[0], new int[0]);
+		assertTrue(minimumGap(x, y, radii) > 0);
+	}
+	
+	@Test
+	public void testConnectedNodesAttract()
+	{
+		double[] x = {0, 10000, 0};
+		double[] y = {0, 0, 200};
+		double[] radii = {10, 10, 10};
+		aLayout.layout(x, y, radii, new int[] {0}, new int[] {1});
+		assertTrue(distance(x, y, 0, 1) < 1000);
+		assertTrue(minimumGap(x, y, radii) > 0);
+	}
+	
+	@Test
+	public void testConnectedNodesAreCloserThanUnconnectedOnes()
+	{
+		// Two triangles joined by a single edge.
+		double[] x = {0, 1, 2, 3, 4, 5};
+		double[] y = {0, 0, 0, 0, 0, 0};
+		double[] radii = {10, 10, 10, 10, 10, 10};
+		int[] sources = {0, 1, 2, 3, 4, 5, 2};
+		int[] targets = {1, 2, 0, 4, 5, 3, 3};
+		aLayout.layout(x, y, radii, sources, targets);
+		assertTrue(distance(x, y, 0, 1) < distance(x, y, 0, 4));
+		assertTrue(distance(x, y, 3, 4) < distance(x, y, 1, 5));
+	}
+	
+	@Test
+	public void testDeterministic()
+	{
+		final int size = 1000;
+		double[] x1 = new double[size];
+		double[] y1 = new double[size];
+		double[] radii = new double[size];
+		int[] sources = new int[size - 1];
+		int[] targets = new int[size - 1];
+		for( int i = 1; i < size; i++ )
+		{
+			radii[i] = 10 + i % 7;
+			sources[i - 1] = i;
+			targets[i - 1] = i / 2;
+		}
+		double[] x2 = x1.clone();
+		double[] y2 = y1.clone();
+		aLayout.layout(x1, y1, radii, sources, targets);
+		new ForceDirectedLayout(ForkJoinPool.commonPool(), MAX_ITERATIONS).layout(x2, y2, radii, sources, targets);
+		assertArrayEquals(x1, x2);
+		assertArrayEquals(y1, y2);
+	}
+	
+	private static double distance(double[] pX, double[] pY, int pI, int pJ)
+	{
+		return Math.hypot(pX[pI] - pX[pJ], pY[pI] - pY[pJ]);
+	}
+	
+	private static double minimumGap(double[] pX, double[] pY, double[] pRadii)
+	{
+		double result = Double.POSITIVE_INFINITY;
+		for( int i = 0; i < pX.length; i++ )
+		{
+			for( int j = i + 1; j < pX.length; j++ )
+			{
+				result = Math.min(result, distance(pX, pY, i, j) - pRadii[i] - pRadii[j]);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.builder.CompoundOperation;
+import ca.mcgill.cs.jetuml.diagram.builder.StateDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.GeneralizationEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.StateTransitionEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.InitialStateNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.InterfaceNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.StateNode;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.edges.SegmentationStyleFactory;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+
+public class TestHierarchicalLayout
+{
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@Test
+	public void testSupports()
+	{
+		assertTrue(HierarchicalLayout.supports(DiagramType.CLASS));
+		assertTrue(HierarchicalLayout.supports(DiagramType.STATE));
+		assertFalse(HierarchicalLayout.supports(DiagramType.OBJECT));
+		assertFalse(HierarchicalLayout.supports(DiagramType.SEQUENCE));
+	}
+	
+	@Test
+	public void testSuperclassesAreAboveSubclasses()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		InterfaceNode root = new InterfaceNode();
+		ClassNode middle = new ClassNode();
+		ClassNode leaf1 = new ClassNode();
+		ClassNode leaf2 = new ClassNode();
+		for( Node node : new Node[] {leaf1, leaf2, middle, root} )
+		{
+			diagram.addRootNode(node);
+		}
+		connect(diagram, new GeneralizationEdge(GeneralizationEdge.Type.Implementation), middle, root);
+		connect(diagram, new GeneralizationEdge(), leaf1, middle);
+		connect(diagram, new GeneralizationEdge(), leaf2, middle);
+		
+		CompoundOperation operation = HierarchicalLayout.createLayoutOperation(new ClassDiagramBuilder(diagram));
+		operation.execute();
+		assertEquals(new Point(20, 20), new Point(Math.min(leaf1.position().getX(), leaf2.position().getX()), root.position().getY()));
+		assertAbove(root, middle);
+		assertAbove(middle, leaf1);
+		assertAbove(middle, leaf2);
+		assertEquals(leaf1.position().getY(), leaf2.position().getY());
+		assertFalse(overlap(NodeViewerRegistry.getBounds(leaf1), NodeViewerRegistry.getBounds(leaf2)));
+		
+		operation.undo();
+		for( Node node : diagram.rootNodes() )
+		{
+			assertEquals(new Point(0, 0), node.position());
+		}
+	}
+	
+	@Test
+	public void testDependenciesDoNotCreateLayers()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		ClassNode client = new ClassNode();
+		ClassNode supplier = new ClassNode();
+		diagram.addRootNode(client);
+		diagram.addRootNode(supplier);
+		connect(diagram, new DependencyEdge(), client, supplier);
+		
+		HierarchicalLayout.createLayoutOperation(new ClassDiagramBuilder(diagram)).execute();
+		assertEquals(client.position().getY(), supplier.position().getY());
+		assertFalse(overlap(NodeViewerRegistry.getBounds(client), NodeViewerRegistry.getBounds(supplier)));
+	}
+	
+	@Test
+	public void testTransitionsPointDown()
+	{
+		Diagram diagram = new Diagram(DiagramType.STATE);
+		InitialStateNode initial = new InitialStateNode();
+		StateNode state1 = new StateNode();
+		StateNode state2 = new StateNode();
+		diagram.addRootNode(state2);
+		diagram.addRootNode(state1);
+		diagram.addRootNode(initial);
+		connect(diagram, new StateTransitionEdge(), initial, state1);
+		connect(diagram, new StateTransitionEdge(), state1, state2);
+		connect(diagram, new StateTransitionEdge(), state2, state1);
+		
+		HierarchicalLayout.createLayoutOperation(new StateDiagramBuilder(diagram)).execute();
+		assertAbove(initial, state1);
+		assertAbove(state1, state2);
+	}
+	
+	@Test
+	public void testPackagesAreLaidOutAsBlocks()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		PackageNode packageNode = new PackageNode();
+		ClassNode inner = new ClassNode();
+		ClassNode outer = new ClassNode();
+		packageNode.addChild(inner);
+		diagram.addRootNode(outer);
+		diagram.addRootNode(packageNode);
+		connect(diagram, new GeneralizationEdge(), inner, outer);
+		
+		HierarchicalLayout.createLayoutOperation(new ClassDiagramBuilder(diagram)).execute();
+		assertAbove(outer, packageNode);
+		assertTrue(NodeViewerRegistry.getBounds(packageNode).contains(NodeViewerRegistry.getBounds(inner)));
+	}
+	
+	private static void connect(Diagram pDiagram, Edge pEdge, Node pStart, Node pEnd)
+	{
+		pEdge.connect(pStart, pEnd, pDiagram);
+		pDiagram.addEdge(pEdge);
+	}
+	
+	/*
+	 * Checks that there is room for a VHV edge between the two nodes.
+	 */
+	private static void assertAbove(Node pUpper, Node pLower)
+	{
+		assertTrue(NodeViewerRegistry.getBounds(pUpper).getMaxY() + SegmentationStyleFactory.getMinimumSegmentationGap() <= 
+				NodeViewerRegistry.getBounds(pLower).getY());
+	}
+	
+	private static boolean overlap(Rectangle pRectangle1, Rectangle pRectangle2)
+	{
+		return pRectangle1.getX() < pRectangle2.getMaxX() && pRectangle2.getX() < pRectangle1.getMaxX() &&
+				pRectangle1.getY() < pRectangle2.getMaxY() && pRectangle2.getY() < pRectangle1.getMaxY();
+	}
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.layout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.layout.LayeredLayout.Result;
+
+public class TestLayeredLayout
+{
+	private static final int LAYER_GAP = 60;
+	private static final int NODE_GAP = 40;
+	
+	private static ForkJoinPool aPool;
+	
+	private final LayeredLayout aLayout = new LayeredLayout(aPool, LAYER_GAP, NODE_GAP);
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		aPool = new ForkJoinPool(4);
+	}
+	
+	@AfterAll
+	public static void tearDownClass()
+	{
+		aPool.shutdown();
+	}
+	
+	@Test
+	public void testEmpty()
+	{
+		Result result = aLayout.layout(new int[0], new int[0], new int[0], new int[0]);
+		assertEquals(0, result.getCrossings());
+		assertEquals(0, result.getEdgeLength());
+	}
+	
+	@Test
+	public void testChain()
+	{
+		Result result = aLayout.layout(sizes(3, 100), sizes(3, 50), new int[] {0, 1}, new int[] {1, 2});
+		for( int i = 0; i < 3; i++ )
+		{
+			assertEquals(i, result.getLayer(i));
+			assertEquals(0, result.getX(i));
+			assertEquals(i * (50 + LAYER_GAP), result.getY(i));
+		}
+		assertEquals(0, result.getCrossings());
+		assertEquals(2 * (50 + LAYER_GAP), result.getEdgeLength(), 1e-9);
+	}
+	
+	@Test
+	public void testCycleIsBroken()
+	{
+		Result result = aLayout.layout(sizes(3, 100), sizes(3, 50), new int[] {0, 1, 2}, new int[] {1, 2, 0});
+		assertEquals(0, result.getLayer(0));
+		assertEquals(1, result.getLayer(1));
+		assertEquals(2, result.getLayer(2));
+	}
+	
+	@Test
+	public void testCycleKeepsSourceOnTop()
+	{
+		// 2 -> 0 -> 1 -> 0: node 2 is the only node without an upper neighbor.
+		Result result = aLayout.layout(sizes(3, 100), sizes(3, 50), new int[] {0, 1, 2}, new int[] {1, 0, 0});
+		assertEquals(0, result.getLayer(2));
+		assertEquals(1, result.getLayer(0));
+		assertEquals(2, result.getLayer(1));
+	}
+	
+	@Test
+	public void testSelfEdgeIsIgnored()
+	{
+		Result result = aLayout.layout(sizes(2, 100), sizes(2, 50), new int[] {0, 0}, new int[] {0, 1});
+		assertEquals(0, result.getLayer(0));
+		assertEquals(1, result.getLayer(1));
+	}
+	
+	@Test
+	public void testParentIsCenteredOverChildren()
+	{
+		Result result = aLayout.layout(sizes(4, 100), sizes(4, 50), new int[] {0, 0, 0}, new int[] {1, 2, 3});
+		int left = Integer.MAX_VALUE;
+		int right = Integer.MIN_VALUE;
+		for( int i = 1; i < 4; i++ )
+		{
+			assertEquals(1, result.getLayer(i));
+			left = Math.min(left, result.getX(i));
+			right = Math.max(right, result.getX(i));
+		}
+		assertEquals(0, left);
+		assertEquals(2 * (100 + NODE_GAP), right);
+		assertEquals(100 + NODE_GAP, result.getX(0));
+		assertEquals(0, result.getCrossings());
+	}
+	
+	@Test
+	public void testCrossingIsRemoved()
+	{
+		Result result = aLayout.layout(sizes(4, 100), sizes(4, 50), new int[] {0, 1}, new int[] {3, 2});
+		assertEquals(0, result.getCrossings());
+		assertTrue((result.getX(0) < result.getX(1)) == (result.getX(3) < result.getX(2)));
+	}
+	
+	@Test
+	public void testLongEdgeDoesNotCross()
+	{
+		// 0 -> 1 -> 2 and 0 -> 2, with a dummy node for 0 -> 2 on layer 1.
+		Result result = aLayout.layout(sizes(3, 100), sizes(3, 50), new int[] {0, 1, 0}, new int[] {1, 2, 2});
+		assertEquals(2, result.getLayer(2));
+		assertEquals(0, result.getCrossings());
+	}
+	
+	@Test
+	public void testNodesOfALayerDoNotOverlap()
+	{
+		Random random = new Random(0);
+		int nodes = 300;
+		int[] widths = new int[nodes];
+		int[] uppers = new int[nodes * 2];
+		int[] lowers = new int[nodes * 2];
+		for( int i = 0; i < nodes; i++ )
+		{
+			widths[i] = 50 + random.nextInt(100);
+		}
+		for( int j = 0; j < uppers.length; j++ )
+		{
+			uppers[j] = random.nextInt(nodes);
+			lowers[j] = random.nextInt(nodes);
+		}
+		Result result = aLayout.layout(widths, sizes(nodes, 50), uppers, lowers);
+		for( int i = 0; i < nodes; i++ )
+		{
+			for( int j = i + 1; j < nodes; j++ )
+			{
+				if( result.getLayer(i) == result.getLayer(j) )
+				{
+					assertEquals(result.getY(i), result.getY(j));
+					assertTrue(result.getX(i) + widths[i] + NODE_GAP <= result.getX(j) + 1 || 
+							result.getX(j) + widths[j] + NODE_GAP <= result.getX(i) + 1);
+				}
+			}
+		}
+		for( int j = 0; j < uppers.length; j++ )
+		{
+			assertTrue(uppers[j] == lowers[j] || result.getLayer(uppers[j]) != result.getLayer(lowers[j]));
+		}
+	}
+	
+	@Test
+	public void testResultDoesNotDependOnParallelism()
+	{
+		Random random = new Random(1);
+		int nodes = 500;
+		int[] uppers = new int[nodes];
+		int[] lowers = new int[nodes];
+		for( int j = 0; j < nodes; j++ )
+		{
+			uppers[j] = random.nextInt(nodes);
+			lowers[j] = random.nextInt(nodes);
+		}
+		ForkJoinPool sequential = new ForkJoinPool(1);
+		Result expected = new LayeredLayout(sequential, LAYER_GAP, NODE_GAP).layout(sizes(nodes, 80), sizes(nodes, 50), uppers, lowers);
+		sequential.shutdown();
+		Result actual = aLayout.layout(sizes(nodes, 80), sizes(nodes, 50), uppers, lowers);
+		assertEquals(expected.getCrossings(), actual.getCrossings());
+		for( int i = 0; i < nodes; i++ )
+		{
+			assertEquals(expected.getX(i), actual.getX(i));
+			assertEquals(expected.getY(i), actual.getY(i));
+		}
+	}
+	
+	private static int[] sizes(int pNodes, int pSize)
+	{
+		int[] sizes = new int[pNodes];
+		Arrays.fill(sizes, pSize);
+		return sizes;
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.json.JSONObject;
+
+/**
+ * Compares the size of the JSON and binary encodings of the diagram files
+ * in a directory, and the time taken to encode and decode them. This is not 
+ * a unit test: run it as an application, optionally with the directory and 
+ * the number of iterations as arguments.
+ */
+public final class BinaryEncodingBenchmark
+{
+	private static final String DEFAULT_DIRECTORY = "testdata";
+	private static final int DEFAULT_ITERATIONS = 2000;
+	private static final double NANOS_PER_MICRO = 1000.0;
+	
+	private BinaryEncodingBenchmark() {}
+	
+	/**
+	 * @param pArgs The directory of diagram files and the number of iterations, both optional.
+	 * @throws IOException If a file cannot be read.
+	 */
+	public static void main(String[] pArgs) throws IOException
+	{
+		Path directory = Path.of(pArgs.length > 0 ? pArgs[0] : DEFAULT_DIRECTORY);
+		int iterations = pArgs.length > 1 ? Integer.parseInt(pArgs[1]) : DEFAULT_ITERATIONS;
+		List<Path> files = Files.list(directory)
+				.filter(TestBinaryEncoding::isJson)
+				.sorted()
+				.collect(Collectors.toList());
+		
+		System.out.println(String.format("%-40s %10s %10s %7s %12s %12s %12s %12s", "File", "JSON (B)", "Binary (B)", "Ratio",
+				"JSON enc", "Binary enc", "JSON dec", "Binary dec"));
+		for( Path file : files )
+		{
+			String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+			JSONObject object = new JSONObject(json);
+			byte[] binary = BinaryEncoding.encode(object);
+			
+			double jsonEncode = time(iterations, () -> object.toString());
+			double binaryEncode = time(iterations, () -> BinaryEncoding.encode(object));
+			double jsonDecode = time(iterations, () -> new JSONObject(json));
+			double binaryDecode = time(iterations, () -> BinaryEncoding.decode(ByteBuffer.wrap(binary)));
+			
+			int jsonSize = json.getBytes(StandardCharsets.UTF_8).length;
+			System.out.println(String.format("%-40s %10d %10d %7.2f %10.1fus %10.1fus %10.1fus %10.1fus", 
+					file.getFileName(), jsonSize, binary.length, binary.length / (double) jsonSize,
+					jsonEncode, binaryEncode, jsonDecode, binaryDecode));
+		}
+	}
+	
+	/*
+	 * Returns the average time of a run in microseconds, after an equal number of warm-up runs.
+	 */
+	private static double time(int pIterations, Runnable pRunnable)
+	{
+		for( int i = 0; i < pIterations; i++ )
+		{
+			pRunnable.run();
+		}
+		long start = System.nanoTime();
+		for( int i = 0; i < pIterations; i++ )
+		{
+			pRunnable.run();
+		}
+		return (System.nanoTime() - start) / NANOS_PER_MICRO / pIterations;
+	}
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+
+public class TestBinaryEncoding
+{
+	private static final Path TEST_FILES = Path.of("testdata");
+	
+	private static Stream<Path> testFiles() throws IOException
+	{
+		return Files.list(TEST_FILES).filter(TestBinaryEncoding::isJson).sorted();
+	}
+	
+	/*
+	 * The test data also contains files in the legacy XML format.
+	 */
+	static boolean isJson(Path pPath)
+	{
+		try
+		{
+			byte[] content = Files.readAllBytes(pPath);
+			return pPath.toString().endsWith(".jet") && content.length > 0 && content[0] == '{';
+		}
+		catch( IOException exception )
+		{
+			return false;
+		}
+	}
+	
+	private static JSONObject roundTrip(JSONObject pObject)
+	{
+		return BinaryEncoding.decode(ByteBuffer.wrap(BinaryEncoding.encode(pObject)));
+	}
+	
+	@ParameterizedTest
+	@MethodSource("testFiles")
+	public void testRoundTripTestFiles(Path pPath) throws IOException
+	{
+		byte[] json = Files.readAllBytes(pPath);
+		JSONObject object = new JSONObject(new String(json, StandardCharsets.UTF_8));
+		byte[] binary = BinaryEncoding.encode(object);
+		assertTrue(binary.length < json.length);
+		assertEquals(object.toMap(), BinaryEncoding.decode(ByteBuffer.wrap(binary)).toMap());
+	}
+	
+	@Test
+	public void testRoundTripValues()
+	{
+		JSONObject object = new JSONObject();
+		object.put("zero", 0);
+		object.put("negative", -300);
+		object.put("min", Integer.MIN_VALUE);
+		object.put("max", Integer.MAX_VALUE);
+		object.put("long", Long.MAX_VALUE);
+		object.put("double", 2.5);
+		object.put("true", true);
+		object.put("false", false);
+		object.put("null", JSONObject.NULL);
+		object.put("empty", "");
+		object.put("text", "\u00E9t\u00E9 \u6F22\u5B57");
+		object.put("array", new JSONArray(Arrays.asList(1, "text", new JSONArray(), new JSONObject())));
+		JSONObject result = roundTrip(object);
+		assertEquals(object.toMap(), result.toMap());
+		assertEquals(Integer.MIN_VALUE, result.get("min"));
+		assertEquals(Long.MAX_VALUE, result.get("long"));
+		assertEquals(JSONObject.NULL, result.get("null"));
+	}
+	
+	@Test
+	public void testStringsStoredOnce()
+	{
+		JSONObject object = new JSONObject();
+		JSONArray array = new JSONArray();
+		for( int i = 0; i < 100; i++ )
+		{
+			array.put(new JSONObject().put("type", "ClassNode"));
+		}
+		object.put("nodes", array);
+		byte[] binary = BinaryEncoding.encode(object);
+		String content = new String(binary, StandardCharsets.ISO_8859_1);
+		assertEquals(content.indexOf("ClassNode"), content.lastIndexOf("ClassNode"));
+	}
+	
+	@Test
+	public void testIsBinary()
+	{
+		assertTrue(BinaryEncoding.isBinary(ByteBuffer.wrap(BinaryEncoding.encode(new JSONObject()))));
+		assertFalse(BinaryEncoding.isBinary(ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8))));
+		assertFalse(BinaryEncoding.isBinary(ByteBuffer.wrap(new byte[] {'J', 'E'})));
+	}
+	
+	@Test
+	public void testDecodeMalformed()
+	{
+		byte[] binary = BinaryEncoding.encode(new JSONObject().put("key", "value"));
+		assertThrows(DeserializationException.class, () -> BinaryEncoding.decode(ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8))));
+		assertThrows(DeserializationException.class, () -> BinaryEncoding.decode(ByteBuffer.wrap(Arrays.copyOf(binary, binary.length - 1))));
+		assertThrows(DeserializationException.class, () -> BinaryEncoding.decode(ByteBuffer.wrap(Arrays.copyOf(binary, 5))));
+		byte[] version = binary.clone();
+		version[4] = 99;
+		assertThrows(DeserializationException.class, () -> BinaryEncoding.decode(ByteBuffer.wrap(version)));
+	}
+	
+	@Test
+	public void testPersistenceService() throws IOException
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		ClassNode node = new ClassNode();
+		node.setName("Node");
+		node.translate(10, 20);
+		diagram.addRootNode(node);
+		File binary = File.createTempFile("diagram", ".class.jetb");
+		File json = File.createTempFile("diagram", ".class.jet");
+		try
+		{
+			PersistenceService.save(diagram, binary);
+			PersistenceService.save(diagram, json);
+			assertTrue(BinaryEncoding.isBinary(ByteBuffer.wrap(Files.readAllBytes(binary.toPath()))));
+			assertTrue(binary.length() < json.length());
+			Diagram read = PersistenceService.read(binary).diagram();
+			assertEquals(1, read.rootNodes().size());
+			assertEquals("Node", ((ClassNode) read.rootNodes().get(0)).getName());
+			assertEquals(20, read.rootNodes().get(0).position().getY());
+			
+			// The format is recognized by content, not by extension
+			Files.copy(binary.toPath(), json.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			assertEquals("Node", ((ClassNode) PersistenceService.read(json).diagram().rootNodes().get(0)).getName());
+		}
+		finally
+		{
+			Files.deleteIfExists(binary.toPath());
+			Files.deleteIfExists(json.toPath());
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+import ca.mcgill.cs.jetuml.geom.Line;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+
+public class TestDiagramIndex
+{
+	private Diagram aDiagram;
+	private ClassNode aClass1;
+	private ClassNode aClass2;
+	private PackageNode aPackage;
+	private File aFile;
+	
+	@BeforeEach
+	public void setUp() throws IOException
+	{
+		aDiagram = new Diagram(DiagramType.CLASS);
+		aClass1 = new ClassNode();
+		aClass2 = new ClassNode();
+		aClass2.translate(200, 100);
+		aPackage = new PackageNode();
+		aPackage.translate(0, 300);
+		aPackage.addChild(aClass2);
+		aDiagram.addRootNode(aClass1);
+		aDiagram.addRootNode(aPackage);
+		DependencyEdge edge = new DependencyEdge();
+		edge.connect(aClass2, aClass1, aDiagram);
+		aDiagram.addEdge(edge);
+		aFile = File.createTempFile("diagram", ".class.jet");
+		PersistenceService.save(aDiagram, aFile);
+	}
+	
+	@AfterEach
+	public void tearDown() throws IOException
+	{
+		Files.deleteIfExists(PersistenceService.logFileFor(aFile).toPath());
+		Files.deleteIfExists(new File(aFile.getPath() + ".idx").toPath());
+		Files.deleteIfExists(aFile.toPath());
+	}
+	
+	private static Rectangle bounds(Node pNode)
+	{
+		return new Rectangle(pNode.position().getX(), pNode.position().getY(), 100, 50);
+	}
+	
+	private DiagramIndex createIndex()
+	{
+		return DiagramIndex.create(aDiagram, TestDiagramIndex::bounds);
+	}
+	
+	@Test
+	public void testCreate()
+	{
+		DiagramIndex index = createIndex();
+		assertSame(DiagramType.CLASS, index.diagramType());
+		assertEquals(4, index.size());
+		assertEquals(Arrays.asList("ClassNode", "PackageNode", "ClassNode"), 
+				Arrays.asList(index.nodes().get(0).getType(), index.nodes().get(1).getType(), index.nodes().get(2).getType()));
+		assertEquals(new Rectangle(200, 100, 100, 50), index.nodes().get(2).getBounds());
+		assertEquals("DependencyEdge", index.edges().get(0).getType());
+		assertEquals(2, index.edges().get(0).getStart());
+		assertEquals(0, index.edges().get(0).getEnd());
+		assertEquals(new Rectangle(0, 0, 300, 350), index.getBounds());
+	}
+	
+	@Test
+	public void testGetBoundsEmpty()
+	{
+		assertEquals(new Rectangle(0, 0, 0, 0), 
+				DiagramIndex.create(new Diagram(DiagramType.CLASS), TestDiagramIndex::bounds).getBounds());
+	}
+	
+	@Test
+	public void testJSONRoundTrip()
+	{
+		DiagramIndex index = DiagramIndex.fromJSONObject(createIndex().toJSONObject());
+		assertEquals(4, index.size());
+		assertEquals(new Rectangle(0, 300, 100, 50), index.nodes().get(1).getBounds());
+		assertEquals(2, index.edges().get(0).getStart());
+	}
+	
+	@Test
+	public void testJSONRoundTripWithRoutes()
+	{
+		Line route = new Line(new Point(250, 100), new Point(50, 50));
+		DiagramIndex index = DiagramIndex.fromJSONObject(
+				DiagramIndex.create(aDiagram, TestDiagramIndex::bounds, pEdge -> route).toJSONObject());
+		assertEquals(route.getPoint1(), index.edges().get(0).getRoute().get().getPoint1());
+		assertEquals(route.getPoint2(), index.edges().get(0).getRoute().get().getPoint2());
+		assertFalse(DiagramIndex.fromJSONObject(createIndex().toJSONObject()).edges().get(0).getRoute().isPresent());
+	}
+	
+	@Test
+	public void testMatchesDiagramReadFromFile() throws IOException
+	{
+		Line route = new Line(new Point(250, 100), new Point(50, 50));
+		DiagramIndex index = DiagramIndex.create(aDiagram, TestDiagramIndex::bounds, pEdge -> route);
+		Diagram diagram = PersistenceService.read(aFile).diagram();
+		assertTrue(index.matches(diagram));
+		Node classInPackage = diagram.rootNodes().get(1).getChildren().get(0);
+		assertEquals(new Rectangle(200, 100, 100, 50), index.getNodeBounds(diagram).get(classInPackage));
+		assertEquals(3, index.getNodeBounds(diagram).size());
+		assertSame(route, index.getRoutes(diagram).get(diagram.edges().get(0)));
+	}
+	
+	@Test
+	public void testDoesNotMatch()
+	{
+		Line route = new Line(new Point(250, 100), new Point(50, 50));
+		assertFalse(createIndex().matches(aDiagram));
+		DiagramIndex index = DiagramIndex.create(aDiagram, TestDiagramIndex::bounds, pEdge -> route);
+		assertFalse(index.matches(new Diagram(DiagramType.OBJECT)));
+		aDiagram.addRootNode(new ClassNode());
+		assertFalse(index.matches(aDiagram));
+		aDiagram.removeRootNode(aClass1);
+		assertFalse(index.matches(aDiagram));
+	}
+	
+	@Test
+	public void testFromJSONObjectInvalidRoutes()
+	{
+		JSONObject object = DiagramIndex.create(aDiagram, TestDiagramIndex::bounds, 
+				pEdge -> new Line(new Point(0, 0), new Point(1, 1))).toJSONObject();
+		object.getJSONArray("routes").put(0).put(0).put(1).put(1);
+		assertThrows(DeserializationException.class, () -> DiagramIndex.fromJSONObject(object));
+	}
+	
+	@Test
+	public void testFromJSONObjectInvalid()
+	{
+		JSONObject object = createIndex().toJSONObject();
+		object.put("diagram", "Invalid");
+		assertThrows(DeserializationException.class, () -> DiagramIndex.fromJSONObject(object));
+		JSONObject edges = createIndex().toJSONObject();
+		edges.getJSONArray("edges").put("DependencyEdge").put(0).put(3);
+		assertThrows(DeserializationException.class, () -> DiagramIndex.fromJSONObject(edges));
+	}
+	
+	@Test
+	public void testWriteAndReadIndex() throws IOException
+	{
+		assertFalse(DiagramIndexFile.read(aFile).isPresent());
+		DiagramIndexFile.write(aFile, createIndex());
+		Optional<DiagramIndex> index = DiagramIndexFile.read(aFile);
+		assertTrue(index.isPresent());
+		assertEquals(4, index.get().size());
+	}
+	
+	@Test
+	public void testWriteIndexLater() throws IOException
+	{
+		DiagramIndexFile.writeLater(aFile, createIndex());
+		DiagramIndexFile.flush();
+		assertTrue(DiagramIndexFile.read(aFile).isPresent());
+	}
+	
+	@Test
+	public void testIndexIgnoredWhenFileChanges() throws IOException
+	{
+		DiagramIndexFile.write(aFile, createIndex());
+		Files.write(aFile.toPath(), new byte[] {' '}, StandardOpenOption.APPEND);
+		assertFalse(DiagramIndexFile.read(aFile).isPresent());
+	}
+	
+	@Test
+	public void testIndexIgnoredWhenLogChanges() throws IOException
+	{
+		DiagramIndexFile.write(aFile, createIndex());
+		DiagramJournal journal = new DiagramJournal(aDiagram);
+		aClass1.translate(10, 10);
+		PersistenceService.appendToLog(aFile, Arrays.asList(journal.record(Arrays.asList(aClass1))));
+		assertFalse(DiagramIndexFile.read(aFile).isPresent());
+		DiagramIndexFile.write(aFile, createIndex());
+		assertTrue(DiagramIndexFile.read(aFile).isPresent());
+	}
+	
+	@Test
+	public void testSaveDeletesIndex() throws IOException
+	{
+		DiagramIndexFile.write(aFile, createIndex());
+		PersistenceService.save(aDiagram, aFile);
+		assertFalse(new File(aFile.getPath() + ".idx").exists());
+	}
+	
+	@Test
+	public void testCorruptIndexIgnored() throws IOException
+	{
+		Files.write(new File(aFile.getPath() + ".idx").toPath(), new byte[] {'J', 'E', 'T', 'B', 1, 2});
+		assertFalse(DiagramIndexFile.read(aFile).isPresent());
+	}
+}
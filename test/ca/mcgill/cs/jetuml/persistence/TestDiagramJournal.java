@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.Property;
+import ca.mcgill.cs.jetuml.diagram.edges.AggregationEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.ObjectReferenceEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.FieldNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.ObjectNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+
+public class TestDiagramJournal
+{
+	private Diagram aDiagram;
+	private ClassNode aClass1;
+	private ClassNode aClass2;
+	private PackageNode aPackage;
+	private ClassNode aClass3;
+	private DependencyEdge aEdge1;
+	private AggregationEdge aEdge2;
+	private JSONObject aSnapshot;
+	private DiagramJournal aJournal;
+	private List<JSONObject> aEntries;
+	
+	@BeforeEach
+	public void setUp()
+	{
+		aDiagram = new Diagram(DiagramType.CLASS);
+		aClass1 = new ClassNode();
+		aClass1.setName("Class1");
+		aClass2 = new ClassNode();
+		aClass2.setName("Class2");
+		aClass2.translate(200, 0);
+		aPackage = new PackageNode();
+		aPackage.setName("package");
+		aClass3 = new ClassNode();
+		aClass3.setName("Class3");
+		aPackage.addChild(aClass3);
+		aDiagram.addRootNode(aClass1);
+		aDiagram.addRootNode(aClass2);
+		aDiagram.addRootNode(aPackage);
+		aEdge1 = new DependencyEdge();
+		aEdge1.connect(aClass1, aClass2, aDiagram);
+		aDiagram.addEdge(aEdge1);
+		aEdge2 = new AggregationEdge();
+		aEdge2.connect(aClass2, aClass3, aDiagram);
+		aDiagram.addEdge(aEdge2);
+		startJournal();
+	}
+	
+	private void startJournal()
+	{
+		aSnapshot = JsonEncoder.encode(aDiagram.duplicate());
+		aJournal = new DiagramJournal(aDiagram);
+		aEntries = new ArrayList<>();
+	}
+	
+	private void record(DiagramElement... pElements)
+	{
+		// Entries are written as text and must be self-contained
+		aEntries.add(new JSONObject(aJournal.record(Arrays.asList(pElements)).toString()));
+	}
+	
+	private void assertReplayed()
+	{
+		assertEquals(canonical(aDiagram), canonical(DiagramJournal.replay(aSnapshot, aEntries)));
+	}
+	
+	/*
+	 * An encoding of the diagram that does not depend on the identifiers
+	 * of the nodes.
+	 */
+	private static String canonical(Diagram pDiagram)
+	{
+		Map<Node, Integer> order = new IdentityHashMap<>();
+		JSONArray nodes = new JSONArray();
+		for( Node node : pDiagram.rootNodes() )
+		{
+			nodes.put(canonical(node, order));
+		}
+		JSONArray edges = new JSONArray();
+		for( Edge edge : pDiagram.edges() )
+		{
+			JSONObject object = properties(edge);
+			object.put("start", order.get(edge.getStart()));
+			object.put("end", order.get(edge.getEnd()));
+			edges.put(object);
+		}
+		return nodes.toString() + edges.toString();
+	}
+	
+	private static JSONObject canonical(Node pNode, Map<Node, Integer> pOrder)
+	{
+		pOrder.put(pNode, pOrder.size());
+		JSONObject object = properties(pNode);
+		JSONArray children = new JSONArray();
+		for( Node child : pNode.getChildren() )
+		{
+			children.put(canonical(child, pOrder));
+		}
+		object.put("children", children);
+		return object;
+	}
+	
+	private static JSONObject properties(DiagramElement pElement)
+	{
+		JSONObject object = new JSONObject();
+		object.put("type", pElement.getClass().getSimpleName());
+		for( Property property : pElement.properties() )
+		{
+			object.put(property.getName(), property.get().toString());
+		}
+		return object;
+	}
+	
+	@Test
+	public void testNoEntries()
+	{
+		assertReplayed();
+	}
+	
+	@Test
+	public void testMoveAndEdit()
+	{
+		aClass1.translate(10, 20);
+		aPackage.translate(5, 5);
+		record(aClass1, aPackage);
+		aClass2.setName("Renamed");
+		record(aClass2);
+		aEdge1.properties().get("middleLabel").set("label");
+		record(aEdge1);
+		assertReplayed();
+	}
+	
+	@Test
+	public void testAddNodesAndEdges()
+	{
+		PackageNode newPackage = new PackageNode();
+		ClassNode newClass = new ClassNode();
+		newClass.setName("New");
+		newPackage.addChild(newClass);
+		aDiagram.addRootNode(newPackage);
+		record(newPackage);
+		ClassNode child = new ClassNode();
+		aPackage.addChild(0, child);
+		child.attach(aDiagram);
+		DependencyEdge edge = new DependencyEdge();
+		edge.connect(newClass, child, aDiagram);
+		aDiagram.addEdge(1, edge);
+		record(child, edge);
+		assertReplayed();
+	}
+	
+	@Test
+	public void testAddEdgeToUnrecordedNode()
+	{
+		ClassNode node = new ClassNode();
+		aDiagram.addRootNode(node);
+		DependencyEdge edge = new DependencyEdge();
+		edge.connect(aClass1, node, aDiagram);
+		aDiagram.addEdge(edge);
+		record(edge);
+		assertReplayed();
+	}
+	
+	@Test
+	public void testRemoveAndReinsert()
+	{
+		aDiagram.removeEdge(aEdge2);
+		aPackage.removeChild(aClass3);
+		aClass3.detach();
+		record(aEdge2, aClass3);
+		assertReplayed();
+		
+		aPackage.addChild(aClass3);
+		aClass3.attach(aDiagram);
+		aDiagram.addEdge(1, aEdge2);
+		record(aClass3, aEdge2);
+		assertReplayed();
+		
+		aDiagram.removeEdge(aEdge1);
+		aDiagram.removeEdge(aEdge2);
+		aDiagram.removeRootNode(aClass2);
+		record(aClass2, aEdge1, aEdge2);
+		assertReplayed();
+		
+		aDiagram.addRootNode(aClass2);
+		aDiagram.addEdge(0, aEdge1);
+		aDiagram.addEdge(1, aEdge2);
+		record(aClass2, aEdge1, aEdge2);
+		assertReplayed();
+	}
+	
+	@Test
+	public void testChangeParent()
+	{
+		aDiagram.removeRootNode(aClass1);
+		aPackage.addChild(aClass1);
+		aClass1.attach(aDiagram);
+		record(aClass1);
+		assertReplayed();
+		
+		aPackage.removeChild(aClass3);
+		aDiagram.addRootNode(aClass3);
+		record(aClass3);
+		assertReplayed();
+	}
+	
+	@Test
+	public void testFieldsInsertedInOrder()
+	{
+		ObjectNode object = new ObjectNode();
+		FieldNode field1 = new FieldNode();
+		field1.setName("field1");
+		FieldNode field2 = new FieldNode();
+		field2.setName("field2");
+		FieldNode field3 = new FieldNode();
+		field3.setName("field3");
+		object.addChild(field1);
+		object.addChild(field2);
+		object.addChild(field3);
+		Diagram diagram = new Diagram(DiagramType.OBJECT);
+		diagram.addRootNode(object);
+		aDiagram = diagram;
+		startJournal();
+		
+		object.removeChild(field2);
+		object.removeChild(field3);
+		record(field2, field3);
+		assertReplayed();
+		
+		object.addChild(1, field2);
+		object.addChild(2, field3);
+		ObjectReferenceEdge edge = new ObjectReferenceEdge();
+		edge.connect(field3, object, diagram);
+		diagram.addEdge(edge);
+		record(field3, field2, edge);
+		assertReplayed();
+	}
+	
+	@Test
+	public void testSnapshotAfterChanges()
+	{
+		aClass1.translate(10, 10);
+		record(aClass1);
+		startJournal();
+		aClass2.translate(10, 10);
+		record(aClass2);
+		assertReplayed();
+	}
+	
+	@Test
+	public void testUnknownIdentifier()
+	{
+		aEntries.add(new JSONObject("{\"removedEdges\":[42],\"removedNodes\":[],\"nodes\":[],\"edges\":[]}"));
+		assertThrows(DeserializationException.class, () -> DiagramJournal.replay(aSnapshot, aEntries));
+	}
+}
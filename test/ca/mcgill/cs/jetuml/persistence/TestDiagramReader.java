@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+
+public class TestDiagramReader
+{
+	private static final String PATH_TEST_FILES = "testdata/";
+	private static final long TIMEOUT_SECONDS = 10;
+	
+	private final DiagramReader aReader = new DiagramReader(Runnable::run);
+	
+	/*
+	 * Records the outcome of reading files, in the order of the callbacks for each file.
+	 */
+	private static final class Recorder implements DiagramReader.Listener
+	{
+		private final Map<File, List<String>> aEvents = new ConcurrentHashMap<>();
+		private final Map<File, Object> aResults = new ConcurrentHashMap<>();
+		private final CountDownLatch aLatch;
+		
+		Recorder(int pFiles)
+		{
+			aLatch = new CountDownLatch(pFiles);
+		}
+		
+		private void record(File pFile, String pEvent)
+		{
+			aEvents.computeIfAbsent(pFile, pKey -> new ArrayList<>()).add(pEvent);
+		}
+		
+		@Override
+		public void indexRead(File pFile, DiagramIndex pIndex)
+		{
+			record(pFile, "index");
+		}
+
+		@Override
+		public void diagramRead(File pFile, VersionedDiagram pDiagram, long pReadNanos)
+		{
+			record(pFile, "diagram");
+			aResults.put(pFile, pDiagram);
+			aLatch.countDown();
+		}
+
+		@Override
+		public void readFailed(File pFile, Exception pException)
+		{
+			record(pFile, "failed");
+			aResults.put(pFile, pException);
+			aLatch.countDown();
+		}
+		
+		void await() throws InterruptedException
+		{
+			assertTrue(aLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		}
+	}
+	
+	@Test
+	public void testReadSeveralFiles() throws InterruptedException
+	{
+		File[] files = new File(PATH_TEST_FILES).listFiles(pFile -> pFile.getName().startsWith("testPersistenceService"));
+		Recorder recorder = new Recorder(files.length);
+		for( File file : files )
+		{
+			aReader.read(file, recorder);
+		}
+		recorder.await();
+		assertEquals(files.length, recorder.aResults.size());
+		for( File file : files )
+		{
+			assertTrue(recorder.aResults.get(file) instanceof VersionedDiagram);
+			assertEquals(List.of("diagram"), recorder.aEvents.get(file));
+		}
+	}
+	
+	@Test
+	public void testReadIndexedFile() throws IOException, InterruptedException
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		diagram.addRootNode(new ClassNode());
+		File file = File.createTempFile("diagram", ".class.jet");
+		try
+		{
+			PersistenceService.save(diagram, file);
+			DiagramIndexFile.write(file, DiagramIndex.create(diagram, pNode -> new Rectangle(0, 0, 100, 50)));
+			Recorder recorder = new Recorder(1);
+			aReader.read(file, recorder);
+			recorder.await();
+			assertEquals(List.of("index", "diagram"), recorder.aEvents.get(file));
+			assertEquals(1, ((VersionedDiagram)recorder.aResults.get(file)).diagram().rootNodes().size());
+		}
+		finally
+		{
+			Files.deleteIfExists(PersistenceService.logFileFor(file).toPath());
+			Files.deleteIfExists(new File(file.getPath() + ".idx").toPath());
+			Files.deleteIfExists(file.toPath());
+		}
+	}
+	
+	@Test
+	public void testReadMissingFile() throws InterruptedException
+	{
+		File file = new File(PATH_TEST_FILES + "doesNotExist.class.jet");
+		Recorder recorder = new Recorder(1);
+		aReader.read(file, recorder);
+		recorder.await();
+		assertEquals(List.of("failed"), recorder.aEvents.get(file));
+		assertTrue(recorder.aResults.get(file) instanceof IOException);
+	}
+	
+	@Test
+	public void testReadEmptyFile() throws IOException, InterruptedException
+	{
+		File file = File.createTempFile("empty", ".class.jet");
+		try
+		{
+			assertFailed(file);
+		}
+		finally
+		{
+			Files.deleteIfExists(file.toPath());
+		}
+	}
+	
+	@Test
+	public void testReadInvalidVersion() throws IOException, InterruptedException
+	{
+		File file = File.createTempFile("version", ".class.jet");
+		try
+		{
+			Files.writeString(file.toPath(), "{\"version\":\"not a version\",\"diagram\":\"ClassDiagram\",\"nodes\":[],\"edges\":[]}");
+			assertFailed(file);
+		}
+		finally
+		{
+			Files.deleteIfExists(file.toPath());
+		}
+	}
+	
+	private void assertFailed(File pFile) throws InterruptedException
+	{
+		Recorder recorder = new Recorder(1);
+		aReader.read(pFile, recorder);
+		recorder.await();
+		assertEquals(List.of("failed"), recorder.aEvents.get(pFile));
+	}
+}
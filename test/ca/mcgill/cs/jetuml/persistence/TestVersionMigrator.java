@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.application.Version;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.edges.AssociationEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.InterfaceNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageDescriptionNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+
+public class TestVersionMigrator
+{
+	private static final String LEGACY_VERSION = "2.6.0";
+	
+	private Diagram aDiagram;
+	private ClassNode aClass1;
+	private ClassNode aClass2;
+	private ClassNode aClass3;
+	
+	@BeforeEach
+	public void setUp()
+	{
+		aDiagram = new Diagram(DiagramType.CLASS);
+		aClass1 = new ClassNode();
+		aClass1.setName("Class1");
+		aClass2 = new ClassNode();
+		aClass2.setName("Class2");
+		aClass3 = new ClassNode();
+		aClass3.setName("Class3");
+		aDiagram.addRootNode(aClass1);
+		aDiagram.addRootNode(aClass2);
+		aDiagram.addRootNode(aClass3);
+	}
+	
+	private void connect(Edge pEdge, Node pStart, Node pEnd)
+	{
+		pEdge.connect(pStart, pEnd, aDiagram);
+		aDiagram.addEdge(pEdge);
+	}
+	
+	private JSONObject encodeLegacy()
+	{
+		JSONObject object = JsonEncoder.encode(aDiagram);
+		object.put("version", LEGACY_VERSION);
+		return object;
+	}
+	
+	private static JSONObject edge(JSONObject pDiagram, int pIndex)
+	{
+		return pDiagram.getJSONArray("edges").getJSONObject(pIndex);
+	}
+	
+	@Test
+	public void testCompatibleVersionNotMigrated()
+	{
+		connect(new DependencyEdge(), aClass1, aClass2);
+		VersionedDiagram result = new VersionMigrator().migrate(JsonEncoder.encode(aDiagram));
+		assertFalse(result.wasMigrated());
+		assertEquals(1, result.diagram().edges().size());
+	}
+	
+	@Test
+	public void testLegacyWithoutRulesNotMigrated()
+	{
+		VersionedDiagram result = new VersionMigrator().migrate(encodeLegacy());
+		assertFalse(result.wasMigrated());
+		assertEquals(Version.parse(LEGACY_VERSION), result.version());
+		assertEquals(3, result.diagram().rootNodes().size());
+	}
+	
+	@Test
+	public void testDependencies()
+	{
+		connect(new DependencyEdge(), aClass1, aClass2);
+		connect(new DependencyEdge(), aClass1, aClass1);
+		connect(new DependencyEdge(), aClass2, aClass1);
+		connect(new DependencyEdge(), aClass2, aClass3);
+		JSONObject object = encodeLegacy();
+		edge(object, 0).put("middleLabel", "uses");
+		edge(object, 2).put("middleLabel", "calls");
+		edge(object, 0).remove("directionality");
+		
+		VersionedDiagram result = new VersionMigrator().migrate(object);
+		assertTrue(result.wasMigrated());
+		assertEquals(2, result.diagram().edges().size());
+		DependencyEdge dual = (DependencyEdge) result.diagram().edges().get(0);
+		assertEquals(DependencyEdge.Directionality.Bidirectional, dual.getDirectionality());
+		assertEquals("uses + calls", dual.getMiddleLabel());
+		assertSame(result.diagram().rootNodes().get(0), dual.getStart());
+		DependencyEdge single = (DependencyEdge) result.diagram().edges().get(1);
+		assertEquals(DependencyEdge.Directionality.Unidirectional, single.getDirectionality());
+		assertSame(result.diagram().rootNodes().get(2), single.getEnd());
+	}
+	
+	@Test
+	public void testAssociations()
+	{
+		connect(new AssociationEdge(), aClass1, aClass2);
+		connect(new AssociationEdge(), aClass1, aClass3);
+		connect(new AssociationEdge(), aClass2, aClass3);
+		connect(new AssociationEdge(), aClass3, aClass1);
+		JSONObject object = encodeLegacy();
+		edge(object, 0).put("directionality", "Start");
+		edge(object, 1).put("directionality", "End");
+		edge(object, 2).put("directionality", "Both");
+		edge(object, 3).put("directionality", "None");
+		
+		VersionedDiagram result = new VersionMigrator().migrate(object);
+		assertTrue(result.wasMigrated());
+		AssociationEdge flipped = (AssociationEdge) result.diagram().edges().get(0);
+		assertEquals(AssociationEdge.Directionality.Unidirectional, flipped.getDirectionality());
+		assertEquals("Class2", ((ClassNode) flipped.getStart()).getName());
+		assertEquals("Class1", ((ClassNode) flipped.getEnd()).getName());
+		assertEquals(AssociationEdge.Directionality.Unidirectional, 
+				((AssociationEdge) result.diagram().edges().get(1)).getDirectionality());
+		assertEquals(AssociationEdge.Directionality.Bidirectional, 
+				((AssociationEdge) result.diagram().edges().get(2)).getDirectionality());
+		assertEquals(AssociationEdge.Directionality.Unspecified, 
+				((AssociationEdge) result.diagram().edges().get(3)).getDirectionality());
+	}
+	
+	@Test
+	public void testNodes()
+	{
+		InterfaceNode interfaceNode = new InterfaceNode();
+		interfaceNode.setName("\u00ABinterface\u00BB Shape");
+		aDiagram.addRootNode(interfaceNode);
+		PackageNode withContents = new PackageNode();
+		withContents.setName("described");
+		aDiagram.addRootNode(withContents);
+		JSONObject object = encodeLegacy();
+		JSONArray nodes = object.getJSONArray("nodes");
+		nodes.getJSONObject(4).put("contents", "Description");
+		
+		VersionedDiagram result = new VersionMigrator().migrate(object);
+		assertTrue(result.wasMigrated());
+		assertEquals("Shape", ((InterfaceNode) result.diagram().rootNodes().get(3)).getName());
+		PackageDescriptionNode description = (PackageDescriptionNode) result.diagram().rootNodes().get(4);
+		assertEquals("described", description.getName());
+		assertEquals("Description", description.getContents());
+	}
+	
+	@Test
+	public void testMigrateAll() throws IOException
+	{
+		Path source = Files.createTempDirectory("legacy");
+		Path target = source.resolve("migrated");
+		try
+		{
+			connect(new DependencyEdge(), aClass1, aClass2);
+			connect(new DependencyEdge(), aClass2, aClass1);
+			Files.write(source.resolve("legacy.class.jet"), encodeLegacy().toString().getBytes(StandardCharsets.UTF_8));
+			Files.write(source.resolve("current.class.jet"), JsonEncoder.encode(aDiagram).toString().getBytes(StandardCharsets.UTF_8));
+			Files.write(source.resolve("invalid.class.jet"), "<?xml version=\"1.0\"?>".getBytes(StandardCharsets.UTF_8));
+			Files.write(source.resolve("notes.txt"), "Not a diagram".getBytes(StandardCharsets.UTF_8));
+			
+			MigrationReport report = VersionMigrator.migrateAll(source.toFile(), target.toFile());
+			assertEquals(3, report.outcomes().size());
+			assertEquals("current.class.jet", report.outcomes().get(0).getFile().getName());
+			assertFalse(report.outcomes().get(0).wasMigrated());
+			assertTrue(report.outcomes().get(1).getError().isPresent());
+			assertTrue(report.outcomes().get(2).wasMigrated());
+			assertEquals(1, report.getMigratedCount());
+			assertEquals(1, report.getFailureCount());
+			assertTrue(report.toString().endsWith("3 files, 1 migrated, 1 unchanged, 1 failed"));
+			
+			assertFalse(Files.exists(target.resolve("invalid.class.jet")));
+			VersionedDiagram migrated = PersistenceService.read(target.resolve("legacy.class.jet").toFile());
+			assertFalse(migrated.wasMigrated());
+			assertEquals(1, migrated.diagram().edges().size());
+		}
+		finally
+		{
+			try( Stream<Path> paths = Files.walk(source) )
+			{
+				paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.search;
+
+import java.util.Random;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.SimpleOperation;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+
+/**
+ * Measures the time to build the search index of a class diagram of 
+ * 50 000 classes with random names and methods, the average time of 
+ * queries of different lengths in both modes, and the average time to 
+ * index a renamed class again. Each measure is preceded by a run to warm up 
+ * the virtual machine. This is not a unit test: run it as an application, 
+ * without assertions, which check the whole diagram.
+ */
+public final class SearchIndexBenchmark
+{
+	private static final int CLASSES = 50_000;
+	private static final int METHODS = 4;
+	private static final int QUERIES = 1000;
+	private static final int RENAMES = 1000;
+	private static final int MAX_MATCHES = 100;
+	private static final int[] QUERY_LENGTHS = {1, 2, 3, 5, 8};
+	private static final String[] WORDS = {"account", "bank", "customer", "order", "item", "manager", "service", 
+			"controller", "factory", "builder", "node", "edge", "view", "model", "list", "map", "event", "handler", 
+			"reader", "writer", "parser", "token", "stream", "buffer", "cache", "pool", "query", "index", "record", "entry"};
+	private static final long SEED = 42;
+	
+	private SearchIndexBenchmark() {}
+	
+	/**
+	 * @param pArgs Not used.
+	 */
+	public static void main(String[] pArgs)
+	{
+		Random random = new Random(SEED);
+		Diagram diagram = createDiagram(random);
+		for( int i = 0; i < 2; i++ )
+		{
+			SearchIndex index = new SearchIndex(diagram);
+			long start = System.nanoTime();
+			index.size();
+			long buildNanos = System.nanoTime() - start;
+			StringBuilder results = new StringBuilder();
+			for( int length : QUERY_LENGTHS )
+			{
+				for( SearchMode mode : SearchMode.values() )
+				{
+					String[] queries = createQueries(random, length);
+					int matches = 0;
+					start = System.nanoTime();
+					for( String query : queries )
+					{
+						matches += index.search(query, mode, MAX_MATCHES).size();
+					}
+					long nanos = System.nanoTime() - start;
+					results.append(String.format("%n  %d characters, %s: %.1f us per query, %.1f matches", 
+							length, mode, nanos / 1e3 / QUERIES, matches / (double) QUERIES));
+				}
+			}
+			long updateNanos = 0;
+			for( int j = 0; j < RENAMES; j++ )
+			{
+				ClassNode node = (ClassNode) diagram.rootNodes().get(random.nextInt(CLASSES));
+				String name = node.getName();
+				String newName = name + j;
+				SimpleOperation rename = new SimpleOperation(() -> node.setName(newName), () -> node.setName(name), node);
+				rename.execute();
+				start = System.nanoTime();
+				index.operationExecuted(rename);
+				updateNanos += System.nanoTime() - start;
+			}
+			if( i > 0 )
+			{
+				System.out.println(String.format("%d texts indexed in %.0f ms, renames indexed in %.0f us; queries of at most %d matches:%s", 
+						index.size(), buildNanos / 1e6, updateNanos / 1e3 / RENAMES, MAX_MATCHES, results));
+			}
+		}
+	}
+	
+	private static String word(Random pRandom)
+	{
+		return WORDS[pRandom.nextInt(WORDS.length)];
+	}
+	
+	private static String capitalize(String pWord)
+	{
+		return Character.toUpperCase(pWord.charAt(0)) + pWord.substring(1);
+	}
+	
+	private static Diagram createDiagram(Random pRandom)
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		for( int i = 0; i < CLASSES; i++ )
+		{
+			ClassNode node = new ClassNode();
+			node.setName(capitalize(word(pRandom)) + capitalize(word(pRandom)) + i);
+			StringBuilder methods = new StringBuilder();
+			for( int j = 0; j < METHODS; j++ )
+			{
+				methods.append('+').append(word(pRandom)).append(capitalize(word(pRandom))).append("()\n");
+			}
+			node.setMethods(methods.toString());
+			diagram.addRootNode(node);
+		}
+		return diagram;
+	}
+	
+	/*
+	 * Queries that are the start of random words, and the 
+	 * start of a random class number for longer queries.
+	 */
+	private static String[] createQueries(Random pRandom, int pLength)
+	{
+		String[] queries = new String[QUERIES];
+		for( int i = 0; i < QUERIES; i++ )
+		{
+			String text = word(pRandom) + capitalize(word(pRandom));
+			queries[i] = text.substring(0, Math.min(pLength, text.length()));
+		}
+		return queries;
+	}
+}
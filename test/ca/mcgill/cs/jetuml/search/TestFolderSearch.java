@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+import ca.mcgill.cs.jetuml.persistence.PersistenceService;
+import ca.mcgill.cs.jetuml.persistence.SearchIndexFile;
+
+public class TestFolderSearch
+{
+	@TempDir
+	public File aFolder;
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@BeforeEach
+	public void setup() throws IOException
+	{
+		save("bank.jet", "BankAccount", "Customer");
+		save("shop.jet", "Order", "ShopCustomer");
+	}
+	
+	private File save(String pName, String pPackage, String pClass) throws IOException
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		PackageNode packageNode = new PackageNode();
+		packageNode.setName(pPackage);
+		ClassNode node = new ClassNode();
+		node.setName(pClass);
+		packageNode.addChild(node);
+		diagram.addRootNode(packageNode);
+		File file = new File(aFolder, pName);
+		PersistenceService.save(diagram, file);
+		return file;
+	}
+	
+	@Test
+	public void testSearch() throws IOException
+	{
+		FolderSearch search = FolderSearch.open(aFolder);
+		assertEquals(2, search.getFileCount());
+		assertEquals(2, search.getReadCount());
+		List<FolderSearch.Match> matches = search.search("customer", SearchMode.SUBSTRING, 10);
+		assertEquals(2, matches.size());
+		assertEquals(new File(aFolder, "bank.jet"), matches.get(0).getFile());
+		assertEquals("name", matches.get(0).getProperty());
+		assertEquals("Customer", matches.get(0).getText());
+		assertEquals("ShopCustomer", matches.get(1).getText());
+		assertEquals(1, search.search("customer", SearchMode.PREFIX, 10).size());
+		assertEquals(1, search.search("customer", SearchMode.SUBSTRING, 1).size());
+	}
+	
+	@Test
+	public void testIndexIsReused() throws IOException
+	{
+		assertTrue(FolderSearch.open(aFolder).isIndexSaved());
+		assertTrue(new File(aFolder, SearchIndexFile.NAME).isFile());
+		FolderSearch search = FolderSearch.open(aFolder);
+		assertEquals(0, search.getReadCount());
+		assertEquals(2, search.search("customer", SearchMode.SUBSTRING, 10).size());
+		
+		File shop = save("shop.jet", "Order", "Client");
+		assertTrue(shop.setLastModified(shop.lastModified() + 2000));
+		save("store.jet", "Store", "Customer");
+		search = FolderSearch.open(aFolder);
+		assertEquals(3, search.getFileCount());
+		assertEquals(2, search.getReadCount());
+		assertEquals(2, search.search("customer", SearchMode.SUBSTRING, 10).size());
+		assertEquals(1, search.search("client", SearchMode.SUBSTRING, 10).size());
+		
+		assertTrue(new File(aFolder, "bank.jet").delete());
+		search = FolderSearch.open(aFolder);
+		assertEquals(2, search.getFileCount());
+		assertEquals(0, search.getReadCount());
+		assertEquals(1, search.search("customer", SearchMode.SUBSTRING, 10).size());
+	}
+	
+	@Test
+	public void testUnreadableFile() throws IOException
+	{
+		Files.write(new File(aFolder, "broken.jet").toPath(), "not a diagram".getBytes());
+		Files.write(new File(aFolder, SearchIndexFile.NAME).toPath(), "not an index".getBytes());
+		FolderSearch search = FolderSearch.open(aFolder);
+		assertEquals(3, search.getFileCount());
+		assertEquals(2, search.search("customer", SearchMode.SUBSTRING, 10).size());
+	}
+	
+	@Test
+	public void testIndexCannotBeSaved() throws IOException
+	{
+		// The index is written to a temporary file first, which cannot be a directory.
+		assertTrue(new File(aFolder, SearchIndexFile.NAME + ".tmp").mkdir());
+		FolderSearch search = FolderSearch.open(aFolder);
+		assertFalse(search.isIndexSaved());
+		assertFalse(new File(aFolder, SearchIndexFile.NAME).exists());
+		assertEquals(2, search.search("customer", SearchMode.SUBSTRING, 10).size());
+	}
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.application.PropertyChangeTracker;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationProcessor;
+import ca.mcgill.cs.jetuml.diagram.builder.SimpleOperation;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+import ca.mcgill.cs.jetuml.geom.Point;
+
+public class TestSearchIndex
+{
+	private Diagram aDiagram;
+	private ClassDiagramBuilder aBuilder;
+	private DiagramOperationProcessor aProcessor;
+	private SearchIndex aIndex;
+	private ClassNode aNode1;
+	private ClassNode aNode2;
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@BeforeEach
+	public void setup()
+	{
+		aDiagram = new Diagram(DiagramType.CLASS);
+		aBuilder = new ClassDiagramBuilder(aDiagram);
+		aProcessor = new DiagramOperationProcessor();
+		aIndex = new SearchIndex(aDiagram);
+		aProcessor.addObserver(aIndex);
+		aNode1 = new ClassNode();
+		aNode1.setName("BankAccount");
+		aNode1.setMethods("+deposit()\n+withdraw()");
+		aNode2 = new ClassNode();
+		aNode2.setName("Customer");
+	}
+	
+	private void addTwoNodes()
+	{
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode1, new Point(10, 10)));
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode2, new Point(300, 200)));
+	}
+	
+	private List<DiagramElement> search(String pQuery)
+	{
+		return aIndex.search(pQuery, SearchMode.SUBSTRING, Integer.MAX_VALUE).stream()
+				.map(SearchIndex.Match::getElement)
+				.collect(Collectors.toList());
+	}
+	
+	private void rename(ClassNode pNode, String pName)
+	{
+		PropertyChangeTracker tracker = new PropertyChangeTracker(pNode);
+		tracker.startTracking();
+		pNode.setName(pName);
+		aProcessor.storeAlreadyExecutedOperation(tracker.stopTracking());
+	}
+	
+	@Test
+	public void testEmpty()
+	{
+		assertEquals(0, aIndex.size());
+		assertEquals(Arrays.asList(), search("a"));
+	}
+	
+	@Test
+	public void testMatches()
+	{
+		addTwoNodes();
+		List<SearchIndex.Match> matches = aIndex.search("with", SearchMode.PREFIX, 1);
+		assertEquals(1, matches.size());
+		assertSame(aNode1, matches.get(0).getElement());
+		assertEquals("methods", matches.get(0).getProperty());
+		assertEquals("+deposit()\n+withdraw()", matches.get(0).getText());
+		assertEquals(Arrays.asList(aNode1, aNode2), search("c"));
+		assertEquals(1, aIndex.search("c", SearchMode.SUBSTRING, 1).size());
+		assertEquals(0, aIndex.search("c", SearchMode.SUBSTRING, 0).size());
+	}
+	
+	@Test
+	public void testAddAndUndo()
+	{
+		addTwoNodes();
+		assertEquals(Arrays.asList(aNode2), search("customer"));
+		aProcessor.undoLastExecutedOperation();
+		assertEquals(Arrays.asList(), search("customer"));
+		aProcessor.redoLastUndoneOperation();
+		assertEquals(Arrays.asList(aNode2), search("customer"));
+	}
+	
+	@Test
+	public void testPropertyChange()
+	{
+		addTwoNodes();
+		search("a");
+		rename(aNode2, "Client");
+		assertEquals(Arrays.asList(), search("customer"));
+		assertEquals(Arrays.asList(aNode2), search("client"));
+		aProcessor.undoLastExecutedOperation();
+		assertEquals(Arrays.asList(aNode2), search("customer"));
+		assertEquals(Arrays.asList(), search("client"));
+	}
+	
+	@Test
+	public void testChildrenAndEdges()
+	{
+		PackageNode packageNode = new PackageNode();
+		packageNode.setName("bank");
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(packageNode, new Point(0, 0)));
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode1, new Point(10, 30)));
+		assertSame(packageNode, aNode1.getParent());
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode2, new Point(300, 200)));
+		DependencyEdge edge = new DependencyEdge();
+		edge.setMiddleLabel("uses bank");
+		aProcessor.executeNewOperation(aBuilder.createAddEdgeOperation(edge, new Point(320, 210), new Point(20, 40)));
+		assertEquals(Arrays.asList(packageNode, aNode1, edge), search("bank"));
+		aProcessor.executeNewOperation(aBuilder.createRemoveElementsOperation(Arrays.asList(packageNode)));
+		assertEquals(Arrays.asList(), search("bank"));
+		aProcessor.undoLastExecutedOperation();
+		assertEquals(3, search("bank").size());
+	}
+	
+	@Test
+	public void testUnknownEffect()
+	{
+		addTwoNodes();
+		search("a");
+		aProcessor.executeNewOperation(new SimpleOperation(() -> aNode2.setName("Client"), () -> aNode2.setName("Customer")));
+		assertEquals(Arrays.asList(aNode2), search("client"));
+		aProcessor.undoLastExecutedOperation();
+		assertEquals(Arrays.asList(aNode2), search("customer"));
+	}
+	
+	@Test
+	public void testInvalidate()
+	{
+		addTwoNodes();
+		search("a");
+		aNode2.setName("Client");
+		aIndex.invalidate();
+		assertEquals(Arrays.asList(aNode2), search("client"));
+	}
+	
+	@Test
+	public void testRebuildInBackground() throws InterruptedException
+	{
+		addTwoNodes();
+		aIndex.invalidate();
+		SearchIndex.Rebuild rebuild = aIndex.startRebuild();
+		Thread thread = new Thread(rebuild::build);
+		thread.start();
+		thread.join();
+		assertFalse(aIndex.isValid());
+		assertTrue(aIndex.finishRebuild(rebuild));
+		assertTrue(aIndex.isValid());
+		assertEquals(Arrays.asList(aNode1, aNode2), search("c"));
+		rename(aNode2, "Client");
+		assertEquals(Arrays.asList(aNode2), search("client"));
+	}
+	
+	@Test
+	public void testOutdatedRebuild()
+	{
+		addTwoNodes();
+		SearchIndex.Rebuild rebuild = aIndex.startRebuild();
+		rebuild.build();
+		aProcessor.executeNewOperation(new SimpleOperation(() -> aNode2.setName("Client"), () -> aNode2.setName("Customer")));
+		assertFalse(aIndex.finishRebuild(rebuild));
+		assertFalse(aIndex.isValid());
+		assertEquals(Arrays.asList(aNode2), search("client"));
+	}
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestTextIndex
+{
+	private TextIndex aIndex;
+	
+	@BeforeEach
+	public void setup()
+	{
+		aIndex = new TextIndex();
+	}
+	
+	private List<Integer> search(String pQuery, SearchMode pMode)
+	{
+		List<Integer> ids = new ArrayList<>();
+		aIndex.search(pQuery, pMode, pId -> ids.add(pId));
+		return ids;
+	}
+	
+	@Test
+	public void testEmpty()
+	{
+		assertEquals(0, aIndex.size());
+		assertEquals(Arrays.asList(), search("a", SearchMode.SUBSTRING));
+		assertEquals(Arrays.asList(), search("", SearchMode.SUBSTRING));
+	}
+	
+	@Test
+	public void testSubstring()
+	{
+		int account = aIndex.add("BankAccount");
+		int count = aIndex.add("count : int");
+		aIndex.add("Customer");
+		assertEquals(3, aIndex.size());
+		assertEquals(Arrays.asList(account, count), search("count", SearchMode.SUBSTRING));
+		assertEquals(Arrays.asList(account), search("kacc", SearchMode.SUBSTRING));
+		assertEquals(Arrays.asList(), search("counts", SearchMode.SUBSTRING));
+	}
+	
+	@Test
+	public void testPrefix()
+	{
+		aIndex.add("BankAccount");
+		int count = aIndex.add("count : int");
+		int method = aIndex.add("+getCount()\n+countAll()");
+		assertEquals(Arrays.asList(count, method), search("count", SearchMode.PREFIX));
+		assertEquals(Arrays.asList(count), search("int", SearchMode.PREFIX));
+	}
+	
+	@Test
+	public void testShortQueries()
+	{
+		int first = aIndex.add("ab");
+		int second = aIndex.add("b");
+		assertEquals(Arrays.asList(first, second), search("b", SearchMode.SUBSTRING));
+		assertEquals(Arrays.asList(second), search("b", SearchMode.PREFIX));
+		assertEquals(Arrays.asList(first), search("ab", SearchMode.SUBSTRING));
+	}
+	
+	@Test
+	public void testIgnoresCase()
+	{
+		int id = aIndex.add("BankAccount");
+		assertEquals(Arrays.asList(id), search("BANKACC", SearchMode.PREFIX));
+		assertEquals(Arrays.asList(id), search("account", SearchMode.SUBSTRING));
+	}
+	
+	@Test
+	public void testRepeatedGrams()
+	{
+		int id = aIndex.add("aaaa");
+		assertEquals(Arrays.asList(id), search("aaaa", SearchMode.SUBSTRING));
+		assertEquals(Arrays.asList(), search("aaaaa", SearchMode.SUBSTRING));
+	}
+	
+	@Test
+	public void testPurge()
+	{
+		List<Integer> ids = new ArrayList<>();
+		for( int i = 0; i < 10; i++ )
+		{
+			ids.add(aIndex.add("text" + i));
+		}
+		for( int i = 0; i < 8; i++ )
+		{
+			aIndex.remove(ids.get(i));
+		}
+		int id = aIndex.add("text10");
+		assertEquals(3, aIndex.size());
+		assertEquals(Arrays.asList(ids.get(8), ids.get(9), id), search("text", SearchMode.PREFIX));
+		assertEquals(Arrays.asList(id), search("10", SearchMode.SUBSTRING));
+		assertEquals(Arrays.asList(), search("text0", SearchMode.SUBSTRING));
+	}
+	
+	@Test
+	public void testStopsWhenAsked()
+	{
+		int first = aIndex.add("node");
+		aIndex.add("node");
+		List<Integer> ids = new ArrayList<>();
+		aIndex.search("node", SearchMode.SUBSTRING, pId -> ids.add(pId) && false);
+		assertEquals(Arrays.asList(first), ids);
+	}
+	
+	@Test
+	public void testRemove()
+	{
+		int first = aIndex.add("first");
+		int second = aIndex.add("second");
+		aIndex.remove(first);
+		assertFalse(aIndex.contains(first));
+		assertTrue(aIndex.contains(second));
+		assertEquals(1, aIndex.size());
+		assertEquals(Arrays.asList(), search("first", SearchMode.SUBSTRING));
+		assertEquals(Arrays.asList(second), search("s", SearchMode.SUBSTRING));
+		int third = aIndex.add("third");
+		assertTrue(third > second);
+		assertEquals(Arrays.asList(third), search("ir", SearchMode.SUBSTRING));
+		assertEquals(Arrays.asList(second, third), search("d", SearchMode.SUBSTRING));
+		aIndex.clear();
+		assertEquals(0, aIndex.size());
+		assertEquals(Arrays.asList(), search("s", SearchMode.SUBSTRING));
+	}
+}
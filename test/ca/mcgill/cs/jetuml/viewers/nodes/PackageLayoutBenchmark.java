@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.viewers.nodes;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+import ca.mcgill.cs.jetuml.geom.Point;
+
+/**
+ * Measures the cost of computing the bounds of nested packages, for nesting 
+ * depths 1 to 10. Each package holds a class and the next package. This is 
+ * not a unit test: run it as an application, optionally with the number of 
+ * iterations as argument. For each depth, reports the number of node bounds 
+ * computed for a single call on the outermost package, and the mean time of 
+ * that call.
+ */
+public final class PackageLayoutBenchmark
+{
+	private static final int DEFAULT_ITERATIONS = 10000;
+	private static final int MAX_DEPTH = 10;
+	private static final int OFFSET = 30;
+	
+	private static int aSink;
+	
+	private PackageLayoutBenchmark() {}
+	
+	/**
+	 * @param pArgs The number of iterations, optional.
+	 */
+	public static void main(String[] pArgs)
+	{
+		JavaFXLoader.load();
+		int iterations = pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : DEFAULT_ITERATIONS;
+		System.out.println(String.format("%-8s %14s %14s", "Depth", "Bounds/call", "Micros/call"));
+		for( int depth = 1; depth <= MAX_DEPTH; depth++ )
+		{
+			PackageNode root = createNested(depth);
+			System.out.println(String.format("%-8d %14d %14.2f", depth, countBounds(root), time(root, iterations)));
+		}
+		System.exit(0);
+	}
+	
+	/*
+	 * Returns depth packages nested in each other, each with a class.
+	 */
+	private static PackageNode createNested(int pDepth)
+	{
+		PackageNode root = new PackageNode();
+		PackageNode parent = root;
+		for( int i = 1; i <= pDepth; i++ )
+		{
+			ClassNode node = new ClassNode();
+			node.moveTo(new Point(i * OFFSET, i * OFFSET));
+			parent.addChild(node);
+			if( i < pDepth )
+			{
+				PackageNode child = new PackageNode();
+				child.moveTo(new Point(i * OFFSET, i * OFFSET * 2));
+				parent.addChild(child);
+				parent = child;
+			}
+		}
+		return root;
+	}
+	
+	private static long countBounds(PackageNode pRoot)
+	{
+		Metrics.reset();
+		Metrics.setEnabled(true);
+		NodeViewerRegistry.getBounds(pRoot);
+		long count = Metrics.counter(Metrics.NODE_BOUNDS).count();
+		Metrics.setEnabled(false);
+		return count;
+	}
+	
+	/*
+	 * Returns the mean time of a call in microseconds, after an equal number of warm-up calls.
+	 */
+	private static double time(PackageNode pRoot, int pIterations)
+	{
+		for( int i = 0; i < pIterations; i++ )
+		{
+			aSink += NodeViewerRegistry.getBounds(pRoot).getWidth();
+		}
+		long start = System.nanoTime();
+		for( int i = 0; i < pIterations; i++ )
+		{
+			aSink += NodeViewerRegistry.getBounds(pRoot).getWidth();
+		}
+		return (System.nanoTime() - start) / (double) pIterations / 1000;
+	}
+}
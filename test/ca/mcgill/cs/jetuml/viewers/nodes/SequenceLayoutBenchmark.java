@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.viewers.nodes;
+
+import static ca.mcgill.cs.jetuml.diagram.DiagramType.viewerFor;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.edges.CallEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.ImplicitParameterNode;
+
+/**
+ * Measures the time to compute the bounds of a sequence diagram, which 
+ * computes the geometry of every lifeline, call, and edge, as drawing it 
+ * does. The diagram has 50 lifelines. The first lifeline makes a number of 
+ * rounds of calls to each of the others, and each callee makes a call on the 
+ * next lifeline. This is not a unit test: run it as an application, optionally 
+ * with the number of rounds and the number of iterations as arguments.
+ */
+public final class SequenceLayoutBenchmark
+{
+	private static final int LIFELINES = 50;
+	private static final int DEFAULT_ROUNDS = 4;
+	private static final int DEFAULT_ITERATIONS = 20;
+	private static final int LIFELINE_SPACING = 100;
+	
+	private static int aSink;
+	
+	private SequenceLayoutBenchmark() {}
+	
+	/**
+	 * @param pArgs The number of rounds and the number of iterations, optional.
+	 */
+	public static void main(String[] pArgs)
+	{
+		JavaFXLoader.load();
+		int rounds = pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : DEFAULT_ROUNDS;
+		int iterations = pArgs.length > 1 ? Integer.parseInt(pArgs[1]) : DEFAULT_ITERATIONS;
+		Diagram diagram = createDiagram(rounds);
+		System.out.println(String.format("%d lifelines, %d calls", LIFELINES, diagram.edges().size()));
+		for( int i = 0; i < iterations; i++ )
+		{
+			aSink += viewerFor(diagram).getBounds(diagram).getHeight();
+		}
+		long start = System.nanoTime();
+		for( int i = 0; i < iterations; i++ )
+		{
+			aSink += viewerFor(diagram).getBounds(diagram).getHeight();
+		}
+		System.out.println(String.format("%.2f ms per computation of the bounds", 
+				(System.nanoTime() - start) / (double) iterations / 1000000));
+		System.exit(0);
+	}
+	
+	private static Diagram createDiagram(int pRounds)
+	{
+		Diagram diagram = new Diagram(DiagramType.SEQUENCE);
+		ImplicitParameterNode[] lifelines = new ImplicitParameterNode[LIFELINES];
+		for( int i = 0; i < LIFELINES; i++ )
+		{
+			lifelines[i] = new ImplicitParameterNode();
+			lifelines[i].translate(i * LIFELINE_SPACING, 0);
+			diagram.addRootNode(lifelines[i]);
+		}
+		CallNode root = addCall(diagram, lifelines[0]);
+		for( int round = 0; round < pRounds; round++ )
+		{
+			for( int i = 1; i < LIFELINES; i++ )
+			{
+				CallNode callee = addCall(diagram, lifelines[i]);
+				connect(diagram, root, callee);
+				connect(diagram, callee, addCall(diagram, lifelines[i % (LIFELINES - 1) + 1]));
+			}
+		}
+		return diagram;
+	}
+	
+	private static CallNode addCall(Diagram pDiagram, ImplicitParameterNode pLifeline)
+	{
+		CallNode call = new CallNode();
+		pLifeline.addChild(call);
+		call.attach(pDiagram);
+		return call;
+	}
+	
+	private static void connect(Diagram pDiagram, CallNode pCaller, CallNode pCallee)
+	{
+		CallEdge edge = new CallEdge();
+		edge.connect(pCaller, pCallee, pDiagram);
+		pDiagram.addEdge(edge);
+	}
+}
@@ -22,8 +22,11 @@ package ca.mcgill.cs.jetuml.viewers.nodes;
 
 import static ca.mcgill.cs.jetuml.testutils.GeometryUtils.osDependent;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.ref.WeakReference;
+
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -65,6 +68,25 @@ public class TestObjectNodeViewer
 		aField2.attach(aDiagram);
 	}
 	
+	@Test
+	public void testLayoutDoesNotRetainNodes() throws InterruptedException
+	{
+		aNode.addChild(aField1);
+		aNode.addChild(aField2);
+		aViewer.getYPosition(aNode, aField2);
+		WeakReference<ObjectNode> node = new WeakReference<>(aNode);
+		aNode = null;
+		aField1 = null;
+		aField2 = null;
+		aDiagram = null;
+		for( int i = 0; i < 50 && node.get() != null; i++ )
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(node.get());
+	}
+	
 	@Test
 	public void testGetSplitPosition_NoField()
 	{
@@ -103,6 +125,33 @@ public class TestObjectNodeViewer
 		assertEquals(osDependent(102, 101, 101), aViewer.getYPosition(aNode, aField2));
 	}
 	
+	@Test
+	public void testGetYPosition_FieldRemoved()
+	{
+		aNode.addChild(aField1);
+		aNode.addChild(aField2);
+		int yPosition = aViewer.getYPosition(aNode, aField2);
+		aNode.removeChild(aField1);
+		assertEquals(70, aViewer.getYPosition(aNode, aField2));
+		aNode.addChild(0, aField1);
+		assertEquals(yPosition, aViewer.getYPosition(aNode, aField2));
+	}
+	
+	@Test
+	public void testGetSplitPosition_FieldChanged()
+	{
+		aNode.addChild(aField1);
+		aNode.addChild(aField2);
+		int split = aViewer.getSplitPosition(aNode);
+		int width = aViewer.getBounds(aNode).getWidth();
+		aField2.properties().get("name").set("XXXXXXXXXXXXXXXXXXXX");
+		assertTrue(aViewer.getSplitPosition(aNode) > split);
+		aField2.setValue("XXXXXXXXXXXXXXXXXXXX");
+		assertTrue(aViewer.getBounds(aNode).getWidth() > width);
+		aField2.setName("");
+		assertEquals(split, aViewer.getSplitPosition(aNode));
+	}
+	
 	@Test
 	public void testGetBounds_NoFieldNoName()
 	{
@@ -34,6 +34,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.application.Metrics;
 import ca.mcgill.cs.jetuml.diagram.nodes.AbstractPackageNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
 import ca.mcgill.cs.jetuml.geom.Point;
@@ -139,6 +140,45 @@ public class TestPackageNodeViewer
 		assertEqualRectangles(0,20,100,60, getBottomBounds(aPackageNode1));
 	}
 	
+	@Test
+	public void testGetBoundsNested()
+	{
+		PackageNode inner = new PackageNode();
+		PackageNode leaf = new PackageNode();
+		leaf.moveTo(new Point(50, 60));
+		inner.addChild(leaf);
+		aPackageNode1.addChild(inner);
+		assertEqualRectangles(40,30,120,120, NodeViewerRegistry.getBounds(inner));
+		assertEqualRectangles(30,0,140,160, NodeViewerRegistry.getBounds(aPackageNode1));
+		assertEqualRectangles(30,0,60,20, getTopBounds(aPackageNode1));
+		assertEqualRectangles(30,20,140,140, getBottomBounds(aPackageNode1));
+	}
+	
+	@Test
+	public void testGetBoundsNestedVisitsEachNodeOnce()
+	{
+		final int depth = 10;
+		PackageNode parent = aPackageNode1;
+		for( int i = 1; i < depth; i++ )
+		{
+			PackageNode child = new PackageNode();
+			parent.addChild(child);
+			parent = child;
+		}
+		Metrics.reset();
+		Metrics.setEnabled(true);
+		try
+		{
+			NodeViewerRegistry.getBounds(aPackageNode1);
+			assertEquals(depth, Metrics.counter(Metrics.NODE_BOUNDS).count());
+		}
+		finally
+		{
+			Metrics.setEnabled(false);
+			Metrics.reset();
+		}
+	}
+	
 	private static final void assertEqualRectangles(int pExpectedX, int pExpectedY, int pExpectedWidth, int pExpectedHeight, Rectangle pRectangle)
 	{
 		assertEquals( pExpectedX, pRectangle.getX());
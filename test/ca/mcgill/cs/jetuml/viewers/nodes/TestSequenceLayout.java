@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.viewers.nodes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.edges.CallEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.ConstructorEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.ImplicitParameterNode;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+
+public class TestSequenceLayout
+{
+	private Diagram aDiagram;
+	private ImplicitParameterNode aParameter1;
+	private ImplicitParameterNode aParameter2;
+	private ImplicitParameterNode aParameter3;
+	private CallNode aCall1;
+	private CallNode aCall2;
+	private CallNode aCall3;
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	/*
+	 * aCall1 on aParameter1 calls aCall2 on aParameter2, then
+	 * constructs aParameter3 with aCall3.
+	 */
+	@BeforeEach
+	public void setup()
+	{
+		aDiagram = new Diagram(DiagramType.SEQUENCE);
+		aParameter1 = new ImplicitParameterNode();
+		aParameter2 = new ImplicitParameterNode();
+		aParameter3 = new ImplicitParameterNode();
+		aParameter2.translate(200, 0);
+		aParameter3.translate(400, 0);
+		aCall1 = new CallNode();
+		aCall2 = new CallNode();
+		aCall3 = new CallNode();
+		aDiagram.addRootNode(aParameter1);
+		aDiagram.addRootNode(aParameter2);
+		aDiagram.addRootNode(aParameter3);
+		aParameter1.addChild(aCall1);
+		aParameter2.addChild(aCall2);
+		aParameter3.addChild(aCall3);
+		aCall1.attach(aDiagram);
+		aCall2.attach(aDiagram);
+		aCall3.attach(aDiagram);
+		CallEdge call = new CallEdge();
+		call.connect(aCall1, aCall2, aDiagram);
+		aDiagram.addEdge(call);
+		ConstructorEdge constructor = new ConstructorEdge();
+		constructor.connect(aCall1, aCall3, aDiagram);
+		aDiagram.addEdge(constructor);
+	}
+	
+	@Test
+	public void testQuerySharesGeometry()
+	{
+		SequenceLayout.query(aDiagram, () -> 
+		{
+			assertSame(NodeViewerRegistry.getBounds(aParameter3), NodeViewerRegistry.getBounds(aParameter3));
+			assertSame(SequenceLayout.controlFlow(aDiagram), SequenceLayout.controlFlow(aDiagram));
+			return null;
+		});
+		assertNotSame(NodeViewerRegistry.getBounds(aParameter3), NodeViewerRegistry.getBounds(aParameter3));
+		assertNotSame(SequenceLayout.controlFlow(aDiagram), SequenceLayout.controlFlow(aDiagram));
+	}
+	
+	@Test
+	public void testQueryMatchesUnsharedGeometry()
+	{
+		for( Node node : new Node[] {aParameter1, aParameter2, aParameter3, aCall1, aCall2, aCall3})
+		{
+			Rectangle bounds = NodeViewerRegistry.getBounds(node);
+			assertEquals(bounds, SequenceLayout.query(aDiagram, () -> NodeViewerRegistry.getBounds(node)));
+		}
+	}
+	
+	@Test
+	public void testLongSequenceOfCalls()
+	{
+		final int calls = 5000;
+		CallNode[] nodes = new CallNode[calls];
+		for( int i = 0; i < calls; i++ )
+		{
+			nodes[i] = new CallNode();
+			aParameter2.addChild(nodes[i]);
+			nodes[i].attach(aDiagram);
+			CallEdge edge = new CallEdge();
+			edge.connect(aCall1, nodes[i], aDiagram);
+			aDiagram.addEdge(edge);
+		}
+		// The last call is after all the others, without exhausting the stack
+		Rectangle[] bounds = SequenceLayout.query(aDiagram, () -> new Rectangle[] {
+				NodeViewerRegistry.getBounds(nodes[calls - 1]), NodeViewerRegistry.getBounds(nodes[0]) });
+		assertEquals(bounds[1].getX(), bounds[0].getX());
+		assertEquals(bounds[1].getY() + (calls - 1) * (bounds[1].getHeight() + CallNode.CALL_YGAP), bounds[0].getY());
+	}
+	
+	@Test
+	public void testLayoutIsDiscardedAfterQuery()
+	{
+		Rectangle bounds = SequenceLayout.query(aDiagram, () -> NodeViewerRegistry.getBounds(aParameter2));
+		CallNode call = new CallNode();
+		aParameter2.addChild(call);
+		call.attach(aDiagram);
+		CallEdge edge = new CallEdge();
+		edge.connect(aCall1, call, aDiagram);
+		aDiagram.addEdge(edge);
+		assertNotEquals(bounds, SequenceLayout.query(aDiagram, () -> NodeViewerRegistry.getBounds(aParameter2)));
+	}
+	
+	@Test
+	public void testNestedQueryOnOtherDiagram()
+	{
+		Diagram other = new Diagram(DiagramType.SEQUENCE);
+		SequenceLayout.query(aDiagram, () -> 
+		{
+			Rectangle bounds = NodeViewerRegistry.getBounds(aParameter1);
+			SequenceLayout.query(other, () -> 
+			{
+				assertSame(SequenceLayout.controlFlow(other), SequenceLayout.controlFlow(other));
+				assertNotSame(SequenceLayout.controlFlow(aDiagram), SequenceLayout.controlFlow(aDiagram));
+				return null;
+			});
+			assertSame(bounds, NodeViewerRegistry.getBounds(aParameter1));
+			return null;
+		});
+	}
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import java.util.Random;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+
+/**
+ * Measures the cost of the minimap for a class diagram of 10 000 elements: 
+ * the time for the bounds tracker of the canvas to observe an operation that 
+ * moves a node, which the canvas spends anyway to fit the diagram, the time to take the outline after the move, which is 
+ * spent on the application thread once editing pauses, and the time to 
+ * rasterize the outline, which is spent in the background. These are compared 
+ * with the time to take the first outline, and to draw the diagram on a canvas 
+ * of the size of the minimap. Each measure is averaged over a number of moves, 
+ * after a run to warm up the virtual machine. This is not a unit test: run it 
+ * as an application, without assertions, which check the whole diagram.
+ */
+public final class OutlineBenchmark
+{
+	private static final int NODES = 7500;
+	private static final int EDGES = 2500;
+	private static final int COLUMNS = 100;
+	private static final int SPACING = 150;
+	private static final int MOVES = 200;
+	private static final int MINIMAP_SIZE = 200;
+	private static final long SEED = 42;
+	
+	private OutlineBenchmark() {}
+	
+	/**
+	 * @param pArgs Not used.
+	 */
+	public static void main(String[] pArgs)
+	{
+		JavaFXLoader.load();
+		Diagram diagram = createDiagram();
+		for( int i = 0; i < 2; i++ )
+		{
+			run(diagram, i > 0);
+		}
+		Platform.exit();
+	}
+	
+	private static void run(Diagram pDiagram, boolean pReport)
+	{
+		Random random = new Random(SEED);
+		ClassDiagramBuilder builder = new ClassDiagramBuilder(pDiagram);
+		DiagramBoundsTracker tracker = new DiagramBoundsTracker(pDiagram);
+		long start = System.nanoTime();
+		tracker.getOutline();
+		long firstNanos = System.nanoTime() - start;
+		long observeNanos = 0;
+		long outlineNanos = 0;
+		long rasterizeNanos = 0;
+		DiagramOutline outline = null;
+		for( int i = 0; i < MOVES; i++ )
+		{
+			Node node = pDiagram.rootNodes().get(random.nextInt(NODES));
+			DiagramOperation move = builder.createMoveNodeOperation(node, random.nextInt(SPACING) - SPACING / 2, 0);
+			move.execute();
+			start = System.nanoTime();
+			tracker.operationExecuted(move);
+			tracker.getBounds();
+			observeNanos += System.nanoTime() - start;
+			start = System.nanoTime();
+			outline = tracker.getOutline();
+			outlineNanos += System.nanoTime() - start;
+			start = System.nanoTime();
+			outline.rasterize(MINIMAP_SIZE, MINIMAP_SIZE, MINIMAP_SIZE / (double) (COLUMNS * SPACING));
+			rasterizeNanos += System.nanoTime() - start;
+		}
+		Canvas canvas = new Canvas(MINIMAP_SIZE, MINIMAP_SIZE);
+		canvas.getGraphicsContext2D().scale(MINIMAP_SIZE / (double) (COLUMNS * SPACING), MINIMAP_SIZE / (double) (COLUMNS * SPACING));
+		start = System.nanoTime();
+		DiagramType.viewerFor(pDiagram).draw(pDiagram, new CanvasDrawingContext(canvas.getGraphicsContext2D()));
+		long drawNanos = System.nanoTime() - start;
+		if( pReport )
+		{
+			System.out.println(String.format("%d nodes, %d edges: first outline in %.1f ms, diagram drawn in %.1f ms%n"
+					+ "per move: observed in %.2f us, outline in %.2f ms, rasterized in %.2f ms", 
+					outline.getNodeCount(), outline.getEdgeCount(), firstNanos / 1e6, drawNanos / 1e6,
+					observeNanos / 1e3 / MOVES, outlineNanos / 1e6 / MOVES, rasterizeNanos / 1e6 / MOVES));
+		}
+	}
+	
+	private static Diagram createDiagram()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		Random random = new Random(SEED);
+		ClassNode[] nodes = new ClassNode[NODES];
+		for( int i = 0; i < NODES; i++ )
+		{
+			nodes[i] = new ClassNode();
+			nodes[i].setName("Class" + i);
+			nodes[i].translate(i % COLUMNS * SPACING, i / COLUMNS * SPACING);
+			diagram.addRootNode(nodes[i]);
+		}
+		for( int i = 0; i < EDGES; i++ )
+		{
+			DependencyEdge edge = new DependencyEdge();
+			edge.connect(nodes[random.nextInt(NODES)], nodes[random.nextInt(NODES)], diagram);
+			diagram.addEdge(edge);
+		}
+		return diagram;
+	}
+}
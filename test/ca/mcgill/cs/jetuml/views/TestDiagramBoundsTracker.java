@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationProcessor;
+import ca.mcgill.cs.jetuml.diagram.builder.SimpleOperation;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+import ca.mcgill.cs.jetuml.geom.Line;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.viewers.edges.EdgeViewerRegistry;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
+
+public class TestDiagramBoundsTracker
+{
+	private Diagram aDiagram;
+	private ClassDiagramBuilder aBuilder;
+	private DiagramOperationProcessor aProcessor;
+	private DiagramBoundsTracker aTracker;
+	private ClassNode aNode1;
+	private ClassNode aNode2;
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@BeforeEach
+	public void setup()
+	{
+		aDiagram = new Diagram(DiagramType.CLASS);
+		aBuilder = new ClassDiagramBuilder(aDiagram);
+		aProcessor = new DiagramOperationProcessor();
+		aTracker = new DiagramBoundsTracker(aDiagram);
+		aProcessor.addObserver(aTracker);
+		aNode1 = new ClassNode();
+		aNode2 = new ClassNode();
+	}
+	
+	private void assertBounds()
+	{
+		assertEquals(DiagramType.viewerFor(aDiagram).getBounds(aDiagram), aTracker.getBounds());
+	}
+	
+	private static void assertLine(Line pExpected, Line pActual)
+	{
+		assertEquals(pExpected.getPoint1(), pActual.getPoint1());
+		assertEquals(pExpected.getPoint2(), pActual.getPoint2());
+	}
+	
+	private void addTwoNodes()
+	{
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode1, new Point(10, 10)));
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode2, new Point(300, 200)));
+	}
+	
+	@Test
+	public void testEmpty()
+	{
+		assertEquals(new Rectangle(0, 0, 0, 0), aTracker.getBounds());
+	}
+	
+	@Test
+	public void testAddNodes()
+	{
+		aTracker.getBounds();
+		addTwoNodes();
+		assertBounds();
+	}
+	
+	@Test
+	public void testBoundsAreCached()
+	{
+		addTwoNodes();
+		assertSame(aTracker.getBounds(), aTracker.getBounds());
+	}
+	
+	@Test
+	public void testMoveOutwardAndInward()
+	{
+		addTwoNodes();
+		aTracker.getBounds();
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(aNode2, 100, 50));
+		assertBounds();
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(aNode2, -200, -100));
+		assertBounds();
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(aNode1, 5, 5));
+		assertBounds();
+		aProcessor.undoLastExecutedOperation();
+		assertBounds();
+		aProcessor.undoLastExecutedOperation();
+		assertBounds();
+	}
+	
+	@Test
+	public void testRemoveAndUndo()
+	{
+		addTwoNodes();
+		aTracker.getBounds();
+		aProcessor.executeNewOperation(aBuilder.createRemoveElementsOperation(Arrays.asList(aNode2)));
+		assertBounds();
+		aProcessor.undoLastExecutedOperation();
+		assertBounds();
+	}
+	
+	@Test
+	public void testEdgesFollowNodes()
+	{
+		addTwoNodes();
+		aProcessor.executeNewOperation(aBuilder.createAddEdgeOperation(new DependencyEdge(), 
+				new Point(20, 20), new Point(310, 210)));
+		assertBounds();
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(aNode2, 0, 300));
+		assertBounds();
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(aNode2, 0, -400));
+		assertBounds();
+		aProcessor.executeNewOperation(aBuilder.createRemoveElementsOperation(Arrays.asList(aNode1)));
+		assertBounds();
+		aProcessor.undoLastExecutedOperation();
+		assertBounds();
+	}
+	
+	@Test
+	public void testEdgesOfNeighborsFollowNodes()
+	{
+		addTwoNodes();
+		ClassNode node3 = new ClassNode();
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(node3, new Point(300, 400)));
+		aProcessor.executeNewOperation(aBuilder.createAddEdgeOperation(new DependencyEdge(), 
+				new Point(20, 20), new Point(310, 210)));
+		aProcessor.executeNewOperation(aBuilder.createAddEdgeOperation(new DependencyEdge(), 
+				new Point(310, 210), new Point(310, 410)));
+		assertBounds();
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(aNode1, 600, 0));
+		assertBounds();
+		aProcessor.executeNewOperation(aBuilder.createRemoveElementsOperation(Arrays.<DiagramElement>asList(aDiagram.edges().get(1))));
+		assertBounds();
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(node3, 0, 300));
+		assertBounds();
+		aProcessor.undoLastExecutedOperation();
+		aProcessor.undoLastExecutedOperation();
+		assertBounds();
+	}
+	
+	@Test
+	public void testChildrenOfPackage()
+	{
+		PackageNode packageNode = new PackageNode();
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(packageNode, new Point(10, 10)));
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode1, new Point(20, 50)));
+		assertBounds();
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(aNode1, 200, 200));
+		assertBounds();
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(packageNode, 50, 50));
+		assertBounds();
+		aProcessor.undoLastExecutedOperation();
+		aProcessor.undoLastExecutedOperation();
+		assertBounds();
+	}
+	
+	@Test
+	public void testUnknownEffect()
+	{
+		addTwoNodes();
+		aTracker.getBounds();
+		aProcessor.executeNewOperation(new SimpleOperation(()-> aNode2.translate(-100, -100), ()-> aNode2.translate(100, 100)));
+		assertBounds();
+	}
+	
+	@Test
+	public void testInvalidate()
+	{
+		addTwoNodes();
+		aTracker.getBounds();
+		aNode2.translate(500, 0);
+		aTracker.invalidate();
+		assertBounds();
+	}
+	
+	@Test
+	public void testAddElements()
+	{
+		addTwoNodes();
+		aTracker.getBounds();
+		ClassNode node = new ClassNode();
+		node.translate(-50, 400);
+		aProcessor.executeNewOperation(aBuilder.createAddElementsOperation(Arrays.<DiagramElement>asList(node)));
+		assertBounds();
+	}
+	
+	@Test
+	public void testChildBoundsAreForgottenWithTheirTree()
+	{
+		PackageNode packageNode = new PackageNode();
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(packageNode, new Point(10, 10)));
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode1, new Point(20, 50)));
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode2, new Point(400, 400)));
+		Rectangle childBounds = aTracker.getBounds(aNode1);
+		assertSame(childBounds, aTracker.getBounds(aNode1));
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(aNode2, 10, 10));
+		assertSame(childBounds, aTracker.getBounds(aNode1));
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(packageNode, 50, 50));
+		assertNotSame(childBounds, aTracker.getBounds(aNode1));
+		assertEquals(NodeViewerRegistry.getBounds(aNode1), aTracker.getBounds(aNode1));
+		assertEquals(NodeViewerRegistry.getBounds(packageNode), aTracker.getBounds(packageNode));
+	}
+	
+	@Test
+	public void testConnectionPointsFollowNodes()
+	{
+		addTwoNodes();
+		DependencyEdge edge = new DependencyEdge();
+		aProcessor.executeNewOperation(aBuilder.createAddEdgeOperation(edge, new Point(20, 20), new Point(310, 210)));
+		Line points = aTracker.getConnectionPoints(edge);
+		assertSame(points, aTracker.getConnectionPoints(edge));
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(aNode2, -250, 100));
+		assertLine(EdgeViewerRegistry.getConnectionPoints(edge), aTracker.getConnectionPoints(edge));
+		aProcessor.undoLastExecutedOperation();
+		assertLine(points, aTracker.getConnectionPoints(edge));
+	}
+	
+	@Test
+	public void testSeed()
+	{
+		addTwoNodes();
+		DependencyEdge edge = new DependencyEdge();
+		aProcessor.executeNewOperation(aBuilder.createAddEdgeOperation(edge, new Point(20, 20), new Point(310, 210)));
+		Map<Node, Rectangle> nodeBounds = new IdentityHashMap<>();
+		nodeBounds.put(aNode1, new Rectangle(10, 10, 100, 60));
+		nodeBounds.put(aNode2, new Rectangle(300, 200, 100, 60));
+		Line points = new Line(new Point(110, 40), new Point(300, 230));
+		aTracker.seed(nodeBounds, Collections.singletonMap(edge, points));
+		assertEquals(new Rectangle(10, 10, 390, 250), aTracker.getBounds());
+		assertSame(nodeBounds.get(aNode1), aTracker.getBounds(aNode1));
+		assertSame(points, aTracker.getConnectionPoints(edge));
+		aProcessor.executeNewOperation(aBuilder.createMoveNodeOperation(aNode2, 0, 300));
+		assertEquals(NodeViewerRegistry.getBounds(aNode2), aTracker.getBounds(aNode2));
+		assertLine(EdgeViewerRegistry.getConnectionPoints(edge), aTracker.getConnectionPoints(edge));
+		aTracker.invalidate();
+		assertBounds();
+	}
+	
+	@Test
+	public void testOutlineHasAllNodesAndEdges()
+	{
+		PackageNode packageNode = new PackageNode();
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(packageNode, new Point(10, 10)));
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode1, new Point(20, 50)));
+		aProcessor.executeNewOperation(aBuilder.createAddNodeOperation(aNode2, new Point(400, 400)));
+		aProcessor.executeNewOperation(aBuilder.createAddEdgeOperation(new DependencyEdge(), 
+				new Point(30, 60), new Point(410, 410)));
+		DiagramOutline outline = aTracker.getOutline();
+		assertEquals(3, outline.getNodeCount());
+		assertEquals(1, outline.getEdgeCount());
+		aProcessor.executeNewOperation(aBuilder.createRemoveElementsOperation(Arrays.asList(aNode1)));
+		outline = aTracker.getOutline();
+		assertEquals(2, outline.getNodeCount());
+		assertEquals(0, outline.getEdgeCount());
+	}
+}
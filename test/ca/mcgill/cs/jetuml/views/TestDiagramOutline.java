@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import static ca.mcgill.cs.jetuml.views.DiagramOutline.BACKGROUND;
+import static ca.mcgill.cs.jetuml.views.DiagramOutline.EDGE;
+import static ca.mcgill.cs.jetuml.views.DiagramOutline.NODE_BORDER;
+import static ca.mcgill.cs.jetuml.views.DiagramOutline.NODE_FILL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.geom.Line;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+
+public class TestDiagramOutline
+{
+	private static final int SIZE = 10;
+	
+	private static int pixel(int[] pPixels, int pX, int pY)
+	{
+		return pPixels[pY * SIZE + pX];
+	}
+	
+	@Test
+	public void testEmpty()
+	{
+		DiagramOutline outline = new DiagramOutline.Builder().build();
+		assertEquals(0, outline.getNodeCount());
+		assertEquals(0, outline.getEdgeCount());
+		int[] pixels = outline.rasterize(SIZE, SIZE, 1);
+		assertEquals(SIZE * SIZE, pixels.length);
+		for( int pixel : pixels )
+		{
+			assertEquals(BACKGROUND, pixel);
+		}
+	}
+	
+	@Test
+	public void testNodesAreScaled()
+	{
+		DiagramOutline outline = new DiagramOutline.Builder().addNode(new Rectangle(20, 20, 40, 40)).build();
+		assertEquals(1, outline.getNodeCount());
+		int[] pixels = outline.rasterize(SIZE, SIZE, 0.1);
+		assertEquals(BACKGROUND, pixel(pixels, 1, 1));
+		assertEquals(NODE_BORDER, pixel(pixels, 2, 2));
+		assertEquals(NODE_BORDER, pixel(pixels, 5, 2));
+		assertEquals(NODE_FILL, pixel(pixels, 3, 3));
+		assertEquals(NODE_FILL, pixel(pixels, 4, 4));
+		assertEquals(NODE_BORDER, pixel(pixels, 5, 5));
+		assertEquals(BACKGROUND, pixel(pixels, 6, 6));
+	}
+	
+	@Test
+	public void testNodesOverEdgesAndChildrenOverParents()
+	{
+		DiagramOutline outline = new DiagramOutline.Builder()
+				.addNode(new Rectangle(0, 0, 8, 8))
+				.addNode(new Rectangle(2, 2, 3, 3))
+				.addEdge(new Line(new Point(0, 9), new Point(9, 0)))
+				.build();
+		assertEquals(2, outline.getNodeCount());
+		assertEquals(1, outline.getEdgeCount());
+		int[] pixels = outline.rasterize(SIZE, SIZE, 1);
+		assertEquals(EDGE, pixel(pixels, 0, 9));
+		assertEquals(EDGE, pixel(pixels, 9, 0));
+		assertEquals(EDGE, pixel(pixels, 8, 1));
+		assertEquals(NODE_BORDER, pixel(pixels, 7, 2));
+		assertEquals(NODE_BORDER, pixel(pixels, 2, 2));
+		assertEquals(NODE_FILL, pixel(pixels, 3, 3));
+		assertEquals(NODE_FILL, pixel(pixels, 5, 5));
+	}
+	
+	@Test
+	public void testClipping()
+	{
+		DiagramOutline outline = new DiagramOutline.Builder()
+				.addNode(new Rectangle(5, 5, 100, 100))
+				.addEdge(new Line(new Point(0, 0), new Point(100, 0)))
+				.build();
+		int[] pixels = outline.rasterize(SIZE, SIZE, 1);
+		assertEquals(EDGE, pixel(pixels, 9, 0));
+		assertEquals(NODE_BORDER, pixel(pixels, 5, 9));
+		assertEquals(NODE_FILL, pixel(pixels, 9, 9));
+	}
+}
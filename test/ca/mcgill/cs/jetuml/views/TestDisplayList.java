@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import javafx.geometry.VPos;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+public class TestDisplayList
+{
+	private DisplayList.Recorder aRecorder;
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@BeforeEach
+	public void setup()
+	{
+		aRecorder = new DisplayList.Recorder();
+	}
+	
+	@Test
+	public void testRecorderState()
+	{
+		assertNull(aRecorder.getLineDashes());
+		aRecorder.setFill(Color.RED);
+		aRecorder.setStroke(Color.BLUE);
+		aRecorder.setLineWidth(0.6);
+		aRecorder.setTextAlign(TextAlignment.CENTER);
+		aRecorder.setTextBaseline(VPos.TOP);
+		double[] dashes = {3, 3};
+		aRecorder.setLineDashes(dashes);
+		assertEquals(Color.RED, aRecorder.getFill());
+		assertEquals(Color.BLUE, aRecorder.getStroke());
+		assertEquals(0.6, aRecorder.getLineWidth());
+		assertEquals(TextAlignment.CENTER, aRecorder.getTextAlign());
+		assertEquals(VPos.TOP, aRecorder.getTextBaseline());
+		assertArrayEquals(dashes, aRecorder.getLineDashes());
+		assertNotSame(dashes, aRecorder.getLineDashes());
+		assertEquals(6, aRecorder.build().size());
+	}
+	
+	@Test
+	public void testReplay()
+	{
+		aRecorder.setFill(Color.RED);
+		aRecorder.fillRect(0, 0, 10, 10);
+		aRecorder.strokeLine(0, 0, 100, 100);
+		DisplayList.Recorder copy = new DisplayList.Recorder();
+		aRecorder.build().replay(copy);
+		assertEquals(Color.RED, copy.getFill());
+		assertEquals(3, copy.build().size());
+	}
+	
+	@Test
+	public void testBuildIsImmutable()
+	{
+		aRecorder.fillRect(0, 0, 10, 10);
+		DisplayList list = aRecorder.build();
+		aRecorder.fillRect(20, 20, 10, 10);
+		assertEquals(1, list.size());
+		assertEquals(2, aRecorder.build().size());
+	}
+	
+	@Test
+	public void testReplayRegion()
+	{
+		aRecorder.fillRect(0, 0, 10, 10);
+		aRecorder.setFill(Color.RED);
+		aRecorder.fillOval(100, 100, 10, 10);
+		DisplayList list = aRecorder.build();
+		DisplayList.Recorder copy = new DisplayList.Recorder();
+		assertEquals(1, list.replay(copy, new Rectangle(0, 0, 50, 50)));
+		assertEquals(Color.RED, copy.getFill());
+		assertEquals(2, copy.build().size());
+		assertEquals(1, list.replay(new DisplayList.Recorder(), new Rectangle(90, 90, 50, 50)));
+		assertEquals(0, list.replay(new DisplayList.Recorder(), new Rectangle(200, 0, 50, 50)));
+		assertEquals(2, list.replay(new DisplayList.Recorder(), new Rectangle(0, 0, 200, 200)));
+	}
+	
+	@Test
+	public void testReplayRegionFollowsTransform()
+	{
+		aRecorder.translate(100, 0);
+		aRecorder.scale(2, 2);
+		aRecorder.fillRect(10, 10, 10, 10); // Device bounds (120, 20, 20, 20)
+		DisplayList list = aRecorder.build();
+		assertEquals(0, list.replay(new DisplayList.Recorder(), new Rectangle(0, 0, 100, 100)));
+		assertEquals(1, list.replay(new DisplayList.Recorder(), new Rectangle(130, 30, 5, 5)));
+		assertEquals(0, list.replay(new DisplayList.Recorder(), new Rectangle(150, 0, 50, 50)));
+	}
+	
+	@Test
+	public void testReplayRegionIncludesShadow()
+	{
+		aRecorder.setEffect(new DropShadow(3, 3, 3, Color.LIGHTGRAY));
+		aRecorder.fillRect(0, 0, 10, 10);
+		DisplayList list = aRecorder.build();
+		assertEquals(1, list.replay(new DisplayList.Recorder(), new Rectangle(15, 15, 5, 5)));
+	}
+	
+	@Test
+	public void testPaths()
+	{
+		aRecorder.beginPath();
+		aRecorder.stroke();
+		assertEquals(0, aRecorder.build().size());
+		aRecorder.moveTo(100, 100);
+		aRecorder.lineTo(110, 100);
+		aRecorder.quadraticCurveTo(120, 120, 110, 110);
+		aRecorder.stroke();
+		aRecorder.fill();
+		DisplayList list = aRecorder.build();
+		assertEquals(2, list.size());
+		assertEquals(0, list.replay(new DisplayList.Recorder(), new Rectangle(0, 0, 50, 50)));
+		DisplayList.Recorder copy = new DisplayList.Recorder();
+		assertEquals(2, list.replay(copy, new Rectangle(115, 115, 5, 5)));
+		assertEquals(2, copy.build().size());
+	}
+	
+	@Test
+	public void testText()
+	{
+		aRecorder.setFont(StringViewer.FONT);
+		aRecorder.setTextAlign(TextAlignment.RIGHT);
+		aRecorder.fillText("Some text\non two lines", 200, 100);
+		DisplayList list = aRecorder.build();
+		assertEquals(1, list.replay(new DisplayList.Recorder(), new Rectangle(190, 95, 5, 5)));
+		assertEquals(0, list.replay(new DisplayList.Recorder(), new Rectangle(210, 95, 50, 5)));
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.application.Metrics;
+import ca.mcgill.cs.jetuml.diagram.Prototypes;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.viewers.nodes.AbstractNodeViewer;
+import javafx.scene.image.Image;
+
+public class TestIconCache
+{
+	private final Metrics.Timer aRenderTimer = Metrics.timer(Metrics.ICON_RENDER);
+	private boolean aMetricsEnabled;
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@BeforeEach
+	public void setUp()
+	{
+		aMetricsEnabled = Metrics.isEnabled();
+		Metrics.setEnabled(true);
+	}
+	
+	@AfterEach
+	public void tearDown()
+	{
+		IconCache.instance().clear();
+		Metrics.setEnabled(aMetricsEnabled);
+	}
+	
+	@Test
+	public void testIconIsRenderedOnce()
+	{
+		Image icon = IconCache.instance().icon(Prototypes.CLASS);
+		int size = IconCache.instance().size();
+		long renderings = aRenderTimer.count();
+		assertSame(icon, IconCache.instance().icon(Prototypes.CLASS));
+		assertEquals(size, IconCache.instance().size());
+		assertEquals(renderings, aRenderTimer.count());
+	}
+	
+	@Test
+	public void testIconDimensions()
+	{
+		long renderings = aRenderTimer.count();
+		Image icon = IconCache.instance().icon(Prototypes.DEPENDENCY);
+		assertEquals(AbstractNodeViewer.BUTTON_SIZE, icon.getWidth());
+		assertEquals(AbstractNodeViewer.BUTTON_SIZE, icon.getHeight());
+		assertEquals(renderings + 1, aRenderTimer.count());
+	}
+	
+	@Test
+	public void testIconsAreKeyedByIdentity()
+	{
+		Image icon = IconCache.instance().icon(Prototypes.CLASS);
+		assertNotSame(icon, IconCache.instance().icon(new ClassNode()));
+	}
+	
+	@Test
+	public void testOnlyPrototypesAreCached()
+	{
+		ClassNode node = new ClassNode();
+		Image icon = IconCache.instance().icon(node);
+		assertEquals(AbstractNodeViewer.BUTTON_SIZE, icon.getWidth());
+		assertEquals(0, IconCache.instance().size());
+		assertNotSame(icon, IconCache.instance().icon(node));
+	}
+	
+	@Test
+	public void testSelectionIcon()
+	{
+		assertSame(IconCache.instance().selectionIcon(), IconCache.instance().selectionIcon());
+	}
+}
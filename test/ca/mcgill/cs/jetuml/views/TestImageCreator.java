@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.StateDiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.nodes.FinalStateNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.InitialStateNode;
+import ca.mcgill.cs.jetuml.geom.Point;
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+
+public class TestImageCreator
+{
+	private static final int CHANNEL_TOLERANCE = 64;
+	private static final double MEAN_TOLERANCE = 1;
+	private static final double OUTLIER_TOLERANCE = 0.005;
+	
+	private Diagram aDiagram;
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	/*
+	 * A diagram without text, whose rendering does not depend
+	 * on the fonts installed.
+	 */
+	@BeforeEach
+	public void setup()
+	{
+		aDiagram = new Diagram(DiagramType.STATE);
+		StateDiagramBuilder builder = new StateDiagramBuilder(aDiagram);
+		builder.createAddNodeOperation(new InitialStateNode(), new Point(10, 10)).execute();
+		builder.createAddNodeOperation(new FinalStateNode(), new Point(200, 130)).execute();
+		builder.createAddNodeOperation(new InitialStateNode(), new Point(330, 20)).execute();
+		builder.createAddNodeOperation(new FinalStateNode(), new Point(600, 300)).execute();
+	}
+	
+	private static BufferedImage createImage(Diagram pDiagram) throws Exception
+	{
+		CompletableFuture<BufferedImage> image = new CompletableFuture<>();
+		Platform.runLater(() -> image.complete(SwingFXUtils.fromFXImage(ImageCreator.createImage(pDiagram), null)));
+		return image.get();
+	}
+	
+	private static int difference(int pRGB1, int pRGB2)
+	{
+		int difference = 0;
+		for( int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE )
+		{
+			difference = Math.max(difference, Math.abs((pRGB1 >> shift & 0xFF) - (pRGB2 >> shift & 0xFF)));
+		}
+		return difference;
+	}
+	
+	@Test
+	public void testBufferedImageMatchesCanvas() throws Exception
+	{
+		BufferedImage expected = createImage(aDiagram);
+		BufferedImage actual = ImageCreator.createBufferedImage(aDiagram);
+		// The diagram spans several tiles in each direction
+		assertTrue(expected.getWidth() > TileRenderer.TILE_SIZE * 2);
+		assertTrue(expected.getHeight() > TileRenderer.TILE_SIZE);
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		long total = 0;
+		int outliers = 0;
+		for( int y = 0; y < expected.getHeight(); y++ )
+		{
+			for( int x = 0; x < expected.getWidth(); x++ )
+			{
+				int difference = difference(expected.getRGB(x, y), actual.getRGB(x, y));
+				total += difference;
+				if( difference > CHANNEL_TOLERANCE )
+				{
+					outliers++;
+				}
+			}
+		}
+		int pixels = expected.getWidth() * expected.getHeight();
+		assertTrue(total / (double) pixels < MEAN_TOLERANCE);
+		assertTrue(outliers / (double) pixels < OUTLIER_TOLERANCE);
+	}
+	
+	@Test
+	public void testThumbnail()
+	{
+		BufferedImage image = ImageCreator.createBufferedImage(aDiagram);
+		BufferedImage thumbnail = ImageCreator.createThumbnail(aDiagram, 100);
+		assertEquals(100, thumbnail.getWidth());
+		assertTrue(thumbnail.getHeight() < 100);
+		assertEquals(image.getHeight() / (double) image.getWidth(), thumbnail.getHeight() / (double) thumbnail.getWidth(), 0.05);
+	}
+	
+	@Test
+	public void testThumbnailIsNotEnlarged()
+	{
+		BufferedImage image = ImageCreator.createBufferedImage(aDiagram);
+		BufferedImage thumbnail = ImageCreator.createThumbnail(aDiagram, 10000);
+		assertEquals(image.getWidth(), thumbnail.getWidth());
+		assertEquals(image.getHeight(), thumbnail.getHeight());
+	}
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.ArcType;
+
+public class TestTileRenderer
+{
+	private static final int WIDTH = 700;
+	private static final int HEIGHT = 500;
+	private static final int ANTIALIASING_TOLERANCE = 48;
+	
+	private static TileRenderer aRenderer;
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+		aRenderer = new TileRenderer(3);
+	}
+	
+	@AfterAll
+	public static void tearDownClass()
+	{
+		aRenderer.shutdown();
+	}
+	
+	/*
+	 * Shapes that straddle the tile boundaries, with shadows, 
+	 * dashes, transforms and antialiased edges.
+	 */
+	private static DisplayList createDrawing()
+	{
+		DisplayList.Recorder recorder = new DisplayList.Recorder();
+		recorder.setLineWidth(0.6);
+		recorder.setFill(Color.WHITE);
+		recorder.translate(3.5, 3.5);
+		recorder.setEffect(new DropShadow(3, 3, 3, Color.LIGHTGRAY));
+		recorder.fillRect(200, 200, 100, 100);
+		recorder.setEffect(null);
+		recorder.strokeRect(200, 200, 100, 100);
+		recorder.setLineDashes(3, 3);
+		recorder.strokeLine(0, 0, 690, 480);
+		recorder.setLineDashes(null);
+		recorder.setFill(Color.rgb(173, 193, 214, 0.75));
+		recorder.fillOval(240, 240, 40, 300);
+		recorder.strokeArc(500, 200, 30, 30, 45, 270, ArcType.OPEN);
+		recorder.scale(2, 2);
+		recorder.beginPath();
+		recorder.moveTo(100, 10);
+		recorder.quadraticCurveTo(150, 150, 300, 100);
+		recorder.lineTo(130, 200);
+		recorder.stroke();
+		recorder.setFont(StringViewer.FONT);
+		recorder.setFill(Color.BLACK);
+		recorder.fillText("Text\nacross tiles", 125, 128);
+		return recorder.build();
+	}
+	
+	private static int[] pixels(BufferedImage pImage)
+	{
+		return pImage.getRGB(0, 0, pImage.getWidth(), pImage.getHeight(), null, 0, pImage.getWidth());
+	}
+	
+	/*
+	 * Java2D subdivides the curves that cross the bounds of a tile, which 
+	 * slightly changes the antialiasing of the pixels along these curves.
+	 */
+	private static void assertSimilar(BufferedImage pExpected, BufferedImage pActual)
+	{
+		int[] expected = pixels(pExpected);
+		int[] actual = pixels(pActual);
+		assertEquals(expected.length, actual.length);
+		for( int i = 0; i < expected.length; i++ )
+		{
+			for( int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE )
+			{
+				assertEquals(expected[i] >> shift & 0xFF, actual[i] >> shift & 0xFF, ANTIALIASING_TOLERANCE);
+			}
+		}
+	}
+	
+	@Test
+	public void testTilesMatchSingleImage()
+	{
+		DisplayList drawing = createDrawing();
+		BufferedImage expected = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = expected.createGraphics();
+		graphics.setColor(java.awt.Color.WHITE);
+		graphics.fillRect(0, 0, WIDTH, HEIGHT);
+		drawing.replay(new Java2DDrawingContext(graphics));
+		graphics.dispose();
+		
+		BufferedImage actual = aRenderer.render(drawing, WIDTH, HEIGHT);
+		assertEquals(WIDTH, actual.getWidth());
+		assertEquals(HEIGHT, actual.getHeight());
+		assertSimilar(expected, actual);
+	}
+	
+	@Test
+	public void testThreadCountDoesNotChangeImage()
+	{
+		DisplayList drawing = createDrawing();
+		TileRenderer renderer = new TileRenderer(1);
+		assertEquals(1, renderer.getThreadCount());
+		try
+		{
+			assertArrayEquals(pixels(renderer.render(drawing, WIDTH, HEIGHT)), pixels(aRenderer.render(drawing, WIDTH, HEIGHT)));
+		}
+		finally
+		{
+			renderer.shutdown();
+		}
+	}
+	
+	@Test
+	public void testSmallImage()
+	{
+		DisplayList.Recorder recorder = new DisplayList.Recorder();
+		recorder.setFill(Color.BLACK);
+		recorder.fillRect(1, 1, 1, 1);
+		BufferedImage image = aRenderer.render(recorder.build(), 3, 2);
+		assertEquals(0xFFFFFFFF, image.getRGB(0, 0));
+		assertEquals(0xFF000000, image.getRGB(1, 1));
+		assertEquals(0xFFFFFFFF, image.getRGB(2, 1));
+	}
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.views;
+
+import java.util.Random;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+import javafx.application.Platform;
+
+/**
+ * Measures how the rasterization of a class diagram of about 3000 by 3000 
+ * pixels scales with the number of threads of the tile renderer, from one
+ * thread to twice the number of processors. The diagram is recorded once,
+ * on the main thread, and the time to record it is reported separately. 
+ * Each measure is averaged over a number of renderings, after a run to warm 
+ * up the virtual machine. This is not a unit test: run it as an application.
+ */
+public final class TileRendererBenchmark
+{
+	private static final int NODES = 400;
+	private static final int EDGES = 300;
+	private static final int COLUMNS = 20;
+	private static final int SPACING = 150;
+	private static final int ROUNDS = 10;
+	private static final long SEED = 42;
+	
+	private TileRendererBenchmark() {}
+	
+	/**
+	 * @param pArgs Not used.
+	 */
+	public static void main(String[] pArgs)
+	{
+		JavaFXLoader.load();
+		Diagram diagram = createDiagram();
+		Rectangle bounds = DiagramType.viewerFor(diagram).getBounds(diagram);
+		long start = System.nanoTime();
+		DisplayList drawing = ImageCreator.record(diagram, 1);
+		long recordNanos = System.nanoTime() - start;
+		int width = bounds.getWidth() + SPACING;
+		int height = bounds.getHeight() + SPACING;
+		System.out.println(String.format("%d x %d pixels, %d commands recorded in %.1f ms", 
+				width, height, drawing.size(), recordNanos / 1e6));
+		for( int i = 0; i < 2; i++ )
+		{
+			run(drawing, width, height, i > 0);
+		}
+		Platform.exit();
+	}
+	
+	private static void run(DisplayList pDrawing, int pWidth, int pHeight, boolean pReport)
+	{
+		int processors = Runtime.getRuntime().availableProcessors();
+		double singleThreadMillis = 0;
+		for( int threads = 1; threads <= processors * 2; threads *= 2 )
+		{
+			TileRenderer renderer = new TileRenderer(threads);
+			long start = System.nanoTime();
+			for( int i = 0; i < ROUNDS; i++ )
+			{
+				renderer.render(pDrawing, pWidth, pHeight);
+			}
+			double millis = (System.nanoTime() - start) / 1e6 / ROUNDS;
+			renderer.shutdown();
+			if( threads == 1 )
+			{
+				singleThreadMillis = millis;
+			}
+			if( pReport )
+			{
+				System.out.println(String.format("%2d threads: %.1f ms (x%.2f)", threads, millis, singleThreadMillis / millis));
+			}
+		}
+	}
+	
+	private static Diagram createDiagram()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		Random random = new Random(SEED);
+		ClassNode[] nodes = new ClassNode[NODES];
+		for( int i = 0; i < NODES; i++ )
+		{
+			nodes[i] = new ClassNode();
+			nodes[i].setName("Class" + i);
+			nodes[i].setMethods("+ method" + i + "()");
+			nodes[i].translate(i % COLUMNS * SPACING, i / COLUMNS * SPACING);
+			diagram.addRootNode(nodes[i]);
+		}
+		for( int i = 0; i < EDGES; i++ )
+		{
+			DependencyEdge edge = new DependencyEdge();
+			edge.connect(nodes[random.nextInt(NODES)], nodes[random.nextInt(NODES)], diagram);
+			diagram.addEdge(edge);
+		}
+		return diagram;
+	}
+}